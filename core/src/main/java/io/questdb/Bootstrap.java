@@ -481,6 +481,7 @@ public class Bootstrap {
             verifyFileSystem(path, cairoConfig.getSnapshotRoot(), "snapshot");
             verifyFileSystem(path, cairoConfig.getSqlCopyInputRoot(), "sql copy input");
             verifyFileSystem(path, cairoConfig.getSqlCopyInputWorkRoot(), "sql copy input worker");
+            verifyFileSystem(path, cairoConfig.getSqlCopyExportRoot(), "sql copy export");
             verifyFileOpts(path, cairoConfig);
             cairoConfig.getVolumeDefinitions().forEach((alias, volumePath) -> verifyFileSystem(path, volumePath, "create table allowed volume [" + alias + ']'));
         }
@@ -43,6 +43,12 @@ public interface MessageBus extends Closeable {
 
     CairoConfiguration getConfiguration();
 
+    Sequence getGroupByMergeShardPubSeq();
+
+    RingQueue<GroupByMergeShardTask> getGroupByMergeShardQueue();
+
+    Sequence getGroupByMergeShardSubSeq();
+
     Sequence getIndexerPubSequence();
 
     RingQueue<ColumnIndexerTask> getIndexerQueue();
@@ -40,6 +40,9 @@ public class MessageBusImpl implements MessageBus {
     private final RingQueue<ColumnPurgeTask> columnPurgeQueue;
     private final SCSequence columnPurgeSubSeq;
     private final CairoConfiguration configuration;
+    private final MPSequence groupByMergeShardPubSeq;
+    private final RingQueue<GroupByMergeShardTask> groupByMergeShardQueue;
+    private final MCSequence groupByMergeShardSubSeq;
     private final MPSequence indexerPubSeq;
     private final RingQueue<ColumnIndexerTask> indexerQueue;
     private final MCSequence indexerSubSeq;
@@ -122,6 +125,11 @@ public class MessageBusImpl implements MessageBus {
         this.o3PurgeDiscoverySubSeq = new MCSequence(this.o3PurgeDiscoveryQueue.getCycle());
         this.o3PurgeDiscoveryPubSeq.then(this.o3PurgeDiscoverySubSeq).then(o3PurgeDiscoveryPubSeq);
 
+        this.groupByMergeShardQueue = new RingQueue<>(GroupByMergeShardTask::new, configuration.getGroupByMergeShardQueueCapacity());
+        this.groupByMergeShardPubSeq = new MPSequence(groupByMergeShardQueue.getCycle());
+        this.groupByMergeShardSubSeq = new MCSequence(groupByMergeShardQueue.getCycle());
+        groupByMergeShardPubSeq.then(groupByMergeShardSubSeq).then(groupByMergeShardPubSeq);
+
         this.latestByQueue = new RingQueue<>(LatestByTask::new, configuration.getLatestByQueueCapacity());
         this.latestByPubSeq = new MPSequence(latestByQueue.getCycle());
         this.latestBySubSeq = new MCSequence(latestByQueue.getCycle());
@@ -217,6 +225,21 @@ public class MessageBusImpl implements MessageBus {
         return configuration;
     }
 
+    @Override
+    public Sequence getGroupByMergeShardPubSeq() {
+        return groupByMergeShardPubSeq;
+    }
+
+    @Override
+    public RingQueue<GroupByMergeShardTask> getGroupByMergeShardQueue() {
+        return groupByMergeShardQueue;
+    }
+
+    @Override
+    public Sequence getGroupByMergeShardSubSeq() {
+        return groupByMergeShardSubSeq;
+    }
+
     @Override
     public Sequence getIndexerPubSequence() {
         return indexerPubSeq;
@@ -68,6 +68,10 @@ public class Metrics implements Scrapable {
         return new Metrics(true, new MetricsRegistryImpl());
     }
 
+    public void addScrapable(Scrapable scrapable) {
+        metricsRegistry.addScrapable(scrapable);
+    }
+
     public WalMetrics getWalMetrics() {
         return walMetrics;
     }
@@ -96,6 +96,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int cairoPageFrameReduceTaskPoolCapacity;
     private final int cairoSqlCopyLogRetentionDays;
     private final int cairoSqlCopyQueueCapacity;
+    private final String cairoSqlCopyExportRoot;
     private final String cairoSqlCopyRoot;
     private final String cairoSqlCopyWorkRoot;
     private final long cairoTableRegistryAutoReloadFrequency;
@@ -186,6 +187,12 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean o3QuickSortEnabled;
     private final int parallelIndexThreshold;
     private final boolean parallelIndexingEnabled;
+    private final long partitionCompressionAge;
+    private final int partitionCompressionBlockSize;
+    private final boolean partitionCompressionEncodingEnabled;
+    private final long partitionCompressionInterval;
+    private final long partitionCompressionReaderCacheSize;
+    private final int partitionZoneMapBlockRows;
     private final boolean pgEnabled;
     private final PGWireConfiguration pgWireConfiguration = new PropPGWireConfiguration();
     private final PropPGWireDispatcherConfiguration propPGWireDispatcherConfiguration = new PropPGWireDispatcherConfiguration();
@@ -235,7 +242,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final double sqlFastMapLoadFactor;
     private final int sqlFloatToStrCastScale;
     private final int sqlGroupByMapCapacity;
+    private final int sqlGroupByMergeShardQueueCapacity;
     private final int sqlGroupByPoolCapacity;
+    private final int sqlGroupByShardingThreshold;
     private final int sqlHashJoinLightValueMaxPages;
     private final int sqlHashJoinLightValuePageSize;
     private final int sqlHashJoinValueMaxPages;
@@ -263,8 +272,13 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlModelPoolCapacity;
     private final int sqlPageFrameMaxRows;
     private final int sqlPageFrameMinRows;
+    private final boolean sqlParallelAsOfJoinEnabled;
     private final boolean sqlParallelFilterEnabled;
     private final boolean sqlParallelFilterPreTouchEnabled;
+    private final boolean sqlParallelGroupByEnabled;
+    private final boolean sqlParallelHashJoinEnabled;
+    private final boolean sqlParallelLatestByEnabled;
+    private final boolean sqlParallelSortEnabled;
     private final int sqlRenameTableModelPoolCapacity;
     private final int sqlSmallMapKeyCapacity;
     private final int sqlSmallMapPageSize;
@@ -272,6 +286,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long sqlSortKeyPageSize;
     private final int sqlSortLightValueMaxPages;
     private final long sqlSortLightValuePageSize;
+    private final String sqlSortSpillRoot;
+    private final long sqlSortSpillThreshold;
+    private final int sqlSortTreeMaxRows;
     private final int sqlSortValueMaxPages;
     private final int sqlSortValuePageSize;
     private final int sqlStrFunctionBufferMaxSize;
@@ -379,6 +396,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long lineTcpIOWorkerSleepThreshold;
     private long lineTcpIOWorkerYieldThreshold;
     private long lineTcpMaintenanceInterval;
+    private double lineTcpMaxLoadRatio;
     private int lineTcpMaxMeasurementSize;
     private int lineTcpMsgBufferSize;
     private int lineTcpNetBindIPv4Address;
@@ -389,6 +407,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long lineTcpNetConnectionQueueTimeout;
     private int lineTcpNetConnectionRcvBuf;
     private long lineTcpNetConnectionTimeout;
+    private long lineTcpNUpdatesPerLoadRebalance;
+    private double lineTcpParallelTableLoadShare;
     private LineProtoTimestampAdapter lineTcpTimestampAdapter;
     private int lineTcpWriterQueueCapacity;
     private int[] lineTcpWriterWorkerAffinity;
@@ -407,6 +427,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long minIdleMsBeforeWriterRelease;
     private int multipartHeaderBufferSize;
     private long multipartIdleSpinCount;
+    private boolean netIOURingEnabled;
     private int netTestConnectionBufferSize;
     private final long o3PartitionSplitMinSize;
     private int pgBinaryParamsCapacity;
@@ -706,6 +727,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.circuitBreakerTimeout = (long) (getDouble(properties, env, PropertyKey.QUERY_TIMEOUT_SEC, 60) * Timestamps.SECOND_MILLIS);
             this.netTestConnectionBufferSize = getInt(properties, env, PropertyKey.CIRCUIT_BREAKER_BUFFER_SIZE, 64);
             this.netTestConnectionBufferSize = getInt(properties, env, PropertyKey.NET_TEST_CONNECTION_BUFFER_SIZE, netTestConnectionBufferSize);
+            this.netIOURingEnabled = getBoolean(properties, env, PropertyKey.NET_IO_URING_ENABLED, false);
 
             this.pgEnabled = getBoolean(properties, env, PropertyKey.PG_ENABLED, true);
             if (pgEnabled) {
@@ -831,6 +853,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlHashJoinLightValueMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_HASH_JOIN_LIGHT_VALUE_MAX_PAGES, Integer.MAX_VALUE);
             this.sqlSortValuePageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_PAGE_SIZE, 16777216);
             this.sqlSortValueMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_MAX_PAGES, Integer.MAX_VALUE);
+            this.sqlSortSpillRoot = getString(properties, env, PropertyKey.CAIRO_SQL_SORT_SPILL_ROOT, tmpRoot);
+            this.sqlSortSpillThreshold = getLongSize(properties, env, PropertyKey.CAIRO_SQL_SORT_SPILL_THRESHOLD, 256 * Numbers.SIZE_1MB);
+            this.sqlSortTreeMaxRows = getInt(properties, env, PropertyKey.CAIRO_SQL_SORT_TREE_MAX_ROWS, 1_000_000);
             this.workStealTimeoutNanos = getLong(properties, env, PropertyKey.CAIRO_WORK_STEAL_TIMEOUT_NANOS, 10_000);
             this.parallelIndexingEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARALLEL_INDEXING_ENABLED, true);
             this.sqlJoinMetadataPageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_JOIN_METADATA_PAGE_SIZE, 16384);
@@ -853,8 +878,15 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.cairoPageFrameReduceQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY, 64));
             this.cairoPageFrameReduceRowIdListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_ROWID_LIST_CAPACITY, 256));
             this.cairoPageFrameReduceColumnListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY, 16));
+            this.sqlParallelAsOfJoinEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_ASOFJOIN_ENABLED, true);
             this.sqlParallelFilterEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_ENABLED, true);
             this.sqlParallelFilterPreTouchEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_PRETOUCH_ENABLED, true);
+            this.sqlParallelGroupByEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_ENABLED, true);
+            this.sqlParallelHashJoinEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_HASHJOIN_ENABLED, true);
+            this.sqlParallelLatestByEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_LATESTBY_ENABLED, true);
+            this.sqlParallelSortEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_SORT_ENABLED, true);
+            this.sqlGroupByMergeShardQueueCapacity = getQueueCapacity(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_MERGE_QUEUE_CAPACITY, 32);
+            this.sqlGroupByShardingThreshold = getInt(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_SHARDING_THRESHOLD, 100_000);
             this.cairoPageFrameReduceShardCount = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT, 4);
             this.cairoPageFrameReduceTaskPoolCapacity = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY, 4);
 
@@ -915,6 +947,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             }
 
             this.cairoSqlCopyRoot = getString(properties, env, PropertyKey.CAIRO_SQL_COPY_ROOT, null);
+            this.cairoSqlCopyExportRoot = getString(properties, env, PropertyKey.CAIRO_SQL_COPY_EXPORT_ROOT, null);
             String cairoSqlCopyWorkRoot = getString(properties, env, PropertyKey.CAIRO_SQL_COPY_WORK_ROOT, tmpRoot);
             if (cairoSqlCopyRoot != null) {
                 this.cairoSqlCopyWorkRoot = getCanonicalPath(cairoSqlCopyWorkRoot);
@@ -980,6 +1013,12 @@ public class PropServerConfiguration implements ServerConfiguration {
 
             // 1TB to disable by default
             this.o3PartitionSplitMinSize = getLongSize(properties, env, PropertyKey.CAIRO_O3_PARTITION_SPLIT_MIN_SIZE, 1024L * 1024L * 1024L * 1024L);
+            this.partitionCompressionAge = getLong(properties, env, PropertyKey.CAIRO_PARTITION_COMPRESSION_AGE, 0);
+            this.partitionCompressionBlockSize = Numbers.ceilPow2(getIntSize(properties, env, PropertyKey.CAIRO_PARTITION_COMPRESSION_BLOCK_SIZE, 256 * 1024));
+            this.partitionCompressionEncodingEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARTITION_COMPRESSION_ENCODING_ENABLED, true);
+            this.partitionCompressionInterval = getLong(properties, env, PropertyKey.CAIRO_PARTITION_COMPRESSION_INTERVAL, 60_000);
+            this.partitionCompressionReaderCacheSize = getLongSize(properties, env, PropertyKey.CAIRO_PARTITION_COMPRESSION_READER_CACHE_SIZE, 64 * Numbers.SIZE_1MB);
+            this.partitionZoneMapBlockRows = getInt(properties, env, PropertyKey.CAIRO_PARTITION_ZONE_MAP_BLOCK_ROWS, 64 * 1024);
 
             parseBindTo(properties, env, PropertyKey.LINE_UDP_BIND_TO, "0.0.0.0:9009", (a, p) -> {
                 this.lineUdpBindIPV4Address = a;
@@ -1059,6 +1098,9 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.lineTcpIOWorkerYieldThreshold = getLong(properties, env, PropertyKey.LINE_TCP_IO_WORKER_YIELD_THRESHOLD, 10);
                 this.lineTcpIOWorkerSleepThreshold = getLong(properties, env, PropertyKey.LINE_TCP_IO_WORKER_SLEEP_THRESHOLD, 10_000);
                 this.lineTcpMaintenanceInterval = getLong(properties, env, PropertyKey.LINE_TCP_MAINTENANCE_JOB_INTERVAL, 1000);
+                this.lineTcpMaxLoadRatio = getDouble(properties, env, PropertyKey.LINE_TCP_MAX_LOAD_RATIO, 1.9);
+                this.lineTcpNUpdatesPerLoadRebalance = getLong(properties, env, PropertyKey.LINE_TCP_N_UPDATES_PER_LOAD_REBALANCE, 10_000);
+                this.lineTcpParallelTableLoadShare = getDouble(properties, env, PropertyKey.LINE_TCP_PARALLEL_TABLE_LOAD_SHARE, 0);
                 this.lineTcpCommitIntervalFraction = getDouble(properties, env, PropertyKey.LINE_TCP_COMMIT_INTERVAL_FRACTION, 0.5);
                 this.lineTcpCommitIntervalDefault = getLong(properties, env, PropertyKey.LINE_TCP_COMMIT_INTERVAL_DEFAULT, COMMIT_INTERVAL_DEFAULT);
                 if (this.lineTcpCommitIntervalDefault < 1L) {
@@ -1869,11 +1911,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlGroupByMapCapacity;
         }
 
+        @Override
+        public int getGroupByMergeShardQueueCapacity() {
+            return sqlGroupByMergeShardQueueCapacity;
+        }
+
         @Override
         public int getGroupByPoolCapacity() {
             return sqlGroupByPoolCapacity;
         }
 
+        @Override
+        public int getGroupByShardingThreshold() {
+            return sqlGroupByShardingThreshold;
+        }
+
         @Override
         public long getIdleCheckInterval() {
             return idleCheckInterval;
@@ -2039,6 +2091,26 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexThreshold;
         }
 
+        @Override
+        public long getPartitionCompressionAge() {
+            return partitionCompressionAge;
+        }
+
+        @Override
+        public int getPartitionCompressionBlockSize() {
+            return partitionCompressionBlockSize;
+        }
+
+        @Override
+        public long getPartitionCompressionInterval() {
+            return partitionCompressionInterval;
+        }
+
+        @Override
+        public long getPartitionCompressionReaderCacheSize() {
+            return partitionCompressionReaderCacheSize;
+        }
+
         @Override
         public long getPartitionO3SplitMinSize() {
             return o3PartitionSplitMinSize;
@@ -2049,6 +2121,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return o3PartitionPurgeListCapacity;
         }
 
+        @Override
+        public int getPartitionZoneMapBlockRows() {
+            return partitionZoneMapBlockRows;
+        }
+
         @Override
         public int getQueryCacheEventQueueCapacity() {
             return queryCacheEventQueueCapacity;
@@ -2164,6 +2241,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlCopyBufferSize;
         }
 
+        @Override
+        public CharSequence getSqlCopyExportRoot() {
+            return cairoSqlCopyExportRoot;
+        }
+
         @Override
         public CharSequence getSqlCopyInputRoot() {
             return cairoSqlCopyRoot;
@@ -2359,6 +2441,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlSortLightValuePageSize;
         }
 
+        @Override
+        public CharSequence getSqlSortSpillRoot() {
+            return sqlSortSpillRoot;
+        }
+
+        @Override
+        public long getSqlSortSpillThreshold() {
+            return sqlSortSpillThreshold;
+        }
+
+        @Override
+        public int getSqlSortTreeMaxRows() {
+            return sqlSortTreeMaxRows;
+        }
+
         @Override
         public int getSqlSortValueMaxPages() {
             return sqlSortValueMaxPages;
@@ -2513,6 +2610,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isPartitionCompressionEncodingEnabled() {
+            return partitionCompressionEncodingEnabled;
+        }
+
         @Override
         public boolean isReadOnlyInstance() {
             return isReadOnlyInstance;
@@ -2528,6 +2630,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlJitDebugEnabled;
         }
 
+        @Override
+        public boolean isSqlParallelAsOfJoinEnabled() {
+            return sqlParallelAsOfJoinEnabled;
+        }
+
         @Override
         public boolean isSqlParallelFilterEnabled() {
             return sqlParallelFilterEnabled;
@@ -2538,6 +2645,26 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlParallelFilterPreTouchEnabled;
         }
 
+        @Override
+        public boolean isSqlParallelGroupByEnabled() {
+            return sqlParallelGroupByEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelHashJoinEnabled() {
+            return sqlParallelHashJoinEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelLatestByEnabled() {
+            return sqlParallelLatestByEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelSortEnabled() {
+            return sqlParallelSortEnabled;
+        }
+
         @Override
         public boolean isTableTypeConversionEnabled() {
             return tableTypeConversionEnabled;
@@ -2726,6 +2853,11 @@ public class PropServerConfiguration implements ServerConfiguration {
         public long getTimeout() {
             return httpNetConnectionTimeout;
         }
+
+        @Override
+        public boolean isIOURingEnabled() {
+            return netIOURingEnabled;
+        }
     }
 
     private class PropHttpMinIODispatcherConfiguration implements IODispatcherConfiguration {
@@ -2813,6 +2945,11 @@ public class PropServerConfiguration implements ServerConfiguration {
         public long getTimeout() {
             return httpMinNetConnectionTimeout;
         }
+
+        @Override
+        public boolean isIOURingEnabled() {
+            return netIOURingEnabled;
+        }
     }
 
     private class PropHttpMinServerConfiguration implements HttpMinServerConfiguration {
@@ -3130,6 +3267,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return maxFileNameLength;
         }
 
+        @Override
+        public double getMaxLoadRatio() {
+            return lineTcpMaxLoadRatio;
+        }
+
         @Override
         public int getMaxMeasurementSize() {
             return lineTcpMaxMeasurementSize;
@@ -3155,6 +3297,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return NetworkFacadeImpl.INSTANCE;
         }
 
+        @Override
+        public long getNUpdatesPerLoadRebalance() {
+            return lineTcpNUpdatesPerLoadRebalance;
+        }
+
+        @Override
+        public double getParallelTableLoadShare() {
+            return lineTcpParallelTableLoadShare;
+        }
+
         @Override
         public long getSymbolCacheWaitUsBeforeReload() {
             return symbolCacheWaitUsBeforeReload;
@@ -3291,6 +3443,11 @@ public class PropServerConfiguration implements ServerConfiguration {
         public long getTimeout() {
             return lineTcpNetConnectionTimeout;
         }
+
+        @Override
+        public boolean isIOURingEnabled() {
+            return netIOURingEnabled;
+        }
     }
 
     private class PropLineTcpWriterWorkerPoolConfiguration implements WorkerPoolConfiguration {
@@ -3725,6 +3882,11 @@ public class PropServerConfiguration implements ServerConfiguration {
         public long getTimeout() {
             return pgNetIdleConnectionTimeout;
         }
+
+        @Override
+        public boolean isIOURingEnabled() {
+            return netIOURingEnabled;
+        }
     }
 
     private class PropSqlExecutionCircuitBreakerConfiguration implements SqlExecutionCircuitBreakerConfiguration {
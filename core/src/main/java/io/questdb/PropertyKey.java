@@ -84,13 +84,23 @@ public enum PropertyKey implements ConfigProperty {
     CAIRO_SQL_HASH_JOIN_LIGHT_VALUE_MAX_PAGES("cairo.sql.hash.join.light.value.max.pages"),
     CAIRO_SQL_SORT_VALUE_PAGE_SIZE("cairo.sql.sort.value.page.size"),
     CAIRO_SQL_SORT_VALUE_MAX_PAGES("cairo.sql.sort.value.max.pages"),
+    CAIRO_SQL_SORT_SPILL_ROOT("cairo.sql.sort.spill.root"),
+    CAIRO_SQL_SORT_SPILL_THRESHOLD("cairo.sql.sort.spill.threshold"),
+    CAIRO_SQL_SORT_TREE_MAX_ROWS("cairo.sql.sort.tree.max.rows"),
     CAIRO_WORK_STEAL_TIMEOUT_NANOS("cairo.work.steal.timeout.nanos"),
     CAIRO_PARALLEL_INDEXING_ENABLED("cairo.parallel.indexing.enabled"),
     CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY("cairo.page.frame.reduce.queue.capacity"),
     CAIRO_PAGE_FRAME_ROWID_LIST_CAPACITY("cairo.page.frame.rowid.list.capacity"),
     CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY("cairo.page.frame.column.list.capacity"),
+    CAIRO_SQL_PARALLEL_ASOFJOIN_ENABLED("cairo.sql.parallel.asofjoin.enabled"),
     CAIRO_SQL_PARALLEL_FILTER_ENABLED("cairo.sql.parallel.filter.enabled"),
     CAIRO_SQL_PARALLEL_FILTER_PRETOUCH_ENABLED("cairo.sql.parallel.filter.pretouch.enabled"),
+    CAIRO_SQL_PARALLEL_GROUPBY_ENABLED("cairo.sql.parallel.groupby.enabled"),
+    CAIRO_SQL_PARALLEL_GROUPBY_MERGE_QUEUE_CAPACITY("cairo.sql.parallel.groupby.merge.shard.queue.capacity"),
+    CAIRO_SQL_PARALLEL_GROUPBY_SHARDING_THRESHOLD("cairo.sql.parallel.groupby.sharding.threshold"),
+    CAIRO_SQL_PARALLEL_HASHJOIN_ENABLED("cairo.sql.parallel.hashjoin.enabled"),
+    CAIRO_SQL_PARALLEL_LATESTBY_ENABLED("cairo.sql.parallel.latestby.enabled"),
+    CAIRO_SQL_PARALLEL_SORT_ENABLED("cairo.sql.parallel.sort.enabled"),
     CAIRO_PAGE_FRAME_SHARD_COUNT("cairo.page.frame.shard.count"),
     CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY("cairo.page.frame.task.pool.capacity"),
     CAIRO_SQL_JOIN_METADATA_PAGE_SIZE("cairo.sql.join.metadata.page.size"),
@@ -130,6 +140,7 @@ public enum PropertyKey implements ConfigProperty {
     CAIRO_SQL_COPY_MODEL_POOL_CAPACITY("cairo.sql.copy.model.pool.capacity"),
     CAIRO_SQL_COPY_BUFFER_SIZE("cairo.sql.copy.buffer.size"),
     CAIRO_SQL_COPY_ROOT("cairo.sql.copy.root"),
+    CAIRO_SQL_COPY_EXPORT_ROOT("cairo.sql.copy.export.root"),
     CAIRO_SQL_COPY_WORK_ROOT("cairo.sql.copy.work.root"),
     CAIRO_SQL_COPY_MAX_INDEX_CHUNK_SIZE("cairo.sql.copy.max.index.chunk.size"),
     CAIRO_SQL_COPY_QUEUE_CAPACITY("cairo.sql.copy.queue.capacity"),
@@ -168,6 +179,12 @@ public enum PropertyKey implements ConfigProperty {
     CAIRO_O3_TXN_SCOREBOARD_ENTRY_COUNT("cairo.o3.txn.scoreboard.entry.count"),
     CAIRO_LATESTBY_QUEUE_CAPACITY("cairo.latestby.queue.capacity"),
     CAIRO_O3_PARTITION_PURGE_LIST_INITIAL_CAPACITY("cairo.o3.partition.purge.list.initial.capacity"),
+    CAIRO_PARTITION_COMPRESSION_AGE("cairo.partition.compression.age"),
+    CAIRO_PARTITION_COMPRESSION_BLOCK_SIZE("cairo.partition.compression.block.size"),
+    CAIRO_PARTITION_COMPRESSION_ENCODING_ENABLED("cairo.partition.compression.encoding.enabled"),
+    CAIRO_PARTITION_COMPRESSION_INTERVAL("cairo.partition.compression.interval"),
+    CAIRO_PARTITION_COMPRESSION_READER_CACHE_SIZE("cairo.partition.compression.reader.cache.size"),
+    CAIRO_PARTITION_ZONE_MAP_BLOCK_ROWS("cairo.partition.zone.map.block.rows"),
     CAIRO_O3_ENABLED("cairo.o3.enabled"),
     CAIRO_QUERY_CACHE_EVENT_QUEUE_CAPACITY("cairo.query.cache.event.queue.capacity"),
     CAIRO_IO_URING_ENABLED("cairo.iouring.enabled"),
@@ -297,6 +314,9 @@ public enum PropertyKey implements ConfigProperty {
     LINE_TCP_IO_WORKER_YIELD_THRESHOLD("line.tcp.io.worker.yield.threshold"),
     LINE_TCP_IO_WORKER_SLEEP_THRESHOLD("line.tcp.io.worker.sleep.threshold"),
     LINE_TCP_MAINTENANCE_JOB_INTERVAL("line.tcp.maintenance.job.interval"),
+    LINE_TCP_MAX_LOAD_RATIO("line.tcp.max.load.ratio"),
+    LINE_TCP_N_UPDATES_PER_LOAD_REBALANCE("line.tcp.n.updates.per.load.balance"),
+    LINE_TCP_PARALLEL_TABLE_LOAD_SHARE("line.tcp.parallel.table.load.share"),
     LINE_TCP_COMMIT_INTERVAL_FRACTION("line.tcp.commit.interval.fraction"),
     LINE_TCP_COMMIT_INTERVAL_DEFAULT("line.tcp.commit.interval.default"),
     LINE_TCP_AUTH_DB_PATH("line.tcp.auth.db.path"),
@@ -312,6 +332,7 @@ public enum PropertyKey implements ConfigProperty {
     LINE_TCP_NET_IO_QUEUE_CAPACITY("line.tcp.net.io.queue.capacity"),
     LINE_TCP_IO_AGGRESSIVE_RECV("line.tcp.io.aggressive.recv"),
     METRICS_ENABLED("metrics.enabled"),
+    NET_IO_URING_ENABLED("net.iouring.enabled"),
     NET_TEST_CONNECTION_BUFFER_SIZE("net.test.connection.buffer.size"),
     PG_ENABLED("pg.enabled"),
     PG_NET_CONNECTION_HINT("pg.net.connection.hint"),
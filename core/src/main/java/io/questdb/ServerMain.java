@@ -28,6 +28,7 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.ColumnIndexerJob;
 import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.PartitionCompressionJob;
 import io.questdb.cairo.wal.ApplyWal2TableJob;
 import io.questdb.cairo.wal.CheckWalTransactionsJob;
 import io.questdb.cairo.wal.WalPurgeJob;
@@ -131,6 +132,12 @@ public class ServerMain implements Closeable {
                             }
                         }
 
+                        if (cairoConfig.getPartitionCompressionAge() > 0) {
+                            final PartitionCompressionJob partitionCompressionJob = new PartitionCompressionJob(engine, ffCache);
+                            sharedPool.assign(partitionCompressionJob);
+                            sharedPool.freeOnExit(partitionCompressionJob);
+                        }
+
                         // text import
                         CopyJob.assignToPool(messageBus, sharedPool);
                         if (cairoConfig.getSqlCopyInputRoot() != null) {
@@ -141,8 +141,12 @@ public interface CairoConfiguration {
 
     int getGroupByMapCapacity();
 
+    int getGroupByMergeShardQueueCapacity();
+
     int getGroupByPoolCapacity();
 
+    int getGroupByShardingThreshold();
+
     default IOURingFacade getIOURingFacade() {
         return IOURingFacadeImpl.INSTANCE;
     }
@@ -244,10 +248,31 @@ public interface CairoConfiguration {
 
     int getParallelIndexThreshold();
 
+    /**
+     * Age in milliseconds after which partitions are compressed by the background job,
+     * 0 disables automatic compression.
+     */
+    long getPartitionCompressionAge();
+
+    int getPartitionCompressionBlockSize();
+
+    long getPartitionCompressionInterval();
+
+    /**
+     * Size limit of the LRU cache of decompressed blocks kept by a table reader.
+     */
+    long getPartitionCompressionReaderCacheSize();
+
     int getPartitionPurgeListCapacity();
 
     long getPartitionO3SplitMinSize();
 
+    /**
+     * Rows per block of zone maps written for partitions that are no longer active, rounded
+     * up to a power of two. 0 disables zone maps.
+     */
+    int getPartitionZoneMapBlockRows();
+
     int getQueryCacheEventQueueCapacity();
 
     default Rnd getRandom() {
@@ -316,6 +341,9 @@ public interface CairoConfiguration {
 
     int getSqlCopyBufferSize();
 
+    // null export root disables "copy ... to" sql
+    CharSequence getSqlCopyExportRoot();
+
     // null input root disables "copy" sql
     CharSequence getSqlCopyInputRoot();
 
@@ -400,6 +428,12 @@ public interface CairoConfiguration {
 
     long getSqlSortLightValuePageSize();
 
+    CharSequence getSqlSortSpillRoot();
+
+    long getSqlSortSpillThreshold();
+
+    int getSqlSortTreeMaxRows();
+
     int getSqlSortValueMaxPages();
 
     int getSqlSortValuePageSize();
@@ -462,6 +496,12 @@ public interface CairoConfiguration {
 
     boolean isParallelIndexingEnabled();
 
+    /**
+     * When enabled, compressed partitions store integer columns with lightweight
+     * encodings, such as delta-of-delta and bit-packing, instead of deflate.
+     */
+    boolean isPartitionCompressionEncodingEnabled();
+
     boolean isReadOnlyInstance();
 
     /**
@@ -473,10 +513,20 @@ public interface CairoConfiguration {
 
     boolean isSqlJitDebugEnabled();
 
+    boolean isSqlParallelAsOfJoinEnabled();
+
     boolean isSqlParallelFilterEnabled();
 
     boolean isSqlParallelFilterPreTouchEnabled();
 
+    boolean isSqlParallelGroupByEnabled();
+
+    boolean isSqlParallelHashJoinEnabled();
+
+    boolean isSqlParallelLatestByEnabled();
+
+    boolean isSqlParallelSortEnabled();
+
     boolean isTableTypeConversionEnabled();
 
     boolean isWalApplyEnabled();
@@ -39,6 +39,7 @@ import io.questdb.cairo.wal.WalWriter;
 import io.questdb.cairo.wal.seq.TableSequencerAPI;
 import io.questdb.cutlass.text.CopyContext;
 import io.questdb.griffin.DatabaseSnapshotAgent;
+import io.questdb.griffin.engine.orderby.AsyncSortedLightRecordCursorFactory;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.Job;
@@ -113,6 +114,10 @@ public class CairoEngine implements Closeable, WriterSource {
             close();
             throw e;
         }
+        // Remove sort spill files left behind by a crash.
+        if (!configuration.isReadOnlyInstance()) {
+            AsyncSortedLightRecordCursorFactory.removeStaleSpillFiles(configuration);
+        }
         // Migrate database files.
         try {
             EngineMigration.migrateEngineTo(this, ColumnType.VERSION, ColumnType.MIGRATION_VERSION, false);
@@ -0,0 +1,433 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Rewrites column files of cold partitions into block-compressed files. The file
+ * starts with a header, followed by the block index and then the encoded blocks:
+ * <pre>
+ * | uncompressed size | block size bits | block count | codec | value size bits | block offsets (count + 1) | blocks |
+ * |      8 bytes      |     4 bytes     |   4 bytes   | 4 b.  |     4 bytes     |      8 bytes each         |        |
+ * </pre>
+ * Block offsets are absolute file offsets, the last one is the file size. All blocks
+ * but the last one decode to exactly block size bytes.
+ * <p>
+ * {@link #CODEC_DEFLATE} blocks are raw deflate streams. {@link #CODEC_INTEGER} blocks hold
+ * 2, 4 or 8-byte integers and start with a 32-byte header:
+ * <pre>
+ * | encoding | bit width | base    | first value | first delta |
+ * | 4 bytes  | 4 bytes   | 8 bytes | 8 bytes     | 8 bytes     |
+ * </pre>
+ * followed by bit-packed values, in little-endian order of 8-byte words. Each block
+ * uses the encoding that packs it tighter:
+ * <ul>
+ * <li>frame of reference - values are offsets from the base, the block minimum. When the
+ * block has nulls, null takes offset 0 and the base is one less than the minimum</li>
+ * <li>delta-of-delta - values past the first two are differences of consecutive deltas,
+ * stored as offsets from the base, the minimum delta-of-delta. Timestamps and sequences
+ * with a steady step pack into a few bits per value, or none</li>
+ * </ul>
+ */
+public class ColumnCompressor implements Closeable {
+    public static final int CODEC_DEFLATE = 0;
+    public static final int CODEC_INTEGER = 1;
+    public static final int HEADER_OFFSET_BLOCK_COUNT = 12;
+    public static final int HEADER_OFFSET_BLOCK_SIZE_BITS = 8;
+    public static final int HEADER_OFFSET_CODEC = 16;
+    public static final int HEADER_OFFSET_SIZE = 0;
+    public static final int HEADER_OFFSET_VALUE_SIZE_BITS = 20;
+    public static final int HEADER_SIZE = 24;
+    public static final int MIN_BLOCK_SIZE = 4096;
+    private static final int BLOCK_DELTA_OF_DELTA = 2;
+    private static final int BLOCK_FRAME_OF_REFERENCE = 0;
+    private static final int BLOCK_FRAME_OF_REFERENCE_NULLS = 1;
+    private static final int BLOCK_HEADER_SIZE = 32;
+    private static final int BLOCK_OFFSET_BASE = 8;
+    private static final int BLOCK_OFFSET_ENCODING = 0;
+    private static final int BLOCK_OFFSET_FIRST = 16;
+    private static final int BLOCK_OFFSET_FIRST_DELTA = 24;
+    private static final int BLOCK_OFFSET_WIDTH = 4;
+    private static final Log LOG = LogFactory.getLog(ColumnCompressor.class);
+    private final int blockSize;
+    private final int blockSizeBits;
+    private final FilesFacade ff;
+    private final int outCapacity;
+    private long indexAddress;
+    private long indexCapacity;
+    private long outAddress;
+    private long z;
+
+    public ColumnCompressor(FilesFacade ff, int blockSize) {
+        this.ff = ff;
+        this.blockSize = Numbers.ceilPow2(Math.max(blockSize, MIN_BLOCK_SIZE));
+        this.blockSizeBits = Numbers.msb(this.blockSize);
+        // worst case expansion of deflate stored blocks, see deflateBound()
+        this.outCapacity = this.blockSize + (this.blockSize >>> 12) + (this.blockSize >>> 14) + 64;
+    }
+
+    /**
+     * Decodes a {@link #CODEC_INTEGER} block.
+     *
+     * @param blockAddress  address of the encoded block
+     * @param blockLen      length of the encoded block
+     * @param dst           address to decode values to
+     * @param count         number of values in the block
+     * @param valueSizeBits power of 2 of the value size
+     * @return false when the block is malformed
+     */
+    public static boolean decodeIntegers(long blockAddress, long blockLen, long dst, int count, int valueSizeBits) {
+        if (blockLen < BLOCK_HEADER_SIZE) {
+            return false;
+        }
+        final int encoding = Unsafe.getUnsafe().getInt(blockAddress + BLOCK_OFFSET_ENCODING);
+        final int width = Unsafe.getUnsafe().getInt(blockAddress + BLOCK_OFFSET_WIDTH);
+        final long base = Unsafe.getUnsafe().getLong(blockAddress + BLOCK_OFFSET_BASE);
+        if (width < 0 || width > 64) {
+            return false;
+        }
+        final long packed = blockAddress + BLOCK_HEADER_SIZE;
+        final long mask = width == 64 ? -1L : (1L << width) - 1;
+        long bitPos = 0;
+        switch (encoding) {
+            case BLOCK_FRAME_OF_REFERENCE:
+            case BLOCK_FRAME_OF_REFERENCE_NULLS:
+                if (blockLen < BLOCK_HEADER_SIZE + getPackedSize(count, width)) {
+                    return false;
+                }
+                final boolean hasNulls = encoding == BLOCK_FRAME_OF_REFERENCE_NULLS;
+                final long nullValue = getNullValue(valueSizeBits);
+                for (int i = 0; i < count; i++) {
+                    final long offset = width == 0 ? 0 : unpack(packed, bitPos, width, mask);
+                    putValue(dst + ((long) i << valueSizeBits), valueSizeBits, hasNulls && offset == 0 ? nullValue : base + offset);
+                    bitPos += width;
+                }
+                return true;
+            case BLOCK_DELTA_OF_DELTA:
+                if (blockLen < BLOCK_HEADER_SIZE + getPackedSize(Math.max(count - 2, 0), width)) {
+                    return false;
+                }
+                long value = Unsafe.getUnsafe().getLong(blockAddress + BLOCK_OFFSET_FIRST);
+                long delta = Unsafe.getUnsafe().getLong(blockAddress + BLOCK_OFFSET_FIRST_DELTA);
+                putValue(dst, valueSizeBits, value);
+                if (count > 1) {
+                    value += delta;
+                    putValue(dst + (1L << valueSizeBits), valueSizeBits, value);
+                }
+                for (int i = 2; i < count; i++) {
+                    delta += base + (width == 0 ? 0 : unpack(packed, bitPos, width, mask));
+                    value += delta;
+                    putValue(dst + ((long) i << valueSizeBits), valueSizeBits, value);
+                    bitPos += width;
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Chooses the codec for the data file of a fixed size column.
+     */
+    public static int getCodec(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.SYMBOL:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+                return CODEC_INTEGER;
+            default:
+                return CODEC_DEFLATE;
+        }
+    }
+
+    public static long getIndexSize(int blockCount) {
+        return HEADER_SIZE + (blockCount + 1L) * Long.BYTES;
+    }
+
+    @Override
+    public void close() {
+        if (z != 0) {
+            Zip.deflateEnd(z);
+            z = 0;
+        }
+        outAddress = Unsafe.free(outAddress, outCapacity, MemoryTag.NATIVE_TABLE_WRITER);
+        indexAddress = Unsafe.free(indexAddress, indexCapacity, MemoryTag.NATIVE_TABLE_WRITER);
+        indexCapacity = 0;
+    }
+
+    /**
+     * Compresses first size bytes of the source file into the destination file.
+     *
+     * @param src           uncompressed column file
+     * @param size          number of bytes of the column file to compress
+     * @param dst           compressed file to create
+     * @param codec         {@link #CODEC_DEFLATE} or {@link #CODEC_INTEGER}
+     * @param valueSizeBits power of 2 of the value size, 1 to 3 for {@link #CODEC_INTEGER}
+     * @return size of the compressed file
+     */
+    public long compress(LPSZ src, long size, LPSZ dst, int codec, int valueSizeBits) {
+        assert codec == CODEC_DEFLATE || (valueSizeBits > 0 && valueSizeBits < 4 && (size & ((1L << valueSizeBits) - 1)) == 0);
+        final int blockCount = (int) ((size + blockSize - 1) >>> blockSizeBits);
+        final long indexSize = getIndexSize(blockCount);
+        ensureBuffers(indexSize);
+
+        long srcAddr = 0;
+        int srcFd = -1;
+        int dstFd = -1;
+        try {
+            srcFd = TableUtils.openRO(ff, src, LOG);
+            if (size > 0) {
+                srcAddr = TableUtils.mapRO(ff, srcFd, size, MemoryTag.MMAP_TABLE_WRITER);
+            }
+            dstFd = TableUtils.openRW(ff, dst, LOG, CairoConfiguration.O_NONE);
+
+            Unsafe.getUnsafe().putLong(indexAddress + HEADER_OFFSET_SIZE, size);
+            Unsafe.getUnsafe().putInt(indexAddress + HEADER_OFFSET_BLOCK_SIZE_BITS, blockSizeBits);
+            Unsafe.getUnsafe().putInt(indexAddress + HEADER_OFFSET_BLOCK_COUNT, blockCount);
+            Unsafe.getUnsafe().putInt(indexAddress + HEADER_OFFSET_CODEC, codec);
+            Unsafe.getUnsafe().putInt(indexAddress + HEADER_OFFSET_VALUE_SIZE_BITS, valueSizeBits);
+
+            long offset = indexSize;
+            for (int i = 0; i < blockCount; i++) {
+                final long lo = (long) i << blockSizeBits;
+                final int len = (int) Math.min(blockSize, size - lo);
+                final int compressedLen = codec == CODEC_INTEGER
+                        ? encodeIntegers(srcAddr + lo, len >>> valueSizeBits, valueSizeBits, outAddress)
+                        : deflate(srcAddr + lo, len);
+                write(dstFd, outAddress, compressedLen, offset, dst);
+                Unsafe.getUnsafe().putLong(indexAddress + HEADER_SIZE + (long) i * Long.BYTES, offset);
+                offset += compressedLen;
+            }
+            Unsafe.getUnsafe().putLong(indexAddress + HEADER_SIZE + (long) blockCount * Long.BYTES, offset);
+            write(dstFd, indexAddress, indexSize, 0, dst);
+            return offset;
+        } finally {
+            if (srcAddr != 0) {
+                ff.munmap(srcAddr, size, MemoryTag.MMAP_TABLE_WRITER);
+            }
+            ff.close(srcFd);
+            ff.close(dstFd);
+        }
+    }
+
+    private static int encodeIntegers(long address, int count, int valueSizeBits, long out) {
+        final long nullValue = getNullValue(valueSizeBits);
+        final long first = getValue(address, valueSizeBits);
+        final long firstDelta = count > 1 ? getValue(address + (1L << valueSizeBits), valueSizeBits) - first : 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long dodMin = Long.MAX_VALUE;
+        long dodMax = Long.MIN_VALUE;
+        boolean hasNulls = false;
+        long prev = first;
+        long delta = firstDelta;
+        for (int i = 0; i < count; i++) {
+            final long value = getValue(address + ((long) i << valueSizeBits), valueSizeBits);
+            if (value == nullValue) {
+                hasNulls = true;
+            } else {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (i > 1) {
+                final long dod = value - prev - delta;
+                dodMin = Math.min(dodMin, dod);
+                dodMax = Math.max(dodMax, dod);
+                delta = value - prev;
+            }
+            prev = value;
+        }
+
+        final int encoding;
+        final long base;
+        final int width;
+        // deltas wrap around, the range of delta-of-delta values is unsigned
+        final int dodWidth = count > 2 ? getWidth(dodMax - dodMin) : 0;
+        if (min > max) {
+            // all values are null, there is nothing to pack
+            encoding = BLOCK_FRAME_OF_REFERENCE_NULLS;
+            base = 0;
+            width = 0;
+        } else {
+            // minimum cannot be null, so base cannot overflow
+            final long forBase = hasNulls ? min - 1 : min;
+            final int forWidth = getWidth(max - forBase);
+            if (getPackedSize(Math.max(count - 2, 0), dodWidth) < getPackedSize(count, forWidth)) {
+                encoding = BLOCK_DELTA_OF_DELTA;
+                base = count > 2 ? dodMin : 0;
+                width = dodWidth;
+            } else {
+                encoding = hasNulls ? BLOCK_FRAME_OF_REFERENCE_NULLS : BLOCK_FRAME_OF_REFERENCE;
+                base = forBase;
+                width = forWidth;
+            }
+        }
+        Unsafe.getUnsafe().putInt(out + BLOCK_OFFSET_ENCODING, encoding);
+        Unsafe.getUnsafe().putInt(out + BLOCK_OFFSET_WIDTH, width);
+        Unsafe.getUnsafe().putLong(out + BLOCK_OFFSET_BASE, base);
+        Unsafe.getUnsafe().putLong(out + BLOCK_OFFSET_FIRST, first);
+        Unsafe.getUnsafe().putLong(out + BLOCK_OFFSET_FIRST_DELTA, firstDelta);
+
+        final long packed = out + BLOCK_HEADER_SIZE;
+        long word = 0;
+        long bitPos = 0;
+        if (width > 0) {
+            if (encoding == BLOCK_DELTA_OF_DELTA) {
+                prev = first + firstDelta;
+                delta = firstDelta;
+                for (int i = 2; i < count; i++) {
+                    final long value = getValue(address + ((long) i << valueSizeBits), valueSizeBits);
+                    word = pack(packed, bitPos, width, value - prev - delta - base, word);
+                    delta = value - prev;
+                    prev = value;
+                    bitPos += width;
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    final long value = getValue(address + ((long) i << valueSizeBits), valueSizeBits);
+                    word = pack(packed, bitPos, width, value == nullValue ? 0 : value - base, word);
+                    bitPos += width;
+                }
+            }
+            if ((bitPos & 63) != 0) {
+                Unsafe.getUnsafe().putLong(packed + ((bitPos >>> 6) << 3), word);
+            }
+        }
+        return BLOCK_HEADER_SIZE + (int) ((bitPos + 63) >>> 6 << 3);
+    }
+
+    private static long getNullValue(int valueSizeBits) {
+        // Short.MIN_VALUE, Integer.MIN_VALUE or Long.MIN_VALUE
+        return Long.MIN_VALUE >> (64 - (8 << valueSizeBits));
+    }
+
+    private static long getPackedSize(long count, int width) {
+        return ((count * width + 63) >>> 6) << 3;
+    }
+
+    private static long getValue(long address, int valueSizeBits) {
+        switch (valueSizeBits) {
+            case 1:
+                return Unsafe.getUnsafe().getShort(address);
+            case 2:
+                return Unsafe.getUnsafe().getInt(address);
+            default:
+                return Unsafe.getUnsafe().getLong(address);
+        }
+    }
+
+    private static int getWidth(long range) {
+        // range is unsigned
+        return 64 - Long.numberOfLeadingZeros(range);
+    }
+
+    // appends width bits of value at bitPos, returns the partially filled word
+    private static long pack(long packed, long bitPos, int width, long value, long word) {
+        final int shift = (int) (bitPos & 63);
+        word |= value << shift;
+        if (shift + width >= 64) {
+            Unsafe.getUnsafe().putLong(packed + ((bitPos >>> 6) << 3), word);
+            word = shift == 0 ? 0 : value >>> (64 - shift);
+        }
+        return word;
+    }
+
+    private static void putValue(long address, int valueSizeBits, long value) {
+        switch (valueSizeBits) {
+            case 1:
+                Unsafe.getUnsafe().putShort(address, (short) value);
+                break;
+            case 2:
+                Unsafe.getUnsafe().putInt(address, (int) value);
+                break;
+            default:
+                Unsafe.getUnsafe().putLong(address, value);
+                break;
+        }
+    }
+
+    private static long unpack(long packed, long bitPos, int width, long mask) {
+        final long address = packed + ((bitPos >>> 6) << 3);
+        final int shift = (int) (bitPos & 63);
+        long value = Unsafe.getUnsafe().getLong(address) >>> shift;
+        if (shift + width > 64) {
+            value |= Unsafe.getUnsafe().getLong(address + Long.BYTES) << (64 - shift);
+        }
+        return value & mask;
+    }
+
+    private int deflate(long address, int len) {
+        if (z == 0) {
+            z = Zip.deflateInit();
+            if (z < 0) {
+                final long err = z;
+                z = 0;
+                throw CairoException.critical(0).put("could not initialize deflate stream [error=").put(err).put(']');
+            }
+        } else {
+            Zip.deflateReset(z);
+        }
+        Zip.setInput(z, address, len);
+        final int ret = Zip.deflate(z, outAddress, outCapacity, true);
+        if (ret != Zip.Z_STREAM_END) {
+            throw CairoException.critical(0).put("could not compress column block [error=").put(ret).put(", len=").put(len).put(']');
+        }
+        return outCapacity - Zip.availOut(z);
+    }
+
+    private void ensureBuffers(long indexSize) {
+        if (outAddress == 0) {
+            outAddress = Unsafe.malloc(outCapacity, MemoryTag.NATIVE_TABLE_WRITER);
+        }
+        if (indexCapacity < indexSize) {
+            indexAddress = Unsafe.realloc(indexAddress, indexCapacity, indexSize, MemoryTag.NATIVE_TABLE_WRITER);
+            indexCapacity = indexSize;
+        }
+    }
+
+    private void write(int fd, long address, long len, long offset, LPSZ path) {
+        if (ff.write(fd, address, len, offset) != len) {
+            throw CairoException.critical(ff.errno())
+                    .put("could not write compressed column [path=").put(path)
+                    .put(", fd=").put(fd)
+                    .put(", offset=").put(offset)
+                    .put(", len=").put(len)
+                    .put(']');
+        }
+    }
+}
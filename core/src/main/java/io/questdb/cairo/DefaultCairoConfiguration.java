@@ -48,6 +48,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
     private final CharSequence snapshotRoot;
     private final DefaultTelemetryConfiguration telemetryConfiguration = new DefaultTelemetryConfiguration();
     private final TextConfiguration textConfiguration;
+    private final CharSequence tmpRoot;
     private final VolumeDefinitions volumeDefinitions = new VolumeDefinitions();
     private final boolean writerMixedIOEnabled;
     public DefaultCairoConfiguration(CharSequence root) {
@@ -55,6 +56,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         this.confRoot = PropServerConfiguration.rootSubdir(root, PropServerConfiguration.CONFIG_DIRECTORY);
         this.textConfiguration = new DefaultTextConfiguration(Chars.toString(confRoot));
         this.snapshotRoot = PropServerConfiguration.rootSubdir(root, PropServerConfiguration.SNAPSHOT_DIRECTORY);
+        this.tmpRoot = PropServerConfiguration.rootSubdir(root, PropServerConfiguration.TMP_DIRECTORY);
         Rnd rnd = new Rnd(NanosecondClockImpl.INSTANCE.getTicks(), MicrosecondClockImpl.INSTANCE.getTicks());
         this.databaseIdLo = rnd.nextLong();
         this.databaseIdHi = rnd.nextLong();
@@ -276,11 +278,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024;
     }
 
+    @Override
+    public int getGroupByMergeShardQueueCapacity() {
+        return 32;
+    }
+
     @Override
     public int getGroupByPoolCapacity() {
         return 1024;
     }
 
+    @Override
+    public int getGroupByShardingThreshold() {
+        return 100_000;
+    }
+
     @Override
     public long getIdleCheckInterval() {
         return 100;
@@ -447,6 +459,26 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 100000;
     }
 
+    @Override
+    public long getPartitionCompressionAge() {
+        return 0;
+    }
+
+    @Override
+    public int getPartitionCompressionBlockSize() {
+        return 256 * 1024;
+    }
+
+    @Override
+    public long getPartitionCompressionInterval() {
+        return 60_000;
+    }
+
+    @Override
+    public long getPartitionCompressionReaderCacheSize() {
+        return 64 * Numbers.SIZE_1MB;
+    }
+
     @Override
     public long getPartitionO3SplitMinSize() {
         return 50 * Numbers.SIZE_1MB;
@@ -457,6 +489,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 64;
     }
 
+    @Override
+    public int getPartitionZoneMapBlockRows() {
+        return 64 * 1024;
+    }
+
     @Override
     public int getQueryCacheEventQueueCapacity() {
         return 4;
@@ -574,6 +611,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024 * 1024;
     }
 
+    @Override
+    public CharSequence getSqlCopyExportRoot() {
+        return null;
+    }
+
     @Override
     public CharSequence getSqlCopyInputRoot() {
         return null;
@@ -769,6 +811,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 8 * Numbers.SIZE_1MB;
     }
 
+    @Override
+    public CharSequence getSqlSortSpillRoot() {
+        return tmpRoot;
+    }
+
+    @Override
+    public long getSqlSortSpillThreshold() {
+        return 256 * Numbers.SIZE_1MB;
+    }
+
+    @Override
+    public int getSqlSortTreeMaxRows() {
+        return 1_000_000;
+    }
+
     @Override
     public int getSqlSortValueMaxPages() {
         return 1024;
@@ -928,6 +985,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isPartitionCompressionEncodingEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isReadOnlyInstance() {
         return false;
@@ -943,6 +1005,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return false;
     }
 
+    @Override
+    public boolean isSqlParallelAsOfJoinEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isSqlParallelFilterEnabled() {
         return true;
@@ -953,6 +1020,26 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSqlParallelGroupByEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelLatestByEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelSortEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isTableTypeConversionEnabled() {
         return true;
@@ -0,0 +1,484 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cairo.wal.WriterRowUtils;
+import io.questdb.griffin.SqlUtil;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.SingleCharCharSequence;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Rows of a table collected away from its {@link TableWriter}, for example by a thread that does not own the writer.
+ * Columns are kept in the layout of the writer's O3 memory, so that the writer can copy them in bulk, see
+ * {@link TableWriter#appendO3RowBuffer(O3RowBuffer)}. The copied rows are sorted and merged into partitions
+ * on the next commit like any other out-of-order rows.
+ * <p>
+ * The designated timestamp column holds plain timestamps, the writer adds row indexes on copy. Symbol values
+ * are stored as keys; values the buffer is given as strings get negative local keys and are added to the symbol
+ * table by the writer.
+ * <p>
+ * The buffer is not thread-safe.
+ */
+public class O3RowBuffer implements TableWriter.Row, QuietCloseable, Mutable {
+    private final IntList columnTypes = new IntList();
+    private final ObjList<MemoryCARW> columns = new ObjList<>();
+    private final ObjList<CharSequenceIntHashMap> localSymbolKeys = new ObjList<>();
+    private final ObjList<ObjList<String>> localSymbols = new ObjList<>();
+    private final int maxPages;
+    private final int memoryTag;
+    private final ObjList<Runnable> nullSetters = new ObjList<>();
+    private final long pageSize;
+    // row number + 1 that last set a value, per column
+    private final LongList rowValueIsNotNull = new LongList();
+    private final Uuid uuid = new Uuid();
+    private boolean closed;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long rowCount;
+    private boolean rowInProgress;
+    private long rowTimestamp;
+    private long structureVersion = TableUtils.ANY_TABLE_VERSION;
+    private int timestampIndex = -1;
+
+    public O3RowBuffer(long pageSize, int maxPages, int memoryTag) {
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.memoryTag = memoryTag;
+    }
+
+    public static int decodeLocalSymbolKey(int key) {
+        return -key - 2;
+    }
+
+    public static int encodeLocalSymbolKey(int localKey) {
+        return -localKey - 2;
+    }
+
+    public static boolean isLocalSymbolKey(int key) {
+        return key < -1 && key != SymbolTable.VALUE_IS_NULL;
+    }
+
+    @Override
+    public void append() {
+        if (rowInProgress) {
+            for (int i = 0, n = columnTypes.size(); i < n; i++) {
+                if (columnTypes.getQuick(i) > 0 && rowValueIsNotNull.getQuick(i) != rowCount + 1) {
+                    nullSetters.getQuick(i).run();
+                }
+            }
+            rowCount++;
+            minTimestamp = Math.min(minTimestamp, rowTimestamp);
+            maxTimestamp = Math.max(maxTimestamp, rowTimestamp);
+            rowInProgress = false;
+        }
+    }
+
+    @Override
+    public void cancel() {
+        if (rowInProgress) {
+            for (int i = 0, n = columnTypes.size(); i < n; i++) {
+                final int type = columnTypes.getQuick(i);
+                if (type > 0) {
+                    final MemoryCARW primary = columns.getQuick(2 * i);
+                    if (ColumnType.isVariableLength(type)) {
+                        final MemoryCARW secondary = columns.getQuick(2 * i + 1);
+                        primary.jumpTo(secondary.getLong(rowCount * Long.BYTES));
+                        secondary.jumpTo((rowCount + 1) * Long.BYTES);
+                    } else {
+                        primary.jumpTo(rowCount * columnSizeOf(i, type));
+                    }
+                }
+                // the next row has the same number as the cancelled one
+                rowValueIsNotNull.setQuick(i, 0);
+            }
+            rowInProgress = false;
+        }
+    }
+
+    @Override
+    public void clear() {
+        rowInProgress = false;
+        rowCount = 0;
+        minTimestamp = Long.MAX_VALUE;
+        maxTimestamp = Long.MIN_VALUE;
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final int type = columnTypes.getQuick(i);
+            if (type > 0) {
+                columns.getQuick(2 * i).jumpTo(0);
+                if (ColumnType.isVariableLength(type)) {
+                    final MemoryCARW secondary = columns.getQuick(2 * i + 1);
+                    secondary.jumpTo(0);
+                    secondary.putLong(0);
+                }
+                if (ColumnType.isSymbol(type)) {
+                    localSymbolKeys.getQuick(i).clear();
+                    localSymbols.getQuick(i).clear();
+                }
+            }
+            rowValueIsNotNull.setQuick(i, 0);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        clear();
+        Misc.freeObjListAndClear(columns);
+        columnTypes.clear();
+        nullSetters.clear();
+        localSymbolKeys.clear();
+        localSymbols.clear();
+        rowValueIsNotNull.clear();
+        structureVersion = TableUtils.ANY_TABLE_VERSION;
+    }
+
+    public int getColumnCount() {
+        return columnTypes.size();
+    }
+
+    /**
+     * @param columnIndex index of the column in the table
+     * @return column type the buffer was laid out with, negative when the column is dropped
+     */
+    public int getColumnType(int columnIndex) {
+        return columnTypes.getQuick(columnIndex);
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getStructureVersion() {
+        return structureVersion;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Starts a new row. A row that is in progress is cancelled.
+     *
+     * @param timestamp designated timestamp of the row
+     */
+    public void newRow(long timestamp) {
+        if (rowInProgress) {
+            cancel();
+        }
+        if (timestamp < Timestamps.O3_MIN_TS) {
+            throw CairoException.nonCritical().put("timestamp before 1970-01-01 is not allowed");
+        }
+        columns.getQuick(2 * timestampIndex).putLong(timestamp);
+        rowValueIsNotNull.setQuick(timestampIndex, rowCount + 1);
+        rowTimestamp = timestamp;
+        rowInProgress = true;
+    }
+
+    /**
+     * Lays the buffer out for the given table structure. When the buffer holds rows, the structure must
+     * be a later version of the current one: columns can be added or dropped, but not retyped. Added
+     * columns are null for the rows already in the buffer.
+     *
+     * @param structureVersion structure version of the table
+     * @param timestampIndex   index of the designated timestamp column
+     * @param columnTypes      types of all table columns, negative for dropped columns
+     */
+    public void of(long structureVersion, int timestampIndex, IntList columnTypes) {
+        assert !rowInProgress;
+        closed = false;
+        if (rowCount == 0) {
+            Misc.freeObjListAndClear(columns);
+            this.columnTypes.clear();
+            nullSetters.clear();
+            localSymbolKeys.clear();
+            localSymbols.clear();
+            rowValueIsNotNull.clear();
+        } else if (timestampIndex != this.timestampIndex || columnTypes.size() < this.columnTypes.size()) {
+            throw CairoException.critical(0).put("incompatible row buffer layout [structureVersion=").put(structureVersion).put(']');
+        }
+        this.timestampIndex = timestampIndex;
+
+        for (int i = 0, n = this.columnTypes.size(); i < n; i++) {
+            final int type = columnTypes.getQuick(i);
+            final int bufferedType = this.columnTypes.getQuick(i);
+            if (type != bufferedType) {
+                if (type > 0 || bufferedType < 0) {
+                    throw CairoException.critical(0).put("column type changed in row buffer [columnIndex=").put(i)
+                            .put(", structureVersion=").put(structureVersion)
+                            .put(']');
+                }
+                // the column is dropped, rows in the buffer keep the values until the writer skips them
+                this.columnTypes.setQuick(i, type);
+            }
+        }
+
+        for (int i = this.columnTypes.size(), n = columnTypes.size(); i < n; i++) {
+            addColumn(i, columnTypes.getQuick(i));
+        }
+        this.structureVersion = structureVersion;
+    }
+
+    @Override
+    public void putBin(int columnIndex, long address, long len) {
+        getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putBin(address, len));
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putBin(int columnIndex, BinarySequence sequence) {
+        getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putBin(sequence));
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putBool(int columnIndex, boolean value) {
+        getPrimaryColumn(columnIndex).putBool(value);
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putByte(int columnIndex, byte value) {
+        getPrimaryColumn(columnIndex).putByte(value);
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putChar(int columnIndex, char value) {
+        getPrimaryColumn(columnIndex).putChar(value);
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putDouble(int columnIndex, double value) {
+        getPrimaryColumn(columnIndex).putDouble(value);
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putFloat(int columnIndex, float value) {
+        getPrimaryColumn(columnIndex).putFloat(value);
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putGeoHash(int index, long value) {
+        WriterRowUtils.putGeoHash(index, value, columnTypes.getQuick(index), this);
+    }
+
+    @Override
+    public void putGeoHashDeg(int index, double lat, double lon) {
+        final int type = columnTypes.getQuick(index);
+        WriterRowUtils.putGeoHash(index, GeoHashes.fromCoordinatesDegUnsafe(lat, lon, ColumnType.getGeoHashBits(type)), type, this);
+    }
+
+    @Override
+    public void putGeoStr(int index, CharSequence hash) {
+        WriterRowUtils.putGeoStr(index, hash, columnTypes.getQuick(index), this);
+    }
+
+    @Override
+    public void putInt(int columnIndex, int value) {
+        getPrimaryColumn(columnIndex).putInt(value);
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putLong(int columnIndex, long value) {
+        getPrimaryColumn(columnIndex).putLong(value);
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putLong128(int columnIndex, long lo, long hi) {
+        final MemoryCARW primaryColumn = getPrimaryColumn(columnIndex);
+        primaryColumn.putLong(lo);
+        primaryColumn.putLong(hi);
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putLong256(int columnIndex, long l0, long l1, long l2, long l3) {
+        getPrimaryColumn(columnIndex).putLong256(l0, l1, l2, l3);
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putLong256(int columnIndex, Long256 value) {
+        getPrimaryColumn(columnIndex).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putLong256(int columnIndex, CharSequence hexString) {
+        getPrimaryColumn(columnIndex).putLong256(hexString);
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putLong256(int columnIndex, @NotNull CharSequence hexString, int start, int end) {
+        getPrimaryColumn(columnIndex).putLong256(hexString, start, end);
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putShort(int columnIndex, short value) {
+        getPrimaryColumn(columnIndex).putShort(value);
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putStr(int columnIndex, CharSequence value) {
+        getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value));
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putStr(int columnIndex, char value) {
+        getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value));
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putStr(int columnIndex, CharSequence value, int pos, int len) {
+        getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value, pos, len));
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putStrUtf8AsUtf16(int columnIndex, DirectByteCharSequence value, boolean hasNonAsciiChars) {
+        getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStrUtf8AsUtf16(value, hasNonAsciiChars));
+        setRowValueNotNull(columnIndex);
+    }
+
+    @Override
+    public void putSym(int columnIndex, CharSequence value) {
+        if (value == null) {
+            putSymIndex(columnIndex, SymbolTable.VALUE_IS_NULL);
+            return;
+        }
+        final CharSequenceIntHashMap keys = localSymbolKeys.getQuick(columnIndex);
+        final int index = keys.keyIndex(value);
+        final int localKey;
+        if (index < 0) {
+            localKey = keys.valueAt(index);
+        } else {
+            final ObjList<String> symbols = localSymbols.getQuick(columnIndex);
+            final String symbol = Chars.toString(value);
+            localKey = symbols.size();
+            symbols.add(symbol);
+            keys.putAt(index, symbol, localKey);
+        }
+        putSymIndex(columnIndex, encodeLocalSymbolKey(localKey));
+    }
+
+    @Override
+    public void putSym(int columnIndex, char value) {
+        putSym(columnIndex, SingleCharCharSequence.get(value));
+    }
+
+    @Override
+    public void putUuid(int columnIndex, CharSequence uuidStr) {
+        SqlUtil.implicitCastStrAsUuid(uuidStr, uuid);
+        putLong128(columnIndex, uuid.getLo(), uuid.getHi());
+    }
+
+    private void addColumn(int columnIndex, int type) {
+        columnTypes.add(type);
+        rowValueIsNotNull.add(0);
+        localSymbolKeys.add(null);
+        localSymbols.add(null);
+        if (type > 0) {
+            final MemoryCARW primary = Vm.getCARWInstance(pageSize, maxPages, memoryTag);
+            MemoryCARW secondary = null;
+            if (ColumnType.isVariableLength(type)) {
+                secondary = Vm.getCARWInstance(pageSize, maxPages, memoryTag);
+                secondary.putLong(0);
+            }
+            columns.add(primary);
+            columns.add(secondary);
+            if (ColumnType.isSymbol(type)) {
+                localSymbolKeys.setQuick(columnIndex, new CharSequenceIntHashMap());
+                localSymbols.setQuick(columnIndex, new ObjList<>());
+            }
+            if (columnIndex == timestampIndex) {
+                nullSetters.add(TableWriter.NOOP);
+            } else {
+                TableWriter.configureNullSetters(nullSetters, type, primary, secondary);
+                // rows already in the buffer do not have the new column
+                final Runnable nullSetter = nullSetters.getQuick(columnIndex);
+                for (long r = 0; r < rowCount; r++) {
+                    nullSetter.run();
+                }
+            }
+        } else {
+            columns.add(null);
+            columns.add(null);
+            nullSetters.add(TableWriter.NOOP);
+        }
+    }
+
+    private int columnSizeOf(int columnIndex, int type) {
+        return columnIndex == timestampIndex ? Long.BYTES : ColumnType.sizeOf(type);
+    }
+
+    private void setRowValueNotNull(int columnIndex) {
+        rowValueIsNotNull.setQuick(columnIndex, rowCount + 1);
+    }
+
+    CharSequence getLocalSymbol(int columnIndex, int localKey) {
+        return localSymbols.getQuick(columnIndex).getQuick(localKey);
+    }
+
+    int getLocalSymbolCount(int columnIndex) {
+        final ObjList<String> symbols = localSymbols.getQuick(columnIndex);
+        return symbols != null ? symbols.size() : 0;
+    }
+
+    MemoryCARW getPrimaryColumn(int columnIndex) {
+        return columns.getQuick(2 * columnIndex);
+    }
+
+    MemoryCARW getSecondaryColumn(int columnIndex) {
+        return columns.getQuick(2 * columnIndex + 1);
+    }
+
+    int getTimestampIndex() {
+        return timestampIndex;
+    }
+}
@@ -29,6 +29,7 @@ import io.questdb.cairo.sql.SqlExecutionCircuitBreakerConfiguration;
 import io.questdb.cairo.sql.async.PageFrameReduceJob;
 import io.questdb.griffin.FunctionFactoryCache;
 import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.table.GroupByMergeShardJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.WorkerPool;
@@ -78,6 +79,7 @@ public class O3Utils {
             workerPool.assign(i, pageFrameReduceJob);
             workerPool.freeOnExit(pageFrameReduceJob);
         }
+        workerPool.assign(new GroupByMergeShardJob(messageBus));
     }
 
     static void close(FilesFacade ff, int fd) {
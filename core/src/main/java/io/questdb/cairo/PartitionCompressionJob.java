@@ -0,0 +1,141 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.OperationFuture;
+import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjHashSet;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Compresses partitions once all of their data is older than the configured age,
+ * see {@link CairoConfiguration#getPartitionCompressionAge()}. Partitions are compressed
+ * via ALTER TABLE ... COMPRESS PARTITION, so that the command also goes through the WAL
+ * for WAL tables.
+ */
+public class PartitionCompressionJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionCompressionJob.class);
+    private final long age;
+    private final long checkInterval;
+    private final MicrosecondClock clock;
+    private final SqlCompiler compiler;
+    private final CairoEngine engine;
+    private final StringSink sql = new StringSink();
+    private final SqlExecutionContextImpl sqlExecutionContext;
+    private final ObjHashSet<TableToken> tableTokenBucket = new ObjHashSet<>();
+    private long last = 0;
+
+    public PartitionCompressionJob(CairoEngine engine, @Nullable FunctionFactoryCache functionFactoryCache) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.clock = configuration.getMicrosecondClock();
+        this.age = configuration.getPartitionCompressionAge() * 1000;
+        this.checkInterval = configuration.getPartitionCompressionInterval() * 1000;
+        this.compiler = new SqlCompiler(engine, functionFactoryCache, null);
+        this.sqlExecutionContext = new SqlExecutionContextImpl(engine, 1);
+        this.sqlExecutionContext.with(
+                configuration.getFactoryProvider().getSecurityContextFactory().getRootContext(),
+                null,
+                null
+        );
+    }
+
+    @Override
+    public void close() {
+        Misc.free(compiler);
+    }
+
+    private void compressTable(TableToken tableToken, long timestampHi) throws SqlException {
+        sql.clear();
+        try (TableReader reader = engine.getReader(tableToken)) {
+            final int partitionBy = reader.getPartitionedBy();
+            if (!PartitionBy.isPartitioned(partitionBy)) {
+                return;
+            }
+            final PartitionBy.PartitionAddMethod partitionAddMethod = PartitionBy.getPartitionAddMethod(partitionBy);
+            final TxReader txFile = reader.getTxFile();
+            long lastLogicalTimestamp = Long.MIN_VALUE;
+            // the last partition is active and never compressed
+            for (int i = 0, n = txFile.getPartitionCount() - 1; i < n; i++) {
+                final long logicalTimestamp = txFile.getLogicalPartitionTimestamp(txFile.getPartitionTimestampByIndex(i));
+                if (logicalTimestamp == lastLogicalTimestamp
+                        || txFile.isPartitionReadOnly(i)
+                        || partitionAddMethod.calculate(logicalTimestamp, 1) > timestampHi) {
+                    continue;
+                }
+                if (txFile.getLogicalPartitionTimestamp(txFile.getPartitionTimestampByIndex(n)) == logicalTimestamp) {
+                    // split of the active partition
+                    break;
+                }
+                sql.put(sql.length() == 0 ? " list '" : ", '");
+                PartitionBy.setSinkForPartition(sql, partitionBy, logicalTimestamp);
+                sql.put('\'');
+                lastLogicalTimestamp = logicalTimestamp;
+            }
+        }
+
+        if (sql.length() > 0) {
+            final String partitions = sql.toString();
+            sql.clear();
+            sql.put("alter table \"").put(tableToken.getTableName()).put("\" compress partition").put(partitions);
+            LOG.info().$("compressing partitions [table=").utf8(tableToken.getTableName()).$(", sql=").$(sql).I$();
+            try (OperationFuture future = compiler.compile(sql, sqlExecutionContext).execute(null)) {
+                future.await();
+            } catch (EntryUnavailableException e) {
+                LOG.info().$("table is busy, will retry [table=").utf8(tableToken.getTableName()).$(", reason=").$(e.getFlyweightMessage()).I$();
+            }
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long t = clock.getTicks();
+        if (last + checkInterval < t) {
+            last = t;
+            tableTokenBucket.clear();
+            engine.getTableTokens(tableTokenBucket, false);
+            for (int i = 0, n = tableTokenBucket.size(); i < n; i++) {
+                final TableToken tableToken = tableTokenBucket.get(i);
+                try {
+                    compressTable(tableToken, t - age);
+                } catch (Throwable th) {
+                    LOG.error().$("could not compress partitions [table=").utf8(tableToken.getTableName()).$(", error=").$(th).I$();
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -39,6 +39,9 @@ public interface SecurityContext {
     default void authorizeAlterTableAttachPartition(TableToken tableToken) {
     }
 
+    default void authorizeAlterTableCompressPartition(TableToken tableToken) {
+    }
+
     default void authorizeAlterTableDetachPartition(TableToken tableToken) {
     }
 
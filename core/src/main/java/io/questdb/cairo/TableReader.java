@@ -27,6 +27,8 @@ package io.questdb.cairo;
 import io.questdb.MessageBus;
 import io.questdb.cairo.sql.StaticSymbolTable;
 import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.vm.InflatedBlockCache;
+import io.questdb.cairo.vm.MemoryCMRZImpl;
 import io.questdb.cairo.vm.NullMemoryMR;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMR;
@@ -52,6 +54,8 @@ public class TableReader implements Closeable, SymbolTableSource {
     private static final int PARTITIONS_SLOT_OFFSET_SIZE = 1;
     private static final int PARTITIONS_SLOT_SIZE = 4;
     private static final int PARTITIONS_SLOT_SIZE_MSB = Numbers.msb(PARTITIONS_SLOT_SIZE);
+    // bounds memory used by decompressed blocks of compressed partitions
+    private final InflatedBlockCache blockCache;
     private final MillisecondClock clock;
     private final ColumnVersionReader columnVersionReader;
     private final CairoConfiguration configuration;
@@ -95,6 +99,7 @@ public class TableReader implements Closeable, SymbolTableSource {
         this.configuration = configuration;
         this.clock = configuration.getMillisecondClock();
         this.maxOpenPartitions = configuration.getInactiveReaderMaxOpenPartitions();
+        this.blockCache = new InflatedBlockCache(configuration.getPartitionCompressionReaderCacheSize());
         this.ff = configuration.getFilesFacade();
         this.tableToken = tableToken;
         this.messageBus = messageBus;
@@ -175,6 +180,7 @@ public class TableReader implements Closeable, SymbolTableSource {
             Misc.free(txFile);
             Misc.free(todoMem);
             freeColumns();
+            Misc.free(blockCache);
             freeTempMem();
             Misc.free(txnScoreboard);
             Misc.free(path);
@@ -356,6 +362,8 @@ public class TableReader implements Closeable, SymbolTableSource {
                 }
             }
         }
+        // page frames of compressed partitions are no longer referenced
+        releaseCompressedFrames();
     }
 
     public boolean isActive() {
@@ -390,6 +398,37 @@ public class TableReader implements Closeable, SymbolTableSource {
         return openPartition0(partitionIndex);
     }
 
+    /**
+     * Loads zone map of the column in an open partition. Partitions that are no longer
+     * active have zone maps, see {@link ZoneMapWriter}.
+     *
+     * @param partitionIndex index of open partition
+     * @param columnIndex    column index
+     * @param zoneMap        reader to load zone map into
+     * @return false when the partition has no zone map for the column
+     */
+    public boolean openZoneMap(int partitionIndex, int columnIndex, ZoneMapReader zoneMap) {
+        if (partitionIndex == getPartitionCount() - 1) {
+            // active partition is appended to in place, rolled back rows may be
+            // replaced by different ones and its zone map would no longer hold
+            zoneMap.clear();
+            return false;
+        }
+        final long partitionTimestamp = txFile.getPartitionTimestampByIndex(partitionIndex);
+        final long columnNameTxn = columnVersionReader.getColumnNameTxn(partitionTimestamp, metadata.getWriterIndex(columnIndex));
+        final Path path = pathGenPartitioned(partitionIndex);
+        try {
+            return zoneMap.of(
+                    ff,
+                    TableUtils.zoneMapFile(path, metadata.getColumnName(columnIndex), columnNameTxn),
+                    getPartitionRowCount(partitionIndex),
+                    metadata.getColumnType(columnIndex)
+            );
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     public void reconcileOpenPartitionsFrom(int partitionIndex, boolean forceTruncate) {
         int txPartitionCount = txFile.getPartitionCount();
         int txPartitionIndex = partitionIndex;
@@ -831,14 +870,21 @@ public class TableReader implements Closeable, SymbolTableSource {
             ObjList<MemoryMR> columns,
             int primaryIndex,
             MemoryMR mem,
-            long columnSize
+            long columnSize,
+            boolean compressed
     ) {
         if (mem != null && mem != NullMemoryMR.INSTANCE) {
-            mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
-        } else {
-            mem = Vm.getMRInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_READER);
-            columns.setQuick(primaryIndex, mem);
+            if ((mem instanceof MemoryCMRZImpl) == compressed) {
+                mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
+                return mem;
+            }
+            // partition has been compressed since the column was last opened
+            mem.close();
         }
+        mem = compressed
+                ? new MemoryCMRZImpl(blockCache, ff, path, columnSize, MemoryTag.MMAP_TABLE_READER)
+                : Vm.getMRInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_READER);
+        columns.setQuick(primaryIndex, mem);
         return mem;
     }
 
@@ -1015,6 +1061,18 @@ public class TableReader implements Closeable, SymbolTableSource {
         reconcileOpenPartitionsFrom(0, truncateHappened);
     }
 
+    private void releaseCompressedFrames() {
+        if (columns == null) {
+            return;
+        }
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final MemoryMR mem = columns.getQuick(i);
+            if (mem instanceof MemoryCMRZImpl) {
+                ((MemoryCMRZImpl) mem).releaseFrames();
+            }
+        }
+    }
+
     private boolean releaseTxn() {
         if (txnAcquired) {
             long readerCount = txnScoreboard.releaseTxn(txn);
@@ -1069,6 +1127,7 @@ public class TableReader implements Closeable, SymbolTableSource {
                 columnTxn = columnVersionReader.getDefaultColumnNameTxn(writerIndex);
             }
             final long columnRowCount = partitionRowCount - columnTop;
+            final boolean compressed = txFile.isPartitionCompressed(partitionIndex);
 
             // When column is added mid-table existence the top record is only
             // created in the current partition. Older partitions would simply have no
@@ -1080,18 +1139,18 @@ public class TableReader implements Closeable, SymbolTableSource {
                 if (ColumnType.isVariableLength(columnType)) {
                     long columnSize = columnRowCount * 8L + 8L;
                     TableUtils.iFile(path.trimTo(plen), name, columnTxn);
-                    mem2 = openOrCreateMemory(path, columns, secondaryIndex, mem2, columnSize);
+                    mem2 = openOrCreateMemory(path, columns, secondaryIndex, mem2, columnSize, compressed);
                     long column2Size = mem2.getLong(columnRowCount * 8L);
                     if (column2Size <= 0 || column2Size >= (1L << 40)) {
                         LOG.critical().$("Invalid var len column size [column=").$(name).$(", size=").$(column2Size).$(", path=").$(path).I$();
                         throw CairoException.critical(0).put("Invalid column size [column=").put(path).put(", size=").put(column2Size).put(']');
                     }
                     TableUtils.dFile(path.trimTo(plen), name, columnTxn);
-                    openOrCreateMemory(path, columns, primaryIndex, mem1, column2Size);
+                    openOrCreateMemory(path, columns, primaryIndex, mem1, column2Size, compressed);
                 } else {
                     long columnSize = columnRowCount << ColumnType.pow2SizeOf(columnType);
                     TableUtils.dFile(path.trimTo(plen), name, columnTxn);
-                    openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize);
+                    openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize, compressed);
                     Misc.free(columns.getAndSetQuick(secondaryIndex, null));
                 }
 
@@ -34,6 +34,7 @@ import io.questdb.cairo.sql.AsyncWriterCommand;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.sql.TableRecordMetadata;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
+import io.questdb.cairo.vm.MemoryCMRZImpl;
 import io.questdb.cairo.vm.NullMapWriter;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.*;
@@ -90,11 +91,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     public static final int PARTITION_SINK_SIZE_LONGS = 5;
     public static final int PARTITION_SINK_COL_TOP_OFFSET = PARTITION_SINK_SIZE_LONGS * Long.BYTES;
     public static final int TIMESTAMP_MERGE_ENTRY_BYTES = Long.BYTES * 2;
+    static final Runnable NOOP = () -> {
+    };
     private static final ObjectFactory<MemoryCMOR> GET_MEMORY_CMOR = Vm::getMemoryCMOR;
     private static final long IGNORE = -1L;
     private static final Log LOG = LogFactory.getLog(TableWriter.class);
-    private static final Runnable NOOP = () -> {
-    };
     private static final Row NOOP_ROW = new NoOpRow();
     private static final int O3_ERRNO_FATAL = Integer.MAX_VALUE - 1;
     private static final int ROW_ACTION_NO_PARTITION = 1;
@@ -102,6 +103,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private static final int ROW_ACTION_O3 = 3;
     private static final int ROW_ACTION_OPEN_PARTITION = 0;
     private static final int ROW_ACTION_SWITCH_PARTITION = 4;
+    // WAL symbol columns are remapped in chunks of this many rows, chunks are processed in parallel
+    private static final long WAL_SYMBOL_REMAP_CHUNK_ROWS = 256 * 1024;
     final ObjList<MemoryMA> columns;
     // Latest command sequence per command source.
     // Publisher source is identified by a long value
@@ -145,6 +148,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final long[] o3LastTimestampSpreads;
     private final AtomicLong o3PartitionUpdRemaining = new AtomicLong();
     private final boolean o3QuickSortEnabled;
+    // writer keys of the local symbols of an appended row buffer column
+    private final IntList o3RowBufferSymbolKeys = new IntList();
     private final Path other;
     private final MessageBus ownMessageBus;
     private final boolean parallelIndexerEnabled;
@@ -160,7 +165,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final LongList rowValueIsNotNull = new LongList();
     private final TxReader slaveTxReader;
     private final ObjList<MapWriter> symbolMapWriters;
-    private final IntList symbolRewriteMap = new IntList();
+    // index of the first column that failed WAL symbol remap and the failure message, set by the failing task
+    private final AtomicInteger walSymbolRemapErrorColumnIndex = new AtomicInteger(-1);
+    private final StringSink walSymbolRemapErrorSink = new StringSink();
+    private final ObjList<IntList> walSymbolRewriteMaps = new ObjList<>();
     private final MemoryMARW todoMem = Vm.getMARWInstance();
     private final TxWriter txWriter;
     private final FindVisitor removePartitionDirsNotAttached = this::removePartitionDirsNotAttached;
@@ -168,7 +176,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final Uuid uuid = new Uuid();
     private final LowerCaseCharSequenceIntHashMap validationMap = new LowerCaseCharSequenceIntHashMap();
     private final WeakClosableObjectPool<MemoryCMOR> walColumnMemoryPool;
+    private final WalLagSortedRuns walLagSortedRuns = new WalLagSortedRuns();
     private final ObjList<MemoryCMOR> walMappedColumns = new ObjList<>();
+    private final LongList zoneMapPartitions = new LongList();
+    private final ZoneMapWriter zoneMapWriter;
+    private final boolean zoneMapsEnabled;
     private ObjList<? extends MemoryA> activeColumns;
     private ObjList<Runnable> activeNullSetters;
     private ColumnVersionReader attachColumnVersionReader;
@@ -219,6 +231,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private int rowAction = ROW_ACTION_OPEN_PARTITION;
     private TableToken tableToken;
     private final O3ColumnUpdateMethod o3MoveWalFromFilesToLastPartitionRef = this::o3MoveWalFromFilesToLastPartition;
+    private final O3ColumnUpdateMethod o3RemapWalSymbolsRef = this::o3RemapWalSymbols;
     private final O3ColumnUpdateMethod o3SortFixColumnRef = this::o3SortFixColumn;
     private final O3ColumnUpdateMethod o3SortVarColumnRef = this::o3SortVarColumn;
     private final O3ColumnUpdateMethod o3MergeVarColumnLagRef = this::o3MergeVarColumnLag;
@@ -260,6 +273,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         this.tableToken = tableToken;
         this.o3QuickSortEnabled = configuration.isO3QuickSortEnabled();
         this.o3ColumnMemorySize = configuration.getO3ColumnMemorySize();
+        this.zoneMapsEnabled = configuration.getPartitionZoneMapBlockRows() > 0;
+        this.zoneMapWriter = new ZoneMapWriter(ff, configuration.getPartitionZoneMapBlockRows());
         this.path = new Path().of(root).concat(tableToken);
         this.other = new Path().of(root).concat(tableToken);
         this.rootLen = path.length();
@@ -611,6 +626,99 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         metrics.tableWriter().addPhysicallyWrittenRows(rows);
     }
 
+    /**
+     * Copies rows of the buffer to O3 memory, as if each of them was added with {@link #newRow(long)}
+     * out of order. The rows are sorted and merged into partitions on the next commit. Columns dropped
+     * since the buffer was laid out are skipped, columns added since then are set to null.
+     *
+     * @param buffer rows to append, the buffer is not modified
+     */
+    public void appendO3RowBuffer(O3RowBuffer buffer) {
+        final long rowCount = buffer.getRowCount();
+        if (rowCount == 0) {
+            return;
+        }
+        checkDistressed();
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex < 0 || !PartitionBy.isPartitioned(partitionBy) || buffer.getTimestampIndex() != timestampIndex) {
+            throw CairoException.nonCritical().put("row buffers can only be appended to partitioned tables [table=").put(tableToken.getTableName()).put(']');
+        }
+        if ((masterRef & 1) != 0) {
+            rowCancel();
+        }
+
+        if (rowAction == ROW_ACTION_OPEN_PARTITION) {
+            if (txWriter.getMaxTimestamp() == Long.MIN_VALUE) {
+                txWriter.setMinTimestamp(buffer.getMinTimestamp());
+                openFirstPartition(txWriter.getPartitionTimestampByTimestamp(buffer.getMinTimestamp()));
+                // O3 merge needs a last partition to merge into, it starts empty
+                txWriter.setMaxTimestamp(buffer.getMinTimestamp());
+            }
+            rowAction = ROW_ACTION_SWITCH_PARTITION;
+        }
+
+        final long o3RowLo;
+        if (rowAction != ROW_ACTION_O3) {
+            // the first buffered row takes the place of the row newRow() would start
+            switchToO3(masterRef + 1);
+            o3RowLo = 0;
+        } else {
+            o3RowLo = getO3RowCount0();
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            final int type = metadata.getColumnType(i);
+            if (type < 0) {
+                continue;
+            }
+
+            if (i == timestampIndex) {
+                final long srcAddr = buffer.getPrimaryColumn(i).getAddress();
+                for (long n = 0; n < rowCount; n++) {
+                    o3TimestampMem.putLong128(Unsafe.getUnsafe().getLong(srcAddr + n * Long.BYTES), o3RowLo + n);
+                }
+                continue;
+            }
+
+            if (i >= buffer.getColumnCount() || buffer.getColumnType(i) != type) {
+                final Runnable nullSetter = activeNullSetters.getQuick(i);
+                for (long n = 0; n < rowCount; n++) {
+                    nullSetter.run();
+                }
+                continue;
+            }
+
+            final MemoryA dstPrimary = activeColumns.getQuick(getPrimaryColumnIndex(i));
+            final MemoryCARW srcPrimary = buffer.getPrimaryColumn(i);
+            if (ColumnType.isVariableLength(type)) {
+                // aux entries are offsets of the value ends, rebase them onto the data already in O3 memory
+                final long dataOffset = dstPrimary.getAppendOffset();
+                dstPrimary.putBlockOfBytes(srcPrimary.getAddress(), srcPrimary.getAppendOffset());
+                final MemoryA dstSecondary = activeColumns.getQuick(getSecondaryColumnIndex(i));
+                final long srcAuxAddr = buffer.getSecondaryColumn(i).getAddress();
+                for (long n = 1; n <= rowCount; n++) {
+                    dstSecondary.putLong(dataOffset + Unsafe.getUnsafe().getLong(srcAuxAddr + n * Long.BYTES));
+                }
+            } else if (ColumnType.isSymbol(type) && buffer.getLocalSymbolCount(i) > 0) {
+                final MapWriter symbolMapWriter = symbolMapWriters.getQuick(i);
+                o3RowBufferSymbolKeys.clear();
+                for (int k = 0, n = buffer.getLocalSymbolCount(i); k < n; k++) {
+                    o3RowBufferSymbolKeys.add(symbolMapWriter.put(buffer.getLocalSymbol(i, k)));
+                }
+                final long srcAddr = srcPrimary.getAddress();
+                for (long n = 0; n < rowCount; n++) {
+                    final int key = Unsafe.getUnsafe().getInt(srcAddr + n * Integer.BYTES);
+                    dstPrimary.putInt(O3RowBuffer.isLocalSymbolKey(key) ? o3RowBufferSymbolKeys.getQuick(O3RowBuffer.decodeLocalSymbolKey(key)) : key);
+                }
+            } else {
+                dstPrimary.putBlockOfBytes(srcPrimary.getAddress(), srcPrimary.getAppendOffset());
+            }
+        }
+
+        masterRef += 2 * rowCount;
+        o3CommitBatchTimestampMin = Math.min(o3CommitBatchTimestampMin, buffer.getMinTimestamp());
+    }
+
     public void apply(AbstractOperation operation, long seqTxn) {
         try {
             setSeqTxn(seqTxn);
@@ -863,6 +971,184 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
     }
 
+    /**
+     * Rewrites column files of the partition into block-compressed files, see {@link ColumnCompressor}.
+     * Unless disabled by configuration, integer columns, including the designated timestamp,
+     * symbol keys and var-size column offsets, are delta-of-delta or frame-of-reference encoded.
+     * Numeric and symbol columns also get zone maps, see {@link ZoneMapWriter}, which stay valid
+     * because compressed partitions do not change. The rewritten partition is stored in a new
+     * partition version and flagged as compressed and read-only.
+     *
+     * @param timestamp timestamp of the partition to compress
+     */
+    @Override
+    public void compressPartition(long timestamp) {
+        // Should be checked by SQL compiler
+        assert metadata.getTimestampIndex() > -1;
+        assert PartitionBy.isPartitioned(partitionBy);
+
+        if (inTransaction()) {
+            LOG.info()
+                    .$("committing open transaction before applying compress partition command [table=")
+                    .utf8(tableToken.getTableName())
+                    .$(", partition=").$ts(timestamp)
+                    .I$();
+            commit();
+        }
+
+        timestamp = txWriter.getLogicalPartitionTimestamp(timestamp);
+        if (timestamp == txWriter.getLogicalPartitionTimestamp(txWriter.getMaxTimestamp())) {
+            throw CairoException.nonCritical().put("cannot compress active partition [table=").put(tableToken.getTableName())
+                    .put(", partitionTimestamp=").ts(timestamp)
+                    .put(']');
+        }
+
+        int partitionIndex = txWriter.getPartitionIndex(timestamp);
+        if (partitionIndex < 0) {
+            throw CairoException.nonCritical().put("partition does not exist [table=").put(tableToken.getTableName())
+                    .put(", partitionTimestamp=").ts(timestamp)
+                    .put(']');
+        }
+        if (txWriter.isPartitionCompressed(partitionIndex)) {
+            LOG.info().$("partition is already compressed [table=").utf8(tableToken.getTableName()).$(", partition=").$ts(timestamp).I$();
+            return;
+        }
+        if (txWriter.isPartitionReadOnly(partitionIndex)) {
+            throw CairoException.nonCritical().put("cannot compress read-only partition [table=").put(tableToken.getTableName())
+                    .put(", partitionTimestamp=").ts(timestamp)
+                    .put(']');
+        }
+
+        // compressed partition is stored in a single folder
+        squashSplitPartitions(timestamp, txWriter.ceilPartitionTimestamp(timestamp), 1, 1);
+        partitionIndex = txWriter.getPartitionIndex(timestamp);
+        if (txWriter.getLogicalPartitionTimestamp(txWriter.getPartitionTimestampByIndex(partitionIndex + 1)) == timestamp) {
+            // Could not squash to single partition because of active table readers.
+            throw CairoException.nonCritical().put("cannot compress split partition, it is in use by readers [table=").put(tableToken.getTableName())
+                    .put(", partitionTimestamp=").ts(timestamp)
+                    .put(']');
+        }
+
+        final long partitionSize = txWriter.getPartitionSize(partitionIndex);
+        final long srcNameTxn = txWriter.getPartitionNameTxn(partitionIndex);
+        final long dstNameTxn = txWriter.getTxn();
+        final boolean encode = configuration.isPartitionCompressionEncodingEnabled();
+        final int zoneMapBlockRows = configuration.getPartitionZoneMapBlockRows();
+
+        try {
+            setPathForPartition(other.trimTo(rootLen), partitionBy, timestamp, srcNameTxn);
+            final int srcLen = other.length();
+            setPathForPartition(path.trimTo(rootLen), partitionBy, timestamp, dstNameTxn);
+            final int dstLen = path.length();
+            if (ff.exists(path.$())) {
+                // leftover of a failed attempt, the version is not referenced by _txn
+                LOG.info().$("removing abandoned partition version [path=").utf8(path).I$();
+                ff.unlinkOrRemove(path, LOG);
+            }
+            if (ff.mkdirs(path.slash$(), mkDirMode) != 0) {
+                throw CairoException.critical(ff.errno()).put("could not create directory [path=").put(path).put(']');
+            }
+
+            long compressedSize = 0;
+            long uncompressedSize = 0;
+            try (
+                    ColumnCompressor compressor = new ColumnCompressor(ff, configuration.getPartitionCompressionBlockSize());
+                    ZoneMapWriter zoneMapWriter = new ZoneMapWriter(ff, zoneMapBlockRows)
+            ) {
+                for (int i = 0; i < columnCount; i++) {
+                    final int columnType = metadata.getColumnType(i);
+                    if (columnType < 0) {
+                        continue;
+                    }
+                    final long columnTop = columnVersionWriter.getColumnTop(timestamp, i);
+                    if (columnTop < 0 || columnTop >= partitionSize) {
+                        // column does not exist in the partition
+                        continue;
+                    }
+                    final CharSequence name = metadata.getColumnName(i);
+                    final long columnNameTxn = columnVersionWriter.getColumnNameTxn(timestamp, i);
+                    final long columnRowCount = partitionSize - columnTop;
+
+                    final long dataSize;
+                    final int codec;
+                    final int valueSizeBits;
+                    if (ColumnType.isVariableLength(columnType)) {
+                        final long indexSize = (columnRowCount + 1) * Long.BYTES;
+                        iFile(other.trimTo(srcLen), name, columnNameTxn);
+                        dataSize = TableUtils.readLongAtOffset(ff, other, tempMem16b, columnRowCount * Long.BYTES);
+                        compressedSize += compressor.compress(
+                                other,
+                                indexSize,
+                                iFile(path.trimTo(dstLen), name, columnNameTxn),
+                                encode ? ColumnCompressor.CODEC_INTEGER : ColumnCompressor.CODEC_DEFLATE,
+                                3
+                        );
+                        uncompressedSize += indexSize;
+                        codec = ColumnCompressor.CODEC_DEFLATE;
+                        valueSizeBits = 0;
+                    } else {
+                        valueSizeBits = ColumnType.pow2SizeOf(columnType);
+                        dataSize = columnRowCount << valueSizeBits;
+                        codec = encode ? ColumnCompressor.getCodec(columnType) : ColumnCompressor.CODEC_DEFLATE;
+                        // designated timestamp is pruned by interval scans
+                        if (zoneMapBlockRows > 0 && i != metadata.getTimestampIndex() && ZoneMapWriter.isSupported(columnType)) {
+                            zoneMapWriter.write(
+                                    dFile(other.trimTo(srcLen), name, columnNameTxn),
+                                    columnTop,
+                                    partitionSize,
+                                    columnType,
+                                    zoneMapFile(path.trimTo(dstLen), name, columnNameTxn)
+                            );
+                        }
+                    }
+                    compressedSize += compressor.compress(
+                            dFile(other.trimTo(srcLen), name, columnNameTxn),
+                            dataSize,
+                            dFile(path.trimTo(dstLen), name, columnNameTxn),
+                            codec,
+                            valueSizeBits
+                    );
+                    uncompressedSize += dataSize;
+
+                    if (metadata.isColumnIndexed(i)) {
+                        linkOrCopyFile(
+                                ff,
+                                keyFileName(other.trimTo(srcLen), name, columnNameTxn),
+                                keyFileName(path.trimTo(dstLen), name, columnNameTxn)
+                        );
+                        linkOrCopyFile(
+                                ff,
+                                valueFileName(other.trimTo(srcLen), name, columnNameTxn),
+                                valueFileName(path.trimTo(dstLen), name, columnNameTxn)
+                        );
+                    }
+                }
+            } catch (Throwable th) {
+                LOG.error().$("could not compress partition [path=").utf8(path.trimTo(dstLen).$()).$(", error=").$(th).I$();
+                ff.unlinkOrRemove(path, LOG);
+                throw th;
+            }
+
+            txWriter.updatePartitionSizeAndTxnByRawIndex(partitionIndex * LONGS_PER_TX_ATTACHED_PARTITION, partitionSize);
+            txWriter.setPartitionReadOnly(partitionIndex, true);
+            txWriter.setPartitionCompressed(partitionIndex, true);
+            txWriter.bumpPartitionTableVersion();
+            txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+
+            LOG.info().$("compressed partition [path=").utf8(path.trimTo(dstLen).$())
+                    .$(", size=").$(uncompressedSize)
+                    .$(", compressedSize=").$(compressedSize)
+                    .I$();
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+
+        partitionRemoveCandidates.clear();
+        partitionRemoveCandidates.add(timestamp, srcNameTxn);
+        processPartitionRemoveCandidates();
+    }
+
     public void destroy() {
         // Closes all the files and makes this instance unusable e.g. it cannot return to the pool on close.
         LOG.info().$("closing table files [table=").utf8(tableToken.getTableName())
@@ -896,6 +1182,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             return AttachDetachStatus.DETACH_ERR_MISSING_PARTITION;
         }
 
+        if (txWriter.isPartitionCompressed(partitionIndex)) {
+            // compressed files cannot be attached back as regular column files
+            return AttachDetachStatus.DETACH_ERR_COMPRESSED;
+        }
+
         // To detach the partition, squash it into single folder if required
         squashSplitPartitions(timestamp, txWriter.ceilPartitionTimestamp(timestamp), 1, 1);
 
@@ -1472,6 +1763,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     // This will copy data from mmap files to memory.
                     // Symbols are already mapped to the correct destination.
                     o3ShiftLagRowsUp(timestampIndex, o3Hi - o3Lo, o3Lo, walLagRowCount, true, this.o3MoveWalFromFilesToLastPartitionRef);
+                    walLagSortedRuns.onAppend(walLagRowCount, txWriter.isLagOrdered(), walLagMaxTimestampBefore, ordered, o3TimestampMin, commitRowCount);
                     walLagRowCount += commitRowCount;
                     txWriter.setLagRowCount((int) walLagRowCount);
                     txWriter.setLagOrdered(txWriter.isLagOrdered() && ordered && walLagMaxTimestampBefore <= o3TimestampMin);
@@ -1497,9 +1789,13 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 long timestampAddr;
                 MemoryCR walTimestampColumn = walMappedColumns.getQuick(getPrimaryColumnIndex(timestampIndex));
                 if (needsOrdering) {
-                    LOG.info().$("sorting WAL [table=").$(tableToken)
+                    // When WAL rows and the squashed lag transactions are each in order,
+                    // merge them in one pass instead of sorting all the rows again.
+                    final boolean mergeSortedRuns = ordered && walLagSortedRuns.isMergeable(walLagRowCount, txWriter.isLagOrdered());
+                    LOG.info().$(mergeSortedRuns ? "merging WAL [table=" : "sorting WAL [table=").$(tableToken)
                             .$(", ordered=").$(ordered)
                             .$(", lagRowCount=").$(walLagRowCount)
+                            .$(", lagRuns=").$(mergeSortedRuns ? walLagSortedRuns.getRunCount() : -1)
                             .$(", walRowLo=").$(rowLo)
                             .$(", walRowHi=").$(rowHi).I$();
 
@@ -1515,14 +1811,25 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     final long mappedTimestampIndexAddr = walTimestampColumn.addressOf(rowLo << 4);
 
                     timestampAddr = o3TimestampMem.getAddress();
-                    Vect.radixSortABLongIndexAsc(
-                            Math.abs(tsLagBufferAddr),
-                            walLagRowCount,
-                            mappedTimestampIndexAddr,
-                            commitRowCount,
-                            timestampAddr,
-                            o3TimestampMemCpy.addressOf(0)
-                    );
+                    if (mergeSortedRuns) {
+                        walLagSortedRuns.merge(
+                                Math.abs(tsLagBufferAddr),
+                                walLagRowCount,
+                                mappedTimestampIndexAddr,
+                                commitRowCount,
+                                timestampAddr
+                        );
+                    } else {
+                        Vect.radixSortABLongIndexAsc(
+                                Math.abs(tsLagBufferAddr),
+                                walLagRowCount,
+                                mappedTimestampIndexAddr,
+                                commitRowCount,
+                                timestampAddr,
+                                o3TimestampMemCpy.addressOf(0)
+                        );
+                    }
+                    walLagSortedRuns.clear();
                     mapAppendColumnBufferRelease(tsLagBufferAddr, tsLagOffset, tsLagSize);
                     o3MergeIntoLag(timestampAddr, walLagRowCount, rowLo, rowHi, timestampIndex);
 
@@ -1681,6 +1988,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             final long rowsAdded = txWriter.getRowCount() - committedRowCount;
 
             updateIndexes();
+            writeZoneMaps();
             columnVersionWriter.commit();
 
             if (txWriter.getLagRowCount() == 0) {
@@ -1939,6 +2247,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             try {
                 LOG.info().$("tx rollback [name=").utf8(tableToken.getTableName()).I$();
                 partitionRemoveCandidates.clear();
+                zoneMapPartitions.clear();
                 o3CommitBatchTimestampMin = Long.MAX_VALUE;
                 if ((masterRef & 1) != 0) {
                     masterRef++;
@@ -2121,7 +2430,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
-    private static void configureNullSetters(ObjList<Runnable> nullers, int type, MemoryA mem1, MemoryA mem2) {
+    static void configureNullSetters(ObjList<Runnable> nullers, int type, MemoryA mem1, MemoryA mem2) {
         switch (ColumnType.tagOf(type)) {
             case ColumnType.BOOLEAN:
             case ColumnType.BYTE:
@@ -2216,6 +2525,15 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private static void linkOrCopyFile(FilesFacade ff, LPSZ from, LPSZ to) {
+        if (ff.hardLink(from, to) != FILES_RENAME_OK && ff.copy(from, to) < 0) {
+            throw CairoException.critical(ff.errno())
+                    .put("could not link or copy file [from=").put(from)
+                    .put(", to=").put(to)
+                    .put(']');
+        }
+    }
+
     private static ColumnVersionWriter openColumnVersionFile(FilesFacade ff, Path path, int rootLen) {
         path.concat(COLUMN_VERSION_FILE_NAME).$();
         try {
@@ -2718,6 +3036,21 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void awaitO3CallbackQueue(RingQueue<O3CallbackTask> queue, int queuedCount) {
+        // This is work stealing, can run tasks from other table writers
+        final Sequence subSeq = this.messageBus.getO3CallbackSubSeq();
+        while (!o3DoneLatch.done(queuedCount)) {
+            long cursor = subSeq.next();
+            if (cursor > -1) {
+                O3CallbackJob.runCallbackWithCol(queue.get(cursor), cursor, subSeq);
+            } else if (cursor == -1) {
+                o3DoneLatch.await(queuedCount);
+            } else {
+                Os.pause();
+            }
+        }
+    }
+
     private void bumpMasterRef() {
         if ((masterRef & 1) == 0) {
             masterRef++;
@@ -2787,6 +3120,27 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void checkWalSymbolRemapErrors(Path walPath) {
+        final int columnIndex = walSymbolRemapErrorColumnIndex.get();
+        if (columnIndex > -1) {
+            if (lastErrno == O3_ERRNO_FATAL) {
+                distressed = true;
+                throw new CairoError("cannot remap WAL symbols [table=" + tableToken.getTableName()
+                        + ", column=" + metadata.getColumnName(columnIndex)
+                        + ", walPath=" + walPath
+                        + ", ex=" + walSymbolRemapErrorSink
+                        + ']');
+            }
+            throw CairoException.critical(lastErrno)
+                    .put("cannot remap WAL symbols [table=").put(tableToken.getTableName())
+                    .put(", column=").put(metadata.getColumnName(columnIndex))
+                    .put(", walPath=").put(walPath)
+                    .put(", ex=").put(walSymbolRemapErrorSink)
+                    .put(']');
+        }
+        checkO3Errors();
+    }
+
     private void clearO3() {
         this.o3MasterRef = -1; // clears o3 flag, hasO3() will be returning false
         rowAction = ROW_ACTION_SWITCH_PARTITION;
@@ -2890,6 +3244,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             final long rowsAdded = txWriter.getRowCount() - committedRowCount;
 
             updateIndexes();
+            writeZoneMaps();
             columnVersionWriter.commit();
             txWriter.setColumnVersion(columnVersionWriter.getVersion());
             txWriter.commit(commitMode, denseSymbolMapWriters);
@@ -3208,18 +3563,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     }
 
     private void dispatchO3CallbackQueue(RingQueue<O3CallbackTask> queue, int queuedCount) {
-        // This is work stealing, can run tasks from other table writers
-        final Sequence subSeq = this.messageBus.getO3CallbackSubSeq();
-        while (!o3DoneLatch.done(queuedCount)) {
-            long cursor = subSeq.next();
-            if (cursor > -1) {
-                O3CallbackJob.runCallbackWithCol(queue.get(cursor), cursor, subSeq);
-            } else if (cursor == -1) {
-                o3DoneLatch.await(queuedCount);
-            } else {
-                Os.pause();
-            }
-        }
+        awaitO3CallbackQueue(queue, queuedCount);
         checkO3Errors();
     }
 
@@ -3239,6 +3583,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         Misc.free(attachIndexBuilder);
         Misc.free(columnVersionWriter);
         Misc.free(o3PartitionUpdateSink);
+        Misc.free(zoneMapWriter);
         Misc.free(slaveTxReader);
         Misc.free(commandQueue);
         updateOperatorImpl = Misc.free(updateOperatorImpl);
@@ -3292,6 +3637,13 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 prevTimestamp = 0L; // meaningless
             } else {
                 final int prevIndex = index - 1;
+                if (txWriter.isPartitionCompressed(prevIndex)) {
+                    // previous partition would become active, compressed files cannot be appended to
+                    throw CairoException.nonCritical().put("cannot drop active partition, previous partition is compressed [table=")
+                            .put(tableToken.getTableName())
+                            .put(", partitionTimestamp=").ts(timestamp)
+                            .put(']');
+                }
                 prevTimestamp = txWriter.getPartitionTimestampByIndex(prevIndex);
                 newTransientRowCount = txWriter.getPartitionSize(prevIndex);
                 try {
@@ -3605,6 +3957,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         setPathForPartition(other, partitionBy, partitionTimestamp, partitionNameTxn);
         int plen = path.length();
         linkFile(ff, dFile(path.trimTo(plen), columnName, columnNameTxn), dFile(other.trimTo(plen), newName, newColumnNameTxn));
+        linkFile(ff, zoneMapFile(path.trimTo(plen), columnName, columnNameTxn), zoneMapFile(other.trimTo(plen), newName, newColumnNameTxn));
         if (ColumnType.isVariableLength(columnType)) {
             linkFile(ff, iFile(path.trimTo(plen), columnName, columnNameTxn), iFile(other.trimTo(plen), newName, newColumnNameTxn));
         } else if (ColumnType.isSymbol(columnType) && metadata.isColumnIndexed(columnIndex)) {
@@ -3620,7 +3973,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         long ts = this.txWriter.getMaxTimestamp();
         if (ts > Numbers.LONG_NaN) {
             final int columnIndex = metadata.getColumnIndex(columnName);
-            try (final MemoryMR roMem = indexMem) {
+            try (final MemoryMR roMem = indexMem; final MemoryCMRZImpl compressedMem = new MemoryCMRZImpl()) {
                 // Index last partition separately
                 for (int i = 0, n = txWriter.getPartitionCount() - 1; i < n; i++) {
 
@@ -3646,9 +3999,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                             if (columnTop > -1L && partitionSize > columnTop) {
                                 TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn);
                                 final long columnSize = (partitionSize - columnTop) << ColumnType.pow2SizeOf(ColumnType.INT);
-                                roMem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_WRITER);
+                                final MemoryMR mem = txWriter.isPartitionCompressed(i) ? compressedMem : roMem;
+                                mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_WRITER);
                                 indexer.configureWriter(configuration, path.trimTo(plen), columnName, columnNameTxn, columnTop);
-                                indexer.index(roMem, columnTop, partitionSize);
+                                indexer.index(mem, columnTop, partitionSize);
                             }
                         }
                     }
@@ -3797,12 +4151,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     }
 
     private Row newRowO3(long timestamp) {
-        LOG.info().$("switched to o3 [table=").utf8(tableToken.getTableName()).I$();
-        txWriter.beginPartitionSizeUpdate();
-        o3OpenColumns();
-        o3InError = false;
-        o3MasterRef = masterRef;
-        rowAction = ROW_ACTION_O3;
+        switchToO3(masterRef);
         o3TimestampSetter(timestamp);
         return row;
     }
@@ -4061,6 +4410,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
 
     private void o3ConsumePartitionUpdateSink() {
         long blockIndex = -1;
+        // partition that was active before O3 commit may be followed by new partitions now
+        if (lastPartitionTimestamp != Long.MIN_VALUE) {
+            zoneMapPartitions.add(lastPartitionTimestamp);
+        }
 
         while ((blockIndex = o3PartitionUpdateSink.nextBlockIndex(blockIndex)) > -1L) {
             final long blockAddress = o3PartitionUpdateSink.getBlockAddress(blockIndex);
@@ -4775,6 +5128,64 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void o3RemapWalSymbols(
+            int columnIndex,
+            final int columnType,
+            long destOffset,
+            long cleanSymbolCount,
+            long rowLo,
+            long rowHi
+    ) {
+        if (o3ErrorCount.get() > 0) {
+            return;
+        }
+        try {
+            final int primaryColumnIndex = getPrimaryColumnIndex(columnIndex);
+            final MemoryCR o3SymbolColumn = o3Columns.getQuick(primaryColumnIndex);
+            final MemoryCARW symbolColumnDest = o3MemColumns.get(primaryColumnIndex);
+            final IntList symbolRewriteMap = walSymbolRewriteMaps.getQuick(columnIndex);
+            for (long rowId = rowLo; rowId < rowHi; rowId++) {
+                final long valueOffset = rowId << 2;
+                int symKey = o3SymbolColumn.getInt(valueOffset);
+                assert (symKey >= 0 || symKey == SymbolTable.VALUE_IS_NULL);
+                if (symKey >= cleanSymbolCount) {
+                    final int mapIndex = (int) (symKey - cleanSymbolCount);
+                    int newKey = mapIndex < symbolRewriteMap.size() ? symbolRewriteMap.getQuick(mapIndex) : -1;
+                    if (newKey < 0) {
+                        // This symbol was not mapped in WAL
+                        // WAL is invalid
+                        throw CairoException.critical(0).put("WAL symbol key not mapped [columnIndex=").put(columnIndex)
+                                .put(", columnKey=").put(symKey)
+                                .put(", walRowId=").put(rowId)
+                                .put(']');
+                    }
+                    symKey = newKey;
+                }
+                symbolColumnDest.putInt(destOffset + valueOffset, symKey);
+            }
+        } catch (Throwable e) {
+            if (walSymbolRemapErrorColumnIndex.compareAndSet(-1, columnIndex)) {
+                // exception messages are thread local, copy the message for the applying thread
+                walSymbolRemapErrorSink.clear();
+                if (e instanceof CairoException) {
+                    walSymbolRemapErrorSink.put(((CairoException) e).getFlyweightMessage());
+                } else {
+                    walSymbolRemapErrorSink.put(e.toString());
+                }
+            }
+            handleWorkStealingException(
+                    "cannot remap WAL symbols",
+                    columnIndex,
+                    columnType,
+                    destOffset,
+                    cleanSymbolCount,
+                    rowLo,
+                    rowHi,
+                    e
+            );
+        }
+    }
+
     private void o3OpenColumns() {
         for (int i = 0; i < columnCount; i++) {
             if (metadata.getColumnType(i) > 0) {
@@ -4834,7 +5245,9 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 .$(", partitionSize=").$(oldPartitionSize)
                 .I$();
 
+        zoneMapPartitions.add(partitionTimestamp);
         if (newPartitionTimestamp != partitionTimestamp) {
+            zoneMapPartitions.add(newPartitionTimestamp);
             LOG.info()
                     .$("o3 split partition [table=").utf8(tableToken.getTableName())
                     .$(", part1=").$(
@@ -5528,6 +5941,14 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                             .I$();
 
                     if (partitionIsReadOnly) {
+                        if (partitionIndexRaw > -1 && txWriter.isPartitionCompressed(partitionIndexRaw / LONGS_PER_TX_ATTACHED_PARTITION)) {
+                            // compressed partitions are made read-only by the compression job,
+                            // late rows must not be dropped silently, the transaction is rolled back
+                            throw CairoException.nonCritical().put("cannot insert into compressed partition [table=").put(tableToken.getTableName())
+                                    .put(", partitionTimestamp=").ts(partitionTimestamp)
+                                    .put(", rows=").put(srcOooBatchRowSize)
+                                    .put(']');
+                        }
                         // move over read-only partitions
                         LOG.critical()
                                 .$("o3 ignoring write on read-only partition [table=").utf8(tableToken.getTableName())
@@ -5819,6 +6240,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             dFile(other, metadata.getColumnName(metadata.getTimestampIndex()), COLUMN_NAME_TXN_NONE);
             if (ff.exists(other)) {
                 // read min timestamp value
+                if (txWriter.isPartitionCompressed(txWriter.getPartitionIndex(partitionTimestamp))) {
+                    try (MemoryCMRZImpl mem = new MemoryCMRZImpl(ff, other, -1, MemoryTag.MMAP_TABLE_WRITER)) {
+                        return mem.getLong(0);
+                    }
+                }
                 final int fd = TableUtils.openRO(ff, other, LOG);
                 try {
                     return TableUtils.readLongOrFail(ff, fd, 0, tempMem16b, other);
@@ -6047,6 +6473,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    // Only the rewrite of WAL symbol keys runs in parallel, symbol map writers are updated serially by this thread.
+    // Failures are rethrown with the WAL path and the name of the first failed column.
     private ReadOnlyObjList<? extends MemoryCR> remapWalSymbols(
             SymbolMapDiffCursor symbolMapDiffCursor,
             long rowLo,
@@ -6056,60 +6484,85 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     ) {
         o3ColumnOverrides.clear();
         if (symbolMapDiffCursor != null) {
-            SymbolMapDiff symbolMapDiff;
-            while ((symbolMapDiff = symbolMapDiffCursor.nextSymbolMapDiff()) != null) {
-                int columnIndex = symbolMapDiff.getColumnIndex();
-                int columnType = metadata.getColumnType(columnIndex);
-                if (columnType == -ColumnType.SYMBOL) {
-                    // Scroll the cursor, don't apply, symbol is deleted
-                    symbolMapDiff.drain();
-                    continue;
-                }
+            o3ErrorCount.set(0);
+            lastErrno = 0;
+            walSymbolRemapErrorColumnIndex.set(-1);
 
-                if (!ColumnType.isSymbol(columnType)) {
-                    throw CairoException.critical(0).put("WAL column and table writer column types don't match [columnIndex=").put(columnIndex)
-                            .put(", walPath=").put(walPath)
-                            .put(']');
-                }
-                boolean identical = createWalSymbolMapping(symbolMapDiff, columnIndex, symbolRewriteMap);
+            final Sequence pubSeq = this.messageBus.getO3CallbackPubSeq();
+            final RingQueue<O3CallbackTask> queue = this.messageBus.getO3CallbackQueue();
 
-                if (!identical) {
-                    int primaryColumnIndex = getPrimaryColumnIndex(columnIndex);
-                    MemoryCR o3SymbolColumn = o3Columns.getQuick(primaryColumnIndex);
-                    final MemoryCARW symbolColumnDest;
+            o3DoneLatch.reset();
+            int queuedCount = 0;
+            try {
+                SymbolMapDiff symbolMapDiff;
+                while ((symbolMapDiff = symbolMapDiffCursor.nextSymbolMapDiff()) != null) {
+                    int columnIndex = symbolMapDiff.getColumnIndex();
+                    int columnType = metadata.getColumnType(columnIndex);
+                    if (columnType == -ColumnType.SYMBOL) {
+                        // Scroll the cursor, don't apply, symbol is deleted
+                        symbolMapDiff.drain();
+                        continue;
+                    }
+
+                    if (!ColumnType.isSymbol(columnType)) {
+                        throw CairoException.critical(0).put("WAL column and table writer column types don't match [columnIndex=").put(columnIndex)
+                                .put(", walPath=").put(walPath)
+                                .put(']');
+                    }
 
-                    // Column is read-only mapped memory, so we need to take in RAM column and remap values into it
-                    if (o3ColumnOverrides.size() == 0) {
-                        o3ColumnOverrides.addAll(o3Columns);
+                    // Each column has its own rewrite map, so that columns can be remapped concurrently
+                    IntList symbolRewriteMap = walSymbolRewriteMaps.getQuiet(columnIndex);
+                    if (symbolRewriteMap == null) {
+                        symbolRewriteMap = new IntList();
+                        walSymbolRewriteMaps.extendAndSet(columnIndex, symbolRewriteMap);
                     }
+                    boolean identical = createWalSymbolMapping(symbolMapDiff, columnIndex, symbolRewriteMap);
 
-                    symbolColumnDest = o3MemColumns.get(primaryColumnIndex);
-                    long destOffset = (destRowLo - rowLo) << 2;
-                    symbolColumnDest.jumpTo(destOffset + (rowHi << 2));
-                    o3ColumnOverrides.setQuick(primaryColumnIndex, symbolColumnDest);
-                    final int cleanSymbolCount = symbolMapDiff.getCleanSymbolCount();
-                    for (long rowId = rowLo; rowId < rowHi; rowId++) {
-
-                        final long valueOffset = rowId << 2;
-                        int symKey = o3SymbolColumn.getInt(valueOffset);
-                        assert (symKey >= 0 || symKey == SymbolTable.VALUE_IS_NULL);
-                        if (symKey >= cleanSymbolCount) {
-                            int newKey = symbolRewriteMap.getQuick(symKey - cleanSymbolCount);
-                            if (newKey < 0) {
-                                // This symbol was not mapped in WAL
-                                // WAL is invalid
-                                throw CairoException.critical(0).put("WAL symbol key not mapped [columnIndex=").put(columnIndex)
-                                        .put(", columnKey=").put(symKey)
-                                        .put(", walPath=").put(walPath)
-                                        .put(", walRowId=").put(rowId)
-                                        .put(']');
+                    if (!identical) {
+                        int primaryColumnIndex = getPrimaryColumnIndex(columnIndex);
+                        final MemoryCARW symbolColumnDest;
+
+                        // Column is read-only mapped memory, so we need to take in RAM column and remap values into it
+                        if (o3ColumnOverrides.size() == 0) {
+                            o3ColumnOverrides.addAll(o3Columns);
+                        }
+
+                        symbolColumnDest = o3MemColumns.get(primaryColumnIndex);
+                        long destOffset = (destRowLo - rowLo) << 2;
+                        symbolColumnDest.jumpTo(destOffset + (rowHi << 2));
+                        o3ColumnOverrides.setQuick(primaryColumnIndex, symbolColumnDest);
+                        final int cleanSymbolCount = symbolMapDiff.getCleanSymbolCount();
+
+                        for (long chunkLo = rowLo; chunkLo < rowHi; chunkLo += WAL_SYMBOL_REMAP_CHUNK_ROWS) {
+                            final long chunkHi = Math.min(chunkLo + WAL_SYMBOL_REMAP_CHUNK_ROWS, rowHi);
+                            long cursor = pubSeq.next();
+                            if (cursor > -1) {
+                                try {
+                                    final O3CallbackTask task = queue.get(cursor);
+                                    task.of(
+                                            o3DoneLatch,
+                                            columnIndex,
+                                            columnType,
+                                            destOffset,
+                                            cleanSymbolCount,
+                                            chunkLo,
+                                            chunkHi,
+                                            o3RemapWalSymbolsRef
+                                    );
+                                } finally {
+                                    queuedCount++;
+                                    pubSeq.done(cursor);
+                                }
+                            } else {
+                                o3RemapWalSymbols(columnIndex, columnType, destOffset, cleanSymbolCount, chunkLo, chunkHi);
                             }
-                            symKey = newKey;
                         }
-                        symbolColumnDest.putInt(destOffset + valueOffset, symKey);
                     }
                 }
+            } finally {
+                awaitO3CallbackQueue(queue, queuedCount);
             }
+            checkWalSymbolRemapErrors(walPath);
         }
 
         if (o3ColumnOverrides.size() == 0) {
@@ -6865,6 +7318,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     }
 
                     txWriter.updatePartitionSizeByTimestamp(targetPartition, targetFrame.getSize());
+                    zoneMapPartitions.add(targetPartition);
                     if (lastPartitionSquashed) {
                         // last partition is squashed, adjust fixed/transient row sizes
                         long newTransientRowCount = targetFrame.getSize() - txWriter.getLagRowCount();
@@ -6878,6 +7332,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     other.trimTo(rootLen);
                 }
 
+                writeZoneMaps();
                 columnVersionWriter.commit();
                 txWriter.setColumnVersion(columnVersionWriter.getVersion());
                 txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
@@ -6929,11 +7384,21 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         activeNullSetters = o3NullSetters;
     }
 
+    private void switchToO3(long o3MasterRef) {
+        LOG.info().$("switched to o3 [table=").utf8(tableToken.getTableName()).I$();
+        txWriter.beginPartitionSizeUpdate();
+        o3OpenColumns();
+        o3InError = false;
+        this.o3MasterRef = o3MasterRef;
+        rowAction = ROW_ACTION_O3;
+    }
+
     private void switchPartition(long timestamp) {
         // Before partition can be switched we need to index records
         // added so far. Index writers will start point to different
         // files after switch.
         updateIndexes();
+        zoneMapPartitions.add(lastOpenPartitionTs);
         txWriter.switchPartitions(timestamp);
         openPartition(timestamp);
         setAppendPosition(0, false);
@@ -7243,6 +7708,77 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         todoMem.jumpTo(56);
     }
 
+    /**
+     * Writes zone maps, see {@link ZoneMapWriter}, of partitions that were closed or changed by O3
+     * in the current transaction. The active partition is still appended to and gets zone maps once
+     * the writer rolls over to the next partition. Zone maps are written before the transaction
+     * is committed, readers ignore them until they see the new partition row count.
+     */
+    private void writeZoneMaps() {
+        if (zoneMapPartitions.size() == 0) {
+            return;
+        }
+        if (zoneMapsEnabled && PartitionBy.isPartitioned(partitionBy)) {
+            zoneMapPartitions.sort();
+            final int lastPartitionIndex = txWriter.getPartitionCount() - 1;
+            long prevPartitionTimestamp = Long.MIN_VALUE;
+            for (int i = 0, n = zoneMapPartitions.size(); i < n; i++) {
+                final long partitionTimestamp = zoneMapPartitions.getQuick(i);
+                if (partitionTimestamp == prevPartitionTimestamp) {
+                    continue;
+                }
+                prevPartitionTimestamp = partitionTimestamp;
+                final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+                if (partitionIndex > -1 && partitionIndex < lastPartitionIndex && !txWriter.isPartitionReadOnly(partitionIndex)) {
+                    writeZoneMaps(
+                            partitionTimestamp,
+                            txWriter.getPartitionNameTxn(partitionIndex),
+                            txWriter.getPartitionSize(partitionIndex)
+                    );
+                }
+            }
+        }
+        zoneMapPartitions.clear();
+    }
+
+    private void writeZoneMaps(long partitionTimestamp, long partitionNameTxn, long partitionSize) {
+        try {
+            setPathForPartition(path.trimTo(rootLen), partitionBy, partitionTimestamp, partitionNameTxn);
+            final int plen = path.length();
+            setPathForPartition(other.trimTo(rootLen), partitionBy, partitionTimestamp, partitionNameTxn);
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = metadata.getColumnType(i);
+                // designated timestamp is pruned by interval scans
+                if (columnType < 0 || i == metadata.getTimestampIndex() || !ZoneMapWriter.isSupported(columnType)) {
+                    continue;
+                }
+                final long columnTop = columnVersionWriter.getColumnTop(partitionTimestamp, i);
+                if (columnTop < 0 || columnTop >= partitionSize) {
+                    // column does not exist in the partition
+                    continue;
+                }
+                final CharSequence name = metadata.getColumnName(i);
+                final long columnNameTxn = columnVersionWriter.getColumnNameTxn(partitionTimestamp, i);
+                try {
+                    zoneMapWriter.write(
+                            dFile(path.trimTo(plen), name, columnNameTxn),
+                            columnTop,
+                            partitionSize,
+                            columnType,
+                            zoneMapFile(other.trimTo(plen), name, columnNameTxn)
+                    );
+                } catch (CairoException e) {
+                    // zone maps are only an optimisation, partition without them is scanned in full
+                    LOG.error().$("could not write zone map [path=").$(other).$(", error=").$((Sinkable) e).I$();
+                    ff.remove(other.$());
+                }
+            }
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+    }
+
     static void indexAndCountDown(ColumnIndexer indexer, long lo, long hi, SOCountDownLatch latch) {
         try {
             indexer.refreshSourceAndIndex(lo, hi);
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.StaticSymbolTable;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+
+/**
+ * Splits data frames of partitions that have zone maps into frames of row blocks that
+ * might satisfy all predicates. Frames of other partitions are passed through as is.
+ */
+public class ZoneMapDataFrameCursor implements DataFrameCursor {
+    private final ZoneMapDataFrame frame = new ZoneMapDataFrame();
+    private final ObjList<ZoneMapPredicate> predicates;
+    private DataFrameCursor base;
+    private int blockRowsBits;
+    private boolean descending;
+    private long frameHi;
+    private long frameLo;
+    private int partitionIndex;
+    private long position;
+    private boolean splitting;
+
+    public ZoneMapDataFrameCursor(ObjList<ZoneMapPredicate> predicates) {
+        this.predicates = predicates;
+    }
+
+    @Override
+    public void close() {
+        if (base != null) {
+            base.close();
+            base = null;
+        }
+    }
+
+    @Override
+    public StaticSymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public TableReader getTableReader() {
+        return base.getTableReader();
+    }
+
+    @Override
+    public StaticSymbolTable newSymbolTable(int columnIndex) {
+        return base.newSymbolTable(columnIndex);
+    }
+
+    @Override
+    public @Nullable DataFrame next() {
+        while (true) {
+            if (splitting) {
+                final DataFrame blocks = descending ? nextBwd() : nextFwd();
+                if (blocks != null) {
+                    return blocks;
+                }
+                splitting = false;
+            }
+
+            final DataFrame dataFrame = base.next();
+            if (dataFrame == null) {
+                return null;
+            }
+            if (!openZoneMaps(dataFrame.getPartitionIndex())) {
+                return dataFrame;
+            }
+            if (mayMatch(ZoneMapReader.PARTITION)) {
+                partitionIndex = dataFrame.getPartitionIndex();
+                frameLo = dataFrame.getRowLo();
+                frameHi = dataFrame.getRowHi();
+                position = descending ? frameHi : frameLo;
+                splitting = true;
+            }
+        }
+    }
+
+    public ZoneMapDataFrameCursor of(DataFrameCursor base, boolean descending, SqlExecutionContext executionContext) throws SqlException {
+        this.base = base;
+        this.descending = descending;
+        splitting = false;
+        final TableReader reader = base.getTableReader();
+        for (int i = 0, n = predicates.size(); i < n; i++) {
+            predicates.getQuick(i).init(reader, executionContext);
+        }
+        return this;
+    }
+
+    @TestOnly
+    @Override
+    public boolean reload() {
+        splitting = false;
+        final boolean moreData = base.reload();
+        // symbol keys of constants may have appeared
+        final TableReader reader = base.getTableReader();
+        for (int i = 0, n = predicates.size(); i < n; i++) {
+            predicates.getQuick(i).of(reader);
+        }
+        return moreData;
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        base.toTop();
+        splitting = false;
+    }
+
+    private boolean mayMatch(int block) {
+        for (int i = 0, n = predicates.size(); i < n; i++) {
+            if (!predicates.getQuick(i).mayMatch(block)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private DataFrame nextBwd() {
+        while (position > frameLo) {
+            final int block = (int) ((position - 1) >>> blockRowsBits);
+            final long blockLo = Math.max(frameLo, (long) block << blockRowsBits);
+            if (mayMatch(block)) {
+                // merge adjacent matching blocks into single frame
+                long lo = blockLo;
+                while (lo > frameLo && mayMatch((int) ((lo - 1) >>> blockRowsBits))) {
+                    lo = Math.max(frameLo, lo - (1L << blockRowsBits));
+                }
+                frame.rowLo = lo;
+                frame.rowHi = position;
+                position = lo;
+                return frame;
+            }
+            position = blockLo;
+        }
+        return null;
+    }
+
+    private DataFrame nextFwd() {
+        while (position < frameHi) {
+            final int block = (int) (position >>> blockRowsBits);
+            final long blockHi = Math.min(frameHi, (block + 1L) << blockRowsBits);
+            if (mayMatch(block)) {
+                // merge adjacent matching blocks into single frame
+                long hi = blockHi;
+                while (hi < frameHi && mayMatch((int) (hi >>> blockRowsBits))) {
+                    hi = Math.min(frameHi, hi + (1L << blockRowsBits));
+                }
+                frame.rowLo = position;
+                frame.rowHi = hi;
+                position = hi;
+                return frame;
+            }
+            position = blockHi;
+        }
+        return null;
+    }
+
+    private boolean openZoneMaps(int partitionIndex) {
+        final TableReader reader = base.getTableReader();
+        blockRowsBits = 0;
+        for (int i = 0, n = predicates.size(); i < n; i++) {
+            final ZoneMapPredicate predicate = predicates.getQuick(i);
+            if (predicate.openZoneMap(reader, partitionIndex)) {
+                final int bits = predicate.getZoneMap().getBlockRowsBits();
+                if (blockRowsBits == 0) {
+                    blockRowsBits = bits;
+                } else if (bits != blockRowsBits) {
+                    // written with another block size, the predicate cannot skip blocks
+                    predicate.getZoneMap().clear();
+                }
+            }
+        }
+        return blockRowsBits > 0;
+    }
+
+    private class ZoneMapDataFrame implements DataFrame {
+        private long rowHi;
+        private long rowLo;
+
+        @Override
+        public BitmapIndexReader getBitmapIndexReader(int columnIndex, int direction) {
+            return base.getTableReader().getBitmapIndexReader(partitionIndex, columnIndex, direction);
+        }
+
+        @Override
+        public int getPartitionIndex() {
+            return partitionIndex;
+        }
+
+        @Override
+        public long getRowHi() {
+            return rowHi;
+        }
+
+        @Override
+        public long getRowLo() {
+            return rowLo;
+        }
+    }
+}
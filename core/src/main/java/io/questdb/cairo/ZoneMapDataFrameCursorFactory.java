@@ -0,0 +1,102 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Skips row blocks of partitions that cannot satisfy filter conjuncts according to
+ * zone maps of the columns.
+ * <p>
+ * Zone maps are written for partitions that are no longer active, the active partition
+ * and partitions without zone maps are scanned in full. Cursors of tables with a single
+ * partition are therefore returned undecorated.
+ */
+public class ZoneMapDataFrameCursorFactory implements DataFrameCursorFactory {
+    private final DataFrameCursorFactory base;
+    private final ZoneMapDataFrameCursor cursor;
+    private final ObjList<ZoneMapPredicate> predicates;
+
+    public ZoneMapDataFrameCursorFactory(DataFrameCursorFactory base, ObjList<ZoneMapPredicate> predicates) {
+        this.base = base;
+        this.predicates = predicates;
+        this.cursor = new ZoneMapDataFrameCursor(predicates);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(base);
+        Misc.freeObjList(predicates);
+    }
+
+    @Override
+    public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) throws SqlException {
+        final DataFrameCursor baseCursor = base.getCursor(executionContext, order);
+        if (baseCursor.getTableReader().getPartitionCount() < 2) {
+            return baseCursor;
+        }
+        try {
+            final boolean descending = order == ORDER_DESC || (order == ORDER_ANY && base.getOrder() == ORDER_DESC);
+            return cursor.of(baseCursor, descending, executionContext);
+        } catch (Throwable th) {
+            baseCursor.close();
+            throw th;
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return base.getMetadata();
+    }
+
+    @Override
+    public int getOrder() {
+        return base.getOrder();
+    }
+
+    @Override
+    public boolean supportTableRowId(TableToken tableToken) {
+        return base.supportTableRowId(tableToken);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        base.toPlan(sink);
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        base.toSink(sink);
+    }
+}
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.model.IntervalUtils;
+import io.questdb.std.Chars;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.NumericException;
+
+import java.io.Closeable;
+
+/**
+ * Comparison of a column with a constant, which is a conjunct of the query filter. Checks
+ * zone map entries for values that might satisfy the comparison. It uses the semantics of
+ * comparison functions: nulls never compare to values, while "=" with null constant
+ * matches nulls.
+ */
+public class ZoneMapPredicate implements Closeable {
+    public static final int OP_EQ = 0;
+    public static final int OP_GE = 1;
+    public static final int OP_GT = 2;
+    public static final int OP_LE = 3;
+    public static final int OP_LT = 4;
+    // tolerance of double equality, see EqDoubleFunctionFactory
+    private static final double EQ_EPSILON = 0.0000000001;
+    private static final String[] OP_NAMES = {"=", ">=", ">", "<=", "<"};
+    private static final int STATE_ANY = 0;
+    private static final int STATE_NONE = 1;
+    private static final int STATE_NULL = 2;
+    private static final int STATE_VALUE = 3;
+    private final int columnIndex;
+    private final int columnType;
+    private final int op;
+    private final Function value;
+    private final ZoneMapReader zoneMap = new ZoneMapReader();
+    private boolean doubleDomain;
+    private double doubleValue;
+    private long longValue;
+    private int state;
+
+    public ZoneMapPredicate(int columnIndex, int columnType, int op, Function value) {
+        this.columnIndex = columnIndex;
+        this.columnType = columnType;
+        this.op = op;
+        this.value = value;
+    }
+
+    /**
+     * @param valueType type of the constant
+     * @return true when comparing column with the constant uses values in zone maps
+     */
+    public static boolean isSupported(int columnType, int valueType, int op) {
+        final short valueTag = ColumnType.tagOf(valueType);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.SYMBOL:
+                return op == OP_EQ && (valueTag == ColumnType.STRING || valueTag == ColumnType.SYMBOL || valueTag == ColumnType.CHAR || valueTag == ColumnType.NULL);
+            case ColumnType.TIMESTAMP:
+                return valueTag == ColumnType.TIMESTAMP || valueTag == ColumnType.STRING || isInteger(valueTag) || valueTag == ColumnType.NULL;
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return isInteger(valueTag) || valueTag == ColumnType.FLOAT || valueTag == ColumnType.DOUBLE || valueTag == ColumnType.NULL;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param token comparison operator
+     * @return operator code or -1 when the operator is not supported
+     */
+    public static int opOf(CharSequence token) {
+        for (int i = 0, n = OP_NAMES.length; i < n; i++) {
+            if (Chars.equals(OP_NAMES[i], token)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return operator to use when column and constant are swapped
+     */
+    public static int swap(int op) {
+        switch (op) {
+            case OP_GE:
+                return OP_LE;
+            case OP_GT:
+                return OP_LT;
+            case OP_LE:
+                return OP_GE;
+            case OP_LT:
+                return OP_GT;
+            default:
+                return op;
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(value);
+        Misc.free(zoneMap);
+    }
+
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    public ZoneMapReader getZoneMap() {
+        return zoneMap;
+    }
+
+    public void init(TableReader reader, SqlExecutionContext executionContext) throws SqlException {
+        value.init(reader, executionContext);
+        of(reader);
+    }
+
+    /**
+     * @param block block index or {@link ZoneMapReader#PARTITION}
+     * @return false when no row of the block satisfies the comparison
+     */
+    public boolean mayMatch(int block) {
+        if (state == STATE_NONE) {
+            return false;
+        }
+        if (state == STATE_ANY || !zoneMap.isOpen()) {
+            return true;
+        }
+        if (state == STATE_NULL) {
+            return zoneMap.getNullCount(block) > 0;
+        }
+        final long min = zoneMap.getMin(block);
+        final long max = zoneMap.getMax(block);
+        if (isFloating(columnType)) {
+            return mayMatch(Double.longBitsToDouble(min), Double.longBitsToDouble(max));
+        }
+        if (min > max) {
+            // nulls only
+            return false;
+        }
+        if (doubleDomain) {
+            return mayMatch((double) min, (double) max);
+        }
+        switch (op) {
+            case OP_EQ:
+                return min <= longValue && longValue <= max;
+            case OP_GE:
+                return max >= longValue;
+            case OP_GT:
+                return max > longValue;
+            case OP_LE:
+                return min <= longValue;
+            default:
+                return min < longValue;
+        }
+    }
+
+    /**
+     * Resolves the constant, symbol constants are resolved to keys of the reader's symbol table.
+     */
+    public void of(TableReader reader) {
+        final short valueTag = ColumnType.tagOf(value.getType());
+        doubleDomain = false;
+        state = STATE_VALUE;
+        boolean isNull;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.SYMBOL:
+                final CharSequence symbol = value.getStr(null);
+                isNull = symbol == null;
+                if (isNull && valueTag == ColumnType.CHAR) {
+                    state = STATE_ANY;
+                    return;
+                }
+                if (!isNull) {
+                    final int key = reader.getSymbolMapReader(columnIndex).keyOf(symbol);
+                    if (key == SymbolTable.VALUE_NOT_FOUND) {
+                        state = STATE_NONE;
+                        return;
+                    }
+                    longValue = key;
+                }
+                break;
+            case ColumnType.TIMESTAMP:
+                if (valueTag == ColumnType.STRING) {
+                    // same conversion as implicit cast of string constants to timestamp
+                    final CharSequence str = value.getStr(null);
+                    isNull = str == null;
+                    if (!isNull) {
+                        try {
+                            longValue = IntervalUtils.parseFloorPartialTimestamp(str);
+                        } catch (NumericException e) {
+                            state = STATE_ANY;
+                            return;
+                        }
+                    }
+                } else {
+                    longValue = value.getLong(null);
+                    isNull = longValue == Numbers.LONG_NaN;
+                }
+                break;
+            default:
+                doubleDomain = isFloating(columnType) || valueTag == ColumnType.FLOAT || valueTag == ColumnType.DOUBLE;
+                if (doubleDomain) {
+                    doubleValue = value.getDouble(null);
+                    isNull = Double.isNaN(doubleValue);
+                } else {
+                    longValue = value.getLong(null);
+                    isNull = longValue == Numbers.LONG_NaN;
+                }
+                break;
+        }
+        if (isNull) {
+            state = op == OP_EQ ? STATE_NULL : STATE_ANY;
+        }
+    }
+
+    /**
+     * Loads zone map of the column in the partition.
+     *
+     * @return false when the partition has no zone map for the column
+     */
+    public boolean openZoneMap(TableReader reader, int partitionIndex) {
+        return reader.openZoneMap(partitionIndex, columnIndex, zoneMap);
+    }
+
+    private static boolean isFloating(int columnType) {
+        final short tag = ColumnType.tagOf(columnType);
+        return tag == ColumnType.FLOAT || tag == ColumnType.DOUBLE;
+    }
+
+    private static boolean isInteger(short tag) {
+        return tag == ColumnType.BYTE || tag == ColumnType.SHORT || tag == ColumnType.INT || tag == ColumnType.LONG;
+    }
+
+    private boolean mayMatch(double min, double max) {
+        if (min > max) {
+            return false;
+        }
+        switch (op) {
+            case OP_EQ:
+                return min - EQ_EPSILON <= doubleValue && doubleValue <= max + EQ_EPSILON;
+            case OP_GE:
+                return max >= doubleValue;
+            case OP_GT:
+                return max > doubleValue;
+            case OP_LE:
+                return min <= doubleValue;
+            default:
+                return min < doubleValue;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Reads zone map file written by {@link ZoneMapWriter} into native memory. Zone maps are
+ * only an optimisation, so files that are missing or do not match the partition are
+ * ignored rather than reported.
+ */
+public class ZoneMapReader implements Closeable {
+    /**
+     * Block index of the entry that covers the whole partition.
+     */
+    public static final int PARTITION = -1;
+    private static final Log LOG = LogFactory.getLog(ZoneMapReader.class);
+    private long address;
+    private int blockCount;
+    private int blockRowsBits;
+    private long capacity;
+
+    public void clear() {
+        blockCount = 0;
+        blockRowsBits = 0;
+    }
+
+    @Override
+    public void close() {
+        address = Unsafe.free(address, capacity, MemoryTag.NATIVE_TABLE_READER);
+        capacity = 0;
+        clear();
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    public int getBlockRowsBits() {
+        return blockRowsBits;
+    }
+
+    public long getMax(int block) {
+        return Unsafe.getUnsafe().getLong(getEntryAddress(block) + ZoneMapWriter.ENTRY_OFFSET_MAX);
+    }
+
+    public long getMin(int block) {
+        return Unsafe.getUnsafe().getLong(getEntryAddress(block) + ZoneMapWriter.ENTRY_OFFSET_MIN);
+    }
+
+    public long getNullCount(int block) {
+        return Unsafe.getUnsafe().getLong(getEntryAddress(block) + ZoneMapWriter.ENTRY_OFFSET_NULL_COUNT);
+    }
+
+    public boolean isOpen() {
+        return blockRowsBits > 0;
+    }
+
+    /**
+     * Loads zone map file.
+     *
+     * @param ff         files facade
+     * @param name       zone map file
+     * @param rowCount   number of rows in the partition
+     * @param columnType type of the column
+     * @return false when the file does not exist or does not describe the column
+     */
+    public boolean of(FilesFacade ff, LPSZ name, long rowCount, int columnType) {
+        clear();
+        final int fd = ff.openRO(name);
+        if (fd < 0) {
+            return false;
+        }
+        try {
+            final long fileSize = ff.length(fd);
+            if (fileSize < ZoneMapWriter.HEADER_SIZE) {
+                LOG.info().$("zone map is too small [file=").$(name).$(", size=").$(fileSize).I$();
+                return false;
+            }
+            if (capacity < fileSize) {
+                address = Unsafe.realloc(address, capacity, fileSize, MemoryTag.NATIVE_TABLE_READER);
+                capacity = fileSize;
+            }
+            if (ff.read(fd, address, fileSize, 0) != fileSize) {
+                LOG.info().$("could not read zone map [file=").$(name).$(", errno=").$(ff.errno()).I$();
+                return false;
+            }
+            final long fileRowCount = Unsafe.getUnsafe().getLong(address + ZoneMapWriter.HEADER_OFFSET_ROW_COUNT);
+            final int fileBlockRowsBits = Unsafe.getUnsafe().getInt(address + ZoneMapWriter.HEADER_OFFSET_BLOCK_ROWS_BITS);
+            final int fileColumnType = Unsafe.getUnsafe().getInt(address + ZoneMapWriter.HEADER_OFFSET_COLUMN_TYPE);
+            final int fileBlockCount = Unsafe.getUnsafe().getInt(address + ZoneMapWriter.HEADER_OFFSET_BLOCK_COUNT);
+            if (fileRowCount != rowCount
+                    || fileColumnType != ColumnType.tagOf(columnType)
+                    || fileBlockRowsBits < 1 || fileBlockRowsBits > 30
+                    || fileBlockCount != (int) ((rowCount + (1L << fileBlockRowsBits) - 1) >>> fileBlockRowsBits)
+                    || ZoneMapWriter.getFileSize(fileBlockCount) != fileSize
+            ) {
+                LOG.info().$("zone map does not match column [file=").$(name).$(", rowCount=").$(rowCount).I$();
+                return false;
+            }
+            blockCount = fileBlockCount;
+            blockRowsBits = fileBlockRowsBits;
+            return true;
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    private long getEntryAddress(int block) {
+        assert block >= PARTITION && block < blockCount;
+        return address + ZoneMapWriter.HEADER_SIZE + (block + 1L) * ZoneMapWriter.ENTRY_SIZE;
+    }
+}
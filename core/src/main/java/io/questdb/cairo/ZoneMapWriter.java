@@ -0,0 +1,244 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Writes zone maps, min/max/null count statistics of a column in a partition, for the whole
+ * partition and for each block of rows. Zone maps let queries skip blocks that cannot match
+ * filter predicates, see {@link ZoneMapDataFrameCursorFactory}. The file layout is:
+ * <pre>
+ * | row count | block rows bits | column type | block count | reserved | partition entry | block entries |
+ * |  8 bytes  |     4 bytes     |   4 bytes   |   4 bytes   | 4 bytes  |    24 bytes     | 24 bytes each |
+ * </pre>
+ * Each entry holds min, max and null count, 8 bytes each. Integers and symbol keys are stored
+ * as longs, floating point values as double bits. Min and max only cover non-null values,
+ * when there are none min is greater than max. Rows above the column top count as nulls.
+ * <p>
+ * Table writer writes zone maps of a partition when it rolls over to the next partition,
+ * when O3 commit changes the partition and when the partition is compressed. The active
+ * partition has no zone maps. Zone map holds the partition row count it was computed for,
+ * readers ignore files that do not match their view of the partition.
+ */
+public class ZoneMapWriter implements Closeable {
+    public static final int ENTRY_OFFSET_MAX = 8;
+    public static final int ENTRY_OFFSET_MIN = 0;
+    public static final int ENTRY_OFFSET_NULL_COUNT = 16;
+    public static final int ENTRY_SIZE = 24;
+    public static final int HEADER_OFFSET_BLOCK_COUNT = 16;
+    public static final int HEADER_OFFSET_BLOCK_ROWS_BITS = 8;
+    public static final int HEADER_OFFSET_COLUMN_TYPE = 12;
+    public static final int HEADER_OFFSET_ROW_COUNT = 0;
+    public static final int HEADER_SIZE = 24;
+    public static final int MIN_BLOCK_ROWS = 1024;
+    private static final Log LOG = LogFactory.getLog(ZoneMapWriter.class);
+    private final int blockRows;
+    private final int blockRowsBits;
+    private final FilesFacade ff;
+    private long address;
+    private long capacity;
+
+    public ZoneMapWriter(FilesFacade ff, int blockRows) {
+        this.ff = ff;
+        this.blockRows = Numbers.ceilPow2(Math.max(blockRows, MIN_BLOCK_ROWS));
+        this.blockRowsBits = Numbers.msb(this.blockRows);
+    }
+
+    public static long getFileSize(int blockCount) {
+        return HEADER_SIZE + (blockCount + 1L) * ENTRY_SIZE;
+    }
+
+    public static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.SYMBOL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        address = Unsafe.free(address, capacity, MemoryTag.NATIVE_TABLE_WRITER);
+        capacity = 0;
+    }
+
+    /**
+     * Writes zone map of a fixed-size column.
+     *
+     * @param src        column data file
+     * @param columnTop  column top in the partition
+     * @param rowCount   number of rows in the partition
+     * @param columnType column type, one of {@link #isSupported(int)}
+     * @param dst        zone map file to create
+     * @return size of the zone map file
+     */
+    public long write(LPSZ src, long columnTop, long rowCount, int columnType, LPSZ dst) {
+        assert isSupported(columnType) && columnTop <= rowCount;
+        final int blockCount = (int) ((rowCount + blockRows - 1) >>> blockRowsBits);
+        final long fileSize = getFileSize(blockCount);
+        if (capacity < fileSize) {
+            address = Unsafe.realloc(address, capacity, fileSize, MemoryTag.NATIVE_TABLE_WRITER);
+            capacity = fileSize;
+        }
+
+        final int valueSizeBits = ColumnType.pow2SizeOf(columnType);
+        final long dataSize = (rowCount - columnTop) << valueSizeBits;
+        long srcAddr = 0;
+        int srcFd = -1;
+        int dstFd = -1;
+        try {
+            srcFd = TableUtils.openRO(ff, src, LOG);
+            if (dataSize > 0) {
+                srcAddr = TableUtils.mapRO(ff, srcFd, dataSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+
+            Unsafe.getUnsafe().putLong(address + HEADER_OFFSET_ROW_COUNT, rowCount);
+            Unsafe.getUnsafe().putInt(address + HEADER_OFFSET_BLOCK_ROWS_BITS, blockRowsBits);
+            Unsafe.getUnsafe().putInt(address + HEADER_OFFSET_COLUMN_TYPE, ColumnType.tagOf(columnType));
+            Unsafe.getUnsafe().putInt(address + HEADER_OFFSET_BLOCK_COUNT, blockCount);
+            Unsafe.getUnsafe().putInt(address + HEADER_OFFSET_BLOCK_COUNT + Integer.BYTES, 0);
+
+            final long partitionEntry = address + HEADER_SIZE;
+            final boolean floating = isFloating(columnType);
+            setEmpty(partitionEntry, floating);
+            for (int i = 0; i < blockCount; i++) {
+                final long blockEntry = partitionEntry + (i + 1L) * ENTRY_SIZE;
+                final long lo = (long) i << blockRowsBits;
+                final long hi = Math.min(lo + blockRows, rowCount);
+                final long dataLo = Math.max(lo, columnTop);
+                setEmpty(blockEntry, floating);
+                if (dataLo < hi) {
+                    computeEntry(blockEntry, srcAddr + ((dataLo - columnTop) << valueSizeBits), hi - dataLo, columnType);
+                }
+                Unsafe.getUnsafe().putLong(blockEntry + ENTRY_OFFSET_NULL_COUNT, getNullCount(blockEntry) + Math.min(dataLo, hi) - lo);
+                mergeEntry(partitionEntry, blockEntry, floating);
+            }
+
+            // the file is replaced, readers that already opened previous version keep reading it intact
+            ff.remove(dst);
+            dstFd = TableUtils.openRW(ff, dst, LOG, CairoConfiguration.O_NONE);
+            if (ff.write(dstFd, address, fileSize, 0) != fileSize) {
+                throw CairoException.critical(ff.errno())
+                        .put("could not write zone map [path=").put(dst)
+                        .put(", fd=").put(dstFd)
+                        .put(", len=").put(fileSize)
+                        .put(']');
+            }
+            return fileSize;
+        } finally {
+            if (srcAddr != 0) {
+                ff.munmap(srcAddr, dataSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+            ff.close(srcFd);
+            ff.close(dstFd);
+        }
+    }
+
+    private static void computeEntry(long entry, long address, long count, int columnType) {
+        long nonNullCount;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+                nonNullCount = Vect.countInt(address, count);
+                if (nonNullCount > 0) {
+                    Unsafe.getUnsafe().putLong(entry + ENTRY_OFFSET_MIN, Vect.minInt(address, count));
+                    Unsafe.getUnsafe().putLong(entry + ENTRY_OFFSET_MAX, Vect.maxInt(address, count));
+                }
+                break;
+            case ColumnType.LONG:
+            case ColumnType.TIMESTAMP:
+                nonNullCount = Vect.countLong(address, count);
+                if (nonNullCount > 0) {
+                    Unsafe.getUnsafe().putLong(entry + ENTRY_OFFSET_MIN, Vect.minLong(address, count));
+                    Unsafe.getUnsafe().putLong(entry + ENTRY_OFFSET_MAX, Vect.maxLong(address, count));
+                }
+                break;
+            default:
+                // vectorised min/max treat infinities as nulls, we need them as values
+                final boolean isFloat = ColumnType.tagOf(columnType) == ColumnType.FLOAT;
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                nonNullCount = 0;
+                for (long i = 0; i < count; i++) {
+                    final double value = isFloat
+                            ? Unsafe.getUnsafe().getFloat(address + (i << 2))
+                            : Unsafe.getUnsafe().getDouble(address + (i << 3));
+                    if (value == value) {
+                        min = Math.min(min, value);
+                        max = Math.max(max, value);
+                        nonNullCount++;
+                    }
+                }
+                if (nonNullCount > 0) {
+                    Unsafe.getUnsafe().putLong(entry + ENTRY_OFFSET_MIN, Double.doubleToLongBits(min));
+                    Unsafe.getUnsafe().putLong(entry + ENTRY_OFFSET_MAX, Double.doubleToLongBits(max));
+                }
+                break;
+        }
+        Unsafe.getUnsafe().putLong(entry + ENTRY_OFFSET_NULL_COUNT, count - nonNullCount);
+    }
+
+    private static long getNullCount(long entry) {
+        return Unsafe.getUnsafe().getLong(entry + ENTRY_OFFSET_NULL_COUNT);
+    }
+
+    private static boolean isFloating(int columnType) {
+        final short tag = ColumnType.tagOf(columnType);
+        return tag == ColumnType.FLOAT || tag == ColumnType.DOUBLE;
+    }
+
+    private static void mergeEntry(long dst, long src, boolean floating) {
+        final long srcMin = Unsafe.getUnsafe().getLong(src + ENTRY_OFFSET_MIN);
+        final long srcMax = Unsafe.getUnsafe().getLong(src + ENTRY_OFFSET_MAX);
+        final long dstMin = Unsafe.getUnsafe().getLong(dst + ENTRY_OFFSET_MIN);
+        final long dstMax = Unsafe.getUnsafe().getLong(dst + ENTRY_OFFSET_MAX);
+        if (floating) {
+            Unsafe.getUnsafe().putLong(dst + ENTRY_OFFSET_MIN, Double.doubleToLongBits(Math.min(Double.longBitsToDouble(dstMin), Double.longBitsToDouble(srcMin))));
+            Unsafe.getUnsafe().putLong(dst + ENTRY_OFFSET_MAX, Double.doubleToLongBits(Math.max(Double.longBitsToDouble(dstMax), Double.longBitsToDouble(srcMax))));
+        } else {
+            Unsafe.getUnsafe().putLong(dst + ENTRY_OFFSET_MIN, Math.min(dstMin, srcMin));
+            Unsafe.getUnsafe().putLong(dst + ENTRY_OFFSET_MAX, Math.max(dstMax, srcMax));
+        }
+        Unsafe.getUnsafe().putLong(dst + ENTRY_OFFSET_NULL_COUNT, getNullCount(dst) + getNullCount(src));
+    }
+
+    private static void setEmpty(long entry, boolean floating) {
+        Unsafe.getUnsafe().putLong(entry + ENTRY_OFFSET_MIN, floating ? Double.doubleToLongBits(Double.POSITIVE_INFINITY) : Long.MAX_VALUE);
+        Unsafe.getUnsafe().putLong(entry + ENTRY_OFFSET_MAX, floating ? Double.doubleToLongBits(Double.NEGATIVE_INFINITY) : Long.MIN_VALUE);
+        Unsafe.getUnsafe().putLong(entry + ENTRY_OFFSET_NULL_COUNT, 0);
+    }
+}
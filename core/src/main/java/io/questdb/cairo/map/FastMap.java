@@ -238,6 +238,40 @@ public class FastMap implements Map, Reopenable {
         }
     }
 
+    /**
+     * Looks up the key that is being written with the given map's key writer, see
+     * {@link #withKey()} and {@link #keyHashCode()}. Both maps must have the same key
+     * and value structure.
+     * <p>
+     * This map is only read, so multiple threads may look up keys in the same map
+     * concurrently as long as each of them uses its own key map. The returned value
+     * is the key map's flyweight pointing to this map's memory.
+     *
+     * @param keyMap   map holding the key to look up
+     * @param hashCode hash code of the key, as returned by {@link #keyHashCode()}
+     * @return value of the key or null if the key is missing
+     */
+    public MapValue findValue(FastMap keyMap, int hashCode) {
+        assert keySize == keyMap.keySize;
+        assert valueSize == keyMap.valueSize;
+
+        if (size == 0) {
+            return null;
+        }
+
+        final long keyAddress = keyMap.key.startAddress;
+        int index = hashCode & mask;
+        long packedOffset;
+        long offset;
+        while ((offset = unpackOffset(packedOffset = getPackedOffset(offsets, index))) > -1) {
+            if (hashCode == unpackHashCode(packedOffset) && keyEq(kStart + offset, keyAddress)) {
+                return keyMap.value.of(kStart + offset, kLimit, false);
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
     public long getAppendOffset() {
         return kPos;
     }
@@ -264,6 +298,110 @@ public class FastMap implements Map, Reopenable {
         return valueColumnCount;
     }
 
+    /**
+     * Completes the key that is being written with the key writer returned by
+     * {@link #withKey()} and calculates its hash code. The key is not added to
+     * the map, so the map may be used as a scratch area to look up keys in other
+     * maps with {@link #findValue(FastMap, int)}.
+     *
+     * @return hash code of the key
+     */
+    public int keyHashCode() {
+        key.commit();
+        return key.hash();
+    }
+
+    /**
+     * Merges the given map into this map. Keys missing in this map are copied as is
+     * along with their values, while values of the existing keys are merged with the
+     * provided merge function. The source map is left intact.
+     * <p>
+     * Both maps must have the same key and value structure. Since both maps use
+     * the same hash function, hash codes are taken from the source map and are not
+     * recalculated.
+     *
+     * @param srcMap    map to merge into this map
+     * @param mergeFunc function used to merge values of the existing keys
+     */
+    public void merge(FastMap srcMap, MapValueMergeFunction mergeFunc) {
+        merge(srcMap, mergeFunc, 0, 0);
+    }
+
+    /**
+     * Merges the subset of the given map's keys that belongs to the given shard.
+     * Keys are assigned to shards by the top {@code shardCountBits} bits of their
+     * hash code, so merging all shards of a set of maps into separate destination
+     * maps produces maps with disjoint key sets.
+     * <p>
+     * The source map is only read, so multiple threads may merge different shards
+     * of the same source map concurrently as long as each of them writes to its
+     * own destination map.
+     *
+     * @param srcMap         map to merge into this map
+     * @param mergeFunc      function used to merge values of the existing keys
+     * @param shardIndex     index of the shard to merge, must be less than 2^shardCountBits
+     * @param shardCountBits number of hash code bits used to select shards, 0 stands for all keys
+     */
+    public void merge(FastMap srcMap, MapValueMergeFunction mergeFunc, int shardIndex, int shardCountBits) {
+        assert keySize == srcMap.keySize;
+        assert valueSize == srcMap.valueSize;
+        assert shardCountBits >= 0 && shardCountBits < 32;
+        assert shardIndex >= 0 && shardIndex < (1 << shardCountBits);
+
+        if (srcMap.size == 0) {
+            return;
+        }
+
+        final int shardShift = 32 - shardCountBits;
+        OUTER:
+        for (int i = 0, k = (int) srcMap.offsets.size(); i < k; i++) {
+            final long srcPackedOffset = getPackedOffset(srcMap.offsets, i);
+            final long srcOffset = unpackOffset(srcPackedOffset);
+            if (srcOffset < 0) {
+                continue;
+            }
+            final int hashCode = unpackHashCode(srcPackedOffset);
+            if (shardCountBits > 0 && (hashCode >>> shardShift) != shardIndex) {
+                continue;
+            }
+            final long srcStartAddress = srcMap.kStart + srcOffset;
+
+            int index = hashCode & mask;
+            long packedOffset;
+            long offset;
+            while ((offset = unpackOffset(packedOffset = getPackedOffset(offsets, index))) > -1) {
+                if (hashCode == unpackHashCode(packedOffset) && keyEq(kStart + offset, srcStartAddress)) {
+                    // Use own flyweight for the source value, so that the source map
+                    // is not mutated and can be safely shared between threads.
+                    mergeFunc.merge(
+                            valueOf(kStart + offset, false, value),
+                            value2.of(srcStartAddress, srcMap.kLimit, false)
+                    );
+                    continue OUTER;
+                }
+                index = (index + 1) & mask;
+            }
+
+            // The key is missing, so copy the whole key-value pair.
+            final int entrySize = keySize != -1 ? keyOffset + keySize : Unsafe.getUnsafe().getInt(srcStartAddress);
+            if (kPos + entrySize > kLimit) {
+                resize(entrySize, kPos);
+            }
+            Vect.memcpy(kPos, srcStartAddress, entrySize);
+            setPackedOffset(offsets, index, kPos - kStart, hashCode);
+            kPos += entrySize;
+            // Align current pointer to 8 bytes, so that we can store compressed offsets.
+            if ((kPos & 0x7) != 0) {
+                kPos |= 0x7;
+                kPos++;
+            }
+            size++;
+            if (--free == 0) {
+                rehash();
+            }
+        }
+    }
+
     public void reopen() {
         if (kStart == 0) {
             // handles both mem and offsets
@@ -336,6 +474,18 @@ public class FastMap implements Map, Reopenable {
         return valueOf(keyWriter.startAddress, true, value);
     }
 
+    private boolean keyEq(long address1, long address2) {
+        if (keySize != -1) {
+            return Vect.memeq(address1 + keyOffset, address2 + keyOffset, keySize);
+        }
+        // Var-size keys: compare the key-value pair lengths first.
+        final int len = Unsafe.getUnsafe().getInt(address1);
+        if (len != Unsafe.getUnsafe().getInt(address2)) {
+            return false;
+        }
+        return Vect.memeq(address1 + keyOffset, address2 + keyOffset, len - keyOffset);
+    }
+
     private FastMapValue probe0(BaseKey keyWriter, int index, int hashCode, FastMapValue value) {
         long packedOffset;
         long offset;
@@ -384,11 +534,11 @@ public class FastMap implements Map, Reopenable {
         keyCapacity = capacity;
     }
 
-    private void resize(int size) {
+    private void resize(int size, long appendAddress) {
         if (nResizes < maxResizes) {
             nResizes++;
             long kCapacity = (kLimit - kStart) << 1;
-            long target = key.appendAddress + size - kStart;
+            long target = appendAddress + size - kStart;
             if (kCapacity < target) {
                 kCapacity = Numbers.ceilPow2(target);
             }
@@ -400,12 +550,15 @@ public class FastMap implements Map, Reopenable {
             this.capacity = kCapacity;
             long d = kAddress - this.kStart;
             kPos += d;
-            key.startAddress += d;
-            key.appendAddress += d;
-
             assert kPos > 0;
-            assert key.startAddress > 0;
-            assert key.appendAddress > 0;
+
+            // The key may be not initialized yet, e.g. when the map is populated by merge.
+            if (key.startAddress != 0) {
+                key.startAddress += d;
+                key.appendAddress += d;
+                assert key.startAddress > 0;
+                assert key.appendAddress > 0;
+            }
 
             this.kStart = kAddress;
             this.kLimit = kAddress + kCapacity;
@@ -418,6 +571,14 @@ public class FastMap implements Map, Reopenable {
         return value.of(address, kLimit, newValue);
     }
 
+    long getKeyMemoryLimit() {
+        return kLimit;
+    }
+
+    long getKeyMemoryStart() {
+        return kStart;
+    }
+
     int keySize() {
         return keySize;
     }
@@ -512,7 +673,7 @@ public class FastMap implements Map, Reopenable {
 
         protected void checkSize(int size) {
             if (appendAddress + size > kLimit) {
-                resize(size);
+                resize(size, appendAddress);
             }
         }
 
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.map;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.std.ObjList;
+
+/**
+ * Iterates over a set of maps with disjoint key sets as if they were a single map.
+ * Such maps are produced by the sharded merge, see
+ * {@link FastMap#merge(FastMap, MapValueMergeFunction, int, int)}.
+ */
+public final class ShardedFastMapCursor implements RecordCursor {
+    private final FastMapRecord recordA;
+    private final FastMapRecord recordB;
+    private RecordCursor shardCursor;
+    private int shardIndex;
+    private long shardLimit;
+    private ObjList<FastMap> shards;
+    private long size;
+
+    public ShardedFastMapCursor(FastMap prototype) {
+        this.recordA = (FastMapRecord) ((FastMapRecord) prototype.getRecord()).clone();
+        this.recordB = (FastMapRecord) recordA.clone();
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = shards.size(); i < n; i++) {
+            shards.getQuick(i).restoreInitialCapacity();
+        }
+    }
+
+    @Override
+    public MapRecord getRecord() {
+        return recordA;
+    }
+
+    @Override
+    public MapRecord getRecordB() {
+        return recordB;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (shardCursor == null || !shardCursor.hasNext()) {
+            if (++shardIndex >= shards.size()) {
+                shardCursor = null;
+                shardIndex = shards.size();
+                return false;
+            }
+            final FastMap shard = shards.getQuick(shardIndex);
+            shardCursor = shard.getCursor();
+            shardLimit = shard.getKeyMemoryLimit();
+        }
+        recordA.of(shardCursor.getRecord().getRowId(), shardLimit);
+        return true;
+    }
+
+    public ShardedFastMapCursor of(ObjList<FastMap> shards) {
+        this.shards = shards;
+        size = 0;
+        for (int i = 0, n = shards.size(); i < n; i++) {
+            size += shards.getQuick(i).size();
+        }
+        toTop();
+        return this;
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        for (int i = 0, n = shards.size(); i < n; i++) {
+            final FastMap shard = shards.getQuick(i);
+            if (atRowId >= shard.getKeyMemoryStart() && atRowId < shard.getKeyMemoryLimit()) {
+                ((FastMapRecord) record).of(atRowId, shard.getKeyMemoryLimit());
+                return;
+            }
+        }
+        assert false : "row id does not belong to any of the shards";
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void toTop() {
+        shardIndex = -1;
+        shardCursor = null;
+    }
+}
@@ -38,6 +38,11 @@ public class ReadOnlySecurityContext implements SecurityContext {
         throw CairoException.authorization().put("Write permission denied").setCacheable(true);
     }
 
+    @Override
+    public void authorizeAlterTableCompressPartition(TableToken tableToken) {
+        throw CairoException.authorization().put("Write permission denied").setCacheable(true);
+    }
+
     @Override
     public void authorizeAlterTableDetachPartition(TableToken tableToken) {
         throw CairoException.authorization().put("Write permission denied").setCacheable(true);
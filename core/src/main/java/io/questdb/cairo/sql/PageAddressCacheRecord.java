@@ -25,6 +25,7 @@
 package io.questdb.cairo.sql;
 
 import io.questdb.cairo.CairoException;
+import io.questdb.cairo.GeoHashes;
 import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.vm.NullMemoryMR;
 import io.questdb.cairo.vm.Vm;
@@ -38,9 +39,11 @@ public class PageAddressCacheRecord implements Record, Closeable {
 
     private final MemoryCR.ByteSequenceView bsview = new MemoryCR.ByteSequenceView();
     private final MemoryCR.CharSequenceView csview = new MemoryCR.CharSequenceView();
-    private final MemoryCR.CharSequenceView csview2 = new MemoryCR.CharSequenceView();
+    // B-side views are kept per column, so that values of several columns
+    // of the same row can be held at once, e.g. by a record comparator
+    private final ObjList<MemoryCR.CharSequenceView> csviewsB = new ObjList<>();
     private final Long256Impl long256A = new Long256Impl();
-    private final Long256Impl long256B = new Long256Impl();
+    private final ObjList<Long256Impl> long256sB = new ObjList<>();
     private final ObjList<SymbolTable> symbolTableCache = new ObjList<>();
     private int frameIndex;
     private PageAddressCache pageAddressCache;
@@ -135,7 +138,7 @@ public class PageAddressCacheRecord implements Record, Closeable {
     public byte getGeoByte(int columnIndex) {
         final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
         if (address == 0) {
-            return NullMemoryMR.INSTANCE.getByte(0);
+            return GeoHashes.BYTE_NULL;
         }
         return Unsafe.getUnsafe().getByte(address + rowIndex * Byte.BYTES);
     }
@@ -144,7 +147,7 @@ public class PageAddressCacheRecord implements Record, Closeable {
     public int getGeoInt(int columnIndex) {
         final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
         if (address == 0) {
-            return NullMemoryMR.INSTANCE.getInt(0);
+            return GeoHashes.INT_NULL;
         }
         return Unsafe.getUnsafe().getInt(address + rowIndex * Integer.BYTES);
     }
@@ -153,7 +156,7 @@ public class PageAddressCacheRecord implements Record, Closeable {
     public long getGeoLong(int columnIndex) {
         final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
         if (address == 0) {
-            return NullMemoryMR.INSTANCE.getLong(0);
+            return GeoHashes.NULL;
         }
         return Unsafe.getUnsafe().getLong(address + rowIndex * Long.BYTES);
     }
@@ -162,7 +165,7 @@ public class PageAddressCacheRecord implements Record, Closeable {
     public short getGeoShort(int columnIndex) {
         final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
         if (address == 0) {
-            return NullMemoryMR.INSTANCE.getShort(0);
+            return GeoHashes.SHORT_NULL;
         }
         return Unsafe.getUnsafe().getShort(address + rowIndex * Short.BYTES);
     }
@@ -221,6 +224,10 @@ public class PageAddressCacheRecord implements Record, Closeable {
 
     @Override
     public Long256 getLong256B(int columnIndex) {
+        Long256Impl long256B = long256sB.getQuiet(columnIndex);
+        if (long256B == null) {
+            long256sB.extendAndSet(columnIndex, long256B = new Long256Impl());
+        }
         getLong256(columnIndex, long256B);
         return long256B;
     }
@@ -260,6 +267,10 @@ public class PageAddressCacheRecord implements Record, Closeable {
         final long indexPageAddress = pageAddressCache.getIndexPageAddress(frameIndex, columnIndex);
         final long offset = Unsafe.getUnsafe().getLong(indexPageAddress + rowIndex * Long.BYTES);
         final long size = pageAddressCache.getPageSize(frameIndex, columnIndex);
+        MemoryCR.CharSequenceView csview2 = csviewsB.getQuiet(columnIndex);
+        if (csview2 == null) {
+            csviewsB.extendAndSet(columnIndex, csview2 = new MemoryCR.CharSequenceView());
+        }
         return getStr(dataPageAddress, offset, size, csview2);
     }
 
@@ -165,6 +165,17 @@ public interface RecordCursorFactory extends Closeable, Sinkable, Plannable {
 
     boolean recordCursorSupportsRandomAccess();
 
+    /**
+     * True if this factory filters page frames of its base factory in parallel and the frame
+     * sequence returned by {@link #execute(SqlExecutionContext, SCSequence, int)} holds row ids
+     * selected by the filter. Base factory page frames must be reachable via page address cache.
+     *
+     * @return true if filtered page frames can be consumed directly
+     */
+    default boolean supportFilteredPageFrameSequence() {
+        return false;
+    }
+
     default boolean supportPageFrameCursor() {
         return false;
     }
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.sql.async;
+
+/**
+ * State of a parallel operator that is able to merge its data shard by shard.
+ * Different shards are merged concurrently by {@link ShardMerger}, so that
+ * the merge of each shard must only write to the shard's own data structures.
+ */
+public interface ShardMergeAtom {
+
+    int getShardCount();
+
+    /**
+     * Returns the message of the first error thrown by a shard merge, if any.
+     *
+     * @return error message or null if all shards were merged successfully
+     */
+    String getShardMergeError();
+
+    void mergeShard(int shardIndex);
+
+    /**
+     * Prepares shard data structures for the merge. Called by the query owner
+     * thread before any shard is merged.
+     */
+    void prepareShardedMerge();
+
+    void setShardMergeError(Throwable th);
+}
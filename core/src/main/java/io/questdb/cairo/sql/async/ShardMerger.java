@@ -0,0 +1,119 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.sql.async;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cutlass.text.AtomicBooleanCircuitBreaker;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.Os;
+import io.questdb.tasks.GroupByMergeShardTask;
+
+/**
+ * Merges shards of a {@link ShardMergeAtom} in parallel. Shards are published to
+ * the shard merge queue to be picked up by the workers, while the query owner
+ * thread merges the shards that didn't fit into the queue and then helps
+ * with the queued ones. This also prevents a deadlock when there are no free
+ * workers.
+ * <p>
+ * The class is not thread-safe, each query owner has to use its own instance.
+ */
+public class ShardMerger {
+    private static final String exceptionMessage = "timeout, query aborted";
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final MessageBus messageBus;
+    private final AtomicBooleanCircuitBreaker sharedCircuitBreaker = new AtomicBooleanCircuitBreaker();
+
+    public ShardMerger(MessageBus messageBus) {
+        this.messageBus = messageBus;
+    }
+
+    /**
+     * Merges all shards of the given atom and returns once all of them are merged.
+     *
+     * @param atom           atom to merge
+     * @param circuitBreaker query circuit breaker, it is checked while waiting for the workers
+     * @throws CairoException when a shard merge failed or the query was cancelled
+     */
+    public void merge(ShardMergeAtom atom, SqlExecutionCircuitBreaker circuitBreaker) {
+        final RingQueue<GroupByMergeShardTask> queue = messageBus.getGroupByMergeShardQueue();
+        final Sequence pubSeq = messageBus.getGroupByMergeShardPubSeq();
+
+        atom.prepareShardedMerge();
+        doneLatch.reset();
+        sharedCircuitBreaker.reset();
+
+        int queuedCount = 0;
+        try {
+            for (int i = 0, n = atom.getShardCount(); i < n; i++) {
+                final long seq = pubSeq.next();
+                if (seq < 0) {
+                    // The queue is full, so merge the shard ourselves.
+                    circuitBreaker.statefulThrowExceptionIfTripped();
+                    atom.mergeShard(i);
+                } else {
+                    queue.get(seq).of(atom, i, doneLatch, sharedCircuitBreaker);
+                    pubSeq.done(seq);
+                    queuedCount++;
+                }
+            }
+        } catch (Throwable th) {
+            sharedCircuitBreaker.cancel();
+            throw th;
+        } finally {
+            // Process our own tasks; this also prevents a deadlock when there are no free workers.
+            processTasks(queuedCount, circuitBreaker);
+        }
+
+        final String error = atom.getShardMergeError();
+        if (error != null) {
+            throw CairoException.nonCritical().put(error);
+        }
+        if (sharedCircuitBreaker.isCanceled()) {
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+    }
+
+    private void processTasks(int queuedCount, SqlExecutionCircuitBreaker circuitBreaker) {
+        final RingQueue<GroupByMergeShardTask> queue = messageBus.getGroupByMergeShardQueue();
+        final Sequence subSeq = messageBus.getGroupByMergeShardSubSeq();
+        while (doneLatch.getCount() > -queuedCount) {
+            if (circuitBreaker.checkIfTripped()) {
+                sharedCircuitBreaker.cancel();
+            }
+            final long seq = subSeq.next();
+            if (seq > -1) {
+                queue.get(seq).run();
+                subSeq.done(seq);
+            } else {
+                Os.pause();
+            }
+        }
+        doneLatch.await(queuedCount);
+    }
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.vm;
+
+import io.questdb.std.MemoryTag;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+// LRU of decompressed blocks shared by compressed column memories of a table reader.
+// Least recently used blocks are evicted once the size of cached blocks would exceed
+// the limit, so memory stays bounded no matter how many partitions are scanned.
+// Addresses of cached blocks must not be used after the next acquire() call.
+public class InflatedBlockCache implements Closeable {
+    private final long maxSize;
+    private final ObjList<Entry> pool = new ObjList<>();
+    private Entry head;
+    private long size;
+    private Entry tail;
+
+    public InflatedBlockCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void close() {
+        while (tail != null) {
+            remove(tail);
+        }
+        pool.clear();
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Allocates memory for a block, evicting least recently used blocks of any owner
+     * to stay within the limit. A single block larger than the limit is still cached.
+     */
+    Entry acquire(MemoryCMRZImpl owner, int block, int len) {
+        Entry entry = null;
+        while (tail != null && size + len > maxSize) {
+            final Entry victim = tail;
+            unlink(victim);
+            victim.owner.evicted(victim.block);
+            if (entry == null && victim.len == len) {
+                // reuse memory of the same size
+                entry = victim;
+                size -= len;
+            } else {
+                free(victim);
+            }
+        }
+        if (entry == null) {
+            final int n = pool.size();
+            if (n > 0) {
+                entry = pool.getQuick(n - 1);
+                pool.setPos(n - 1);
+            } else {
+                entry = new Entry();
+            }
+            entry.address = Unsafe.malloc(len, MemoryTag.NATIVE_TABLE_READER);
+            entry.len = len;
+        }
+        size += len;
+        entry.owner = owner;
+        entry.block = block;
+        linkHead(entry);
+        return entry;
+    }
+
+    void remove(Entry entry) {
+        unlink(entry);
+        entry.owner.evicted(entry.block);
+        free(entry);
+    }
+
+    void touch(Entry entry) {
+        if (entry != head) {
+            unlink(entry);
+            linkHead(entry);
+        }
+    }
+
+    private void free(Entry entry) {
+        Unsafe.free(entry.address, entry.len, MemoryTag.NATIVE_TABLE_READER);
+        size -= entry.len;
+        entry.address = 0;
+        entry.owner = null;
+        pool.add(entry);
+    }
+
+    private void linkHead(Entry entry) {
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        } else {
+            tail = entry;
+        }
+        head = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            head = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        } else {
+            tail = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    static class Entry {
+        long address;
+        int block;
+        int len;
+        Entry next;
+        MemoryCMRZImpl owner;
+        Entry prev;
+    }
+}
@@ -0,0 +1,478 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnCompressor;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.LPSZ;
+import org.jetbrains.annotations.Nullable;
+
+// contiguous mapped readable over a block-compressed column file, see ColumnCompressor.
+// Values are read through an LRU of decoded blocks, which is shared by compressed columns
+// of a table reader and bounded in size. Strings and binaries are copied out of the cache,
+// so no address of a cached block outlives the call. Page frames need stable contiguous
+// memory, they are decoded into separate buffers that are kept until releaseFrames().
+// Decoding mutates state, so the memory must only be accessed from the reader's owner
+// thread; page frames handed over to workers are decoded by getPageAddress() up front.
+public class MemoryCMRZImpl extends AbstractMemoryCR implements MemoryCMR {
+    // cache of memories that are not given a shared one, e.g. outside of table readers
+    private static final long DEFAULT_CACHE_SIZE = 4 * Numbers.SIZE_1MB;
+    private static final Log LOG = LogFactory.getLog(MemoryCMRZImpl.class);
+    private static final long MIN_VIEW_BUFFER_SIZE = 64;
+    private static final int SCRATCH_SIZE = Long256.BYTES;
+    private final ObjList<InflatedBlockCache.Entry> blocks = new ObjList<>();
+    private final InflatedBlockCache cache;
+    // lo, hi, address triplets
+    private final LongList frames = new LongList();
+    private final boolean ownCache;
+    // address, capacity pairs of buffers holding copies of strings and binaries
+    private final LongList viewBuffers = new LongList();
+    private final ObjList<Object> views = new ObjList<>();
+    private int blockCount;
+    private int blockSizeBits;
+    private int codec;
+    private long fileAddress;
+    private long fileSize;
+    private long frameSize;
+    private int memoryTag = MemoryTag.MMAP_DEFAULT;
+    private long scratch;
+    private long uncompressedSize;
+    private int valueSizeBits;
+    private long z;
+
+    public MemoryCMRZImpl(FilesFacade ff, LPSZ name, long size, int memoryTag) {
+        this(null, ff, name, size, memoryTag);
+    }
+
+    public MemoryCMRZImpl(@Nullable InflatedBlockCache cache, FilesFacade ff, LPSZ name, long size, int memoryTag) {
+        this(cache);
+        of(ff, name, 0, size, memoryTag, 0);
+    }
+
+    public MemoryCMRZImpl() {
+        this(null);
+    }
+
+    /**
+     * @param cache block cache shared with other compressed memories, null to use a private one
+     */
+    public MemoryCMRZImpl(@Nullable InflatedBlockCache cache) {
+        this.ownCache = cache == null;
+        this.cache = cache == null ? new InflatedBlockCache(DEFAULT_CACHE_SIZE) : cache;
+    }
+
+    @Override
+    public long addressOf(long offset) {
+        assert offset <= size : "offset=" + offset + ", size=" + size + ", fd=" + fd;
+        // callers may address the whole column around the offset
+        return getPageAddress(0, size) + offset;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        releaseFrames();
+        for (int i = 0, n = blocks.size(); i < n; i++) {
+            final InflatedBlockCache.Entry entry = blocks.getQuick(i);
+            if (entry != null) {
+                cache.remove(entry);
+            }
+        }
+        blocks.clear();
+        for (int i = 0, n = viewBuffers.size(); i < n; i += 2) {
+            Unsafe.free(viewBuffers.getQuick(i), viewBuffers.getQuick(i + 1), MemoryTag.NATIVE_TABLE_READER);
+        }
+        viewBuffers.clear();
+        views.clear();
+        if (scratch != 0) {
+            scratch = Unsafe.free(scratch, SCRATCH_SIZE, MemoryTag.NATIVE_TABLE_READER);
+        }
+        if (fileAddress != 0) {
+            ff.munmap(fileAddress, fileSize, memoryTag);
+            fileAddress = 0;
+            fileSize = 0;
+        }
+        if (z != 0) {
+            Zip.inflateEnd(z);
+            z = 0;
+        }
+        if (ff != null && ff.close(fd)) {
+            LOG.debug().$("closed [fd=").$(fd).I$();
+            fd = -1;
+        }
+        if (ownCache) {
+            cache.close();
+        }
+        size = 0;
+        uncompressedSize = 0;
+        blockCount = 0;
+    }
+
+    @Override
+    public void extend(long newSize) {
+        if (newSize > size) {
+            if (newSize > uncompressedSize) {
+                throw CairoException.critical(0)
+                        .put("compressed column cannot be extended [fd=").put(fd)
+                        .put(", size=").put(uncompressedSize)
+                        .put(", newSize=").put(newSize)
+                        .put(']');
+            }
+            size = newSize;
+        }
+    }
+
+    @Override
+    public BinarySequence getBin(long offset, ByteSequenceView view) {
+        final long len = getLong(offset);
+        if (len > -1) {
+            return view.of(copy(offset + Long.BYTES, offset + Long.BYTES + len, viewBuffer(view, len)), len);
+        }
+        return null;
+    }
+
+    @Override
+    public byte getByte(long offset) {
+        return Unsafe.getUnsafe().getByte(addressOf(offset, offset + Byte.BYTES));
+    }
+
+    @Override
+    public char getChar(long offset) {
+        return Unsafe.getUnsafe().getChar(addressOf(offset, offset + Character.BYTES));
+    }
+
+    @Override
+    public double getDouble(long offset) {
+        return Unsafe.getUnsafe().getDouble(addressOf(offset, offset + Double.BYTES));
+    }
+
+    @Override
+    public float getFloat(long offset) {
+        return Unsafe.getUnsafe().getFloat(addressOf(offset, offset + Float.BYTES));
+    }
+
+    /**
+     * @return size of decoded page frames held by this memory
+     */
+    public long getFrameSize() {
+        return frameSize;
+    }
+
+    @Override
+    public int getInt(long offset) {
+        return Unsafe.getUnsafe().getInt(addressOf(offset, offset + Integer.BYTES));
+    }
+
+    @Override
+    public long getLong(long offset) {
+        return Unsafe.getUnsafe().getLong(addressOf(offset, offset + Long.BYTES));
+    }
+
+    @Override
+    public void getLong256(long offset, CharSink sink) {
+        final long addr = addressOf(offset, offset + Long256.BYTES);
+        Numbers.appendLong256(
+                Unsafe.getUnsafe().getLong(addr),
+                Unsafe.getUnsafe().getLong(addr + Long.BYTES),
+                Unsafe.getUnsafe().getLong(addr + Long.BYTES * 2),
+                Unsafe.getUnsafe().getLong(addr + Long.BYTES * 3),
+                sink
+        );
+    }
+
+    @Override
+    public void getLong256(long offset, Long256Acceptor sink) {
+        final long addr = addressOf(offset, offset + Long256.BYTES);
+        sink.setAll(
+                Unsafe.getUnsafe().getLong(addr),
+                Unsafe.getUnsafe().getLong(addr + Long.BYTES),
+                Unsafe.getUnsafe().getLong(addr + Long.BYTES * 2),
+                Unsafe.getUnsafe().getLong(addr + Long.BYTES * 3)
+        );
+    }
+
+    @Override
+    public long getPageAddress(int pageIndex) {
+        return getPageAddress(0, size);
+    }
+
+    @Override
+    public long getPageAddress(long lo, long hi) {
+        hi = Math.min(hi, size);
+        if (lo >= hi) {
+            if (size == 0) {
+                return 0;
+            }
+            // empty range still needs a valid address
+            lo = Math.min(lo, size - 1);
+            hi = lo + 1;
+        }
+        for (int i = 0, n = frames.size(); i < n; i += 3) {
+            final long frameLo = frames.getQuick(i);
+            if (frameLo <= lo && hi <= frames.getQuick(i + 1)) {
+                return frames.getQuick(i + 2) - frameLo;
+            }
+        }
+
+        final int blockLo = (int) (lo >>> blockSizeBits);
+        final int blockHi = (int) ((hi - 1) >>> blockSizeBits);
+        final long frameLo = (long) blockLo << blockSizeBits;
+        final long frameHi = Math.min(uncompressedSize, (blockHi + 1L) << blockSizeBits);
+        final long address = Unsafe.malloc(frameHi - frameLo, MemoryTag.NATIVE_TABLE_READER);
+        frames.add(frameLo, frameHi);
+        frames.add(address);
+        frameSize += frameHi - frameLo;
+        for (int block = blockLo; block <= blockHi; block++) {
+            final long dst = address + ((long) block << blockSizeBits) - frameLo;
+            final InflatedBlockCache.Entry entry = blocks.getQuiet(block);
+            if (entry != null) {
+                Vect.memcpy(dst, entry.address, entry.len);
+            } else {
+                decode(block, dst);
+            }
+        }
+        return address - frameLo;
+    }
+
+    @Override
+    public int getPageCount() {
+        return size > 0 ? 1 : 0;
+    }
+
+    @Override
+    public short getShort(long offset) {
+        return Unsafe.getUnsafe().getShort(addressOf(offset, offset + Short.BYTES));
+    }
+
+    @Override
+    public CharSequence getStr(long offset, CharSequenceView view) {
+        final int len = getInt(offset);
+        if (len != TableUtils.NULL_LEN) {
+            final long hi = offset + Vm.STRING_LENGTH_BYTES + len * 2L;
+            if (hi <= size) {
+                final long lo = offset + Vm.STRING_LENGTH_BYTES;
+                return view.of(copy(lo, hi, viewBuffer(view, hi - lo)), len);
+            }
+            throw CairoException.critical(0)
+                    .put("String is outside of file boundary [offset=")
+                    .put(offset)
+                    .put(", len=")
+                    .put(len)
+                    .put(", size=")
+                    .put(size)
+                    .put(']');
+        }
+        return null;
+    }
+
+    @Override
+    public void growToFileSize() {
+        extend(uncompressedSize);
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag, long opts, int madviseOpts) {
+        close();
+        this.ff = ff;
+        this.memoryTag = memoryTag;
+        fd = TableUtils.openRO(ff, name, LOG);
+        try {
+            fileSize = ff.length(fd);
+            if (fileSize < ColumnCompressor.HEADER_SIZE) {
+                throw CairoException.critical(ff.errno()).put("compressed column file is too small [file=").put(name).put(", size=").put(fileSize).put(']');
+            }
+            fileAddress = TableUtils.mapRO(ff, fd, fileSize, memoryTag);
+            uncompressedSize = Unsafe.getUnsafe().getLong(fileAddress + ColumnCompressor.HEADER_OFFSET_SIZE);
+            blockSizeBits = Unsafe.getUnsafe().getInt(fileAddress + ColumnCompressor.HEADER_OFFSET_BLOCK_SIZE_BITS);
+            blockCount = Unsafe.getUnsafe().getInt(fileAddress + ColumnCompressor.HEADER_OFFSET_BLOCK_COUNT);
+            codec = Unsafe.getUnsafe().getInt(fileAddress + ColumnCompressor.HEADER_OFFSET_CODEC);
+            valueSizeBits = Unsafe.getUnsafe().getInt(fileAddress + ColumnCompressor.HEADER_OFFSET_VALUE_SIZE_BITS);
+            if (uncompressedSize < 0
+                    || blockSizeBits < 3 || blockSizeBits > 30
+                    || (codec != ColumnCompressor.CODEC_DEFLATE && codec != ColumnCompressor.CODEC_INTEGER)
+                    || (codec == ColumnCompressor.CODEC_INTEGER && (valueSizeBits < 1 || valueSizeBits > 3 || (uncompressedSize & ((1L << valueSizeBits) - 1)) != 0))
+                    || blockCount != (int) ((uncompressedSize + (1L << blockSizeBits) - 1) >>> blockSizeBits)
+                    || ColumnCompressor.getIndexSize(blockCount) > fileSize
+                    || Unsafe.getUnsafe().getLong(fileAddress + ColumnCompressor.HEADER_SIZE + (long) blockCount * Long.BYTES) != fileSize
+            ) {
+                throw CairoException.critical(0).put("corrupt compressed column file [file=").put(name).put(']');
+            }
+            if (size < 0) {
+                size = uncompressedSize;
+            } else if (size > uncompressedSize) {
+                throw CairoException.critical(0)
+                        .put("compressed column file is too short [file=").put(name)
+                        .put(", size=").put(uncompressedSize)
+                        .put(", expected=").put(size)
+                        .put(']');
+            }
+            this.size = size;
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+        LOG.debug().$("map  [file=").$(name).$(", fd=").$(fd).$(", compressedSize=").$(fileSize).$(", size=").$(this.size).$(']').$();
+    }
+
+    /**
+     * Frees decoded page frames. Cached blocks are kept, the cache bounds their size.
+     * This must not be called while page frame addresses are still in use.
+     */
+    public void releaseFrames() {
+        for (int i = 0, n = frames.size(); i < n; i += 3) {
+            Unsafe.free(frames.getQuick(i + 2), frames.getQuick(i + 1) - frames.getQuick(i), MemoryTag.NATIVE_TABLE_READER);
+        }
+        frames.clear();
+        frameSize = 0;
+    }
+
+    @Override
+    public void smallFile(FilesFacade ff, LPSZ name, int memoryTag) {
+        of(ff, name, ff.getPageSize(), -1, memoryTag, 0, -1);
+    }
+
+    @Override
+    public void wholeFile(FilesFacade ff, LPSZ name, int memoryTag) {
+        of(ff, name, ff.getMapPageSize(), -1, memoryTag, 0, -1);
+    }
+
+    void evicted(int block) {
+        blocks.setQuick(block, null);
+    }
+
+    private long addressOf(long lo, long hi) {
+        assert hi <= size : "hi=" + hi + ", size=" + size + ", fd=" + fd;
+        final int block = (int) (lo >>> blockSizeBits);
+        if ((int) ((hi - 1) >>> blockSizeBits) == block) {
+            return inflate(block) + (lo & ((1L << blockSizeBits) - 1));
+        }
+        // value spans blocks
+        if (scratch == 0) {
+            scratch = Unsafe.malloc(SCRATCH_SIZE, MemoryTag.NATIVE_TABLE_READER);
+        }
+        return copy(lo, hi, scratch);
+    }
+
+    private long copy(long lo, long hi, long dst) {
+        final long mask = (1L << blockSizeBits) - 1;
+        long p = dst;
+        while (lo < hi) {
+            final long len = Math.min(hi, (lo | mask) + 1) - lo;
+            Vect.memcpy(p, inflate((int) (lo >>> blockSizeBits)) + (lo & mask), len);
+            p += len;
+            lo += len;
+        }
+        return dst;
+    }
+
+    private void decode(int block, long out) {
+        final long indexAddress = fileAddress + ColumnCompressor.HEADER_SIZE + (long) block * Long.BYTES;
+        final long blockLo = Unsafe.getUnsafe().getLong(indexAddress);
+        final long blockHi = Unsafe.getUnsafe().getLong(indexAddress + Long.BYTES);
+        final int outLen = getBlockLen(block);
+        if (blockLo < ColumnCompressor.getIndexSize(blockCount) || blockHi < blockLo || blockHi > fileSize) {
+            throw CairoException.critical(0).put("corrupt compressed column block [fd=").put(fd).put(", block=").put(block).put(']');
+        }
+        if (codec == ColumnCompressor.CODEC_INTEGER) {
+            if (!ColumnCompressor.decodeIntegers(fileAddress + blockLo, blockHi - blockLo, out, outLen >>> valueSizeBits, valueSizeBits)) {
+                throw CairoException.critical(0).put("corrupt compressed column block [fd=").put(fd).put(", block=").put(block).put(']');
+            }
+        } else {
+            inflate(fileAddress + blockLo, (int) (blockHi - blockLo), out, outLen, block);
+        }
+    }
+
+    private int getBlockLen(int block) {
+        return (int) Math.min(1L << blockSizeBits, uncompressedSize - ((long) block << blockSizeBits));
+    }
+
+    private long inflate(int block) {
+        InflatedBlockCache.Entry entry = blocks.getQuiet(block);
+        if (entry != null) {
+            cache.touch(entry);
+            return entry.address;
+        }
+        entry = cache.acquire(this, block, getBlockLen(block));
+        blocks.extendAndSet(block, entry);
+        try {
+            decode(block, entry.address);
+        } catch (Throwable th) {
+            cache.remove(entry);
+            throw th;
+        }
+        return entry.address;
+    }
+
+    private void inflate(long address, int len, long out, int outLen, int block) {
+        if (z == 0) {
+            z = Zip.inflateInit(true);
+            if (z < 0) {
+                final long err = z;
+                z = 0;
+                throw CairoException.critical(0).put("could not initialize inflate stream [error=").put(err).put(']');
+            }
+        } else {
+            Zip.inflateReset(z);
+        }
+        Zip.setInput(z, address, len);
+        final int n = Zip.inflate(z, out, outLen, true);
+        if (n != outLen) {
+            throw CairoException.critical(0)
+                    .put("could not decompress column block [fd=").put(fd)
+                    .put(", block=").put(block)
+                    .put(", error=").put(n)
+                    .put(']');
+        }
+    }
+
+    private long viewBuffer(Object view, long len) {
+        int index = -1;
+        for (int i = 0, n = views.size(); i < n; i++) {
+            if (views.getQuick(i) == view) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            index = views.size();
+            views.add(view);
+            viewBuffers.add(Unsafe.malloc(MIN_VIEW_BUFFER_SIZE, MemoryTag.NATIVE_TABLE_READER), MIN_VIEW_BUFFER_SIZE);
+        }
+        final int i = index * 2;
+        final long capacity = viewBuffers.getQuick(i + 1);
+        if (capacity < len) {
+            final long newCapacity = Math.max(len, capacity * 2);
+            viewBuffers.setQuick(i, Unsafe.realloc(viewBuffers.getQuick(i), capacity, newCapacity, MemoryTag.NATIVE_TABLE_READER));
+            viewBuffers.setQuick(i + 1, newCapacity);
+        }
+        return viewBuffers.getQuick(i);
+    }
+}
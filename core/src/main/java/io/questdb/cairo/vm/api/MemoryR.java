@@ -78,6 +78,18 @@ public interface MemoryR extends Closeable {
 
     long getPageAddress(int pageIndex);
 
+    /**
+     * Returns address of the first page of single page memory, making sure bytes in the
+     * [lo, hi) range can be read. Compressed memory decodes only the blocks in that range.
+     *
+     * @param lo offset of the first byte
+     * @param hi offset past the last byte
+     * @return address of the page
+     */
+    default long getPageAddress(long lo, long hi) {
+        return getPageAddress(0);
+    }
+
     int getPageCount();
 
     long getPageSize();
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.wal;
+
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Unsafe;
+
+/**
+ * Keeps track of timestamp-ordered runs in WAL lag. Small WAL transactions are squashed into
+ * the lag before they are committed. When each of them is ordered, the lag is a sequence of sorted runs,
+ * and the timestamp index of the commit can be built by merging the runs in one pass rather than
+ * sorting all lag rows again.
+ * <p>
+ * The merged index has the same layout as the one produced by radix sort of lag and WAL rows:
+ * lag row numbers are stored as is, WAL row numbers have the top bit set. Rows with equal timestamps keep
+ * their lag order and lag rows precede WAL rows.
+ */
+public class WalLagSortedRuns {
+    public static final int MAX_RUN_COUNT = 16;
+    private final LongList heads = new LongList();
+    private final IntList heap = new IntList();
+    private final LongList limits = new LongList();
+    private final LongList positions = new LongList();
+    // start rows of the sorted runs, relative to the first lag row
+    private final LongList runs = new LongList();
+    // lag row count described by the runs, -1 when the runs are unknown
+    private long rowCount = -1;
+
+    public void clear() {
+        runs.clear();
+        rowCount = -1;
+    }
+
+    public int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * Checks that lag rows are known to form a limited number of sorted runs.
+     *
+     * @param lagRowCount number of rows in the lag
+     * @param lagOrdered  true when all lag rows are in timestamp order
+     * @return true when the runs can be merged instead of being sorted
+     */
+    public boolean isMergeable(long lagRowCount, boolean lagOrdered) {
+        if (lagOrdered || lagRowCount == 0) {
+            runs.clear();
+            runs.add(0);
+            rowCount = lagRowCount;
+            return true;
+        }
+        return rowCount == lagRowCount && runs.size() > 0;
+    }
+
+    /**
+     * Merges sorted lag runs with the rows of the ordered WAL transaction.
+     *
+     * @param lagTimestampAddr address of the lag timestamp column, 8 bytes per row
+     * @param lagRowCount      number of rows in the lag
+     * @param walIndexAddr     address of the first WAL timestamp index entry, 16 bytes per row
+     * @param walRowCount      number of WAL rows to merge
+     * @param destAddr         address of the merged index, must fit lagRowCount + walRowCount entries
+     */
+    public void merge(long lagTimestampAddr, long lagRowCount, long walIndexAddr, long walRowCount, long destAddr) {
+        assert rowCount == lagRowCount && runs.size() > 0;
+        if (runs.size() == 1) {
+            mergeTwo(lagTimestampAddr, lagRowCount, walIndexAddr, walRowCount, destAddr);
+            return;
+        }
+
+        // WAL rows are the last run
+        final int walRun = runs.size();
+        final int runCount = walRun + 1;
+        heads.setAll(runCount, 0);
+        limits.setAll(runCount, 0);
+        positions.setAll(runCount, 0);
+        heap.setPos(runCount);
+        int heapSize = 0;
+        for (int r = 0; r < runCount; r++) {
+            final long lo = r < walRun ? runs.getQuick(r) : 0;
+            final long hi = r < walRun - 1 ? runs.getQuick(r + 1) : (r < walRun ? lagRowCount : walRowCount);
+            positions.setQuick(r, lo);
+            limits.setQuick(r, hi);
+            if (lo < hi) {
+                heads.setQuick(r, r < walRun ? getLagTimestamp(lagTimestampAddr, lo) : getWalTimestamp(walIndexAddr, lo));
+                heap.setQuick(heapSize++, r);
+            }
+        }
+        for (int i = heapSize / 2 - 1; i > -1; i--) {
+            siftDown(i, heapSize);
+        }
+
+        long dest = destAddr;
+        while (heapSize > 0) {
+            final int r = heap.getQuick(0);
+            final long pos = positions.getQuick(r);
+            Unsafe.getUnsafe().putLong(dest, heads.getQuick(r));
+            Unsafe.getUnsafe().putLong(dest + Long.BYTES, r < walRun ? pos : pos | Long.MIN_VALUE);
+            dest += 2 * Long.BYTES;
+
+            final long next = pos + 1;
+            if (next < limits.getQuick(r)) {
+                positions.setQuick(r, next);
+                heads.setQuick(r, r < walRun ? getLagTimestamp(lagTimestampAddr, next) : getWalTimestamp(walIndexAddr, next));
+            } else {
+                heap.setQuick(0, heap.getQuick(--heapSize));
+            }
+            siftDown(0, heapSize);
+        }
+    }
+
+    /**
+     * Records rows of a WAL transaction appended to the lag.
+     *
+     * @param lagRowCount     number of rows in the lag before the append
+     * @param lagOrdered      true when all lag rows before the append are in timestamp order
+     * @param lagMaxTimestamp max timestamp of the lag before the append
+     * @param ordered         true when the appended rows are in timestamp order
+     * @param minTimestamp    min timestamp of the appended rows
+     * @param appendRowCount  number of appended rows
+     */
+    public void onAppend(
+            long lagRowCount,
+            boolean lagOrdered,
+            long lagMaxTimestamp,
+            boolean ordered,
+            long minTimestamp,
+            long appendRowCount
+    ) {
+        if (!ordered || !isMergeable(lagRowCount, lagOrdered)) {
+            clear();
+            return;
+        }
+
+        if (lagRowCount > 0 && lagMaxTimestamp > minTimestamp) {
+            if (runs.size() == MAX_RUN_COUNT) {
+                // too many runs, merging them is no cheaper than sorting
+                clear();
+                return;
+            }
+            runs.add(lagRowCount);
+        }
+        rowCount = lagRowCount + appendRowCount;
+    }
+
+    private static long getLagTimestamp(long lagTimestampAddr, long row) {
+        return Unsafe.getUnsafe().getLong(lagTimestampAddr + (row << 3));
+    }
+
+    private static long getWalTimestamp(long walIndexAddr, long row) {
+        return Unsafe.getUnsafe().getLong(walIndexAddr + (row << 4));
+    }
+
+    private static void mergeTwo(long lagTimestampAddr, long lagRowCount, long walIndexAddr, long walRowCount, long destAddr) {
+        long dest = destAddr;
+        long l = 0;
+        long w = 0;
+        while (l < lagRowCount && w < walRowCount) {
+            final long lagTs = getLagTimestamp(lagTimestampAddr, l);
+            final long walTs = getWalTimestamp(walIndexAddr, w);
+            if (lagTs <= walTs) {
+                Unsafe.getUnsafe().putLong(dest, lagTs);
+                Unsafe.getUnsafe().putLong(dest + Long.BYTES, l++);
+            } else {
+                Unsafe.getUnsafe().putLong(dest, walTs);
+                Unsafe.getUnsafe().putLong(dest + Long.BYTES, (w++) | Long.MIN_VALUE);
+            }
+            dest += 2 * Long.BYTES;
+        }
+        for (; l < lagRowCount; l++, dest += 2 * Long.BYTES) {
+            Unsafe.getUnsafe().putLong(dest, getLagTimestamp(lagTimestampAddr, l));
+            Unsafe.getUnsafe().putLong(dest + Long.BYTES, l);
+        }
+        for (; w < walRowCount; w++, dest += 2 * Long.BYTES) {
+            Unsafe.getUnsafe().putLong(dest, getWalTimestamp(walIndexAddr, w));
+            Unsafe.getUnsafe().putLong(dest + Long.BYTES, w | Long.MIN_VALUE);
+        }
+    }
+
+    private boolean isBefore(int runA, int runB) {
+        final long a = heads.getQuick(runA);
+        final long b = heads.getQuick(runB);
+        // equal timestamps are taken from the earlier run first to keep the order stable
+        return a < b || (a == b && runA < runB);
+    }
+
+    private void siftDown(int i, int heapSize) {
+        final int r = heap.getQuick(i);
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && isBefore(heap.getQuick(child + 1), heap.getQuick(child))) {
+                child++;
+            }
+            final int c = heap.getQuick(child);
+            if (!isBefore(c, r)) {
+                break;
+            }
+            heap.setQuick(i, c);
+            i = child;
+        }
+        heap.setQuick(i, r);
+    }
+}
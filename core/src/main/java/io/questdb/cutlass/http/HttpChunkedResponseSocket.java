@@ -35,6 +35,16 @@ public interface HttpChunkedResponseSocket extends CharSink {
 
     HttpResponseHeader headers();
 
+    /**
+     * Copies bytes of the native memory range to the response buffer, as many as
+     * the buffer has space for.
+     *
+     * @param lo address of the first byte
+     * @param hi address past the last byte
+     * @return number of bytes copied
+     */
+    int putBytes(long lo, long hi);
+
     boolean resetToBookmark();
 
     void sendChunk(boolean done) throws PeerDisconnectedException, PeerIsSlowToReadException;
@@ -0,0 +1,867 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.PageAddressCache;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.*;
+import io.questdb.std.str.AbstractCharSink;
+import io.questdb.std.str.CharSink;
+
+import java.io.Closeable;
+
+/**
+ * Encodes query results in the Apache Arrow IPC streaming format: a schema message,
+ * followed by record batch messages and the end-of-stream marker.
+ * <p>
+ * Fixed-size columns of page frames are sent straight from the column memory. Only
+ * their validity bitmaps are computed, because nulls are stored as sentinel values.
+ * Other columns, as well as results of queries that don't support page frames, are
+ * read via {@link Record} accessors into per-column buffers.
+ * <p>
+ * An encoded message is a list of memory segments that have to be sent in order, see
+ * {@link #hasPendingBytes()}. Segments are valid until the next message is encoded.
+ */
+final class ArrowStreamEncoder implements Closeable, Mutable {
+    static final int MAX_BATCH_ROWS = 64 * 1024;
+    private static final int BUFFER_PAGE_SIZE = 64 * 1024;
+    private static final int CONTINUATION_MARKER = -1;
+    private static final short DATE_UNIT_MILLISECOND = 1;
+    // encodings of column values, they define the buffers of the column in a record batch
+    private static final int ENC_BOOL = 1;
+    private static final int ENC_FIXED = 2;
+    private static final int ENC_NULL = 0;
+    private static final int ENC_VAR = 3;
+    // flatbuffer table layouts: inline size of the table and offsets of
+    // the fields inside the table in the order of their vtable slots
+    private static final int[] EMPTY_SLOTS = {};
+    private static final int[] FIELD_SLOTS = {4, 8, 9, 12, 0, 16};
+    private static final int FIELD_SIZE = 20;
+    private static final int[] FIXED_SIZE_BINARY_SLOTS = {4};
+    private static final int FIXED_SIZE_BINARY_SIZE = 8;
+    private static final int[] INT_SLOTS = {4, 8};
+    private static final int INT_SIZE = 12;
+    // variable size data of a column is capped to keep 32-bit offsets valid
+    private static final long MAX_VAR_DATA_SIZE = Integer.MAX_VALUE / 2;
+    private static final byte MESSAGE_HEADER_RECORD_BATCH = 3;
+    private static final byte MESSAGE_HEADER_SCHEMA = 1;
+    private static final int[] MESSAGE_SLOTS = {4, 6, 8, 16};
+    private static final int MESSAGE_SIZE = 24;
+    private static final short METADATA_VERSION_V5 = 4;
+    private static final short PRECISION_DOUBLE = 2;
+    private static final short PRECISION_SINGLE = 1;
+    private static final int[] RECORD_BATCH_SLOTS = {8, 4, 16};
+    private static final int RECORD_BATCH_SIZE = 24;
+    private static final int[] SCHEMA_SLOTS = {0, 4};
+    private static final int SCHEMA_SIZE = 8;
+    private static final short TIME_UNIT_MICROSECOND = 2;
+    private static final int[] TIMESTAMP_SLOTS = {4, 8};
+    private static final int TIMESTAMP_SIZE = 12;
+    private static final byte TYPE_BINARY = 4;
+    private static final byte TYPE_BOOL = 6;
+    private static final byte TYPE_DATE = 8;
+    private static final byte TYPE_FIXED_SIZE_BINARY = 15;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_NULL = 1;
+    private static final byte TYPE_TIMESTAMP = 10;
+    private static final byte TYPE_UTF8 = 5;
+    private static final int[] UNIT_SLOTS = {4};
+    private static final int UNIT_SIZE = 8;
+    private final ObjList<MemoryCARW> dataBuffers = new ObjList<>();
+    private final IntList encodings = new IntList();
+    // non-zero when column values are sent straight from page frame memory
+    private final LongList frameDataAddresses = new LongList();
+    private final MemoryCARW message = Vm.getCARWInstance(BUFFER_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+    private final LongList nullCounts = new LongList();
+    private final ObjList<MemoryCARW> offsetBuffers = new ObjList<>();
+    private final PageAddressCache pageAddressCache;
+    private final PageAddressCacheRecord pageAddressCacheRecord = new PageAddressCacheRecord();
+    // address and length pairs
+    private final LongList segments = new LongList();
+    private final Utf8Sink utf8Sink = new Utf8Sink();
+    private final ObjList<MemoryCARW> validityBuffers = new ObjList<>();
+    private int batchRowCount;
+    private int frameIndex;
+    private RecordMetadata metadata;
+    private long padding;
+    private int segmentIndex;
+    private long segmentOffset;
+    private long varDataSize;
+
+    ArrowStreamEncoder(CairoConfiguration configuration) {
+        this.pageAddressCache = new PageAddressCache(configuration);
+        this.padding = Unsafe.calloc(Long.BYTES, MemoryTag.NATIVE_HTTP_CONN);
+    }
+
+    @Override
+    public void clear() {
+        metadata = null;
+        batchRowCount = 0;
+        resetSegments();
+        pageAddressCacheRecord.of(null, null);
+        pageAddressCache.clear();
+        message.close();
+        Misc.freeObjListAndKeepObjects(validityBuffers);
+        Misc.freeObjListAndKeepObjects(offsetBuffers);
+        Misc.freeObjListAndKeepObjects(dataBuffers);
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(pageAddressCacheRecord);
+        if (padding != 0) {
+            Unsafe.free(padding, Long.BYTES, MemoryTag.NATIVE_HTTP_CONN);
+            padding = 0;
+        }
+    }
+
+    int getBatchRowCount() {
+        return batchRowCount;
+    }
+
+    long getPendingHi() {
+        return segments.getQuick(segmentIndex) + segments.getQuick(segmentIndex + 1);
+    }
+
+    long getPendingLo() {
+        return segments.getQuick(segmentIndex) + segmentOffset;
+    }
+
+    boolean hasPendingBytes() {
+        return segmentIndex < segments.size();
+    }
+
+    boolean isBatchFull() {
+        return batchRowCount >= MAX_BATCH_ROWS || varDataSize >= MAX_VAR_DATA_SIZE;
+    }
+
+    void of(RecordMetadata metadata) {
+        this.metadata = metadata;
+        final int columnCount = metadata.getColumnCount();
+        encodings.clear();
+        nullCounts.setAll(columnCount, 0);
+        frameDataAddresses.setAll(columnCount, 0);
+        for (int i = 0; i < columnCount; i++) {
+            final int encoding = encodingOf(metadata.getColumnType(i));
+            encodings.add(encoding);
+            if (encoding == ENC_FIXED || encoding == ENC_VAR) {
+                buffer(validityBuffers, i);
+            }
+            if (encoding == ENC_VAR) {
+                buffer(offsetBuffers, i);
+            }
+            if (encoding != ENC_NULL) {
+                buffer(dataBuffers, i);
+            }
+        }
+        batchRowCount = 0;
+    }
+
+    /**
+     * Prepares for encoding of page frames. Symbols and other columns that can't be sent
+     * as they are stored are read via page frame record.
+     *
+     * @param symbolTableSource page frame cursor
+     */
+    void ofFrames(SymbolTableSource symbolTableSource) {
+        pageAddressCache.of(metadata);
+        pageAddressCacheRecord.of(symbolTableSource, pageAddressCache);
+        frameIndex = -1;
+    }
+
+    void putEndOfStream() {
+        message.jumpTo(0);
+        message.putInt(CONTINUATION_MARKER);
+        message.putInt(0);
+        resetSegments();
+        addSegment(message.getAddress(), message.getAppendOffset());
+    }
+
+    void putFrame(PageFrame frame) {
+        pageAddressCache.add(++frameIndex, frame);
+        pageAddressCacheRecord.setFrameIndex(frameIndex);
+    }
+
+    /**
+     * Encodes rows of the current page frame as a record batch.
+     *
+     * @param frame page frame previously passed to {@link #putFrame(PageFrame)}
+     * @param lo    first row of the batch, inclusive
+     * @param hi    last row of the batch, exclusive
+     */
+    void putFrameRows(PageFrame frame, long lo, long hi) {
+        resetBatch();
+        final int rowCount = (int) (hi - lo);
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BOOLEAN:
+                    putFrameBits(frame.getPageAddress(i), i, lo, rowCount);
+                    break;
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                    putFrameValues(frame.getPageAddress(i), i, columnType, lo, rowCount);
+                    break;
+                default:
+                    if (encodings.getQuick(i) == ENC_NULL) {
+                        break;
+                    }
+                    for (int r = 0; r < rowCount; r++) {
+                        pageAddressCacheRecord.setRowIndex(lo + r);
+                        putValue(pageAddressCacheRecord, i, columnType, r);
+                    }
+                    break;
+            }
+        }
+        batchRowCount = rowCount;
+        putRecordBatch();
+    }
+
+    void putRecord(Record record) {
+        if (batchRowCount == 0) {
+            resetBatch();
+        }
+        final int row = batchRowCount++;
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            putValue(record, i, metadata.getColumnType(i), row);
+        }
+    }
+
+    /**
+     * Encodes the rows added via {@link #putRecord(Record)} as a record batch.
+     */
+    void putRecordBatch() {
+        final int columnCount = metadata.getColumnCount();
+        int bufferCount = 0;
+        for (int i = 0; i < columnCount; i++) {
+            bufferCount += bufferCountOf(encodings.getQuick(i));
+        }
+
+        final long messageTable = beginMessage(MESSAGE_HEADER_RECORD_BATCH);
+        final long batchTable = fbTable(RECORD_BATCH_SIZE, RECORD_BATCH_SLOTS);
+        fbOffset(messageTable + 8, batchTable);
+        message.putLong(batchTable + 8, batchRowCount);
+
+        final long nodes = fbVector(columnCount, 2 * Long.BYTES, Long.BYTES);
+        fbOffset(batchTable + 4, nodes);
+        for (int i = 0; i < columnCount; i++) {
+            final long node = nodes + Integer.BYTES + 2L * Long.BYTES * i;
+            message.putLong(node, batchRowCount);
+            message.putLong(node + Long.BYTES, encodings.getQuick(i) == ENC_NULL ? batchRowCount : nullCounts.getQuick(i));
+        }
+
+        final long buffers = fbVector(bufferCount, 2 * Long.BYTES, Long.BYTES);
+        fbOffset(batchTable + 16, buffers);
+        long bodyLength = 0;
+        long buffer = buffers + Integer.BYTES;
+        for (int i = 0; i < columnCount; i++) {
+            for (int b = 0, n = bufferCountOf(encodings.getQuick(i)); b < n; b++) {
+                final long length = bufferLength(i, b);
+                message.putLong(buffer, bodyLength);
+                message.putLong(buffer + Long.BYTES, length);
+                buffer += 2 * Long.BYTES;
+                bodyLength += (length + Long.BYTES - 1) & -Long.BYTES;
+            }
+        }
+        message.putLong(messageTable + 16, bodyLength);
+        endMessage();
+
+        for (int i = 0; i < columnCount; i++) {
+            for (int b = 0, n = bufferCountOf(encodings.getQuick(i)); b < n; b++) {
+                final long length = bufferLength(i, b);
+                addSegment(bufferAddress(i, b), length);
+                addSegment(padding, -length & (Long.BYTES - 1));
+            }
+        }
+        batchRowCount = 0;
+    }
+
+    void putSchema() {
+        final int columnCount = metadata.getColumnCount();
+        final long messageTable = beginMessage(MESSAGE_HEADER_SCHEMA);
+        final long schemaTable = fbTable(SCHEMA_SIZE, SCHEMA_SLOTS);
+        fbOffset(messageTable + 8, schemaTable);
+        final long fields = fbVector(columnCount, Integer.BYTES, Integer.BYTES);
+        fbOffset(schemaTable + 4, fields);
+        for (int i = 0; i < columnCount; i++) {
+            final long fieldTable = fbTable(FIELD_SIZE, FIELD_SLOTS);
+            fbOffset(fields + Integer.BYTES + (long) Integer.BYTES * i, fieldTable);
+            // nullable
+            message.putByte(fieldTable + 8, (byte) 1);
+            fbOffset(fieldTable + 4, fbString(metadata.getColumnName(i)));
+            putFieldType(fieldTable, metadata.getColumnType(i));
+            // children
+            fbOffset(fieldTable + 16, fbVector(0, Integer.BYTES, Integer.BYTES));
+        }
+        endMessage();
+    }
+
+    void skipPendingBytes(long n) {
+        segmentOffset += n;
+        if (segmentOffset == segments.getQuick(segmentIndex + 1)) {
+            segmentIndex += 2;
+            segmentOffset = 0;
+        }
+    }
+
+    private static MemoryCARW buffer(ObjList<MemoryCARW> buffers, int columnIndex) {
+        MemoryCARW buffer = buffers.getQuiet(columnIndex);
+        if (buffer == null) {
+            buffer = Vm.getCARWInstance(BUFFER_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+            buffers.extendAndSet(columnIndex, buffer);
+        }
+        return buffer;
+    }
+
+    private static int bufferCountOf(int encoding) {
+        switch (encoding) {
+            case ENC_BOOL:
+            case ENC_FIXED:
+                return 2;
+            case ENC_VAR:
+                return 3;
+            default:
+                return 0;
+        }
+    }
+
+    private static int encodingOf(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                return ENC_BOOL;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+                return ENC_FIXED;
+            case ColumnType.CHAR:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.LONG256:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+            case ColumnType.BINARY:
+                return ENC_VAR;
+            default:
+                return ENC_NULL;
+        }
+    }
+
+    private static void putBit(MemoryCARW bits, int index, boolean value) {
+        if ((index & 7) == 0) {
+            bits.putByte((byte) 0);
+        }
+        if (value) {
+            final long address = bits.getAddress() + (index >>> 3);
+            Unsafe.getUnsafe().putByte(address, (byte) (Unsafe.getUnsafe().getByte(address) | (1 << (index & 7))));
+        }
+    }
+
+    private static long putDoubleValidity(long validity, long address, int rowCount) {
+        long nullCount = 0;
+        for (int i = 0; i < rowCount; i += 8) {
+            int bits = 0;
+            for (int j = 0, n = Math.min(8, rowCount - i); j < n; j++) {
+                if (Double.isNaN(Unsafe.getUnsafe().getDouble(address + ((long) (i + j) << 3)))) {
+                    nullCount++;
+                } else {
+                    bits |= 1 << j;
+                }
+            }
+            Unsafe.getUnsafe().putByte(validity + (i >>> 3), (byte) bits);
+        }
+        return nullCount;
+    }
+
+    private static long putFloatValidity(long validity, long address, int rowCount) {
+        long nullCount = 0;
+        for (int i = 0; i < rowCount; i += 8) {
+            int bits = 0;
+            for (int j = 0, n = Math.min(8, rowCount - i); j < n; j++) {
+                if (Float.isNaN(Unsafe.getUnsafe().getFloat(address + ((long) (i + j) << 2)))) {
+                    nullCount++;
+                } else {
+                    bits |= 1 << j;
+                }
+            }
+            Unsafe.getUnsafe().putByte(validity + (i >>> 3), (byte) bits);
+        }
+        return nullCount;
+    }
+
+    private static long putIntValidity(long validity, long address, int rowCount) {
+        long nullCount = 0;
+        for (int i = 0; i < rowCount; i += 8) {
+            int bits = 0;
+            for (int j = 0, n = Math.min(8, rowCount - i); j < n; j++) {
+                if (Unsafe.getUnsafe().getInt(address + ((long) (i + j) << 2)) == Numbers.INT_NaN) {
+                    nullCount++;
+                } else {
+                    bits |= 1 << j;
+                }
+            }
+            Unsafe.getUnsafe().putByte(validity + (i >>> 3), (byte) bits);
+        }
+        return nullCount;
+    }
+
+    private static long putLongValidity(long validity, long address, int rowCount) {
+        long nullCount = 0;
+        for (int i = 0; i < rowCount; i += 8) {
+            int bits = 0;
+            for (int j = 0, n = Math.min(8, rowCount - i); j < n; j++) {
+                if (Unsafe.getUnsafe().getLong(address + ((long) (i + j) << 3)) == Numbers.LONG_NaN) {
+                    nullCount++;
+                } else {
+                    bits |= 1 << j;
+                }
+            }
+            Unsafe.getUnsafe().putByte(validity + (i >>> 3), (byte) bits);
+        }
+        return nullCount;
+    }
+
+    private void addSegment(long address, long length) {
+        if (length > 0) {
+            segments.add(address, length);
+        }
+    }
+
+    private long beginMessage(byte headerType) {
+        message.jumpTo(0);
+        message.putInt(CONTINUATION_MARKER);
+        // metadata size and the root table offset are set once the message is complete
+        message.putInt(0);
+        message.putInt(0);
+        final long messageTable = fbTable(MESSAGE_SIZE, MESSAGE_SLOTS);
+        fbOffset(2 * Integer.BYTES, messageTable);
+        message.putShort(messageTable + 4, METADATA_VERSION_V5);
+        message.putByte(messageTable + 6, headerType);
+        return messageTable;
+    }
+
+    private long bufferAddress(int columnIndex, int bufferIndex) {
+        if (bufferIndex == 0 && encodings.getQuick(columnIndex) != ENC_BOOL) {
+            return validityBuffers.getQuick(columnIndex).getAddress();
+        }
+        if (bufferIndex == 1 && encodings.getQuick(columnIndex) == ENC_VAR) {
+            return offsetBuffers.getQuick(columnIndex).getAddress();
+        }
+        final long frameDataAddress = frameDataAddresses.getQuick(columnIndex);
+        return frameDataAddress != 0 ? frameDataAddress : dataBuffers.getQuick(columnIndex).getAddress();
+    }
+
+    private long bufferLength(int columnIndex, int bufferIndex) {
+        final int encoding = encodings.getQuick(columnIndex);
+        if (bufferIndex == 0) {
+            // validity bitmap may be omitted when there are no nulls
+            return encoding != ENC_BOOL && nullCounts.getQuick(columnIndex) > 0 ? (batchRowCount + 7) >>> 3 : 0;
+        }
+        if (bufferIndex == 1 && encoding == ENC_VAR) {
+            return (batchRowCount + 1L) * Integer.BYTES;
+        }
+        if (encoding == ENC_BOOL) {
+            return (batchRowCount + 7) >>> 3;
+        }
+        if (frameDataAddresses.getQuick(columnIndex) != 0) {
+            return (long) batchRowCount << ColumnType.pow2SizeOf(metadata.getColumnType(columnIndex));
+        }
+        return dataBuffers.getQuick(columnIndex).getAppendOffset();
+    }
+
+    private void endMessage() {
+        fbPad(Long.BYTES, 0);
+        message.putInt(Integer.BYTES, (int) (message.getAppendOffset() - 2 * Integer.BYTES));
+        resetSegments();
+        addSegment(message.getAddress(), message.getAppendOffset());
+    }
+
+    private void fbOffset(long field, long target) {
+        message.putInt(field, (int) (target - field));
+    }
+
+    private void fbPad(int alignment, int extra) {
+        while (((message.getAppendOffset() + extra) & (alignment - 1)) != 0) {
+            message.putByte((byte) 0);
+        }
+    }
+
+    private long fbString(CharSequence value) {
+        fbPad(Integer.BYTES, 0);
+        final long str = message.getAppendOffset();
+        message.putInt(0);
+        utf8Sink.of(message).encodeUtf8(value);
+        message.putInt(str, (int) (message.getAppendOffset() - str - Integer.BYTES));
+        message.putByte((byte) 0);
+        return str;
+    }
+
+    /**
+     * Writes vtable and zeroed inline fields of the table. The vtable precedes the table,
+     * so that the table is 8-byte aligned and all offsets to the children point forward.
+     */
+    private long fbTable(int inlineSize, int[] slots) {
+        final int vtableSize = 2 * Short.BYTES + Short.BYTES * slots.length;
+        fbPad(Long.BYTES, vtableSize);
+        final long vtable = message.getAppendOffset();
+        message.putShort((short) vtableSize);
+        message.putShort((short) inlineSize);
+        for (int slot : slots) {
+            message.putShort((short) slot);
+        }
+        final long table = message.getAppendOffset();
+        Vect.memset(message.appendAddressFor(inlineSize), inlineSize, 0);
+        message.putInt(table, (int) (table - vtable));
+        return table;
+    }
+
+    private long fbVector(int count, int elementSize, int alignment) {
+        fbPad(alignment, Integer.BYTES);
+        final long vector = message.getAppendOffset();
+        message.putInt(count);
+        final long size = (long) count * elementSize;
+        Vect.memset(message.appendAddressFor(size), size, 0);
+        return vector;
+    }
+
+    private void putFieldType(long fieldTable, int columnType) {
+        final byte typeId;
+        final long typeTable;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                typeId = TYPE_BOOL;
+                typeTable = fbTable(Integer.BYTES, EMPTY_SLOTS);
+                break;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                typeId = TYPE_INT;
+                typeTable = fbTable(INT_SIZE, INT_SLOTS);
+                message.putInt(typeTable + 4, ColumnType.sizeOf(columnType) * Byte.SIZE);
+                // signed
+                message.putByte(typeTable + 8, (byte) 1);
+                break;
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                typeId = TYPE_FLOATING_POINT;
+                typeTable = fbTable(UNIT_SIZE, UNIT_SLOTS);
+                message.putShort(typeTable + 4, ColumnType.isDouble(columnType) ? PRECISION_DOUBLE : PRECISION_SINGLE);
+                break;
+            case ColumnType.DATE:
+                typeId = TYPE_DATE;
+                typeTable = fbTable(UNIT_SIZE, UNIT_SLOTS);
+                message.putShort(typeTable + 4, DATE_UNIT_MILLISECOND);
+                break;
+            case ColumnType.TIMESTAMP:
+                typeId = TYPE_TIMESTAMP;
+                typeTable = fbTable(TIMESTAMP_SIZE, TIMESTAMP_SLOTS);
+                message.putShort(typeTable + 4, TIME_UNIT_MICROSECOND);
+                fbOffset(typeTable + 8, fbString("UTC"));
+                break;
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+                typeId = TYPE_FIXED_SIZE_BINARY;
+                typeTable = fbTable(FIXED_SIZE_BINARY_SIZE, FIXED_SIZE_BINARY_SLOTS);
+                message.putInt(typeTable + 4, 2 * Long.BYTES);
+                break;
+            case ColumnType.BINARY:
+                typeId = TYPE_BINARY;
+                typeTable = fbTable(Integer.BYTES, EMPTY_SLOTS);
+                break;
+            default:
+                typeId = encodingOf(columnType) == ENC_VAR ? TYPE_UTF8 : TYPE_NULL;
+                typeTable = fbTable(Integer.BYTES, EMPTY_SLOTS);
+                break;
+        }
+        message.putByte(fieldTable + 9, typeId);
+        fbOffset(fieldTable + 12, typeTable);
+    }
+
+    private void putFrameBits(long pageAddress, int columnIndex, long lo, int rowCount) {
+        final long bits = dataBuffers.getQuick(columnIndex).appendAddressFor((rowCount + 7) >>> 3);
+        if (pageAddress == 0) {
+            Vect.memset(bits, (rowCount + 7) >>> 3, 0);
+            return;
+        }
+        final long address = pageAddress + lo;
+        for (int i = 0; i < rowCount; i += 8) {
+            int b = 0;
+            for (int j = 0, n = Math.min(8, rowCount - i); j < n; j++) {
+                if (Unsafe.getUnsafe().getByte(address + i + j) != 0) {
+                    b |= 1 << j;
+                }
+            }
+            Unsafe.getUnsafe().putByte(bits + (i >>> 3), (byte) b);
+        }
+    }
+
+    private void putFrameValues(long pageAddress, int columnIndex, int columnType, long lo, int rowCount) {
+        final int columnTag = ColumnType.tagOf(columnType);
+        final int shift = ColumnType.pow2SizeOf(columnType);
+        final boolean nullable = columnTag != ColumnType.BYTE && columnTag != ColumnType.SHORT;
+        final int validitySize = (rowCount + 7) >>> 3;
+        final long validity = nullable ? validityBuffers.getQuick(columnIndex).appendAddressFor(validitySize) : 0;
+
+        if (pageAddress == 0) {
+            // column top, the values are nulls, or zeros for the types without nulls
+            final long size = (long) rowCount << shift;
+            Vect.memset(dataBuffers.getQuick(columnIndex).appendAddressFor(size), size, 0);
+            if (nullable) {
+                Vect.memset(validity, validitySize, 0);
+                nullCounts.setQuick(columnIndex, rowCount);
+            }
+            return;
+        }
+
+        final long address = pageAddress + (lo << shift);
+        frameDataAddresses.setQuick(columnIndex, address);
+        final long nullCount;
+        switch (columnTag) {
+            case ColumnType.INT:
+                nullCount = putIntValidity(validity, address, rowCount);
+                break;
+            case ColumnType.FLOAT:
+                nullCount = putFloatValidity(validity, address, rowCount);
+                break;
+            case ColumnType.DOUBLE:
+                nullCount = putDoubleValidity(validity, address, rowCount);
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                nullCount = putLongValidity(validity, address, rowCount);
+                break;
+            default:
+                nullCount = 0;
+                break;
+        }
+        nullCounts.setQuick(columnIndex, nullCount);
+    }
+
+    private void putGeoHash(MemoryCARW data, int columnIndex, int columnType, long value, int row) {
+        if (value != GeoHashes.NULL) {
+            final int bitFlags = GeoHashes.getBitFlags(columnType);
+            if (bitFlags < 0) {
+                GeoHashes.appendCharsUnsafe(value, -bitFlags, utf8Sink.of(data));
+            } else {
+                GeoHashes.appendBinaryStringUnsafe(value, bitFlags, utf8Sink.of(data));
+            }
+        }
+        putVarValue(data, columnIndex, row, value != GeoHashes.NULL);
+    }
+
+    private void putValidity(int columnIndex, int row, boolean valid) {
+        putBit(validityBuffers.getQuick(columnIndex), row, valid);
+        if (!valid) {
+            nullCounts.increment(columnIndex);
+        }
+    }
+
+    private void putValue(Record record, int columnIndex, int columnType, int row) {
+        final MemoryCARW data = dataBuffers.getQuiet(columnIndex);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                putBit(data, row, record.getBool(columnIndex));
+                break;
+            case ColumnType.BYTE:
+                data.putByte(record.getByte(columnIndex));
+                putValidity(columnIndex, row, true);
+                break;
+            case ColumnType.SHORT:
+                data.putShort(record.getShort(columnIndex));
+                putValidity(columnIndex, row, true);
+                break;
+            case ColumnType.INT:
+                final int i = record.getInt(columnIndex);
+                data.putInt(i);
+                putValidity(columnIndex, row, i != Numbers.INT_NaN);
+                break;
+            case ColumnType.LONG:
+                final long l = record.getLong(columnIndex);
+                data.putLong(l);
+                putValidity(columnIndex, row, l != Numbers.LONG_NaN);
+                break;
+            case ColumnType.DATE:
+                final long date = record.getDate(columnIndex);
+                data.putLong(date);
+                putValidity(columnIndex, row, date != Numbers.LONG_NaN);
+                break;
+            case ColumnType.TIMESTAMP:
+                final long ts = record.getTimestamp(columnIndex);
+                data.putLong(ts);
+                putValidity(columnIndex, row, ts != Numbers.LONG_NaN);
+                break;
+            case ColumnType.FLOAT:
+                final float f = record.getFloat(columnIndex);
+                data.putFloat(f);
+                putValidity(columnIndex, row, f == f);
+                break;
+            case ColumnType.DOUBLE:
+                final double d = record.getDouble(columnIndex);
+                data.putDouble(d);
+                putValidity(columnIndex, row, d == d);
+                break;
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+                final long lo = record.getLong128Lo(columnIndex);
+                final long hi = record.getLong128Hi(columnIndex);
+                // big-endian, the same byte order as in the text form
+                data.putLong(Long.reverseBytes(hi));
+                data.putLong(Long.reverseBytes(lo));
+                putValidity(columnIndex, row, !Uuid.isNull(lo, hi));
+                break;
+            case ColumnType.CHAR:
+                final char c = record.getChar(columnIndex);
+                if (c > 0) {
+                    utf8Sink.of(data).putUtf8(c);
+                }
+                putVarValue(data, columnIndex, row, c > 0);
+                break;
+            case ColumnType.STRING:
+                putVarValue(data, columnIndex, row, record.getStr(columnIndex));
+                break;
+            case ColumnType.SYMBOL:
+                putVarValue(data, columnIndex, row, record.getSym(columnIndex));
+                break;
+            case ColumnType.LONG256:
+                final long offset = data.getAppendOffset();
+                record.getLong256(columnIndex, utf8Sink.of(data));
+                putVarValue(data, columnIndex, row, data.getAppendOffset() > offset);
+                break;
+            case ColumnType.GEOBYTE:
+                putGeoHash(data, columnIndex, columnType, record.getGeoByte(columnIndex), row);
+                break;
+            case ColumnType.GEOSHORT:
+                putGeoHash(data, columnIndex, columnType, record.getGeoShort(columnIndex), row);
+                break;
+            case ColumnType.GEOINT:
+                putGeoHash(data, columnIndex, columnType, record.getGeoInt(columnIndex), row);
+                break;
+            case ColumnType.GEOLONG:
+                putGeoHash(data, columnIndex, columnType, record.getGeoLong(columnIndex), row);
+                break;
+            case ColumnType.BINARY:
+                final BinarySequence bin = record.getBin(columnIndex);
+                if (bin != null) {
+                    final long len = bin.length();
+                    bin.copyTo(data.appendAddressFor(len), 0, len);
+                }
+                putVarValue(data, columnIndex, row, bin != null);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void putVarValue(MemoryCARW data, int columnIndex, int row, CharSequence value) {
+        if (value != null) {
+            utf8Sink.of(data).encodeUtf8(value);
+        }
+        putVarValue(data, columnIndex, row, value != null);
+    }
+
+    private void putVarValue(MemoryCARW data, int columnIndex, int row, boolean valid) {
+        final long size = data.getAppendOffset();
+        offsetBuffers.getQuick(columnIndex).putInt((int) size);
+        putValidity(columnIndex, row, valid);
+        varDataSize = Math.max(varDataSize, size);
+    }
+
+    private void resetBatch() {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int encoding = encodings.getQuick(i);
+            if (encoding == ENC_FIXED || encoding == ENC_VAR) {
+                validityBuffers.getQuick(i).jumpTo(0);
+            }
+            if (encoding == ENC_VAR) {
+                final MemoryCARW offsets = offsetBuffers.getQuick(i);
+                offsets.jumpTo(0);
+                offsets.putInt(0);
+            }
+            if (encoding != ENC_NULL) {
+                dataBuffers.getQuick(i).jumpTo(0);
+            }
+            nullCounts.setQuick(i, 0);
+            frameDataAddresses.setQuick(i, 0);
+        }
+        batchRowCount = 0;
+        varDataSize = 0;
+    }
+
+    private void resetSegments() {
+        segments.clear();
+        segmentIndex = 0;
+        segmentOffset = 0;
+    }
+
+    private static class Utf8Sink extends AbstractCharSink {
+        private MemoryCARW mem;
+
+        @Override
+        public CharSink put(CharSequence cs) {
+            for (int i = 0, n = cs.length(); i < n; i++) {
+                put(cs.charAt(i));
+            }
+            return this;
+        }
+
+        @Override
+        public CharSink put(char c) {
+            mem.putByte((byte) c);
+            return this;
+        }
+
+        Utf8Sink of(MemoryCARW mem) {
+            this.mem = mem;
+            return this;
+        }
+    }
+}
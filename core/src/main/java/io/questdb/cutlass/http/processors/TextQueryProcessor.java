@@ -27,8 +27,11 @@ package io.questdb.cutlass.http.processors;
 import io.questdb.Metrics;
 import io.questdb.TelemetryOrigin;
 import io.questdb.cairo.*;
+import io.questdb.cairo.sql.DataFrameCursorFactory;
 import io.questdb.cairo.sql.NetworkSqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.PageFrame;
 import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
 import io.questdb.cutlass.http.*;
 import io.questdb.cutlass.text.TextUtil;
@@ -55,6 +58,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     // Being asynchronous we may need to be able to return factory to the cache
     // by the same thread that executes the dispatcher.
     private static final LocalValue<TextQueryProcessorState> LV = new LocalValue<>();
+    private final CairoConfiguration cairoConfiguration;
     private final NetworkSqlExecutionCircuitBreaker circuitBreaker;
     private final MillisecondClock clock;
     private final SqlCompiler compiler;
@@ -82,6 +86,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             @Nullable DatabaseSnapshotAgent snapshotAgent
     ) {
         this.configuration = configuration;
+        this.cairoConfiguration = engine.getConfiguration();
         this.compiler = configuration.getFactoryProvider().getSqlCompilerFactory().getInstance(engine, functionFactoryCache, snapshotAgent);
         this.floatScale = configuration.getFloatScale();
         this.clock = configuration.getClock();
@@ -139,7 +144,11 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                     boolean runQuery = true;
                     for (int retries = 0; runQuery; retries++) {
                         try {
-                            state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            if (state.arrow && isPageFrameExport(state.recordCursorFactory)) {
+                                state.pageFrameCursor = state.recordCursorFactory.getPageFrameCursor(sqlExecutionContext, DataFrameCursorFactory.ORDER_ASC);
+                            } else {
+                                state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            }
                             runQuery = false;
                         } catch (TableReferenceOutOfDateException e) {
                             if (retries == TableReferenceOutOfDateException.MAX_RETRY_ATTEMPS) {
@@ -156,6 +165,13 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                         }
                     }
                     state.metadata = state.recordCursorFactory.getMetadata();
+                    if (state.arrow) {
+                        final ArrowStreamEncoder encoder = state.getArrowEncoder(cairoConfiguration);
+                        encoder.of(state.metadata);
+                        if (state.pageFrameCursor != null) {
+                            encoder.ofFrames(state.pageFrameCursor);
+                        }
+                    }
                     header(context.getChunkedResponseSocket(), state, 200);
                     doResumeSend(context);
                 } catch (CairoException e) {
@@ -235,6 +251,48 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                 && (tok.charAt(i) | 32) == 'p';
     }
 
+    private static boolean isPageFrameExport(RecordCursorFactory factory) {
+        return factory.supportPageFrameCursor() && factory.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD;
+    }
+
+    private static boolean putArrowFrameBatch(TextQueryProcessorState state, ArrowStreamEncoder encoder) {
+        while (state.frameRowLo >= state.frameRowHi) {
+            if (state.count >= state.stop) {
+                return false;
+            }
+            final PageFrame frame = state.pageFrameCursor.next();
+            if (frame == null) {
+                return false;
+            }
+            // apply the limit to the rows of the frame
+            final long rowCount = frame.getPartitionHi() - frame.getPartitionLo();
+            state.frame = frame;
+            state.frameRowLo = Math.max(0, Math.min(rowCount, state.skip - state.count));
+            state.frameRowHi = Math.max(0, Math.min(rowCount, state.stop - state.count));
+            state.count += rowCount;
+            encoder.putFrame(frame);
+        }
+        final long hi = Math.min(state.frameRowHi, state.frameRowLo + ArrowStreamEncoder.MAX_BATCH_ROWS);
+        encoder.putFrameRows(state.frame, state.frameRowLo, hi);
+        state.frameRowLo = hi;
+        return true;
+    }
+
+    private static boolean putArrowRecordBatch(TextQueryProcessorState state, ArrowStreamEncoder encoder) {
+        final Record record = state.cursor.getRecord();
+        // rows of the batch are kept by the encoder when the query is paused
+        while (!encoder.isBatchFull() && state.count < state.stop && state.cursor.hasNext()) {
+            if (++state.count > state.skip) {
+                encoder.putRecord(record);
+            }
+        }
+        if (encoder.getBatchRowCount() > 0) {
+            encoder.putRecordBatch();
+            return true;
+        }
+        return false;
+    }
+
     private static void putGeoHashStringValue(HttpChunkedResponseSocket socket, long value, int type) {
         if (value == GeoHashes.NULL) {
             socket.put("null");
@@ -270,6 +328,22 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                 .$(", totalBytesSent=").$(context.getTotalBytesSent()).I$();
     }
 
+    private static void sendArrowBytes(
+            HttpChunkedResponseSocket socket,
+            ArrowStreamEncoder encoder
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        while (encoder.hasPendingBytes()) {
+            final long lo = encoder.getPendingLo();
+            final long hi = encoder.getPendingHi();
+            final int n = socket.putBytes(lo, hi);
+            encoder.skipPendingBytes(n);
+            socket.bookmark();
+            if (n < hi - lo) {
+                socket.sendChunk(false);
+            }
+        }
+    }
+
     private LogRecord critical(TextQueryProcessorState state) {
         return LOG.critical().$('[').$(state.getFd()).$("] ");
     }
@@ -278,7 +352,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             HttpConnectionContext context
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
         TextQueryProcessorState state = LV.get(context);
-        if (state == null || state.cursor == null) {
+        if (state == null || (state.cursor == null && state.pageFrameCursor == null)) {
             return;
         }
 
@@ -293,6 +367,12 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
 
         final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        if (state.arrow) {
+            doResumeSendArrow(socket, state);
+            readyForNextRequest(context);
+            return;
+        }
+
         final int columnCount = state.metadata.getColumnCount();
 
         OUT:
@@ -391,6 +471,57 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         readyForNextRequest(context);
     }
 
+    private void doResumeSendArrow(
+            HttpChunkedResponseSocket socket,
+            TextQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
+        final ArrowStreamEncoder encoder = state.arrowEncoder;
+        try {
+            while (true) {
+                switch (state.queryState) {
+                    case JsonQueryProcessorState.QUERY_PREFIX:
+                        encoder.putSchema();
+                        state.queryState = JsonQueryProcessorState.QUERY_METADATA;
+                        // fall through
+                    case JsonQueryProcessorState.QUERY_METADATA:
+                        // schema message is being sent
+                        sendArrowBytes(socket, encoder);
+                        state.queryState = JsonQueryProcessorState.QUERY_RECORD_START;
+                        // fall through
+                    case JsonQueryProcessorState.QUERY_RECORD_START:
+                        final boolean hasBatch = state.pageFrameCursor != null
+                                ? putArrowFrameBatch(state, encoder)
+                                : putArrowRecordBatch(state, encoder);
+                        if (hasBatch) {
+                            state.queryState = JsonQueryProcessorState.QUERY_RECORD;
+                        } else {
+                            encoder.putEndOfStream();
+                            state.queryState = JsonQueryProcessorState.QUERY_RECORD_SUFFIX;
+                        }
+                        break;
+                    case JsonQueryProcessorState.QUERY_RECORD:
+                        // record batch message is being sent
+                        sendArrowBytes(socket, encoder);
+                        state.queryState = JsonQueryProcessorState.QUERY_RECORD_START;
+                        break;
+                    case JsonQueryProcessorState.QUERY_RECORD_SUFFIX:
+                        // end-of-stream marker is being sent
+                        sendArrowBytes(socket, encoder);
+                        state.queryState = JsonQueryProcessorState.QUERY_SUFFIX;
+                        // fall through
+                    case JsonQueryProcessorState.QUERY_SUFFIX:
+                        sendDone(socket, state);
+                        return;
+                    default:
+                        return;
+                }
+            }
+        } catch (DataUnavailableException e) {
+            socket.resetToBookmark();
+            throw QueryPausedException.instance(e.getEvent(), sqlExecutionContext.getCircuitBreaker());
+        }
+    }
+
     private LogRecord error(TextQueryProcessorState state) {
         return LOG.error().$('[').$(state.getFd()).$("] ");
     }
@@ -516,6 +647,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         state.stop = stop;
         state.noMeta = Chars.equalsNc("true", request.getUrlParam("nm"));
         state.countRows = Chars.equalsNc("true", request.getUrlParam("count"));
+        state.arrow = Chars.equalsNc("arrow", request.getUrlParam("fmt"));
         return true;
     }
 
@@ -650,11 +782,18 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             TextQueryProcessorState state,
             int statusCode
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        socket.status(statusCode, "text/csv; charset=utf-8");
+        final String extension;
+        if (state.arrow) {
+            socket.status(statusCode, "application/vnd.apache.arrow.stream");
+            extension = ".arrows\"";
+        } else {
+            socket.status(statusCode, "text/csv; charset=utf-8");
+            extension = ".csv\"";
+        }
         if (state.fileName != null && state.fileName.length() > 0) {
-            socket.headers().put("Content-Disposition: attachment; filename=\"").put(state.fileName).put(".csv\"").put(Misc.EOL);
+            socket.headers().put("Content-Disposition: attachment; filename=\"").put(state.fileName).put(extension).put(Misc.EOL);
         } else {
-            socket.headers().put("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).put(".csv\"").put(Misc.EOL);
+            socket.headers().put("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).put(extension).put(Misc.EOL);
         }
         socket.headers().setKeepAlive(configuration.getKeepAliveHeader());
         socket.sendHeader();
@@ -24,6 +24,9 @@
 
 package io.questdb.cutlass.http.processors;
 
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameCursor;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -39,14 +42,20 @@ import java.io.Closeable;
 public class TextQueryProcessorState implements Mutable, Closeable {
     final StringSink query = new StringSink();
     private final HttpConnectionContext httpConnectionContext;
+    boolean arrow = false;
+    ArrowStreamEncoder arrowEncoder;
     int columnIndex;
     long count;
     boolean countRows = false;
     RecordCursor cursor;
     char delimiter = ',';
     String fileName;
+    PageFrame frame;
+    long frameRowHi;
+    long frameRowLo;
     RecordMetadata metadata;
     boolean noMeta = false;
+    PageFrameCursor pageFrameCursor;
     boolean pausedQuery = false;
     int queryState = JsonQueryProcessorState.QUERY_PREFIX;
     Record record;
@@ -67,6 +76,14 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         metadata = null;
         rnd = null;
         record = null;
+        if (arrowEncoder != null) {
+            arrowEncoder.clear();
+        }
+        arrow = false;
+        frame = null;
+        frameRowLo = 0;
+        frameRowHi = 0;
+        pageFrameCursor = Misc.free(pageFrameCursor);
         cursor = Misc.free(cursor);
         if (null != recordCursorFactory) {
             if (queryCacheable) {
@@ -90,6 +107,8 @@ public class TextQueryProcessorState implements Mutable, Closeable {
 
     @Override
     public void close() {
+        arrowEncoder = Misc.free(arrowEncoder);
+        pageFrameCursor = Misc.free(pageFrameCursor);
         cursor = Misc.free(cursor);
         recordCursorFactory = Misc.free(recordCursorFactory);
     }
@@ -98,6 +117,13 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         return httpConnectionContext.getFd();
     }
 
+    ArrowStreamEncoder getArrowEncoder(CairoConfiguration configuration) {
+        if (arrowEncoder == null) {
+            arrowEncoder = new ArrowStreamEncoder(configuration);
+        }
+        return arrowEncoder;
+    }
+
     void setQueryCacheable(boolean queryCacheable) {
         this.queryCacheable = queryCacheable;
     }
@@ -0,0 +1,406 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.CommitFailedException;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.TableWriterAPI;
+import io.questdb.cairo.sql.TableRecordMetadata;
+import io.questdb.cutlass.line.LineProtoTimestampAdapter;
+import io.questdb.cutlass.line.tcp.LineTcpParser.ParseResult;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Binary column batch, an alternative framing of the line protocol that carries many rows of
+ * a single table column by column. Batches can be sent on the same connection as text lines,
+ * the server tells them apart by the first byte of a measurement, which is never zero for text.
+ * <p>
+ * All numbers are little-endian:
+ * <pre>
+ * byte    frame marker, always 0
+ * byte    frame version, always 1
+ * int     frame size in bytes, including the marker, version and the size itself
+ * short   table name length, followed by the UTF-8 table name
+ * int     row count
+ * long[]  designated timestamps, one per row, in the precision of line.tcp.timestamp;
+ *         Long.MIN_VALUE is replaced with the server time
+ * short   column count, followed by the columns:
+ *   short   column name length, followed by the UTF-8 column name
+ *   byte    column type, the {@link ColumnType} tag of BOOLEAN, BYTE, SHORT, CHAR, INT, LONG,
+ *           DATE, TIMESTAMP, FLOAT, DOUBLE or SYMBOL
+ *   fixed width types: one value per row, nulls use the column type's null value
+ *   SYMBOL: int dictionary size, followed by the dictionary entries, each an int length
+ *           and UTF-8 bytes; then one int key per row, -1 for null
+ * </pre>
+ * Columns are matched to the table by name and created with the batch column type when missing.
+ * Existing columns must be of the same type as the batch column.
+ */
+public class LineTcpColumnBatch {
+    public static final byte FRAME_MARKER = 0;
+    public static final byte FRAME_VERSION = 1;
+    private static final int FRAME_HEADER_SIZE = 2 * Byte.BYTES + Integer.BYTES;
+    private static final Log LOG = LogFactory.getLog(LineTcpColumnBatch.class);
+    private final LongList columnAddresses = new LongList();
+    private final IntList columnIndexes = new IntList();
+    private final ObjList<DirectByteCharSequence> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final StringSink nameSink = new StringSink();
+    private final LongList symbolDictionaryAddresses = new LongList();
+    private final IntList symbolDictionarySizes = new IntList();
+    private final IntList symbolValueOffsets = new IntList();
+    private final ObjList<StringSink> symbolValues = new ObjList<>();
+    private final DirectByteCharSequence tableName = new DirectByteCharSequence();
+    private int columnCount;
+    private long frameAddress;
+    private int frameSize;
+    private int rowCount;
+    private long timestampAddress;
+
+    public static boolean isColumnBatch(long address) {
+        return Unsafe.getUnsafe().getByte(address) == FRAME_MARKER;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public DirectByteCharSequence getColumnName(int columnIndex) {
+        return columnNames.getQuick(columnIndex);
+    }
+
+    public int getColumnType(int columnIndex) {
+        return columnTypes.getQuick(columnIndex);
+    }
+
+    public long getFrameAddress() {
+        return frameAddress;
+    }
+
+    /**
+     * @return size of the frame in bytes, or -1 when the frame header has not been received yet
+     */
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public DirectByteCharSequence getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Reads the frame starting at the given address. The whole frame is validated here,
+     * so that a malformed batch is rejected before any of its rows is written.
+     *
+     * @param lo address of the frame marker
+     * @param hi end of the received data
+     * @return MEASUREMENT_COMPLETE when the whole frame has been read, BUFFER_UNDERFLOW when more data is needed
+     * @throws CairoException when the frame is malformed, the connection cannot be resynchronised after this
+     */
+    public ParseResult of(long lo, long hi) {
+        frameAddress = lo;
+        frameSize = -1;
+        rowCount = 0;
+        columnCount = 0;
+        if (hi - lo < FRAME_HEADER_SIZE) {
+            return ParseResult.BUFFER_UNDERFLOW;
+        }
+        final byte version = Unsafe.getUnsafe().getByte(lo + Byte.BYTES);
+        if (version != FRAME_VERSION) {
+            throw malformed("unsupported version").put(", version=").put(version).put(']');
+        }
+        final int size = Unsafe.getUnsafe().getInt(lo + 2 * Byte.BYTES);
+        if (size < FRAME_HEADER_SIZE) {
+            throw malformed("invalid frame size").put(", frameSize=").put(size).put(']');
+        }
+        frameSize = size;
+        if (hi - lo < size) {
+            return ParseResult.BUFFER_UNDERFLOW;
+        }
+        parseFrame(lo + FRAME_HEADER_SIZE, lo + size);
+        return ParseResult.MEASUREMENT_COMPLETE;
+    }
+
+    private static CairoException malformed(String reason) {
+        return CairoException.nonCritical().put("malformed column batch [error=").put(reason);
+    }
+
+    private static long require(long address, long length, long hi) {
+        if (length < 0 || address + length > hi) {
+            throw malformed("frame is truncated").put(']');
+        }
+        return address;
+    }
+
+    private void decodeSymbols() {
+        int valueCount = 0;
+        for (int i = 0; i < columnCount; i++) {
+            if (columnTypes.getQuick(i) != ColumnType.SYMBOL) {
+                continue;
+            }
+            symbolValueOffsets.setQuick(i, valueCount);
+            long address = symbolDictionaryAddresses.getQuick(i);
+            for (int j = 0, n = symbolDictionarySizes.getQuick(i); j < n; j++, valueCount++) {
+                final int length = Unsafe.getUnsafe().getInt(address);
+                address += Integer.BYTES;
+                if (valueCount == symbolValues.size()) {
+                    symbolValues.add(new StringSink());
+                }
+                final StringSink sink = symbolValues.getQuick(valueCount);
+                sink.clear();
+                if (!Chars.utf8toUtf16(address, address + length, sink)) {
+                    throw CairoException.nonCritical().put("invalid UTF-8 in symbol value [column=").put(getColumnName(i)).put(']');
+                }
+                address += length;
+            }
+        }
+    }
+
+    private void parseFrame(long p, long hi) {
+        final int tableNameLength = Unsafe.getUnsafe().getShort(require(p, Short.BYTES, hi));
+        p += Short.BYTES;
+        if (tableNameLength < 1) {
+            throw malformed("empty table name").put(']');
+        }
+        tableName.of(require(p, tableNameLength, hi), p + tableNameLength);
+        p += tableNameLength;
+
+        rowCount = Unsafe.getUnsafe().getInt(require(p, Integer.BYTES, hi));
+        p += Integer.BYTES;
+        if (rowCount < 0) {
+            throw malformed("invalid row count").put(", rowCount=").put(rowCount).put(']');
+        }
+        timestampAddress = require(p, (long) rowCount * Long.BYTES, hi);
+        p += (long) rowCount * Long.BYTES;
+
+        final int count = Unsafe.getUnsafe().getShort(require(p, Short.BYTES, hi));
+        p += Short.BYTES;
+        if (count < 0) {
+            throw malformed("invalid column count").put(", columnCount=").put(count).put(']');
+        }
+        columnAddresses.setPos(count);
+        columnIndexes.setPos(count);
+        columnTypes.setPos(count);
+        symbolDictionaryAddresses.setPos(count);
+        symbolDictionarySizes.setPos(count);
+        symbolValueOffsets.setPos(count);
+        for (int i = 0; i < count; i++) {
+            final int nameLength = Unsafe.getUnsafe().getShort(require(p, Short.BYTES, hi));
+            p += Short.BYTES;
+            if (nameLength < 1) {
+                throw malformed("empty column name").put(", column=").put(i).put(']');
+            }
+            if (i == columnNames.size()) {
+                columnNames.add(new DirectByteCharSequence());
+            }
+            columnNames.getQuick(i).of(require(p, nameLength, hi), p + nameLength);
+            p += nameLength;
+
+            final byte type = Unsafe.getUnsafe().getByte(require(p, Byte.BYTES, hi));
+            p += Byte.BYTES;
+            columnTypes.setQuick(i, type);
+            switch (type) {
+                case ColumnType.BOOLEAN:
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.CHAR:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE: {
+                    final long length = (long) rowCount * ColumnType.sizeOf(type);
+                    columnAddresses.setQuick(i, require(p, length, hi));
+                    p += length;
+                    break;
+                }
+                case ColumnType.SYMBOL: {
+                    final int dictionarySize = Unsafe.getUnsafe().getInt(require(p, Integer.BYTES, hi));
+                    p += Integer.BYTES;
+                    if (dictionarySize < 0) {
+                        throw malformed("invalid symbol dictionary size").put(", column=").put(getColumnName(i)).put(']');
+                    }
+                    symbolDictionaryAddresses.setQuick(i, p);
+                    symbolDictionarySizes.setQuick(i, dictionarySize);
+                    for (int j = 0; j < dictionarySize; j++) {
+                        final int length = Unsafe.getUnsafe().getInt(require(p, Integer.BYTES, hi));
+                        p += Integer.BYTES;
+                        require(p, length, hi);
+                        p += length;
+                    }
+                    final long keysAddress = require(p, (long) rowCount * Integer.BYTES, hi);
+                    for (int r = 0; r < rowCount; r++) {
+                        final int key = Unsafe.getUnsafe().getInt(keysAddress + (long) r * Integer.BYTES);
+                        if (key < -1 || key >= dictionarySize) {
+                            throw malformed("symbol key is out of dictionary bounds").put(", column=").put(getColumnName(i))
+                                    .put(", key=").put(key)
+                                    .put(']');
+                        }
+                    }
+                    columnAddresses.setQuick(i, keysAddress);
+                    p += (long) rowCount * Integer.BYTES;
+                    break;
+                }
+                default:
+                    throw malformed("unsupported column type").put(", column=").put(getColumnName(i))
+                            .put(", type=").put(type)
+                            .put(']');
+            }
+        }
+        if (p != hi) {
+            throw malformed("unexpected bytes after the last column").put(']');
+        }
+        columnCount = count;
+    }
+
+    private void resolveColumns(TableWriterAPI writer) throws CommitFailedException {
+        for (int i = 0; i < columnCount; i++) {
+            nameSink.clear();
+            final DirectByteCharSequence columnNameUtf8 = getColumnName(i);
+            Chars.utf8toUtf16(columnNameUtf8.getLo(), columnNameUtf8.getHi(), nameSink);
+            final int type = columnTypes.getQuick(i);
+            TableRecordMetadata metadata = writer.getMetadata();
+            int columnIndex = metadata.getColumnIndexQuiet(nameSink);
+            if (columnIndex < 0) {
+                // the I/O thread has checked that the column can be created,
+                // commit first as WalWriter does not do that when a column is added
+                writer.commit();
+                try {
+                    writer.addColumn(nameSink, type);
+                } catch (CairoException e) {
+                    if (writer.getMetadata().getColumnIndexQuiet(nameSink) < 0) {
+                        // the column is still not there, something must be wrong
+                        throw e;
+                    }
+                    // all good, someone added the column concurrently
+                }
+                metadata = writer.getMetadata();
+                columnIndex = metadata.getColumnIndexQuiet(nameSink);
+            }
+            if (columnIndex == metadata.getTimestampIndex()) {
+                throw CairoException.nonCritical().put("designated timestamp cannot be a column of a column batch [column=").put(nameSink).put(']');
+            }
+            final int columnType = metadata.getColumnType(columnIndex);
+            if (ColumnType.tagOf(columnType) != type) {
+                throw LineTcpMeasurementEvent.castError("column batch " + ColumnType.nameOf(type), columnIndex, columnType, nameSink);
+            }
+            columnIndexes.setQuick(i, columnIndex);
+        }
+    }
+
+    /**
+     * Writes rows of the batch read by the last call to {@link #of(long, long)}. Must be called
+     * by the thread that owns the table's writer. A row that cannot be written stops the batch,
+     * rows before it are kept.
+     */
+    void appendTo(TableUpdateDetails tud, LineProtoTimestampAdapter timestampAdapter, MicrosecondClock clock, int workerId) throws CommitFailedException {
+        final TableWriterAPI writer = tud.getWriter();
+        TableWriter.Row row = null;
+        try {
+            resolveColumns(writer);
+            decodeSymbols();
+            for (int r = 0; r < rowCount; r++) {
+                long timestamp = Unsafe.getUnsafe().getLong(timestampAddress + (long) r * Long.BYTES);
+                if (timestamp != LineTcpParser.NULL_TIMESTAMP) {
+                    timestamp = timestampAdapter.getMicros(timestamp);
+                } else {
+                    timestamp = clock.getTicks();
+                }
+                row = writer.newRow(timestamp);
+                for (int i = 0; i < columnCount; i++) {
+                    final int columnIndex = columnIndexes.getQuick(i);
+                    final long address = columnAddresses.getQuick(i);
+                    switch (columnTypes.getQuick(i)) {
+                        case ColumnType.BOOLEAN:
+                            row.putBool(columnIndex, Unsafe.getUnsafe().getByte(address + r) != 0);
+                            break;
+                        case ColumnType.BYTE:
+                            row.putByte(columnIndex, Unsafe.getUnsafe().getByte(address + r));
+                            break;
+                        case ColumnType.SHORT:
+                            row.putShort(columnIndex, Unsafe.getUnsafe().getShort(address + (long) r * Short.BYTES));
+                            break;
+                        case ColumnType.CHAR:
+                            row.putChar(columnIndex, Unsafe.getUnsafe().getChar(address + (long) r * Character.BYTES));
+                            break;
+                        case ColumnType.INT:
+                            row.putInt(columnIndex, Unsafe.getUnsafe().getInt(address + (long) r * Integer.BYTES));
+                            break;
+                        case ColumnType.LONG:
+                            row.putLong(columnIndex, Unsafe.getUnsafe().getLong(address + (long) r * Long.BYTES));
+                            break;
+                        case ColumnType.DATE:
+                            row.putDate(columnIndex, Unsafe.getUnsafe().getLong(address + (long) r * Long.BYTES));
+                            break;
+                        case ColumnType.TIMESTAMP:
+                            row.putTimestamp(columnIndex, Unsafe.getUnsafe().getLong(address + (long) r * Long.BYTES));
+                            break;
+                        case ColumnType.FLOAT:
+                            row.putFloat(columnIndex, Unsafe.getUnsafe().getFloat(address + (long) r * Float.BYTES));
+                            break;
+                        case ColumnType.DOUBLE:
+                            row.putDouble(columnIndex, Unsafe.getUnsafe().getDouble(address + (long) r * Double.BYTES));
+                            break;
+                        case ColumnType.SYMBOL: {
+                            final int key = Unsafe.getUnsafe().getInt(address + (long) r * Integer.BYTES);
+                            if (key > -1) {
+                                row.putSym(columnIndex, symbolValues.getQuick(symbolValueOffsets.getQuick(i) + key));
+                            }
+                            break;
+                        }
+                        default:
+                            break;
+                    }
+                }
+                row.append();
+                row = null;
+            }
+            tud.commitIfMaxUncommittedRowsCountReached(workerId);
+        } catch (CommitFailedException commitFailedException) {
+            throw commitFailedException;
+        } catch (Throwable th) {
+            LOG.error()
+                    .$("could not write line protocol column batch [tableName=").$(tud.getTableToken())
+                    .$(", message=").$(th.getMessage())
+                    .$(th)
+                    .I$();
+            if (row != null) {
+                row.cancel();
+            }
+        }
+    }
+}
@@ -48,6 +48,7 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
     protected final NetworkFacade nf;
     private final DirectByteCharSequence byteCharSequence = new DirectByteCharSequence();
     private final long checkIdleInterval;
+    private final LineTcpColumnBatch columnBatch = new LineTcpColumnBatch();
     private final long commitInterval;
     private final LineTcpReceiverConfiguration configuration;
     private final boolean disconnectOnError;
@@ -122,7 +123,7 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         clear();
     }
 
-    public long commitWalTables(long wallClockMillis) {
+    public long commitWalTables(long wallClockMillis, int workerId) {
         long minTableNextCommitTime = Long.MAX_VALUE;
         for (int n = 0, sz = tableUpdateDetailsUtf8.size(); n < sz; n++) {
             final ByteCharSequence tableNameUtf8 = tableUpdateDetailsUtf8.keys().get(n);
@@ -131,7 +132,7 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
             if (tud.isWal()) {
                 final MillisecondClock millisecondClock = tud.getMillisecondClock();
                 try {
-                    long tableNextCommitTime = tud.commitIfIntervalElapsed(wallClockMillis);
+                    long tableNextCommitTime = tud.commitIfIntervalElapsed(wallClockMillis, workerId);
                     // get current time again, commit is not instant and take quite some time.
                     wallClockMillis = millisecondClock.getTicks();
                     if (tableNextCommitTime < minTableNextCommitTime) {
@@ -156,9 +157,9 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         return minTableNextCommitTime != Long.MAX_VALUE ? minTableNextCommitTime : wallClockMillis + commitInterval;
     }
 
-    public void doMaintenance(long now) {
+    public void doMaintenance(long now, int workerId) {
         if (now > nextCommitTime) {
-            nextCommitTime = commitWalTables(now);
+            nextCommitTime = commitWalTables(now, workerId);
         }
 
         if (now > nextCheckIdleTime) {
@@ -176,7 +177,7 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
             read();
             try {
                 IOContextResult parasResult = parseMeasurements(netIoJob);
-                doMaintenance(milliClock.getTicks());
+                doMaintenance(milliClock.getTicks(), netIoJob.getWorkerId());
                 return parasResult;
             } finally {
                 netIoJob.releaseWalTableDetails();
@@ -234,6 +235,14 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         }
     }
 
+    private boolean isColumnBatchStart() {
+        // batches are only recognised where a new measurement starts, a text line never starts with the batch marker
+        return goodMeasurement
+                && parser.getBufferAddress() == recvBufStartOfMeasurement
+                && recvBufStartOfMeasurement < recvBufPos
+                && LineTcpColumnBatch.isColumnBatch(recvBufStartOfMeasurement);
+    }
+
     private void logParseError() {
         int position = (int) (parser.getBufferAddress() - recvBufStartOfMeasurement);
         assert position >= 0;
@@ -246,6 +255,74 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
                 .$();
     }
 
+    /**
+     * Reads and schedules the column batch that starts at the beginning of the current measurement.
+     *
+     * @return null when the batch has been consumed and parsing can carry on, otherwise the result of the I/O call
+     */
+    private IOContextResult parseColumnBatch(NetworkIOJob netIoJob) {
+        while (true) {
+            final ParseResult rc;
+            try {
+                rc = columnBatch.of(recvBufStartOfMeasurement, recvBufPos);
+            } catch (CairoException ex) {
+                // the frame cannot be trusted, there is no way to find where the next measurement starts
+                LOG.error().$('[').$(fd).$("] could not parse column batch [msg=").$(ex.getFlyweightMessage()).I$();
+                return IOContextResult.NEEDS_DISCONNECT;
+            }
+
+            if (rc == ParseResult.MEASUREMENT_COMPLETE) {
+                try {
+                    if (scheduler.scheduleColumnBatch(getSecurityContext(), netIoJob, this, columnBatch)) {
+                        if (checkQueueFullLogHysteresis()) {
+                            LOG.debug().$('[').$(fd).$("] queue full").$();
+                        }
+                        return IOContextResult.QUEUE_FULL;
+                    }
+                } catch (CairoException ex) {
+                    LOG.error()
+                            .$('[').$(fd).$("] could not process column batch [table=").$(columnBatch.getTableName())
+                            .$(", msg=").$(ex.getFlyweightMessage())
+                            .$(", errno=").$(ex.getErrno())
+                            .I$();
+                    if (disconnectOnError) {
+                        return IOContextResult.NEEDS_DISCONNECT;
+                    }
+                }
+                skipColumnBatch();
+                return null;
+            }
+
+            final int frameSize = columnBatch.getFrameSize();
+            if (frameSize > recvBufEnd - recvBufStart) {
+                LOG.error().$('[').$(fd).$("] column batch does not fit receive buffer [frameSize=").$(frameSize)
+                        .$(", line.tcp.msg.buffer.size=").$(recvBufEnd - recvBufStart)
+                        .I$();
+                return IOContextResult.NEEDS_DISCONNECT;
+            }
+            if (recvBufPos == recvBufEnd) {
+                compactBuffer(recvBufStartOfMeasurement);
+            }
+            if (!read()) {
+                if (peerDisconnected) {
+                    return IOContextResult.NEEDS_DISCONNECT;
+                }
+                return IOContextResult.NEEDS_READ;
+            }
+        }
+    }
+
+    private void skipColumnBatch() {
+        final long frameHi = recvBufStartOfMeasurement + columnBatch.getFrameSize();
+        if (frameHi == recvBufPos) {
+            // we ran out of buffer, move to start and start parsing new data from socket
+            recvBufPos = recvBufStart;
+            resetParser();
+        } else {
+            resetParser(frameHi);
+        }
+    }
+
     private void startNewMeasurement() {
         parser.startNextMeasurement();
         recvBufStartOfMeasurement = parser.getBufferAddress();
@@ -297,6 +374,13 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
     protected final IOContextResult parseMeasurements(NetworkIOJob netIoJob) {
         while (true) {
             try {
+                if (isColumnBatchStart()) {
+                    final IOContextResult result = parseColumnBatch(netIoJob);
+                    if (result != null) {
+                        return result;
+                    }
+                    continue;
+                }
                 ParseResult rc = goodMeasurement ? parser.parseMeasurement(recvBufPos) : parser.skipMeasurement(recvBufPos);
                 switch (rc) {
                     case MEASUREMENT_COMPLETE: {
@@ -37,13 +37,12 @@ import static io.questdb.std.Chars.utf8ToUtf16;
 import static io.questdb.std.Chars.utf8ToUtf16Unchecked;
 
 public class LineTcpEventBuffer {
-    private final long bufLo;
-    private final long bufSize;
     private final FloatingDirectCharSink tempSink = new FloatingDirectCharSink();
+    private long bufLo;
+    private long bufSize;
 
     public LineTcpEventBuffer(long bufLo, long bufSize) {
-        this.bufLo = bufLo;
-        this.bufSize = bufLo + bufSize;
+        of(bufLo, bufSize);
     }
 
     public long addBoolean(long address, byte value) {
@@ -67,6 +66,17 @@ public class LineTcpEventBuffer {
         return address + Character.BYTES + Byte.BYTES;
     }
 
+    public long addColumnBatch(long address, long frameLo, int frameSize) {
+        if (address + frameSize > bufSize) {
+            throw CairoException.nonCritical()
+                    .put("column batch does not fit writer queue event [frameSize=").put(frameSize)
+                    .put(", maxFrameSize=").put(bufSize - address)
+                    .put(']');
+        }
+        Vect.memcpy(address, frameLo, frameSize);
+        return address + frameSize;
+    }
+
     public long addColumnIndex(long address, int colIndex) {
         checkCapacity(address, Integer.BYTES);
         Unsafe.getUnsafe().putInt(address, colIndex);
@@ -298,6 +308,11 @@ public class LineTcpEventBuffer {
         return bufLo + 2 * Long.BYTES + Integer.BYTES;
     }
 
+    public void of(long bufLo, long bufSize) {
+        this.bufLo = bufLo;
+        this.bufSize = bufLo + bufSize;
+    }
+
     public byte readByte(long address) {
         return Unsafe.getUnsafe().getByte(address);
     }
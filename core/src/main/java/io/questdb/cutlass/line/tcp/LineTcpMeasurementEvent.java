@@ -25,6 +25,8 @@
 package io.questdb.cutlass.line.tcp;
 
 import io.questdb.cairo.*;
+import io.questdb.cairo.vm.api.MemoryA;
+import io.questdb.cairo.vm.api.MemoryR;
 import io.questdb.cutlass.line.LineProtoTimestampAdapter;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
@@ -42,6 +44,8 @@ import static io.questdb.cutlass.line.tcp.TableUpdateDetails.ThreadLocalDetails.
 
 class LineTcpMeasurementEvent implements Closeable {
     private static final Log LOG = LogFactory.getLog(LineTcpMeasurementEvent.class);
+    // writer thread id, event size, column batch size and two flags
+    private static final int PARKED_EVENT_HEADER_SIZE = 3 * Integer.BYTES + 2;
     private final boolean autoCreateNewColumns;
     private final LineTcpEventBuffer buffer;
     private final MicrosecondClock clock;
@@ -49,7 +53,13 @@ class LineTcpMeasurementEvent implements Closeable {
     private final int maxColumnNameLength;
     private final boolean stringToCharCastAllowed;
     private final LineProtoTimestampAdapter timestampAdapter;
+    // size of the column batch frame carried by the event, zero when the event carries a single measurement
+    private int columnBatchSize;
     private boolean commitOnWriterClose;
+    // number of bytes the event occupies in the buffer
+    private int eventSize;
+    // set when the event refers to columns by name, only the writer can resolve or add them
+    private boolean hasColumnNames;
     private TableUpdateDetails tableUpdateDetails;
     private int writerWorkerId;
 
@@ -121,7 +131,86 @@ class LineTcpMeasurementEvent implements Closeable {
         tableUpdateDetails.releaseWriter(commitOnWriterClose);
     }
 
-    void append() throws CommitFailedException {
+    private long putValue(TableWriter.Row row, int colIndex, byte entityType, long offset) {
+        CharSequence cs;
+        switch (entityType) {
+            case LineTcpParser.ENTITY_TYPE_TAG:
+                cs = buffer.readUtf16Chars(offset);
+                row.putSym(colIndex, cs);
+                offset += cs.length() * 2L + Integer.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_CACHED_TAG:
+                row.putSymIndex(colIndex, buffer.readInt(offset));
+                offset += Integer.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_LONG:
+            case LineTcpParser.ENTITY_TYPE_GEOLONG:
+                row.putLong(colIndex, buffer.readLong(offset));
+                offset += Long.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_INTEGER:
+            case LineTcpParser.ENTITY_TYPE_GEOINT:
+                row.putInt(colIndex, buffer.readInt(offset));
+                offset += Integer.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_SHORT:
+            case LineTcpParser.ENTITY_TYPE_GEOSHORT:
+                row.putShort(colIndex, buffer.readShort(offset));
+                offset += Short.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_BYTE:
+            case LineTcpParser.ENTITY_TYPE_GEOBYTE:
+                row.putByte(colIndex, buffer.readByte(offset));
+                offset += Byte.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_DATE:
+                row.putDate(colIndex, buffer.readLong(offset));
+                offset += Long.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_DOUBLE:
+                row.putDouble(colIndex, buffer.readDouble(offset));
+                offset += Double.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_FLOAT:
+                row.putFloat(colIndex, buffer.readFloat(offset));
+                offset += Float.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_BOOLEAN:
+                row.putBool(colIndex, buffer.readByte(offset) == 1);
+                offset += Byte.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_STRING:
+                cs = buffer.readUtf16Chars(offset);
+                row.putStr(colIndex, cs);
+                offset += cs.length() * 2L + Integer.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_CHAR:
+                row.putChar(colIndex, buffer.readChar(offset));
+                offset += Character.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_LONG256:
+                cs = buffer.readUtf16Chars(offset);
+                row.putLong256(colIndex, cs);
+                offset += cs.length() * 2L + Integer.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_TIMESTAMP:
+                row.putTimestamp(colIndex, buffer.readLong(offset));
+                offset += Long.BYTES;
+                break;
+            case LineTcpParser.ENTITY_TYPE_UUID:
+                row.putLong128(colIndex, buffer.readLong(offset), buffer.readLong(offset + Long.BYTES));
+                offset += Long.BYTES * 2;
+                break;
+            case ENTITY_TYPE_NULL:
+                // ignored, default nulls is used
+                break;
+            default:
+                throw new UnsupportedOperationException("entityType " + entityType + " is not implemented!");
+        }
+        return offset;
+    }
+
+    void append(int workerId) throws CommitFailedException {
         TableWriter.Row row = null;
         try {
             TableWriterAPI writer = tableUpdateDetails.getWriter();
@@ -198,84 +287,10 @@ class LineTcpMeasurementEvent implements Closeable {
                     }
                 }
 
-                CharSequence cs;
-                switch (entityType) {
-                    case LineTcpParser.ENTITY_TYPE_TAG:
-                        cs = buffer.readUtf16Chars(offset);
-                        row.putSym(colIndex, cs);
-                        offset += cs.length() * 2L + Integer.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_CACHED_TAG:
-                        row.putSymIndex(colIndex, buffer.readInt(offset));
-                        offset += Integer.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_LONG:
-                    case LineTcpParser.ENTITY_TYPE_GEOLONG:
-                        row.putLong(colIndex, buffer.readLong(offset));
-                        offset += Long.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_INTEGER:
-                    case LineTcpParser.ENTITY_TYPE_GEOINT:
-                        row.putInt(colIndex, buffer.readInt(offset));
-                        offset += Integer.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_SHORT:
-                    case LineTcpParser.ENTITY_TYPE_GEOSHORT:
-                        row.putShort(colIndex, buffer.readShort(offset));
-                        offset += Short.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_BYTE:
-                    case LineTcpParser.ENTITY_TYPE_GEOBYTE:
-                        row.putByte(colIndex, buffer.readByte(offset));
-                        offset += Byte.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_DATE:
-                        row.putDate(colIndex, buffer.readLong(offset));
-                        offset += Long.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_DOUBLE:
-                        row.putDouble(colIndex, buffer.readDouble(offset));
-                        offset += Double.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_FLOAT:
-                        row.putFloat(colIndex, buffer.readFloat(offset));
-                        offset += Float.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_BOOLEAN:
-                        row.putBool(colIndex, buffer.readByte(offset) == 1);
-                        offset += Byte.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_STRING:
-                        cs = buffer.readUtf16Chars(offset);
-                        row.putStr(colIndex, cs);
-                        offset += cs.length() * 2L + Integer.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_CHAR:
-                        row.putChar(colIndex, buffer.readChar(offset));
-                        offset += Character.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_LONG256:
-                        cs = buffer.readUtf16Chars(offset);
-                        row.putLong256(colIndex, cs);
-                        offset += cs.length() * 2L + Integer.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_TIMESTAMP:
-                        row.putTimestamp(colIndex, buffer.readLong(offset));
-                        offset += Long.BYTES;
-                        break;
-                    case LineTcpParser.ENTITY_TYPE_UUID:
-                        row.putLong128(colIndex, buffer.readLong(offset), buffer.readLong(offset + Long.BYTES));
-                        offset += Long.BYTES * 2;
-                        break;
-                    case ENTITY_TYPE_NULL:
-                        // ignored, default nulls is used
-                        break;
-                    default:
-                        throw new UnsupportedOperationException("entityType " + entityType + " is not implemented!");
-                }
+                offset = putValue(row, colIndex, entityType, offset);
             }
             row.append();
-            tableUpdateDetails.commitIfMaxUncommittedRowsCountReached();
+            tableUpdateDetails.commitIfMaxUncommittedRowsCountReached(workerId);
         } catch (CommitFailedException commitFailedException) {
             throw commitFailedException;
         } catch (Throwable th) {
@@ -290,13 +305,57 @@ class LineTcpMeasurementEvent implements Closeable {
         }
     }
 
+    void appendColumnBatch(LineTcpColumnBatch columnBatch, int workerId) throws CommitFailedException {
+        final long lo = buffer.getAddress();
+        columnBatch.of(lo, lo + columnBatchSize);
+        columnBatch.appendTo(tableUpdateDetails, timestampAdapter, clock, workerId);
+    }
+
+    void appendToRowBuffer(O3RowBuffer rowBuffer) {
+        try {
+            // the structure version is checked before the event is routed to a row buffer
+            long offset = buffer.getAddress() + Long.BYTES;
+            long timestamp = buffer.readLong(offset);
+            offset += Long.BYTES;
+            if (timestamp == LineTcpParser.NULL_TIMESTAMP) {
+                timestamp = clock.getTicks();
+            }
+            rowBuffer.newRow(timestamp);
+            final int nEntities = buffer.readInt(offset);
+            offset += Integer.BYTES;
+            for (int nEntity = 0; nEntity < nEntities; nEntity++) {
+                final int colIndex = buffer.readInt(offset);
+                offset += Integer.BYTES;
+                final byte entityType = buffer.readByte(offset);
+                offset += Byte.BYTES;
+                if (rowBuffer.getColumnType(colIndex) < 0) {
+                    // the column was dropped after the event was created
+                    offset += buffer.columnValueLength(entityType, offset);
+                    continue;
+                }
+                offset = putValue(rowBuffer, colIndex, entityType, offset);
+            }
+            rowBuffer.append();
+        } catch (Throwable th) {
+            LOG.error()
+                    .$("could not buffer line protocol measurement [tableName=").$(tableUpdateDetails.getTableToken())
+                    .$(", message=").$(th.getMessage())
+                    .$(th)
+                    .I$();
+            rowBuffer.cancel();
+        }
+    }
+
     void createMeasurementEvent(
             SecurityContext securityContext,
             TableUpdateDetails tud,
             LineTcpParser parser,
-            int workerId
+            int workerId,
+            int writerThreadId
     ) {
         writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_INCOMPLETE_EVENT;
+        hasColumnNames = false;
+        columnBatchSize = 0;
         final TableUpdateDetails.ThreadLocalDetails localDetails = tud.getThreadLocalDetails(workerId);
         localDetails.resetStateIfNecessary();
         this.tableUpdateDetails = tud;
@@ -329,6 +388,7 @@ class LineTcpMeasurementEvent implements Closeable {
                 if (autoCreateNewColumns && TableUtils.isValidColumnName(colNameUtf16, maxColumnNameLength)) {
                     securityContext.authorizeAlterTableAddColumn(tud.getTableToken());
                     offset = buffer.addColumnName(offset, colNameUtf16);
+                    hasColumnNames = true;
                     colType = localDetails.getColumnType(localDetails.getColNameUtf8(), entityType);
                 } else if (!autoCreateNewColumns) {
                     throw newColumnsNotAllowed(tableUpdateDetails, colNameUtf16);
@@ -609,12 +669,85 @@ class LineTcpMeasurementEvent implements Closeable {
         }
         buffer.addDesignatedTimestamp(buffer.getAddress() + Long.BYTES, timestamp);
         buffer.addNumOfColumns(buffer.getAddress() + 2 * Long.BYTES, entitiesWritten);
-        writerWorkerId = tud.getWriterThreadId();
+        eventSize = (int) (offset - buffer.getAddress());
+        writerWorkerId = writerThreadId;
+    }
+
+    void createColumnBatchEvent(TableUpdateDetails tud, LineTcpColumnBatch columnBatch, int writerThreadId) {
+        writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_INCOMPLETE_EVENT;
+        hasColumnNames = false;
+        this.tableUpdateDetails = tud;
+        buffer.addColumnBatch(buffer.getAddress(), columnBatch.getFrameAddress(), columnBatch.getFrameSize());
+        columnBatchSize = columnBatch.getFrameSize();
+        eventSize = columnBatchSize;
+        writerWorkerId = writerThreadId;
+    }
+
+    void createIncompleteEvent() {
+        writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_INCOMPLETE_EVENT;
+    }
+
+    void createTableHandoffEvent(TableUpdateDetails tableUpdateDetails) {
+        writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_TABLE_HANDOFF;
+        this.tableUpdateDetails = tableUpdateDetails;
+        eventSize = 0;
     }
 
     void createWriterReleaseEvent(TableUpdateDetails tableUpdateDetails, boolean commitOnWriterClose) {
         writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_RELEASE_WRITER;
         this.tableUpdateDetails = tableUpdateDetails;
         this.commitOnWriterClose = commitOnWriterClose;
+        eventSize = 0;
+    }
+
+    long getParkedSize() {
+        return PARKED_EVENT_HEADER_SIZE + eventSize;
+    }
+
+    boolean isColumnBatch() {
+        return columnBatchSize > 0;
+    }
+
+    /**
+     * Row buffers can only take events created with their exact table structure
+     * and without columns the writer has to resolve by name.
+     *
+     * @param rowBufferStructureVersion table structure version the row buffers are laid out with
+     * @return true when the event can be appended to a row buffer
+     */
+    boolean isRowBufferCompatible(long rowBufferStructureVersion) {
+        return !hasColumnNames && buffer.readLong(buffer.getAddress()) == rowBufferStructureVersion;
+    }
+
+    /**
+     * Copies the event to the memory, so that its queue slot can be released while the event waits
+     * for its table. Table update details are not copied, they are passed back to {@link #unpark(MemoryR, long, TableUpdateDetails)}.
+     *
+     * @param mem memory to append the event to
+     * @return offset of the event in the memory
+     */
+    long park(MemoryA mem) {
+        final long offset = mem.getAppendOffset();
+        mem.putInt(writerWorkerId);
+        mem.putInt(eventSize);
+        mem.putInt(columnBatchSize);
+        mem.putBool(hasColumnNames);
+        mem.putBool(commitOnWriterClose);
+        mem.putBlockOfBytes(buffer.getAddress(), eventSize);
+        return offset;
+    }
+
+    /**
+     * Points the event at an event copied by {@link #park(MemoryA)}. The memory must not be
+     * appended to while the event is in use.
+     */
+    void unpark(MemoryR mem, long offset, TableUpdateDetails tud) {
+        writerWorkerId = mem.getInt(offset);
+        eventSize = mem.getInt(offset + Integer.BYTES);
+        columnBatchSize = mem.getInt(offset + 2 * Integer.BYTES);
+        hasColumnNames = mem.getBool(offset + 3 * Integer.BYTES);
+        commitOnWriterClose = mem.getBool(offset + 3 * Integer.BYTES + 1);
+        buffer.of(mem.addressOf(offset + PARKED_EVENT_HEADER_SIZE), eventSize);
+        tableUpdateDetails = tud;
     }
 }
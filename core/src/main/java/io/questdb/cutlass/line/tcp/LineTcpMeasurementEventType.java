@@ -30,4 +30,8 @@ class LineTcpMeasurementEventType {
     static final int ALL_WRITERS_INCOMPLETE_EVENT = -2;
 
     static final int ALL_WRITERS_RELEASE_WRITER = -3;
+
+    // Published to the queue of the writer thread a table is moving away from, all events for the table
+    // queued before this one are applied by the old writer thread, the new writer thread waits for it
+    static final int ALL_WRITERS_TABLE_HANDOFF = -4;
 }
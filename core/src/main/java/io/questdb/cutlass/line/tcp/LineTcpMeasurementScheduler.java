@@ -48,6 +48,8 @@ import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
 import io.questdb.tasks.TelemetryTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 
 import java.io.Closeable;
 import java.util.Arrays;
@@ -69,7 +71,11 @@ public class LineTcpMeasurementScheduler implements Closeable {
     private final CairoEngine engine;
     private final LowerCaseCharSequenceObjHashMap<TableUpdateDetails> idleTableUpdateDetailsUtf16;
     private final long[] loadByWriterThread;
+    private final long loadCheckInterval;
+    private final double maxLoadRatio;
+    private final long nUpdatesPerLoadRebalance;
     private final NetworkIOJob[] netIoJobs;
+    private final double parallelTableLoadShare;
     private final Path path = new Path();
     private final MPSequence[] pubSeq;
     private final RingQueue<LineTcpMeasurementEvent>[] queue;
@@ -79,6 +85,12 @@ public class LineTcpMeasurementScheduler implements Closeable {
     private final LowerCaseCharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsUtf16;
     private final Telemetry<TelemetryTask> telemetry;
     private final long writerIdleTimeout;
+    private final LineTcpWriterMetrics writerMetrics;
+    // table move state, guarded by tableUpdateDetailsLock
+    private boolean handoffEventPublished;
+    private int handoffFromThreadId;
+    private TableUpdateDetails handoffTud;
+    private volatile long nextLoadCheckMillis;
 
     public LineTcpMeasurementScheduler(
             LineTcpReceiverConfiguration lineConfiguration,
@@ -116,47 +128,62 @@ public class LineTcpMeasurementScheduler implements Closeable {
         long commitInterval = configuration.getCommitInterval();
         int nWriterThreads = writerWorkerPool.getWorkerCount();
         pubSeq = new MPSequence[nWriterThreads];
+        final SCSequence[] subSeq = new SCSequence[nWriterThreads];
         //noinspection unchecked
         queue = new RingQueue[nWriterThreads];
         //noinspection unchecked
         assignedTables = new ObjList[nWriterThreads];
+        final DirectObjectFactory<LineTcpMeasurementEvent> eventFactory = (address, addressSize) -> new LineTcpMeasurementEvent(
+                address,
+                addressSize,
+                lineConfiguration.getMicrosecondClock(),
+                lineConfiguration.getTimestampAdapter(),
+                defaultColumnTypes,
+                lineConfiguration.isStringToCharCastAllowed(),
+                lineConfiguration.getMaxFileNameLength(),
+                lineConfiguration.getAutoCreateNewColumns()
+        );
+        final long eventSlotSize = getEventSlotSize(maxMeasurementSize);
         for (int i = 0; i < nWriterThreads; i++) {
             MPSequence ps = new MPSequence(queueSize);
             pubSeq[i] = ps;
 
             RingQueue<LineTcpMeasurementEvent> q = new RingQueue<>(
-                    (address, addressSize) -> new LineTcpMeasurementEvent(
-                            address,
-                            addressSize,
-                            lineConfiguration.getMicrosecondClock(),
-                            lineConfiguration.getTimestampAdapter(),
-                            defaultColumnTypes,
-                            lineConfiguration.isStringToCharCastAllowed(),
-                            lineConfiguration.getMaxFileNameLength(),
-                            lineConfiguration.getAutoCreateNewColumns()
-                    ),
-                    getEventSlotSize(maxMeasurementSize),
+                    eventFactory,
+                    eventSlotSize,
                     queueSize,
                     MemoryTag.NATIVE_ILP_RSS
             );
 
             queue[i] = q;
-            SCSequence subSeq = new SCSequence();
-            ps.then(subSeq).then(ps);
+            SCSequence ss = new SCSequence();
+            ps.then(ss).then(ps);
+            subSeq[i] = ss;
 
             assignedTables[i] = new ObjList<>();
+        }
 
+        writerMetrics = new LineTcpWriterMetrics(pubSeq, subSeq);
+        engine.getMetrics().addScrapable(writerMetrics);
+        for (int i = 0; i < nWriterThreads; i++) {
             final LineTcpWriterJob lineTcpWriterJob = new LineTcpWriterJob(
                     i,
-                    q,
-                    subSeq,
+                    queue[i],
+                    subSeq[i],
                     milliClock,
-                    commitInterval, this, engine.getMetrics(), assignedTables[i]);
+                    commitInterval, this, engine.getMetrics(), writerMetrics, assignedTables[i],
+                    // parked events are copied out of the queue, the event points at them when they are processed
+                    eventFactory.newInstance(0, 0), eventSlotSize);
             writerWorkerPool.assign(i, lineTcpWriterJob);
             writerWorkerPool.freeOnExit(lineTcpWriterJob);
         }
         this.tableStructureAdapter = new TableStructureAdapter(cairoConfiguration, defaultColumnTypes, configuration.getDefaultPartitionBy());
         writerIdleTimeout = lineConfiguration.getWriterIdleTimeout();
+        maxLoadRatio = lineConfiguration.getMaxLoadRatio();
+        nUpdatesPerLoadRebalance = lineConfiguration.getNUpdatesPerLoadRebalance();
+        parallelTableLoadShare = lineConfiguration.getParallelTableLoadShare();
+        loadCheckInterval = lineConfiguration.getMaintenanceInterval();
+        nextLoadCheckMillis = milliClock.getTicks() + loadCheckInterval;
     }
 
     @Override
@@ -189,6 +216,19 @@ public class LineTcpMeasurementScheduler implements Closeable {
             int readerWorkerId,
             long millis
     ) {
+        if (millis > nextLoadCheckMillis && loadByWriterThread.length > 1) {
+            tableUpdateDetailsLock.writeLock().lock();
+            try {
+                // re-check under the lock, all network IO threads run maintenance
+                if (millis > nextLoadCheckMillis) {
+                    nextLoadCheckMillis = millis + loadCheckInterval;
+                    unsafeRebalanceLoad();
+                }
+            } finally {
+                tableUpdateDetailsLock.writeLock().unlock();
+            }
+        }
+
         for (int n = 0, sz = tableUpdateDetailsUtf8.size(); n < sz; n++) {
             final ByteCharSequence tableNameUtf8 = tableUpdateDetailsUtf8.keys().get(n);
             final TableUpdateDetails tud = tableUpdateDetailsUtf8.get(tableNameUtf8);
@@ -224,6 +264,35 @@ public class LineTcpMeasurementScheduler implements Closeable {
         return false;
     }
 
+    public LineTcpWriterMetrics getWriterMetrics() {
+        return writerMetrics;
+    }
+
+    /**
+     * Moves the table to another writer thread the same way the load balancer does.
+     *
+     * @param tableName  name of an active table
+     * @param toThreadId id of the writer thread to move the table to
+     * @return false when the table is not active, is written by all writer threads or another table is being moved
+     */
+    @TestOnly
+    public boolean moveTable(CharSequence tableName, int toThreadId) {
+        tableUpdateDetailsLock.writeLock().lock();
+        try {
+            if (handoffTud != null && (!handoffEventPublished || handoffTud.isHandoffPending())) {
+                return false;
+            }
+            final TableUpdateDetails tud = tableUpdateDetailsUtf16.get(tableName);
+            if (tud == null || tud.isParallel() || tud.getWriterThreadId() == toThreadId) {
+                return false;
+            }
+            unsafeMoveTable(tud, toThreadId);
+            return true;
+        } finally {
+            tableUpdateDetailsLock.writeLock().unlock();
+        }
+    }
+
     public void processWriterReleaseEvent(LineTcpMeasurementEvent event, int workerId) {
         tableUpdateDetailsLock.readLock().lock();
         try {
@@ -257,60 +326,49 @@ public class LineTcpMeasurementScheduler implements Closeable {
         }
     }
 
+    public boolean scheduleColumnBatch(
+            SecurityContext securityContext,
+            NetworkIOJob netIoJob,
+            LineTcpConnectionContext ctx,
+            LineTcpColumnBatch columnBatch
+    ) {
+        final DirectByteCharSequence measurementName = columnBatch.getTableName();
+        final TableUpdateDetails tud = getTableUpdateDetails(securityContext, netIoJob, ctx, measurementName, null, columnBatch);
+        if (tud == null) {
+            return true;
+        }
+        checkColumnBatch(securityContext, netIoJob, tud, columnBatch);
+
+        if (tud.isWal()) {
+            try {
+                columnBatch.appendTo(tud, configuration.getTimestampAdapter(), configuration.getMicrosecondClock(), netIoJob.getWorkerId());
+            } catch (CommitFailedException ex) {
+                handleWalCommitException(measurementName, tud, ex);
+            } catch (Throwable ex) {
+                handleAppendException(measurementName, tud, ex);
+            }
+            return false;
+        }
+        return dispatchColumnBatch(tud, columnBatch);
+    }
+
     public boolean scheduleEvent(
             SecurityContext securityContext,
             NetworkIOJob netIoJob,
             LineTcpConnectionContext ctx,
             LineTcpParser parser
     ) {
-        DirectByteCharSequence measurementName = parser.getMeasurementName();
-        TableUpdateDetails tud;
-        try {
-            tud = ctx.getTableUpdateDetails(measurementName);
-            if (tud == null) {
-                tud = netIoJob.getLocalTableDetails(measurementName);
-                if (tud == null) {
-                    tud = getTableUpdateDetailsFromSharedArea(securityContext, netIoJob, ctx, parser);
-                }
-            } else if (tud.isWriterInError()) {
-                TableUpdateDetails removed = ctx.removeTableUpdateDetails(measurementName);
-                assert tud == removed;
-                removed.close();
-                tud = getTableUpdateDetailsFromSharedArea(securityContext, netIoJob, ctx, parser);
-            }
-        } catch (EntryUnavailableException ex) {
-            // Table writer is locked
-            LOG.info().$("could not get table writer [tableName=").$(measurementName)
-                    .$(", ex=`")
-                    .$(ex.getFlyweightMessage())
-                    .$("`]")
-                    .$();
+        final DirectByteCharSequence measurementName = parser.getMeasurementName();
+        final TableUpdateDetails tud = getTableUpdateDetails(securityContext, netIoJob, ctx, measurementName, parser, null);
+        if (tud == null) {
             return true;
-        } catch (CairoException ex) {
-            // Table could not be created
-            LOG.error().$("could not create table [tableName=").$(measurementName)
-                    .$(", errno=").$(ex.getErrno())
-                    .$(", ex=`")
-                    .$(ex.getFlyweightMessage())
-                    .$("`]")
-                    .I$();
-            // More details will be logged by catching thread
-            throw ex;
         }
 
         if (tud.isWal()) {
             try {
                 appendToWal(securityContext, netIoJob, parser, tud);
             } catch (CommitFailedException ex) {
-                if (ex.isTableDropped()) {
-                    // table dropped, nothing to worry about
-                    LOG.info().$("closing writer because table has been dropped (1) [table=").$(measurementName).I$();
-                    tud.setWriterInError();
-                    tud.releaseWriter(false);
-                    // continue to next line
-                    return false;
-                }
-                handleAppendException(measurementName, tud, ex);
+                handleWalCommitException(measurementName, tud, ex);
             } catch (Throwable ex) {
                 handleAppendException(measurementName, tud, ex);
             }
@@ -332,6 +390,18 @@ public class LineTcpMeasurementScheduler implements Closeable {
         throw CairoException.critical(0).put("could not append to WAL [tableName=").put(measurementName).put(", error=").put(ex.getMessage()).put(']');
     }
 
+    private static void handleWalCommitException(DirectByteCharSequence measurementName, TableUpdateDetails tud, CommitFailedException ex) {
+        if (ex.isTableDropped()) {
+            // table dropped, nothing to worry about
+            LOG.info().$("closing writer because table has been dropped (1) [table=").$(measurementName).I$();
+            tud.setWriterInError();
+            tud.releaseWriter(false);
+            // continue to next line
+            return;
+        }
+        handleAppendException(measurementName, tud, ex);
+    }
+
     private void appendToWal(SecurityContext securityContext, NetworkIOJob netIoJob, LineTcpParser parser, TableUpdateDetails tud) throws CommitFailedException {
         final boolean stringToCharCastAllowed = configuration.isStringToCharCastAllowed();
         LineProtoTimestampAdapter timestampAdapter = configuration.getTimestampAdapter();
@@ -361,7 +431,7 @@ public class LineTcpMeasurementScheduler implements Closeable {
                     columnIndex = metadata.getColumnIndexQuiet(columnNameUtf16);
                     if (columnIndex < 0) {
                         securityContext.authorizeAlterTableAddColumn(ww.getTableToken());
-                        tud.commit(false);
+                        tud.commit(false, netIoJob.getWorkerId());
                         try {
                             ww.addColumn(columnNameUtf16, ld.getColumnType(ld.getColNameUtf8(), ent.getType()));
                             columnIndex = metadata.getColumnIndexQuiet(columnNameUtf16);
@@ -629,7 +699,7 @@ public class LineTcpMeasurementScheduler implements Closeable {
                 }
             }
             r.append();
-            tud.commitIfMaxUncommittedRowsCountReached();
+            tud.commitIfMaxUncommittedRowsCountReached(netIoJob.getWorkerId());
         } catch (CommitFailedException commitFailedException) {
             throw commitFailedException;
         } catch (Throwable th) {
@@ -640,6 +710,41 @@ public class LineTcpMeasurementScheduler implements Closeable {
         }
     }
 
+    private void checkColumnBatch(
+            SecurityContext securityContext,
+            NetworkIOJob netIoJob,
+            TableUpdateDetails tud,
+            LineTcpColumnBatch columnBatch
+    ) {
+        // columns are checked on the I/O thread, the same way columns of text measurements are,
+        // the thread that owns the writer only resolves and adds them
+        final TableUpdateDetails.ThreadLocalDetails ld = tud.getThreadLocalDetails(netIoJob.getWorkerId());
+        ld.resetStateIfNecessary();
+        for (int i = 0, n = columnBatch.getColumnCount(); i < n; i++) {
+            final int columnIndex = ld.getColumnIndex(columnBatch.getColumnName(i), true);
+            if (columnIndex == COLUMN_NOT_FOUND) {
+                final String columnNameUtf16 = ld.getColNameUtf16();
+                if (!autoCreateNewColumns) {
+                    throw newColumnsNotAllowed(tud, columnNameUtf16);
+                }
+                if (!TableUtils.isValidColumnName(columnNameUtf16, cairoConfiguration.getMaxFileNameLength())) {
+                    throw invalidColNameError(tud, columnNameUtf16);
+                }
+                securityContext.authorizeAlterTableAddColumn(tud.getTableToken());
+            } else if (columnIndex == DUPLICATED_COLUMN) {
+                throw CairoException.nonCritical()
+                        .put("duplicate column in column batch [table=").put(tud.getTableNameUtf16())
+                        .put(", columnName=").put(columnBatch.getColumnName(i))
+                        .put(']');
+            } else if (columnIndex == tud.getTimestampIndex()) {
+                throw CairoException.nonCritical()
+                        .put("designated timestamp cannot be a column of a column batch [table=").put(tud.getTableNameUtf16())
+                        .put(", columnName=").put(columnBatch.getColumnName(i))
+                        .put(']');
+            }
+        }
+    }
+
     private void closeLocals(LowerCaseCharSequenceObjHashMap<TableUpdateDetails> tudUtf16) {
         ObjList<CharSequence> tableNames = tudUtf16.keys();
         for (int n = 0, sz = tableNames.size(); n < sz; n++) {
@@ -648,36 +753,142 @@ public class LineTcpMeasurementScheduler implements Closeable {
         tudUtf16.clear();
     }
 
+    private boolean dispatchColumnBatch(TableUpdateDetails tud, LineTcpColumnBatch columnBatch) {
+        while (true) {
+            // batches always go to the table's own writer thread, parallel tables included
+            final int writerThreadId = tud.getWriterThreadId();
+            long seq = getNextPublisherEventSequence(writerThreadId);
+            if (seq < 0) {
+                return true;
+            }
+            try {
+                final LineTcpMeasurementEvent event = queue[writerThreadId].get(seq);
+                if (tud.isWriterInError()) {
+                    event.createIncompleteEvent();
+                    throw CairoException.critical(0).put("writer is in error, aborting ILP pipeline");
+                }
+                // the table may have been moved to another writer thread, see dispatchEvent()
+                if (writerThreadId != tud.getWriterThreadId()) {
+                    event.createIncompleteEvent();
+                    continue;
+                }
+                event.createColumnBatchEvent(tud, columnBatch, writerThreadId);
+            } finally {
+                pubSeq[writerThreadId].done(seq);
+            }
+            // the load is measured in rows
+            tud.addEventsProcessedSinceReshuffle(columnBatch.getRowCount());
+            return false;
+        }
+    }
+
     private boolean dispatchEvent(
             SecurityContext securityContext,
             NetworkIOJob netIoJob,
             LineTcpParser parser,
             TableUpdateDetails tud
     ) {
-        final int writerThreadId = tud.getWriterThreadId();
-        long seq = getNextPublisherEventSequence(writerThreadId);
-        if (seq > -1) {
+        boolean rowBufferRejected = false;
+        while (true) {
+            final int ownerThreadId = tud.getWriterThreadId();
+            // rows of a parallel table are spread over all writer threads, those other
+            // than the table's own thread append them to their row buffer
+            final int writerThreadId = tud.isParallel() && !rowBufferRejected
+                    ? tud.getParallelWriterThreadId(netIoJob.getWorkerId())
+                    : ownerThreadId;
+            long seq = getNextPublisherEventSequence(writerThreadId);
+            if (seq < 0) {
+                return true;
+            }
             try {
+                final LineTcpMeasurementEvent event = queue[writerThreadId].get(seq);
                 if (tud.isWriterInError()) {
+                    event.createIncompleteEvent();
                     throw CairoException.critical(0).put("writer is in error, aborting ILP pipeline");
                 }
-                queue[writerThreadId].get(seq).createMeasurementEvent(securityContext, tud, parser, netIoJob.getWorkerId());
+                // The table may have been moved to another writer thread after we read the thread id.
+                // Moves publish the handoff event after changing the thread id, so an event queued after
+                // the handoff event always observes the new id here and is re-routed to the new thread.
+                if (ownerThreadId != tud.getWriterThreadId()) {
+                    event.createIncompleteEvent();
+                    continue;
+                }
+                event.createMeasurementEvent(securityContext, tud, parser, netIoJob.getWorkerId(), writerThreadId);
+                if (writerThreadId != ownerThreadId) {
+                    if (!event.isRowBufferCompatible(tud.getRowBufferStructureVersion())) {
+                        // new columns or a structure change, only the table's own writer thread can apply the row
+                        event.createIncompleteEvent();
+                        rowBufferRejected = true;
+                        continue;
+                    }
+                    tud.incrementPendingRowBufferEvents();
+                }
             } finally {
                 pubSeq[writerThreadId].done(seq);
             }
             tud.incrementEventsProcessedSinceReshuffle();
             return false;
         }
-        return true;
+    }
+
+    /**
+     * Finds or creates details of the table a measurement or a column batch is written to.
+     * A new table is created with the columns of whichever of the two is given.
+     *
+     * @return null when the table writer is locked and the caller has to retry later
+     */
+    private TableUpdateDetails getTableUpdateDetails(
+            SecurityContext securityContext,
+            NetworkIOJob netIoJob,
+            LineTcpConnectionContext ctx,
+            DirectByteCharSequence measurementName,
+            @Nullable LineTcpParser parser,
+            @Nullable LineTcpColumnBatch columnBatch
+    ) {
+        TableUpdateDetails tud;
+        try {
+            tud = ctx.getTableUpdateDetails(measurementName);
+            if (tud == null) {
+                tud = netIoJob.getLocalTableDetails(measurementName);
+                if (tud == null) {
+                    tud = getTableUpdateDetailsFromSharedArea(securityContext, netIoJob, ctx, measurementName, parser, columnBatch);
+                }
+            } else if (tud.isWriterInError()) {
+                TableUpdateDetails removed = ctx.removeTableUpdateDetails(measurementName);
+                assert tud == removed;
+                removed.close();
+                tud = getTableUpdateDetailsFromSharedArea(securityContext, netIoJob, ctx, measurementName, parser, columnBatch);
+            }
+        } catch (EntryUnavailableException ex) {
+            // Table writer is locked
+            LOG.info().$("could not get table writer [tableName=").$(measurementName)
+                    .$(", ex=`")
+                    .$(ex.getFlyweightMessage())
+                    .$("`]")
+                    .$();
+            return null;
+        } catch (CairoException ex) {
+            // Table could not be created
+            LOG.error().$("could not create table [tableName=").$(measurementName)
+                    .$(", errno=").$(ex.getErrno())
+                    .$(", ex=`")
+                    .$(ex.getFlyweightMessage())
+                    .$("`]")
+                    .I$();
+            // More details will be logged by catching thread
+            throw ex;
+        }
+        return tud;
     }
 
     private TableUpdateDetails getTableUpdateDetailsFromSharedArea(
             SecurityContext securityContext,
             @NotNull NetworkIOJob netIoJob,
             @NotNull LineTcpConnectionContext ctx,
-            @NotNull LineTcpParser parser
+            @NotNull DirectByteCharSequence tableNameUtf8,
+            @Nullable LineTcpParser parser,
+            @Nullable LineTcpColumnBatch columnBatch
     ) {
-        final DirectByteCharSequence tableNameUtf8 = parser.getMeasurementName();
         final StringSink tableNameUtf16 = tableNameSinks[netIoJob.getWorkerId()];
         tableNameUtf16.clear();
         Chars.utf8toUtf16(tableNameUtf8.getLo(), tableNameUtf8.getHi(), tableNameUtf16);
@@ -706,7 +917,9 @@ public class LineTcpMeasurementScheduler implements Closeable {
                                 .put(']');
                     }
                     // validate that parser entities do not contain NULLs
-                    TableStructureAdapter tsa = tableStructureAdapter.of(tableNameUtf16, parser);
+                    TableStructureAdapter tsa = parser != null
+                            ? tableStructureAdapter.of(tableNameUtf16, parser)
+                            : tableStructureAdapter.of(tableNameUtf16, columnBatch);
                     for (int i = 0, n = tsa.getColumnCount(); i < n; i++) {
                         if (tsa.getColumnType(i) == LineTcpParser.ENTITY_TYPE_NULL) {
                             throw CairoException.nonCritical().put("unknown column type [columnName=").put(tsa.getColumnName(i)).put(']');
@@ -748,7 +961,8 @@ public class LineTcpMeasurementScheduler implements Closeable {
                                 -1,
                                 netIoJobs,
                                 defaultColumnTypes,
-                                ByteCharSequence.newInstance(tableNameUtf8)
+                                ByteCharSequence.newInstance(tableNameUtf8),
+                                null
                         );
                         ctx.addTableUpdateDetails(ByteCharSequence.newInstance(tableNameUtf8), tud);
                         return tud;
@@ -797,7 +1011,8 @@ public class LineTcpMeasurementScheduler implements Closeable {
                 threadId,
                 netIoJobs,
                 defaultColumnTypes,
-                tableNameUtf8
+                tableNameUtf8,
+                writerMetrics
         );
         tableUpdateDetailsUtf16.putAt(tudKeyIndex, tud.getTableNameUtf16(), tud);
         LOG.info().$("assigned ").$(tableNameUtf16).$(" to thread ").$(threadId).$();
@@ -818,6 +1033,124 @@ public class LineTcpMeasurementScheduler implements Closeable {
         }
     }
 
+    private void unsafeMoveTable(TableUpdateDetails tud, int toThreadId) {
+        handoffFromThreadId = tud.getWriterThreadId();
+        // the thread id changes before the handoff event is published, see dispatchEvent()
+        tud.setHandoffWriterThreadId(toThreadId);
+        handoffTud = tud;
+        handoffEventPublished = unsafePublishHandoffEvent();
+        writerMetrics.incrementTableMoves();
+    }
+
+    private boolean unsafePublishHandoffEvent() {
+        final long seq = getNextPublisherEventSequence(handoffFromThreadId);
+        if (seq > -1) {
+            try {
+                queue[handoffFromThreadId].get(seq).createTableHandoffEvent(handoffTud);
+            } finally {
+                pubSeq[handoffFromThreadId].done(seq);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void unsafeRebalanceLoad() {
+        if (handoffTud != null) {
+            // one table moves at a time, the queue of the old writer thread may have been
+            // full when the move started
+            if (!handoffEventPublished) {
+                handoffEventPublished = unsafePublishHandoffEvent();
+                return;
+            }
+            if (handoffTud.isHandoffPending()) {
+                return;
+            }
+            handoffTud = null;
+        }
+
+        unsafeCalcThreadLoad();
+        long totalLoad = 0;
+        int fromThreadId = 0;
+        int toThreadId = 0;
+        for (int i = 0, n = loadByWriterThread.length; i < n; i++) {
+            final long load = loadByWriterThread[i];
+            totalLoad += load;
+            if (load > loadByWriterThread[fromThreadId]) {
+                fromThreadId = i;
+            }
+            if (load < loadByWriterThread[toThreadId]) {
+                toThreadId = i;
+            }
+        }
+        if (totalLoad < nUpdatesPerLoadRebalance) {
+            // keep accumulating the load
+            return;
+        }
+
+        // a table that takes most of the load is written by all writer threads, moving it would not help
+        boolean parallelTables = false;
+        TableUpdateDetails hottestTable = null;
+        ObjList<CharSequence> tableNames = tableUpdateDetailsUtf16.keys();
+        for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+            final TableUpdateDetails tud = tableUpdateDetailsUtf16.get(tableNames.getQuick(n));
+            if (tud.isParallel()) {
+                parallelTables = true;
+            } else if (!tud.isWriterInError()
+                    && (hottestTable == null || tud.getEventsProcessedSinceReshuffle() > hottestTable.getEventsProcessedSinceReshuffle())) {
+                hottestTable = tud;
+            }
+        }
+        if (parallelTableLoadShare > 0
+                && loadByWriterThread.length > 1
+                && hottestTable != null
+                && hottestTable.getEventsProcessedSinceReshuffle() > parallelTableLoadShare * totalLoad) {
+            LOG.info().$("table is written by all writer threads [tableName=").$(hottestTable.getTableNameUtf16())
+                    .$(", tableLoad=").$(hottestTable.getEventsProcessedSinceReshuffle())
+                    .$(", totalLoad=").$(totalLoad)
+                    .I$();
+            hottestTable.enableParallelWrites(loadByWriterThread.length);
+            parallelTables = true;
+        }
+
+        final long highestLoad = loadByWriterThread[fromThreadId];
+        final long lowestLoad = loadByWriterThread[toThreadId];
+        TableUpdateDetails tableToMove = null;
+        // parallel tables do not move, the row buffers of the other writer threads
+        // have to be merged by the table's own writer thread
+        if (!parallelTables && highestLoad > maxLoadRatio * lowestLoad) {
+            // moving a table with load L lowers the peak when L < highestLoad - lowestLoad,
+            // the best candidate is the closest to the half of the difference
+            final long loadDiff = highestLoad - lowestLoad;
+            long bestDistance = Long.MAX_VALUE;
+            for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+                final TableUpdateDetails tud = tableUpdateDetailsUtf16.get(tableNames.getQuick(n));
+                final long load = tud.getEventsProcessedSinceReshuffle();
+                if (tud.getWriterThreadId() == fromThreadId && load > 0 && load < loadDiff && !tud.isWriterInError()) {
+                    final long distance = Math.abs(loadDiff - 2 * load);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        tableToMove = tud;
+                    }
+                }
+            }
+        }
+
+        for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+            tableUpdateDetailsUtf16.get(tableNames.getQuick(n)).resetEventsProcessedSinceReshuffle();
+        }
+
+        if (tableToMove != null) {
+            LOG.info().$("moving table to less loaded writer thread [tableName=").$(tableToMove.getTableNameUtf16())
+                    .$(", fromThreadId=").$(fromThreadId)
+                    .$(", fromThreadLoad=").$(highestLoad)
+                    .$(", toThreadId=").$(toThreadId)
+                    .$(", toThreadLoad=").$(lowestLoad)
+                    .I$();
+            unsafeMoveTable(tableToMove, toThreadId);
+        }
+    }
+
     protected NetworkIOJob createNetworkIOJob(IODispatcher<LineTcpConnectionContext> dispatcher, int workerId) {
         return new LineTcpNetworkIOJob(configuration, this, dispatcher, workerId);
     }
@@ -72,6 +72,14 @@ public interface LineTcpReceiverConfiguration {
 
     int getMaxFileNameLength();
 
+    /**
+     * Ratio of the busiest to the least busy writer thread load above which
+     * a table is moved from one writer thread to another.
+     *
+     * @return max writer thread load ratio
+     */
+    double getMaxLoadRatio();
+
     int getMaxMeasurementSize();
 
     MicrosecondClock getMicrosecondClock();
@@ -82,6 +90,22 @@ public interface LineTcpReceiverConfiguration {
 
     NetworkFacade getNetworkFacade();
 
+    /**
+     * Minimum number of measurements written since the last load rebalance before
+     * writer thread load is checked again.
+     *
+     * @return number of measurements
+     */
+    long getNUpdatesPerLoadRebalance();
+
+    /**
+     * Share of the measured load above which a single non-WAL table is written by all writer
+     * threads rather than by one. Zero disables parallel writes.
+     *
+     * @return share of the total writer load, between 0 and 1
+     */
+    double getParallelTableLoadShare();
+
     long getSymbolCacheWaitUsBeforeReload();
 
     LineProtoTimestampAdapter getTimestampAdapter();
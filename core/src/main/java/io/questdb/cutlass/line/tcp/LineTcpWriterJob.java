@@ -25,11 +25,15 @@
 package io.questdb.cutlass.line.tcp;
 
 import io.questdb.Metrics;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.Job;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.Sequence;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 import io.questdb.std.Os;
@@ -42,14 +46,22 @@ import java.io.Closeable;
 class LineTcpWriterJob implements Job, Closeable {
     private final static Log LOG = LogFactory.getLog(LineTcpWriterJob.class);
     private final ObjList<TableUpdateDetails> assignedTables;
+    private final LineTcpColumnBatch columnBatch = new LineTcpColumnBatch();
     private final long commitInterval;
+    private final long maxParkedEventsSize;
     private final Metrics metrics;
     private final MillisecondClock millisecondClock;
+    // events of the tables moved to this thread, which arrived before the old writer thread handed the table over
+    private final LineTcpMeasurementEvent parkedEvent;
+    private final LongList parkedEventOffsets = new LongList();
+    private final ObjList<TableUpdateDetails> parkedEventTables = new ObjList<>();
+    private final MemoryCARW parkedEvents;
     private final Path path = new Path();
     private final RingQueue<LineTcpMeasurementEvent> queue;
     private final LineTcpMeasurementScheduler scheduler;
     private final Sequence sequence;
     private final int workerId;
+    private final LineTcpWriterMetrics writerMetrics;
     private long nextCommitTime;
 
     LineTcpWriterJob(
@@ -60,7 +72,10 @@ class LineTcpWriterJob implements Job, Closeable {
             long commitInterval,
             LineTcpMeasurementScheduler scheduler,
             Metrics metrics,
-            ObjList<TableUpdateDetails> assignedTables
+            LineTcpWriterMetrics writerMetrics,
+            ObjList<TableUpdateDetails> assignedTables,
+            LineTcpMeasurementEvent parkedEvent,
+            long eventSlotSize
     ) {
         this.workerId = workerId;
         this.queue = queue;
@@ -70,7 +85,12 @@ class LineTcpWriterJob implements Job, Closeable {
         this.nextCommitTime = millisecondClock.getTicks();
         this.scheduler = scheduler;
         this.metrics = metrics;
+        this.writerMetrics = writerMetrics;
         this.assignedTables = assignedTables;
+        this.parkedEvent = parkedEvent;
+        // parked events take at most as much memory as the queue
+        this.maxParkedEventsSize = eventSlotSize * queue.getCycle();
+        this.parkedEvents = Vm.getCARWInstance(eventSlotSize, Integer.MAX_VALUE, MemoryTag.NATIVE_ILP_RSS);
     }
 
     @Override
@@ -84,6 +104,7 @@ class LineTcpWriterJob implements Job, Closeable {
         }
 
         Misc.free(path);
+        Misc.free(parkedEvents);
     }
 
     @Override
@@ -111,7 +132,7 @@ class LineTcpWriterJob implements Job, Closeable {
                 // we could just process the min element of the heap until we hit the first commit
                 // time greater than millis and that will be our nextCommitTime
                 try {
-                    long tableNextCommitTime = assignedTables.getQuick(n).commitIfIntervalElapsed(wallClockMillis);
+                    long tableNextCommitTime = assignedTables.getQuick(n).commitIfIntervalElapsed(wallClockMillis, workerId);
                     // get current time again, commit is not instant and take quite some time.
                     wallClockMillis = millisecondClock.getTicks();
                     if (tableNextCommitTime < minTableNextCommitTime) {
@@ -133,67 +154,166 @@ class LineTcpWriterJob implements Job, Closeable {
 
     private boolean drainQueue() {
         boolean busy = false;
-        while (true) {
-            long cursor;
-            while ((cursor = sequence.next()) < 0) {
-                if (cursor == -1) {
+        long eventCount = 0;
+        try {
+            if (parkedEventTables.size() > 0) {
+                eventCount = unparkEvents();
+                busy = eventCount > 0;
+            }
+            while (true) {
+                long cursor;
+                while ((cursor = sequence.next()) < 0) {
+                    if (cursor == -1) {
+                        return busy;
+                    }
+                    Os.pause();
+                }
+                final LineTcpMeasurementEvent event = queue.get(cursor);
+                if (isWaitingForHandoff(event)) {
+                    // the old writer thread has not handed the table over yet, events of
+                    // the other tables in the queue must not wait for it
+                    if (!parkEvent(event)) {
+                        // out of parking space, the event stays in the queue until the handoff
+                        return busy;
+                    }
+                    busy = true;
+                    sequence.done(cursor);
+                    continue;
+                }
+                if (isWaitingForRowBuffers(event)) {
+                    // the event stays in the queue until other writer threads are done with the table
                     return busy;
                 }
-                Os.pause();
+                if (parkedEventTables.size() > 0) {
+                    // the table of the event may have been handed over after its previous events were parked
+                    eventCount += unparkEvents();
+                }
+                busy = true;
+                if (event.getWriterWorkerId() == workerId) {
+                    eventCount++;
+                }
+                processEvent(event);
+                sequence.done(cursor);
+            }
+        } finally {
+            if (eventCount > 0) {
+                writerMetrics.addEvents(workerId, eventCount);
             }
-            busy = true;
-            final LineTcpMeasurementEvent event = queue.get(cursor);
+        }
+    }
 
-            try {
-                // we check the event's writer thread ID to avoid consuming
-                // incomplete events
+    private void handoffTable(TableUpdateDetails tud) {
+        // all events queued for the table before the handoff have been applied,
+        // commit them before the new writer thread takes over
+        try {
+            if (tud.getWriter() != null && !tud.isWriterInError()) {
+                tud.commit(false, workerId);
+            }
+        } catch (Throwable ex) {
+            tud.setWriterInError();
+            LOG.critical()
+                    .$("commit failed on table handoff [table=").$(tud.getTableToken())
+                    .$(",ex=").$(ex)
+                    .I$();
+            metrics.health().incrementUnhandledErrors();
+        } finally {
+            assignedTables.remove(tud);
+            tud.setAssignedToJob(false);
+            nextCommitTime = millisecondClock.getTicks();
+            LOG.info()
+                    .$("handed off table to writer thread [tableName=").$(tud.getTableToken())
+                    .$(", fromThreadId=").$(workerId)
+                    .$(", toThreadId=").$(tud.getWriterThreadId())
+                    .I$();
+            tud.onHandoffComplete();
+        }
+    }
 
-                final TableUpdateDetails tud = event.getTableUpdateDetails();
-                boolean closeWriter = false;
-                if (event.getWriterWorkerId() == workerId) {
-                    try {
-                        if (tud.isWriterInError()) {
-                            closeWriter = true;
+    private boolean isWaitingForHandoff(LineTcpMeasurementEvent event) {
+        final int writerWorkerId = event.getWriterWorkerId();
+        if (writerWorkerId == workerId || writerWorkerId == LineTcpMeasurementEventType.ALL_WRITERS_RELEASE_WRITER) {
+            final TableUpdateDetails tud = event.getTableUpdateDetails();
+            return tud.isHandoffPending() && tud.getWriterThreadId() == workerId;
+        }
+        return false;
+    }
+
+    private boolean isWaitingForRowBuffers(LineTcpMeasurementEvent event) {
+        // rows of a parallel table routed to other writer threads have to reach
+        // their row buffers before the writer is released
+        if (event.getWriterWorkerId() == LineTcpMeasurementEventType.ALL_WRITERS_RELEASE_WRITER) {
+            final TableUpdateDetails tud = event.getTableUpdateDetails();
+            return tud.getWriterThreadId() == workerId && tud.hasPendingRowBufferEvents();
+        }
+        return false;
+    }
+
+    private boolean parkEvent(LineTcpMeasurementEvent event) {
+        if (parkedEvents.getAppendOffset() + event.getParkedSize() > maxParkedEventsSize) {
+            return false;
+        }
+        parkedEventOffsets.add(event.park(parkedEvents));
+        parkedEventTables.add(event.getTableUpdateDetails());
+        return true;
+    }
+
+    private void processEvent(LineTcpMeasurementEvent event) {
+        try {
+            // we check the event's writer thread ID to avoid consuming
+            // incomplete events
+
+            final TableUpdateDetails tud = event.getTableUpdateDetails();
+            boolean closeWriter = false;
+            if (event.getWriterWorkerId() == workerId && tud.isParallel() && tud.getWriterThreadId() != workerId) {
+                // a row of a parallel table, the table's own writer thread merges it into the writer,
+                // parallel tables do not move between writer threads
+                tud.appendToRowBuffer(workerId, event);
+            } else if (event.getWriterWorkerId() == workerId) {
+                try {
+                    if (tud.isWriterInError()) {
+                        closeWriter = true;
+                    } else {
+                        if (!tud.isAssignedToJob()) {
+                            assignedTables.add(tud);
+                            tud.setAssignedToJob(true);
+                            nextCommitTime = millisecondClock.getTicks();
+                            LOG.info()
+                                    .$("assigned table to writer thread [tableName=").$(tud.getTableToken())
+                                    .$(", threadId=").$(workerId)
+                                    .I$();
+                        }
+                        if (event.isColumnBatch()) {
+                            event.appendColumnBatch(columnBatch, workerId);
                         } else {
-                            if (!tud.isAssignedToJob()) {
-                                assignedTables.add(tud);
-                                tud.setAssignedToJob(true);
-                                nextCommitTime = millisecondClock.getTicks();
-                                LOG.info()
-                                        .$("assigned table to writer thread [tableName=").$(tud.getTableToken())
-                                        .$(", threadId=").$(workerId)
-                                        .I$();
-                            }
-                            event.append();
+                            event.append(workerId);
                         }
-                    } catch (Throwable ex) {
-                        tud.setWriterInError();
-                        LOG.critical()
-                                .$("closing writer because of error [table=").$(tud.getTableToken())
-                                .$(",ex=").$(ex)
-                                .I$();
-                        metrics.health().incrementUnhandledErrors();
-                        closeWriter = true;
-                        event.createWriterReleaseEvent(tud, false);
-                        // This is a critical error, so we treat it as an unhandled one.
                     }
-                } else {
-                    if (event.getWriterWorkerId() == LineTcpMeasurementEventType.ALL_WRITERS_RELEASE_WRITER) {
-                        closeWriter = true;
-                    }
-                }
-
-                if (closeWriter && tud.getWriter() != null) {
-                    scheduler.processWriterReleaseEvent(event, workerId);
-                    assignedTables.remove(tud);
-                    tud.setAssignedToJob(false);
-                    nextCommitTime = millisecondClock.getTicks();
+                } catch (Throwable ex) {
+                    tud.setWriterInError();
+                    LOG.critical()
+                            .$("closing writer because of error [table=").$(tud.getTableToken())
+                            .$(",ex=").$(ex)
+                            .I$();
+                    metrics.health().incrementUnhandledErrors();
+                    closeWriter = true;
+                    event.createWriterReleaseEvent(tud, false);
+                    // This is a critical error, so we treat it as an unhandled one.
                 }
-            } catch (Throwable ex) {
-                LOG.error().$("failed to process ILP event because of exception [ex=").$(ex).I$();
+            } else if (event.getWriterWorkerId() == LineTcpMeasurementEventType.ALL_WRITERS_RELEASE_WRITER) {
+                closeWriter = true;
+            } else if (event.getWriterWorkerId() == LineTcpMeasurementEventType.ALL_WRITERS_TABLE_HANDOFF) {
+                handoffTable(tud);
             }
 
-            sequence.done(cursor);
+            // the table may have been moved to another writer thread since the release event was queued
+            if (closeWriter && tud.getWriter() != null && tud.getWriterThreadId() == workerId) {
+                scheduler.processWriterReleaseEvent(event, workerId);
+                assignedTables.remove(tud);
+                tud.setAssignedToJob(false);
+                nextCommitTime = millisecondClock.getTicks();
+            }
+        } catch (Throwable ex) {
+            LOG.error().$("failed to process ILP event because of exception [ex=").$(ex).I$();
         }
     }
 
@@ -202,4 +322,36 @@ class LineTcpWriterJob implements Job, Closeable {
             assignedTables.getQuick(n).tick();
         }
     }
+
+    /**
+     * Processes parked events of the tables the old writer threads have handed over, in the order they
+     * were queued. Events of the tables still waiting for the handoff stay parked.
+     *
+     * @return number of events processed
+     */
+    private long unparkEvents() {
+        long eventCount = 0;
+        int parkedCount = 0;
+        for (int i = 0, n = parkedEventTables.size(); i < n; i++) {
+            final TableUpdateDetails tud = parkedEventTables.getQuick(i);
+            final long offset = parkedEventOffsets.getQuick(i);
+            if (tud.isHandoffPending() && tud.getWriterThreadId() == workerId) {
+                parkedEventTables.setQuick(parkedCount, tud);
+                parkedEventOffsets.setQuick(parkedCount++, offset);
+                continue;
+            }
+            parkedEvent.unpark(parkedEvents, offset, tud);
+            if (parkedEvent.getWriterWorkerId() == workerId) {
+                eventCount++;
+            }
+            processEvent(parkedEvent);
+        }
+        parkedEventTables.setPos(parkedCount);
+        parkedEventOffsets.setPos(parkedCount);
+        if (parkedCount == 0) {
+            // parking is rare, do not hold on to the memory
+            parkedEvents.close();
+        }
+        return eventCount;
+    }
 }
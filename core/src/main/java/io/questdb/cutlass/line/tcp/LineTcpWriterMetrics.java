@@ -0,0 +1,149 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.metrics.PrometheusFormatUtils;
+import io.questdb.metrics.Scrapable;
+import io.questdb.mp.Sequence;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Per writer thread ILP metrics. Events and commits of a writer thread are counted by that thread only,
+ * queue depth is the distance between the thread's queue publisher and consumer sequences.
+ * Event rate is derived from the event counter, e.g. by Prometheus rate() function.
+ */
+public class LineTcpWriterMetrics implements Scrapable {
+    private static final CharSequence LABEL_NAME = "writer";
+    private final WriterThreadMetrics[] threads;
+    private volatile long tableMoveCount;
+
+    public LineTcpWriterMetrics(Sequence[] pubSeq, Sequence[] subSeq) {
+        assert pubSeq.length == subSeq.length;
+        threads = new WriterThreadMetrics[pubSeq.length];
+        for (int i = 0, n = pubSeq.length; i < n; i++) {
+            threads[i] = new WriterThreadMetrics(String.valueOf(i), pubSeq[i], subSeq[i]);
+        }
+    }
+
+    public void addCommit(int writerThreadId, long commitTimeMicros) {
+        final WriterThreadMetrics m = threads[writerThreadId];
+        m.commitCount++;
+        m.commitTimeMicros += commitTimeMicros;
+    }
+
+    public void addEvents(int writerThreadId, long eventCount) {
+        threads[writerThreadId].eventCount += eventCount;
+    }
+
+    public long getCommitCount(int writerThreadId) {
+        return threads[writerThreadId].commitCount;
+    }
+
+    public long getCommitTimeMicros(int writerThreadId) {
+        return threads[writerThreadId].commitTimeMicros;
+    }
+
+    public long getEventCount(int writerThreadId) {
+        return threads[writerThreadId].eventCount;
+    }
+
+    public long getQueueDepth(int writerThreadId) {
+        return threads[writerThreadId].getQueueDepth();
+    }
+
+    public long getTableMoveCount() {
+        return tableMoveCount;
+    }
+
+    public void incrementTableMoves() {
+        tableMoveCount++;
+    }
+
+    @Override
+    public void scrapeIntoPrometheus(CharSink sink) {
+        PrometheusFormatUtils.appendCounterType("line_tcp_writer_events", sink);
+        for (int i = 0, n = threads.length; i < n; i++) {
+            appendCounter(sink, "line_tcp_writer_events", threads[i], threads[i].eventCount);
+        }
+        PrometheusFormatUtils.appendNewLine(sink);
+
+        PrometheusFormatUtils.appendCounterType("line_tcp_writer_commits", sink);
+        for (int i = 0, n = threads.length; i < n; i++) {
+            appendCounter(sink, "line_tcp_writer_commits", threads[i], threads[i].commitCount);
+        }
+        PrometheusFormatUtils.appendNewLine(sink);
+
+        PrometheusFormatUtils.appendCounterType("line_tcp_writer_commit_time_micros", sink);
+        for (int i = 0, n = threads.length; i < n; i++) {
+            appendCounter(sink, "line_tcp_writer_commit_time_micros", threads[i], threads[i].commitTimeMicros);
+        }
+        PrometheusFormatUtils.appendNewLine(sink);
+
+        sink.put(PrometheusFormatUtils.TYPE_PREFIX).put("line_tcp_writer_queue_depth gauge\n");
+        for (int i = 0, n = threads.length; i < n; i++) {
+            sink.put(PrometheusFormatUtils.METRIC_NAME_PREFIX).put("line_tcp_writer_queue_depth");
+            appendLabel(sink, threads[i]);
+            PrometheusFormatUtils.appendSampleLineSuffix(sink, threads[i].getQueueDepth());
+        }
+        PrometheusFormatUtils.appendNewLine(sink);
+
+        PrometheusFormatUtils.appendCounterType("line_tcp_writer_table_moves", sink);
+        PrometheusFormatUtils.appendCounterNamePrefix("line_tcp_writer_table_moves", sink);
+        PrometheusFormatUtils.appendSampleLineSuffix(sink, tableMoveCount);
+        PrometheusFormatUtils.appendNewLine(sink);
+    }
+
+    private static void appendCounter(CharSink sink, CharSequence name, WriterThreadMetrics thread, long value) {
+        PrometheusFormatUtils.appendCounterNamePrefix(name, sink);
+        appendLabel(sink, thread);
+        PrometheusFormatUtils.appendSampleLineSuffix(sink, value);
+    }
+
+    private static void appendLabel(CharSink sink, WriterThreadMetrics thread) {
+        sink.put('{');
+        PrometheusFormatUtils.appendLabel(sink, LABEL_NAME, thread.label);
+        sink.put('}');
+    }
+
+    private static class WriterThreadMetrics {
+        private final CharSequence label;
+        private final Sequence pubSeq;
+        private final Sequence subSeq;
+        // written by the writer thread only
+        private volatile long commitCount;
+        private volatile long commitTimeMicros;
+        private volatile long eventCount;
+
+        private WriterThreadMetrics(CharSequence label, Sequence pubSeq, Sequence subSeq) {
+            this.label = label;
+            this.pubSeq = pubSeq;
+            this.subSeq = subSeq;
+        }
+
+        private long getQueueDepth() {
+            return Math.max(0, pubSeq.current() - subSeq.current());
+        }
+    }
+}
@@ -26,6 +26,7 @@ package io.questdb.cutlass.line.tcp;
 
 import io.questdb.cairo.*;
 import io.questdb.std.Chars;
+import io.questdb.std.IntList;
 import io.questdb.std.LowerCaseCharSequenceHashSet;
 import io.questdb.std.ObjList;
 import io.questdb.std.ThreadLocal;
@@ -38,9 +39,10 @@ class TableStructureAdapter implements TableStructure {
     private static final String DEFAULT_TIMESTAMP_FIELD = "timestamp";
     private static final ThreadLocal<StringSink> tempSink = new ThreadLocal<>(StringSink::new);
     private final CairoConfiguration cairoConfiguration;
+    private final ObjList<CharSequence> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
     private final DefaultColumnTypes defaultColumnTypes;
     private final int defaultPartitionBy;
-    private final ObjList<LineTcpParser.ProtoEntity> entities = new ObjList<>();
     private final LowerCaseCharSequenceHashSet entityNamesUtf16 = new LowerCaseCharSequenceHashSet();
     private CharSequence tableName;
     private int timestampIndex = -1;
@@ -53,7 +55,7 @@ class TableStructureAdapter implements TableStructure {
 
     @Override
     public int getColumnCount() {
-        final int size = entities.size();
+        final int size = columnNames.size();
         return timestampIndex == -1 ? size + 1 : size;
     }
 
@@ -63,7 +65,7 @@ class TableStructureAdapter implements TableStructure {
         if (columnIndex == getTimestampIndex()) {
             return DEFAULT_TIMESTAMP_FIELD;
         }
-        CharSequence colName = entities.get(columnIndex).getName().toString();
+        CharSequence colName = columnNames.get(columnIndex);
         if (TableUtils.isValidColumnName(colName, cairoConfiguration.getMaxFileNameLength())) {
             return colName;
         }
@@ -75,7 +77,7 @@ class TableStructureAdapter implements TableStructure {
         if (columnIndex == getTimestampIndex()) {
             return ColumnType.TIMESTAMP;
         }
-        return defaultColumnTypes.DEFAULT_COLUMN_TYPES[entities.get(columnIndex).getType()];
+        return columnTypes.get(columnIndex);
     }
 
     @Override
@@ -115,7 +117,7 @@ class TableStructureAdapter implements TableStructure {
 
     @Override
     public int getTimestampIndex() {
-        return timestampIndex == -1 ? entities.size() : timestampIndex;
+        return timestampIndex == -1 ? columnNames.size() : timestampIndex;
     }
 
     @Override
@@ -133,23 +135,50 @@ class TableStructureAdapter implements TableStructure {
         return cairoConfiguration.getWalEnabledDefault() && PartitionBy.isPartitioned(getPartitionBy());
     }
 
-    TableStructureAdapter of(CharSequence tableName, LineTcpParser parser) {
+    private boolean addColumn(CharSequence colNameUtf16, int columnType) {
+        int index = entityNamesUtf16.keyIndex(colNameUtf16);
+        if (index > -1) {
+            final String colName = colNameUtf16.toString();
+            entityNamesUtf16.addAt(index, colName);
+            columnNames.add(colName);
+            columnTypes.add(columnType);
+            return true;
+        }
+        return false;
+    }
+
+    private void clear(CharSequence tableName) {
         this.tableName = tableName;
         entityNamesUtf16.clear();
-        entities.clear();
+        columnNames.clear();
+        columnTypes.clear();
         timestampIndex = -1;
+    }
+
+    TableStructureAdapter of(CharSequence tableName, LineTcpColumnBatch columnBatch) {
+        clear(tableName);
+        for (int i = 0, n = columnBatch.getColumnCount(); i < n; i++) {
+            final CharSequence colNameUtf16 = utf8ToUtf16(columnBatch.getColumnName(i), tempSink.get(), true);
+            if (Chars.equals(colNameUtf16, DEFAULT_TIMESTAMP_FIELD)) {
+                // batch timestamps are sent separately from the columns
+                throw CairoException.nonCritical().put("designated timestamp cannot be a column of a column batch [column=").put(colNameUtf16).put(']');
+            }
+            addColumn(colNameUtf16, columnBatch.getColumnType(i));
+        }
+        return this;
+    }
+
+    TableStructureAdapter of(CharSequence tableName, LineTcpParser parser) {
+        clear(tableName);
         final boolean hasNonAsciiChars = parser.hasNonAsciiChars();
         for (int i = 0; i < parser.getEntityCount(); i++) {
             final LineTcpParser.ProtoEntity entity = parser.getEntity(i);
             final DirectByteCharSequence colNameUtf8 = entity.getName();
             final CharSequence colNameUtf16 = utf8ToUtf16(colNameUtf8, tempSink.get(), hasNonAsciiChars);
-            int index = entityNamesUtf16.keyIndex(colNameUtf16);
-            if (index > -1) {
-                entityNamesUtf16.addAt(index, colNameUtf16.toString());
-                if (Chars.equals(colNameUtf16, DEFAULT_TIMESTAMP_FIELD)) {
-                    timestampIndex = entities.size();
-                }
-                entities.add(entity);
+            final int columnIndex = columnNames.size();
+            if (addColumn(colNameUtf16, defaultColumnTypes.DEFAULT_COLUMN_TYPES[entity.getType()])
+                    && Chars.equals(colNameUtf16, DEFAULT_TIMESTAMP_FIELD)) {
+                timestampIndex = columnIndex;
             }
         }
         return this;
@@ -32,6 +32,7 @@ import io.questdb.cairo.wal.MetadataService;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.str.ByteCharSequence;
 import io.questdb.std.str.DirectByteCharSequence;
@@ -40,6 +41,7 @@ import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static io.questdb.cairo.TableUtils.ANY_TABLE_VERSION;
 import static io.questdb.cairo.TableUtils.TXN_FILE_NAME;
@@ -48,27 +50,41 @@ import static io.questdb.std.Chars.utf8ToUtf16;
 public class TableUpdateDetails implements Closeable {
     private static final Log LOG = LogFactory.getLog(TableUpdateDetails.class);
     private static final DirectByteSymbolLookup NOT_FOUND_LOOKUP = value -> SymbolTable.VALUE_NOT_FOUND;
+    private static final long NO_ROW_BUFFER_LAYOUT = Long.MIN_VALUE;
     private final long commitInterval;
     private final DefaultColumnTypes defaultColumnTypes;
     private final long defaultMaxUncommittedRows;
     private final CairoEngine engine;
     private final ThreadLocalDetails[] localDetailsArray;
+    private final MicrosecondClock microsecondClock;
     private final MillisecondClock millisecondClock;
+    // events routed to the row buffers of other writer threads, but not yet appended
+    private final AtomicLong pendingRowBufferEvents = new AtomicLong();
     private final ByteCharSequence tableNameUtf8;
     private final TableToken tableToken;
     private final int timestampIndex;
+    private final LineTcpWriterMetrics writerMetrics;
     private final long writerTickRowsCountMod;
     private boolean assignedToJob = false;
     // Number of rows processed since the last reshuffle, this is an estimate because it is incremented by
     // multiple threads without synchronisation
     private long eventsProcessedSinceReshuffle = 0;
+    // set while the table moves between writer threads, until the old writer thread
+    // has applied all queued events and committed
+    private volatile boolean handoffPending;
     private long lastMeasurementMillis = Long.MAX_VALUE;
     private MetadataService metadataService;
     private int networkIOOwnerCount = 0;
     private long nextCommitTime;
+    // set once all writer threads append rows of the table, see enableParallelWrites()
+    private volatile boolean parallel;
+    // published by the table's writer thread, null until the row buffers can take rows
+    private volatile RowBufferLayout rowBufferLayout;
+    // one per writer thread, indexed by writer thread id
+    private ObjList<O3RowBuffer> rowBuffers;
     private TableWriterAPI writerAPI;
     private volatile boolean writerInError;
-    private int writerThreadId;
+    private volatile int writerThreadId;
 
     public TableUpdateDetails(
             LineTcpReceiverConfiguration configuration,
@@ -77,13 +93,16 @@ public class TableUpdateDetails implements Closeable {
             int writerThreadId,
             NetworkIOJob[] netIoJobs,
             DefaultColumnTypes defaultColumnTypes,
-            ByteCharSequence tableNameUtf8
+            ByteCharSequence tableNameUtf8,
+            LineTcpWriterMetrics writerMetrics
     ) {
         this.writerThreadId = writerThreadId;
+        this.writerMetrics = writerMetrics;
         this.engine = engine;
         this.defaultColumnTypes = defaultColumnTypes;
         final CairoConfiguration cairoConfiguration = engine.getConfiguration();
         this.millisecondClock = cairoConfiguration.getMillisecondClock();
+        this.microsecondClock = cairoConfiguration.getMicrosecondClock();
         this.writerTickRowsCountMod = cairoConfiguration.getWriterTickRowsCountMod();
         this.defaultMaxUncommittedRows = cairoConfiguration.getMaxUncommittedRows();
         this.writerAPI = writer;
@@ -106,6 +125,10 @@ public class TableUpdateDetails implements Closeable {
         this.tableNameUtf8 = tableNameUtf8;
     }
 
+    public void addEventsProcessedSinceReshuffle(int eventCount) {
+        eventsProcessedSinceReshuffle += eventCount;
+    }
+
     public void addReference(int workerId) {
         if (!isWal()) {
             networkIOOwnerCount++;
@@ -137,6 +160,7 @@ public class TableUpdateDetails implements Closeable {
             closeLocals();
             if (null != writerAPI) {
                 try {
+                    mergeRowBuffers();
                     writerAPI.commit();
                 } catch (CairoException ex) {
                     if (!ex.isTableDropped()) {
@@ -150,12 +174,22 @@ public class TableUpdateDetails implements Closeable {
                     metadataService = null;
                 }
             }
+            closeRowBuffers();
             writerThreadId = Integer.MIN_VALUE;
         }
     }
 
-    public void commit(boolean withLag) throws CommitFailedException {
+    public void commit(boolean withLag, int workerId) throws CommitFailedException {
+        if (parallel) {
+            try {
+                mergeRowBuffers();
+            } catch (Throwable ex) {
+                handleCommitException(ex);
+                throw CommitFailedException.instance(ex, false);
+            }
+        }
         if (writerAPI.getUncommittedRowCount() > 0) {
+            final long start = writerMetrics != null ? microsecondClock.getTicks() : 0;
             try {
                 LOG.debug().$("time-based commit " + (withLag ? "with lag " : "") + "[rows=").$(writerAPI.getUncommittedRowCount()).$(", table=").$(tableToken).I$();
                 if (withLag) {
@@ -172,12 +206,40 @@ public class TableUpdateDetails implements Closeable {
                 handleCommitException(ex);
                 throw CommitFailedException.instance(ex, false);
             }
+            if (writerMetrics != null) {
+                writerMetrics.addCommit(workerId, microsecondClock.getTicks() - start);
+            }
         }
         if (isWal() && tableToken != engine.getTableTokenIfExists(tableToken.getTableName())) {
             setWriterInError();
         }
     }
 
+    /**
+     * Lets all writer threads write rows of the table. Threads other than the table's own writer thread
+     * append rows to their row buffer, the table's writer thread merges the buffers into the writer before
+     * each commit. Rows are routed to the row buffers once the table's writer thread publishes their layout
+     * on the next commit.
+     *
+     * @param writerThreadCount number of writer threads
+     */
+    public void enableParallelWrites(int writerThreadCount) {
+        if (!parallel) {
+            final CairoConfiguration cairoConfiguration = engine.getConfiguration();
+            final ObjList<O3RowBuffer> buffers = new ObjList<>(writerThreadCount);
+            for (int i = 0; i < writerThreadCount; i++) {
+                buffers.add(new O3RowBuffer(
+                        cairoConfiguration.getO3ColumnMemorySize(),
+                        cairoConfiguration.getO3MemMaxPages(),
+                        MemoryTag.NATIVE_ILP_RSS
+                ));
+            }
+            rowBuffers = buffers;
+            // the buffers must be visible before the flag
+            parallel = true;
+        }
+    }
+
     public long getEventsProcessedSinceReshuffle() {
         return eventsProcessedSinceReshuffle;
     }
@@ -194,6 +256,26 @@ public class TableUpdateDetails implements Closeable {
         return networkIOOwnerCount;
     }
 
+    /**
+     * Picks the writer thread for the next row of a parallel table sent via the given network IO thread.
+     * Rows are spread over all writer threads, including the table's own one, once the row buffer
+     * layout is published.
+     *
+     * @param workerId network IO thread id
+     * @return writer thread id
+     */
+    public int getParallelWriterThreadId(int workerId) {
+        if (rowBufferLayout == null) {
+            return writerThreadId;
+        }
+        return localDetailsArray[workerId].nextParallelWriterThreadId(rowBuffers.size());
+    }
+
+    public long getRowBufferStructureVersion() {
+        final RowBufferLayout layout = rowBufferLayout;
+        return layout != null ? layout.structureVersion : NO_ROW_BUFFER_LAYOUT;
+    }
+
     public String getTableNameUtf16() {
         return tableToken.getTableName();
     }
@@ -210,14 +292,30 @@ public class TableUpdateDetails implements Closeable {
         return writerThreadId;
     }
 
+    public boolean hasPendingRowBufferEvents() {
+        return pendingRowBufferEvents.get() > 0;
+    }
+
     public void incrementEventsProcessedSinceReshuffle() {
         ++eventsProcessedSinceReshuffle;
     }
 
+    public void incrementPendingRowBufferEvents() {
+        pendingRowBufferEvents.incrementAndGet();
+    }
+
     public boolean isAssignedToJob() {
         return assignedToJob;
     }
 
+    public boolean isHandoffPending() {
+        return handoffPending;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
     public boolean isWal() {
         return writerThreadId == -1;
     }
@@ -226,6 +324,10 @@ public class TableUpdateDetails implements Closeable {
         return writerInError;
     }
 
+    public void onHandoffComplete() {
+        handoffPending = false;
+    }
+
     public void removeReference(int workerId) {
         if (!isWal()) {
             networkIOOwnerCount--;
@@ -238,10 +340,26 @@ public class TableUpdateDetails implements Closeable {
         }
     }
 
+    public void resetEventsProcessedSinceReshuffle() {
+        eventsProcessedSinceReshuffle = 0;
+    }
+
     public void setAssignedToJob(boolean assignedToJob) {
         this.assignedToJob = assignedToJob;
     }
 
+    /**
+     * Routes new events of the table to another writer thread. The new writer thread does not
+     * process them until the old one handles the handoff event and calls {@link #onHandoffComplete()}.
+     *
+     * @param writerThreadId id of the writer thread to move the table to
+     */
+    public void setHandoffWriterThreadId(int writerThreadId) {
+        // the flag must be visible before the new thread id
+        handoffPending = true;
+        this.writerThreadId = writerThreadId;
+    }
+
     public void setWriterInError() {
         writerInError = true;
     }
@@ -252,6 +370,17 @@ public class TableUpdateDetails implements Closeable {
         }
     }
 
+    private void closeRowBuffers() {
+        if (rowBuffers != null) {
+            for (int i = 0, n = rowBuffers.size(); i < n; i++) {
+                final O3RowBuffer rowBuffer = rowBuffers.getQuick(i);
+                synchronized (rowBuffer) {
+                    rowBuffer.close();
+                }
+            }
+        }
+    }
+
     private long getMetaMaxUncommittedRows() {
         if (metadataService != null) {
             return metadataService.getMetaMaxUncommittedRows();
@@ -269,13 +398,67 @@ public class TableUpdateDetails implements Closeable {
         }
     }
 
-    long commitIfIntervalElapsed(long wallClockMillis) throws CommitFailedException {
+    private void mergeRowBuffers() {
+        if (parallel && writerAPI != null) {
+            final TableWriter writer = (TableWriter) writerAPI;
+            for (int i = 0, n = rowBuffers.size(); i < n; i++) {
+                final O3RowBuffer rowBuffer = rowBuffers.getQuick(i);
+                synchronized (rowBuffer) {
+                    try {
+                        writer.appendO3RowBuffer(rowBuffer);
+                    } finally {
+                        rowBuffer.clear();
+                    }
+                }
+            }
+            publishRowBufferLayout(writer);
+        }
+    }
+
+    private void publishRowBufferLayout(TableWriter writer) {
+        final long structureVersion = writer.getStructureVersion();
+        final RowBufferLayout layout = rowBufferLayout;
+        if ((layout == null || layout.structureVersion != structureVersion)
+                && timestampIndex > -1
+                && PartitionBy.isPartitioned(writer.getPartitionBy())) {
+            final TableRecordMetadata metadata = writer.getMetadata();
+            final IntList columnTypes = new IntList(metadata.getColumnCount());
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                columnTypes.add(metadata.getColumnType(i));
+            }
+            rowBufferLayout = new RowBufferLayout(structureVersion, timestampIndex, columnTypes);
+            LOG.info().$("row buffer layout published [table=").$(tableToken)
+                    .$(", structureVersion=").$(structureVersion)
+                    .I$();
+        }
+    }
+
+    void appendToRowBuffer(int writerThreadId, LineTcpMeasurementEvent event) {
+        try {
+            final O3RowBuffer rowBuffer = rowBuffers.getQuick(writerThreadId);
+            synchronized (rowBuffer) {
+                if (rowBuffer.isClosed()) {
+                    LOG.error().$("table is closed, measurement is dropped [table=").$(tableToken).I$();
+                    return;
+                }
+                final RowBufferLayout layout = rowBufferLayout;
+                if (layout != null && layout.structureVersion != rowBuffer.getStructureVersion()) {
+                    rowBuffer.of(layout.structureVersion, layout.timestampIndex, layout.columnTypes);
+                }
+                event.appendToRowBuffer(rowBuffer);
+            }
+        } finally {
+            pendingRowBufferEvents.decrementAndGet();
+        }
+    }
+
+    long commitIfIntervalElapsed(long wallClockMillis, int workerId) throws CommitFailedException {
         if (wallClockMillis < nextCommitTime) {
             return nextCommitTime;
         }
         if (writerAPI != null) {
             long start = millisecondClock.getTicks();
-            commit(wallClockMillis - lastMeasurementMillis < commitInterval);
+            commit(wallClockMillis - lastMeasurementMillis < commitInterval, workerId);
             // Do not commit row by row if the commit takes longer than commitInterval.
             // Exclude time to commit from the commit interval.
             nextCommitTime += commitInterval + millisecondClock.getTicks() - start;
@@ -283,8 +466,14 @@ public class TableUpdateDetails implements Closeable {
         return nextCommitTime;
     }
 
-    void commitIfMaxUncommittedRowsCountReached() throws CommitFailedException {
-        final long rowsSinceCommit = writerAPI.getUncommittedRowCount();
+    void commitIfMaxUncommittedRowsCountReached(int workerId) throws CommitFailedException {
+        long rowsSinceCommit = writerAPI.getUncommittedRowCount();
+        if (parallel) {
+            // an estimate, the buffers are appended to by other writer threads
+            for (int i = 0, n = rowBuffers.size(); i < n; i++) {
+                rowsSinceCommit += rowBuffers.getQuick(i).getRowCount();
+            }
+        }
         if (rowsSinceCommit < getMetaMaxUncommittedRows()) {
             if ((rowsSinceCommit & writerTickRowsCountMod) == 0) {
                 // Tick without commit. Some tick commands may force writer to commit though.
@@ -296,7 +485,7 @@ public class TableUpdateDetails implements Closeable {
         nextCommitTime = millisecondClock.getTicks() + commitInterval;
 
         try {
-            commit(true);
+            commit(true, workerId);
         } catch (CommitFailedException ex) {
             throw ex;
         } catch (Throwable th) {
@@ -331,6 +520,7 @@ public class TableUpdateDetails implements Closeable {
             try {
                 if (commit) {
                     LOG.debug().$("release commit [table=").$(tableToken).I$();
+                    mergeRowBuffers();
                     writerAPI.commit();
                 }
             } catch (Throwable ex) {
@@ -340,10 +530,25 @@ public class TableUpdateDetails implements Closeable {
                 // do not leave writer locked
                 writerAPI = Misc.free(writerAPI);
                 metadataService = null;
+                // no more rows are routed to the row buffers
+                rowBufferLayout = null;
+                closeRowBuffers();
             }
         }
     }
 
+    private static class RowBufferLayout {
+        private final IntList columnTypes;
+        private final long structureVersion;
+        private final int timestampIndex;
+
+        private RowBufferLayout(long structureVersion, int timestampIndex, IntList columnTypes) {
+            this.structureVersion = structureVersion;
+            this.timestampIndex = timestampIndex;
+            this.columnTypes = columnTypes;
+        }
+    }
+
     public class ThreadLocalDetails implements Closeable {
         static final int COLUMN_NOT_FOUND = -1;
         static final int DUPLICATED_COLUMN = -2;
@@ -370,6 +575,7 @@ public class TableUpdateDetails implements Closeable {
         private String colNameUtf16;
         private ByteCharSequence colNameUtf8;
         private int columnCount;
+        private int parallelWriterThreadCursor;
         private TableRecordMetadata latestKnownMetadata;
         private String symbolNameTemp;
         private TxReader txReader;
@@ -653,6 +859,13 @@ public class TableUpdateDetails implements Closeable {
             return NOT_FOUND_LOOKUP;
         }
 
+        int nextParallelWriterThreadId(int writerThreadCount) {
+            if (++parallelWriterThreadCursor >= writerThreadCount) {
+                parallelWriterThreadCursor = 0;
+            }
+            return parallelWriterThreadCursor;
+        }
+
         void resetStateIfNecessary() {
             // First, reset processed column tracking.
             clearProcessedColumns();
@@ -58,6 +58,7 @@ public class CopyRequestJob extends SynchronizedJob implements Closeable {
     private final Sequence requestSubSeq;
     private final TableToken statusTableToken;
     private final StringSink stringSink = new StringSink();
+    private CsvFileExporter exporter;
     private ParallelCsvFileImporter parallelImporter;
     private Path path;
     private SerialCsvFileImporter serialImporter;
@@ -76,6 +77,7 @@ public class CopyRequestJob extends SynchronizedJob implements Closeable {
         this.requestSubSeq = engine.getMessageBus().getTextImportRequestSubSeq();
         this.parallelImporter = new ParallelCsvFileImporter(engine, workerCount);
         this.serialImporter = new SerialCsvFileImporter(engine);
+        this.exporter = new CsvFileExporter(engine, workerCount, functionFactoryCache);
 
         CairoConfiguration configuration = engine.getConfiguration();
         this.clock = configuration.getMicrosecondClock();
@@ -115,6 +117,7 @@ public class CopyRequestJob extends SynchronizedJob implements Closeable {
     public void close() {
         this.parallelImporter = Misc.free(parallelImporter);
         this.serialImporter = Misc.free(serialImporter);
+        this.exporter = Misc.free(exporter);
         this.writer = Misc.free(this.writer);
         this.sqlCompiler = Misc.free(sqlCompiler);
         this.sqlExecutionContext = Misc.free(sqlExecutionContext);
@@ -211,7 +214,18 @@ public class CopyRequestJob extends SynchronizedJob implements Closeable {
         if (cursor > -1) {
             task = requestQueue.get(cursor);
             try {
-                if (useParallelImport()) {
+                if (task.isExport()) {
+                    exporter.of(
+                            task.getSelectText(),
+                            task.getFileName(),
+                            task.getCopyID(),
+                            task.getDelimiter(),
+                            task.isHeaderFlag(),
+                            copyContext.getCircuitBreaker()
+                    );
+                    exporter.setStatusReporter(updateStatusRef);
+                    exporter.process(task.getSecurityContext());
+                } else if (useParallelImport()) {
                     parallelImporter.of(
                             task.getTableName(),
                             task.getFileName(),
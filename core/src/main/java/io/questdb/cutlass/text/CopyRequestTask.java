@@ -35,6 +35,7 @@ public class CopyRequestTask implements Mutable {
     private boolean headerFlag;
     private long copyID;
     private int partitionBy;
+    private String selectText; // query to export, null for imports
     private String tableName;
     private String timestampColumnName;
     private String timestampFormat;
@@ -50,6 +51,7 @@ public class CopyRequestTask implements Mutable {
         this.timestampFormat = null;
         this.partitionBy = -1;
         this.atomicity = -1;
+        this.selectText = null;
     }
 
     public int getAtomicity() {
@@ -72,6 +74,10 @@ public class CopyRequestTask implements Mutable {
         return partitionBy;
     }
 
+    public String getSelectText() {
+        return selectText;
+    }
+
     public String getTableName() {
         return tableName;
     }
@@ -84,6 +90,10 @@ public class CopyRequestTask implements Mutable {
         return timestampFormat;
     }
 
+    public boolean isExport() {
+        return selectText != null;
+    }
+
     public boolean isHeaderFlag() {
         return headerFlag;
     }
@@ -116,4 +126,23 @@ public class CopyRequestTask implements Mutable {
         this.partitionBy = partitionBy;
         this.atomicity = atomicity;
     }
+
+    public void ofExport(
+            SecurityContext securityContext,
+            long copyID,
+            String tableName,
+            String fileName,
+            String selectText,
+            boolean headerFlag,
+            byte delimiter
+    ) {
+        this.clear();
+        this.securityContext = securityContext;
+        this.copyID = copyID;
+        this.tableName = tableName;
+        this.fileName = fileName;
+        this.selectText = selectText;
+        this.headerFlag = headerFlag;
+        this.delimiter = delimiter;
+    }
 }
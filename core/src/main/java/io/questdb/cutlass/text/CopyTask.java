@@ -52,6 +52,7 @@ public class CopyTask {
     public static final byte PHASE_BOUNDARY_CHECK = 1;
     public static final byte PHASE_BUILD_SYMBOL_INDEX = 6;
     public static final byte PHASE_CLEANUP = 10;
+    public static final byte PHASE_EXPORT = 11;
     public static final byte PHASE_INDEXING = 2;
     public static final byte PHASE_MOVE_PARTITIONS = 7;
     public static final byte PHASE_PARTITION_IMPORT = 3;
@@ -1433,6 +1434,7 @@ public class CopyTask {
         PHASE_NAME_MAP.put(PHASE_ATTACH_PARTITIONS, "attach_partitions");
         PHASE_NAME_MAP.put(PHASE_ANALYZE_FILE_STRUCTURE, "analyze_file_structure");
         PHASE_NAME_MAP.put(PHASE_CLEANUP, "cleanup");
+        PHASE_NAME_MAP.put(PHASE_EXPORT, "export");
 
         STATUS_NAME_MAP.put(STATUS_STARTED, "started");
         STATUS_NAME_MAP.put(STATUS_FINISHED, "finished");
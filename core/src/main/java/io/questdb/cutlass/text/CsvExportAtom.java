@@ -0,0 +1,159 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.text;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Holds the state shared by the workers participating in a parallel export.
+ * <p>
+ * Each worker formats one page frame at a time into a file of its own under
+ * the export work directory. The files are then appended to the export file
+ * in the frame order by the thread that runs the export.
+ */
+class CsvExportAtom implements StatefulAtom, Closeable {
+    private static final Log LOG = LogFactory.getLog(CsvExportAtom.class);
+    private final FilesFacade ff;
+    private final long fileOpenOpts;
+    private final Path ownerPath = new Path();
+    private final CsvExportSink ownerSink;
+    private final PerWorkerLocks perWorkerLocks;
+    private final ObjList<Path> perWorkerPaths;
+    private final ObjList<CsvExportSink> perWorkerSinks;
+    private char delimiter;
+    // the first error seen by the workers, written racy, as any of the errors is good to report
+    private volatile String error;
+    private RecordMetadata metadata;
+    private CharSequence workDir;
+
+    CsvExportAtom(@NotNull CairoConfiguration configuration, int workerCount) {
+        this.ff = configuration.getFilesFacade();
+        this.fileOpenOpts = configuration.getWriterFileOpenOpts();
+        this.perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
+        this.perWorkerPaths = new ObjList<>(workerCount);
+        this.perWorkerSinks = new ObjList<>(workerCount);
+        final int bufSize = configuration.getSqlCopyBufferSize();
+        try {
+            ownerSink = new CsvExportSink(ff, bufSize);
+            for (int i = 0; i < workerCount; i++) {
+                perWorkerPaths.extendAndSet(i, new Path());
+                perWorkerSinks.extendAndSet(i, new CsvExportSink(ff, bufSize));
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Acquires a slot for the given worker. The returned slot id is then used
+     * to access the worker's sink.
+     *
+     * @param workerId       worker id, -1 for a query owner or a work stealing thread
+     * @param owner          true when called by the query owner thread
+     * @param circuitBreaker circuit breaker to check while waiting for a free slot
+     * @return slot id, -1 stands for the query owner slot
+     */
+    public int acquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            return -1;
+        }
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(ownerPath);
+        Misc.free(ownerSink);
+        Misc.freeObjList(perWorkerPaths);
+        Misc.freeObjList(perWorkerSinks);
+    }
+
+    /**
+     * Formats all rows of the page frame into the frame file.
+     *
+     * @param slotId        slot id returned by {@link #acquire(int, boolean, SqlExecutionCircuitBreaker)}
+     * @param record        record positioned at the page frame
+     * @param frameIndex    index of the page frame
+     * @param frameRowCount number of rows in the page frame
+     */
+    public void exportFrame(int slotId, PageAddressCacheRecord record, int frameIndex, long frameRowCount) {
+        final Path path = slotId == -1 ? ownerPath : perWorkerPaths.getQuick(slotId);
+        final CsvExportSink sink = slotId == -1 ? ownerSink : perWorkerSinks.getQuick(slotId);
+        final int fd = TableUtils.openRW(ff, framePath(path, workDir, frameIndex), LOG, fileOpenOpts);
+        try {
+            sink.of(fd, 0, delimiter);
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                sink.putRecord(record, metadata);
+            }
+            sink.flush();
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    public @Nullable String getError() {
+        return error;
+    }
+
+    public void of(RecordMetadata metadata, CharSequence workDir, char delimiter) {
+        this.metadata = metadata;
+        this.workDir = workDir;
+        this.delimiter = delimiter;
+        this.error = null;
+    }
+
+    public void release(int slotId) {
+        perWorkerLocks.releaseSlot(slotId);
+    }
+
+    public void setError(CharSequence error) {
+        if (this.error == null) {
+            this.error = error.toString();
+        }
+    }
+
+    static Path framePath(Path path, CharSequence workDir, int frameIndex) {
+        return path.of(workDir).concat("frame_").put(frameIndex).put(".csv").$();
+    }
+}
@@ -0,0 +1,267 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.text;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Uuid;
+import io.questdb.std.str.AbstractCharSink;
+import io.questdb.std.str.CharSink;
+
+import java.io.Closeable;
+
+/**
+ * Formats records as CSV lines into a native buffer and writes the buffer out
+ * to the file each time it fills up, so that the file is written with large
+ * sequential writes.
+ * <p>
+ * Values are formatted in the same way as the /exp endpoint does, except for
+ * the quotes inside string values, which are doubled.
+ */
+class CsvExportSink extends AbstractCharSink implements Closeable {
+    private static final int FLOAT_SCALE = 4;
+    private final long bufSize;
+    private final FilesFacade ff;
+    private long bufAddr;
+    private long bufLimit;
+    private long bufPtr;
+    private char delimiter = ',';
+    private int fd = -1;
+    private long fileOffset;
+
+    CsvExportSink(FilesFacade ff, long bufSize) {
+        this.ff = ff;
+        this.bufSize = bufSize;
+        this.bufAddr = bufPtr = Unsafe.malloc(bufSize, MemoryTag.NATIVE_IMPORT);
+        this.bufLimit = bufAddr + bufSize;
+    }
+
+    @Override
+    public void close() {
+        if (bufAddr != 0) {
+            Unsafe.free(bufAddr, bufSize, MemoryTag.NATIVE_IMPORT);
+            bufAddr = bufPtr = bufLimit = 0;
+        }
+        fd = -1;
+    }
+
+    /**
+     * Writes out the buffered bytes. The file is not closed.
+     */
+    @Override
+    public void flush() {
+        final long len = bufPtr - bufAddr;
+        if (len > 0) {
+            if (ff.write(fd, bufAddr, len, fileOffset) != len) {
+                throw CairoException.critical(ff.errno()).put("could not write export file [fd=").put(fd)
+                        .put(", offset=").put(fileOffset)
+                        .put(", len=").put(len)
+                        .put(']');
+            }
+            fileOffset += len;
+            bufPtr = bufAddr;
+        }
+    }
+
+    /**
+     * @return offset of the file to write the next byte at, valid after {@link #flush()}
+     */
+    public long getFileOffset() {
+        return fileOffset;
+    }
+
+    public void of(int fd, long fileOffset, char delimiter) {
+        this.fd = fd;
+        this.fileOffset = fileOffset;
+        this.delimiter = delimiter;
+        this.bufPtr = bufAddr;
+    }
+
+    @Override
+    public CharSink put(CharSequence cs) {
+        for (int i = 0, n = cs.length(); i < n; i++) {
+            put(cs.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public CharSink put(char c) {
+        if (bufPtr == bufLimit) {
+            flush();
+        }
+        Unsafe.getUnsafe().putByte(bufPtr++, (byte) c);
+        return this;
+    }
+
+    public void putHeader(RecordMetadata metadata) {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (i > 0) {
+                put(delimiter);
+            }
+            putEscaped(metadata.getColumnName(i));
+        }
+        put(Misc.EOL);
+    }
+
+    public void putRecord(Record record, RecordMetadata metadata) {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (i > 0) {
+                put(delimiter);
+            }
+            putValue(record, metadata.getColumnType(i), i);
+        }
+        put(Misc.EOL);
+    }
+
+    private void putEscaped(CharSequence cs) {
+        put('"');
+        int lo = 0;
+        for (int i = 0, n = cs.length(); i < n; i++) {
+            if (cs.charAt(i) == '"') {
+                encodeUtf8(cs, lo, i + 1);
+                put('"');
+                lo = i + 1;
+            }
+        }
+        encodeUtf8(cs, lo, cs.length());
+        put('"');
+    }
+
+    private void putGeoHash(long value, int type) {
+        if (value != GeoHashes.NULL) {
+            final int bitFlags = GeoHashes.getBitFlags(type);
+            put('"');
+            if (bitFlags < 0) {
+                GeoHashes.appendCharsUnsafe(value, -bitFlags, this);
+            } else {
+                GeoHashes.appendBinaryStringUnsafe(value, bitFlags, this);
+            }
+            put('"');
+        }
+    }
+
+    private void putStrOrNull(CharSequence cs) {
+        if (cs != null) {
+            putEscaped(cs);
+        }
+    }
+
+    private void putValue(Record record, int type, int col) {
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BOOLEAN:
+                put(record.getBool(col));
+                break;
+            case ColumnType.BYTE:
+                put(record.getByte(col));
+                break;
+            case ColumnType.DOUBLE:
+                final double d = record.getDouble(col);
+                if (d == d) {
+                    put(d);
+                }
+                break;
+            case ColumnType.FLOAT:
+                final float f = record.getFloat(col);
+                if (f == f) {
+                    put(f, FLOAT_SCALE);
+                }
+                break;
+            case ColumnType.INT:
+                final int i = record.getInt(col);
+                if (i != Numbers.INT_NaN) {
+                    put(i);
+                }
+                break;
+            case ColumnType.LONG:
+                long l = record.getLong(col);
+                if (l != Numbers.LONG_NaN) {
+                    put(l);
+                }
+                break;
+            case ColumnType.DATE:
+                l = record.getDate(col);
+                if (l != Numbers.LONG_NaN) {
+                    put('"').putISODateMillis(l).put('"');
+                }
+                break;
+            case ColumnType.TIMESTAMP:
+                l = record.getTimestamp(col);
+                if (l != Numbers.LONG_NaN) {
+                    put('"').putISODate(l).put('"');
+                }
+                break;
+            case ColumnType.SHORT:
+                put(record.getShort(col));
+                break;
+            case ColumnType.CHAR:
+                final char c = record.getChar(col);
+                if (c > 0) {
+                    putUtf8(c);
+                }
+                break;
+            case ColumnType.STRING:
+                putStrOrNull(record.getStr(col));
+                break;
+            case ColumnType.SYMBOL:
+                putStrOrNull(record.getSym(col));
+                break;
+            case ColumnType.LONG256:
+                record.getLong256(col, this);
+                break;
+            case ColumnType.GEOBYTE:
+                putGeoHash(record.getGeoByte(col), type);
+                break;
+            case ColumnType.GEOSHORT:
+                putGeoHash(record.getGeoShort(col), type);
+                break;
+            case ColumnType.GEOINT:
+                putGeoHash(record.getGeoInt(col), type);
+                break;
+            case ColumnType.GEOLONG:
+                putGeoHash(record.getGeoLong(col), type);
+                break;
+            case ColumnType.UUID:
+                final long lo = record.getLong128Lo(col);
+                final long hi = record.getLong128Hi(col);
+                if (!Uuid.isNull(lo, hi)) {
+                    Numbers.appendUuid(lo, hi, this);
+                }
+                break;
+            default:
+                // binary and other non-printable values are exported as nulls
+                break;
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.text;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.SecurityContext;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.sql.ExecutionCircuitBreaker;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.Os;
+import io.questdb.std.WeakClosableObjectPool;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
+/**
+ * Exports result of a query to a CSV file under the copy export root.
+ * <p>
+ * The export is written to a temporary file next to the export file and renamed
+ * when it's complete. Existing files are never overwritten, the export fails when
+ * the export file already exists.
+ * <p>
+ * When the query supports page frames, e.g. it's a full table scan or an interval
+ * scan, the frames are formatted in parallel by the shared pool workers. Each frame
+ * is written into a file of its own under the copy work root, then the files are
+ * appended to the export file in the frame order. Other queries are formatted by
+ * the calling thread. In both cases the files are written with large sequential
+ * writes of {@link CairoConfiguration#getSqlCopyBufferSize()} bytes.
+ */
+public final class CsvFileExporter implements Closeable {
+    private static final Log LOG = LogFactory.getLog(CsvFileExporter.class);
+    private static final PageFrameReducer REDUCER = CsvFileExporter::exportFrame;
+    private final CsvExportAtom atom;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final PageFrameSequence<CsvExportAtom> frameSequence;
+    private final CharSequence outputRoot;
+    private final WeakClosableObjectPool<PageFrameReduceTask> reduceTaskPool;
+    private final CharSequence workRoot;
+    private ExecutionCircuitBreaker circuitBreaker;
+    private byte delimiter;
+    private long exportId;
+    private String fileName;
+    private boolean header;
+    private Path path;
+    private String selectText;
+    private CsvExportSink sink;
+    private SqlCompiler sqlCompiler;
+    private SqlExecutionContextImpl sqlExecutionContext;
+    private ParallelCsvFileImporter.PhaseStatusReporter statusReporter;
+    private Path tmpFilePath;
+    private Path tmpPath;
+    private String workDir;
+    private boolean workDirCreated;
+
+    public CsvFileExporter(CairoEngine engine, int workerCount, @Nullable FunctionFactoryCache functionFactoryCache) {
+        this.configuration = engine.getConfiguration();
+        this.ff = configuration.getFilesFacade();
+        this.outputRoot = configuration.getSqlCopyExportRoot();
+        this.workRoot = configuration.getSqlCopyInputWorkRoot();
+        this.path = new Path();
+        this.tmpFilePath = new Path();
+        this.tmpPath = new Path();
+        this.sink = new CsvExportSink(ff, configuration.getSqlCopyBufferSize());
+        this.atom = new CsvExportAtom(configuration, workerCount);
+        this.reduceTaskPool = new WeakClosableObjectPool<>(
+                () -> new PageFrameReduceTask(configuration),
+                configuration.getPageFrameReduceTaskPoolCapacity()
+        );
+        this.frameSequence = new PageFrameSequence<>(configuration, engine.getMessageBus(), REDUCER, reduceTaskPool);
+        this.sqlCompiler = configuration.getFactoryProvider().getSqlCompilerFactory().getInstance(engine, functionFactoryCache, null);
+        this.sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount) {
+            @Override
+            public boolean isUninterruptible() {
+                // exports may run for hours, they are stopped with COPY CANCEL rather than by the query timeout
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        Misc.free(frameSequence);
+        Misc.free(atom);
+        Misc.free(reduceTaskPool);
+        this.sink = Misc.free(sink);
+        this.sqlCompiler = Misc.free(sqlCompiler);
+        this.sqlExecutionContext = Misc.free(sqlExecutionContext);
+        this.path = Misc.free(path);
+        this.tmpFilePath = Misc.free(tmpFilePath);
+        this.tmpPath = Misc.free(tmpPath);
+    }
+
+    public void of(
+            String selectText,
+            String outputFileName,
+            long exportId,
+            byte delimiter,
+            boolean header,
+            ExecutionCircuitBreaker circuitBreaker
+    ) {
+        this.selectText = selectText;
+        this.fileName = outputFileName;
+        this.exportId = exportId;
+        this.delimiter = delimiter;
+        this.header = header;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public void process(SecurityContext securityContext) throws TextImportException {
+        LOG.info()
+                .$("started [exportId=").$hexPadded(exportId)
+                .$(", file=`").$(fileName).$('`').I$();
+
+        final long startMs = configuration.getMillisecondClock().getTicks();
+        updateStatus(CopyTask.STATUS_STARTED, Numbers.LONG_NaN);
+
+        sqlExecutionContext.with(securityContext, null, null);
+        path.of(outputRoot).concat(fileName).$();
+        tmpFilePath.of(path).put(".export_");
+        Numbers.appendHex(tmpFilePath, exportId, true);
+        tmpFilePath.put(".tmp").$();
+        int fd = -1;
+        boolean tmpFileCreated = false;
+        boolean success = false;
+        try (RecordCursorFactory factory = sqlCompiler.compile(selectText, sqlExecutionContext).getRecordCursorFactory()) {
+            if (factory == null) {
+                throw TextImportException.instance(CopyTask.PHASE_EXPORT, "query does not return rows");
+            }
+            checkFileDoesNotExist(path);
+            checkFileDoesNotExist(tmpFilePath);
+            fd = TableUtils.openRW(ff, tmpFilePath, LOG, configuration.getWriterFileOpenOpts());
+            tmpFileCreated = true;
+
+            sink.of(fd, 0, (char) delimiter);
+            if (header) {
+                sink.putHeader(factory.getMetadata());
+            }
+
+            final long rowCount;
+            if (factory.supportPageFrameCursor() && factory.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD) {
+                sink.flush();
+                rowCount = exportFrames(factory, fd, sink.getFileOffset());
+            } else {
+                rowCount = exportRecords(factory);
+            }
+            ff.close(fd);
+            fd = -1;
+            // the export file may have been created while the export was running
+            checkFileDoesNotExist(path);
+            if (ff.rename(tmpFilePath, path) != Files.FILES_RENAME_OK) {
+                throw CairoException.critical(ff.errno()).put("could not rename export file [from=").put(tmpFilePath)
+                        .put(", to=").put(path)
+                        .put(']');
+            }
+            success = true;
+
+            updateStatus(CopyTask.STATUS_FINISHED, rowCount);
+            LOG.info()
+                    .$("export complete [exportId=").$hexPadded(exportId)
+                    .$(", file=`").$(fileName).$('`')
+                    .$(", rows=").$(rowCount)
+                    .$(", time=").$((configuration.getMillisecondClock().getTicks() - startMs) / 1000).$('s')
+                    .I$();
+        } catch (SqlException e) {
+            throw TextImportException.instance(CopyTask.PHASE_EXPORT, e.getFlyweightMessage());
+        } catch (CairoException e) {
+            throw TextImportException.instance(CopyTask.PHASE_EXPORT, e.getFlyweightMessage(), e.getErrno());
+        } finally {
+            ff.close(fd);
+            if (!success && tmpFileCreated) {
+                // don't leave incomplete file behind
+                ff.remove(tmpFilePath);
+            }
+        }
+    }
+
+    public void setStatusReporter(ParallelCsvFileImporter.PhaseStatusReporter reporter) {
+        this.statusReporter = reporter;
+    }
+
+    private static void exportFrame(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final PageFrameSequence<CsvExportAtom> frameSequence = task.getFrameSequence(CsvExportAtom.class);
+        final CsvExportAtom atom = frameSequence.getAtom();
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == frameSequence;
+        final int slotId = atom.acquire(workerId, owner, circuitBreaker);
+        try {
+            atom.exportFrame(slotId, record, task.getFrameIndex(), task.getFrameRowCount());
+        } catch (CairoException e) {
+            atom.setError(e.getFlyweightMessage());
+            frameSequence.cancel();
+        } catch (Throwable th) {
+            LOG.error().$("could not export page frame [frameIndex=").$(task.getFrameIndex()).$(", ex=").$(th).I$();
+            atom.setError("could not export page frame");
+            frameSequence.cancel();
+        } finally {
+            atom.release(slotId);
+        }
+    }
+
+    private long appendFrame(int frameIndex, int fd, long offset) {
+        final int frameFd = TableUtils.openRO(ff, CsvExportAtom.framePath(tmpPath, workDir, frameIndex), LOG);
+        try {
+            final long len = ff.length(frameFd);
+            if (len > 0 && ff.copyData(frameFd, fd, 0, offset, len) != len) {
+                throw CairoException.critical(ff.errno()).put("could not append page frame to export file [path=").put(tmpPath).put(']');
+            }
+            return len;
+        } finally {
+            ff.close(frameFd);
+            ff.remove(tmpPath);
+        }
+    }
+
+    private void checkCancelled() {
+        if (circuitBreaker.checkIfTripped()) {
+            TextImportException ex = TextImportException.instance(CopyTask.PHASE_EXPORT, "export was cancelled");
+            ex.setCancelled(true);
+            throw ex;
+        }
+    }
+
+    private void checkFileDoesNotExist(Path path) {
+        if (ff.exists(path)) {
+            throw CairoException.nonCritical().put("export file already exists [path=").put(path).put(']');
+        }
+    }
+
+    private void createWorkDir() {
+        tmpPath.of(workRoot).slash$();
+        if (!ff.exists(tmpPath) && ff.mkdir(tmpPath, configuration.getMkDirMode()) != 0) {
+            throw CairoException.critical(ff.errno()).put("could not create export work root directory [path='").put(tmpPath).put("']");
+        }
+        tmpPath.of(workRoot).concat("export_");
+        Numbers.appendHex(tmpPath, exportId, true);
+        workDir = tmpPath.toString();
+        if (ff.exists(tmpPath.$())) {
+            throw CairoException.critical(0).put("export work directory already exists [path='").put(tmpPath).put("']");
+        }
+        if (ff.mkdir(tmpPath.of(workDir).slash$(), configuration.getMkDirMode()) != 0) {
+            throw CairoException.critical(ff.errno()).put("could not create export work directory [path='").put(tmpPath).put("']");
+        }
+        workDirCreated = true;
+    }
+
+    private long exportFrames(RecordCursorFactory factory, int fd, long offset) throws SqlException {
+        createWorkDir();
+        try {
+            atom.of(factory.getMetadata(), workDir, (char) delimiter);
+            frameSequence.of(factory, sqlExecutionContext, collectSubSeq, atom, ORDER_ASC);
+            long rowCount = 0;
+            try {
+                frameSequence.prepareForDispatch();
+                final int frameLimit = frameSequence.getFrameCount() - 1;
+                int frameIndex = -1;
+                while (frameIndex < frameLimit) {
+                    if (circuitBreaker.checkIfTripped()) {
+                        frameSequence.cancel();
+                        checkCancelled();
+                    }
+                    final long cursor = frameSequence.next();
+                    if (cursor > -1) {
+                        final PageFrameReduceTask task = frameSequence.getTask(cursor);
+                        frameIndex = task.getFrameIndex();
+                        // read row count before the collect, the last frame collect resets the counts
+                        rowCount += task.getFrameRowCount();
+                        final boolean active = frameSequence.isActive();
+                        frameSequence.collect(cursor, false);
+                        if (!active) {
+                            final String error = atom.getError();
+                            throw CairoException.nonCritical().put(error != null ? error : "export was interrupted");
+                        }
+                        offset += appendFrame(frameIndex, fd, offset);
+                    } else if (cursor == -2) {
+                        break; // no frames to export
+                    } else {
+                        Os.pause();
+                    }
+                }
+            } finally {
+                frameSequence.await();
+                frameSequence.clear();
+            }
+            return rowCount;
+        } finally {
+            removeWorkDir();
+        }
+    }
+
+    private long exportRecords(RecordCursorFactory factory) throws SqlException {
+        long rowCount = 0;
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            final Record record = cursor.getRecord();
+            final RecordMetadata metadata = factory.getMetadata();
+            while (cursor.hasNext()) {
+                checkCancelled();
+                sink.putRecord(record, metadata);
+                rowCount++;
+            }
+        }
+        sink.flush();
+        return rowCount;
+    }
+
+    private void removeWorkDir() {
+        // the directory is removed only when this export has created it
+        if (workDirCreated) {
+            workDirCreated = false;
+            final int errno = ff.rmdir(tmpPath.of(workDir).$());
+            if (errno != 0) {
+                LOG.error().$("could not remove export work directory [path='").$(tmpPath).$("', errno=").$(errno).I$();
+            }
+        }
+    }
+
+    private void updateStatus(byte status, long rowCount) {
+        if (statusReporter != null) {
+            statusReporter.report(CopyTask.PHASE_EXPORT, status, null, rowCount, 0, 0);
+        }
+    }
+}
@@ -515,14 +515,29 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         assert node.queryModel != null;
         // Disable async offload for in (select ...) sub-queries to avoid infinite loops
         // due to nested reduce calls. See SqlCodeGenerator#testBug484() for the reproducer.
+        boolean currentAsOfJoinEnabled = sqlExecutionContext.isParallelAsOfJoinEnabled();
         boolean currentFilterEnabled = sqlExecutionContext.isParallelFilterEnabled();
+        boolean currentGroupByEnabled = sqlExecutionContext.isParallelGroupByEnabled();
+        boolean currentHashJoinEnabled = sqlExecutionContext.isParallelHashJoinEnabled();
+        boolean currentLatestByEnabled = sqlExecutionContext.isParallelLatestByEnabled();
+        boolean currentSortEnabled = sqlExecutionContext.isParallelSortEnabled();
+        sqlExecutionContext.setParallelAsOfJoinEnabled(false);
         sqlExecutionContext.setParallelFilterEnabled(false);
+        sqlExecutionContext.setParallelGroupByEnabled(false);
+        sqlExecutionContext.setParallelHashJoinEnabled(false);
+        sqlExecutionContext.setParallelLatestByEnabled(false);
+        sqlExecutionContext.setParallelSortEnabled(false);
         // Make sure to override timestamp required flag from base query.
         sqlExecutionContext.pushTimestampRequiredFlag(false);
         try {
             return new CursorFunction(sqlCodeGenerator.generate(node.queryModel, sqlExecutionContext));
         } finally {
+            sqlExecutionContext.setParallelAsOfJoinEnabled(currentAsOfJoinEnabled);
             sqlExecutionContext.setParallelFilterEnabled(currentFilterEnabled);
+            sqlExecutionContext.setParallelGroupByEnabled(currentGroupByEnabled);
+            sqlExecutionContext.setParallelHashJoinEnabled(currentHashJoinEnabled);
+            sqlExecutionContext.setParallelLatestByEnabled(currentLatestByEnabled);
+            sqlExecutionContext.setParallelSortEnabled(currentSortEnabled);
             sqlExecutionContext.popTimestampRequiredFlag();
         }
     }
@@ -555,9 +570,17 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
             }
         }
 
+        // names such as "sum" or "avg" are shared between aggregate and window functions,
+        // analytic context decides which of the two is in use
+        final boolean windowOverloaded = functionFactoryCache.isGroupBy(node.token) && functionFactoryCache.isWindow(node.token);
+        final boolean analyticContext = !sqlExecutionContext.getAnalyticContext().isEmpty();
+
         for (int i = 0, n = overload.size(); i < n; i++) {
             final FunctionFactoryDescriptor descriptor = overload.getQuick(i);
             final FunctionFactory factory = descriptor.getFactory();
+            if (windowOverloaded && factory.isWindow() != analyticContext) {
+                continue;
+            }
             int sigArgCount = descriptor.getSigArgCount();
 
             final boolean sigVarArg;
@@ -96,6 +96,9 @@ public final class PurgingOperator {
                                 TableUtils.dFile(path, columnName, columnVersion);
                                 columnPurged = ff.remove(path.$()) || !ff.exists(path);
 
+                                TableUtils.zoneMapFile(path.trimTo(pathPartitionLen), columnName, columnVersion);
+                                columnPurged &= ff.remove(path.$()) || !ff.exists(path);
+
                                 if (ColumnType.isVariableLength(columnType)) {
                                     TableUtils.iFile(path.trimTo(pathPartitionLen), columnName, columnVersion);
                                     columnPurged &= ff.remove(path.$()) || !ff.exists(path);
@@ -34,19 +34,25 @@ import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryCARW;
 import io.questdb.griffin.engine.*;
 import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.analytic.AnalyticRecordCursorFactory;
 import io.questdb.griffin.engine.analytic.CachedAnalyticRecordCursorFactory;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
+import io.questdb.griffin.engine.functions.analytic.AbstractDoubleAnalyticFunction;
 import io.questdb.griffin.engine.functions.bind.IndexedParameterLinkFunction;
 import io.questdb.griffin.engine.functions.bind.NamedParameterLinkFunction;
 import io.questdb.griffin.engine.functions.cast.*;
 import io.questdb.griffin.engine.functions.columns.*;
 import io.questdb.griffin.engine.functions.constants.*;
+import io.questdb.griffin.engine.functions.math.CompiledDoubleFunction;
+import io.questdb.griffin.engine.functions.math.DoubleArithmeticCompiler;
 import io.questdb.griffin.engine.groupby.*;
 import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
+import io.questdb.griffin.engine.orderby.AsyncSortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
+import io.questdb.griffin.engine.orderby.RadixSortLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
@@ -59,6 +65,7 @@ import io.questdb.jit.JitUtil;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -96,6 +103,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private final BytecodeAssembler asm = new BytecodeAssembler();
     private final CairoConfiguration configuration;
     private final ObjList<TableColumnMetadata> deferredAnalyticMetadata = new ObjList<>();
+    private final DoubleArithmeticCompiler doubleArithmeticCompiler = new DoubleArithmeticCompiler();
     private final boolean enableJitDebug;
     private final CairoEngine engine;
     private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
@@ -107,6 +115,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private final ObjectPool<IntList> intListPool = new ObjectPool<>(IntList::new, 4);
     private final MemoryCARW jitIRMem;
     private final CompiledFilterIRSerializer jitIRSerializer = new CompiledFilterIRSerializer();
+    private final ObjList<ExpressionNode> jitResidualNodes = new ObjList<>();
+    private final ObjList<ExpressionNode> jitSerializableNodes = new ObjList<>();
     private final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
     // this list is used to generate record sinks
     private final ListColumnFilter listColumnFilterA = new ListColumnFilter();
@@ -126,6 +136,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private final IntList tempSymbolSkewIndexes = new IntList();
     private final ObjList<VectorAggregateFunction> tempVaf = new ObjList<>();
     private final IntList tempVecConstructorArgIndexes = new IntList();
+    private final ObjList<CompiledDoubleFunction> tempVecProjections = new ObjList<>();
     private final ObjList<VectorAggregateFunctionConstructor> tempVecConstructors = new ObjList<>();
     private final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
     private final WhereClauseParser whereClauseParser = new WhereClauseParser();
@@ -294,7 +305,31 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return model.getOrderByDirectionAdvice().getQuick(index);
     }
 
-    private VectorAggregateFunctionConstructor assembleFunctionReference(RecordMetadata metadata, ExpressionNode ast) {
+    private static boolean isConstantExpression(ExpressionNode node) {
+        if (node == null) {
+            return true;
+        }
+        switch (node.type) {
+            case CONSTANT:
+                return true;
+            case OPERATION:
+            case FUNCTION:
+                for (int i = 0, n = node.args.size(); i < n; i++) {
+                    if (!isConstantExpression(node.args.getQuick(i))) {
+                        return false;
+                    }
+                }
+                return isConstantExpression(node.lhs) && isConstantExpression(node.rhs);
+            default:
+                return false;
+        }
+    }
+
+    private VectorAggregateFunctionConstructor assembleFunctionReference(
+            RecordMetadata metadata,
+            ExpressionNode ast,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
         int columnIndex;
         if (ast.type == FUNCTION && ast.paramCount == 1 && SqlKeywords.isSumKeyword(ast.token) && ast.rhs.type == LITERAL) {
             columnIndex = metadata.getColumnIndex(ast.rhs.token);
@@ -329,6 +364,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             columnIndex = metadata.getColumnIndex(ast.rhs.token);
             tempVecConstructorArgIndexes.add(columnIndex);
             return maxConstructors.get(metadata.getColumnType(columnIndex));
+        } else if (
+                ast.type == FUNCTION
+                        && ast.paramCount == 1
+                        && (ast.rhs.type == OPERATION || ast.rhs.type == FUNCTION)
+                        && executionContext.getJitMode() != SqlJitMode.JIT_MODE_DISABLED
+        ) {
+            return assembleProjectionReference(metadata, ast, executionContext);
         }
         return null;
     }
@@ -336,13 +378,15 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private boolean assembleKeysAndFunctionReferences(
             ObjList<QueryColumn> columns,
             RecordMetadata metadata,
-            boolean checkLiterals
-    ) {
+            boolean checkLiterals,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
         tempVaf.clear();
         tempMetadata.clear();
         tempSymbolSkewIndexes.clear();
         tempVecConstructors.clear();
         tempVecConstructorArgIndexes.clear();
+        tempVecProjections.clear();
         tempAggIndex.clear();
 
         for (int i = 0, n = columns.size(); i < n; i++) {
@@ -364,15 +408,17 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                         arrayColumnTypes.add(ColumnType.SYMBOL);
                         tempKeyKinds.add(GKK_VANILLA_INT);
                     } else {
+                        Misc.freeObjListAndClear(tempVecProjections);
                         return false;
                     }
                 }
             } else {
-                final VectorAggregateFunctionConstructor constructor = assembleFunctionReference(metadata, ast);
+                final VectorAggregateFunctionConstructor constructor = assembleFunctionReference(metadata, ast, executionContext);
                 if (constructor != null) {
                     tempVecConstructors.add(constructor);
                     tempAggIndex.add(i);
                 } else {
+                    Misc.freeObjListAndClear(tempVecProjections);
                     return false;
                 }
             }
@@ -380,6 +426,47 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return true;
     }
 
+    /**
+     * Checks if double aggregate function argument is an arithmetic expression over double and float
+     * columns, e.g. sum(price * qty), that can be compiled and evaluated over page frames.
+     */
+    private VectorAggregateFunctionConstructor assembleProjectionReference(
+            RecordMetadata metadata,
+            ExpressionNode ast,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final IntObjHashMap<VectorAggregateFunctionConstructor> constructors;
+        if (SqlKeywords.isSumKeyword(ast.token)) {
+            constructors = sumConstructors;
+        } else if (Chars.equalsIgnoreCase(ast.token, "ksum")) {
+            constructors = ksumConstructors;
+        } else if (Chars.equalsIgnoreCase(ast.token, "nsum")) {
+            constructors = nsumConstructors;
+        } else if (Chars.equalsIgnoreCase(ast.token, "avg")) {
+            constructors = avgConstructors;
+        } else if (Chars.equalsIgnoreCase(ast.token, "min")) {
+            constructors = minConstructors;
+        } else if (Chars.equalsIgnoreCase(ast.token, "max")) {
+            constructors = maxConstructors;
+        } else {
+            return null;
+        }
+
+        Function function = functionParser.parseFunction(ast.rhs, metadata, executionContext);
+        if (ColumnType.isDouble(function.getType())) {
+            function = doubleArithmeticCompiler.compile(asm, function);
+            if (function instanceof CompiledDoubleFunction && ((CompiledDoubleFunction) function).isColumnar()) {
+                final CompiledDoubleFunction projection = (CompiledDoubleFunction) function;
+                // the first column the expression reads gives the page frame row count
+                tempVecConstructorArgIndexes.add(projection.getColumnIndexes().getQuick(0));
+                tempVecProjections.extendAndSet(tempVecConstructors.size(), projection);
+                return constructors.get(ColumnType.DOUBLE);
+            }
+        }
+        Misc.free(function);
+        return null;
+    }
+
     private void backupWhereClause(ExpressionNode node) {
         processNodeQueryModels(node, BACKUP_WHERE_CLAUSE);
     }
@@ -420,6 +507,60 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return false;
     }
 
+    private void collectZoneMapPredicates(
+            ExpressionNode node,
+            TableRecordMetadata metadata,
+            SqlExecutionContext executionContext,
+            ObjList<ZoneMapPredicate> predicates
+    ) {
+        if (node.type != OPERATION || node.paramCount != 2) {
+            return;
+        }
+        if (isAndKeyword(node.token)) {
+            collectZoneMapPredicates(node.lhs, metadata, executionContext, predicates);
+            collectZoneMapPredicates(node.rhs, metadata, executionContext, predicates);
+            return;
+        }
+
+        int op = ZoneMapPredicate.opOf(node.token);
+        if (op == -1) {
+            return;
+        }
+        ExpressionNode column = node.lhs;
+        ExpressionNode value = node.rhs;
+        if (column.type != LITERAL) {
+            column = node.rhs;
+            value = node.lhs;
+            op = ZoneMapPredicate.swap(op);
+        }
+        if (column.type != LITERAL || !isConstantExpression(value)) {
+            return;
+        }
+
+        final int columnIndex = metadata.getColumnIndexQuiet(column.token);
+        // designated timestamp is pruned by interval scans
+        if (columnIndex < 0 || columnIndex == metadata.getTimestampIndex()) {
+            return;
+        }
+        final int columnType = metadata.getColumnType(columnIndex);
+        if (!ZoneMapWriter.isSupported(columnType)) {
+            return;
+        }
+
+        final Function function;
+        try {
+            function = functionParser.parseFunction(value, metadata, executionContext);
+        } catch (SqlException e) {
+            // the filter reports the error
+            return;
+        }
+        if ((function.isConstant() || function.isRuntimeConstant()) && ZoneMapPredicate.isSupported(columnType, function.getType(), op)) {
+            predicates.add(new ZoneMapPredicate(columnIndex, columnType, op, function));
+        } else {
+            Misc.free(function);
+        }
+    }
+
     @Nullable
     private Function compileFilter(
             IntrinsicModel intrinsicModel,
@@ -450,6 +591,61 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return null;
     }
 
+    private @Nullable ObjList<ObjList<GroupByFunction>> compileWorkerGroupByFunctionsConditionally(
+            boolean condition,
+            boolean sampleBy,
+            int workerCount,
+            QueryModel model,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        if (condition) {
+            final ObjList<ObjList<GroupByFunction>> workerGroupByFunctions = new ObjList<>(workerCount);
+            final ArrayColumnTypes workerValueTypes = new ArrayColumnTypes();
+            final IntList workerFunctionPositions = new IntList();
+            try {
+                for (int i = 0; i < workerCount; i++) {
+                    final ObjList<GroupByFunction> functions = new ObjList<>();
+                    workerGroupByFunctions.extendAndSet(i, functions);
+                    workerValueTypes.clear();
+                    if (sampleBy) {
+                        // first value is reserved by sample by, see generateSampleBy()
+                        workerValueTypes.add(ColumnType.TIMESTAMP);
+                    }
+                    GroupByUtils.prepareGroupByFunctions(
+                            model,
+                            metadata,
+                            functionParser,
+                            executionContext,
+                            functions,
+                            workerFunctionPositions,
+                            workerValueTypes
+                    );
+                }
+            } catch (Throwable e) {
+                for (int i = 0, n = workerGroupByFunctions.size(); i < n; i++) {
+                    Misc.freeObjList(workerGroupByFunctions.getQuick(i));
+                }
+                throw e;
+            }
+            return workerGroupByFunctions;
+        }
+        return null;
+    }
+
+    private ExpressionNode concatFilters(ObjList<ExpressionNode> nodes) {
+        ExpressionNode filter = nodes.getQuick(0);
+        for (int i = 1, n = nodes.size(); i < n; i++) {
+            final ExpressionNode node = nodes.getQuick(i);
+            final ExpressionNode and = expressionNodePool.next().of(ExpressionNode.OPERATION, "and", 0, node.position);
+            and.paramCount = 2;
+            and.lhs = filter;
+            and.rhs = node;
+            filter = and;
+        }
+        return filter;
+    }
+
     private RecordCursorFactory createAsOfJoin(
             RecordMetadata metadata,
             RecordCursorFactory master,
@@ -457,8 +653,30 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             RecordCursorFactory slave,
             RecordSink slaveKeySink,
             int columnSplit,
-            JoinContext joinContext
+            JoinContext joinContext,
+            SqlExecutionContext executionContext
     ) {
+        if (isParallelAsOfJoinSupported(master, slave, executionContext)) {
+            valueTypes.clear();
+            valueTypes.add(ColumnType.LONG);
+
+            return new AsyncAsOfJoinRecordCursorFactory(
+                    configuration,
+                    executionContext.getMessageBus(),
+                    metadata,
+                    master,
+                    slave,
+                    keyTypes,
+                    valueTypes,
+                    masterKeySink,
+                    slaveKeySink,
+                    columnSplit,
+                    joinContext,
+                    reduceTaskPool,
+                    executionContext.getSharedWorkerCount()
+            );
+        }
+
         valueTypes.clear();
         valueTypes.add(ColumnType.LONG);
         valueTypes.add(ColumnType.LONG);
@@ -613,7 +831,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             RecordCursorFactory slave,
             int joinType,
             Function filter,
-            JoinContext context
+            JoinContext context,
+            SqlExecutionContext executionContext
     ) {
         /*
          * JoinContext provides the following information:
@@ -648,6 +867,30 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
         if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
             if (joinType == JOIN_INNER) {
+                if (
+                        executionContext.isParallelHashJoinEnabled()
+                                && master.supportPageFrameCursor()
+                                && slave.supportPageFrameCursor()
+                                && master.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                                && slave.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                ) {
+                    return new AsyncHashJoinRecordCursorFactory(
+                            configuration,
+                            executionContext.getMessageBus(),
+                            metadata,
+                            master,
+                            slave,
+                            keyTypes,
+                            valueTypes,
+                            masterKeySink,
+                            slaveKeySink,
+                            masterMetadata.getColumnCount(),
+                            context,
+                            reduceTaskPool,
+                            executionContext.getSharedWorkerCount()
+                    );
+                }
+
                 return new HashJoinLightRecordCursorFactory(
                         configuration,
                         metadata,
@@ -1361,18 +1604,49 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             final boolean canCompile = factory.supportPageFrameCursor() && JitUtil.isJitSupported();
             if (useJit && canCompile) {
                 CompiledFilter jitFilter = null;
+                Function jittedFilter = null;
+                Function residualFilter = null;
+                ObjList<Function> perWorkerResidualFilters = null;
                 try {
                     int jitOptions;
                     final ObjList<Function> bindVarFunctions = new ObjList<>();
+                    ExpressionNode jittedExpr = null;
+                    ExpressionNode residualExpr = null;
                     try (PageFrameCursor cursor = factory.getPageFrameCursor(executionContext, ORDER_ANY)) {
                         final boolean forceScalar = executionContext.getJitMode() == SqlJitMode.JIT_MODE_FORCE_SCALAR;
                         jitIRSerializer.of(jitIRMem, executionContext, factory.getMetadata(), cursor, bindVarFunctions);
-                        jitOptions = jitIRSerializer.serialize(filterExpr, forceScalar, enableJitDebug, enableJitNullChecks);
+                        try {
+                            jitOptions = jitIRSerializer.serialize(filterExpr, forceScalar, enableJitDebug, enableJitNullChecks);
+                        } catch (SqlException e) {
+                            // Compile the supported part of the filter, e.g. predicates on fixed-size columns,
+                            // and evaluate the rest, e.g. predicates on string columns, on the selected rows only.
+                            jitSerializableNodes.clear();
+                            jitResidualNodes.clear();
+                            jitIRSerializer.splitConjuncts(filterExpr, jitSerializableNodes, jitResidualNodes);
+                            if (jitSerializableNodes.size() == 0 || jitResidualNodes.size() == 0) {
+                                throw e;
+                            }
+                            jittedExpr = concatFilters(jitSerializableNodes);
+                            residualExpr = concatFilters(jitResidualNodes);
+                            jitOptions = jitIRSerializer.serialize(jittedExpr, forceScalar, enableJitDebug, enableJitNullChecks);
+                        }
                     }
 
                     jitFilter = new CompiledFilter();
                     jitFilter.compile(jitIRMem, jitOptions);
 
+                    if (residualExpr != null) {
+                        jittedFilter = compileBooleanFilter(jittedExpr, factory.getMetadata(), executionContext);
+                        residualFilter = compileBooleanFilter(residualExpr, factory.getMetadata(), executionContext);
+                        perWorkerResidualFilters = compileWorkerFilterConditionally(
+                                !residualFilter.isReadThreadSafe(),
+                                executionContext.getSharedWorkerCount(),
+                                residualExpr,
+                                factory.getMetadata(),
+                                executionContext
+                        );
+                    }
+
                     final Function limitLoFunction = getLimitLoFunctionOnly(model, executionContext);
                     final int limitLoPos = model.getLimitAdviceLo() != null ? model.getLimitAdviceLo().position : 0;
 
@@ -1393,6 +1667,9 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                     executionContext
                             ),
                             jitFilter,
+                            jittedFilter,
+                            residualFilter,
+                            perWorkerResidualFilters,
                             reduceTaskPool,
                             limitLoFunction,
                             limitLoPos,
@@ -1401,6 +1678,9 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     );
                 } catch (SqlException | LimitOverflowException ex) {
                     Misc.free(jitFilter);
+                    Misc.free(jittedFilter);
+                    Misc.free(residualFilter);
+                    Misc.freeObjList(perWorkerResidualFilters);
                     LOG.debug()
                             .$("JIT cannot be applied to (sub)query [tableName=").utf8(model.getName())
                             .$(", ex=").$(ex.getFlyweightMessage())
@@ -1408,6 +1688,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 } finally {
                     jitIRSerializer.clear();
                     jitIRMem.truncate();
+                    jitSerializableNodes.clear();
+                    jitResidualNodes.clear();
                 }
             }
 
@@ -1554,7 +1836,24 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                                         true
                                                 ),
                                                 masterMetadata.getColumnCount(),
-                                                slaveModel.getContext()
+                                                slaveModel.getContext(),
+                                                executionContext
+                                        );
+                                    } else if (isParallelAsOfJoinSupported(master, slave, executionContext)) {
+                                        master = new AsyncAsOfJoinRecordCursorFactory(
+                                                configuration,
+                                                executionContext.getMessageBus(),
+                                                createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                                master,
+                                                slave,
+                                                null,
+                                                null,
+                                                null,
+                                                null,
+                                                masterMetadata.getColumnCount(),
+                                                null,
+                                                reduceTaskPool,
+                                                executionContext.getSharedWorkerCount()
                                         );
                                     } else {
                                         master = new AsOfJoinNoKeyRecordCursorFactory(
@@ -1689,7 +1988,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                         slave,
                                         joinType,
                                         filter,
-                                        slaveModel.getContext()
+                                        slaveModel.getContext(),
+                                        executionContext
                                 );
                                 masterAlias = null;
                                 break;
@@ -1833,41 +2133,82 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             int timestampIndex,
             @NotNull IntList columnIndexes,
             @NotNull IntList columnSizes,
-            @NotNull LongList prefixes
+            @NotNull LongList prefixes,
+            boolean framingSupported
     ) throws SqlException {
-        final DataFrameCursorFactory dataFrameCursorFactory;
-        if (intrinsicModel.hasIntervalFilters()) {
-            dataFrameCursorFactory = new IntervalBwdDataFrameCursorFactory(
-                    tableToken,
-                    model.getTableId(),
-                    model.getTableVersion(),
-                    intrinsicModel.buildIntervalModel(),
-                    timestampIndex,
-                    GenericRecordMetadata.deepCopyOf(reader.getMetadata())
-            );
-        } else {
-            dataFrameCursorFactory = new FullBwdDataFrameCursorFactory(
-                    tableToken,
-                    model.getTableId(),
-                    model.getTableVersion(),
-                    GenericRecordMetadata.deepCopyOf(reader.getMetadata())
-            );
-        }
-
         assert model.getLatestBy() != null && model.getLatestBy().size() > 0;
         ObjList<ExpressionNode> latestBy = new ObjList<>(model.getLatestBy().size());
         latestBy.addAll(model.getLatestBy());
         final ExpressionNode latestByNode = latestBy.get(0);
         final int latestByIndex = metadata.getColumnIndexQuiet(latestByNode.token);
         final boolean indexed = metadata.isColumnIndexed(latestByIndex);
+        // if there are > 1 columns in the latest by statement, we cannot use indexes
+        final boolean multiColumnOrNonSymbol = latestBy.size() > 1 || !ColumnType.isSymbol(metadata.getColumnType(latestByIndex));
+        // parallel execution scans page frames forward, see generateParallelLatestBy()
+        final boolean parallel = multiColumnOrNonSymbol
+                && framingSupported
+                && prefixes.size() == 0
+                && executionContext.isParallelLatestByEnabled();
+
+        final DataFrameCursorFactory dataFrameCursorFactory;
+        if (intrinsicModel.hasIntervalFilters()) {
+            if (parallel) {
+                dataFrameCursorFactory = new IntervalFwdDataFrameCursorFactory(
+                        tableToken,
+                        model.getTableId(),
+                        model.getTableVersion(),
+                        intrinsicModel.buildIntervalModel(),
+                        timestampIndex,
+                        GenericRecordMetadata.deepCopyOf(reader.getMetadata())
+                );
+            } else {
+                dataFrameCursorFactory = new IntervalBwdDataFrameCursorFactory(
+                        tableToken,
+                        model.getTableId(),
+                        model.getTableVersion(),
+                        intrinsicModel.buildIntervalModel(),
+                        timestampIndex,
+                        GenericRecordMetadata.deepCopyOf(reader.getMetadata())
+                );
+            }
+        } else {
+            if (parallel) {
+                dataFrameCursorFactory = new FullFwdDataFrameCursorFactory(
+                        tableToken,
+                        model.getTableId(),
+                        model.getTableVersion(),
+                        GenericRecordMetadata.deepCopyOf(reader.getMetadata())
+                );
+            } else {
+                dataFrameCursorFactory = new FullBwdDataFrameCursorFactory(
+                        tableToken,
+                        model.getTableId(),
+                        model.getTableVersion(),
+                        GenericRecordMetadata.deepCopyOf(reader.getMetadata())
+                );
+            }
+        }
 
         // 'latest by' clause takes over the filter and the latest by nodes,
         // so that the later generateFilter() and generateLatestBy() are no-op
+        final ExpressionNode filterExpr = intrinsicModel.filter;
         model.setWhereClause(null);
         model.getLatestBy().clear();
 
-        // if there are > 1 columns in the latest by statement, we cannot use indexes
-        if (latestBy.size() > 1 || !ColumnType.isSymbol(metadata.getColumnType(latestByIndex))) {
+        if (parallel) {
+            return generateParallelLatestBy(
+                    metadata,
+                    dataFrameCursorFactory,
+                    filter,
+                    filterExpr,
+                    latestBy,
+                    columnIndexes,
+                    columnSizes,
+                    executionContext
+            );
+        }
+
+        if (multiColumnOrNonSymbol) {
             boolean symbolKeysOnly = true;
             for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
                 symbolKeysOnly &= ColumnType.isSymbol(keyTypes.getColumnType(i));
@@ -2219,6 +2560,35 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                 listColumnFilterA.copy()
                         );
                     } else {
+                        if (
+                                listColumnFilterA.size() == 1
+                                        && RadixSortLightRecordCursorFactory.isSupportedKeyType(metadata.getColumnType(listColumnFilterA.getColumnIndexFactored(0)))
+                        ) {
+                            return new RadixSortLightRecordCursorFactory(
+                                    configuration,
+                                    orderedMetadata,
+                                    recordCursorFactory,
+                                    listColumnFilterA.copy()
+                            );
+                        }
+
+                        if (
+                                executionContext.isParallelSortEnabled()
+                                        && recordCursorFactory.supportPageFrameCursor()
+                                        && recordCursorFactory.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                        ) {
+                            return new AsyncSortedLightRecordCursorFactory(
+                                    configuration,
+                                    executionContext.getMessageBus(),
+                                    orderedMetadata,
+                                    recordCursorFactory,
+                                    recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                                    listColumnFilterA.copy(),
+                                    reduceTaskPool,
+                                    executionContext.getSharedWorkerCount()
+                            );
+                        }
+
                         return new SortedLightRecordCursorFactory(
                                 configuration,
                                 orderedMetadata,
@@ -2255,6 +2625,65 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    /**
+     * Generates parallel LATEST BY over non-indexed columns. Unlike the serial factories, it
+     * scans page frames forward, so the data frame cursor factory must be a forward one.
+     * Latest by column index lists are expected to be prepared for the given metadata.
+     */
+    private RecordCursorFactory generateParallelLatestBy(
+            RecordMetadata metadata,
+            DataFrameCursorFactory dataFrameCursorFactory,
+            @Nullable Function filter,
+            @Nullable ExpressionNode filterExpr,
+            ObjList<ExpressionNode> latestBy,
+            @NotNull IntList columnIndexes,
+            @NotNull IntList columnSizes,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final int workerCount = executionContext.getSharedWorkerCount();
+        final ObjList<Function> perWorkerFilters;
+        try {
+            perWorkerFilters = compileWorkerFilterConditionally(
+                    filter != null && !filter.isReadThreadSafe(),
+                    workerCount,
+                    filterExpr,
+                    metadata,
+                    executionContext
+            );
+            if (perWorkerFilters != null) {
+                // a sub-query present in the filter may have used the latest by
+                // column index lists, so we need to regenerate them
+                prepareLatestByColumnIndexes(latestBy, metadata);
+            }
+        } catch (Throwable e) {
+            Misc.free(dataFrameCursorFactory);
+            throw e;
+        }
+
+        return new AsyncLatestByRecordCursorFactory(
+                configuration,
+                executionContext.getMessageBus(),
+                new DataFrameRecordCursorFactory(
+                        configuration,
+                        metadata,
+                        dataFrameCursorFactory,
+                        new DataFrameRowCursorFactory(),
+                        false,
+                        null,
+                        true,
+                        columnIndexes,
+                        columnSizes,
+                        true
+                ),
+                RecordSinkFactory.getInstance(asm, metadata, listColumnFilterA, false),
+                keyTypes,
+                filter,
+                perWorkerFilters,
+                reduceTaskPool,
+                workerCount
+        );
+    }
+
     private RecordCursorFactory generateQuery(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         RecordCursorFactory factory = generateQuery0(model, executionContext, processJoins);
         if (model.getUnionModel() != null) {
@@ -2531,6 +2960,56 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
             if (isFillNone) {
 
+                if (
+                        executionContext.isParallelGroupByEnabled()
+                                && timezoneName == null
+                                && offset != null
+                                && offsetFunc.isConstant()
+                                && factory.supportPageFrameCursor()
+                                && GroupByUtils.isParallelismSupported(groupByFunctions)
+                ) {
+                    // Buckets aligned to calendar with no time zone don't depend on the first
+                    // observation, so page frames can be aggregated independently.
+                    final long offsetValue = Timestamps.parseOffset(offsetFunc.getStr(null));
+                    if (offsetValue != Numbers.LONG_NaN) {
+                        timestampSampler.setStart(Numbers.decodeLowInt(offsetValue) * Timestamps.MINUTE_MICROS);
+                        // Map key ends with the sample timestamp.
+                        keyTypes.add(ColumnType.TIMESTAMP);
+                        final int sampleTimestampColumnIndex = valueTypes.getColumnCount() + keyTypes.getColumnCount() - 1;
+                        for (int i = 0, n = recordFunctions.size(); i < n; i++) {
+                            if (recordFunctions.getQuick(i) == null) {
+                                recordFunctions.setQuick(i, TimestampColumn.newInstance(sampleTimestampColumnIndex));
+                            }
+                        }
+                        Misc.free(timezoneNameFunc);
+                        Misc.free(offsetFunc);
+                        return new AsyncGroupByRecordCursorFactory(
+                                asm,
+                                configuration,
+                                executionContext.getMessageBus(),
+                                factory,
+                                listColumnFilterA,
+                                keyTypes,
+                                valueTypes,
+                                groupByMetadata,
+                                groupByFunctions,
+                                compileWorkerGroupByFunctionsConditionally(
+                                        !GroupByUtils.isReadThreadSafe(groupByFunctions),
+                                        true,
+                                        executionContext.getSharedWorkerCount(),
+                                        model,
+                                        metadata,
+                                        executionContext
+                                ),
+                                recordFunctions,
+                                reduceTaskPool,
+                                timestampSampler,
+                                timestampIndex,
+                                executionContext.getSharedWorkerCount()
+                        );
+                    }
+                }
+
                 if (keyTypes.getColumnCount() == 0) {
                     // this sample by is not keyed
                     return new SampleByFillNoneNotKeyedRecordCursorFactory(
@@ -2744,16 +3223,71 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         // analytic columns recursively
 
         deferredAnalyticMetadata.clear();
+        // analytic functions can be computed while streaming base cursor when none of them
+        // need the result set cached and rows arrive in the order of each analytic function
+        boolean streamable = true;
+        // the streaming cursor does not support random access, so queries with ranking
+        // functions only, e.g. row_number() or rank(), keep the cached cursor
+        boolean hasWindowFunction = false;
+        final ObjList<Function> analyticFunctions = new ObjList<>();
         for (int i = 0; i < columnCount; i++) {
             final QueryColumn qc = columns.getQuick(i);
             if (qc instanceof AnalyticColumn) {
                 final AnalyticColumn ac = (AnalyticColumn) qc;
                 final ExpressionNode ast = qc.getAst();
-                if (ast.paramCount > 1) {
+                if (ast.paramCount > 3) {
                     Misc.free(base);
                     throw SqlException.$(ast.position, "too many arguments");
                 }
 
+                final int osz = ac.getOrderBy().size();
+
+                // frame bounds relative to the current row, without ORDER BY all rows
+                // of the partition are peers and the default frame is the whole partition
+                int framingMode = AnalyticColumn.FRAMING_ROWS;
+                int timestampIndex = -1;
+                final long frameLo;
+                final long frameHi;
+                if (ac.isDefaultFrame()) {
+                    frameLo = Long.MIN_VALUE;
+                    frameHi = osz > 0 ? 0 : Long.MAX_VALUE;
+                } else {
+                    try {
+                        frameLo = getAnalyticFrameBound(ac, ac.getLoExpr(), ac.getLoKind(), executionContext);
+                        frameHi = getAnalyticFrameBound(ac, ac.getHiExpr(), ac.getHiKind(), executionContext);
+                    } catch (Throwable th) {
+                        Misc.free(base);
+                        throw th;
+                    }
+                    if ((frameLo > 0 && frameLo != Long.MAX_VALUE) || (frameHi > 0 && frameHi != Long.MAX_VALUE)) {
+                        Misc.free(base);
+                        throw SqlException.$(frameLo > 0 ? ac.getLoKindPos() : ac.getHiKindPos(), "FOLLOWING frame bound is not supported, only UNBOUNDED FOLLOWING is");
+                    }
+                    if (frameHi == Long.MAX_VALUE && frameLo != Long.MIN_VALUE) {
+                        Misc.free(base);
+                        throw SqlException.$(ac.getLoKindPos(), "frame ending with UNBOUNDED FOLLOWING must start with UNBOUNDED PRECEDING");
+                    }
+                    if (frameLo > frameHi) {
+                        Misc.free(base);
+                        throw SqlException.$(ac.getLoKindPos(), "frame start cannot be after frame end");
+                    }
+                    // RANGE frame without offsets has the same rows as ROWS frame, because the current
+                    // row does not include its peers
+                    if (ac.getFramingMode() == AnalyticColumn.FRAMING_RANGE && (ac.getLoExpr() != null || ac.getHiExpr() != null)) {
+                        timestampIndex = osz == 1 && ac.getOrderByDirection().getQuick(0) == QueryModel.ORDER_DIRECTION_ASCENDING
+                                ? chainMetadata.getColumnIndexQuiet(ac.getOrderBy().getQuick(0).token)
+                                : -1;
+                        if (timestampIndex < 0 || !ColumnType.isTimestamp(chainMetadata.getColumnType(timestampIndex))) {
+                            Misc.free(base);
+                            throw SqlException.$(
+                                    ac.getLoExpr() != null ? ac.getLoExpr().position : ac.getHiExpr().position,
+                                    "RANGE frame with offset requires ascending ORDER BY on a single timestamp column"
+                            );
+                        }
+                        framingMode = AnalyticColumn.FRAMING_RANGE;
+                    }
+                }
+
                 ObjList<Function> partitionBy = null;
                 int psz = ac.getPartitionBy().size();
                 if (psz > 0) {
@@ -2789,18 +3323,21 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     partitionBySink = null;
                 }
 
-
-                final int osz = ac.getOrderBy().size();
                 executionContext.configureAnalyticContext(
                         partitionByRecord,
                         partitionBySink,
                         keyTypes,
                         osz > 0,
-                        base.recordCursorSupportsRandomAccess()
+                        base.recordCursorSupportsRandomAccess(),
+                        framingMode,
+                        frameLo,
+                        frameHi,
+                        timestampIndex
                 );
                 final Function f;
                 try {
-                    f = functionParser.parseFunction(ast, baseMetadata, executionContext);
+                    // function arguments are evaluated against chain record, same as partition by
+                    f = functionParser.parseFunction(ast, chainMetadata, executionContext);
                     if (!(f instanceof AnalyticFunction)) {
                         Misc.free(base);
                         throw SqlException.$(ast.position, "non-analytic function called in analytic context");
@@ -2810,6 +3347,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 }
 
                 AnalyticFunction analyticFunction = (AnalyticFunction) f;
+                analyticFunctions.extendAndSet(i, f);
+                if (analyticFunction.getPassCount() != AnalyticFunction.ZERO_PASS) {
+                    streamable = false;
+                }
+                if (analyticFunction instanceof AbstractDoubleAnalyticFunction) {
+                    hasWindowFunction = true;
+                }
 
                 // analyze order by clause on the current model and optimise out
                 // order by on analytic function if it matches the one on the model
@@ -2829,6 +3373,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
                 if (osz > 0 && !dismissOrder) {
                     IntList order = toOrderIndices(chainMetadata, ac.getOrderBy(), ac.getOrderByDirection());
+                    // base rows arriving in ascending designated timestamp order need no sorting
+                    if (osz > 1
+                            || order.getQuick(0) < 0
+                            || columnIndexes.getQuick(order.getQuick(0) - 1) != baseMetadata.getTimestampIndex()
+                            || base.getScanDirection() != RecordCursorFactory.SCAN_DIRECTION_FORWARD) {
+                        streamable = false;
+                    }
                     // init comparator if we need
                     analyticFunction.initRecordComparator(recordComparatorCompiler, chainTypes, order);
                     ObjList<AnalyticFunction> funcs = groupedAnalytic.get(order);
@@ -2867,6 +3418,24 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             }
         }
 
+        if (streamable && hasWindowFunction) {
+            final ObjList<Function> functions = new ObjList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                final QueryColumn qc = columns.getQuick(i);
+                if (qc instanceof AnalyticColumn) {
+                    functions.add(analyticFunctions.getQuick(i));
+                } else {
+                    functions.add(FunctionParser.createColumn(qc.getAst().position, qc.getAst().token, baseMetadata));
+                }
+            }
+            return new AnalyticRecordCursorFactory(
+                    base,
+                    factoryMetadata,
+                    functions,
+                    columnIndexes
+            );
+        }
+
         final ObjList<RecordComparator> analyticComparators = new ObjList<>(groupedAnalytic.size());
         final ObjList<ObjList<AnalyticFunction>> functionGroups = new ObjList<>(groupedAnalytic.size());
         for (ObjObjHashMap.Entry<IntList, ObjList<AnalyticFunction>> e : groupedAnalytic) {
@@ -3183,13 +3752,14 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     QueryModel.restoreWhereClause(expressionNodePool, model);
                 }
                 factory = generateSubQuery(model, executionContext);
-                pageFramingSupported = factory.supportPageFrameCursor();
+                // parallel filter's output can be fed to vector aggregate functions as well
+                pageFramingSupported = factory.supportPageFrameCursor() || factory.supportFilteredPageFrameSequence();
             }
 
             RecordMetadata metadata = factory.getMetadata();
 
             // Inspect model for possibility of vector aggregate intrinsics.
-            if (pageFramingSupported && assembleKeysAndFunctionReferences(columns, metadata, !specialCaseKeys)) {
+            if (pageFramingSupported && assembleKeysAndFunctionReferences(columns, metadata, !specialCaseKeys, executionContext)) {
                 // Create metadata from everything we've gathered.
                 GenericRecordMetadata meta = new GenericRecordMetadata();
 
@@ -3233,6 +3803,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                             indexInBase,
                             executionContext.getSharedWorkerCount()
                     );
+                    final CompiledDoubleFunction projection = tempVecProjections.getQuiet(i);
+                    if (projection != null) {
+                        vaf = new ProjectedVectorAggregateFunction(vaf, projection, executionContext.getSharedWorkerCount());
+                    }
                     tempVaf.add(vaf);
                     meta.add(indexInThis,
                             new TableColumnMetadata(
@@ -3242,6 +3816,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                             )
                     );
                 }
+                // projections are owned by the functions now
+                tempVecProjections.clear();
 
                 if (tempKeyIndexesInBase.size() == 0) {
                     return new GroupByNotKeyedVectorRecordCursorFactory(
@@ -3253,7 +3829,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     );
                 }
 
-                if (tempKeyIndexesInBase.size() == 1) {
+                // Tasks of different functions over the same frame may run on different workers, so a worker's map
+                // can hold keys without values of some function. Keyed merge of sum() lets such a key overwrite the
+                // sum in the other map, hence filtered frames are aggregated by Rosti for a single function only.
+                if (tempKeyIndexesInBase.size() == 1 && (factory.supportPageFrameCursor() || tempVaf.size() == 1)) {
                     for (int i = 0, n = tempVaf.size(); i < n; i++) {
                         tempVaf.getQuick(i).pushValueTypes(arrayColumnTypes);
                     }
@@ -3349,6 +3928,37 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 );
             }
 
+            if (
+                    executionContext.isParallelGroupByEnabled()
+                            && factory.supportPageFrameCursor()
+                            && GroupByUtils.isParallelismSupported(groupByFunctions)
+            ) {
+                return new AsyncGroupByRecordCursorFactory(
+                        asm,
+                        configuration,
+                        executionContext.getMessageBus(),
+                        factory,
+                        listColumnFilterA,
+                        keyTypes,
+                        valueTypes,
+                        groupByMetadata,
+                        groupByFunctions,
+                        compileWorkerGroupByFunctionsConditionally(
+                                !GroupByUtils.isReadThreadSafe(groupByFunctions),
+                                false,
+                                executionContext.getSharedWorkerCount(),
+                                model,
+                                metadata,
+                                executionContext
+                        ),
+                        recordFunctions,
+                        reduceTaskPool,
+                        null,
+                        -1,
+                        executionContext.getSharedWorkerCount()
+                );
+            }
+
             return new io.questdb.griffin.engine.groupby.GroupByRecordCursorFactory(
                     asm,
                     configuration,
@@ -3434,6 +4044,11 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     }
                 }
 
+                if (targetColumnType == -1 && columnType == ColumnType.DOUBLE && executionContext.getJitMode() != SqlJitMode.JIT_MODE_DISABLED) {
+                    // fuse double arithmetic, e.g. (bid + ask) / 2, into a single generated function
+                    function = doubleArithmeticCompiler.compile(asm, function);
+                }
+
                 functions.add(function);
 
                 if (columnType == ColumnType.SYMBOL) {
@@ -3844,7 +4459,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                         readerTimestampIndex,
                         columnIndexes,
                         columnSizes,
-                        prefixes
+                        prefixes,
+                        framingSupported
                 );
             }
 
@@ -4107,6 +4723,14 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 rowFactory = new DataFrameRowCursorFactory();
             }
 
+            if (intrinsicModel.filter != null) {
+                final ObjList<ZoneMapPredicate> predicates = new ObjList<>();
+                collectZoneMapPredicates(intrinsicModel.filter, metadata, executionContext, predicates);
+                if (predicates.size() > 0) {
+                    dfcFactory = new ZoneMapDataFrameCursorFactory(dfcFactory, predicates);
+                }
+            }
+
             model.setWhereClause(intrinsicModel.filter);
             return new DataFrameRecordCursorFactory(
                     configuration,
@@ -4156,6 +4780,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         model.getLatestBy().clear();
 
         // listColumnFilterA = latest by column indexes
+        final boolean parallel = framingSupported && executionContext.isParallelLatestByEnabled();
         if (latestByColumnCount == 1) {
             int latestByColumnIndex = listColumnFilterA.getColumnIndexFactored(0);
             if (myMeta.isColumnIndexed(latestByColumnIndex)) {
@@ -4169,7 +4794,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 );
             }
 
-            if (ColumnType.isSymbol(myMeta.getColumnType(latestByColumnIndex))
+            if (!parallel
+                    && ColumnType.isSymbol(myMeta.getColumnType(latestByColumnIndex))
                     && myMeta.isSymbolTableStatic(latestByColumnIndex)) {
                 // we have "latest by" symbol column values, but no index
                 return new LatestByDeferredListValuesFilteredRecordCursorFactory(
@@ -4183,6 +4809,19 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             }
         }
 
+        if (parallel) {
+            return generateParallelLatestBy(
+                    myMeta,
+                    new FullFwdDataFrameCursorFactory(tableToken, model.getTableId(), model.getTableVersion(), dfcFactoryMeta),
+                    null,
+                    null,
+                    latestBy,
+                    columnIndexes,
+                    columnSizes,
+                    executionContext
+            );
+        }
+
         boolean symbolKeysOnly = true;
         for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
             symbolKeysOnly &= ColumnType.isSymbol(keyTypes.getColumnType(i));
@@ -4285,7 +4924,47 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return unionFactory;
     }
 
-    @Nullable
+    private long getAnalyticFrameBound(
+            AnalyticColumn ac,
+            ExpressionNode expr,
+            int kind,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        if (kind == AnalyticColumn.CURRENT) {
+            return 0;
+        }
+        if (expr == null) {
+            return kind == AnalyticColumn.PRECEDING ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        final Function f = functionParser.parseFunction(expr, EmptyRecordMetadata.INSTANCE, executionContext);
+        try {
+            final short typeTag = ColumnType.tagOf(f.getType());
+            if (f.isConstant() && typeTag == ColumnType.STRING && ac.getFramingMode() == AnalyticColumn.FRAMING_RANGE) {
+                // RANGE offset over timestamp, e.g. '5m'
+                final TimestampSampler sampler = TimestampSamplerFactory.getInstance(f.getStr(null), expr.position);
+                if (!(sampler instanceof MicroTimestampSampler)) {
+                    throw SqlException.$(expr.position, "RANGE frame offset must have fixed length");
+                }
+                final long value = sampler.getBucketSize();
+                return kind == AnalyticColumn.PRECEDING ? -value : value;
+            }
+            if (!f.isConstant() || (typeTag != ColumnType.BYTE && typeTag != ColumnType.SHORT && typeTag != ColumnType.INT && typeTag != ColumnType.LONG)) {
+                throw SqlException.$(expr.position, "non-negative integer constant expected");
+            }
+            final long value = f.getLong(null);
+            if (value < 0) {
+                throw SqlException.$(expr.position, "non-negative integer constant expected");
+            }
+            if (value > AbstractDoubleAnalyticFunction.MAX_ROWS_OFFSET && ac.getFramingMode() == AnalyticColumn.FRAMING_ROWS) {
+                // ROWS frame keeps its rows in the partition state block
+                throw SqlException.$(expr.position, "ROWS frame offset must not exceed ").put(AbstractDoubleAnalyticFunction.MAX_ROWS_OFFSET);
+            }
+            return kind == AnalyticColumn.PRECEDING ? -value : value;
+        } finally {
+            Misc.free(f);
+        }
+    }
+
     private Function getHiFunction(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         return toLimitFunction(executionContext, model.getLimitHi(), null);
     }
@@ -4352,6 +5031,18 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 getOrderByDirectionOrDefault(model, 0) == ORDER_DIRECTION_DESCENDING;
     }
 
+    private boolean isParallelAsOfJoinSupported(
+            RecordCursorFactory master,
+            RecordCursorFactory slave,
+            SqlExecutionContext executionContext
+    ) {
+        return executionContext.isParallelAsOfJoinEnabled()
+                && master.supportPageFrameCursor()
+                && slave.supportPageFrameCursor()
+                && master.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                && slave.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD;
+    }
+
     private boolean isSingleColumnFunction(ExpressionNode ast, CharSequence name) {
         return ast.type == FUNCTION && ast.paramCount == 1 && Chars.equalsIgnoreCase(ast.token, name) && ast.rhs.type == LITERAL;
     }
@@ -389,6 +389,14 @@ public class SqlCompiler implements Closeable {
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "'partition' expected");
                     }
+                } else if (SqlKeywords.isCompressKeyword(tok)) {
+                    tok = expectToken(lexer, "'partition'");
+                    if (SqlKeywords.isPartitionKeyword(tok)) {
+                        executionContext.getSecurityContext().authorizeAlterTableCompressPartition(tableToken);
+                        return alterTableDropDetachOrAttachPartition(tableMetadata, tableToken, PartitionAction.COMPRESS, executionContext);
+                    } else {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'partition' expected");
+                    }
                 } else if (SqlKeywords.isDetachKeyword(tok)) {
                     tok = expectToken(lexer, "'partition'");
                     if (SqlKeywords.isPartitionKeyword(tok)) {
@@ -869,8 +877,11 @@ public class SqlCompiler implements Closeable {
                     case PartitionAction.DETACH:
                         alterOperationBuilder = this.alterOperationBuilder.ofDetachPartition(pos, tableToken, tableMetadata.getTableId());
                         break;
+                    case PartitionAction.COMPRESS:
+                        alterOperationBuilder = this.alterOperationBuilder.ofCompressPartition(pos, tableToken, tableMetadata.getTableId());
+                        break;
                     default:
-                        throw SqlException.$(pos, "WHERE clause can only be used with command DROP PARTITION, or DETACH PARTITION");
+                        throw SqlException.$(pos, "WHERE clause can only be used with command DROP PARTITION, DETACH PARTITION or COMPRESS PARTITION");
                 }
 
                 final int functionPosition = lexer.getPosition();
@@ -930,6 +941,9 @@ public class SqlCompiler implements Closeable {
                 // attach
                 alterOperationBuilder = this.alterOperationBuilder.ofAttachPartition(pos, tableToken, tableMetadata.getTableId());
                 break;
+            case PartitionAction.COMPRESS:
+                alterOperationBuilder = this.alterOperationBuilder.ofCompressPartition(pos, tableToken, tableMetadata.getTableId());
+                break;
             default:
                 alterOperationBuilder = null;
                 assert false;
@@ -1127,6 +1141,7 @@ public class SqlCompiler implements Closeable {
                 engine.getCopyContext(),
                 Chars.toString(tableName),
                 Chars.toString(fileName),
+                null,
                 model
         );
     }
@@ -1156,6 +1171,40 @@ public class SqlCompiler implements Closeable {
         );
     }
 
+    private RecordCursorFactory compileCopyExport(SqlExecutionContext executionContext, CopyModel model) throws SqlException {
+        assert model.isExport();
+
+        executionContext.getSecurityContext().authorizeCopy();
+
+        if (model.getDelimiter() < 0) {
+            model.setDelimiter((byte) ',');
+        }
+
+        final ExpressionNode fileNameNode = model.getFileName();
+        final CharSequence fileName = GenericLexer.assertNoDots(GenericLexer.unquote(fileNameNode.token), fileNameNode.position);
+
+        final String tableName;
+        final String selectText;
+        if (model.getSelectText() != null) {
+            tableName = null;
+            selectText = Chars.toString(model.getSelectText());
+        } else {
+            final ExpressionNode target = model.getTarget();
+            final TableToken tableToken = tableExistsOrFail(target.position, GenericLexer.unquote(target.token), executionContext);
+            tableName = tableToken.getTableName();
+            selectText = "select * from \"" + tableName + '"';
+        }
+
+        return new CopyFactory(
+                messageBus,
+                engine.getCopyContext(),
+                tableName,
+                Chars.toString(fileName),
+                selectText,
+                model
+        );
+    }
+
     private CompiledQuery compileDeallocate(SqlExecutionContext executionContext) throws SqlException {
         CharSequence statementName = GenericLexer.unquote(expectToken(lexer, "statement name"));
         CharSequence tok = SqlUtil.fetchNext(lexer);
@@ -1291,7 +1340,7 @@ public class SqlCompiler implements Closeable {
 
     @NotNull
     private CompiledQuery copy(SqlExecutionContext executionContext, CopyModel copyModel) throws SqlException {
-        if (!copyModel.isCancel() && Chars.equalsLowerCaseAscii(copyModel.getFileName().token, "stdin")) {
+        if (!copyModel.isCancel() && !copyModel.isExport() && Chars.equalsLowerCaseAscii(copyModel.getFileName().token, "stdin")) {
             // no-op implementation
             executionContext.getSecurityContext().authorizeCopy();
             setupTextLoaderFromModel(copyModel);
@@ -1301,6 +1350,8 @@ public class SqlCompiler implements Closeable {
         final RecordCursorFactory copyFactory;
         if (copyModel.isCancel()) {
             copyFactory = compileCopyCancel(executionContext, copyModel);
+        } else if (copyModel.isExport()) {
+            copyFactory = compileCopyExport(executionContext, copyModel);
         } else {
             copyFactory = compileCopy(executionContext.getSecurityContext(), copyModel);
         }
@@ -2771,6 +2822,7 @@ public class SqlCompiler implements Closeable {
 
     public final static class PartitionAction {
         public static final int ATTACH = 2;
+        public static final int COMPRESS = 4;
         public static final int DETACH = 3;
         public static final int DROP = 1;
     }
@@ -53,7 +53,11 @@ public interface SqlExecutionContext extends Closeable {
             @Nullable RecordSink partitionBySink,
             @Transient @Nullable ColumnTypes keyTypes,
             boolean isOrdered,
-            boolean baseSupportsRandomAccess
+            boolean baseSupportsRandomAccess,
+            int framingMode,
+            long frameLo,
+            long frameHi,
+            int timestampIndex
     );
 
     AnalyticContext getAnalyticContext();
@@ -137,8 +141,18 @@ public interface SqlExecutionContext extends Closeable {
 
     boolean isColumnPreTouchEnabled();
 
+    boolean isParallelAsOfJoinEnabled();
+
     boolean isParallelFilterEnabled();
 
+    boolean isParallelGroupByEnabled();
+
+    boolean isParallelHashJoinEnabled();
+
+    boolean isParallelLatestByEnabled();
+
+    boolean isParallelSortEnabled();
+
     boolean isTimestampRequired();
 
     boolean isWalApplication();
@@ -155,8 +169,18 @@ public interface SqlExecutionContext extends Closeable {
 
     void setNowAndFixClock(long now);
 
+    void setParallelAsOfJoinEnabled(boolean parallelAsOfJoinEnabled);
+
     void setParallelFilterEnabled(boolean parallelFilterEnabled);
 
+    void setParallelGroupByEnabled(boolean parallelGroupByEnabled);
+
+    void setParallelHashJoinEnabled(boolean parallelHashJoinEnabled);
+
+    void setParallelLatestByEnabled(boolean parallelLatestByEnabled);
+
+    void setParallelSortEnabled(boolean parallelSortEnabled);
+
     void setRandom(Rnd rnd);
 
     default void storeTelemetry(short event, short origin) {
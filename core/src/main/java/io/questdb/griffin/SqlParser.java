@@ -347,6 +347,67 @@ public class SqlParser {
         return tok;
     }
 
+    private void parseAnalyticFrame(GenericLexer lexer, AnalyticColumn col, CharSequence tok) throws SqlException {
+        col.setFramingMode(isRowsKeyword(tok) ? AnalyticColumn.FRAMING_ROWS : AnalyticColumn.FRAMING_RANGE);
+        tok = tok(lexer, "'between', 'unbounded', 'current' or expression");
+        if (isBetweenKeyword(tok)) {
+            parseAnalyticFrameBound(lexer, col, true);
+            expectTok(lexer, "and");
+            parseAnalyticFrameBound(lexer, col, false);
+        } else {
+            // short form, e.g. "rows 10 preceding", the frame ends at the current row
+            lexer.unparseLast();
+            parseAnalyticFrameBound(lexer, col, true);
+            col.setHi(null, AnalyticColumn.CURRENT, lexer.lastTokenPosition());
+        }
+    }
+
+    private void parseAnalyticFrameBound(GenericLexer lexer, AnalyticColumn col, boolean lo) throws SqlException {
+        CharSequence tok = tok(lexer, "'unbounded', 'current' or expression");
+        ExpressionNode expr = null;
+        final int kind;
+        final int kindPos;
+        if (isUnboundedKeyword(tok)) {
+            tok = tok(lexer, "'preceding' or 'following'");
+            kindPos = lexer.lastTokenPosition();
+            if (isPrecedingKeyword(tok)) {
+                if (!lo) {
+                    throw SqlException.$(kindPos, "frame end cannot be UNBOUNDED PRECEDING");
+                }
+                kind = AnalyticColumn.PRECEDING;
+            } else if (isFollowingKeyword(tok)) {
+                if (lo) {
+                    throw SqlException.$(kindPos, "frame start cannot be UNBOUNDED FOLLOWING");
+                }
+                kind = AnalyticColumn.FOLLOWING;
+            } else {
+                throw SqlException.$(kindPos, "'preceding' or 'following' expected");
+            }
+        } else if (isCurrentKeyword(tok)) {
+            kindPos = lexer.lastTokenPosition();
+            expectTok(lexer, "row");
+            kind = AnalyticColumn.CURRENT;
+        } else {
+            lexer.unparseLast();
+            expr = expectExpr(lexer);
+            tok = tok(lexer, "'preceding' or 'following'");
+            kindPos = lexer.lastTokenPosition();
+            if (isPrecedingKeyword(tok)) {
+                kind = AnalyticColumn.PRECEDING;
+            } else if (isFollowingKeyword(tok)) {
+                kind = AnalyticColumn.FOLLOWING;
+            } else {
+                throw SqlException.$(kindPos, "'preceding' or 'following' expected");
+            }
+        }
+
+        if (lo) {
+            col.setLo(expr, kind, kindPos);
+        } else {
+            col.setHi(expr, kind, kindPos);
+        }
+    }
+
     private QueryModel parseAsSubQueryAndExpectClosingBrace(GenericLexer lexer,
                                                             LowerCaseCharSequenceObjHashMap<WithClauseModel> withClauses,
                                                             boolean useTopLevelWithClauses)
@@ -360,8 +421,60 @@ public class SqlParser {
         if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
             throw SqlException.$(lexer.lastTokenPosition(), "COPY is disabled ['cairo.sql.copy.root' is not set?]");
         }
-        ExpressionNode target = expectExpr(lexer);
-        CharSequence tok = tok(lexer, "'from' or 'to' or 'cancel'");
+        ExpressionNode target = null;
+        CharSequence selectText = null;
+        CharSequence tok = tok(lexer, "table name or query");
+        if (Chars.equals(tok, '(')) {
+            // export of a query result, keep the query text to compile it on the copy job
+            final int selectLo = lexer.getPosition();
+            parseAsSubQueryAndExpectClosingBrace(lexer, null, true);
+            selectText = lexer.immutableBetween(selectLo, lexer.lastTokenPosition());
+            tok = tok(lexer, "'to'");
+            if (!isToKeyword(tok)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "'to' expected");
+            }
+        } else {
+            lexer.unparseLast();
+            target = expectExpr(lexer);
+            tok = tok(lexer, "'from' or 'to' or 'cancel'");
+        }
+
+        if (isToKeyword(tok)) {
+            if (Chars.isBlank(configuration.getSqlCopyExportRoot())) {
+                throw SqlException.$(lexer.lastTokenPosition(), "COPY TO is disabled ['cairo.sql.copy.export.root' is not set?]");
+            }
+            final ExpressionNode fileName = expectExpr(lexer);
+            if (fileName.token.length() < 3 && Chars.startsWith(fileName.token, '\'')) {
+                throw SqlException.$(fileName.position, "file name expected");
+            }
+
+            CopyModel model = copyModelPool.next();
+            model.setExport(true);
+            // same as /exp, the header is written unless asked otherwise
+            model.setHeader(true);
+            model.setTarget(target);
+            model.setSelectText(selectText);
+            model.setFileName(fileName);
+
+            tok = optTok(lexer);
+            if (tok != null && isWithKeyword(tok)) {
+                tok = tok(lexer, "copy option");
+                while (tok != null && !isSemicolon(tok)) {
+                    if (isHeaderKeyword(tok)) {
+                        model.setHeader(isTrueKeyword(tok(lexer, "'true' or 'false'")));
+                        tok = optTok(lexer);
+                    } else if (isDelimiterKeyword(tok)) {
+                        parseCopyDelimiter(lexer, model);
+                        tok = optTok(lexer);
+                    } else {
+                        throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
+                    }
+                }
+            } else if (tok != null && !SqlKeywords.isSemicolon(tok)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "'with' expected");
+            }
+            return model;
+        }
 
         if (isCancelKeyword(tok)) {
             CopyModel model = copyModelPool.next();
@@ -423,16 +536,7 @@ public class SqlParser {
                         }
                         tok = optTok(lexer);
                     } else if (isDelimiterKeyword(tok)) {
-                        tok = tok(lexer, "timestamp character expected");
-                        CharSequence delimiter = GenericLexer.immutableOf(GenericLexer.unquote(tok));
-                        if (delimiter == null || delimiter.length() != 1) {
-                            throw SqlException.$(lexer.getPosition(), "delimiter is empty or contains more than 1 character");
-                        }
-                        char delimiterChar = delimiter.charAt(0);
-                        if (delimiterChar > 127) {
-                            throw SqlException.$(lexer.getPosition(), "delimiter is not an ascii character");
-                        }
-                        model.setDelimiter((byte) delimiterChar);
+                        parseCopyDelimiter(lexer, model);
                         tok = optTok(lexer);
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
@@ -446,6 +550,19 @@ public class SqlParser {
         throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
     }
 
+    private void parseCopyDelimiter(GenericLexer lexer, CopyModel model) throws SqlException {
+        CharSequence tok = tok(lexer, "timestamp character expected");
+        CharSequence delimiter = GenericLexer.immutableOf(GenericLexer.unquote(tok));
+        if (delimiter == null || delimiter.length() != 1) {
+            throw SqlException.$(lexer.getPosition(), "delimiter is empty or contains more than 1 character");
+        }
+        char delimiterChar = delimiter.charAt(0);
+        if (delimiterChar > 127) {
+            throw SqlException.$(lexer.getPosition(), "delimiter is not an ascii character");
+        }
+        model.setDelimiter((byte) delimiterChar);
+    }
+
     private ExecutionModel parseCreateStatement(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
         expectTok(lexer, "table");
         return parseCreateTable(lexer, executionContext);
@@ -1603,7 +1720,7 @@ public class SqlParser {
                 expectTok(lexer, '(');
 
                 col = analyticColumnPool.next().of(null, expr);
-                tok = tokIncludingLocalBrace(lexer, "'partition' or 'order' or ')'");
+                tok = tokIncludingLocalBrace(lexer, "'partition' or 'order' or 'rows' or 'range' or ')'");
 
                 if (isPartitionKeyword(tok)) {
                     expectTok(lexer, "by");
@@ -1634,6 +1751,10 @@ public class SqlParser {
                         }
                     } while (Chars.equals(tok, ','));
                 }
+                if (isRowsKeyword(tok) || isRangeKeyword(tok)) {
+                    parseAnalyticFrame(lexer, (AnalyticColumn) col, tok);
+                    tok = tokIncludingLocalBrace(lexer, "')'");
+                }
                 expectTok(tok, lexer.lastTokenPosition(), ')');
                 tok = optTok(lexer);
 
@@ -31,12 +31,39 @@ import io.questdb.cairo.sql.VirtualRecord;
 public interface AnalyticContext {
     boolean baseSupportsRandomAccess();
 
+    /**
+     * Upper bound of the frame relative to the current row, 0 is the current row,
+     * negative values are preceding rows for ROWS frames and preceding timestamp
+     * distance for RANGE frames. Long.MAX_VALUE stands for UNBOUNDED FOLLOWING.
+     *
+     * @return frame upper bound
+     */
+    long getFrameHi();
+
+    /**
+     * Lower bound of the frame relative to the current row, 0 is the current row,
+     * negative values are preceding rows for ROWS frames and preceding timestamp
+     * distance for RANGE frames. Long.MIN_VALUE stands for UNBOUNDED PRECEDING.
+     *
+     * @return frame lower bound
+     */
+    long getFrameLo();
+
+    int getFramingMode();
+
     ColumnTypes getPartitionByKeyTypes();
 
     VirtualRecord getPartitionByRecord();
 
     RecordSink getPartitionBySink();
 
+    /**
+     * Index of the timestamp column RANGE frame is ordered by, -1 for ROWS frames.
+     *
+     * @return column index in the record analytic function is evaluated against
+     */
+    int getTimestampIndex();
+
     boolean isEmpty();
 
     boolean isOrdered();
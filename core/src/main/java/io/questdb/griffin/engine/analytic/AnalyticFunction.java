@@ -28,22 +28,41 @@ import io.questdb.cairo.ArrayColumnTypes;
 import io.questdb.cairo.sql.AnalyticSPI;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
-import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.std.IntList;
 
 public interface AnalyticFunction extends Function {
-    int STREAM = 1;
-    int THREE_PASS = 3;
+    // function value depends only on the current row and rows that precede it in frame order,
+    // which allows computing it while streaming rows, without caching the result set
+    int ZERO_PASS = 0;
+    // function needs the result set to be cached, it can write values to rows other than the current one
+    int ONE_PASS = 1;
+    // function needs a second pass over the cached result set, e.g. when frame extends to the end of the partition
     int TWO_PASS = 2;
 
+    /**
+     * Updates function state with the next row of the stream. Subsequent getXXX() calls
+     * return function value for this row. Applicable to {@link #ZERO_PASS} functions only.
+     *
+     * @param record the next row
+     */
+    default void computeNext(Record record) {
+        throw new UnsupportedOperationException();
+    }
+
+    default int getPassCount() {
+        return ONE_PASS;
+    }
+
     void initRecordComparator(RecordComparatorCompiler recordComparatorCompiler, ArrayColumnTypes chainTypes, IntList order);
 
     void pass1(Record record, long recordOffset, AnalyticSPI spi);
 
-    void pass2(Record record);
+    default void pass2(Record record, long recordOffset, AnalyticSPI spi) {
+    }
 
-    void preparePass2(RecordCursor cursor);
+    default void preparePass2() {
+    }
 
     void reset();
 
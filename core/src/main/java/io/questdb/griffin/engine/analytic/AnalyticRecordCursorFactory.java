@@ -0,0 +1,203 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.Reopenable;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.AbstractVirtualFunctionRecordCursor;
+import io.questdb.griffin.engine.table.SelectedRecord;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Computes analytic functions in a single pass over the base cursor, without caching
+ * the result set. Applicable when all functions are {@link AnalyticFunction#ZERO_PASS}
+ * and the base cursor returns rows in the order required by each function, e.g. in
+ * the order of designated timestamp.
+ */
+public class AnalyticRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final ObjList<AnalyticFunction> analyticFunctions;
+    private final RecordCursorFactory base;
+    private final IntList columnIndexes;
+    private final AnalyticRecordCursor cursor;
+    private final ObjList<Function> functions;
+
+    /**
+     * @param base          base factory
+     * @param metadata      metadata of the factory
+     * @param functions     functions of output columns, column functions for non-analytic columns
+     * @param columnIndexes indexes of base columns in the column layout analytic function
+     *                      arguments and partition by functions were compiled against
+     */
+    public AnalyticRecordCursorFactory(
+            RecordCursorFactory base,
+            RecordMetadata metadata,
+            ObjList<Function> functions,
+            IntList columnIndexes
+    ) {
+        super(metadata);
+        this.base = base;
+        this.functions = functions;
+        this.analyticFunctions = new ObjList<>();
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            final Function f = functions.getQuick(i);
+            if (f instanceof AnalyticFunction) {
+                analyticFunctions.add((AnalyticFunction) f);
+            }
+        }
+        this.columnIndexes = columnIndexes;
+        this.cursor = new AnalyticRecordCursor(functions, columnIndexes);
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return base.followedOrderByAdvice();
+    }
+
+    @Override
+    public String getBaseColumnName(int idx) {
+        // analytic function arguments reference columns through column indexes
+        return base.getMetadata().getColumnName(columnIndexes.getQuick(idx));
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (Throwable th) {
+            cursor.close();
+            throw th;
+        }
+    }
+
+    @Override
+    public int getScanDirection() {
+        return base.getScanDirection();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Analytic");
+        sink.optAttr("functions", analyticFunctions, true);
+        sink.child(base);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+        Misc.free(cursor);
+        Misc.freeObjList(functions);
+    }
+
+    private class AnalyticRecordCursor extends AbstractVirtualFunctionRecordCursor {
+        private final IntList columnIndexes;
+        // base record as seen by analytic functions
+        private final SelectedRecord selectedRecord;
+        private final SymbolTableSource selectedSymbolTableSource = new SymbolTableSource() {
+            @Override
+            public SymbolTable getSymbolTable(int columnIndex) {
+                return baseCursor.getSymbolTable(columnIndexes.getQuick(columnIndex));
+            }
+
+            @Override
+            public SymbolTable newSymbolTable(int columnIndex) {
+                return baseCursor.newSymbolTable(columnIndexes.getQuick(columnIndex));
+            }
+        };
+        private boolean isOpen = true;
+
+        public AnalyticRecordCursor(ObjList<Function> functions, IntList columnIndexes) {
+            super(functions, false);
+            this.columnIndexes = columnIndexes;
+            this.selectedRecord = new SelectedRecord(columnIndexes);
+        }
+
+        @Override
+        public void close() {
+            if (isOpen) {
+                super.close();
+                for (int i = 0, n = analyticFunctions.size(); i < n; i++) {
+                    analyticFunctions.getQuick(i).reset();
+                }
+                isOpen = false;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (baseCursor.hasNext()) {
+                for (int i = 0, n = analyticFunctions.size(); i < n; i++) {
+                    analyticFunctions.getQuick(i).computeNext(selectedRecord);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private void of(RecordCursor baseCursor, SqlExecutionContext executionContext) throws SqlException {
+            of(baseCursor);
+            selectedRecord.of(baseCursor.getRecord());
+            if (!isOpen) {
+                isOpen = true;
+                for (int i = 0, n = analyticFunctions.size(); i < n; i++) {
+                    final AnalyticFunction f = analyticFunctions.getQuick(i);
+                    if (f instanceof Reopenable) {
+                        ((Reopenable) f).reopen();
+                    }
+                }
+            }
+            for (int i = 0, n = functions.size(); i < n; i++) {
+                final Function f = functions.getQuick(i);
+                f.init(f instanceof AnalyticFunction ? selectedSymbolTableSource : baseCursor, executionContext);
+            }
+            // functions may hold state of the previous execution
+            for (int i = 0, n = analyticFunctions.size(); i < n; i++) {
+                analyticFunctions.getQuick(i).toTop();
+            }
+        }
+    }
+}
@@ -43,10 +43,12 @@ import org.jetbrains.annotations.Nullable;
 public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFactory {
     private final ObjList<AnalyticFunction> allFunctions;
     private final RecordCursorFactory base;
+    private final IntList columnIndexes;
     private final ObjList<RecordComparator> comparators;
     private final CachedAnalyticRecordCursor cursor;
     private final ObjList<ObjList<AnalyticFunction>> orderedFunctions;
     private final int orderedGroupCount;
+    private final ObjList<AnalyticFunction> twoPassFunctions;
     @Nullable
     private final ObjList<AnalyticFunction> unorderedFunctions;
     private boolean closed = false;
@@ -88,6 +90,7 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
             );
         }
 
+        this.columnIndexes = columnIndexes;
         this.cursor = new CachedAnalyticRecordCursor(columnIndexes, recordChain, orderedSources);
 
         this.allFunctions = new ObjList<>();
@@ -98,6 +101,14 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
             allFunctions.addAll(unorderedFunctions);
         }
 
+        this.twoPassFunctions = new ObjList<>();
+        for (int i = 0, n = allFunctions.size(); i < n; i++) {
+            final AnalyticFunction f = allFunctions.getQuick(i);
+            if (f.getPassCount() == AnalyticFunction.TWO_PASS) {
+                twoPassFunctions.add(f);
+            }
+        }
+
         this.unorderedFunctions = unorderedFunctions;
     }
 
@@ -106,6 +117,12 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
         return base.followedOrderByAdvice();
     }
 
+    @Override
+    public String getBaseColumnName(int idx) {
+        // analytic function arguments reference columns of the chain record
+        return base.getMetadata().getColumnName(columnIndexes.getQuick(idx));
+    }
+
     @Override
     public RecordCursorFactory getBaseFactory() {
         return base;
@@ -114,8 +131,13 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
         final RecordCursor baseCursor = base.getCursor(executionContext);
-        cursor.of(baseCursor, executionContext);
-        return cursor;
+        try {
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (Throwable th) {
+            cursor.close();
+            throw th;
+        }
     }
 
     @Override
@@ -126,7 +148,7 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
     @Override
     public void toPlan(PlanSink sink) {
         sink.type("CachedAnalytic");
-        sink.optAttr("functions", allFunctions);
+        sink.optAttr("functions", allFunctions, true);
         sink.child(base);
     }
 
@@ -284,21 +306,40 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
                 }
             }
 
+            // step #3: run pass2 for functions that need to see all rows of the partition first
+            final int twoPassCount = twoPassFunctions.size();
+            if (twoPassCount > 0) {
+                for (int j = 0; j < twoPassCount; j++) {
+                    twoPassFunctions.getQuick(j).preparePass2();
+                }
+                recordChain.toTop();
+                while (recordChain.hasNext()) {
+                    circuitBreaker.statefulThrowExceptionIfTripped();
+                    offset = chainRecord.getRowId();
+                    for (int j = 0; j < twoPassCount; j++) {
+                        twoPassFunctions.getQuick(j).pass2(chainRecord, offset, recordChain);
+                    }
+                }
+            }
+
             recordChain.toTop();
         }
 
-        private void of(RecordCursor base, SqlExecutionContext context) {
+        private void of(RecordCursor base, SqlExecutionContext context) throws SqlException {
             this.base = base;
             isRecordChainBuilt = false;
             recordChainOffset = -1;
             circuitBreaker = context.getCircuitBreaker();
             if (!isOpen) {
+                isOpen = true;
                 recordChain.reopen();
                 recordChain.setSymbolTableResolver(this);
                 reopenTrees();
                 reopen(allFunctions);
-                isOpen = true;
             }
+            // function arguments refer to columns of the chain record, which
+            // this cursor resolves symbol tables for
+            Function.init(allFunctions, this, context);
         }
 
         private void reopen(ObjList<?> list) {
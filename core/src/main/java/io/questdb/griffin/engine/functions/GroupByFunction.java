@@ -58,10 +58,34 @@ public interface GroupByFunction extends Function, Mutable {
         return false;
     }
 
+    /**
+     * Returns true if the function is capable of combining partial aggregates
+     * calculated independently, e.g. on different worker threads, via
+     * {@link #merge(MapValue, MapValue)} call.
+     *
+     * @return true if the function supports merging of partial aggregates
+     */
+    default boolean isParallelismSupported() {
+        return false;
+    }
+
     default boolean isScalar() {
         return true;
     }
 
+    /**
+     * Merges partial aggregate stored in the source value into the destination value.
+     * Both values must have the same structure, i.e. belong to maps created with
+     * the same value types. Only called when {@link #isParallelismSupported()}
+     * returns true.
+     *
+     * @param destValue value to merge into
+     * @param srcValue  value to merge from
+     */
+    default void merge(MapValue destValue, MapValue srcValue) {
+        throw new UnsupportedOperationException();
+    }
+
     void pushValueTypes(ArrayColumnTypes columnTypes);
 
     default void setByte(MapValue mapValue, byte value) {
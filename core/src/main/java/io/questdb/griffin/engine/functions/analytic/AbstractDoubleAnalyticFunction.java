@@ -0,0 +1,213 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.Reopenable;
+import io.questdb.cairo.SingleColumnType;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
+import io.questdb.std.*;
+
+/**
+ * Base for double window functions that keep fixed size state per partition. State blocks
+ * of all partitions are allocated in a single off-heap memory region; partition map, when
+ * the function is partitioned, stores offset of the block.
+ */
+public abstract class AbstractDoubleAnalyticFunction extends DoubleFunction implements ScalarFunction, AnalyticFunction, Reopenable {
+    // max ROWS frame offset and lag/lead offset, state block of every partition grows linearly with it
+    public static final long MAX_ROWS_OFFSET = 1_000_000;
+    private static final SingleColumnType LONG_COLUMN_TYPE = new SingleColumnType(ColumnType.LONG);
+    protected final Function arg;
+    private final long blockSize;
+    private final Map map;
+    private final MemoryCARW memory;
+    private final VirtualRecord partitionByRecord;
+    private final RecordSink partitionBySink;
+    protected double value;
+    private int columnIndex;
+
+    protected AbstractDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            Function arg,
+            long blockSize
+    ) {
+        this.arg = arg;
+        this.blockSize = blockSize;
+        this.partitionByRecord = analyticContext.getPartitionByRecord();
+        this.partitionBySink = analyticContext.getPartitionBySink();
+        if (partitionByRecord != null) {
+            this.map = MapFactory.createMap(
+                    configuration,
+                    analyticContext.getPartitionByKeyTypes(),
+                    LONG_COLUMN_TYPE
+            );
+        } else {
+            this.map = null;
+        }
+        this.memory = Vm.getCARWInstance(
+                configuration.getSqlAnalyticStorePageSize(),
+                configuration.getSqlAnalyticStoreMaxPages(),
+                MemoryTag.NATIVE_DEFAULT
+        );
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+        Misc.free(memory);
+        if (partitionByRecord != null) {
+            Misc.freeObjList(partitionByRecord.getFunctions());
+        }
+        Misc.free(arg);
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        return value;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        arg.init(symbolTableSource, executionContext);
+        if (partitionByRecord != null) {
+            Function.init(partitionByRecord.getFunctions(), symbolTableSource, executionContext);
+        }
+    }
+
+    @Override
+    public void initRecordComparator(RecordComparatorCompiler recordComparatorCompiler, ArrayColumnTypes chainTypes, IntList order) {
+    }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+        computeNext(record);
+        Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), value);
+    }
+
+    @Override
+    public void reopen() {
+        if (map != null) {
+            map.reopen();
+        }
+    }
+
+    @Override
+    public void reset() {
+        Misc.free(map);
+        memory.close();
+    }
+
+    @Override
+    public void setColumnIndex(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val(getName()).val('(').val(arg).val(')');
+    }
+
+    @Override
+    public void toTop() {
+        if (map != null) {
+            map.clear();
+        }
+        memory.jumpTo(0);
+    }
+
+    /**
+     * Finds state block of the partition the record belongs to. Block of a new partition
+     * is zeroed and passed to {@link #initBlock(long)}.
+     *
+     * @param record     the record
+     * @param createNew  when false, the partition is expected to exist already
+     * @return address of the state block, valid until the next call of this method
+     */
+    protected long findBlock(Record record, boolean createNew) {
+        final long offset;
+        if (map == null) {
+            if (memory.getAppendOffset() == 0) {
+                newBlock();
+            }
+            offset = 0;
+        } else {
+            partitionByRecord.of(record);
+            final MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            if (createNew) {
+                final MapValue mapValue = key.createValue();
+                if (mapValue.isNew()) {
+                    offset = newBlock();
+                    mapValue.putLong(0, offset);
+                } else {
+                    offset = mapValue.getLong(0);
+                }
+            } else {
+                final MapValue mapValue = key.findValue();
+                assert mapValue != null;
+                offset = mapValue.getLong(0);
+            }
+        }
+        return memory.addressOf(offset);
+    }
+
+    protected int getColumnIndex() {
+        return columnIndex;
+    }
+
+    protected void initBlock(long address) {
+    }
+
+    private long newBlock() {
+        final long offset = memory.getAppendOffset();
+        final long address = memory.appendAddressFor(blockSize);
+        Vect.memset(address, blockSize, 0);
+        initBlock(address);
+        return offset;
+    }
+}
@@ -0,0 +1,433 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.AnalyticSPI;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.model.AnalyticColumn;
+import io.questdb.std.*;
+
+/**
+ * Double window function over ROWS or RANGE frame, which ends at the current row or before it.
+ * Rows are processed incrementally: each row of a partition enters the frame once and,
+ * when the frame start is bounded, leaves it once. Values that may still enter or leave
+ * the frame are kept in per-partition ring buffer, so that the cost of a row does not
+ * depend on the frame size.
+ * <p>
+ * ROWS frame has fixed number of rows and its ring buffer is part of the partition state block.
+ * RANGE frame spans the rows, which timestamps are within a distance from the timestamp of the
+ * current row, its ring buffer is allocated in separate memory and doubles in size when the frame
+ * outgrows it. Ring buffers released by growth are reused by other partitions.
+ * <p>
+ * Frame that spans the whole partition is accumulated in the first pass and the result
+ * is written to all rows of the partition in the second pass.
+ * <p>
+ * State block layout: [header][function state][ROWS ring buffer], ring buffer element layout:
+ * [frame values][timestamp, RANGE frames only][deque row, functions that use deque only]
+ */
+public abstract class AbstractFrameDoubleAnalyticFunction extends AbstractDoubleAnalyticFunction {
+    private static final long DEQUE_HEAD = Long.BYTES;
+    private static final long DEQUE_TAIL = 2 * Long.BYTES;
+    private static final long ENTERED_ROW = 3 * Long.BYTES;
+    private static final long HEAD_ROW = 4 * Long.BYTES;
+    private static final long RING_CAPACITY = 5 * Long.BYTES;
+    private static final long RING_OFFSET = 6 * Long.BYTES;
+    private static final long HEADER_SIZE = 7 * Long.BYTES;
+    private static final long RANGE_INITIAL_CAPACITY = 16;
+    private static final long ROW_COUNT = 0;
+    private final long dequeOffset;
+    private final long elementSize;
+    private final long frameHi;
+    private final long frameLo;
+    // released RANGE ring buffer offsets, one list per doubling of the initial capacity
+    private final ObjList<LongList> freeRings;
+    private final boolean hasDeque;
+    private final boolean rangeFrame;
+    private final MemoryCARW ringMemory;
+    private final long rowsCapacity;
+    private final long stateSize;
+    private final long timestampOffset;
+    private final int timestampIndex;
+    private final boolean wholePartition;
+    // frame bounds of the current row, row numbers are relative to the start of partition
+    protected long frameHiRow;
+    protected long frameLoRow;
+    private long blockAddress;
+    private long ringAddress;
+    private long ringCapacity;
+
+    protected AbstractFrameDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            Function arg,
+            int stateSize
+    ) {
+        this(configuration, analyticContext, arg, stateSize, 1, false);
+    }
+
+    protected AbstractFrameDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            Function arg,
+            int stateSize,
+            int valueCount,
+            boolean deque
+    ) {
+        this(
+                configuration,
+                analyticContext,
+                arg,
+                stateSize,
+                valueCount,
+                deque,
+                analyticContext.getFramingMode() == AnalyticColumn.FRAMING_RANGE,
+                analyticContext.getFrameLo(),
+                analyticContext.getFrameHi()
+        );
+    }
+
+    /**
+     * Creates function over ROWS frame that does not depend on the window frame clause.
+     */
+    protected AbstractFrameDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            Function arg,
+            int stateSize,
+            long rowsLo,
+            long rowsHi
+    ) {
+        this(configuration, analyticContext, arg, stateSize, 1, false, false, rowsLo, rowsHi);
+    }
+
+    private AbstractFrameDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            Function arg,
+            int stateSize,
+            int valueCount,
+            boolean deque,
+            boolean rangeFrame,
+            long frameLo,
+            long frameHi
+    ) {
+        super(
+                configuration,
+                analyticContext,
+                arg,
+                HEADER_SIZE + stateSize + (rangeFrame ? 0 : rowsCapacity(frameLo, frameHi) * elementSize(valueCount, false, deque))
+        );
+        assert frameHi <= 0 || frameHi == Long.MAX_VALUE;
+        assert !rangeFrame || analyticContext.getTimestampIndex() > -1;
+        this.rangeFrame = rangeFrame;
+        this.wholePartition = frameHi == Long.MAX_VALUE;
+        this.frameLo = frameLo;
+        this.frameHi = wholePartition ? 0 : frameHi;
+        this.stateSize = stateSize;
+        this.elementSize = elementSize(valueCount, rangeFrame, deque);
+        this.timestampOffset = (long) valueCount * Double.BYTES;
+        this.hasDeque = deque;
+        this.dequeOffset = elementSize - Long.BYTES;
+        this.timestampIndex = analyticContext.getTimestampIndex();
+        if (rangeFrame) {
+            this.rowsCapacity = 0;
+            this.ringMemory = Vm.getCARWInstance(
+                    configuration.getSqlAnalyticStorePageSize(),
+                    configuration.getSqlAnalyticStoreMaxPages(),
+                    MemoryTag.NATIVE_DEFAULT
+            );
+            this.freeRings = new ObjList<>();
+        } else {
+            this.rowsCapacity = rowsCapacity(frameLo, frameHi);
+            this.ringMemory = null;
+            this.freeRings = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        Misc.free(ringMemory);
+    }
+
+    @Override
+    public void computeNext(Record record) {
+        final long block = findBlock(record, true);
+        final long stateAddress = block + HEADER_SIZE;
+        final long n = Unsafe.getUnsafe().getLong(block + ROW_COUNT);
+        long headRow = Unsafe.getUnsafe().getLong(block + HEAD_ROW);
+        long enteredRow = Unsafe.getUnsafe().getLong(block + ENTERED_ROW);
+        final long timestamp = rangeFrame ? record.getTimestamp(timestampIndex) : 0;
+        final long enterLimit = rangeFrame ? shift(timestamp, frameHi) : n + frameHi;
+        useRing(block);
+
+        // previous rows that have reached the frame end
+        while (enteredRow < n && entersFrame(enteredRow, enterLimit)) {
+            enter(stateAddress, enteredRow++);
+        }
+        if (frameLo == Long.MIN_VALUE) {
+            // rows never leave the frame, only the last entered row is kept for the frame end value
+            headRow = Math.max(headRow, enteredRow - 1);
+        } else {
+            final long leaveLimit = rangeFrame ? shift(timestamp, frameLo) : n + frameLo;
+            while (headRow < enteredRow && leavesFrame(headRow, leaveLimit)) {
+                leave(stateAddress, headRow++);
+            }
+        }
+
+        if (n - headRow + 1 > ringCapacity) {
+            growRing(block, headRow, n);
+        }
+        final long address = ringAddress + (n % ringCapacity) * elementSize;
+        storeValues(record, address);
+        if (rangeFrame) {
+            Unsafe.getUnsafe().putLong(address + timestampOffset, timestamp);
+        }
+        if (enteredRow == n && entersFrame(n, enterLimit)) {
+            enter(stateAddress, enteredRow++);
+        }
+
+        Unsafe.getUnsafe().putLong(block + ROW_COUNT, n + 1);
+        Unsafe.getUnsafe().putLong(block + HEAD_ROW, headRow);
+        Unsafe.getUnsafe().putLong(block + ENTERED_ROW, enteredRow);
+
+        frameLoRow = frameLo == Long.MIN_VALUE ? 0 : headRow;
+        frameHiRow = enteredRow - 1;
+        value = frameHiRow < frameLoRow ? getEmptyFrameValue() : result(stateAddress);
+    }
+
+    @Override
+    public int getPassCount() {
+        return wholePartition ? TWO_PASS : ZERO_PASS;
+    }
+
+    @Override
+    public void pass2(Record record, long recordOffset, AnalyticSPI spi) {
+        final long block = findBlock(record, false);
+        useRing(block);
+        frameLoRow = 0;
+        frameHiRow = Unsafe.getUnsafe().getLong(block + ROW_COUNT) - 1;
+        value = result(block + HEADER_SIZE);
+        Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, getColumnIndex()), value);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if (ringMemory != null) {
+            ringMemory.close();
+            freeRings.clear();
+        }
+    }
+
+    @Override
+    public void toTop() {
+        super.toTop();
+        if (ringMemory != null) {
+            ringMemory.jumpTo(0);
+            freeRings.clear();
+        }
+    }
+
+    private static long elementSize(int valueCount, boolean rangeFrame, boolean deque) {
+        return (long) valueCount * Double.BYTES + (rangeFrame ? Long.BYTES : 0) + (deque ? Long.BYTES : 0);
+    }
+
+    private static long rowsCapacity(long rowsLo, long rowsHi) {
+        if (rowsLo == Long.MIN_VALUE) {
+            // rows wait in the buffer until they enter the frame, the last entered row is kept too
+            return rowsHi == Long.MAX_VALUE ? 2 : 2 - rowsHi;
+        }
+        // rows stay in the buffer until they leave the frame
+        return 1 - rowsLo;
+    }
+
+    // timestamp + distance, saturated at the lowest timestamp
+    private static long shift(long timestamp, long distance) {
+        return timestamp < Long.MIN_VALUE - distance ? Long.MIN_VALUE : timestamp + distance;
+    }
+
+    private boolean entersFrame(long row, long limit) {
+        return rangeFrame ? frameTimestamp(row) <= limit : row <= limit;
+    }
+
+    private long frameTimestamp(long row) {
+        return Unsafe.getUnsafe().getLong(ringAddress + (row % ringCapacity) * elementSize + timestampOffset);
+    }
+
+    private long freeRingOffset(int level) {
+        if (level < freeRings.size()) {
+            final LongList list = freeRings.getQuick(level);
+            if (list != null && list.size() > 0) {
+                final long offset = list.getLast();
+                list.removeIndex(list.size() - 1);
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private void growRing(long block, long headRow, long n) {
+        assert rangeFrame;
+        final long oldOffset = Unsafe.getUnsafe().getLong(block + RING_OFFSET);
+        final long oldCapacity = ringCapacity;
+        final long newCapacity = oldCapacity * 2;
+        final long newOffset = newRing(newCapacity);
+        final long oldAddress = ringMemory.addressOf(oldOffset);
+        final long newAddress = ringMemory.addressOf(newOffset);
+        // frame values and timestamps are addressed by row number, deque elements by deque position
+        for (long row = headRow; row < n; row++) {
+            Vect.memcpy(
+                    newAddress + (row % newCapacity) * elementSize,
+                    oldAddress + (row % oldCapacity) * elementSize,
+                    hasDeque ? dequeOffset : elementSize
+            );
+        }
+        if (hasDeque) {
+            for (long pos = Unsafe.getUnsafe().getLong(block + DEQUE_HEAD), tail = Unsafe.getUnsafe().getLong(block + DEQUE_TAIL); pos < tail; pos++) {
+                Unsafe.getUnsafe().putLong(
+                        newAddress + (pos % newCapacity) * elementSize + dequeOffset,
+                        Unsafe.getUnsafe().getLong(oldAddress + (pos % oldCapacity) * elementSize + dequeOffset)
+                );
+            }
+        }
+        final int oldLevel = Numbers.msb(oldCapacity / RANGE_INITIAL_CAPACITY);
+        LongList list = freeRings.getQuiet(oldLevel);
+        if (list == null) {
+            freeRings.extendAndSet(oldLevel, list = new LongList());
+        }
+        list.add(oldOffset);
+        Unsafe.getUnsafe().putLong(block + RING_OFFSET, newOffset);
+        Unsafe.getUnsafe().putLong(block + RING_CAPACITY, newCapacity);
+        useRing(block);
+    }
+
+    private boolean leavesFrame(long row, long limit) {
+        return rangeFrame ? frameTimestamp(row) < limit : row < limit;
+    }
+
+    private long newRing(long capacity) {
+        final long offset = freeRingOffset(Numbers.msb(capacity / RANGE_INITIAL_CAPACITY));
+        if (offset > -1) {
+            return offset;
+        }
+        final long appendOffset = ringMemory.getAppendOffset();
+        ringMemory.appendAddressFor(capacity * elementSize);
+        return appendOffset;
+    }
+
+    private void useRing(long block) {
+        blockAddress = block;
+        if (rangeFrame) {
+            ringAddress = ringMemory.addressOf(Unsafe.getUnsafe().getLong(block + RING_OFFSET));
+            ringCapacity = Unsafe.getUnsafe().getLong(block + RING_CAPACITY);
+        } else {
+            ringAddress = block + HEADER_SIZE + stateSize;
+            ringCapacity = rowsCapacity;
+        }
+    }
+
+    protected void dequeAddLast(long row) {
+        final long tail = Unsafe.getUnsafe().getLong(blockAddress + DEQUE_TAIL);
+        Unsafe.getUnsafe().putLong(dequeAddress(tail), row);
+        Unsafe.getUnsafe().putLong(blockAddress + DEQUE_TAIL, tail + 1);
+    }
+
+    protected long dequeFirst() {
+        return Unsafe.getUnsafe().getLong(dequeAddress(Unsafe.getUnsafe().getLong(blockAddress + DEQUE_HEAD)));
+    }
+
+    protected boolean dequeIsEmpty() {
+        return Unsafe.getUnsafe().getLong(blockAddress + DEQUE_HEAD) == Unsafe.getUnsafe().getLong(blockAddress + DEQUE_TAIL);
+    }
+
+    protected long dequeLast() {
+        return Unsafe.getUnsafe().getLong(dequeAddress(Unsafe.getUnsafe().getLong(blockAddress + DEQUE_TAIL) - 1));
+    }
+
+    protected void dequePollFirst() {
+        Unsafe.getUnsafe().putLong(blockAddress + DEQUE_HEAD, Unsafe.getUnsafe().getLong(blockAddress + DEQUE_HEAD) + 1);
+    }
+
+    protected void dequePollLast() {
+        Unsafe.getUnsafe().putLong(blockAddress + DEQUE_TAIL, Unsafe.getUnsafe().getLong(blockAddress + DEQUE_TAIL) - 1);
+    }
+
+    /**
+     * Called when the row enters the frame, values of the row are available via {@link #frameValue(long, int)}.
+     */
+    protected abstract void enter(long stateAddress, long row);
+
+    protected double frameValue(long row) {
+        return Unsafe.getUnsafe().getDouble(ringAddress + (row % ringCapacity) * elementSize);
+    }
+
+    protected double frameValue(long row, int valueIndex) {
+        return Unsafe.getUnsafe().getDouble(ringAddress + (row % ringCapacity) * elementSize + (long) valueIndex * Double.BYTES);
+    }
+
+    protected double getEmptyFrameValue() {
+        return Double.NaN;
+    }
+
+    @Override
+    protected final void initBlock(long address) {
+        if (rangeFrame) {
+            Unsafe.getUnsafe().putLong(address + RING_OFFSET, newRing(RANGE_INITIAL_CAPACITY));
+            Unsafe.getUnsafe().putLong(address + RING_CAPACITY, RANGE_INITIAL_CAPACITY);
+        }
+        initState(address + HEADER_SIZE);
+    }
+
+    protected void initState(long stateAddress) {
+    }
+
+    protected boolean isFrameLoUnbounded() {
+        return frameLo == Long.MIN_VALUE;
+    }
+
+    /**
+     * Called when the row leaves the frame, it is called in the same order rows entered the frame.
+     */
+    protected abstract void leave(long stateAddress, long row);
+
+    protected abstract double result(long stateAddress);
+
+    /**
+     * Stores frame values of the current row into the ring buffer element.
+     */
+    protected void storeValues(Record record, long address) {
+        Unsafe.getUnsafe().putDouble(address, arg.getDouble(record));
+    }
+
+    private long dequeAddress(long position) {
+        return ringAddress + (position % ringCapacity) * elementSize + dequeOffset;
+    }
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+
+public class LagDoubleAnalyticFunctionFactory implements FunctionFactory {
+    private static final String NAME = "lag";
+    private static final String SIGNATURE = NAME + "(DV)";
+
+    @Override
+    public String getSignature() {
+        return SIGNATURE;
+    }
+
+    @Override
+    public boolean isWindow() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        final AnalyticContext analyticContext = sqlExecutionContext.getAnalyticContext();
+        if (analyticContext.isEmpty()) {
+            throw SqlException.$(position, "analytic function called in non-analytic context, make sure to add OVER clause");
+        }
+        return new LagFunction(
+                configuration,
+                analyticContext,
+                args.getQuick(0),
+                getOffset(args, argPositions),
+                getDefaultValue(args, argPositions)
+        );
+    }
+
+    static double getDefaultValue(ObjList<Function> args, IntList argPositions) throws SqlException {
+        if (args.size() < 3) {
+            return Double.NaN;
+        }
+        if (args.size() > 3) {
+            throw SqlException.$(argPositions.getQuick(3), "too many arguments");
+        }
+        final Function defaultValue = args.getQuick(2);
+        if (!defaultValue.isConstant()) {
+            throw SqlException.$(argPositions.getQuick(2), "default value must be a constant");
+        }
+        switch (ColumnType.tagOf(defaultValue.getType())) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.NULL:
+                return defaultValue.getDouble(null);
+            default:
+                throw SqlException.$(argPositions.getQuick(2), "numeric default value expected");
+        }
+    }
+
+    static long getOffset(ObjList<Function> args, IntList argPositions) throws SqlException {
+        if (args.size() < 2) {
+            return 1;
+        }
+        final Function offset = args.getQuick(1);
+        if (!offset.isConstant()) {
+            throw SqlException.$(argPositions.getQuick(1), "offset must be a constant");
+        }
+        switch (ColumnType.tagOf(offset.getType())) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                final long value = offset.getLong(null);
+                if (value > AbstractDoubleAnalyticFunction.MAX_ROWS_OFFSET) {
+                    throw SqlException.$(argPositions.getQuick(1), "offset must not exceed ").put(AbstractDoubleAnalyticFunction.MAX_ROWS_OFFSET);
+                }
+                if (value < 0) {
+                    throw SqlException.$(argPositions.getQuick(1), "non-negative integer offset expected");
+                }
+                return value;
+            default:
+                throw SqlException.$(argPositions.getQuick(1), "non-negative integer offset expected");
+        }
+    }
+
+    // lag is the only value in [offset preceding, offset preceding] frame, frame clause of the window is ignored
+    private static class LagFunction extends AbstractFrameDoubleAnalyticFunction {
+        private final double defaultValue;
+        private final long offset;
+
+        LagFunction(
+                CairoConfiguration configuration,
+                AnalyticContext analyticContext,
+                Function arg,
+                long offset,
+                double defaultValue
+        ) {
+            super(configuration, analyticContext, arg, 0, -offset, -offset);
+            this.offset = offset;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(NAME).val('(').val(arg).val(',').val(offset).val(',').val(defaultValue).val(')');
+        }
+
+        @Override
+        protected void enter(long stateAddress, long row) {
+        }
+
+        @Override
+        protected double getEmptyFrameValue() {
+            return defaultValue;
+        }
+
+        @Override
+        protected void leave(long stateAddress, long row) {
+        }
+
+        @Override
+        protected double result(long stateAddress) {
+            return frameValue(frameHiRow);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.AnalyticSPI;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+public class LeadDoubleAnalyticFunctionFactory implements FunctionFactory {
+    private static final String NAME = "lead";
+    private static final String SIGNATURE = NAME + "(DV)";
+
+    @Override
+    public String getSignature() {
+        return SIGNATURE;
+    }
+
+    @Override
+    public boolean isWindow() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        final AnalyticContext analyticContext = sqlExecutionContext.getAnalyticContext();
+        if (analyticContext.isEmpty()) {
+            throw SqlException.$(position, "analytic function called in non-analytic context, make sure to add OVER clause");
+        }
+        return new LeadFunction(
+                configuration,
+                analyticContext,
+                args.getQuick(0),
+                LagDoubleAnalyticFunctionFactory.getOffset(args, argPositions),
+                LagDoubleAnalyticFunctionFactory.getDefaultValue(args, argPositions)
+        );
+    }
+
+    // Value of the current row is written to the row that is "offset" rows behind it in the same partition,
+    // rows are initialised with the default value for when there is no such row. Hence, the function
+    // needs cached result set and cannot be streamed.
+    // state: [row count][ring buffer of the last "offset" row offsets]
+    private static class LeadFunction extends AbstractDoubleAnalyticFunction {
+        private final double defaultValue;
+        private final long offset;
+
+        LeadFunction(
+                CairoConfiguration configuration,
+                AnalyticContext analyticContext,
+                Function arg,
+                long offset,
+                double defaultValue
+        ) {
+            super(configuration, analyticContext, arg, Long.BYTES + offset * Long.BYTES);
+            this.offset = offset;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+            final double next = arg.getDouble(record);
+            if (offset == 0) {
+                Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, getColumnIndex()), next);
+                return;
+            }
+
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, getColumnIndex()), defaultValue);
+            final long block = findBlock(record, true);
+            final long n = Unsafe.getUnsafe().getLong(block);
+            final long slot = block + Long.BYTES + (n % offset) * Long.BYTES;
+            if (n >= offset) {
+                Unsafe.getUnsafe().putDouble(spi.getAddress(Unsafe.getUnsafe().getLong(slot), getColumnIndex()), next);
+            }
+            Unsafe.getUnsafe().putLong(slot, recordOffset);
+            Unsafe.getUnsafe().putLong(block, n + 1);
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(NAME).val('(').val(arg).val(',').val(offset).val(',').val(defaultValue).val(')');
+        }
+    }
+}
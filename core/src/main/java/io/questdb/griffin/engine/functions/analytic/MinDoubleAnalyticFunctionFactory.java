@@ -0,0 +1,119 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+public class MinDoubleAnalyticFunctionFactory implements FunctionFactory {
+    private static final String NAME = "min";
+    private static final String SIGNATURE = NAME + "(D)";
+
+    @Override
+    public String getSignature() {
+        return SIGNATURE;
+    }
+
+    @Override
+    public boolean isWindow() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        final AnalyticContext analyticContext = sqlExecutionContext.getAnalyticContext();
+        if (analyticContext.isEmpty()) {
+            throw SqlException.$(position, "analytic function called in non-analytic context, make sure to add OVER clause");
+        }
+        return new MinFunction(configuration, analyticContext, args.getQuick(0));
+    }
+
+    // unbounded frame start keeps running min in the state, otherwise frame min is the first row
+    // of a monotonic deque, which holds frame rows that may still become frame min
+    private static class MinFunction extends AbstractFrameDoubleAnalyticFunction {
+
+        MinFunction(CairoConfiguration configuration, AnalyticContext analyticContext, Function arg) {
+            super(configuration, analyticContext, arg, Double.BYTES, 1, analyticContext.getFrameLo() != Long.MIN_VALUE);
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        protected void enter(long stateAddress, long row) {
+            final double value = frameValue(row);
+            if (Double.isNaN(value)) {
+                return;
+            }
+            if (isFrameLoUnbounded()) {
+                final double min = Unsafe.getUnsafe().getDouble(stateAddress);
+                if (value < min || Double.isNaN(min)) {
+                    Unsafe.getUnsafe().putDouble(stateAddress, value);
+                }
+            } else {
+                // rows, which are not < the entering row, can no longer become frame min
+                while (!dequeIsEmpty() && !(frameValue(dequeLast()) < value)) {
+                    dequePollLast();
+                }
+                dequeAddLast(row);
+            }
+        }
+
+        @Override
+        protected void initState(long stateAddress) {
+            Unsafe.getUnsafe().putDouble(stateAddress, Double.NaN);
+        }
+
+        @Override
+        protected void leave(long stateAddress, long row) {
+            if (!dequeIsEmpty() && dequeFirst() == row) {
+                dequePollFirst();
+            }
+        }
+
+        @Override
+        protected double result(long stateAddress) {
+            if (isFrameLoUnbounded()) {
+                return Unsafe.getUnsafe().getDouble(stateAddress);
+            }
+            return dequeIsEmpty() ? Double.NaN : frameValue(dequeFirst());
+        }
+    }
+}
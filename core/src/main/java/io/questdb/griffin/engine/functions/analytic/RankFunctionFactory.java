@@ -139,14 +139,6 @@ public class RankFunctionFactory implements FunctionFactory {
             maxIndex++;
         }
 
-        @Override
-        public void pass2(Record record) {
-        }
-
-        @Override
-        public void preparePass2(RecordCursor cursor) {
-        }
-
         @Override
         public void reopen() {
             reset();
@@ -247,14 +239,6 @@ public class RankFunctionFactory implements FunctionFactory {
             mapValue.putLong(VAL_MAX_INDEX, maxIndex + 1);
         }
 
-        @Override
-        public void pass2(Record record) {
-        }
-
-        @Override
-        public void preparePass2(RecordCursor cursor) {
-        }
-
         @Override
         public void reopen() {
             map.reopen();
@@ -307,14 +291,6 @@ public class RankFunctionFactory implements FunctionFactory {
             Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), 1);
         }
 
-        @Override
-        public void pass2(Record record) {
-        }
-
-        @Override
-        public void preparePass2(RecordCursor cursor) {
-        }
-
         @Override
         public void reopen() {
         }
@@ -93,6 +93,7 @@ public class RowNumberFunctionFactory implements FunctionFactory {
     private static class OrderRowNumberFunction extends LongFunction implements ScalarFunction, AnalyticFunction, Reopenable {
         private int columnIndex;
         private long next = 1;
+        private long value;
 
         public OrderRowNumberFunction() {
         }
@@ -102,31 +103,32 @@ public class RowNumberFunctionFactory implements FunctionFactory {
         }
 
         @Override
-        public long getLong(Record rec) {
-            // not called
-            throw new UnsupportedOperationException();
+        public void computeNext(Record record) {
+            value = next++;
         }
 
         @Override
-        public void initRecordComparator(RecordComparatorCompiler recordComparatorCompiler, ArrayColumnTypes chainTypes, IntList order) {
+        public long getLong(Record rec) {
+            return value;
         }
 
         @Override
-        public boolean isReadThreadSafe() {
-            return false;
+        public int getPassCount() {
+            return ZERO_PASS;
         }
 
         @Override
-        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
-            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), next++);
+        public void initRecordComparator(RecordComparatorCompiler recordComparatorCompiler, ArrayColumnTypes chainTypes, IntList order) {
         }
 
         @Override
-        public void pass2(Record record) {
+        public boolean isReadThreadSafe() {
+            return false;
         }
 
         @Override
-        public void preparePass2(RecordCursor cursor) {
+        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), next++);
         }
 
         @Override
@@ -148,6 +150,11 @@ public class RowNumberFunctionFactory implements FunctionFactory {
         public void toPlan(PlanSink sink) {
             sink.val(SIGNATURE);
         }
+
+        @Override
+        public void toTop() {
+            next = 1;
+        }
     }
 
     private static class RowNumberFunction extends LongFunction implements ScalarFunction, AnalyticFunction, Reopenable {
@@ -155,6 +162,7 @@ public class RowNumberFunctionFactory implements FunctionFactory {
         private final VirtualRecord partitionByRecord;
         private final RecordSink partitionBySink;
         private int columnIndex;
+        private long value;
 
         public RowNumberFunction(Map map, VirtualRecord partitionByRecord, RecordSink partitionBySink) {
             this.map = map;
@@ -168,43 +176,44 @@ public class RowNumberFunctionFactory implements FunctionFactory {
             Misc.freeObjList(partitionByRecord.getFunctions());
         }
 
+        @Override
+        public void computeNext(Record record) {
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue mapValue = key.createValue();
+            value = mapValue.isNew() ? 1 : mapValue.getLong(0) + 1;
+            mapValue.putLong(0, value);
+        }
+
         @Override
         public long getLong(Record rec) {
-            // not called
-            throw new UnsupportedOperationException();
+            return value;
         }
 
         @Override
-        public void initRecordComparator(RecordComparatorCompiler recordComparatorCompiler, ArrayColumnTypes chainTypes, IntList order) {
+        public int getPassCount() {
+            return ZERO_PASS;
         }
 
         @Override
-        public boolean isReadThreadSafe() {
-            return false;
+        public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+            Function.init(partitionByRecord.getFunctions(), symbolTableSource, executionContext);
         }
 
         @Override
-        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
-            partitionByRecord.of(record);
-            MapKey key = map.withKey();
-            key.put(partitionByRecord, partitionBySink);
-            MapValue value = key.createValue();
-            long x;
-            if (value.isNew()) {
-                x = 0;
-            } else {
-                x = value.getLong(0);
-            }
-            value.putLong(0, x + 1);
-            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), x + 1);
+        public void initRecordComparator(RecordComparatorCompiler recordComparatorCompiler, ArrayColumnTypes chainTypes, IntList order) {
         }
 
         @Override
-        public void pass2(Record record) {
+        public boolean isReadThreadSafe() {
+            return false;
         }
 
         @Override
-        public void preparePass2(RecordCursor cursor) {
+        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), value);
         }
 
         @Override
@@ -226,38 +235,45 @@ public class RowNumberFunctionFactory implements FunctionFactory {
         public void toPlan(PlanSink sink) {
             sink.val(SIGNATURE);
         }
+
+        @Override
+        public void toTop() {
+            map.clear();
+        }
     }
 
     private static class SequenceRowNumberFunction extends LongFunction implements ScalarFunction, AnalyticFunction, Reopenable {
         private int columnIndex;
         private long next = 1;
+        private long value;
 
         @Override
-        public long getLong(Record rec) {
-            // not called
-            throw new UnsupportedOperationException();
+        public void computeNext(Record record) {
+            value = next++;
         }
 
         @Override
-        public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) {
-            toTop();
+        public long getLong(Record rec) {
+            return value;
         }
 
         @Override
-        public void initRecordComparator(RecordComparatorCompiler recordComparatorCompiler, ArrayColumnTypes chainTypes, IntList order) {
+        public int getPassCount() {
+            return ZERO_PASS;
         }
 
         @Override
-        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
-            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), next++);
+        public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) {
+            toTop();
         }
 
         @Override
-        public void pass2(Record record) {
+        public void initRecordComparator(RecordComparatorCompiler recordComparatorCompiler, ArrayColumnTypes chainTypes, IntList order) {
         }
 
         @Override
-        public void preparePass2(RecordCursor cursor) {
+        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), next++);
         }
 
         @Override
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.IntList;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+public class SumDoubleAnalyticFunctionFactory implements FunctionFactory {
+    private static final String NAME = "sum";
+    private static final String SIGNATURE = NAME + "(D)";
+
+    @Override
+    public String getSignature() {
+        return SIGNATURE;
+    }
+
+    @Override
+    public boolean isWindow() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        final AnalyticContext analyticContext = sqlExecutionContext.getAnalyticContext();
+        if (analyticContext.isEmpty()) {
+            throw SqlException.$(position, "analytic function called in non-analytic context, make sure to add OVER clause");
+        }
+        return new SumFunction(configuration, analyticContext, args.getQuick(0));
+    }
+
+    // state: [sum][count of finite values]
+    static class SumFunction extends AbstractFrameDoubleAnalyticFunction {
+
+        SumFunction(CairoConfiguration configuration, AnalyticContext analyticContext, Function arg) {
+            super(configuration, analyticContext, arg, Double.BYTES + Long.BYTES);
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        protected void enter(long stateAddress, long row) {
+            final double value = frameValue(row);
+            if (Numbers.isFinite(value)) {
+                Unsafe.getUnsafe().putDouble(stateAddress, Unsafe.getUnsafe().getDouble(stateAddress) + value);
+                Unsafe.getUnsafe().putLong(stateAddress + Double.BYTES, Unsafe.getUnsafe().getLong(stateAddress + Double.BYTES) + 1);
+            }
+        }
+
+        @Override
+        protected void leave(long stateAddress, long row) {
+            final double value = frameValue(row);
+            if (Numbers.isFinite(value)) {
+                Unsafe.getUnsafe().putDouble(stateAddress, Unsafe.getUnsafe().getDouble(stateAddress) - value);
+                Unsafe.getUnsafe().putLong(stateAddress + Double.BYTES, Unsafe.getUnsafe().getLong(stateAddress + Double.BYTES) - 1);
+            }
+        }
+
+        @Override
+        protected double result(long stateAddress) {
+            if (Unsafe.getUnsafe().getLong(stateAddress + Double.BYTES) > 0) {
+                return Unsafe.getUnsafe().getDouble(stateAddress);
+            }
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.*;
+
+/**
+ * Volume weighted average price over the window frame, sum(price * volume) / sum(volume).
+ * Rows with non-finite price or volume are ignored.
+ */
+public class VwapDoubleAnalyticFunctionFactory implements FunctionFactory {
+    private static final String NAME = "vwap";
+    private static final String SIGNATURE = NAME + "(DD)";
+
+    @Override
+    public String getSignature() {
+        return SIGNATURE;
+    }
+
+    @Override
+    public boolean isWindow() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        final AnalyticContext analyticContext = sqlExecutionContext.getAnalyticContext();
+        if (analyticContext.isEmpty()) {
+            throw SqlException.$(position, "analytic function called in non-analytic context, make sure to add OVER clause");
+        }
+        return new VwapFunction(configuration, analyticContext, args.getQuick(0), args.getQuick(1));
+    }
+
+    // frame values: [price * volume][volume], state: [sum of price * volume][sum of volume][count]
+    private static class VwapFunction extends AbstractFrameDoubleAnalyticFunction {
+        private final Function volume;
+
+        VwapFunction(CairoConfiguration configuration, AnalyticContext analyticContext, Function price, Function volume) {
+            super(configuration, analyticContext, price, 2 * Double.BYTES + Long.BYTES, 2, false);
+            this.volume = volume;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            Misc.free(volume);
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+            super.init(symbolTableSource, executionContext);
+            volume.init(symbolTableSource, executionContext);
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(NAME).val('(').val(arg).val(',').val(volume).val(')');
+        }
+
+        @Override
+        protected void enter(long stateAddress, long row) {
+            update(stateAddress, row, 1);
+        }
+
+        @Override
+        protected void leave(long stateAddress, long row) {
+            update(stateAddress, row, -1);
+        }
+
+        @Override
+        protected double result(long stateAddress) {
+            final double volumeSum = Unsafe.getUnsafe().getDouble(stateAddress + Double.BYTES);
+            if (Unsafe.getUnsafe().getLong(stateAddress + 2 * Double.BYTES) > 0 && volumeSum != 0) {
+                return Unsafe.getUnsafe().getDouble(stateAddress) / volumeSum;
+            }
+            return Double.NaN;
+        }
+
+        @Override
+        protected void storeValues(Record record, long address) {
+            final double p = arg.getDouble(record);
+            final double v = volume.getDouble(record);
+            if (Numbers.isFinite(p) && Numbers.isFinite(v)) {
+                Unsafe.getUnsafe().putDouble(address, p * v);
+                Unsafe.getUnsafe().putDouble(address + Double.BYTES, v);
+            } else {
+                Unsafe.getUnsafe().putDouble(address, Double.NaN);
+                Unsafe.getUnsafe().putDouble(address + Double.BYTES, Double.NaN);
+            }
+        }
+
+        private void update(long stateAddress, long row, int sign) {
+            final double pv = frameValue(row, 0);
+            if (Numbers.isFinite(pv)) {
+                Unsafe.getUnsafe().putDouble(stateAddress, Unsafe.getUnsafe().getDouble(stateAddress) + sign * pv);
+                Unsafe.getUnsafe().putDouble(stateAddress + Double.BYTES, Unsafe.getUnsafe().getDouble(stateAddress + Double.BYTES) + sign * frameValue(row, 1));
+                Unsafe.getUnsafe().putLong(stateAddress + 2 * Double.BYTES, Unsafe.getUnsafe().getLong(stateAddress + 2 * Double.BYTES) + sign);
+            }
+        }
+    }
+}
@@ -47,6 +47,10 @@ public class FloatColumn extends FloatFunction implements ScalarFunction {
         return new FloatColumn(columnIndex);
     }
 
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     @Override
     public float getFloat(Record rec) {
         return rec.getFloat(columnIndex);
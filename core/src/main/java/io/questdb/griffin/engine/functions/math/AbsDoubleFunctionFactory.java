@@ -45,7 +45,7 @@ public class AbsDoubleFunctionFactory implements FunctionFactory {
         return new AbsFunction(args.getQuick(0));
     }
 
-    private static class AbsFunction extends DoubleFunction implements UnaryFunction {
+    private static class AbsFunction extends DoubleFunction implements UnaryFunction, DoubleArithmeticFunction {
         final Function function;
 
         public AbsFunction(Function function) {
@@ -57,6 +57,11 @@ public class AbsDoubleFunctionFactory implements FunctionFactory {
             return function;
         }
 
+        @Override
+        public int getArithmeticOperator() {
+            return ABS;
+        }
+
         @Override
         public double getDouble(Record rec) {
             double value = function.getDouble(rec);
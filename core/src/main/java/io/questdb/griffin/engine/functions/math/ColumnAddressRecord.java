@@ -0,0 +1,57 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.math;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.LongList;
+import io.questdb.std.Unsafe;
+
+/**
+ * Record over the columns of a page frame, used to evaluate {@link CompiledDoubleFunction}
+ * row by row. Column addresses are indexed by column index, only double and float columns
+ * can be read.
+ */
+public class ColumnAddressRecord implements Record {
+    private LongList columnAddresses;
+    private long row;
+
+    @Override
+    public double getDouble(int col) {
+        return Unsafe.getUnsafe().getDouble(columnAddresses.getQuick(col) + (row << 3));
+    }
+
+    @Override
+    public float getFloat(int col) {
+        return Unsafe.getUnsafe().getFloat(columnAddresses.getQuick(col) + (row << 2));
+    }
+
+    public void of(LongList columnAddresses) {
+        this.columnAddresses = columnAddresses;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.math;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.std.IntList;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+/**
+ * Base class for the functions generated by {@link DoubleArithmeticCompiler}. The generated
+ * {@link #getDouble(io.questdb.cairo.sql.Record)} evaluates the whole arithmetic tree of the
+ * original function in one method, while the original function is kept as the argument
+ * to take care of the life cycle, i.e. init, close and so on, and to print the plan.
+ * <p>
+ * A columnar function, i.e. one that reads only double and float columns and constants, can also
+ * be evaluated over a whole page frame into an off-heap buffer, see {@link #evaluate(ColumnAddressRecord, long, long, boolean)}.
+ */
+public abstract class CompiledDoubleFunction extends DoubleFunction implements UnaryFunction {
+    private final IntList columnIndexes = new IntList();
+    private Function arg;
+    private boolean columnar;
+
+    /**
+     * Evaluates the function for each row of a page frame and writes the values to an off-heap buffer.
+     * The function must be columnar. Evaluation is thread-safe as long as each thread uses its own record.
+     *
+     * @param record           record over the page frame column addresses
+     * @param rowCount         number of rows in the page frame
+     * @param outAddress       address of the buffer to hold rowCount doubles
+     * @param nonFiniteAsNull  when true, infinite values are written as nulls, i.e. NaN
+     */
+    public void evaluate(ColumnAddressRecord record, long rowCount, long outAddress, boolean nonFiniteAsNull) {
+        assert columnar;
+        for (long row = 0; row < rowCount; row++) {
+            record.setRow(row);
+            double value = getDouble(record);
+            if (nonFiniteAsNull && !Numbers.isFinite(value)) {
+                value = Double.NaN;
+            }
+            Unsafe.getUnsafe().putDouble(outAddress + (row << 3), value);
+        }
+    }
+
+    @Override
+    public Function getArg() {
+        return arg;
+    }
+
+    /**
+     * @return indexes of the double and float columns the function reads, in the order of evaluation
+     */
+    public IntList getColumnIndexes() {
+        return columnIndexes;
+    }
+
+    /**
+     * @return true when the function reads at least one column and all of its arguments were fused,
+     * so that it can be evaluated over page frame columns
+     */
+    public boolean isColumnar() {
+        return columnar;
+    }
+
+    public void of(Function arg, IntList columnIndexes, boolean allArgsFused) {
+        this.arg = arg;
+        this.columnIndexes.clear();
+        this.columnIndexes.addAll(columnIndexes);
+        this.columnar = allArgsFused && columnIndexes.size() > 0;
+    }
+
+    /**
+     * Sets the arguments that couldn't be fused to the generated fields. This method is called
+     * by the compiler and should not be called by the caller.
+     *
+     * @param functions functions to be evaluated with a call to getDouble()
+     */
+    public abstract void setFunctions(ObjList<Function> functions);
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val(arg);
+    }
+}
@@ -0,0 +1,289 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.math;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.BinaryFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.columns.DoubleColumn;
+import io.questdb.griffin.engine.functions.columns.FloatColumn;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+
+/**
+ * Fuses trees of double arithmetic functions, e.g. <code>price * qty</code>, <code>(bid + ask) / 2</code>
+ * or <code>abs(x - y)</code>, into a single generated function. Each arithmetic function evaluates
+ * its arguments via a virtual call, so a wide projection over many rows spends a good share
+ * of its time in megamorphic call sites. The generated function reads double and float columns
+ * straight from the record, inlines constants and evaluates the operators with plain JVM
+ * instructions. Any other argument is called via a generated field, as before.
+ * <p>
+ * Operators the compiler doesn't know are not fused: such a function is either returned as is,
+ * or called via a generated field when it is an argument of a fused function.
+ */
+public class DoubleArithmeticCompiler {
+    private static final int FIELD_POOL_OFFSET = 3;
+    private final IntList columnIndexes = new IntList();
+    private final IntList constantIndexes = new IntList();
+    private final ObjList<Function> functions = new ObjList<>();
+    private int absIndex;
+    private int constantCounter;
+    private int firstFieldIndex;
+    private int functionCounter;
+    private int functionGetDoubleIndex;
+    private int recordGetDoubleIndex;
+    private int recordGetFloatIndex;
+
+    /**
+     * Returns a function generated for the given arithmetic function tree or the function itself
+     * if there is nothing to fuse.
+     *
+     * @param asm      BytecodeAssembler instance
+     * @param function function to compile
+     * @return generated function that takes ownership of the given one or the given function
+     */
+    public Function compile(BytecodeAssembler asm, Function function) {
+        if (!isCompilable(function) || !hasFusedArgs(function)) {
+            return function;
+        }
+
+        columnIndexes.clear();
+        constantIndexes.clear();
+        functions.clear();
+
+        asm.init(CompiledDoubleFunction.class);
+        asm.setupPool();
+        final int thisClassIndex = asm.poolClass(asm.poolUtf8("io/questdb/griffin/engine/functions/math/CompiledDoubleFunctionAsm"));
+        final int superclassIndex = asm.poolClass(CompiledDoubleFunction.class);
+        final int superIndex = asm.poolMethod(superclassIndex, "<init>", "()V");
+        final int typeIndex = asm.poolUtf8("Lio/questdb/cairo/sql/Function;");
+
+        // constants and unfused functions are pooled in the order of evaluation
+        collect(asm, function);
+
+        final int functionCount = functions.size();
+        int firstFieldNameIndex = 0;
+        firstFieldIndex = 0;
+        for (int i = 0; i < functionCount; i++) {
+            // if you change pool calls then you will likely need to change the FIELD_POOL_OFFSET constant
+            int fieldNameIndex = asm.poolUtf8().put("f").put(i).$();
+            int nameAndType = asm.poolNameAndType(fieldNameIndex, typeIndex);
+            int fieldIndex = asm.poolField(thisClassIndex, nameAndType);
+            if (i == 0) {
+                firstFieldNameIndex = fieldNameIndex;
+                firstFieldIndex = fieldIndex;
+            }
+        }
+
+        functionGetDoubleIndex = asm.poolInterfaceMethod(Function.class, "getDouble", "(Lio/questdb/cairo/sql/Record;)D");
+        recordGetDoubleIndex = asm.poolInterfaceMethod(Record.class, "getDouble", "(I)D");
+        recordGetFloatIndex = asm.poolInterfaceMethod(Record.class, "getFloat", "(I)F");
+        absIndex = asm.poolMethod(Math.class, "abs", "(D)D");
+        final int getIndex = asm.poolMethod(ObjList.class, "get", "(I)Ljava/lang/Object;");
+
+        final int getDoubleNameIndex = asm.poolUtf8("getDouble");
+        final int getDoubleSigIndex = asm.poolUtf8("(Lio/questdb/cairo/sql/Record;)D");
+        final int setFunctionsNameIndex = asm.poolUtf8("setFunctions");
+        final int setFunctionsSigIndex = asm.poolUtf8("(Lio/questdb/std/ObjList;)V");
+
+        asm.finishPool();
+
+        asm.defineClass(thisClassIndex, superclassIndex);
+        asm.interfaceCount(0);
+        asm.fieldCount(functionCount);
+        for (int i = 0; i < functionCount; i++) {
+            asm.defineField(firstFieldNameIndex + (i * FIELD_POOL_OFFSET), typeIndex);
+        }
+        asm.methodCount(3);
+        asm.defineDefaultConstructor(superIndex);
+
+        // getDouble(Record)
+        asm.startMethod(getDoubleNameIndex, getDoubleSigIndex, maxStack(function), 2);
+        constantCounter = 0;
+        functionCounter = 0;
+        emit(asm, function);
+        asm.dreturn();
+        asm.endMethodCode();
+        // exceptions
+        asm.putShort(0);
+        // attributes
+        asm.putShort(0);
+        asm.endMethod();
+
+        // setFunctions(ObjList)
+        asm.startMethod(setFunctionsNameIndex, setFunctionsSigIndex, 3, 2);
+        for (int i = 0; i < functionCount; i++) {
+            asm.aload(0);
+            asm.aload(1);
+            asm.iconst(i);
+            asm.invokeVirtual(getIndex);
+            asm.putfield(firstFieldIndex + (i * FIELD_POOL_OFFSET));
+        }
+        asm.return_();
+        asm.endMethodCode();
+        // exceptions
+        asm.putShort(0);
+        // attributes
+        asm.putShort(0);
+        asm.endMethod();
+
+        // class attribute count
+        asm.putShort(0);
+
+        final CompiledDoubleFunction compiled = asm.newInstance();
+        compiled.of(function, columnIndexes, functionCount == 0);
+        compiled.setFunctions(functions);
+        functions.clear();
+        return compiled;
+    }
+
+    private static boolean hasFusedArgs(Function function) {
+        if (function instanceof UnaryFunction) {
+            return isFused(((UnaryFunction) function).getArg());
+        }
+        final BinaryFunction binary = (BinaryFunction) function;
+        return isFused(binary.getLeft()) || isFused(binary.getRight());
+    }
+
+    private static boolean isCompilable(Function function) {
+        if (function instanceof DoubleArithmeticFunction) {
+            switch (((DoubleArithmeticFunction) function).getArithmeticOperator()) {
+                case DoubleArithmeticFunction.ABS:
+                case DoubleArithmeticFunction.ADD:
+                case DoubleArithmeticFunction.DIV:
+                case DoubleArithmeticFunction.MUL:
+                case DoubleArithmeticFunction.NEG:
+                case DoubleArithmeticFunction.SUB:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFused(Function function) {
+        return isCompilable(function)
+                || function instanceof DoubleColumn
+                || function instanceof FloatColumn
+                || function.isConstant();
+    }
+
+    private static int maxStack(Function function) {
+        if (isCompilable(function)) {
+            if (function instanceof UnaryFunction) {
+                return maxStack(((UnaryFunction) function).getArg());
+            }
+            final BinaryFunction binary = (BinaryFunction) function;
+            // the left operand stays on the stack while the right one is evaluated
+            return Math.max(maxStack(binary.getLeft()), 2 + maxStack(binary.getRight()));
+        }
+        // every leaf leaves a double, i.e. two stack slots, and needs two slots for the call arguments
+        return 2;
+    }
+
+    private void addColumnIndex(int columnIndex) {
+        if (!columnIndexes.contains(columnIndex)) {
+            columnIndexes.add(columnIndex);
+        }
+    }
+
+    private void collect(BytecodeAssembler asm, Function function) {
+        if (isCompilable(function)) {
+            if (function instanceof UnaryFunction) {
+                collect(asm, ((UnaryFunction) function).getArg());
+            } else {
+                final BinaryFunction binary = (BinaryFunction) function;
+                collect(asm, binary.getLeft());
+                collect(asm, binary.getRight());
+            }
+        } else if (function instanceof DoubleColumn) {
+            // read from the record directly
+            addColumnIndex(((DoubleColumn) function).getColumnIndex());
+        } else if (function instanceof FloatColumn) {
+            addColumnIndex(((FloatColumn) function).getColumnIndex());
+        } else if (function.isConstant()) {
+            constantIndexes.add(asm.poolDoubleConst(function.getDouble(null)));
+        } else {
+            functions.add(function);
+        }
+    }
+
+    /**
+     * Emits the instructions evaluating the function in the same order the original
+     * function tree evaluates its arguments, leaving the result on the stack. Operators
+     * are validated by {@link #isCompilable(Function)} before any code is emitted.
+     */
+    private void emit(BytecodeAssembler asm, Function function) {
+        if (isCompilable(function)) {
+            final int operator = ((DoubleArithmeticFunction) function).getArithmeticOperator();
+            if (function instanceof UnaryFunction) {
+                emit(asm, ((UnaryFunction) function).getArg());
+            } else {
+                final BinaryFunction binary = (BinaryFunction) function;
+                emit(asm, binary.getLeft());
+                emit(asm, binary.getRight());
+            }
+            switch (operator) {
+                case DoubleArithmeticFunction.ABS:
+                    asm.invokeStatic(absIndex);
+                    break;
+                case DoubleArithmeticFunction.ADD:
+                    asm.dadd();
+                    break;
+                case DoubleArithmeticFunction.DIV:
+                    asm.ddiv();
+                    break;
+                case DoubleArithmeticFunction.MUL:
+                    asm.dmul();
+                    break;
+                case DoubleArithmeticFunction.NEG:
+                    asm.dneg();
+                    break;
+                case DoubleArithmeticFunction.SUB:
+                    asm.dsub();
+                    break;
+            }
+        } else if (function instanceof DoubleColumn) {
+            asm.aload(1);
+            asm.iconst(((DoubleColumn) function).getColumnIndex());
+            asm.invokeInterface(recordGetDoubleIndex, 1);
+        } else if (function instanceof FloatColumn) {
+            asm.aload(1);
+            asm.iconst(((FloatColumn) function).getColumnIndex());
+            asm.invokeInterface(recordGetFloatIndex, 1);
+            asm.f2d();
+        } else if (function.isConstant()) {
+            asm.ldc2_w(constantIndexes.getQuick(constantCounter++));
+        } else {
+            asm.aload(0);
+            asm.getfield(firstFieldIndex + (functionCounter++ * FIELD_POOL_OFFSET));
+            asm.aload(1);
+            asm.invokeInterface(functionGetDoubleIndex, 1);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.math;
+
+import io.questdb.cairo.sql.Function;
+
+/**
+ * Double arithmetic function that {@link DoubleArithmeticCompiler} can fuse with its
+ * arguments into a single generated function. Implementations are either
+ * {@link io.questdb.griffin.engine.functions.UnaryFunction} or
+ * {@link io.questdb.griffin.engine.functions.BinaryFunction}.
+ */
+public interface DoubleArithmeticFunction extends Function {
+    int ABS = 0;
+    int ADD = 1;
+    int DIV = 2;
+    int MUL = 3;
+    int NEG = 4;
+    int SUB = 5;
+
+    int getArithmeticOperator();
+}
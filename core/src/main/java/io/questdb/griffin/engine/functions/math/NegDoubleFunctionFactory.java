@@ -46,7 +46,7 @@ public class NegDoubleFunctionFactory implements FunctionFactory {
         return new Func(args.getQuick(0));
     }
 
-    private static class Func extends DoubleFunction implements UnaryFunction {
+    private static class Func extends DoubleFunction implements UnaryFunction, DoubleArithmeticFunction {
         final Function arg;
 
         public Func(Function arg) {
@@ -58,6 +58,11 @@ public class NegDoubleFunctionFactory implements FunctionFactory {
             return arg;
         }
 
+        @Override
+        public int getArithmeticOperator() {
+            return NEG;
+        }
+
         @Override
         public double getDouble(Record rec) {
             return -arg.getDouble(rec);
@@ -96,6 +96,12 @@ public abstract class AbstractLikeStrFunctionFactory implements FunctionFactory
         if (pattern.isConstant()) {
             final CharSequence likeString = pattern.getStr(null);
             if (likeString != null && likeString.length() > 0) {
+                if (!isCaseInsensitive()) {
+                    final Function func = newLiteralLikeFunction(value, likeString);
+                    if (func != null) {
+                        return func;
+                    }
+                }
                 String p = escapeSpecialChars(likeString, null);
                 assert p != null;
                 int flags = Pattern.DOTALL;
@@ -120,6 +126,49 @@ public abstract class AbstractLikeStrFunctionFactory implements FunctionFactory
 
     protected abstract boolean isCaseInsensitive();
 
+    /**
+     * Creates a regex-free function for the patterns that are plain literals with optional
+     * leading and/or trailing '%' wildcards, e.g. 'abc', 'abc%', '%abc' or '%abc%'.
+     * Such patterns are typical for filters on string tags and are evaluated
+     * with a simple char comparison instead of the regex matcher.
+     *
+     * @return the function or null if the pattern has to be evaluated with a regex
+     */
+    private static Function newLiteralLikeFunction(Function value, CharSequence likeString) {
+        final int len = likeString.length();
+        int lo = 0;
+        while (lo < len && likeString.charAt(lo) == '%') {
+            lo++;
+        }
+        int hi = len;
+        while (hi > lo && likeString.charAt(hi - 1) == '%') {
+            hi--;
+        }
+        for (int i = lo; i < hi; i++) {
+            final char c = likeString.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') {
+                return null;
+            }
+        }
+
+        final String literal = Chars.toString(likeString, lo, hi);
+        final boolean anyPrefix = lo > 0;
+        final boolean anySuffix = hi < len;
+        if (literal.isEmpty()) {
+            return new LiteralLikeStrFunction(value, literal, LiteralLikeStrFunction.ANY, likeString);
+        }
+        if (anyPrefix && anySuffix) {
+            return new LiteralLikeStrFunction(value, literal, LiteralLikeStrFunction.CONTAINS, likeString);
+        }
+        if (anyPrefix) {
+            return new LiteralLikeStrFunction(value, literal, LiteralLikeStrFunction.ENDS_WITH, likeString);
+        }
+        if (anySuffix) {
+            return new LiteralLikeStrFunction(value, literal, LiteralLikeStrFunction.STARTS_WITH, likeString);
+        }
+        return new LiteralLikeStrFunction(value, literal, LiteralLikeStrFunction.EQUALS, likeString);
+    }
+
     private static class BindLikeStrFunction extends BooleanFunction implements UnaryFunction {
         private final boolean caseInsensitive;
         private final Function pattern;
@@ -222,4 +271,55 @@ public abstract class AbstractLikeStrFunctionFactory implements FunctionFactory
             }
         }
     }
+
+    private static class LiteralLikeStrFunction extends BooleanFunction implements UnaryFunction {
+        private static final int ANY = 0;
+        private static final int CONTAINS = 1;
+        private static final int ENDS_WITH = 2;
+        private static final int EQUALS = 3;
+        private static final int STARTS_WITH = 4;
+        private final String literal;
+        private final int matchType;
+        private final String pattern;
+        private final Function value;
+
+        public LiteralLikeStrFunction(Function value, String literal, int matchType, CharSequence pattern) {
+            this.value = value;
+            this.literal = literal;
+            this.matchType = matchType;
+            this.pattern = Chars.toString(pattern);
+        }
+
+        @Override
+        public Function getArg() {
+            return value;
+        }
+
+        @Override
+        public boolean getBool(Record rec) {
+            final CharSequence cs = value.getStr(rec);
+            if (cs == null) {
+                return false;
+            }
+            switch (matchType) {
+                case CONTAINS:
+                    return Chars.contains(cs, literal);
+                case ENDS_WITH:
+                    return Chars.endsWith(cs, literal);
+                case EQUALS:
+                    return Chars.equals(cs, literal);
+                case STARTS_WITH:
+                    return Chars.startsWith(cs, literal);
+                default:
+                    return true;
+            }
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(value);
+            sink.val(" like ");
+            sink.val(pattern);
+        }
+    }
 }
@@ -115,7 +115,7 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         return base.usesCompiledFilter();
     }
 
-    static ObjList<String> getKeys(ObjList<Function> recordFunctions, RecordMetadata metadata) {
+    public static ObjList<String> getKeys(ObjList<Function> recordFunctions, RecordMetadata metadata) {
         ObjList<String> keyFuncs = null;
         for (int i = 0, n = recordFunctions.size(); i < n; i++) {
             if (!(recordFunctions.get(i) instanceof GroupByFunction)) {
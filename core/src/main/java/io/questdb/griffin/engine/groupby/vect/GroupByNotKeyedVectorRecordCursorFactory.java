@@ -35,9 +35,11 @@ import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.griffin.engine.table.AsyncFilteredPageFrameCursor;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.RingQueue;
+import io.questdb.mp.SCSequence;
 import io.questdb.mp.SOUnboundedCountDownLatch;
 import io.questdb.mp.Sequence;
 import io.questdb.mp.Worker;
@@ -50,9 +52,12 @@ public class GroupByNotKeyedVectorRecordCursorFactory extends AbstractRecordCurs
 
     private static final Log LOG = LogFactory.getLog(GroupByNotKeyedVectorRecordCursorFactory.class);
     private final RecordCursorFactory base;
+    private final SCSequence collectSubSeq = new SCSequence();
     private final GroupByNotKeyedVectorRecordCursor cursor;
     private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
     private final ObjectPool<VectorAggregateEntry> entryPool;
+    // non-null when base factory is a parallel filter
+    private final AsyncFilteredPageFrameCursor filteredFrameCursor;
     private final PerWorkerLocks perWorkerLocks; // used to protect VAF's internal slots
     private final AtomicBooleanCircuitBreaker sharedCircuitBreaker;
     private final ObjList<VectorAggregateFunction> vafList;
@@ -71,6 +76,10 @@ public class GroupByNotKeyedVectorRecordCursorFactory extends AbstractRecordCurs
         this.vafList = new ObjList<>(vafList.size());
         this.vafList.addAll(vafList);
         this.cursor = new GroupByNotKeyedVectorRecordCursor(this.vafList);
+        this.filteredFrameCursor = base.supportFilteredPageFrameSequence()
+                // one buffer set per worker and one more for the frame being gathered
+                ? new AsyncFilteredPageFrameCursor(configuration.getPageFrameReduceRowIdListCapacity(), workerCount + 1)
+                : null;
         this.perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
         this.sharedCircuitBreaker = new AtomicBooleanCircuitBreaker();
         this.workerCount = workerCount;
@@ -87,7 +96,9 @@ public class GroupByNotKeyedVectorRecordCursorFactory extends AbstractRecordCurs
         for (int i = 0, n = vafList.size(); i < n; i++) {
             vafList.getQuick(i).clear();
         }
-        final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext, ORDER_ASC);
+        final PageFrameCursor pageFrameCursor = filteredFrameCursor != null
+                ? filteredFrameCursor.of(base.execute(executionContext, collectSubSeq, ORDER_ASC), base.getMetadata())
+                : base.getPageFrameCursor(executionContext, ORDER_ASC);
         return cursor.of(pageFrameCursor, executionContext.getMessageBus(), executionContext.getCircuitBreaker());
     }
 
@@ -144,6 +155,9 @@ public class GroupByNotKeyedVectorRecordCursorFactory extends AbstractRecordCurs
     protected void _close() {
         Misc.freeObjList(vafList);
         Misc.free(base);
+        if (filteredFrameCursor != null) {
+            filteredFrameCursor.freeBuffers();
+        }
     }
 
     private class GroupByNotKeyedVectorRecordCursor implements NoRandomAccessRecordCursor {
@@ -222,6 +236,20 @@ public class GroupByNotKeyedVectorRecordCursorFactory extends AbstractRecordCurs
             try {
                 PageFrame frame;
                 while ((frame = pageFrameCursor.next()) != null) {
+                    if (filteredFrameCursor != null && filteredFrameCursor.isBufferSetReused()) {
+                        // the frame is about to be gathered into buffers that the queued tasks may still read
+                        reclaimed = getRunWhatsLeft(
+                                bus.getVectorAggregateSubSeq(),
+                                queue,
+                                queuedCount,
+                                reclaimed,
+                                workerId,
+                                doneLatch,
+                                LOG,
+                                circuitBreaker,
+                                sharedCircuitBreaker
+                        );
+                    }
                     for (int i = 0; i < vafCount; i++) {
                         final VectorAggregateFunction vaf = vafList.getQuick(i);
                         final int columnIndex = vaf.getColumnIndex();
@@ -245,7 +273,13 @@ public class GroupByNotKeyedVectorRecordCursorFactory extends AbstractRecordCurs
                             // aggregate between frames until done
                             final int slot = perWorkerLocks.acquireSlot(workerId, circuitBreaker);
                             try {
-                                vaf.aggregate(pageAddress, pageSize, colSizeShr, slot);
+                                if (vaf instanceof ProjectedVectorAggregateFunction) {
+                                    final long rowCount = pageSize >>> colSizeShr;
+                                    final long projectedAddress = ((ProjectedVectorAggregateFunction) vaf).project(frame, rowCount, slot);
+                                    vaf.aggregate(projectedAddress, rowCount << 3, 3, slot);
+                                } else {
+                                    vaf.aggregate(pageAddress, pageSize, colSizeShr, slot);
+                                }
                                 ownCount++;
                             } finally {
                                 perWorkerLocks.releaseSlot(slot);
@@ -267,6 +301,10 @@ public class GroupByNotKeyedVectorRecordCursorFactory extends AbstractRecordCurs
                                     perWorkerLocks,
                                     sharedCircuitBreaker
                             );
+                            if (vaf instanceof ProjectedVectorAggregateFunction) {
+                                // the frame is projected by the worker that picks up the task
+                                entry.ofProjection((ProjectedVectorAggregateFunction) vaf, frame);
+                            }
                             queue.get(seq).entry = entry;
                             pubSeq.done(seq);
                         }
@@ -33,9 +33,11 @@ import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.griffin.engine.table.AsyncFilteredPageFrameCursor;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.RingQueue;
+import io.questdb.mp.SCSequence;
 import io.questdb.mp.SOUnboundedCountDownLatch;
 import io.questdb.mp.Sequence;
 import io.questdb.mp.Worker;
@@ -53,9 +55,12 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
 
     private final static int ROSTI_MINIMIZED_SIZE = 16; // 16 is the minimum size usable on arm
     private final RecordCursorFactory base;
+    private final SCSequence collectSubSeq = new SCSequence();
     private final RostiRecordCursor cursor;
     private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
     private final ObjectPool<VectorAggregateEntry> entryPool;
+    // non-null when base factory is a parallel filter
+    private final AsyncFilteredPageFrameCursor filteredFrameCursor;
     private final int keyColumnIndex;
     private final AtomicInteger oomCounter = new AtomicInteger();
     private final long[] pRosti;
@@ -89,6 +94,10 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
         sharedCircuitBreaker = new AtomicBooleanCircuitBreaker();
         this.base = base;
+        this.filteredFrameCursor = base.supportFilteredPageFrameSequence()
+                // one buffer set per worker and one more for the frame being gathered
+                ? new AsyncFilteredPageFrameCursor(configuration.getPageFrameReduceRowIdListCapacity(), workerCount + 1)
+                : null;
         // first column is INT or SYMBOL
         pRosti = new long[workerCount];
         final int vafCount = vafList.size();
@@ -169,7 +178,9 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         for (int i = 0, n = vafList.size(); i < n; i++) {
             vafList.getQuick(i).clear();
         }
-        final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext, ORDER_ASC);
+        final PageFrameCursor pageFrameCursor = filteredFrameCursor != null
+                ? filteredFrameCursor.of(base.execute(executionContext, collectSubSeq, ORDER_ASC), base.getMetadata())
+                : base.getPageFrameCursor(executionContext, ORDER_ASC);
         return cursor.of(pageFrameCursor, executionContext.getMessageBus(), executionContext.getCircuitBreaker());
     }
 
@@ -220,6 +231,9 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         for (int i = 0, n = pRosti.length; i < n; i++) {
             raf.free(pRosti[i]);
         }
+        if (filteredFrameCursor != null) {
+            filteredFrameCursor.freeBuffers();
+        }
     }
 
     private class RostiRecordCursor implements RecordCursor {
@@ -349,6 +363,20 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             try {
                 PageFrame frame;
                 while ((frame = pageFrameCursor.next()) != null) {
+                    if (filteredFrameCursor != null && filteredFrameCursor.isBufferSetReused()) {
+                        // the frame is about to be gathered into buffers that the queued tasks may still read
+                        reclaimed = GroupByNotKeyedVectorRecordCursorFactory.getRunWhatsLeft(
+                                bus.getVectorAggregateSubSeq(),
+                                queue,
+                                queuedCount,
+                                reclaimed,
+                                workerId,
+                                doneLatch,
+                                LOG,
+                                circuitBreaker,
+                                sharedCircuitBreaker
+                        );
+                    }
                     final long keyAddress = frame.getPageAddress(keyColumnIndex);
                     for (int i = 0; i < vafCount; i++) {
                         final VectorAggregateFunction vaf = vafList.getQuick(i);
@@ -375,11 +403,20 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
                             // acquire the slot and DIY the func
                             final int slot = perWorkerLocks.acquireSlot(workerId, circuitBreaker);
                             try {
+                                long address = valueAddress;
+                                long addressSize = valueAddressSize;
+                                int shr = columnSizeShr;
+                                if (vaf instanceof ProjectedVectorAggregateFunction) {
+                                    final long rowCount = valueAddressSize >>> columnSizeShr;
+                                    address = ((ProjectedVectorAggregateFunction) vaf).project(frame, rowCount, slot);
+                                    addressSize = rowCount << 3;
+                                    shr = 3;
+                                }
                                 if (keyAddress == 0) {
-                                    vaf.aggregate(valueAddress, valueAddressSize, columnSizeShr, slot);
+                                    vaf.aggregate(address, addressSize, shr, slot);
                                 } else {
                                     long oldSize = Rosti.getAllocMemory(pRosti[slot]);
-                                    if (!vaf.aggregate(pRosti[slot], keyAddress, valueAddress, valueAddressSize, columnSizeShr, slot)) {
+                                    if (!vaf.aggregate(pRosti[slot], keyAddress, address, addressSize, shr, slot)) {
                                         oomCounter.incrementAndGet();
                                     }
                                     raf.updateMemoryUsage(pRosti[slot], oldSize);
@@ -420,6 +457,10 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
                                         sharedCircuitBreaker
                                 );
                             }
+                            if (vaf instanceof ProjectedVectorAggregateFunction) {
+                                // the frame is projected by the worker that picks up the task
+                                entry.ofProjection((ProjectedVectorAggregateFunction) vaf, frame);
+                            }
                             queue.get(seq).entry = entry;
                             pubSeq.done(seq);
                         }
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.functions.math.ColumnAddressRecord;
+import io.questdb.griffin.engine.functions.math.CompiledDoubleFunction;
+import io.questdb.std.*;
+
+/**
+ * Vector aggregate function over a compiled double arithmetic expression, e.g. <code>sum(price * qty)</code>.
+ * The expression is evaluated over a page frame into an off-heap buffer, which is then aggregated by
+ * the wrapped function as if it was a double column. Evaluation runs in the worker slot that aggregates
+ * the frame, so buffers are kept per slot and frames are projected in parallel.
+ * <p>
+ * Row-at-a-time sum(), avg(), ksum() and nsum() skip infinite values, so for these functions the
+ * projection writes them as nulls to produce the same result.
+ */
+public class ProjectedVectorAggregateFunction extends DoubleFunction implements VectorAggregateFunction {
+    private final long[] bufferAddresses;
+    private final long[] bufferSizes;
+    private final IntList columnIndexes;
+    private final VectorAggregateFunction delegate;
+    private final LongList[] frameColumnAddresses;
+    private final boolean nonFiniteAsNull;
+    private final CompiledDoubleFunction projection;
+    private final ColumnAddressRecord[] records;
+
+    public ProjectedVectorAggregateFunction(VectorAggregateFunction delegate, CompiledDoubleFunction projection, int workerCount) {
+        assert projection.isColumnar();
+        this.delegate = delegate;
+        this.projection = projection;
+        this.nonFiniteAsNull = !(delegate instanceof MinDoubleVectorAggregateFunction) && !(delegate instanceof MaxDoubleVectorAggregateFunction);
+        this.columnIndexes = projection.getColumnIndexes();
+        this.bufferAddresses = new long[workerCount];
+        this.bufferSizes = new long[workerCount];
+        this.frameColumnAddresses = new LongList[workerCount];
+        this.records = new ColumnAddressRecord[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            frameColumnAddresses[i] = new LongList();
+            records[i] = new ColumnAddressRecord();
+        }
+    }
+
+    @Override
+    public void aggregate(long address, long addressSize, int columnSizeHint, int workerId) {
+        delegate.aggregate(address, addressSize, columnSizeHint, workerId);
+    }
+
+    @Override
+    public boolean aggregate(long pRosti, long keyAddress, long valueAddress, long valueAddressSize, int columnSizeShr, int workerId) {
+        return delegate.aggregate(pRosti, keyAddress, valueAddress, valueAddressSize, columnSizeShr, workerId);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = bufferAddresses.length; i < n; i++) {
+            if (bufferAddresses[i] != 0) {
+                Unsafe.free(bufferAddresses[i], bufferSizes[i], MemoryTag.NATIVE_FUNC_RSS);
+                bufferAddresses[i] = 0;
+                bufferSizes[i] = 0;
+            }
+        }
+        Misc.free(delegate);
+        Misc.free(projection);
+    }
+
+    /**
+     * Copies addresses of the columns read by the expression. Must be called by the thread that
+     * iterates the frames, before the frame moves on.
+     *
+     * @param frame           page frame
+     * @param columnAddresses list to hold the addresses indexed by column index
+     */
+    public void copyColumnAddresses(PageFrame frame, LongList columnAddresses) {
+        columnAddresses.clear();
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final int columnIndex = columnIndexes.getQuick(i);
+            columnAddresses.extendAndSet(columnIndex, frame.getPageAddress(columnIndex));
+        }
+    }
+
+    @Override
+    public int getColumnIndex() {
+        // the first column gives the frame row count
+        return columnIndexes.getQuick(0);
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        return delegate.getDouble(rec);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public int getValueOffset() {
+        return delegate.getValueOffset();
+    }
+
+    @Override
+    public void initRosti(long pRosti) {
+        delegate.initRosti(pRosti);
+    }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public boolean merge(long pRostiA, long pRostiB) {
+        return delegate.merge(pRostiA, pRostiB);
+    }
+
+    /**
+     * Evaluates the expression over the frame the addresses were copied from. The caller must hold the slot.
+     *
+     * @param columnAddresses column addresses, see {@link #copyColumnAddresses(PageFrame, LongList)}
+     * @param rowCount        number of rows in the frame
+     * @param slot            worker slot
+     * @return address of rowCount doubles or 0 when the frame is in a column top, i.e. all values are null
+     */
+    public long project(LongList columnAddresses, long rowCount, int slot) {
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            if (columnAddresses.getQuick(columnIndexes.getQuick(i)) == 0) {
+                // arithmetic over a null is null, so there is nothing to evaluate
+                return 0;
+            }
+        }
+
+        final long size = rowCount << 3;
+        if (bufferSizes[slot] < size) {
+            bufferAddresses[slot] = bufferAddresses[slot] == 0
+                    ? Unsafe.malloc(size, MemoryTag.NATIVE_FUNC_RSS)
+                    : Unsafe.realloc(bufferAddresses[slot], bufferSizes[slot], size, MemoryTag.NATIVE_FUNC_RSS);
+            bufferSizes[slot] = size;
+        }
+        final ColumnAddressRecord record = records[slot];
+        record.of(columnAddresses);
+        projection.evaluate(record, rowCount, bufferAddresses[slot], nonFiniteAsNull);
+        return bufferAddresses[slot];
+    }
+
+    /**
+     * Evaluates the expression over the current frame. The caller must hold the slot.
+     *
+     * @param frame    page frame
+     * @param rowCount number of rows in the frame
+     * @param slot     worker slot
+     * @return address of rowCount doubles or 0 when the frame is in a column top
+     */
+    public long project(PageFrame frame, long rowCount, int slot) {
+        final LongList columnAddresses = frameColumnAddresses[slot];
+        copyColumnAddresses(frame, columnAddresses);
+        return project(columnAddresses, rowCount, slot);
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes types) {
+        delegate.pushValueTypes(types);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val(getName()).val('(').val(projection).val(')');
+    }
+
+    @Override
+    public boolean wrapUp(long pRosti) {
+        return delegate.wrapUp(pRosti);
+    }
+}
@@ -25,9 +25,11 @@
 package io.questdb.griffin.engine.groupby.vect;
 
 import io.questdb.cairo.sql.ExecutionCircuitBreaker;
+import io.questdb.cairo.sql.PageFrame;
 import io.questdb.griffin.engine.PerWorkerLocks;
 import io.questdb.mp.CountDownLatchSPI;
 import io.questdb.mp.Sequence;
+import io.questdb.std.LongList;
 import io.questdb.std.Mutable;
 import io.questdb.std.Rosti;
 import io.questdb.std.RostiAllocFacade;
@@ -36,6 +38,7 @@ import org.jetbrains.annotations.Nullable;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class VectorAggregateEntry implements Mutable {
+    private final LongList columnAddresses = new LongList();
     private ExecutionCircuitBreaker circuitBreaker;
     private int columnSizeShr;
     private CountDownLatchSPI doneLatch;
@@ -44,6 +47,7 @@ public class VectorAggregateEntry implements Mutable {
     private AtomicInteger oomCounter;
     private long[] pRosti;
     private PerWorkerLocks perWorkerLocks;
+    private ProjectedVectorAggregateFunction projectedFunc;
     private RostiAllocFacade raf;
     private long valueAddress;
     private long valueCount;
@@ -53,6 +57,7 @@ public class VectorAggregateEntry implements Mutable {
         this.valueAddress = 0;
         this.valueCount = 0;
         this.func = null;
+        this.projectedFunc = null;
     }
 
     public void run(int workerId, Sequence seq, long cursor) {
@@ -67,9 +72,11 @@ public class VectorAggregateEntry implements Mutable {
         ExecutionCircuitBreaker circuitBreaker = this.circuitBreaker;
         CountDownLatchSPI doneLatch = this.doneLatch;
         PerWorkerLocks perWorkerLocks = this.perWorkerLocks;
+        ProjectedVectorAggregateFunction projectedFunc = this.projectedFunc;
+        LongList columnAddresses = this.columnAddresses;
 
         seq.done(cursor);
-        run(workerId, keyAddress, valueAddress, valueCount, columnSizeShr, oomCounter, pRosti, raf, func, perWorkerLocks, circuitBreaker, doneLatch);
+        run(workerId, keyAddress, valueAddress, valueCount, columnSizeShr, oomCounter, pRosti, raf, func, projectedFunc, columnAddresses, perWorkerLocks, circuitBreaker, doneLatch);
     }
 
     private static void run(
@@ -82,6 +89,8 @@ public class VectorAggregateEntry implements Mutable {
             long[] pRosti,
             RostiAllocFacade raf,
             VectorAggregateFunction func,
+            @Nullable ProjectedVectorAggregateFunction projectedFunc,
+            LongList columnAddresses,
             PerWorkerLocks perWorkerLocks,
             ExecutionCircuitBreaker circuitBreaker,
             CountDownLatchSPI doneLatch
@@ -93,6 +102,13 @@ public class VectorAggregateEntry implements Mutable {
 
         final int slot = perWorkerLocks.acquireSlot(workerId, circuitBreaker);
         try {
+            if (projectedFunc != null) {
+                // evaluate the expression into the slot's buffer and aggregate it as a double column
+                final long rowCount = valueCount >>> columnSizeShr;
+                valueAddress = projectedFunc.project(columnAddresses, rowCount, slot);
+                valueCount = rowCount << 3;
+                columnSizeShr = 3;
+            }
             if (pRosti != null) {
                 long oldSize = Rosti.getAllocMemory(pRosti[slot]);
                 if (!func.aggregate(pRosti[slot], keyAddress, valueAddress, valueCount, columnSizeShr, slot)) {
@@ -135,5 +151,19 @@ public class VectorAggregateEntry implements Mutable {
         this.raf = raf;
         this.perWorkerLocks = perWorkerLocks;
         this.circuitBreaker = circuitBreaker;
+        this.projectedFunc = null;
+    }
+
+    /**
+     * Makes the entry evaluate the function's expression over the frame before the aggregation.
+     * Must be called after {@link #of}, by the thread that iterates the frames.
+     *
+     * @param vaf   function the entry was set up with
+     * @param frame current page frame
+     */
+    void ofProjection(ProjectedVectorAggregateFunction vaf, PageFrame frame) {
+        assert func == vaf;
+        this.projectedFunc = vaf;
+        vaf.copyColumnAddresses(frame, columnAddresses);
     }
 }
@@ -0,0 +1,265 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.sql.PageAddressCache;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Holds the state shared by the workers participating in a parallel ASOF join.
+ * <p>
+ * Slave page frames are addressed by their position in the slave scan, i.e. the
+ * number of rows in the preceding frames plus the row index within the frame.
+ * Since slave rows are ordered by timestamp, each worker binary searches the
+ * position its master page frame starts at, and then walks the slave forward
+ * in the lockstep with the master rows. Per-key last slave rows are kept in
+ * the worker's own map; keys that are not in the map yet are looked up by
+ * walking the slave backwards from the start position, so the lookback is only
+ * as long as it takes to find the key.
+ * <p>
+ * Join keys are optional. When there are none, the last slave row with the
+ * timestamp not greater than the master one is the match.
+ */
+public class AsyncAsOfJoinAtom implements StatefulAtom, Closeable, Mutable {
+
+    private final RecordSink masterKeySink;
+    private final int masterTimestampIndex;
+    private final FastMap ownerKeyMap;
+    private final PageAddressCacheRecord ownerSlaveRecord = new PageAddressCacheRecord();
+    private final ObjList<FastMap> perWorkerKeyMaps;
+    private final PerWorkerLocks perWorkerLocks;
+    private final ObjList<PageAddressCacheRecord> perWorkerSlaveRecords;
+    // Position of the first row of each slave frame followed by the slave row count.
+    private final LongList slaveFrameRowLos = new LongList();
+    private final RecordSink slaveKeySink;
+    private final int slaveTimestampIndex;
+
+    public AsyncAsOfJoinAtom(
+            @NotNull CairoConfiguration configuration,
+            @Transient @Nullable ColumnTypes joinColumnTypes,
+            @Transient @Nullable ColumnTypes valueTypes,
+            @Nullable RecordSink masterKeySink,
+            @Nullable RecordSink slaveKeySink,
+            int masterTimestampIndex,
+            int slaveTimestampIndex,
+            int workerCount
+    ) {
+        this.masterKeySink = masterKeySink;
+        this.slaveKeySink = slaveKeySink;
+        this.masterTimestampIndex = masterTimestampIndex;
+        this.slaveTimestampIndex = slaveTimestampIndex;
+        perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
+        perWorkerKeyMaps = new ObjList<>(workerCount);
+        perWorkerSlaveRecords = new ObjList<>(workerCount);
+        try {
+            ownerKeyMap = masterKeySink != null ? newKeyMap(configuration, joinColumnTypes, valueTypes) : null;
+            for (int i = 0; i < workerCount; i++) {
+                if (masterKeySink != null) {
+                    perWorkerKeyMaps.extendAndSet(i, newKeyMap(configuration, joinColumnTypes, valueTypes));
+                }
+                perWorkerSlaveRecords.extendAndSet(i, new PageAddressCacheRecord());
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Acquires a slot for the given worker. The returned slot id is then used
+     * to access the worker's key map and slave record.
+     *
+     * @param workerId       worker id, -1 for a query owner or a work stealing thread
+     * @param owner          true when called by the query owner thread
+     * @param circuitBreaker circuit breaker to check while waiting for a free slot
+     * @return slot id, -1 stands for the query owner slot
+     */
+    public int acquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            return -1;
+        }
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    @Override
+    public void clear() {
+        Misc.free(ownerKeyMap);
+        for (int i = 0, n = perWorkerKeyMaps.size(); i < n; i++) {
+            Misc.free(perWorkerKeyMaps.getQuick(i));
+        }
+        // Slave records hold symbol tables of the slave cursor, which is about to be closed.
+        Misc.free(ownerSlaveRecord);
+        Misc.freeObjList(perWorkerSlaveRecords);
+        slaveFrameRowLos.clear();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(ownerKeyMap);
+        Misc.freeObjList(perWorkerKeyMaps);
+        Misc.free(ownerSlaveRecord);
+        Misc.freeObjList(perWorkerSlaveRecords);
+    }
+
+    /**
+     * Finds position of the first slave row with the timestamp greater than the given one.
+     *
+     * @param slaveRecord record used to read the slave timestamps
+     * @param timestamp   master timestamp
+     * @return slave row position, slave row count when there is no such row
+     */
+    public long findSlaveRowHi(PageAddressCacheRecord slaveRecord, long timestamp) {
+        long lo = 0;
+        long hi = getSlaveRowCount();
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            final int frameIndex = findSlaveFrame(mid);
+            slaveRecord.setFrameIndex(frameIndex);
+            slaveRecord.setRowIndex(mid - slaveFrameRowLos.getQuick(frameIndex));
+            if (slaveRecord.getTimestamp(slaveTimestampIndex) > timestamp) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Finds index of the slave frame the row at the given position belongs to.
+     *
+     * @param position slave row position
+     * @return frame index, frame count for the position of slave row count
+     */
+    public int findSlaveFrame(long position) {
+        int lo = 0;
+        int hi = slaveFrameRowLos.size() - 1;
+        // the last frame containing the position, empty frames are skipped this way
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (slaveFrameRowLos.getQuick(mid) <= position) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    public FastMap getKeyMap(int slotId) {
+        final FastMap keyMap = slotId == -1 ? ownerKeyMap : perWorkerKeyMaps.getQuick(slotId);
+        // Maps are released between query executions, so they have to be reopened lazily.
+        keyMap.reopen();
+        return keyMap;
+    }
+
+    public RecordSink getMasterKeySink() {
+        return masterKeySink;
+    }
+
+    public int getMasterTimestampIndex() {
+        return masterTimestampIndex;
+    }
+
+    public long getSlaveFrameRowLo(int frameIndex) {
+        return slaveFrameRowLos.getQuick(frameIndex);
+    }
+
+    public RecordSink getSlaveKeySink() {
+        return slaveKeySink;
+    }
+
+    public PageAddressCacheRecord getSlaveRecord(int slotId) {
+        return slotId == -1 ? ownerSlaveRecord : perWorkerSlaveRecords.getQuick(slotId);
+    }
+
+    public long getSlaveRowCount() {
+        return slaveFrameRowLos.getLast();
+    }
+
+    public int getSlaveTimestampIndex() {
+        return slaveTimestampIndex;
+    }
+
+    public boolean isKeyed() {
+        return masterKeySink != null;
+    }
+
+    /**
+     * Makes slave page frames available to the workers. Must be called by the query
+     * owner thread before the master page frames are dispatched.
+     *
+     * @param symbolTableSource slave symbol table source
+     * @param pageAddressCache  slave page address cache
+     * @param frameRowCounts    row count of each slave page frame
+     */
+    public void ofSlave(SymbolTableSource symbolTableSource, PageAddressCache pageAddressCache, LongList frameRowCounts) {
+        ownerSlaveRecord.of(symbolTableSource, pageAddressCache);
+        for (int i = 0, n = perWorkerSlaveRecords.size(); i < n; i++) {
+            perWorkerSlaveRecords.getQuick(i).of(symbolTableSource, pageAddressCache);
+        }
+        slaveFrameRowLos.clear();
+        long rowLo = 0;
+        for (int i = 0, n = frameRowCounts.size(); i < n; i++) {
+            slaveFrameRowLos.add(rowLo);
+            rowLo += frameRowCounts.getQuick(i);
+        }
+        slaveFrameRowLos.add(rowLo);
+    }
+
+    public void release(int slotId) {
+        perWorkerLocks.releaseSlot(slotId);
+    }
+
+    private static FastMap newKeyMap(CairoConfiguration configuration, ColumnTypes joinColumnTypes, ColumnTypes valueTypes) {
+        final FastMap keyMap = new FastMap(
+                configuration.getSqlSmallMapPageSize(),
+                joinColumnTypes,
+                valueTypes,
+                configuration.getSqlSmallMapKeyCapacity(),
+                configuration.getSqlFastMapLoadFactor(),
+                configuration.getSqlMapMaxResizes()
+        );
+        keyMap.close();
+        return keyMap;
+    }
+}
@@ -0,0 +1,287 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.PageAddressCache;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+import io.questdb.std.Rows;
+
+class AsyncAsOfJoinRecordCursor implements NoRandomAccessRecordCursor {
+
+    private static final Log LOG = LogFactory.getLog(AsyncAsOfJoinRecordCursor.class);
+    private static final String exceptionMessage = "timeout, query aborted";
+    private final int columnSplit;
+    private final PageAddressCacheRecord masterRecord = new PageAddressCacheRecord();
+    private final OuterJoinRecord record;
+    private final PageAddressCache slaveAddressCache;
+    private final LongList slaveFrameRowCounts = new LongList();
+    private final PageAddressCacheRecord slaveRecord = new PageAddressCacheRecord();
+    private boolean allFramesActive;
+    private long cursor = -1;
+    private int frameIndex;
+    private int frameLimit;
+    private long frameRowCount;
+    private long frameRowIndex;
+    private boolean isOpen;
+    private PageFrameSequence<AsyncAsOfJoinAtom> masterFrameSequence;
+    // Slave row id of each master row of the frame, -1 when there is no match.
+    private DirectLongList rows;
+    private long size;
+    private PageFrameCursor slaveFrameCursor;
+
+    public AsyncAsOfJoinRecordCursor(CairoConfiguration configuration, int columnSplit, Record nullRecord) {
+        this.columnSplit = columnSplit;
+        this.record = new OuterJoinRecord(columnSplit, nullRecord);
+        this.slaveAddressCache = new PageAddressCache(configuration);
+        record.of(masterRecord, slaveRecord);
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            LOG.debug()
+                    .$("closing [shard=").$(masterFrameSequence.getShard())
+                    .$(", frameIndex=").$(frameIndex)
+                    .$(", frameCount=").$(frameLimit)
+                    .$(", frameId=").$(masterFrameSequence.getId())
+                    .$(", cursor=").$(cursor)
+                    .I$();
+
+            collectCursor(true);
+            if (frameLimit > -1) {
+                masterFrameSequence.await();
+            }
+            masterFrameSequence.clear();
+            masterFrameSequence.getAtom().clear();
+            slaveRecord.close();
+            slaveAddressCache.clear();
+            slaveFrameCursor = Misc.free(slaveFrameCursor);
+            isOpen = false;
+        }
+    }
+
+    public void freeRecords() {
+        Misc.free(masterRecord);
+        Misc.free(slaveRecord);
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return masterFrameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+        }
+        return slaveFrameCursor.getSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public boolean hasNext() {
+        // Check for the first hasNext call.
+        if (frameIndex == -1) {
+            fetchNextFrame();
+        }
+
+        // We have rows in the current frame we still need to dispatch
+        if (frameRowIndex < frameRowCount) {
+            nextRow();
+            return true;
+        }
+
+        // Release the previous queue item.
+        // There is no identity check here because this check
+        // had been done when 'cursor' was assigned.
+        collectCursor(false);
+
+        // Do we have more frames?
+        if (frameIndex < frameLimit) {
+            fetchNextFrame();
+            if (frameRowIndex < frameRowCount) {
+                nextRow();
+                return true;
+            }
+        }
+
+        if (!allFramesActive) {
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+        return false;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return masterFrameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+        }
+        return slaveFrameCursor.newSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public long size() {
+        // There is exactly one output row per master row.
+        if (size == -1) {
+            prepareMasterFrames();
+            long size = 0;
+            for (int i = 0, n = masterFrameSequence.getFrameCount(); i < n; i++) {
+                size += masterFrameSequence.getFrameRowCount(i);
+            }
+            this.size = size;
+        }
+        return size;
+    }
+
+    @Override
+    public void toTop() {
+        // Slave frames are kept, only the master frames are joined again.
+        if (frameIndex == -1) {
+            return;
+        }
+        collectCursor(false);
+        masterFrameSequence.toTop();
+        frameIndex = -1;
+        frameRowCount = 0;
+        frameRowIndex = 0;
+        allFramesActive = true;
+    }
+
+    private void collectCursor(boolean forceCollect) {
+        if (cursor > -1) {
+            masterFrameSequence.collect(cursor, forceCollect);
+            // It is necessary to clear 'cursor' value
+            // because we updated frameIndex and loop can exit due to lack of frames.
+            // Non-update of 'cursor' could cause double-free.
+            cursor = -1;
+        }
+    }
+
+    private void fetchNextFrame() {
+        prepareMasterFrames();
+
+        try {
+            do {
+                cursor = masterFrameSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = masterFrameSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(masterFrameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(masterFrameSequence.getFrameCount())
+                            .$(", frameId=").$(masterFrameSequence.getId())
+                            .$(", active=").$(masterFrameSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+                    allFramesActive &= masterFrameSequence.isActive();
+                    rows = task.getRows();
+                    frameRowCount = rows.size();
+                    frameIndex = task.getFrameIndex();
+                    frameRowIndex = 0;
+                    if (frameRowCount > 0 && masterFrameSequence.isActive()) {
+                        masterRecord.setFrameIndex(task.getFrameIndex());
+                        break;
+                    } else {
+                        // Force reset frame size if frameSequence was canceled or failed.
+                        frameRowCount = 0;
+                        collectCursor(false);
+                    }
+                } else if (cursor == -2) {
+                    break; // No frames to join
+                } else {
+                    Os.pause();
+                }
+            } while (frameIndex < frameLimit);
+        } catch (Throwable e) {
+            LOG.critical().$("unexpected error [ex=").$(e).I$();
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+    }
+
+    private void nextRow() {
+        masterRecord.setRowIndex(frameRowIndex);
+        final long slaveRowId = rows.get(frameRowIndex++);
+        if (slaveRowId != -1) {
+            slaveRecord.setFrameIndex(Rows.toPartitionIndex(slaveRowId));
+            slaveRecord.setRowIndex(Rows.toLocalRowID(slaveRowId));
+            record.hasSlave(true);
+        } else {
+            record.hasSlave(false);
+        }
+    }
+
+    private void prepareMasterFrames() {
+        if (frameLimit == -1) {
+            masterFrameSequence.prepareForDispatch();
+            frameLimit = masterFrameSequence.getFrameCount() - 1;
+        }
+    }
+
+    void of(
+            PageFrameSequence<AsyncAsOfJoinAtom> masterFrameSequence,
+            PageFrameCursor slaveFrameCursor,
+            RecordMetadata slaveMetadata
+    ) {
+        this.masterFrameSequence = masterFrameSequence;
+        this.slaveFrameCursor = slaveFrameCursor;
+        isOpen = true;
+        masterRecord.of(masterFrameSequence.getSymbolTableSource(), masterFrameSequence.getPageAddressCache());
+
+        // Slave frames are read by the workers at random, so all of them are cached upfront.
+        slaveAddressCache.of(slaveMetadata);
+        slaveFrameRowCounts.clear();
+        PageFrame frame;
+        int slaveFrameCount = 0;
+        while ((frame = slaveFrameCursor.next()) != null) {
+            slaveAddressCache.add(slaveFrameCount++, frame);
+            slaveFrameRowCounts.add(frame.getPartitionHi() - frame.getPartitionLo());
+        }
+        slaveRecord.of(slaveFrameCursor, slaveAddressCache);
+        masterFrameSequence.getAtom().ofSlave(slaveFrameCursor, slaveAddressCache, slaveFrameRowCounts);
+
+        frameIndex = -1;
+        frameLimit = -1;
+        frameRowCount = 0;
+        frameRowIndex = 0;
+        size = -1;
+        allFramesActive = true;
+    }
+}
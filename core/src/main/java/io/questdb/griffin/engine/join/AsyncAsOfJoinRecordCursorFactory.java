@@ -0,0 +1,275 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.model.JoinContext;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Rows;
+import io.questdb.std.Transient;
+import io.questdb.std.WeakClosableObjectPool;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
+/**
+ * ASOF join that joins master page frames in parallel. Both master and slave are
+ * scanned as page frames.
+ * <p>
+ * Every master page frame is a chunk of the master timeline, so the workers join
+ * the frames independently, see {@link AsyncAsOfJoinAtom} for the details. The
+ * frames are collected in the scan order, so the result is the same as the one of
+ * {@link AsOfJoinLightRecordCursorFactory} or {@link AsOfJoinNoKeyRecordCursorFactory}.
+ */
+public class AsyncAsOfJoinRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private static final PageFrameReducer REDUCER = AsyncAsOfJoinRecordCursorFactory::join;
+    private final AsyncAsOfJoinAtom atom;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncAsOfJoinRecordCursor cursor;
+    private final PageFrameSequence<AsyncAsOfJoinAtom> frameSequence;
+    private final JoinContext joinContext;
+    private final RecordCursorFactory masterFactory;
+    private final RecordCursorFactory slaveFactory;
+    private final int workerCount;
+
+    public AsyncAsOfJoinRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordMetadata metadata,
+            @NotNull RecordCursorFactory masterFactory,
+            @NotNull RecordCursorFactory slaveFactory,
+            @Transient @Nullable ColumnTypes joinColumnTypes,
+            @Transient @Nullable ColumnTypes valueTypes, // this expected to be just LONG, we store slave row ids in map
+            @Nullable RecordSink masterKeySink,
+            @Nullable RecordSink slaveKeySink,
+            int columnSplit,
+            @Nullable JoinContext joinContext,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool,
+            int workerCount
+    ) {
+        super(metadata);
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.joinContext = joinContext;
+        this.workerCount = workerCount;
+        this.atom = new AsyncAsOfJoinAtom(
+                configuration,
+                joinColumnTypes,
+                valueTypes,
+                masterKeySink,
+                slaveKeySink,
+                masterFactory.getMetadata().getTimestampIndex(),
+                slaveFactory.getMetadata().getTimestampIndex(),
+                workerCount
+        );
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+        this.cursor = new AsyncAsOfJoinRecordCursor(
+                configuration,
+                columnSplit,
+                NullRecordFactory.getInstance(slaveFactory.getMetadata())
+        );
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final PageFrameCursor slaveFrameCursor = slaveFactory.getPageFrameCursor(executionContext, ORDER_ASC);
+        final PageFrameSequence<AsyncAsOfJoinAtom> frameSequence;
+        try {
+            frameSequence = this.frameSequence.of(masterFactory, executionContext, collectSubSeq, atom, ORDER_ASC);
+        } catch (Throwable e) {
+            Misc.free(slaveFrameCursor);
+            this.frameSequence.clear();
+            throw e;
+        }
+        try {
+            cursor.of(frameSequence, slaveFrameCursor, slaveFactory.getMetadata());
+        } catch (Throwable e) {
+            // the cursor owns both the frame sequence and the slave frame cursor at this point
+            cursor.close();
+            throw e;
+        }
+        return cursor;
+    }
+
+    @Override
+    public int getScanDirection() {
+        return masterFactory.getScanDirection();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Async AsOf Join");
+        if (joinContext != null) {
+            sink.attr("condition").val(joinContext);
+        }
+        sink.attr("workers").val(workerCount);
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
+    private static void join(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncAsOfJoinAtom atom = task.getFrameSequence(AsyncAsOfJoinAtom.class).getAtom();
+        // slave row id of each master row, -1 for no match
+        final DirectLongList rows = task.getRows();
+        final long slaveRowCount = atom.getSlaveRowCount();
+        if (frameRowCount == 0) {
+            return;
+        }
+        if (slaveRowCount == 0) {
+            for (long r = 0; r < frameRowCount; r++) {
+                rows.add(-1);
+            }
+            return;
+        }
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+        final int slotId = atom.acquire(workerId, owner, circuitBreaker);
+        final PageAddressCacheRecord slaveRecord = atom.getSlaveRecord(slotId);
+        final FastMap keyMap = atom.isKeyed() ? atom.getKeyMap(slotId) : null;
+        final RecordSink masterKeySink = atom.getMasterKeySink();
+        final RecordSink slaveKeySink = atom.getSlaveKeySink();
+        final int masterTimestampIndex = atom.getMasterTimestampIndex();
+        final int slaveTimestampIndex = atom.getSlaveTimestampIndex();
+        try {
+            if (keyMap != null) {
+                keyMap.clear();
+            }
+            record.setRowIndex(0);
+            // Slave rows in [lo, hi) positions are in the key map, the ones
+            // past hi are entered as master timestamps advance, the ones before
+            // lo are visited backwards when a key is not in the map.
+            long hi = atom.findSlaveRowHi(slaveRecord, record.getTimestamp(masterTimestampIndex));
+            long lo = hi;
+            int hiFrameIndex = atom.findSlaveFrame(hi);
+            int loFrameIndex = hiFrameIndex;
+            long lastSlaveRowId = -1;
+            if (hi > 0) {
+                final int frameIndex = atom.findSlaveFrame(hi - 1);
+                lastSlaveRowId = Rows.toRowID(frameIndex, hi - 1 - atom.getSlaveFrameRowLo(frameIndex));
+            }
+
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                final long masterTimestamp = record.getTimestamp(masterTimestampIndex);
+                while (hi < slaveRowCount) {
+                    while (hi >= atom.getSlaveFrameRowLo(hiFrameIndex + 1)) {
+                        hiFrameIndex++;
+                    }
+                    final long slaveRowIndex = hi - atom.getSlaveFrameRowLo(hiFrameIndex);
+                    slaveRecord.setFrameIndex(hiFrameIndex);
+                    slaveRecord.setRowIndex(slaveRowIndex);
+                    if (slaveRecord.getTimestamp(slaveTimestampIndex) > masterTimestamp) {
+                        break;
+                    }
+                    lastSlaveRowId = Rows.toRowID(hiFrameIndex, slaveRowIndex);
+                    if (keyMap != null) {
+                        final MapKey key = keyMap.withKey();
+                        key.put(slaveRecord, slaveKeySink);
+                        key.createValue().putLong(0, lastSlaveRowId);
+                    }
+                    hi++;
+                }
+
+                if (keyMap == null) {
+                    rows.add(lastSlaveRowId);
+                    continue;
+                }
+
+                MapKey key = keyMap.withKey();
+                key.put(record, masterKeySink);
+                MapValue value = key.findValue();
+                while (value == null && lo > 0) {
+                    // Look back for the key. Keys seen on the way are added to the map,
+                    // so that the slave rows are visited backwards once per frame.
+                    lo--;
+                    while (lo < atom.getSlaveFrameRowLo(loFrameIndex)) {
+                        loFrameIndex--;
+                    }
+                    final long slaveRowIndex = lo - atom.getSlaveFrameRowLo(loFrameIndex);
+                    slaveRecord.setFrameIndex(loFrameIndex);
+                    slaveRecord.setRowIndex(slaveRowIndex);
+                    key = keyMap.withKey();
+                    key.put(slaveRecord, slaveKeySink);
+                    final MapValue slaveValue = key.createValue();
+                    if (slaveValue.isNew()) {
+                        slaveValue.putLong(0, Rows.toRowID(loFrameIndex, slaveRowIndex));
+                        key = keyMap.withKey();
+                        key.put(record, masterKeySink);
+                        value = key.findValue();
+                    }
+                }
+                rows.add(value != null ? value.getLong(0) : -1);
+            }
+        } finally {
+            atom.release(slotId);
+        }
+    }
+
+    @Override
+    protected void _close() {
+        ((JoinRecordMetadata) getMetadata()).close();
+        Misc.free(masterFactory);
+        Misc.free(slaveFactory);
+        Misc.free(cursor);
+        cursor.freeRecords();
+        Misc.free(atom);
+        Misc.free(frameSequence);
+    }
+}
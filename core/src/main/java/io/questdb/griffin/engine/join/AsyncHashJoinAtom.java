@@ -0,0 +1,324 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.PageAddressCache;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.sql.async.ShardMergeAtom;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.std.Chars;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.FlyweightMessageContainer;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Rows;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+
+/**
+ * Holds the state shared by the workers participating in a parallel hash join.
+ * <p>
+ * The hash table is partitioned into shards by the hash code of the join key.
+ * Each shard has its own map and {@link LongChain} holding ids of the slave rows,
+ * so that shards are built by multiple threads with no synchronization. The build
+ * is done in two steps. First, the workers calculate the shard of each slave row.
+ * Then the query owner thread routes slave row ids to the shards in their scan
+ * order and the shards are built in parallel, which keeps the slave rows of each
+ * key in the scan order.
+ * <p>
+ * Once built, the shards are only read, so the workers probe them concurrently.
+ * Join keys are written to per-worker scratch maps to calculate their hash codes
+ * and then looked up in the shard maps.
+ */
+public class AsyncHashJoinAtom implements StatefulAtom, ShardMergeAtom, Closeable, Mutable {
+
+    private static final int MIN_SHARD_COUNT_BITS = 4;
+    private final RecordSink masterKeySink;
+    private final LongChain.TreeCursor ownerChainCursor = new LongChain.TreeCursor();
+    private final FastMap ownerKeyMap;
+    private final ObjList<LongChain.TreeCursor> perWorkerChainCursors;
+    private final ObjList<FastMap> perWorkerKeyMaps;
+    private final PerWorkerLocks perWorkerLocks;
+    private final ObjList<LongChain> shardChains;
+    private final int shardCountBits;
+    private final ObjList<FastMap> shardMaps;
+    private final ObjList<PageAddressCacheRecord> shardRecords;
+    private final ObjList<DirectLongList> shardRowIds;
+    private final RecordSink slaveKeySink;
+    private volatile String shardMergeError;
+
+    public AsyncHashJoinAtom(
+            @NotNull CairoConfiguration configuration,
+            @Transient @NotNull ColumnTypes joinColumnTypes,
+            @Transient @NotNull ColumnTypes valueTypes,
+            @NotNull RecordSink masterKeySink,
+            @NotNull RecordSink slaveKeySink,
+            int workerCount
+    ) {
+        this.masterKeySink = masterKeySink;
+        this.slaveKeySink = slaveKeySink;
+        perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
+        shardCountBits = Math.max(MIN_SHARD_COUNT_BITS, Numbers.msb(Numbers.ceilPow2(workerCount)));
+        final int shardCount = 1 << shardCountBits;
+        perWorkerKeyMaps = new ObjList<>(workerCount);
+        perWorkerChainCursors = new ObjList<>(workerCount);
+        shardMaps = new ObjList<>(shardCount);
+        shardChains = new ObjList<>(shardCount);
+        shardRecords = new ObjList<>(shardCount);
+        shardRowIds = new ObjList<>(shardCount);
+        try {
+            ownerKeyMap = newKeyMap(configuration, joinColumnTypes, valueTypes);
+            for (int i = 0; i < workerCount; i++) {
+                perWorkerKeyMaps.extendAndSet(i, newKeyMap(configuration, joinColumnTypes, valueTypes));
+                perWorkerChainCursors.extendAndSet(i, new LongChain.TreeCursor());
+            }
+            for (int i = 0; i < shardCount; i++) {
+                final FastMap shardMap = new FastMap(
+                        configuration.getSqlSmallMapPageSize(),
+                        joinColumnTypes,
+                        valueTypes,
+                        configuration.getSqlSmallMapKeyCapacity(),
+                        configuration.getSqlFastMapLoadFactor(),
+                        configuration.getSqlMapMaxResizes()
+                );
+                shardMaps.extendAndSet(i, shardMap);
+                // Shards are only needed while the query is running, so keep them closed till then.
+                shardMap.close();
+                shardChains.extendAndSet(
+                        i,
+                        new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages())
+                );
+                final DirectLongList rowIds = new DirectLongList(configuration.getSqlSmallMapKeyCapacity(), MemoryTag.NATIVE_JOIN_MAP);
+                shardRowIds.extendAndSet(i, rowIds);
+                rowIds.close();
+                shardRecords.extendAndSet(i, new PageAddressCacheRecord());
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Acquires a slot for the given worker. The returned slot id is then used
+     * to access the worker's scratch key map and chain cursor.
+     *
+     * @param workerId       worker id, -1 for a query owner or a work stealing thread
+     * @param owner          true when called by the query owner thread
+     * @param circuitBreaker circuit breaker to check while waiting for a free slot
+     * @return slot id, -1 stands for the query owner slot
+     */
+    public int acquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            return -1;
+        }
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    /**
+     * Routes the slave row to the given shard. Must be called by the query owner
+     * thread in the slave scan order.
+     *
+     * @param shardIndex shard index, as returned by {@link #getShardIndex(int)}
+     * @param rowId      slave row id
+     */
+    public void addSlaveRow(int shardIndex, long rowId) {
+        shardRowIds.getQuick(shardIndex).add(rowId);
+    }
+
+    @Override
+    public void clear() {
+        Misc.free(ownerKeyMap);
+        for (int i = 0, n = perWorkerKeyMaps.size(); i < n; i++) {
+            Misc.free(perWorkerKeyMaps.getQuick(i));
+        }
+        for (int i = 0, n = shardMaps.size(); i < n; i++) {
+            Misc.free(shardMaps.getQuick(i));
+            Misc.free(shardChains.getQuick(i));
+            Misc.free(shardRowIds.getQuick(i));
+        }
+        shardMergeError = null;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(ownerKeyMap);
+        Misc.freeObjList(perWorkerKeyMaps);
+        Misc.freeObjList(shardMaps);
+        Misc.freeObjList(shardChains);
+        Misc.freeObjList(shardRowIds);
+        Misc.freeObjList(shardRecords);
+    }
+
+    public LongChain.TreeCursor getChainCursor(int slotId) {
+        return slotId == -1 ? ownerChainCursor : perWorkerChainCursors.getQuick(slotId);
+    }
+
+    public FastMap getKeyMap(int slotId) {
+        final FastMap keyMap = slotId == -1 ? ownerKeyMap : perWorkerKeyMaps.getQuick(slotId);
+        // Maps are released between query executions, so they have to be reopened lazily.
+        keyMap.reopen();
+        return keyMap;
+    }
+
+    public RecordSink getMasterKeySink() {
+        return masterKeySink;
+    }
+
+    public LongChain getShardChain(int shardIndex) {
+        return shardChains.getQuick(shardIndex);
+    }
+
+    @Override
+    public int getShardCount() {
+        return shardMaps.size();
+    }
+
+    /**
+     * Returns index of the shard the key with the given hash code belongs to.
+     * Shards are selected by the top bits of the hash code, same as in
+     * {@link FastMap#merge(FastMap, io.questdb.cairo.map.MapValueMergeFunction, int, int)}.
+     *
+     * @param hashCode hash code of the join key
+     * @return shard index
+     */
+    public int getShardIndex(int hashCode) {
+        return hashCode >>> (32 - shardCountBits);
+    }
+
+    public FastMap getShardMap(int shardIndex) {
+        return shardMaps.getQuick(shardIndex);
+    }
+
+    @Override
+    public String getShardMergeError() {
+        return shardMergeError;
+    }
+
+    public RecordSink getSlaveKeySink() {
+        return slaveKeySink;
+    }
+
+    /**
+     * Builds the shard out of the slave rows routed to it. Different shards may be
+     * built concurrently.
+     *
+     * @param shardIndex index of the shard to build
+     */
+    @Override
+    public void mergeShard(int shardIndex) {
+        final FastMap map = shardMaps.getQuick(shardIndex);
+        final LongChain chain = shardChains.getQuick(shardIndex);
+        final DirectLongList rowIds = shardRowIds.getQuick(shardIndex);
+        final PageAddressCacheRecord record = shardRecords.getQuick(shardIndex);
+        for (long i = 0, n = rowIds.size(); i < n; i++) {
+            final long rowId = rowIds.get(i);
+            record.setFrameIndex(Rows.toPartitionIndex(rowId));
+            record.setRowIndex(Rows.toLocalRowID(rowId));
+            final MapKey key = map.withKey();
+            key.put(record, slaveKeySink);
+            final MapValue value = key.createValue();
+            if (value.isNew()) {
+                final long offset = chain.put(rowId, -1);
+                value.putLong(0, offset);
+                value.putLong(1, offset);
+            } else {
+                value.putLong(1, chain.put(rowId, value.getLong(1)));
+            }
+        }
+        // Row ids are in the chain now, so release the list memory early.
+        rowIds.close();
+    }
+
+    /**
+     * Prepares shards for routing slave rows to them. Must be called by the query
+     * owner thread before the slave page frames are dispatched.
+     *
+     * @param symbolTableSource slave symbol table source
+     * @param pageAddressCache  slave page address cache
+     */
+    public void ofSlave(SymbolTableSource symbolTableSource, PageAddressCache pageAddressCache) {
+        for (int i = 0, n = shardMaps.size(); i < n; i++) {
+            final DirectLongList rowIds = shardRowIds.getQuick(i);
+            rowIds.reopen();
+            rowIds.clear();
+            shardRecords.getQuick(i).of(symbolTableSource, pageAddressCache);
+        }
+    }
+
+    @Override
+    public void prepareShardedMerge() {
+        for (int i = 0, n = shardMaps.size(); i < n; i++) {
+            shardMaps.getQuick(i).reopen();
+            final LongChain chain = shardChains.getQuick(i);
+            chain.reopen();
+            chain.clear();
+        }
+        shardMergeError = null;
+    }
+
+    public void release(int slotId) {
+        perWorkerLocks.releaseSlot(slotId);
+    }
+
+    @Override
+    public void setShardMergeError(Throwable th) {
+        // Keep the first error only, subsequent ones are likely to be caused by it.
+        // Exceptions may be thread-local flyweights, so we copy the message.
+        if (shardMergeError == null) {
+            shardMergeError = th instanceof FlyweightMessageContainer
+                    ? Chars.toString(((FlyweightMessageContainer) th).getFlyweightMessage())
+                    : th.toString();
+        }
+    }
+
+    private static FastMap newKeyMap(CairoConfiguration configuration, ColumnTypes joinColumnTypes, ColumnTypes valueTypes) {
+        // only used as scratch area for join keys, no keys are ever added
+        final FastMap keyMap = new FastMap(
+                configuration.getSqlSmallMapPageSize(),
+                joinColumnTypes,
+                valueTypes,
+                configuration.getSqlSmallMapKeyCapacity(),
+                configuration.getSqlFastMapLoadFactor(),
+                configuration.getSqlMapMaxResizes()
+        );
+        keyMap.close();
+        return keyMap;
+    }
+}
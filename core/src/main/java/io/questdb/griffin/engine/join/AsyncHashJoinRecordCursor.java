@@ -0,0 +1,324 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.cairo.sql.async.ShardMerger;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+import io.questdb.std.Rows;
+
+class AsyncHashJoinRecordCursor implements NoRandomAccessRecordCursor {
+
+    private static final Log LOG = LogFactory.getLog(AsyncHashJoinRecordCursor.class);
+    private static final String exceptionMessage = "timeout, query aborted";
+    private final int columnSplit;
+    private final PageAddressCacheRecord masterRecord = new PageAddressCacheRecord();
+    private final JoinRecord record;
+    private final ShardMerger shardMerger;
+    private final PageAddressCacheRecord slaveRecord = new PageAddressCacheRecord();
+    private boolean allFramesActive;
+    private SqlExecutionCircuitBreaker circuitBreaker;
+    private long cursor = -1;
+    private int frameIndex;
+    private int frameLimit;
+    private long frameRowCount;
+    private long frameRowIndex;
+    private boolean isHashTableBuilt;
+    private boolean isOpen;
+    private PageFrameSequence<AsyncHashJoinAtom> masterFrameSequence;
+    // Pairs of master row index and slave row id.
+    private DirectLongList rows;
+    private long slaveCursor = -1;
+    private int slaveFrameLimit;
+    private PageFrameSequence<AsyncHashJoinAtom> slaveFrameSequence;
+
+    public AsyncHashJoinRecordCursor(int columnSplit, MessageBus messageBus) {
+        this.columnSplit = columnSplit;
+        this.record = new JoinRecord(columnSplit);
+        this.shardMerger = new ShardMerger(messageBus);
+        record.of(masterRecord, slaveRecord);
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            LOG.debug()
+                    .$("closing [shard=").$(masterFrameSequence.getShard())
+                    .$(", frameIndex=").$(frameIndex)
+                    .$(", frameCount=").$(frameLimit)
+                    .$(", frameId=").$(masterFrameSequence.getId())
+                    .$(", cursor=").$(cursor)
+                    .I$();
+
+            collectCursor(true);
+            if (frameLimit > -1) {
+                masterFrameSequence.await();
+            }
+            masterFrameSequence.clear();
+
+            collectSlaveCursor(true);
+            if (slaveFrameLimit > -1) {
+                slaveFrameSequence.await();
+            }
+            slaveFrameSequence.clear();
+
+            masterFrameSequence.getAtom().clear();
+            isOpen = false;
+        }
+    }
+
+    public void freeRecords() {
+        Misc.free(masterRecord);
+        Misc.free(slaveRecord);
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return masterFrameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+        }
+        return slaveFrameSequence.getSymbolTableSource().getSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isHashTableBuilt) {
+            buildHashTable();
+            isHashTableBuilt = true;
+        }
+
+        // Check for the first hasNext call.
+        if (frameIndex == -1) {
+            fetchNextFrame();
+        }
+
+        // We have rows in the current frame we still need to dispatch
+        if (frameRowIndex < frameRowCount) {
+            nextRow();
+            return true;
+        }
+
+        // Release the previous queue item.
+        // There is no identity check here because this check
+        // had been done when 'cursor' was assigned.
+        collectCursor(false);
+
+        // Do we have more frames?
+        if (frameIndex < frameLimit) {
+            fetchNextFrame();
+            if (frameRowIndex < frameRowCount) {
+                nextRow();
+                return true;
+            }
+        }
+
+        if (!allFramesActive) {
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+        return false;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return masterFrameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+        }
+        return slaveFrameSequence.getSymbolTableSource().newSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        // The hash table is kept, only the master frames are probed again.
+        if (frameIndex == -1) {
+            return;
+        }
+        collectCursor(false);
+        masterFrameSequence.toTop();
+        frameIndex = -1;
+        frameRowCount = 0;
+        frameRowIndex = 0;
+        allFramesActive = true;
+    }
+
+    private void buildHashTable() {
+        final AsyncHashJoinAtom atom = slaveFrameSequence.getAtom();
+        slaveFrameSequence.prepareForDispatch();
+        slaveFrameLimit = slaveFrameSequence.getFrameCount() - 1;
+        atom.ofSlave(slaveFrameSequence.getSymbolTableSource(), slaveFrameSequence.getPageAddressCache());
+
+        try {
+            int slaveFrameIndex = -1;
+            do {
+                slaveCursor = slaveFrameSequence.next();
+                if (slaveCursor > -1) {
+                    PageFrameReduceTask task = slaveFrameSequence.getTask(slaveCursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(slaveFrameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(slaveFrameSequence.getFrameCount())
+                            .$(", frameId=").$(slaveFrameSequence.getId())
+                            .$(", active=").$(slaveFrameSequence.isActive())
+                            .$(", cursor=").$(slaveCursor)
+                            .I$();
+                    allFramesActive &= slaveFrameSequence.isActive();
+                    slaveFrameIndex = task.getFrameIndex();
+                    if (slaveFrameSequence.isActive()) {
+                        // Route rows to the shards in the scan order, so that
+                        // the slave rows of each key keep this order.
+                        final DirectLongList shards = task.getRows();
+                        for (long r = 0, n = shards.size(); r < n; r++) {
+                            atom.addSlaveRow((int) shards.get(r), Rows.toRowID(slaveFrameIndex, r));
+                        }
+                    }
+                    collectSlaveCursor(false);
+                } else if (slaveCursor == -2) {
+                    break; // No frames to build hash table from
+                } else {
+                    Os.pause();
+                }
+            } while (slaveFrameIndex < slaveFrameLimit);
+        } catch (Throwable e) {
+            LOG.critical().$("unexpected error [ex=").$(e).I$();
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+
+        if (!allFramesActive) {
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+
+        shardMerger.merge(atom, circuitBreaker);
+    }
+
+    private void collectCursor(boolean forceCollect) {
+        if (cursor > -1) {
+            masterFrameSequence.collect(cursor, forceCollect);
+            // It is necessary to clear 'cursor' value
+            // because we updated frameIndex and loop can exit due to lack of frames.
+            // Non-update of 'cursor' could cause double-free.
+            cursor = -1;
+        }
+    }
+
+    private void collectSlaveCursor(boolean forceCollect) {
+        if (slaveCursor > -1) {
+            slaveFrameSequence.collect(slaveCursor, forceCollect);
+            slaveCursor = -1;
+        }
+    }
+
+    private void fetchNextFrame() {
+        if (frameLimit == -1) {
+            masterFrameSequence.prepareForDispatch();
+            frameLimit = masterFrameSequence.getFrameCount() - 1;
+        }
+
+        try {
+            do {
+                cursor = masterFrameSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = masterFrameSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(masterFrameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(masterFrameSequence.getFrameCount())
+                            .$(", frameId=").$(masterFrameSequence.getId())
+                            .$(", active=").$(masterFrameSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+                    allFramesActive &= masterFrameSequence.isActive();
+                    rows = task.getRows();
+                    frameRowCount = rows.size();
+                    frameIndex = task.getFrameIndex();
+                    frameRowIndex = 0;
+                    if (frameRowCount > 0 && masterFrameSequence.isActive()) {
+                        masterRecord.setFrameIndex(task.getFrameIndex());
+                        break;
+                    } else {
+                        // Force reset frame size if frameSequence was canceled or failed.
+                        frameRowCount = 0;
+                        collectCursor(false);
+                    }
+                } else if (cursor == -2) {
+                    break; // No frames to probe
+                } else {
+                    Os.pause();
+                }
+            } while (frameIndex < frameLimit);
+        } catch (Throwable e) {
+            LOG.critical().$("unexpected error [ex=").$(e).I$();
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+    }
+
+    private void nextRow() {
+        masterRecord.setRowIndex(rows.get(frameRowIndex));
+        final long slaveRowId = rows.get(frameRowIndex + 1);
+        slaveRecord.setFrameIndex(Rows.toPartitionIndex(slaveRowId));
+        slaveRecord.setRowIndex(Rows.toLocalRowID(slaveRowId));
+        frameRowIndex += 2;
+    }
+
+    void of(
+            PageFrameSequence<AsyncHashJoinAtom> masterFrameSequence,
+            PageFrameSequence<AsyncHashJoinAtom> slaveFrameSequence,
+            SqlExecutionCircuitBreaker circuitBreaker
+    ) {
+        this.masterFrameSequence = masterFrameSequence;
+        this.slaveFrameSequence = slaveFrameSequence;
+        this.circuitBreaker = circuitBreaker;
+        masterRecord.of(masterFrameSequence.getSymbolTableSource(), masterFrameSequence.getPageAddressCache());
+        slaveRecord.of(slaveFrameSequence.getSymbolTableSource(), slaveFrameSequence.getPageAddressCache());
+        frameIndex = -1;
+        frameLimit = -1;
+        frameRowCount = 0;
+        frameRowIndex = 0;
+        slaveFrameLimit = -1;
+        allFramesActive = true;
+        isHashTableBuilt = false;
+        isOpen = true;
+    }
+}
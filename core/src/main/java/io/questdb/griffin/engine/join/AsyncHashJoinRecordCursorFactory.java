@@ -0,0 +1,236 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.model.JoinContext;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Transient;
+import io.questdb.std.WeakClosableObjectPool;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
+/**
+ * Inner hash join that builds and probes the hash table in parallel. Both master
+ * and slave are scanned as page frames.
+ * <p>
+ * The build side is partitioned into shards by the join key hash code, see
+ * {@link AsyncHashJoinAtom}. Master page frames are then probed by the workers
+ * and each of them produces the list of matching (master row, slave row) pairs.
+ * The frames are collected in the scan order, so the result has the same order
+ * as the one of {@link HashJoinLightRecordCursorFactory}.
+ */
+public class AsyncHashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private static final PageFrameReducer PARTITION_REDUCER = AsyncHashJoinRecordCursorFactory::partition;
+    private static final PageFrameReducer PROBE_REDUCER = AsyncHashJoinRecordCursorFactory::probe;
+    private final AsyncHashJoinAtom atom;
+    private final AsyncHashJoinRecordCursor cursor;
+    private final JoinContext joinContext;
+    private final SCSequence masterCollectSubSeq = new SCSequence();
+    private final RecordCursorFactory masterFactory;
+    private final PageFrameSequence<AsyncHashJoinAtom> masterFrameSequence;
+    private final SCSequence slaveCollectSubSeq = new SCSequence();
+    private final RecordCursorFactory slaveFactory;
+    private final PageFrameSequence<AsyncHashJoinAtom> slaveFrameSequence;
+    private final int workerCount;
+
+    public AsyncHashJoinRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordMetadata metadata,
+            @NotNull RecordCursorFactory masterFactory,
+            @NotNull RecordCursorFactory slaveFactory,
+            @Transient @NotNull ColumnTypes joinColumnTypes,
+            @Transient @NotNull ColumnTypes valueTypes, // this expected to be just LONGs, we store chain references in map
+            @NotNull RecordSink masterKeySink,
+            @NotNull RecordSink slaveKeySink,
+            int columnSplit,
+            @NotNull JoinContext joinContext,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool,
+            int workerCount
+    ) {
+        super(metadata);
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.joinContext = joinContext;
+        this.workerCount = workerCount;
+        this.atom = new AsyncHashJoinAtom(configuration, joinColumnTypes, valueTypes, masterKeySink, slaveKeySink, workerCount);
+        this.slaveFrameSequence = new PageFrameSequence<>(configuration, messageBus, PARTITION_REDUCER, localTaskPool);
+        this.masterFrameSequence = new PageFrameSequence<>(configuration, messageBus, PROBE_REDUCER, localTaskPool);
+        this.cursor = new AsyncHashJoinRecordCursor(columnSplit, messageBus);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final PageFrameSequence<AsyncHashJoinAtom> slaveFrameSequence = this.slaveFrameSequence.of(
+                slaveFactory,
+                executionContext,
+                slaveCollectSubSeq,
+                atom,
+                ORDER_ASC
+        );
+        try {
+            final PageFrameSequence<AsyncHashJoinAtom> masterFrameSequence = this.masterFrameSequence.of(
+                    masterFactory,
+                    executionContext,
+                    masterCollectSubSeq,
+                    atom,
+                    ORDER_ASC
+            );
+            cursor.of(masterFrameSequence, slaveFrameSequence, executionContext.getCircuitBreaker());
+            return cursor;
+        } catch (Throwable e) {
+            masterFrameSequence.clear();
+            slaveFrameSequence.clear();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getScanDirection() {
+        return masterFactory.getScanDirection();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(TableToken tableToken) {
+        return masterFactory.supportsUpdateRowId(tableToken);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Async Hash Join");
+        sink.attr("condition").val(joinContext);
+        sink.attr("workers").val(workerCount);
+        sink.child(masterFactory);
+        sink.child("Hash", slaveFactory);
+    }
+
+    private static void partition(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncHashJoinAtom atom = task.getFrameSequence(AsyncHashJoinAtom.class).getAtom();
+        // shard index of each frame row
+        final DirectLongList shards = task.getRows();
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+        final int slotId = atom.acquire(workerId, owner, circuitBreaker);
+        final FastMap keyMap = atom.getKeyMap(slotId);
+        final RecordSink slaveKeySink = atom.getSlaveKeySink();
+        try {
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                final MapKey key = keyMap.withKey();
+                key.put(record, slaveKeySink);
+                shards.add(atom.getShardIndex(keyMap.keyHashCode()));
+            }
+        } finally {
+            atom.release(slotId);
+        }
+    }
+
+    private static void probe(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncHashJoinAtom atom = task.getFrameSequence(AsyncHashJoinAtom.class).getAtom();
+        // pairs of master row index and slave row id
+        final DirectLongList rows = task.getRows();
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+        final int slotId = atom.acquire(workerId, owner, circuitBreaker);
+        final FastMap keyMap = atom.getKeyMap(slotId);
+        final LongChain.TreeCursor chainCursor = atom.getChainCursor(slotId);
+        final RecordSink masterKeySink = atom.getMasterKeySink();
+        try {
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                final MapKey key = keyMap.withKey();
+                key.put(record, masterKeySink);
+                final int hashCode = keyMap.keyHashCode();
+                final int shardIndex = atom.getShardIndex(hashCode);
+                final MapValue value = atom.getShardMap(shardIndex).findValue(keyMap, hashCode);
+                if (value != null) {
+                    atom.getShardChain(shardIndex).getCursor(value.getLong(0), chainCursor);
+                    while (chainCursor.hasNext()) {
+                        rows.add(r);
+                        rows.add(chainCursor.next());
+                    }
+                }
+            }
+        } finally {
+            atom.release(slotId);
+        }
+    }
+
+    @Override
+    protected void _close() {
+        ((JoinRecordMetadata) getMetadata()).close();
+        Misc.free(masterFactory);
+        Misc.free(slaveFactory);
+        Misc.free(cursor);
+        cursor.freeRecords();
+        Misc.free(atom);
+        Misc.free(masterFrameSequence);
+        Misc.free(slaveFrameSequence);
+    }
+}
@@ -27,6 +27,7 @@ package io.questdb.griffin.engine.join;
 import io.questdb.cairo.Reopenable;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryARW;
+import io.questdb.cairo.vm.api.MemoryR;
 import io.questdb.std.MemoryTag;
 import io.questdb.std.Mutable;
 
@@ -53,7 +54,21 @@ public class LongChain implements Closeable, Mutable, Reopenable {
     }
 
     public TreeCursor getCursor(long tailOffset) {
-        cursor.of(tailOffset);
+        cursor.of(valueChain, tailOffset);
+        return cursor;
+    }
+
+    /**
+     * Positions the given cursor at the chain that starts at the given offset.
+     * The chain is only read, so multiple threads may iterate the same chain
+     * concurrently as long as each of them uses its own cursor.
+     *
+     * @param tailOffset offset of the chain start
+     * @param cursor     cursor to position
+     * @return the given cursor
+     */
+    public TreeCursor getCursor(long tailOffset, TreeCursor cursor) {
+        cursor.of(valueChain, tailOffset);
         return cursor;
     }
 
@@ -71,8 +86,9 @@ public class LongChain implements Closeable, Mutable, Reopenable {
         //nothing to do here
     }
 
-    public class TreeCursor {
+    public static class TreeCursor {
         private long nextOffset;
+        private MemoryR valueChain;
 
         public boolean hasNext() {
             return nextOffset != -1;
@@ -85,7 +101,8 @@ public class LongChain implements Closeable, Mutable, Reopenable {
             return value;
         }
 
-        void of(long startOffset) {
+        void of(MemoryR valueChain, long startOffset) {
+            this.valueChain = valueChain;
             this.nextOffset = startOffset;
         }
     }
@@ -44,6 +44,7 @@ import io.questdb.mp.RingQueue;
 import io.questdb.std.Chars;
 import io.questdb.std.Numbers;
 import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Executes COPY statement lazily, i.e. on record cursor initialization, to play
@@ -61,6 +62,7 @@ public class CopyFactory extends AbstractRecordCursorFactory {
     private final int partitionBy;
     private final CopyRecord record = new CopyRecord();
     private final SingleValueRecordCursor cursor = new SingleValueRecordCursor(record);
+    private final String selectText;
     private final String tableName;
     private final CopyContext copyContext;
     private final String timestampColumn;
@@ -71,6 +73,7 @@ public class CopyFactory extends AbstractRecordCursorFactory {
             CopyContext copyContext,
             String tableName,
             String fileName,
+            @Nullable String selectText,
             CopyModel model
     ) {
         super(METADATA);
@@ -78,6 +81,7 @@ public class CopyFactory extends AbstractRecordCursorFactory {
         this.copyContext = copyContext;
         this.tableName = tableName;
         this.fileName = fileName;
+        this.selectText = selectText;
         this.headerFlag = model.isHeader();
         this.timestampColumn = Chars.toString(model.getTimestampColumnName());
         this.timestampFormat = Chars.toString(model.getTimestampFormat());
@@ -99,18 +103,30 @@ public class CopyFactory extends AbstractRecordCursorFactory {
                 final CopyRequestTask task = textImportRequestQueue.get(processingCursor);
 
                 long copyID = copyContext.assignActiveImportId(executionContext.getSecurityContext());
-                task.of(
-                        executionContext.getSecurityContext(),
-                        copyID,
-                        tableName,
-                        fileName,
-                        headerFlag,
-                        timestampColumn,
-                        delimiter,
-                        timestampFormat,
-                        partitionBy,
-                        atomicity
-                );
+                if (selectText != null) {
+                    task.ofExport(
+                            executionContext.getSecurityContext(),
+                            copyID,
+                            tableName,
+                            fileName,
+                            selectText,
+                            headerFlag,
+                            delimiter
+                    );
+                } else {
+                    task.of(
+                            executionContext.getSecurityContext(),
+                            copyID,
+                            tableName,
+                            fileName,
+                            headerFlag,
+                            timestampColumn,
+                            delimiter,
+                            timestampFormat,
+                            partitionBy,
+                            atomicity
+                    );
+                }
 
                 circuitBreaker.reset();
                 copyRequestPubSeq.done(processingCursor);
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.PageAddressCache;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+
+/**
+ * Holds the state shared by the workers participating in a parallel ORDER BY.
+ * <p>
+ * Each worker sorts one page frame at a time in its own {@link LongTreeChain}
+ * and emits ids of the frame rows in the sort order, i.e. a sorted run.
+ * Comparators cache values of the left record, so every worker also has its own
+ * comparator instance and a record used to read the rows already in the tree.
+ */
+public class AsyncSortedLightAtom implements StatefulAtom, Closeable, Mutable {
+
+    private final LongTreeChain ownerChain;
+    private final RecordComparator ownerComparator;
+    private final PageAddressCacheRecord ownerRecord = new PageAddressCacheRecord();
+    private final ObjList<LongTreeChain> perWorkerChains;
+    private final ObjList<RecordComparator> perWorkerComparators;
+    private final PerWorkerLocks perWorkerLocks;
+    private final ObjList<PageAddressCacheRecord> perWorkerRecords;
+    private final long treeMaxRows;
+
+    public AsyncSortedLightAtom(
+            @NotNull CairoConfiguration configuration,
+            @NotNull RecordComparator comparator,
+            int workerCount
+    ) {
+        this.ownerComparator = comparator;
+        this.treeMaxRows = getTreeMaxRows(configuration);
+        this.perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
+        this.perWorkerChains = new ObjList<>(workerCount);
+        this.perWorkerComparators = new ObjList<>(workerCount);
+        this.perWorkerRecords = new ObjList<>(workerCount);
+        try {
+            ownerChain = newChain(configuration);
+            for (int i = 0; i < workerCount; i++) {
+                perWorkerChains.extendAndSet(i, newChain(configuration));
+                perWorkerComparators.extendAndSet(i, RecordComparatorCompiler.newInstance(comparator));
+                perWorkerRecords.extendAndSet(i, new PageAddressCacheRecord());
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Acquires a slot for the given worker. The returned slot id is then used
+     * to access the worker's tree chain, comparator and record.
+     *
+     * @param workerId       worker id, -1 for a query owner or a work stealing thread
+     * @param owner          true when called by the query owner thread
+     * @param circuitBreaker circuit breaker to check while waiting for a free slot
+     * @return slot id, -1 stands for the query owner slot
+     */
+    public int acquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            return -1;
+        }
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    @Override
+    public void clear() {
+        // Release the trees memory between query executions.
+        Misc.free(ownerChain);
+        Misc.freeObjListAndKeepObjects(perWorkerChains);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(ownerChain);
+        Misc.free(ownerRecord);
+        Misc.freeObjList(perWorkerChains);
+        Misc.freeObjList(perWorkerRecords);
+    }
+
+    public LongTreeChain getChain(int slotId) {
+        return slotId == -1 ? ownerChain : perWorkerChains.getQuick(slotId);
+    }
+
+    public RecordComparator getComparator(int slotId) {
+        return slotId == -1 ? ownerComparator : perWorkerComparators.getQuick(slotId);
+    }
+
+    public RecordComparator getOwnerComparator() {
+        return ownerComparator;
+    }
+
+    public PageAddressCacheRecord getRecord(int slotId) {
+        return slotId == -1 ? ownerRecord : perWorkerRecords.getQuick(slotId);
+    }
+
+    /**
+     * Points the records used by the workers to the page frames of the sorted
+     * table. Must be called by the query owner thread before the page frames
+     * are dispatched.
+     *
+     * @param symbolTableSource symbol table source
+     * @param pageAddressCache  page address cache
+     */
+    public void of(SymbolTableSource symbolTableSource, PageAddressCache pageAddressCache) {
+        // the trees are released by clear(), so re-allocate their memory
+        ownerChain.reopen();
+        ownerRecord.of(symbolTableSource, pageAddressCache);
+        for (int i = 0, n = perWorkerRecords.size(); i < n; i++) {
+            perWorkerChains.getQuick(i).reopen();
+            perWorkerRecords.getQuick(i).of(symbolTableSource, pageAddressCache);
+        }
+    }
+
+    /**
+     * Returns max number of rows sorted in a single tree. Page frames with more rows
+     * are sorted in chunks, each chunk producing a separate sorted run.
+     *
+     * @return max number of rows in a tree
+     */
+    public long getTreeMaxRows() {
+        return treeMaxRows;
+    }
+
+    public void release(int slotId) {
+        perWorkerLocks.releaseSlot(slotId);
+    }
+
+    static long getTreeMaxRows(CairoConfiguration configuration) {
+        return Math.max(1, configuration.getSqlSortTreeMaxRows());
+    }
+
+    private static LongTreeChain newChain(CairoConfiguration configuration) {
+        return new LongTreeChain(
+                configuration.getSqlSortKeyPageSize(),
+                configuration.getSqlSortKeyMaxPages(),
+                configuration.getSqlSortLightValuePageSize(),
+                configuration.getSqlSortLightValueMaxPages()
+        );
+    }
+}
@@ -0,0 +1,388 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryARW;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+import io.questdb.std.Rows;
+import io.questdb.std.str.Path;
+
+/**
+ * Collects sorted runs produced by the workers, one or more runs per page frame, and
+ * merges them with a binary heap of the run heads.
+ * <p>
+ * Runs are lists of row ids. Page frames larger than the tree size limit are sorted
+ * in chunks, so a single frame may produce several runs. Runs are kept in RAM unless
+ * their total size exceeds the spill threshold, in which case they are written to
+ * a memory-mapped file in the spill directory, so that the OS may page them out.
+ * <p>
+ * Rows with equal sort keys are returned in the reverse scan order, same as
+ * {@link SortedLightRecordCursor} does.
+ */
+class AsyncSortedLightRecordCursor implements RecordCursor {
+
+    private static final Log LOG = LogFactory.getLog(AsyncSortedLightRecordCursor.class);
+    private static final String exceptionMessage = "timeout, query aborted";
+    private final RecordComparator comparator;
+    private final FilesFacade ff;
+    // Min-heap of run indexes ordered by their current rows.
+    private final IntList heap = new IntList();
+    private final MemoryCARW heapRuns;
+    private final PageAddressCacheRecord leftRecord = new PageAddressCacheRecord();
+    private final int mkDirMode;
+    private final Path path = new Path();
+    private final PageAddressCacheRecord record = new PageAddressCacheRecord();
+    private final PageAddressCacheRecord recordB = new PageAddressCacheRecord();
+    private final PageAddressCacheRecord rightRecord = new PageAddressCacheRecord();
+    // Pairs of start and limit offsets of the runs.
+    private final LongList runBounds = new LongList();
+    // Offsets of the current rows of the runs.
+    private final LongList runPositions = new LongList();
+    private final long spillExtendSegmentSize;
+    private final CharSequence spillRoot;
+    private final MemoryCMARW spillRuns = Vm.getCMARWInstance();
+    private final long spillThreshold;
+    private final long treeMaxRows;
+    private final long writerFileOpenOpts;
+    private boolean allFramesActive;
+    private long cursor = -1;
+    private int frameLimit;
+    private PageFrameSequence<AsyncSortedLightAtom> frameSequence;
+    private boolean isOpen;
+    private boolean isSorted;
+    private boolean isSpilled;
+    private long rowCount;
+    private MemoryARW runs;
+    private int topRun;
+
+    public AsyncSortedLightRecordCursor(CairoConfiguration configuration, RecordComparator comparator) {
+        this.comparator = comparator;
+        this.ff = configuration.getFilesFacade();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.spillRoot = configuration.getSqlSortSpillRoot();
+        this.spillThreshold = configuration.getSqlSortSpillThreshold();
+        this.treeMaxRows = AsyncSortedLightAtom.getTreeMaxRows(configuration);
+        this.spillExtendSegmentSize = configuration.getSqlSortLightValuePageSize();
+        this.writerFileOpenOpts = configuration.getWriterFileOpenOpts();
+        this.heapRuns = Vm.getCARWInstance(
+                configuration.getSqlSortLightValuePageSize(),
+                configuration.getSqlSortLightValueMaxPages(),
+                MemoryTag.NATIVE_TREE_CHAIN
+        );
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            LOG.debug()
+                    .$("closing [shard=").$(frameSequence.getShard())
+                    .$(", frameCount=").$(frameLimit)
+                    .$(", frameId=").$(frameSequence.getId())
+                    .$(", cursor=").$(cursor)
+                    .I$();
+
+            collectCursor(true);
+            if (frameLimit > -1) {
+                frameSequence.await();
+            }
+            frameSequence.clear();
+            frameSequence.getAtom().clear();
+            closeRuns();
+            isOpen = false;
+        }
+    }
+
+    public void freeResources() {
+        Misc.free(heapRuns);
+        Misc.free(leftRecord);
+        Misc.free(path);
+        Misc.free(record);
+        Misc.free(recordB);
+        Misc.free(rightRecord);
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return recordB;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isSorted) {
+            buildRuns();
+            initHeap();
+            isSorted = true;
+        }
+
+        if (topRun != -1) {
+            // Move on to the next row of the run returned last time.
+            final long position = runPositions.getQuick(topRun) + Long.BYTES;
+            runPositions.setQuick(topRun, position);
+            if (position == runBounds.getQuick(2 * topRun + 1)) {
+                // The run is exhausted, so replace it with the last heap element.
+                final int last = heap.size() - 1;
+                heap.setQuick(0, heap.getQuick(last));
+                heap.setPos(last);
+            }
+            siftDown(0);
+            topRun = -1;
+        }
+
+        if (heap.size() > 0) {
+            topRun = heap.getQuick(0);
+            position(record, runs.getLong(runPositions.getQuick(topRun)));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        position((PageAddressCacheRecord) record, atRowId);
+    }
+
+    @Override
+    public long size() {
+        return isSorted ? rowCount : -1;
+    }
+
+    @Override
+    public void toTop() {
+        // The runs are kept, only the merge starts over.
+        if (isSorted) {
+            initHeap();
+        }
+    }
+
+    private static void position(PageAddressCacheRecord record, long rowId) {
+        record.setFrameIndex(Rows.toPartitionIndex(rowId));
+        record.setRowIndex(Rows.toLocalRowID(rowId));
+    }
+
+    private void buildRuns() {
+        final AsyncSortedLightAtom atom = frameSequence.getAtom();
+        frameSequence.prepareForDispatch();
+        frameLimit = frameSequence.getFrameCount() - 1;
+        atom.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+
+        long totalRowCount = 0;
+        for (int i = 0; i <= frameLimit; i++) {
+            totalRowCount += frameSequence.getFrameRowCount(i);
+        }
+        openRuns(totalRowCount * Long.BYTES);
+
+        try {
+            int frameIndex = -1;
+            do {
+                cursor = frameSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = frameSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(frameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(frameSequence.getFrameCount())
+                            .$(", frameId=").$(frameSequence.getId())
+                            .$(", active=").$(frameSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+                    allFramesActive &= frameSequence.isActive();
+                    frameIndex = task.getFrameIndex();
+                    if (frameSequence.isActive()) {
+                        final DirectLongList rows = task.getRows();
+                        final long runSize = rows.size() * Long.BYTES;
+                        if (runSize > 0) {
+                            final long runStart = runs.getAppendOffset();
+                            runs.putBlockOfBytes(rows.getAddress(), runSize);
+                            // large frames are sorted in chunks of treeMaxRows rows, one run per chunk
+                            final long maxRunSize = treeMaxRows * Long.BYTES;
+                            for (long lo = 0; lo < runSize; lo += maxRunSize) {
+                                runBounds.add(runStart + lo, runStart + Math.min(lo + maxRunSize, runSize));
+                            }
+                            rowCount += rows.size();
+                        }
+                    }
+                    collectCursor(false);
+                } else if (cursor == -2) {
+                    break; // No frames to sort
+                } else {
+                    Os.pause();
+                }
+            } while (frameIndex < frameLimit);
+        } catch (Throwable e) {
+            LOG.critical().$("unexpected error [ex=").$(e).I$();
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+
+        if (!allFramesActive) {
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+    }
+
+    private void closeRuns() {
+        if (isSpilled) {
+            spillRuns.close(false);
+            if (!ff.remove(path)) {
+                LOG.error().$("could not remove sort spill file [path=").$(path).$(", errno=").$(ff.errno()).I$();
+            }
+            isSpilled = false;
+        }
+        heapRuns.close();
+        runs = null;
+    }
+
+    private void collectCursor(boolean forceCollect) {
+        if (cursor > -1) {
+            frameSequence.collect(cursor, forceCollect);
+            // It is necessary to clear 'cursor' value
+            // because we updated frameIndex and loop can exit due to lack of frames.
+            // Non-update of 'cursor' could cause double-free.
+            cursor = -1;
+        }
+    }
+
+    private void initHeap() {
+        final int runCount = runBounds.size() / 2;
+        runPositions.setPos(runCount);
+        heap.setPos(runCount);
+        for (int i = 0; i < runCount; i++) {
+            runPositions.setQuick(i, runBounds.getQuick(2 * i));
+            heap.setQuick(i, i);
+        }
+        for (int i = runCount / 2 - 1; i > -1; i--) {
+            siftDown(i);
+        }
+        topRun = -1;
+    }
+
+    /**
+     * Returns true if the current row of run A goes before the current row of run B.
+     * Rows are compared the same way as {@link LongTreeChain} does it, i.e. the row
+     * that comes later in the scan order is the left one. Ties are resolved in favour
+     * of the later row, so that equal rows come in the reverse scan order.
+     */
+    private boolean isBefore(int runA, int runB) {
+        final long rowIdA = runs.getLong(runPositions.getQuick(runA));
+        final long rowIdB = runs.getLong(runPositions.getQuick(runB));
+        final boolean isALater = rowIdA > rowIdB;
+        position(leftRecord, isALater ? rowIdA : rowIdB);
+        position(rightRecord, isALater ? rowIdB : rowIdA);
+        comparator.setLeft(leftRecord);
+        final boolean isLaterBefore = comparator.compare(rightRecord) <= 0;
+        return isALater == isLaterBefore;
+    }
+
+    private void openRuns(long size) {
+        if (size > spillThreshold) {
+            path.of(spillRoot).slash$();
+            if (ff.mkdirs(path, mkDirMode) != 0) {
+                throw CairoException.critical(ff.errno()).put("could not create sort spill directory [path=").put(path).put(']');
+            }
+            path.of(spillRoot).concat(AsyncSortedLightRecordCursorFactory.SPILL_FILE_PREFIX).put(frameSequence.getId())
+                    .put(AsyncSortedLightRecordCursorFactory.SPILL_FILE_SUFFIX).$();
+            LOG.info().$("spilling sorted runs [path=").$(path).$(", size=").$(size).I$();
+            spillRuns.of(ff, path, spillExtendSegmentSize, size, MemoryTag.MMAP_DEFAULT, writerFileOpenOpts);
+            isSpilled = true;
+            runs = spillRuns;
+        } else {
+            heapRuns.jumpTo(0);
+            heapRuns.extend(size);
+            runs = heapRuns;
+        }
+    }
+
+    private void siftDown(int index) {
+        final int size = heap.size();
+        while (true) {
+            final int left = 2 * index + 1;
+            if (left >= size) {
+                break;
+            }
+            int child = left;
+            if (left + 1 < size && isBefore(heap.getQuick(left + 1), heap.getQuick(left))) {
+                child = left + 1;
+            }
+            final int run = heap.getQuick(index);
+            final int childRun = heap.getQuick(child);
+            if (!isBefore(childRun, run)) {
+                break;
+            }
+            heap.setQuick(index, childRun);
+            heap.setQuick(child, run);
+            index = child;
+        }
+    }
+
+    void of(PageFrameSequence<AsyncSortedLightAtom> frameSequence) {
+        this.frameSequence = frameSequence;
+        record.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+        recordB.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+        leftRecord.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+        rightRecord.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+        runBounds.clear();
+        heap.clear();
+        frameLimit = -1;
+        rowCount = 0;
+        topRun = -1;
+        allFramesActive = true;
+        isSorted = false;
+        isOpen = true;
+    }
+}
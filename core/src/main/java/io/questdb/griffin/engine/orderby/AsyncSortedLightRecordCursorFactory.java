@@ -0,0 +1,228 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ListColumnFilter;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.Chars;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.Transient;
+import io.questdb.std.WeakClosableObjectPool;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
+/**
+ * ORDER BY that sorts page frames in parallel and then merges the sorted runs.
+ * The result is the same as the one of {@link SortedLightRecordCursorFactory},
+ * including the order of the rows with equal sort keys.
+ */
+public class AsyncSortedLightRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    public static final String SPILL_FILE_PREFIX = "sort_";
+    public static final String SPILL_FILE_SUFFIX = ".d";
+    private static final Log LOG = LogFactory.getLog(AsyncSortedLightRecordCursorFactory.class);
+    private static final PageFrameReducer REDUCER = AsyncSortedLightRecordCursorFactory::sort;
+    private final AsyncSortedLightAtom atom;
+    private final RecordCursorFactory base;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncSortedLightRecordCursor cursor;
+    private final PageFrameSequence<AsyncSortedLightAtom> frameSequence;
+    private final ListColumnFilter sortColumnFilter;
+    private final int workerCount;
+
+    public AsyncSortedLightRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordMetadata metadata,
+            @NotNull RecordCursorFactory base,
+            @NotNull RecordComparator comparator,
+            @NotNull ListColumnFilter sortColumnFilter,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool,
+            int workerCount
+    ) {
+        super(metadata);
+        this.base = base;
+        this.sortColumnFilter = sortColumnFilter;
+        this.workerCount = workerCount;
+        this.atom = new AsyncSortedLightAtom(configuration, comparator, workerCount);
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+        this.cursor = new AsyncSortedLightRecordCursor(configuration, RecordComparatorCompiler.newInstance(comparator));
+    }
+
+    /**
+     * Removes spill files left in the spill directory by a previous run of the
+     * database, e.g. after a crash. Must be called on startup, before any query
+     * is executed, since the spill files of running queries are removed as well.
+     *
+     * @param configuration configuration to take the spill directory from
+     */
+    public static void removeStaleSpillFiles(CairoConfiguration configuration) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final NativeLPSZ name = new NativeLPSZ();
+        try (Path path = new Path().of(configuration.getSqlSortSpillRoot()).slash$()) {
+            final int rootLen = path.length();
+            ff.iterateDir(path, (pUtf8NameZ, type) -> {
+                if (type == Files.DT_FILE && Files.notDots(pUtf8NameZ)) {
+                    name.of(pUtf8NameZ);
+                    if (Chars.startsWith(name, SPILL_FILE_PREFIX) && Chars.endsWith(name, SPILL_FILE_SUFFIX)) {
+                        path.trimTo(rootLen).concat(pUtf8NameZ).$();
+                        if (ff.remove(path)) {
+                            LOG.info().$("removed stale sort spill file [path=").$(path).I$();
+                        } else {
+                            LOG.error().$("could not remove stale sort spill file [path=").$(path).$(", errno=").$(ff.errno()).I$();
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final PageFrameSequence<AsyncSortedLightAtom> frameSequence = this.frameSequence.of(
+                base,
+                executionContext,
+                collectSubSeq,
+                atom,
+                ORDER_ASC
+        );
+        try {
+            cursor.of(frameSequence);
+            return cursor;
+        } catch (Throwable e) {
+            frameSequence.clear();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getScanDirection() {
+        return SortedRecordCursorFactory.getScanDirection(sortColumnFilter);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(TableToken tableToken) {
+        return base.supportsUpdateRowId(tableToken);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Async Sort light");
+        SortedLightRecordCursorFactory.addSortKeys(sink, sortColumnFilter);
+        sink.attr("workers").val(workerCount);
+        sink.child(base);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    private static void sort(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncSortedLightAtom atom = task.getFrameSequence(AsyncSortedLightAtom.class).getAtom();
+        // row ids of the frame in the sort order
+        final DirectLongList rows = task.getRows();
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+        final int slotId = atom.acquire(workerId, owner, circuitBreaker);
+        final LongTreeChain chain = atom.getChain(slotId);
+        final RecordComparator comparator = atom.getComparator(slotId);
+        final PageAddressCacheRecord placeHolderRecord = atom.getRecord(slotId);
+        try {
+            placeHolderRecord.setFrameIndex(task.getFrameIndex());
+            // Large frames are sorted in chunks of at most treeMaxRows rows, so that
+            // the tree memory stays bounded. Each chunk becomes a separate sorted run.
+            final long treeMaxRows = atom.getTreeMaxRows();
+            for (long lo = 0; lo < frameRowCount; lo += treeMaxRows) {
+                chain.clear();
+                final long hi = Math.min(lo + treeMaxRows, frameRowCount);
+                for (long r = lo; r < hi; r++) {
+                    record.setRowIndex(r);
+                    chain.put(record, placeHolderRecord, comparator);
+                }
+
+                final LongTreeChain.TreeCursor chainCursor = chain.getCursor();
+                while (chainCursor.hasNext()) {
+                    rows.add(chainCursor.next());
+                }
+            }
+        } finally {
+            chain.clear();
+            atom.release(slotId);
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+        Misc.free(cursor);
+        cursor.freeResources();
+        Misc.free(atom);
+        Misc.free(frameSequence);
+    }
+}
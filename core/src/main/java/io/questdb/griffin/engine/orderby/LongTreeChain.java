@@ -25,6 +25,7 @@
 package io.questdb.griffin.engine.orderby;
 
 import io.questdb.cairo.Reopenable;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.vm.Vm;
@@ -33,6 +34,7 @@ import io.questdb.griffin.engine.AbstractRedBlackTree;
 import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
+import io.questdb.std.Rows;
 
 public class LongTreeChain extends AbstractRedBlackTree implements Reopenable {
     private final TreeCursor cursor = new TreeCursor();
@@ -105,9 +107,61 @@ public class LongTreeChain extends AbstractRedBlackTree implements Reopenable {
         fixInsert(p);
     }
 
+    /**
+     * Inserts the row of a page frame. Unlike {@link #put(Record, RecordCursor, Record, RecordComparator)},
+     * no cursor is needed to compare the row with the ones already in the tree: both records point
+     * to the same frame, so the right record is positioned by the row index.
+     *
+     * @param leftRecord  record positioned on the row to insert
+     * @param rightRecord record used to read the rows already in the tree
+     * @param comparator  record comparator
+     */
+    public void put(
+            PageAddressCacheRecord leftRecord,
+            PageAddressCacheRecord rightRecord,
+            RecordComparator comparator
+    ) {
+        if (root == -1) {
+            putParent(leftRecord.getRowId());
+            return;
+        }
+
+        comparator.setLeft(leftRecord);
+
+        long p = root;
+        long parent;
+        int cmp;
+        do {
+            parent = p;
+            final long r = refOf(p);
+            rightRecord.setRowIndex(Rows.toLocalRowID(valueChain.getLong(r)));
+            cmp = comparator.compare(rightRecord);
+            if (cmp < 0) {
+                p = leftOf(p);
+            } else if (cmp > 0) {
+                p = rightOf(p);
+            } else {
+                setRef(p, appendValue(leftRecord.getRowId(), r));
+                return;
+            }
+        } while (p > -1);
+
+        p = allocateBlock();
+        setParent(p, parent);
+
+        setRef(p, appendValue(leftRecord.getRowId(), -1L));
+
+        if (cmp < 0) {
+            setLeft(parent, p);
+        } else {
+            setRight(parent, p);
+        }
+        fixInsert(p);
+    }
+
     @Override
     public void reopen() {
-        //nothing to do here
+        super.reopen();
     }
 
     private long appendValue(long value, long prevValueOffset) {
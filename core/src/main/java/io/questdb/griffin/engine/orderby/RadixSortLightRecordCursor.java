@@ -0,0 +1,192 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * Sorts rows by a single fixed-width integer key. The cursor collects (key, rowId)
+ * pairs, where the key is mapped to an unsigned long that preserves the sort order,
+ * and radix sorts the pairs natively.
+ * <p>
+ * The pairs are reversed before the sort. Radix sort is stable, so rows with equal
+ * keys come in the reverse scan order, same as {@link SortedLightRecordCursor} returns them.
+ */
+class RadixSortLightRecordCursor implements DelegatingRecordCursor {
+    private final int columnIndex;
+    private final int columnType;
+    private final DirectLongList copy;
+    private final long descMask;
+    private final DirectLongList index;
+    private RecordCursor base;
+    private Record baseRecord;
+    private SqlExecutionCircuitBreaker circuitBreaker;
+    private boolean isOpen;
+    private boolean isSorted;
+    private long pos;
+    private long rowCount;
+
+    public RadixSortLightRecordCursor(DirectLongList index, DirectLongList copy, int columnType, int sortColumn) {
+        this.index = index;
+        this.copy = copy;
+        this.columnType = columnType;
+        this.columnIndex = (sortColumn > 0 ? sortColumn : -sortColumn) - 1;
+        // inverting all bits of the key reverses its order
+        this.descMask = sortColumn > 0 ? 0 : -1L;
+        this.isOpen = true;
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            Misc.free(index);
+            Misc.free(copy);
+            base = Misc.free(base);
+            baseRecord = null;
+        }
+    }
+
+    @Override
+    public Record getRecord() {
+        return baseRecord;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return base.getRecordB();
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isSorted) {
+            sort();
+            isSorted = true;
+        }
+        if (pos < rowCount) {
+            base.recordAt(baseRecord, index.get(2 * pos++ + 1));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return base.newSymbolTable(columnIndex);
+    }
+
+    @Override
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        if (!isOpen) {
+            index.reopen();
+            copy.reopen();
+            isOpen = true;
+        }
+
+        this.base = base;
+        baseRecord = base.getRecord();
+        circuitBreaker = executionContext.getCircuitBreaker();
+        isSorted = false;
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public long size() {
+        return base.size();
+    }
+
+    @Override
+    public void toTop() {
+        pos = 0;
+    }
+
+    private long getKey(Record record) {
+        // flipping the sign bit maps signed values to unsigned ones in the same order
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                return record.getByte(columnIndex) ^ Long.MIN_VALUE;
+            case ColumnType.SHORT:
+                return record.getShort(columnIndex) ^ Long.MIN_VALUE;
+            case ColumnType.CHAR:
+                return record.getChar(columnIndex);
+            case ColumnType.INT:
+                return record.getInt(columnIndex) ^ Long.MIN_VALUE;
+            case ColumnType.DATE:
+                return record.getDate(columnIndex) ^ Long.MIN_VALUE;
+            case ColumnType.TIMESTAMP:
+                return record.getTimestamp(columnIndex) ^ Long.MIN_VALUE;
+            default:
+                return record.getLong(columnIndex) ^ Long.MIN_VALUE;
+        }
+    }
+
+    private void sort() {
+        index.clear();
+        while (base.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            index.add(getKey(baseRecord) ^ descMask);
+            index.add(baseRecord.getRowId());
+        }
+        rowCount = index.size() / 2;
+
+        // reverse the scan order of the pairs
+        final long address = index.getAddress();
+        for (long lo = 0, hi = rowCount - 1; lo < hi; lo++, hi--) {
+            final long loAddress = address + (lo << 4);
+            final long hiAddress = address + (hi << 4);
+            final long key = Unsafe.getUnsafe().getLong(loAddress);
+            final long rowId = Unsafe.getUnsafe().getLong(loAddress + Long.BYTES);
+            Unsafe.getUnsafe().putLong(loAddress, Unsafe.getUnsafe().getLong(hiAddress));
+            Unsafe.getUnsafe().putLong(loAddress + Long.BYTES, Unsafe.getUnsafe().getLong(hiAddress + Long.BYTES));
+            Unsafe.getUnsafe().putLong(hiAddress, key);
+            Unsafe.getUnsafe().putLong(hiAddress + Long.BYTES, rowId);
+        }
+
+        if (rowCount > 1) {
+            if (copy.getCapacity() < index.size()) {
+                copy.setCapacity(index.size());
+            }
+            Vect.radixSortLongIndexAscInPlace(address, rowCount, copy.getAddress());
+        }
+        toTop();
+    }
+}
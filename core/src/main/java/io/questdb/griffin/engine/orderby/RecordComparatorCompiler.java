@@ -30,6 +30,7 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.SqlParser;
 import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.std.*;
+import io.questdb.std.ex.BytecodeException;
 
 public class RecordComparatorCompiler {
     private final BytecodeAssembler asm;
@@ -47,6 +48,21 @@ public class RecordComparatorCompiler {
         this.asm = asm;
     }
 
+    /**
+     * Creates one more instance of the given compiled comparator. Comparators cache
+     * values of the left record, so each thread has to use its own instance.
+     *
+     * @param comparator comparator returned by {@link #compile(ColumnTypes, IntList)}
+     * @return new RecordComparator instance of the same class
+     */
+    public static RecordComparator newInstance(RecordComparator comparator) {
+        try {
+            return comparator.getClass().getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw BytecodeException.INSTANCE;
+        }
+    }
+
     /**
      * Generates byte code for record comparator. To avoid frequent calls to
      * record field getters comparator caches values of left argument.
@@ -85,7 +85,8 @@ abstract class AbstractDescendingRecordListCursor extends AbstractDataFrameRecor
 
     @Override
     public long size() {
-        return rows.size();
+        // the row list is built lazily, so the size is unknown till then
+        return isTreeMapBuilt ? rows.size() : -1;
     }
 
     @Override
@@ -0,0 +1,367 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Page frame cursor over the output of a parallel filter. Each frame returned by this cursor
+ * contains only the rows selected by the filter. Values of fixed-size columns are gathered
+ * into contiguous buffers on demand, so that they can be fed to vectorized aggregate functions.
+ * <p>
+ * Each frame is gathered into one of several buffer sets, which are used in round-robin
+ * order. This lets the caller hand frames over to other threads, as long as all work on
+ * the earlier frames is finished before a buffer set is reused, see {@link #isBufferSetReused()}.
+ * Column values must be gathered, i.e. {@link PageFrame#getPageAddress(int)} called, before
+ * the next call to {@link #next()}, since the row ids of the frame are released by it.
+ */
+public class AsyncFilteredPageFrameCursor implements PageFrameCursor {
+
+    private static final Log LOG = LogFactory.getLog(AsyncFilteredPageFrameCursor.class);
+    // vectorized aggregate functions may read past the end of the data, e.g. max(int) reads in 16 int chunks,
+    // so each gathered buffer is followed by this many bytes of column type's null values
+    private static final int PADDING_SIZE = 64;
+    private static final String exceptionMessage = "timeout, query aborted";
+    private final LongList columnAddresses = new LongList();
+    // buffers of all buffer sets, the buffer of column i in set k is stored at k * columnCount + i
+    private final ObjList<DirectLongList> columnBuffers = new ObjList<>();
+    private final LongList columnFrameStamps = new LongList();
+    private final IntList columnShrs = new IntList();
+    private final IntList columnTypes = new IntList();
+    private final FilteredPageFrame frame = new FilteredPageFrame();
+    private final int bufferSetCount;
+    private final long initialBufferCapacity;
+    private boolean allFramesActive;
+    private int bufferSet;
+    private int columnCount;
+    private long cursor = -1;
+    private int frameIndex;
+    private int frameLimit;
+    private long frameStamp;
+    private PageFrameSequence<?> frameSequence;
+    private boolean isOpen;
+    private DirectLongList rows;
+
+    public AsyncFilteredPageFrameCursor(long initialBufferCapacity, int bufferSetCount) {
+        this.initialBufferCapacity = initialBufferCapacity;
+        this.bufferSetCount = Math.max(1, bufferSetCount);
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            if (frameSequence != null) {
+                collectCursor(true);
+                if (frameLimit > -1) {
+                    frameSequence.await();
+                }
+                frameSequence.clear();
+            }
+            isOpen = false;
+        }
+    }
+
+    public void freeBuffers() {
+        Misc.freeObjList(columnBuffers);
+        columnBuffers.clear();
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public long getUpdateRowId(long rowIndex) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns true when the current frame is gathered into the buffer set that earlier
+     * frames used. The caller must make sure that nothing reads values of the earlier
+     * frames before it accesses column values of the current one.
+     *
+     * @return true when buffers of the earlier frames are about to be overwritten
+     */
+    public boolean isBufferSetReused() {
+        return frameStamp > bufferSetCount && bufferSet == 0;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+    }
+
+    @Override
+    public @Nullable PageFrame next() {
+        if (frameLimit == -2) {
+            frameSequence.prepareForDispatch();
+            frameLimit = frameSequence.getFrameCount() - 1;
+        }
+
+        collectCursor(false);
+        if (frameIndex < frameLimit) {
+            fetchNextFrame();
+            if (cursor > -1) {
+                bufferSet = (int) (frameStamp % bufferSetCount);
+                frameStamp++;
+                return frame;
+            }
+        }
+        if (!allFramesActive) {
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+        return null;
+    }
+
+    public AsyncFilteredPageFrameCursor of(PageFrameSequence<?> frameSequence, RecordMetadata metadata) {
+        isOpen = true;
+        this.frameSequence = frameSequence;
+        columnCount = metadata.getColumnCount();
+        columnShrs.clear();
+        columnTypes.clear();
+        columnAddresses.clear();
+        columnFrameStamps.clear();
+        for (int i = 0; i < columnCount; i++) {
+            // variable-size columns are never gathered, their size only matters to
+            // count() aggregates, which divide the page size by the same shift
+            final int columnType = metadata.getColumnType(i);
+            final int shr = ColumnType.pow2SizeOf(columnType);
+            columnShrs.add(shr > -1 ? shr : 3);
+            columnTypes.add(columnType);
+            columnAddresses.add(0);
+            columnFrameStamps.add(-1);
+        }
+        frameStamp = 0;
+        bufferSet = 0;
+        frameIndex = -1;
+        // -2 means that the frames are yet to be dispatched
+        frameLimit = -2;
+        cursor = -1;
+        allFramesActive = true;
+        return this;
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        if (frameIndex == -1) {
+            return;
+        }
+        collectCursor(false);
+        frameSequence.toTop();
+        frameIndex = -1;
+        allFramesActive = true;
+    }
+
+    private static void gather(long srcAddress, long dstAddress, DirectLongList rows, long rowCount, int shr) {
+        switch (shr) {
+            case 0:
+                for (long i = 0; i < rowCount; i++) {
+                    Unsafe.getUnsafe().putByte(dstAddress + i, Unsafe.getUnsafe().getByte(srcAddress + rows.get(i)));
+                }
+                break;
+            case 1:
+                for (long i = 0; i < rowCount; i++) {
+                    Unsafe.getUnsafe().putShort(dstAddress + (i << 1), Unsafe.getUnsafe().getShort(srcAddress + (rows.get(i) << 1)));
+                }
+                break;
+            case 2:
+                for (long i = 0; i < rowCount; i++) {
+                    Unsafe.getUnsafe().putInt(dstAddress + (i << 2), Unsafe.getUnsafe().getInt(srcAddress + (rows.get(i) << 2)));
+                }
+                break;
+            case 3:
+                for (long i = 0; i < rowCount; i++) {
+                    Unsafe.getUnsafe().putLong(dstAddress + (i << 3), Unsafe.getUnsafe().getLong(srcAddress + (rows.get(i) << 3)));
+                }
+                break;
+            default:
+                // 128-bit and 256-bit values are copied long by long
+                final int longs = 1 << (shr - 3);
+                for (long i = 0; i < rowCount; i++) {
+                    final long src = srcAddress + (rows.get(i) << shr);
+                    final long dst = dstAddress + (i << shr);
+                    for (int k = 0; k < longs; k++) {
+                        Unsafe.getUnsafe().putLong(dst + ((long) k << 3), Unsafe.getUnsafe().getLong(src + ((long) k << 3)));
+                    }
+                }
+                break;
+        }
+    }
+
+    private static void padWithNulls(long address, int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+                Vect.setMemoryInt(address, Numbers.INT_NaN, PADDING_SIZE / Integer.BYTES);
+                break;
+            case ColumnType.FLOAT:
+                Vect.setMemoryFloat(address, Float.NaN, PADDING_SIZE / Float.BYTES);
+                break;
+            case ColumnType.DOUBLE:
+                Vect.setMemoryDouble(address, Double.NaN, PADDING_SIZE / Double.BYTES);
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.LONG256:
+                Vect.setMemoryLong(address, Numbers.LONG_NaN, PADDING_SIZE / Long.BYTES);
+                break;
+            default:
+                Vect.memset(address, PADDING_SIZE, 0);
+                break;
+        }
+    }
+
+    private void collectCursor(boolean forceCollect) {
+        if (cursor > -1) {
+            frameSequence.collect(cursor, forceCollect);
+            // It is necessary to clear 'cursor' value
+            // because we updated frameIndex and loop can exit due to lack of frames.
+            // Non-update of 'cursor' could cause double-free.
+            cursor = -1;
+        }
+    }
+
+    private void fetchNextFrame() {
+        try {
+            do {
+                cursor = frameSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = frameSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(frameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(frameSequence.getFrameCount())
+                            .$(", frameId=").$(frameSequence.getId())
+                            .$(", active=").$(frameSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+                    allFramesActive &= frameSequence.isActive();
+                    rows = task.getRows();
+                    frameIndex = task.getFrameIndex();
+                    if (rows.size() > 0 && frameSequence.isActive()) {
+                        break;
+                    }
+                    collectCursor(false);
+                } else if (cursor == -2) {
+                    break; // No frames to filter
+                } else {
+                    Os.pause();
+                }
+            } while (frameIndex < frameLimit);
+        } catch (Throwable e) {
+            LOG.critical().$("unexpected error [ex=").$(e).I$();
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+    }
+
+    private long gatherColumn(int columnIndex) {
+        columnFrameStamps.setQuick(columnIndex, frameStamp);
+        final long srcAddress = frameSequence.getPageAddressCache().getPageAddress(frameIndex, columnIndex);
+        if (srcAddress == 0) {
+            // column top, there is nothing to gather
+            columnAddresses.setQuick(columnIndex, 0);
+            return 0;
+        }
+
+        final int bufferIndex = bufferSet * columnCount + columnIndex;
+        DirectLongList buffer = columnBuffers.getQuiet(bufferIndex);
+        if (buffer == null) {
+            buffer = new DirectLongList(initialBufferCapacity, MemoryTag.NATIVE_OFFLOAD);
+            columnBuffers.extendAndSet(bufferIndex, buffer);
+        }
+
+        final int shr = columnShrs.getQuick(columnIndex);
+        final long rowCount = rows.size();
+        final long capacity = ((rowCount << shr) + PADDING_SIZE + Long.BYTES - 1) >>> 3;
+        if (buffer.getCapacity() < capacity) {
+            buffer.setCapacity(capacity);
+        }
+        gather(srcAddress, buffer.getAddress(), rows, rowCount, shr);
+        padWithNulls(buffer.getAddress() + (rowCount << shr), columnTypes.getQuick(columnIndex));
+        columnAddresses.setQuick(columnIndex, buffer.getAddress());
+        return buffer.getAddress();
+    }
+
+    private class FilteredPageFrame implements PageFrame {
+
+        @Override
+        public BitmapIndexReader getBitmapIndexReader(int columnIndex, int dirForward) {
+            return null;
+        }
+
+        @Override
+        public int getColumnShiftBits(int columnIndex) {
+            return columnShrs.getQuick(columnIndex);
+        }
+
+        @Override
+        public long getIndexPageAddress(int columnIndex) {
+            return 0;
+        }
+
+        @Override
+        public long getPageAddress(int columnIndex) {
+            if (columnFrameStamps.getQuick(columnIndex) == frameStamp) {
+                return columnAddresses.getQuick(columnIndex);
+            }
+            return gatherColumn(columnIndex);
+        }
+
+        @Override
+        public long getPageSize(int columnIndex) {
+            return rows.size() << columnShrs.getQuick(columnIndex);
+        }
+
+        @Override
+        public long getPartitionHi() {
+            return rows.size();
+        }
+
+        @Override
+        public int getPartitionIndex() {
+            return frameIndex;
+        }
+
+        @Override
+        public long getPartitionLo() {
+            return 0;
+        }
+    }
+}
@@ -152,6 +152,11 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
         return base.recordCursorSupportsRandomAccess();
     }
 
+    @Override
+    public boolean supportFilteredPageFrameSequence() {
+        return limitLoFunction == null;
+    }
+
     @Override
     public boolean supportsUpdateRowId(TableToken tableToken) {
         return base.supportsUpdateRowId(tableToken);
@@ -0,0 +1,384 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.map.MapValueMergeFunction;
+import io.questdb.cairo.map.ShardedFastMapCursor;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.sql.async.ShardMergeAtom;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.groupby.GroupByFunctionsUpdater;
+import io.questdb.griffin.engine.groupby.GroupByFunctionsUpdaterFactory;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Chars;
+import io.questdb.std.FlyweightMessageContainer;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Holds the state shared by the workers participating in a parallel GROUP BY.
+ * <p>
+ * Each worker aggregates page frames into its own partial map, so that no
+ * synchronization is needed in the hot loop. The query owner thread has its
+ * own map which is used as the merge destination once all page frames are
+ * reduced.
+ * <p>
+ * When partial maps hold many keys, merging them on a single thread becomes
+ * the bottleneck. In this case keys are split into shards by their hash code
+ * and each shard is merged into a separate map, so that shards can be merged
+ * by multiple threads with no synchronization. Shard maps have disjoint key
+ * sets, so the result is then iterated over with {@link ShardedFastMapCursor}.
+ * <p>
+ * The same machinery is used for SAMPLE BY with no fill. In this case the last
+ * map key holds the sample timestamp and the first map value holds the id of
+ * the first row that belongs to the group, so that the result can be returned
+ * in the same order as the serial SAMPLE BY does.
+ */
+public class AsyncGroupByAtom implements StatefulAtom, ShardMergeAtom, Closeable, Mutable {
+
+    private static final int MIN_SHARD_COUNT_BITS = 4;
+    private final GroupByFunctionsUpdater functionUpdater;
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final RecordSink mapSink;
+    private final MapValueMergeFunction mergeFunction;
+    private final FastMap ownerMap;
+    private final ObjList<GroupByFunctionsUpdater> perWorkerFunctionUpdaters;
+    private final ObjList<ObjList<GroupByFunction>> perWorkerGroupByFunctions;
+    private final PerWorkerLocks perWorkerLocks;
+    private final ObjList<FastMap> perWorkerMaps;
+    private final int shardCountBits;
+    private final ObjList<FastMap> shardMaps;
+    private final ShardedFastMapCursor shardedCursor;
+    private final int shardingThreshold;
+    private final int timestampIndex;
+    private final TimestampSampler timestampSampler;
+    private volatile String shardMergeError;
+
+    public AsyncGroupByAtom(
+            @Transient @NotNull BytecodeAssembler asm,
+            @NotNull CairoConfiguration configuration,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            @NotNull ObjList<GroupByFunction> groupByFunctions,
+            @Nullable ObjList<ObjList<GroupByFunction>> perWorkerGroupByFunctions,
+            @NotNull RecordSink mapSink,
+            @Nullable TimestampSampler timestampSampler,
+            int timestampIndex,
+            int workerCount
+    ) {
+        assert perWorkerGroupByFunctions == null || perWorkerGroupByFunctions.size() == workerCount;
+        try {
+            this.groupByFunctions = groupByFunctions;
+            this.perWorkerGroupByFunctions = perWorkerGroupByFunctions;
+            this.mapSink = mapSink;
+            this.timestampSampler = timestampSampler;
+            this.timestampIndex = timestampIndex;
+            functionUpdater = GroupByFunctionsUpdaterFactory.getInstance(asm, groupByFunctions);
+            if (perWorkerGroupByFunctions != null) {
+                perWorkerFunctionUpdaters = new ObjList<>(workerCount);
+                for (int i = 0; i < workerCount; i++) {
+                    perWorkerFunctionUpdaters.extendAndSet(i, GroupByFunctionsUpdaterFactory.getInstance(asm, perWorkerGroupByFunctions.getQuick(i)));
+                }
+            } else {
+                perWorkerFunctionUpdaters = null;
+            }
+            mergeFunction = this::merge;
+            perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
+            ownerMap = new FastMap(
+                    configuration.getSqlMapPageSize(),
+                    keyTypes,
+                    valueTypes,
+                    configuration.getSqlMapKeyCapacity(),
+                    configuration.getSqlFastMapLoadFactor(),
+                    configuration.getSqlMapMaxResizes()
+            );
+            perWorkerMaps = new ObjList<>(workerCount);
+            for (int i = 0; i < workerCount; i++) {
+                // Partial maps start small and grow on demand, so that
+                // idle workers don't hold on to large chunks of memory.
+                perWorkerMaps.extendAndSet(
+                        i,
+                        new FastMap(
+                                configuration.getSqlSmallMapPageSize(),
+                                keyTypes,
+                                valueTypes,
+                                configuration.getSqlSmallMapKeyCapacity(),
+                                configuration.getSqlFastMapLoadFactor(),
+                                configuration.getSqlMapMaxResizes()
+                        )
+                );
+            }
+            shardingThreshold = configuration.getGroupByShardingThreshold();
+            shardCountBits = Math.max(MIN_SHARD_COUNT_BITS, Numbers.msb(Numbers.ceilPow2(workerCount)));
+            final int shardCount = 1 << shardCountBits;
+            shardMaps = new ObjList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                final FastMap shardMap = new FastMap(
+                        configuration.getSqlSmallMapPageSize(),
+                        keyTypes,
+                        valueTypes,
+                        configuration.getSqlSmallMapKeyCapacity(),
+                        configuration.getSqlFastMapLoadFactor(),
+                        configuration.getSqlMapMaxResizes()
+                );
+                shardMaps.extendAndSet(i, shardMap);
+                // Shard maps are only needed for large merges, so keep them closed till then.
+                shardMap.close();
+            }
+            shardedCursor = new ShardedFastMapCursor(ownerMap);
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Acquires a slot for the given worker. The returned slot id is then used
+     * to access the worker's partial map and functions.
+     *
+     * @param workerId       worker id, -1 for a query owner or a work stealing thread
+     * @param owner          true when called by the query owner thread
+     * @param circuitBreaker circuit breaker to check while waiting for a free slot
+     * @return slot id, -1 stands for the query owner slot
+     */
+    public int acquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            // Owner thread is free to use its own map anytime.
+            return -1;
+        }
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0, n = perWorkerMaps.size(); i < n; i++) {
+            Misc.free(perWorkerMaps.getQuick(i));
+        }
+        Misc.free(ownerMap);
+        for (int i = 0, n = shardMaps.size(); i < n; i++) {
+            Misc.free(shardMaps.getQuick(i));
+        }
+        shardMergeError = null;
+        if (perWorkerGroupByFunctions != null) {
+            for (int i = 0, n = perWorkerGroupByFunctions.size(); i < n; i++) {
+                Misc.clearObjList(perWorkerGroupByFunctions.getQuick(i));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(perWorkerMaps);
+        Misc.freeObjList(shardMaps);
+        Misc.free(ownerMap);
+        if (perWorkerGroupByFunctions != null) {
+            for (int i = 0, n = perWorkerGroupByFunctions.size(); i < n; i++) {
+                Misc.freeObjList(perWorkerGroupByFunctions.getQuick(i));
+            }
+        }
+    }
+
+    public GroupByFunctionsUpdater getFunctionUpdater(int slotId) {
+        if (slotId == -1 || perWorkerFunctionUpdaters == null) {
+            return functionUpdater;
+        }
+        return perWorkerFunctionUpdaters.getQuick(slotId);
+    }
+
+    public FastMap getMap(int slotId) {
+        final FastMap map = slotId == -1 ? ownerMap : perWorkerMaps.getQuick(slotId);
+        // Maps are released between query executions, so they have to be reopened lazily.
+        map.reopen();
+        return map;
+    }
+
+    public RecordSink getMapSink() {
+        return mapSink;
+    }
+
+    @Override
+    public int getShardCount() {
+        return shardMaps.size();
+    }
+
+    @Override
+    public String getShardMergeError() {
+        return shardMergeError;
+    }
+
+    /**
+     * Returns cursor over the shard maps. Must be called by the query owner thread
+     * once all shards are merged. Partial maps are not needed at this point, so
+     * their memory is released.
+     *
+     * @return cursor over the final aggregation result
+     */
+    public ShardedFastMapCursor getShardedCursor() {
+        for (int i = 0, n = perWorkerMaps.size(); i < n; i++) {
+            perWorkerMaps.getQuick(i).close();
+        }
+        ownerMap.close();
+        return shardedCursor.of(shardMaps);
+    }
+
+    public int getTimestampIndex() {
+        return timestampIndex;
+    }
+
+    public TimestampSampler getTimestampSampler() {
+        return timestampSampler;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        if (perWorkerGroupByFunctions != null) {
+            final boolean current = executionContext.getCloneSymbolTables();
+            executionContext.setCloneSymbolTables(true);
+            try {
+                for (int i = 0, n = perWorkerGroupByFunctions.size(); i < n; i++) {
+                    Function.init(perWorkerGroupByFunctions.getQuick(i), symbolTableSource, executionContext);
+                }
+            } finally {
+                executionContext.setCloneSymbolTables(current);
+            }
+        }
+    }
+
+    /**
+     * Checks whether partial maps are large enough for the sharded merge to pay off.
+     * Must be called by the query owner thread once all page frames are reduced.
+     *
+     * @return true when the partial maps should be merged shard by shard
+     */
+    public boolean isShardedMergeRequired() {
+        long totalSize = ownerMap.size();
+        int nonEmptyMaps = totalSize > 0 ? 1 : 0;
+        for (int i = 0, n = perWorkerMaps.size(); i < n; i++) {
+            final long size = perWorkerMaps.getQuick(i).size();
+            totalSize += size;
+            if (size > 0) {
+                nonEmptyMaps++;
+            }
+        }
+        return nonEmptyMaps > 1 && totalSize >= shardingThreshold;
+    }
+
+    /**
+     * Merges partial maps built by the workers into the owner map. Must be
+     * called by the query owner thread once all page frames are reduced.
+     *
+     * @param circuitBreaker circuit breaker to check between the merged maps
+     * @return the owner map that holds the final aggregation result
+     */
+    public FastMap mergeOwnerMap(SqlExecutionCircuitBreaker circuitBreaker) {
+        final FastMap destMap = getMap(-1);
+        for (int i = 0, n = perWorkerMaps.size(); i < n; i++) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            final FastMap srcMap = perWorkerMaps.getQuick(i);
+            if (srcMap.size() > 0) {
+                destMap.merge(srcMap, mergeFunction);
+                // The partial map is not needed anymore, so release its memory early.
+                srcMap.close();
+            }
+        }
+        return destMap;
+    }
+
+    /**
+     * Merges keys belonging to the given shard from all partial maps into the shard map.
+     * Different shards may be merged concurrently. Shard maps must be reopened with
+     * {@link #prepareShardedMerge()} beforehand.
+     *
+     * @param shardIndex index of the shard to merge
+     */
+    @Override
+    public void mergeShard(int shardIndex) {
+        final FastMap destMap = shardMaps.getQuick(shardIndex);
+        if (ownerMap.size() > 0) {
+            destMap.merge(ownerMap, mergeFunction, shardIndex, shardCountBits);
+        }
+        for (int i = 0, n = perWorkerMaps.size(); i < n; i++) {
+            final FastMap srcMap = perWorkerMaps.getQuick(i);
+            if (srcMap.size() > 0) {
+                destMap.merge(srcMap, mergeFunction, shardIndex, shardCountBits);
+            }
+        }
+    }
+
+    @Override
+    public void prepareShardedMerge() {
+        for (int i = 0, n = shardMaps.size(); i < n; i++) {
+            shardMaps.getQuick(i).reopen();
+        }
+        shardMergeError = null;
+    }
+
+    public void release(int slotId) {
+        perWorkerLocks.releaseSlot(slotId);
+    }
+
+    @Override
+    public void setShardMergeError(Throwable th) {
+        // Keep the first error only, subsequent ones are likely to be caused by it.
+        // Exceptions may be thread-local flyweights, so we copy the message.
+        if (shardMergeError == null) {
+            shardMergeError = th instanceof FlyweightMessageContainer
+                    ? Chars.toString(((FlyweightMessageContainer) th).getFlyweightMessage())
+                    : th.toString();
+        }
+    }
+
+    private void merge(MapValue destValue, MapValue srcValue) {
+        if (timestampSampler != null) {
+            // keep id of the first row of the group
+            final long srcRowId = srcValue.getLong(0);
+            if (srcRowId < destValue.getLong(0)) {
+                destValue.putLong(0, srcRowId);
+            }
+        }
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            groupByFunctions.getQuick(i).merge(destValue, srcValue);
+        }
+    }
+}
@@ -71,6 +71,9 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
             @NotNull Function filter,
             @Nullable ObjList<Function> perWorkerFilters,
             @NotNull CompiledFilter compiledFilter,
+            @Nullable Function jittedFilter,
+            @Nullable Function residualFilter,
+            @Nullable ObjList<Function> perWorkerResidualFilters,
             @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool,
             @Nullable Function limitLoFunction,
             int limitLoPos,
@@ -98,6 +101,9 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
                 filter,
                 perWorkerFilters,
                 compiledFilter,
+                jittedFilter,
+                residualFilter,
+                perWorkerResidualFilters,
                 bindVarMemory,
                 bindVarFunctions,
                 preTouchColumnTypes
@@ -170,6 +176,11 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         return true;
     }
 
+    @Override
+    public boolean supportFilteredPageFrameSequence() {
+        return limitLoFunction == null;
+    }
+
     @Override
     public boolean supportsUpdateRowId(TableToken tableToken) {
         return base.supportsUpdateRowId(tableToken);
@@ -202,7 +213,13 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         if (rowsRemaining != Long.MAX_VALUE) {
             sink.attr("limit").val(rowsRemaining);
         }
-        sink.attr("filter").val(filterAtom);
+        if (filterAtom.residualFilter != null) {
+            // filter is split into the compiled conjuncts and the ones evaluated in Java
+            sink.attr("filter").val(filterAtom.jittedFilter);
+            sink.attr("residual filter").val(filterAtom.residualFilter);
+        } else {
+            sink.attr("filter").val(filterAtom);
+        }
         sink.attr("workers").val(workerCount);
         sink.child(base, order);
     }
@@ -272,6 +289,26 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         );
         rows.setPos(hi);
 
+        // Apply the part of the filter that couldn't be compiled to the selected rows, if any.
+        if (atom.residualFilter != null && hi > 0) {
+            final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+            final int filterId = atom.acquireFilter(workerId, owner, circuitBreaker);
+            final Function residualFilter = atom.getResidualFilter(filterId);
+            try {
+                long p = 0;
+                for (long i = 0; i < hi; i++) {
+                    final long r = rows.get(i);
+                    record.setRowIndex(r);
+                    if (residualFilter.getBool(record)) {
+                        rows.set(p++, r);
+                    }
+                }
+                rows.setPos(p);
+            } finally {
+                atom.releaseFilter(filterId);
+            }
+        }
+
         // Pre-touch fixed-size columns, if asked.
         atom.preTouchColumns(record, rows);
     }
@@ -291,18 +328,28 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         final ObjList<Function> bindVarFunctions;
         final MemoryCARW bindVarMemory;
         final CompiledFilter compiledFilter;
+        // Java function of the compiled conjuncts when the filter is split, used in query plan only
+        final Function jittedFilter;
+        final ObjList<Function> perWorkerResidualFilters;
+        final Function residualFilter;
 
         public AsyncJitFilterAtom(
                 CairoConfiguration configuration,
                 Function filter,
                 ObjList<Function> perWorkerFilters,
                 CompiledFilter compiledFilter,
+                @Nullable Function jittedFilter,
+                @Nullable Function residualFilter,
+                @Nullable ObjList<Function> perWorkerResidualFilters,
                 MemoryCARW bindVarMemory,
                 ObjList<Function> bindVarFunctions,
                 @Nullable IntList preTouchColumnTypes
         ) {
             super(configuration, filter, perWorkerFilters, preTouchColumnTypes);
             this.compiledFilter = compiledFilter;
+            this.jittedFilter = jittedFilter;
+            this.residualFilter = residualFilter;
+            this.perWorkerResidualFilters = perWorkerResidualFilters;
             this.bindVarMemory = bindVarMemory;
             this.bindVarFunctions = bindVarFunctions;
         }
@@ -311,6 +358,9 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         public void close() {
             super.close();
             Misc.free(compiledFilter);
+            Misc.free(jittedFilter);
+            Misc.free(residualFilter);
+            Misc.freeObjList(perWorkerResidualFilters);
             Misc.free(bindVarMemory);
             Misc.freeObjList(bindVarFunctions);
         }
@@ -318,10 +368,40 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         @Override
         public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
             super.init(symbolTableSource, executionContext);
+            if (residualFilter != null) {
+                residualFilter.init(symbolTableSource, executionContext);
+            }
+            if (perWorkerResidualFilters != null) {
+                final boolean current = executionContext.getCloneSymbolTables();
+                executionContext.setCloneSymbolTables(true);
+                try {
+                    Function.init(perWorkerResidualFilters, symbolTableSource, executionContext);
+                } finally {
+                    executionContext.setCloneSymbolTables(current);
+                }
+            }
             Function.init(bindVarFunctions, symbolTableSource, executionContext);
             prepareBindVarMemory(symbolTableSource, executionContext);
         }
 
+        @Override
+        public void initCursor() {
+            super.initCursor();
+            if (residualFilter != null) {
+                residualFilter.initCursor();
+            }
+            if (perWorkerResidualFilters != null) {
+                Function.initCursor(perWorkerResidualFilters);
+            }
+        }
+
+        private Function getResidualFilter(int filterId) {
+            if (filterId == -1 || perWorkerResidualFilters == null) {
+                return residualFilter;
+            }
+            return perWorkerResidualFilters.getQuick(filterId);
+        }
+
         private void prepareBindVarMemory(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
             //don't trigger memory allocation if there are no variables 
             if (bindVarFunctions.size() > 0) {
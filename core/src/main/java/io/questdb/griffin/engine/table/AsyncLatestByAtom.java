@@ -0,0 +1,338 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.SingleColumnType;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.map.MapValueMergeFunction;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.sql.async.ShardMergeAtom;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.std.Chars;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.FlyweightMessageContainer;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Holds the state shared by the workers participating in a parallel LATEST BY.
+ * <p>
+ * Each worker scans its page frames backwards and keeps the id of the latest row
+ * of each key in its own map, so that no synchronization is needed in the hot loop.
+ * Page frames are reduced out of order, so the greater row id wins when a key is
+ * already in the map. Once all frames are reduced, partial maps are merged in the
+ * same way: either into the owner map or, for large maps, shard by shard in parallel.
+ */
+public class AsyncLatestByAtom implements StatefulAtom, ShardMergeAtom, Closeable, Mutable {
+
+    private static final int MIN_SHARD_COUNT_BITS = 4;
+    private static final SingleColumnType VALUE_TYPES = new SingleColumnType(ColumnType.LONG);
+    private final Function filter;
+    private final RecordSink mapSink;
+    private final MapValueMergeFunction mergeFunction = AsyncLatestByAtom::merge;
+    private final FastMap ownerMap;
+    private final ObjList<Function> perWorkerFilters;
+    private final PerWorkerLocks perWorkerLocks;
+    private final ObjList<FastMap> perWorkerMaps;
+    private final int shardCountBits;
+    private final ObjList<FastMap> shardMaps;
+    private final int shardingThreshold;
+    private boolean isShardedMerge;
+    private volatile String shardMergeError;
+
+    public AsyncLatestByAtom(
+            @NotNull CairoConfiguration configuration,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @NotNull RecordSink mapSink,
+            @Nullable Function filter,
+            @Nullable ObjList<Function> perWorkerFilters,
+            int workerCount
+    ) {
+        assert perWorkerFilters == null || perWorkerFilters.size() == workerCount;
+        this.mapSink = mapSink;
+        this.filter = filter;
+        this.perWorkerFilters = perWorkerFilters;
+        perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
+        perWorkerMaps = new ObjList<>(workerCount);
+        shardingThreshold = configuration.getGroupByShardingThreshold();
+        shardCountBits = Math.max(MIN_SHARD_COUNT_BITS, Numbers.msb(Numbers.ceilPow2(workerCount)));
+        final int shardCount = 1 << shardCountBits;
+        shardMaps = new ObjList<>(shardCount);
+        try {
+            ownerMap = newMap(configuration, keyTypes);
+            for (int i = 0; i < workerCount; i++) {
+                perWorkerMaps.extendAndSet(i, newMap(configuration, keyTypes));
+            }
+            for (int i = 0; i < shardCount; i++) {
+                shardMaps.extendAndSet(i, newMap(configuration, keyTypes));
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Acquires a slot for the given worker. The returned slot id is then used
+     * to access the worker's partial map and filter.
+     *
+     * @param workerId       worker id, -1 for a query owner or a work stealing thread
+     * @param owner          true when called by the query owner thread
+     * @param circuitBreaker circuit breaker to check while waiting for a free slot
+     * @return slot id, -1 stands for the query owner slot
+     */
+    public int acquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            // Owner thread is free to use its own map and the original filter anytime.
+            return -1;
+        }
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    @Override
+    public void clear() {
+        Misc.free(ownerMap);
+        for (int i = 0, n = perWorkerMaps.size(); i < n; i++) {
+            Misc.free(perWorkerMaps.getQuick(i));
+        }
+        for (int i = 0, n = shardMaps.size(); i < n; i++) {
+            Misc.free(shardMaps.getQuick(i));
+        }
+        isShardedMerge = false;
+        shardMergeError = null;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(ownerMap);
+        Misc.freeObjList(perWorkerMaps);
+        Misc.freeObjList(shardMaps);
+        Misc.free(filter);
+        Misc.freeObjList(perWorkerFilters);
+    }
+
+    /**
+     * Copies ids of the latest rows of all keys to the given list. Must be called by
+     * the query owner thread once the partial maps are merged.
+     *
+     * @param rows           destination list
+     * @param circuitBreaker circuit breaker to check while copying
+     */
+    public void copyRowIds(DirectLongList rows, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (isShardedMerge) {
+            for (int i = 0, n = shardMaps.size(); i < n; i++) {
+                copyRowIds(shardMaps.getQuick(i), rows, circuitBreaker);
+            }
+        } else {
+            copyRowIds(ownerMap, rows, circuitBreaker);
+        }
+    }
+
+    @Nullable
+    public Function getFilter(int slotId) {
+        if (slotId == -1 || perWorkerFilters == null) {
+            return filter;
+        }
+        return perWorkerFilters.getQuick(slotId);
+    }
+
+    public FastMap getMap(int slotId) {
+        final FastMap map = slotId == -1 ? ownerMap : perWorkerMaps.getQuick(slotId);
+        // Maps are released between query executions, so they have to be reopened lazily.
+        map.reopen();
+        return map;
+    }
+
+    public RecordSink getMapSink() {
+        return mapSink;
+    }
+
+    @Override
+    public int getShardCount() {
+        return shardMaps.size();
+    }
+
+    @Override
+    public String getShardMergeError() {
+        return shardMergeError;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        if (filter != null) {
+            filter.init(symbolTableSource, executionContext);
+        }
+        if (perWorkerFilters != null) {
+            final boolean current = executionContext.getCloneSymbolTables();
+            executionContext.setCloneSymbolTables(true);
+            try {
+                Function.init(perWorkerFilters, symbolTableSource, executionContext);
+            } finally {
+                executionContext.setCloneSymbolTables(current);
+            }
+        }
+    }
+
+    @Override
+    public void initCursor() {
+        if (filter != null) {
+            filter.initCursor();
+        }
+        if (perWorkerFilters != null) {
+            // Initialize all per-worker filters on the query owner thread to avoid
+            // DataUnavailableException thrown on worker threads when filtering.
+            Function.initCursor(perWorkerFilters);
+        }
+    }
+
+    /**
+     * Checks whether partial maps are large enough for the sharded merge to pay off.
+     * Must be called by the query owner thread once all page frames are reduced.
+     *
+     * @return true when the partial maps should be merged shard by shard
+     */
+    public boolean isShardedMergeRequired() {
+        long totalSize = ownerMap.size();
+        int nonEmptyMaps = totalSize > 0 ? 1 : 0;
+        for (int i = 0, n = perWorkerMaps.size(); i < n; i++) {
+            final long size = perWorkerMaps.getQuick(i).size();
+            totalSize += size;
+            if (size > 0) {
+                nonEmptyMaps++;
+            }
+        }
+        return nonEmptyMaps > 1 && totalSize >= shardingThreshold;
+    }
+
+    /**
+     * Merges partial maps built by the workers into the owner map. Must be
+     * called by the query owner thread once all page frames are reduced.
+     *
+     * @param circuitBreaker circuit breaker to check between the merged maps
+     */
+    public void mergeOwnerMap(SqlExecutionCircuitBreaker circuitBreaker) {
+        final FastMap destMap = getMap(-1);
+        for (int i = 0, n = perWorkerMaps.size(); i < n; i++) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            final FastMap srcMap = perWorkerMaps.getQuick(i);
+            if (srcMap.size() > 0) {
+                destMap.merge(srcMap, mergeFunction);
+                // The partial map is not needed anymore, so release its memory early.
+                srcMap.close();
+            }
+        }
+    }
+
+    @Override
+    public void mergeShard(int shardIndex) {
+        final FastMap destMap = shardMaps.getQuick(shardIndex);
+        if (ownerMap.size() > 0) {
+            destMap.merge(ownerMap, mergeFunction, shardIndex, shardCountBits);
+        }
+        for (int i = 0, n = perWorkerMaps.size(); i < n; i++) {
+            final FastMap srcMap = perWorkerMaps.getQuick(i);
+            if (srcMap.size() > 0) {
+                destMap.merge(srcMap, mergeFunction, shardIndex, shardCountBits);
+            }
+        }
+    }
+
+    @Override
+    public void prepareShardedMerge() {
+        for (int i = 0, n = shardMaps.size(); i < n; i++) {
+            shardMaps.getQuick(i).reopen();
+        }
+        isShardedMerge = true;
+        shardMergeError = null;
+    }
+
+    public void release(int slotId) {
+        perWorkerLocks.releaseSlot(slotId);
+    }
+
+    @Override
+    public void setShardMergeError(Throwable th) {
+        // Keep the first error only, subsequent ones are likely to be caused by it.
+        // Exceptions may be thread-local flyweights, so we copy the message.
+        if (shardMergeError == null) {
+            shardMergeError = th instanceof FlyweightMessageContainer
+                    ? Chars.toString(((FlyweightMessageContainer) th).getFlyweightMessage())
+                    : th.toString();
+        }
+    }
+
+    private static void copyRowIds(FastMap map, DirectLongList rows, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (map.size() == 0) {
+            return;
+        }
+        final RecordCursor cursor = map.getCursor();
+        final Record record = cursor.getRecord();
+        while (cursor.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            rows.add(record.getLong(0));
+        }
+    }
+
+    private static void merge(MapValue destValue, MapValue srcValue) {
+        final long srcRowId = srcValue.getLong(0);
+        if (srcRowId > destValue.getLong(0)) {
+            destValue.putLong(0, srcRowId);
+        }
+    }
+
+    private static FastMap newMap(CairoConfiguration configuration, ColumnTypes keyTypes) {
+        // Maps start small and grow on demand, so that idle workers
+        // don't hold on to large chunks of memory.
+        final FastMap map = new FastMap(
+                configuration.getSqlSmallMapPageSize(),
+                keyTypes,
+                VALUE_TYPES,
+                configuration.getSqlSmallMapKeyCapacity(),
+                configuration.getSqlFastMapLoadFactor(),
+                configuration.getSqlMapMaxResizes()
+        );
+        map.close();
+        return map;
+    }
+}
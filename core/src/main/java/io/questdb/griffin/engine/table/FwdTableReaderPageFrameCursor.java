@@ -160,19 +160,19 @@ public class FwdTableReaderPageFrameCursor implements PageFrameCursor {
                 if (sh > -1) {
                     // this assumes reader uses single page to map the whole column
                     // non-negative sh means fixed length column
-                    long address = col.getPageAddress(0);
                     long addressSize = partitionHiAdjusted << sh;
                     long offset = partitionLoAdjusted << sh;
+                    long address = col.getPageAddress(offset, addressSize);
                     columnPageAddress.setQuick(i * 2, address + offset);
                     pageSizes.setQuick(i * 2, addressSize - offset);
                 } else {
                     final MemoryR fixCol = reader.getColumn(readerColIndex + 1);
-                    long fixAddress = fixCol.getPageAddress(0);
                     long fixAddressSize = partitionHiAdjusted << 3;
                     long fixOffset = partitionLoAdjusted << 3;
+                    long fixAddress = fixCol.getPageAddress(fixOffset, fixAddressSize + Long.BYTES);
 
-                    long varAddress = col.getPageAddress(0);
                     long varAddressSize = Unsafe.getUnsafe().getLong(fixAddress + fixAddressSize);
+                    long varAddress = col.getPageAddress(Unsafe.getUnsafe().getLong(fixAddress + fixOffset), varAddressSize);
 
                     columnPageAddress.setQuick(i * 2, varAddress);
                     columnPageAddress.setQuick(i * 2 + 1, fixAddress + fixOffset);
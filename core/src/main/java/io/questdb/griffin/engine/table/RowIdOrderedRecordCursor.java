@@ -0,0 +1,112 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Vect;
+
+import java.io.Closeable;
+
+/**
+ * Iterates over base cursor records in ascending order of the row ids stored
+ * in their first column. Base cursor must support random access.
+ */
+class RowIdOrderedRecordCursor implements RecordCursor, Closeable {
+    // (row id, base cursor row id) pairs
+    private final DirectLongList index;
+    private RecordCursor base;
+    private Record baseRecord;
+    private long pos;
+    private long size;
+
+    public RowIdOrderedRecordCursor(long initialCapacity) {
+        index = new DirectLongList(2 * initialCapacity, MemoryTag.NATIVE_SAMPLE_BY_LONG_LIST);
+        // the memory is allocated on first use
+        index.close();
+    }
+
+    @Override
+    public void close() {
+        index.close();
+        base = null;
+        baseRecord = null;
+    }
+
+    @Override
+    public Record getRecord() {
+        return baseRecord;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return base.getRecordB();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pos < size) {
+            base.recordAt(baseRecord, index.get(2 * pos + 1));
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void toTop() {
+        pos = 0;
+    }
+
+    RowIdOrderedRecordCursor of(RecordCursor base, SqlExecutionCircuitBreaker circuitBreaker) {
+        this.base = base;
+        baseRecord = base.getRecord();
+        index.reopen();
+        index.clear();
+        while (base.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            index.add(baseRecord.getLong(0));
+            index.add(baseRecord.getRowId());
+        }
+        size = index.size() / 2;
+        Vect.sortLongIndexAscInPlace(index.getAddress(), size);
+        toTop();
+        return this;
+    }
+}
@@ -29,6 +29,7 @@ import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.MemoryCMRZImpl;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.functions.str.SizePrettyFunctionFactory;
@@ -212,6 +213,7 @@ public class ShowPartitionsRecordCursorFactory extends AbstractRecordCursorFacto
             partitionName.clear();
             dynamicPartitionIndex = partitionIndex;
             CharSequence dynamicTsColName = tsColName;
+            boolean isCompressed = false;
             path.trimTo(rootLen).$();
 
             TxReader tableTxReader = tableReader.getTxFile();
@@ -219,6 +221,7 @@ public class ShowPartitionsRecordCursorFactory extends AbstractRecordCursorFacto
             if (partitionIndex < partitionCount) {
                 // we are within the partition table
                 isReadOnly = tableTxReader.isPartitionReadOnly(partitionIndex);
+                isCompressed = tableTxReader.isPartitionCompressed(partitionIndex);
                 long timestamp = tableTxReader.getPartitionTimestampByIndex(partitionIndex);
                 isActive = timestamp == tableTxReader.getLastPartitionTimestamp();
                 PartitionBy.setSinkForPartition(partitionName, partitionBy, timestamp);
@@ -298,6 +301,17 @@ public class ShowPartitionsRecordCursorFactory extends AbstractRecordCursorFacto
             if (PartitionBy.isPartitioned(partitionBy) && numRows > 0L) {
                 TableUtils.dFile(path.slash$(), dynamicTsColName, TableUtils.COLUMN_NAME_TXN_NONE);
                 int fd = -1;
+                if (isCompressed) {
+                    // designated timestamp is encoded, decode first and last blocks only
+                    try (MemoryCMRZImpl mem = new MemoryCMRZImpl(ff, path, -1, MemoryTag.MMAP_DEFAULT)) {
+                        minTimestamp = mem.getLong(0);
+                        maxTimestamp = mem.getLong((numRows - 1) * ColumnType.sizeOf(ColumnType.TIMESTAMP));
+                    } catch (CairoException e) {
+                        dynamicPartitionIndex = Numbers.INT_NaN;
+                        LOG.error().$("could not read compressed designated timestamp column [path=").$(path).I$();
+                    }
+                    return;
+                }
                 try {
                     fd = TableUtils.openRO(ff, path, LOG);
                     long lastOffset = (numRows - 1) * ColumnType.sizeOf(ColumnType.TIMESTAMP);
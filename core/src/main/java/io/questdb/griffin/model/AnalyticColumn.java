@@ -29,10 +29,24 @@ import io.questdb.std.ObjList;
 import io.questdb.std.ObjectFactory;
 
 public final class AnalyticColumn extends QueryColumn {
+    public static final int CURRENT = 2;
     public final static ObjectFactory<AnalyticColumn> FACTORY = AnalyticColumn::new;
+    public static final int FOLLOWING = 3;
+    public static final int FRAMING_RANGE = 2;
+    public static final int FRAMING_ROWS = 1;
+    public static final int PRECEDING = 1;
     private final ObjList<ExpressionNode> orderBy = new ObjList<>(2);
     private final IntList orderByDirection = new IntList(2);
     private final ObjList<ExpressionNode> partitionBy = new ObjList<>(2);
+    // frame defaults to "range between unbounded preceding and current row"
+    private int framingMode = FRAMING_RANGE;
+    // null frame bound expression means "unbounded"
+    private ExpressionNode hiExpr;
+    private int hiKind = CURRENT;
+    private int hiKindPos;
+    private ExpressionNode loExpr;
+    private int loKind = PRECEDING;
+    private int loKindPos;
 
     private AnalyticColumn() {
     }
@@ -48,6 +62,41 @@ public final class AnalyticColumn extends QueryColumn {
         partitionBy.clear();
         orderBy.clear();
         orderByDirection.clear();
+        framingMode = FRAMING_RANGE;
+        loExpr = null;
+        loKind = PRECEDING;
+        loKindPos = 0;
+        hiExpr = null;
+        hiKind = CURRENT;
+        hiKindPos = 0;
+    }
+
+    public int getFramingMode() {
+        return framingMode;
+    }
+
+    public ExpressionNode getHiExpr() {
+        return hiExpr;
+    }
+
+    public int getHiKind() {
+        return hiKind;
+    }
+
+    public int getHiKindPos() {
+        return hiKindPos;
+    }
+
+    public ExpressionNode getLoExpr() {
+        return loExpr;
+    }
+
+    public int getLoKind() {
+        return loKind;
+    }
+
+    public int getLoKindPos() {
+        return loKindPos;
     }
 
     public ObjList<ExpressionNode> getOrderBy() {
@@ -62,8 +111,28 @@ public final class AnalyticColumn extends QueryColumn {
         return partitionBy;
     }
 
+    public boolean isDefaultFrame() {
+        return framingMode == FRAMING_RANGE && loKind == PRECEDING && loExpr == null && hiKind == CURRENT;
+    }
+
     @Override
     public AnalyticColumn of(CharSequence alias, ExpressionNode ast) {
         return (AnalyticColumn) super.of(alias, ast);
     }
+
+    public void setFramingMode(int framingMode) {
+        this.framingMode = framingMode;
+    }
+
+    public void setHi(ExpressionNode hiExpr, int hiKind, int hiKindPos) {
+        this.hiExpr = hiExpr;
+        this.hiKind = hiKind;
+        this.hiKindPos = hiKindPos;
+    }
+
+    public void setLo(ExpressionNode loExpr, int loKind, int loKindPos) {
+        this.loExpr = loExpr;
+        this.loKind = loKind;
+        this.loKindPos = loKindPos;
+    }
 }
@@ -34,10 +34,12 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     private int atomicity;
     private boolean cancel;
     private byte delimiter;
+    private boolean export;
     private ExpressionNode fileName;
     private boolean header;
     private int partitionBy;
-    private ExpressionNode target; // holds table name (new import) or import id (cancel model)
+    private CharSequence selectText; // holds query text when exporting result of a query
+    private ExpressionNode target; // holds table name (new import or export) or import id (cancel model)
     private CharSequence timestampColumnName;
     private CharSequence timestampFormat;
 
@@ -50,6 +52,8 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         fileName = null;
         header = false;
         cancel = false;
+        export = false;
+        selectText = null;
         timestampFormat = null;
         timestampColumnName = null;
         partitionBy = -1;
@@ -78,9 +82,13 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return partitionBy;
     }
 
+    public CharSequence getSelectText() {
+        return selectText;
+    }
+
     @Override
     public CharSequence getTableName() {
-        return target.token;
+        return target != null ? target.token : null;
     }
 
     public ExpressionNode getTarget() {
@@ -99,6 +107,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return cancel;
     }
 
+    public boolean isExport() {
+        return export;
+    }
+
     public boolean isHeader() {
         return header;
     }
@@ -115,6 +127,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.delimiter = delimiter;
     }
 
+    public void setExport(boolean export) {
+        this.export = export;
+    }
+
     public void setFileName(ExpressionNode fileName) {
         this.fileName = fileName;
     }
@@ -127,6 +143,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.partitionBy = partitionBy;
     }
 
+    public void setSelectText(CharSequence selectText) {
+        this.selectText = selectText;
+    }
+
     public void setTarget(ExpressionNode tableName) {
         this.target = tableName;
     }
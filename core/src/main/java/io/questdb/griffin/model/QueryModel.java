@@ -1195,6 +1195,19 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         return modelTypeName.get(selectModelType);
     }
 
+    private static void frameBoundToSink(CharSink sink, ExpressionNode expr, int kind) {
+        if (kind == AnalyticColumn.CURRENT) {
+            sink.put("current row");
+            return;
+        }
+        if (expr == null) {
+            sink.put("unbounded");
+        } else {
+            expr.toSink(sink);
+        }
+        sink.put(kind == AnalyticColumn.PRECEDING ? " preceding" : " following");
+    }
+
     private void sinkColumns(CharSink sink, ObjList<QueryColumn> columns) {
         for (int i = 0, n = columns.size(); i < n; i++) {
             if (i > 0) {
@@ -1242,6 +1255,16 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
                             }
                         }
                     }
+
+                    if (!ac.isDefaultFrame()) {
+                        if (partitionBy.size() > 0 || orderBy.size() > 0) {
+                            sink.put(' ');
+                        }
+                        sink.put(ac.getFramingMode() == AnalyticColumn.FRAMING_ROWS ? "rows between " : "range between ");
+                        frameBoundToSink(sink, ac.getLoExpr(), ac.getLoKind());
+                        sink.put(" and ");
+                        frameBoundToSink(sink, ac.getHiExpr(), ac.getHiKind());
+                    }
                     sink.put(')');
                 }
             } else {
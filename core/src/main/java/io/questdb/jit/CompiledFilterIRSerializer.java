@@ -34,6 +34,8 @@ import io.questdb.griffin.engine.functions.bind.NamedParameterLinkFunction;
 import io.questdb.griffin.engine.functions.constants.ConstantFunction;
 import io.questdb.griffin.engine.functions.constants.SymbolConstant;
 import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.griffin.model.IntervalOperation;
+import io.questdb.griffin.model.IntervalUtils;
 import io.questdb.std.*;
 
 import java.util.Arrays;
@@ -85,8 +87,14 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
     public static final int VAR = 3;
     // Stub value for opcodes and options
     static final int UNDEFINED_CODE = -1;
+    // Longer IN lists are left to Java filters since they use hash set lookups
+    private static final int MAX_IN_LIST_SIZE = 64;
     // contains <memory_offset, constant_node> pairs for backfilling purposes
     private final LongObjHashMap<ExpressionNode> backfillNodes = new LongObjHashMap<>();
+    private final CharacterStore characterStore = new CharacterStore(64, 16);
+    private final LongList intervals = new LongList();
+    // nodes of IN and BETWEEN predicates lowered to comparisons
+    private final ObjectPool<ExpressionNode> loweredNodePool = new ObjectPool<>(ExpressionNode.FACTORY, 16);
     private final PredicateContext predicateContext = new PredicateContext();
     private final PostOrderTreeTraversalAlgo traverseAlgo = new PostOrderTreeTraversalAlgo();
     private ObjList<Function> bindVarFunctions;
@@ -106,6 +114,9 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         forceScalarMode = false;
         predicateContext.clear();
         backfillNodes.clear();
+        loweredNodePool.clear();
+        characterStore.clear();
+        intervals.clear();
     }
 
     @Override
@@ -170,7 +181,7 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
      * @throws SqlException thrown when IR serialization failed.
      */
     public int serialize(ExpressionNode node, boolean scalar, boolean debug, boolean nullChecks) throws SqlException {
-        traverseAlgo.traverse(node, this);
+        traverseAlgo.traverse(lowerSetPredicates(node), this);
         putOperator(RET);
 
         TypesObserver typesObserver = predicateContext.globalTypesObserver;
@@ -191,6 +202,41 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         return options;
     }
 
+    /**
+     * Splits the top-level AND chain of the filter into the conjuncts that can be serialized
+     * and the ones that can't, e.g. predicates on string columns. The caller may then compile
+     * the supported conjuncts and evaluate the remaining ones with a Java filter on the rows
+     * selected by the compiled filter.
+     * <p>
+     * Must be called after {@link #of}. Leaves the IR memory and the bind variable function
+     * list empty, so that {@link #serialize} can be called next.
+     *
+     * @param node              filter expression tree's root node.
+     * @param serializableNodes list to add the serializable conjuncts to.
+     * @param residualNodes     list to add the remaining conjuncts to.
+     */
+    public void splitConjuncts(
+            ExpressionNode node,
+            ObjList<ExpressionNode> serializableNodes,
+            ObjList<ExpressionNode> residualNodes
+    ) {
+        if (node.type == ExpressionNode.OPERATION && node.paramCount == 2 && SqlKeywords.isAndKeyword(node.token)) {
+            splitConjuncts(node.lhs, serializableNodes, residualNodes);
+            splitConjuncts(node.rhs, serializableNodes, residualNodes);
+            return;
+        }
+
+        resetState();
+        try {
+            serialize(node, true, false, false);
+            serializableNodes.add(node);
+        } catch (SqlException e) {
+            residualNodes.add(node);
+        } finally {
+            resetState();
+        }
+    }
+
     @Override
     public void visit(ExpressionNode node) throws SqlException {
         int argCount = node.paramCount;
@@ -315,6 +361,52 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         return Chars.equals(token, "/");
     }
 
+    private static ExpressionNode inListValue(ExpressionNode in, int index) {
+        // in list values are stored in reverse order, the column is the last argument
+        return in.paramCount < 3 ? in.rhs : in.args.getQuick(in.paramCount - 2 - index);
+    }
+
+    private static boolean isLowerableNumber(ExpressionNode node) {
+        if (node.type == ExpressionNode.OPERATION && node.paramCount == 1 && Chars.equals(node.token, "-")) {
+            // negative constant
+            node = node.lhs != null ? node.lhs : node.rhs;
+        }
+        return node != null && node.type == ExpressionNode.CONSTANT && !Chars.isQuoted(node.token);
+    }
+
+    private static long parseLowerableLong(ExpressionNode node) throws NumericException {
+        boolean negated = false;
+        if (node.type == ExpressionNode.OPERATION && node.paramCount == 1 && Chars.equals(node.token, "-")) {
+            node = node.lhs != null ? node.lhs : node.rhs;
+            negated = true;
+        }
+        if (node == null || node.type != ExpressionNode.CONSTANT) {
+            throw NumericException.INSTANCE;
+        }
+        final CharSequence token = node.token;
+        final long value;
+        if (Chars.isQuoted(token)) {
+            if (negated) {
+                throw NumericException.INSTANCE;
+            }
+            final int hi = token.length() - 1;
+            long parsed;
+            try {
+                parsed = Numbers.parseLong(token, 1, hi);
+            } catch (NumericException e) {
+                parsed = IntervalUtils.parseFloorPartialTimestamp(token, 1, hi);
+            }
+            value = parsed;
+        } else {
+            value = negated ? -Numbers.parseLong(token) : Numbers.parseLong(token);
+        }
+        // null bounds never match
+        if (value == Numbers.LONG_NaN || value == Numbers.INT_NaN) {
+            throw NumericException.INSTANCE;
+        }
+        return value;
+    }
+
     private static boolean isTopLevelOperation(ExpressionNode node) {
         final CharSequence token = node.token;
         if (SqlKeywords.isNotKeyword(token)) {
@@ -463,6 +555,18 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         return columnTypeTag == ColumnType.BOOLEAN;
     }
 
+    private boolean isLowerableIntegerColumn(ExpressionNode node) {
+        if (node.type != ExpressionNode.LITERAL) {
+            return false;
+        }
+        final int index = metadata.getColumnIndexQuiet(node.token);
+        if (index == -1) {
+            return false;
+        }
+        final int columnTypeTag = ColumnType.tagOf(metadata.getColumnType(index));
+        return columnTypeTag == ColumnType.INT || columnTypeTag == ColumnType.LONG || columnTypeTag == ColumnType.TIMESTAMP;
+    }
+
     private boolean isTopLevelBooleanColumn(ExpressionNode node) {
         if (node.type == ExpressionNode.LITERAL && isBooleanColumn(node)) {
             return true;
@@ -476,6 +580,177 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         return false;
     }
 
+    /**
+     * Lowers "x between lo and hi" to "x >= min(lo, hi) and x <= max(lo, hi)". Only integer
+     * and timestamp columns with constant bounds are lowered, other predicates are returned
+     * as is and then rejected by the serializer.
+     */
+    private ExpressionNode lowerBetween(ExpressionNode node) throws SqlException {
+        final ExpressionNode column = node.args.getQuick(2);
+        if (!isLowerableIntegerColumn(column)) {
+            return node;
+        }
+        final long lo;
+        final long hi;
+        try {
+            lo = parseLowerableLong(node.args.getQuick(1));
+            hi = parseLowerableLong(node.args.getQuick(0));
+        } catch (NumericException e) {
+            return node;
+        }
+        return newRangeNode(column, Math.min(lo, hi), Math.max(lo, hi), node.position);
+    }
+
+    /**
+     * Lowers "x in (a, b, c)" to "x = a or x = b or x = c". The OR chain is built right-deep,
+     * so that the compiled filter keeps at most two intermediate values on its stack, whatever
+     * the list length is. A single string value in a timestamp IN list stands for an interval,
+     * e.g. "ts in '2023-01'", and is lowered to a range check per interval.
+     */
+    private ExpressionNode lowerIn(ExpressionNode node) throws SqlException {
+        final int valueCount = node.paramCount - 1;
+        if (valueCount > MAX_IN_LIST_SIZE) {
+            return node;
+        }
+        final ExpressionNode column = node.paramCount < 3 ? node.lhs : node.args.getLast();
+        if (column.type != ExpressionNode.LITERAL) {
+            return node;
+        }
+        final int columnIndex = metadata.getColumnIndexQuiet(column.token);
+        if (columnIndex == -1) {
+            return node;
+        }
+        final int columnTypeTag = ColumnType.tagOf(metadata.getColumnType(columnIndex));
+        switch (columnTypeTag) {
+            case ColumnType.SYMBOL:
+            case ColumnType.CHAR:
+            case ColumnType.UUID:
+                for (int i = 0; i < valueCount; i++) {
+                    final ExpressionNode value = inListValue(node, i);
+                    if (value.type != ExpressionNode.BIND_VARIABLE
+                            && (value.type != ExpressionNode.CONSTANT || !(Chars.isQuoted(value.token) || SqlKeywords.isNullKeyword(value.token)))) {
+                        return node;
+                    }
+                }
+                break;
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.TIMESTAMP:
+                if (valueCount == 1 && columnTypeTag == ColumnType.TIMESTAMP) {
+                    final ExpressionNode value = inListValue(node, 0);
+                    if (value.type == ExpressionNode.CONSTANT && Chars.isQuoted(value.token)) {
+                        return lowerInInterval(node, column, value);
+                    }
+                }
+                for (int i = 0; i < valueCount; i++) {
+                    final ExpressionNode value = inListValue(node, i);
+                    if (value.type == ExpressionNode.CONSTANT && Chars.isQuoted(value.token)) {
+                        if (columnTypeTag != ColumnType.TIMESTAMP) {
+                            return node;
+                        }
+                    } else if (!isLowerableNumber(value)) {
+                        return node;
+                    } else if (SqlKeywords.isNullKeyword(value.token)) {
+                        // values are compared as timestamps, nulls never match
+                        return node;
+                    }
+                }
+                break;
+            default:
+                return node;
+        }
+
+        ExpressionNode result = null;
+        for (int i = 0; i < valueCount; i++) {
+            ExpressionNode value = inListValue(node, i);
+            if (columnTypeTag == ColumnType.TIMESTAMP && value.type == ExpressionNode.CONSTANT && Chars.isQuoted(value.token)) {
+                final CharSequence token = value.token;
+                try {
+                    value = newConstantNode(IntervalUtils.parseFloorPartialTimestamp(token, 1, token.length() - 1), value.position);
+                } catch (NumericException e) {
+                    throw SqlException.invalidDate(value.position);
+                }
+            }
+            final ExpressionNode eq = newOperationNode("=", column, value, node.position);
+            result = result == null ? eq : newOperationNode("or", eq, result, node.position);
+        }
+        return result;
+    }
+
+    private ExpressionNode lowerInInterval(ExpressionNode node, ExpressionNode column, ExpressionNode value) throws SqlException {
+        final CharSequence token = value.token;
+        intervals.clear();
+        IntervalUtils.parseIntervalEx(token, 1, token.length() - 1, value.position, intervals, IntervalOperation.INTERSECT);
+        IntervalUtils.applyLastEncodedIntervalEx(intervals);
+        final int intervalCount = intervals.size() / 2;
+        if (intervalCount == 0 || intervalCount > MAX_IN_LIST_SIZE) {
+            return node;
+        }
+        ExpressionNode result = null;
+        for (int i = intervalCount - 1; i > -1; i--) {
+            final ExpressionNode range = newRangeNode(column, intervals.getQuick(2 * i), intervals.getQuick(2 * i + 1), node.position);
+            result = result == null ? range : newOperationNode("or", range, result, node.position);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the filter tree with IN and BETWEEN predicates replaced with equivalent
+     * comparisons that the JIT compiler supports. Nodes of the original tree are never
+     * modified, since the tree is also used to compile Java filters; only the nodes on
+     * the path to a lowered predicate are copied.
+     */
+    private ExpressionNode lowerSetPredicates(ExpressionNode node) throws SqlException {
+        if (node == null || node.type == ExpressionNode.CONSTANT || node.type == ExpressionNode.LITERAL) {
+            return node;
+        }
+        if (node.paramCount > 1 && SqlKeywords.isInKeyword(node.token)) {
+            return lowerIn(node);
+        }
+        if (node.paramCount == 3 && SqlKeywords.isBetweenKeyword(node.token)) {
+            return lowerBetween(node);
+        }
+        if (node.paramCount > 2) {
+            return node;
+        }
+        final ExpressionNode lhs = lowerSetPredicates(node.lhs);
+        final ExpressionNode rhs = lowerSetPredicates(node.rhs);
+        if (lhs == node.lhs && rhs == node.rhs) {
+            return node;
+        }
+        final ExpressionNode copy = loweredNodePool.next().of(node.type, node.token, node.precedence, node.position);
+        copy.paramCount = node.paramCount;
+        copy.lhs = lhs;
+        copy.rhs = rhs;
+        return copy;
+    }
+
+    private ExpressionNode newConstantNode(long value, int position) {
+        final CharacterStoreEntry entry = characterStore.newEntry();
+        entry.put(value);
+        return loweredNodePool.next().of(ExpressionNode.CONSTANT, entry.toImmutable(), 0, position);
+    }
+
+    private ExpressionNode newOperationNode(CharSequence token, ExpressionNode lhs, ExpressionNode rhs, int position) {
+        final ExpressionNode node = loweredNodePool.next().of(ExpressionNode.OPERATION, token, 0, position);
+        node.paramCount = 2;
+        node.lhs = lhs;
+        node.rhs = rhs;
+        return node;
+    }
+
+    private ExpressionNode newRangeNode(ExpressionNode column, long lo, long hi, int position) {
+        if (lo == hi) {
+            return newOperationNode("=", column, newConstantNode(lo, position), position);
+        }
+        return newOperationNode(
+                "and",
+                newOperationNode(">=", column, newConstantNode(lo, position), position),
+                newOperationNode("<=", column, newConstantNode(hi, position), position),
+                position
+        );
+    }
+
     private void putDoubleOperand(long offset, int type, double payload) {
         memory.putInt(offset, CompiledFilterIRSerializer.IMM);
         memory.putInt(offset + Integer.BYTES, type);
@@ -509,6 +784,14 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         memory.putLong(0L);
     }
 
+    private void resetState() {
+        memory.truncate();
+        bindVarFunctions.clear();
+        forceScalarMode = false;
+        predicateContext.clear();
+        backfillNodes.clear();
+    }
+
     private void serializeBindVariable(final ExpressionNode node) throws SqlException {
         if (!predicateContext.isActive()) {
             throw SqlException.position(node.position)
@@ -282,35 +282,51 @@ public abstract class AbstractIODispatcher<C extends IOContext<C>> extends Synch
                 break;
             }
 
-            if (nf.configureNonBlocking(fd) < 0) {
-                LOG.error().$("could not configure non-blocking [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
-                nf.close(fd, LOG);
+            tlConCount = addConnection(fd, timestamp);
+            if (tlConCount < 0) {
                 break;
             }
+        }
+        checkConnectionLimit(tlConCount, timestamp);
+    }
 
-            if (nf.setTcpNoDelay(fd, true) < 0) {
-                // Randomly on OS X, if a client connects and the peer TCP socket has SO_LINGER set to false, then setting the TCP_NODELAY
-                // option fails!
-                LOG.info().$("could not turn off Nagle's algorithm [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
-            }
+    /**
+     * Configures an accepted socket and adds its connection to the pending list.
+     *
+     * @return connection count after the connection is added or -1 if the socket could not be configured
+     */
+    protected int addConnection(int fd, long timestamp) {
+        if (nf.configureNonBlocking(fd) < 0) {
+            LOG.error().$("could not configure non-blocking [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+            nf.close(fd, LOG);
+            return -1;
+        }
 
-            if (peerNoLinger) {
-                nf.configureNoLinger(fd);
-            }
+        if (nf.setTcpNoDelay(fd, true) < 0) {
+            // Randomly on OS X, if a client connects and the peer TCP socket has SO_LINGER set to false, then setting the TCP_NODELAY
+            // option fails!
+            LOG.info().$("could not turn off Nagle's algorithm [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+        }
 
-            if (sndBufSize > 0) {
-                nf.setSndBuf(fd, sndBufSize);
-            }
+        if (peerNoLinger) {
+            nf.configureNoLinger(fd);
+        }
 
-            if (rcvBufSize > 0) {
-                nf.setRcvBuf(fd, rcvBufSize);
-            }
+        if (sndBufSize > 0) {
+            nf.setSndBuf(fd, sndBufSize);
+        }
 
-            LOG.info().$("connected [ip=").$ip(nf.getPeerIP(fd)).$(", fd=").$(fd).$(']').$();
-            tlConCount = connectionCount.incrementAndGet();
-            addPending(fd, timestamp);
+        if (rcvBufSize > 0) {
+            nf.setRcvBuf(fd, rcvBufSize);
         }
 
+        LOG.info().$("connected [ip=").$ip(nf.getPeerIP(fd)).$(", fd=").$(fd).$(']').$();
+        final int tlConCount = connectionCount.incrementAndGet();
+        addPending(fd, timestamp);
+        return tlConCount;
+    }
+
+    protected void checkConnectionLimit(int tlConCount, long timestamp) {
         if (tlConCount >= activeConnectionLimit) {
             if (connectionCount.get() >= activeConnectionLimit) {
                 unregisterListenerFd();
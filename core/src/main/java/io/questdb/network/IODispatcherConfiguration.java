@@ -24,6 +24,8 @@
 
 package io.questdb.network;
 
+import io.questdb.std.IOURingFacade;
+import io.questdb.std.IOURingFacadeImpl;
 import io.questdb.std.Numbers;
 import io.questdb.std.Os;
 import io.questdb.std.datetime.millitime.MillisecondClock;
@@ -56,6 +58,10 @@ public interface IODispatcherConfiguration {
         return Numbers.ceilPow2(getLimit());
     }
 
+    default IOURingFacade getIOURingFacade() {
+        return IOURingFacadeImpl.INSTANCE;
+    }
+
     int getInitialBias();
 
     default int getInterestQueueCapacity() {
@@ -96,4 +102,12 @@ public interface IODispatcherConfiguration {
     long getTimeout();
 
     long getHeartbeatInterval();
+
+    /**
+     * When enabled and supported by the kernel, Linux dispatchers use io_uring
+     * instead of epoll to wait for socket readiness and to accept connections.
+     */
+    default boolean isIOURingEnabled() {
+        return false;
+    }
 }
@@ -0,0 +1,549 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.network;
+
+import io.questdb.std.IOURing;
+import io.questdb.std.IntList;
+import io.questdb.std.LongMatrix;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+
+/**
+ * Linux dispatcher that uses io_uring instead of epoll. Socket readiness is awaited with
+ * one-shot poll requests, which mirror the edge-triggered one-shot epoll registrations of
+ * {@link IODispatcherLinux}, and connections are accepted with a multishot accept request.
+ * <p>
+ * All requests produced by a dispatcher iteration are submitted to the kernel with a single
+ * io_uring_enter call, completions are read from the shared completion queue without a syscall.
+ * Unlike epoll, closing a socket does not cancel polls armed on it, so every armed poll is
+ * removed explicitly before its connection leaves the pending list.
+ */
+public class IODispatcherLinuxIOURing<C extends IOContext<C>> extends AbstractIODispatcher<C> {
+    // user data of cancellation requests, their completions are ignored
+    private static final long CONTROL_ID = Long.MIN_VALUE;
+    private static final int ECANCELED = 125;
+    private static final int EINVAL = 22;
+    private static final int EVM_DEADLINE = 1;
+    private static final int EVM_ID = 0;
+    private static final int EVM_OPERATION_ID = 2;
+    // marks the read poll used to detect client disconnects while the operation is suspended
+    private static final long SUSPENDED_OPERATION_FLAG = 1L << 62;
+    protected final LongMatrix pendingEvents = new LongMatrix(3);
+    // connections accepted above the connection limit
+    private final IntList deferredFds = new IntList();
+    private final IOURing ring;
+    // negative user data of the current accept request, 0 when the listener is not registered
+    private long acceptId;
+    private long acceptIdSeq;
+    // the final ids are shifted by 1 bit which is reserved to distinguish socket operations (0) and suspend events (1)
+    private long idSeq = 1;
+    private boolean multishotAccept = true;
+    private int unsubmittedCount;
+
+    public IODispatcherLinuxIOURing(
+            IODispatcherConfiguration configuration,
+            IOContextFactory<C> ioContextFactory
+    ) {
+        super(configuration, ioContextFactory);
+        this.ring = configuration.getIOURingFacade().newInstance(Numbers.ceilPow2(configuration.getEventCapacity()));
+        registerListenerFd();
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        for (int i = 0, n = deferredFds.size(); i < n; i++) {
+            nf.close(deferredFds.getQuick(i), LOG);
+        }
+        deferredFds.clear();
+        // closing the ring cancels all requests in flight
+        Misc.free(ring);
+        LOG.info().$("closed").$();
+    }
+
+    private static boolean isEventId(long id) {
+        return (id & 1) == 1;
+    }
+
+    private static int pollEvents(int operation) {
+        // epoll and poll(2) event bits have the same values
+        return operation == IOOperation.READ ? EpollAccessor.EPOLLIN : EpollAccessor.EPOLLOUT;
+    }
+
+    private void acceptConnection(int fd, long timestamp) {
+        if (getConnectionCount() >= activeConnectionLimit) {
+            // the multishot accept may complete connections before its cancellation is processed,
+            // these wait for a free slot just like the connections left in the listen backlog
+            LOG.info().$("max connection limit reached, deferring connection [fd=").$(fd).I$();
+            deferredFds.add(fd);
+            return;
+        }
+        final int tlConCount = addConnection(fd, timestamp);
+        if (tlConCount > -1) {
+            checkConnectionLimit(tlConCount, timestamp);
+        }
+    }
+
+    private void acceptDeferredConnections(long timestamp) {
+        if (serverFd < 0) {
+            // the listener was closed after the connection queue timeout
+            for (int i = 0, n = deferredFds.size(); i < n; i++) {
+                nf.close(deferredFds.getQuick(i), LOG);
+            }
+            deferredFds.clear();
+            return;
+        }
+        final int n = deferredFds.size();
+        int i = 0;
+        for (; i < n && getConnectionCount() < activeConnectionLimit; i++) {
+            acceptConnection(deferredFds.getQuick(i), timestamp);
+        }
+        deferredFds.arrayCopy(i, 0, n - i);
+        deferredFds.setPos(n - i);
+    }
+
+    private void cancel(long targetId) {
+        if (!ring.enqueueCancel(targetId, CONTROL_ID)) {
+            submit();
+            if (!ring.enqueueCancel(targetId, CONTROL_ID)) {
+                LOG.critical().$("internal error: io_uring cancel enqueue failure [id=").$(targetId).I$();
+                return;
+            }
+        }
+        unsubmittedCount++;
+    }
+
+    private void doDisconnect(C context, long id, int reason) {
+        final SuspendEvent suspendEvent = context.getSuspendEvent();
+        if (suspendEvent != null) {
+            // yes, we can do a binary search over EVM_OPERATION_ID since
+            // these ref ids are monotonically growing
+            int eventRow = pendingEvents.binarySearch(id, EVM_OPERATION_ID);
+            if (eventRow < 0) {
+                LOG.critical().$("internal error: suspend event not found [id=").$(id).I$();
+            } else {
+                pollRemove(pendingEvents.get(eventRow, EVM_ID));
+                pendingEvents.deleteRow(eventRow);
+            }
+        }
+        doDisconnect(context, reason);
+    }
+
+    private void enqueueAccept() {
+        acceptId = --acceptIdSeq;
+        if (!ring.enqueueAccept(serverFd, multishotAccept, acceptId)) {
+            submit();
+            if (!ring.enqueueAccept(serverFd, multishotAccept, acceptId)) {
+                LOG.critical().$("internal error: io_uring accept enqueue failure [serverFd=").$(serverFd).I$();
+                acceptId = 0;
+                return;
+            }
+        }
+        unsubmittedCount++;
+    }
+
+    private void enqueuePending(int watermark) {
+        for (int i = watermark, sz = pending.size(); i < sz; i++) {
+            final long id = pending.get(i, OPM_ID);
+            final int fd = (int) pending.get(i, OPM_FD);
+            int operation = initialBias == IODispatcherConfiguration.BIAS_READ ? IOOperation.READ : IOOperation.WRITE;
+            pending.set(i, OPM_OPERATION, operation);
+            poll(fd, id, operation);
+        }
+    }
+
+    private void handleAccept(long id, int res, boolean more, long timestamp) {
+        if (res > -1) {
+            acceptConnection(res, timestamp);
+        } else if (res != -ECANCELED) {
+            if (res == -EINVAL && multishotAccept) {
+                // multishot accept requires kernel 5.19, fall back to re-arming accept on each connection
+                LOG.info().$("multishot accept is not supported, falling back to single-shot accept").$();
+                multishotAccept = false;
+            } else {
+                LOG.error().$("could not accept [errno=").$(-res).I$();
+            }
+        }
+        if (!more && id == acceptId) {
+            acceptId = 0;
+            if (isListening() && serverFd > -1) {
+                enqueueAccept();
+            }
+        }
+    }
+
+    private boolean handleSocketOperation(long id, int res) {
+        if (res == -ECANCELED) {
+            return false;
+        }
+        // find row in pending for two reasons:
+        // 1. find payload
+        // 2. remove row from pending, remaining rows will be timed out
+        final int row = pending.binarySearch(id, OPM_ID);
+        if (row < 0) {
+            // the poll completed before its removal was processed, the operation has left the pending list
+            LOG.debug().$("stale poll completion [id=").$(id).I$();
+            return false;
+        }
+
+        // unlike epoll, the poll is armed for the pending operation only, hang-ups and errors surface on that operation
+        publishOperation((int) pending.get(row, OPM_OPERATION), pending.get(row));
+        pending.deleteRow(row);
+        return true;
+    }
+
+    private boolean handleSuspendedOperation(long id, int res) {
+        if (res == -ECANCELED) {
+            return false;
+        }
+        final int row = pending.binarySearch(id, OPM_ID);
+        if (row < 0) {
+            return false;
+        }
+        final C context = pending.get(row);
+        // the operation may have been resumed before the completion was read
+        if (context.getSuspendEvent() != null && testConnection(context.getFd())) {
+            doDisconnect(context, id, DISCONNECT_SRC_PEER_DISCONNECT);
+            pending.deleteRow(row);
+            return true;
+        }
+        return false;
+    }
+
+    private void handleSuspendEvent(long id, int res) {
+        if (res == -ECANCELED) {
+            return;
+        }
+        final int eventsRow = pendingEvents.binarySearch(id, EVM_ID);
+        if (eventsRow < 0) {
+            LOG.debug().$("stale suspend event completion [eventId=").$(id).I$();
+            return;
+        }
+
+        final long opId = pendingEvents.get(eventsRow, EVM_OPERATION_ID);
+        final int row = pending.binarySearch(opId, OPM_ID);
+        if (row < 0) {
+            LOG.critical().$("internal error: suspended operation not found [id=").$(opId).$(", eventId=").$(id).I$();
+            return;
+        }
+
+        final int operation = (int) pending.get(row, OPM_OPERATION);
+        final C context = pending.get(row);
+        assert context.getSuspendEvent() != null;
+
+        resumeOperation(context, opId, operation);
+        pendingEvents.deleteRow(eventsRow);
+    }
+
+    private long nextEventId() {
+        return (idSeq++ << 1) + 1;
+    }
+
+    private long nextOpId() {
+        return idSeq++ << 1;
+    }
+
+    private void poll(int fd, long id, int operation) {
+        final int events = pollEvents(operation);
+        if (!ring.enqueuePoll(fd, events, id)) {
+            // the submission queue is full, flush it and retry
+            submit();
+            if (!ring.enqueuePoll(fd, events, id)) {
+                LOG.critical().$("internal error: io_uring poll enqueue failure [id=").$(id).I$();
+                return;
+            }
+        }
+        unsubmittedCount++;
+    }
+
+    private void pollRemove(long targetId) {
+        if (!ring.enqueuePollRemove(targetId, CONTROL_ID)) {
+            submit();
+            if (!ring.enqueuePollRemove(targetId, CONTROL_ID)) {
+                LOG.critical().$("internal error: io_uring poll remove enqueue failure [id=").$(targetId).I$();
+                return;
+            }
+        }
+        unsubmittedCount++;
+    }
+
+    private void processHeartbeats(int watermark, long timestamp) {
+        int count = 0;
+        for (int i = 0; i < watermark && pending.get(i, OPM_HEARTBEAT_TIMESTAMP) < timestamp; i++, count++) {
+            final C context = pending.get(i);
+
+            // De-register pending operation. We'll register it later when we get a heartbeat pong.
+            final int fd = context.getFd();
+            final long opId = pending.get(i, OPM_ID);
+            final SuspendEvent suspendEvent = context.getSuspendEvent();
+            pollRemove(suspendEvent != null ? opId | SUSPENDED_OPERATION_FLAG : opId);
+            context.setHeartbeatId(opId);
+            publishOperation(IOOperation.HEARTBEAT, context);
+
+            final int operation = (int) pending.get(i, OPM_OPERATION);
+            int r = pendingHeartbeats.addRow();
+            pendingHeartbeats.set(r, OPM_CREATE_TIMESTAMP, pending.get(i, OPM_CREATE_TIMESTAMP));
+            pendingHeartbeats.set(r, OPM_FD, fd);
+            pendingHeartbeats.set(r, OPM_ID, opId);
+            pendingHeartbeats.set(r, OPM_OPERATION, operation);
+            pendingHeartbeats.set(r, context);
+
+            LOG.debug().$("published heartbeat [fd=").$(fd)
+                    .$(", op=").$(operation)
+                    .$(", id=").$(opId).I$();
+
+            if (suspendEvent != null) {
+                // Also, de-register suspend event.
+                int eventRow = pendingEvents.binarySearch(opId, EVM_OPERATION_ID);
+                if (eventRow < 0) {
+                    LOG.critical().$("internal error: suspend event not found on heartbeat [id=").$(opId).I$();
+                } else {
+                    pollRemove(pendingEvents.get(eventRow, EVM_ID));
+                    pendingEvents.deleteRow(eventRow);
+                }
+            }
+        }
+        pending.zapTop(count);
+    }
+
+    private int processIdleConnections(long idleTimestamp) {
+        int count = 0;
+        for (int i = 0, n = pending.size(); i < n && pending.get(i, OPM_CREATE_TIMESTAMP) < idleTimestamp; i++, count++) {
+            final C context = pending.get(i);
+            final long opId = pending.get(i, OPM_ID);
+            pollRemove(context.getSuspendEvent() != null ? opId | SUSPENDED_OPERATION_FLAG : opId);
+            doDisconnect(context, opId, DISCONNECT_SRC_IDLE);
+        }
+        pending.zapTop(count);
+        return count;
+    }
+
+    private boolean processRegistrations(long timestamp) {
+        boolean useful = false;
+        long cursor;
+        while ((cursor = interestSubSeq.next()) > -1) {
+            final IOEvent<C> event = interestQueue.get(cursor);
+            final C context = event.context;
+            final int requestedOperation = event.operation;
+            final long srcOpId = context.getAndResetHeartbeatId();
+            interestSubSeq.done(cursor);
+
+            useful = true;
+            final long opId = nextOpId();
+            final int fd = context.getFd();
+
+            int operation = requestedOperation;
+            final SuspendEvent suspendEvent = context.getSuspendEvent();
+            if (requestedOperation == IOOperation.HEARTBEAT) {
+                assert srcOpId != -1;
+
+                int heartbeatRow = pendingHeartbeats.binarySearch(srcOpId, OPM_ID);
+                if (heartbeatRow < 0) {
+                    continue; // The connection is already closed.
+                } else {
+                    operation = (int) pendingHeartbeats.get(heartbeatRow, OPM_OPERATION);
+
+                    LOG.debug().$("processing heartbeat registration [fd=").$(fd)
+                            .$(", op=").$(operation)
+                            .$(", srcId=").$(srcOpId)
+                            .$(", id=").$(opId).I$();
+
+                    int r = pending.addRow();
+                    pending.set(r, OPM_CREATE_TIMESTAMP, pendingHeartbeats.get(heartbeatRow, OPM_CREATE_TIMESTAMP));
+                    pending.set(r, OPM_HEARTBEAT_TIMESTAMP, timestamp);
+                    pending.set(r, OPM_FD, fd);
+                    pending.set(r, OPM_ID, opId);
+                    pending.set(r, OPM_OPERATION, operation);
+                    pending.set(r, context);
+
+                    pendingHeartbeats.deleteRow(heartbeatRow);
+                }
+            } else {
+                LOG.debug().$("processing registration [fd=").$(fd)
+                        .$(", op=").$(operation)
+                        .$(", id=").$(opId).I$();
+
+                int opRow = pending.addRow();
+                pending.set(opRow, OPM_CREATE_TIMESTAMP, timestamp);
+                pending.set(opRow, OPM_HEARTBEAT_TIMESTAMP, timestamp);
+                pending.set(opRow, OPM_FD, fd);
+                pending.set(opRow, OPM_ID, opId);
+                pending.set(opRow, OPM_OPERATION, requestedOperation);
+                pending.set(opRow, context);
+            }
+
+            if (suspendEvent != null) {
+                // ok, the operation was suspended, so we need to track the suspend event
+                final long eventId = nextEventId();
+                LOG.debug().$("registering suspend event [fd=").$(fd)
+                        .$(", op=").$(operation)
+                        .$(", eventId=").$(eventId)
+                        .$(", suspendedOpId=").$(opId)
+                        .$(", deadline=").$(suspendEvent.getDeadline()).I$();
+
+                int eventRow = pendingEvents.addRow();
+                pendingEvents.set(eventRow, EVM_ID, eventId);
+                pendingEvents.set(eventRow, EVM_OPERATION_ID, opId);
+                pendingEvents.set(eventRow, EVM_DEADLINE, suspendEvent.getDeadline());
+
+                poll(suspendEvent.getFd(), eventId, IOOperation.READ);
+                // we request a read to be able to detect a client disconnect
+                poll(fd, opId | SUSPENDED_OPERATION_FLAG, IOOperation.READ);
+            } else {
+                poll(fd, opId, operation);
+            }
+        }
+        return useful;
+    }
+
+    private void processSuspendEventDeadlines(long timestamp) {
+        int count = 0;
+        for (int i = 0, n = pendingEvents.size(); i < n && pendingEvents.get(i, EVM_DEADLINE) < timestamp; i++, count++) {
+            final long eventId = pendingEvents.get(i, EVM_ID);
+            final long opId = pendingEvents.get(i, EVM_OPERATION_ID);
+            final int pendingRow = pending.binarySearch(opId, OPM_ID);
+            if (pendingRow < 0) {
+                LOG.critical().$("internal error: failed to find operation for expired suspend event [id=").$(opId).I$();
+                continue;
+            }
+            // First, remove the suspend event poll.
+            final C context = pending.get(pendingRow);
+            final int operation = (int) pending.get(pendingRow, OPM_OPERATION);
+            assert context.getSuspendEvent() != null;
+            pollRemove(eventId);
+            // Next, resume the original operation and close the event.
+            resumeOperation(context, opId, operation);
+        }
+        pendingEvents.zapTop(count);
+    }
+
+    private void resumeOperation(C context, long id, int operation) {
+        // to resume a socket operation, we replace the disconnect detection poll with the operation poll,
+        // the two polls have different ids, so a late completion of the former is ignored
+        pollRemove(id | SUSPENDED_OPERATION_FLAG);
+        poll(context.getFd(), id, operation);
+        context.clearSuspendEvent();
+    }
+
+    private void submit() {
+        final int n = ring.submit();
+        if (n < 0) {
+            LOG.critical().$("internal error: io_uring submit failure [errno=").$(-n).I$();
+        }
+        unsubmittedCount = 0;
+    }
+
+    @Override
+    protected void pendingAdded(int index) {
+        pending.set(index, OPM_ID, nextOpId());
+    }
+
+    @Override
+    protected void registerListenerFd() {
+        if (acceptId == 0) {
+            enqueueAccept();
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        boolean useful = false;
+
+        final long timestamp = clock.getTicks();
+        processDisconnects(timestamp);
+        int watermark = pending.size();
+        while (ring.nextCqe()) {
+            final long id = ring.getCqeId();
+            final int res = ring.getCqeRes();
+            if (id == CONTROL_ID) {
+                continue;
+            }
+            if (id < 0) {
+                handleAccept(id, res, ring.isCqeMore(), timestamp);
+                useful = true;
+                continue;
+            }
+            if (isEventId(id)) {
+                handleSuspendEvent(id, res);
+                continue;
+            }
+            if ((id & SUSPENDED_OPERATION_FLAG) != 0) {
+                if (handleSuspendedOperation(id & ~SUSPENDED_OPERATION_FLAG, res)) {
+                    useful = true;
+                    watermark--;
+                }
+                continue;
+            }
+            if (handleSocketOperation(id, res)) {
+                useful = true;
+                watermark--;
+            }
+        }
+
+        if (deferredFds.size() > 0) {
+            acceptDeferredConnections(timestamp);
+        }
+
+        // process rows over watermark (new connections)
+        if (watermark < pending.size()) {
+            enqueuePending(watermark);
+        }
+
+        // process timed out suspend events and resume the original operations
+        if (pendingEvents.size() > 0 && pendingEvents.get(0, EVM_DEADLINE) < timestamp) {
+            processSuspendEventDeadlines(timestamp);
+        }
+
+        // process timed out connections
+        final long idleTimestamp = timestamp - idleConnectionTimeout;
+        if (pending.size() > 0 && pending.get(0, OPM_CREATE_TIMESTAMP) < idleTimestamp) {
+            watermark -= processIdleConnections(idleTimestamp);
+            useful = true;
+        }
+
+        // process heartbeat timers
+        final long heartbeatTimestamp = timestamp - heartbeatIntervalMs;
+        if (watermark > 0 && pending.get(0, OPM_HEARTBEAT_TIMESTAMP) < heartbeatTimestamp) {
+            processHeartbeats(watermark, heartbeatTimestamp);
+            useful = true;
+        }
+
+        useful = processRegistrations(timestamp) || useful;
+
+        // submit everything enqueued by this iteration with a single syscall
+        if (unsubmittedCount > 0) {
+            submit();
+        }
+        return useful;
+    }
+
+    @Override
+    protected void unregisterListenerFd() {
+        if (acceptId != 0) {
+            cancel(acceptId);
+            acceptId = 0;
+        }
+    }
+}
@@ -33,15 +33,53 @@ public interface IOURing extends Closeable {
     @Override
     void close();
 
+    /**
+     * Enqueues an accept on the listening socket. A multishot accept keeps posting
+     * a cqe for every accepted connection until it is cancelled or fails, the last cqe
+     * is posted without the {@link #isCqeMore()} flag.
+     *
+     * @return false if the submission queue is full; true otherwise.
+     */
+    boolean enqueueAccept(int fd, boolean multishot, long id);
+
+    /**
+     * Enqueues cancellation of a previously enqueued operation.
+     *
+     * @return false if the submission queue is full; true otherwise.
+     */
+    boolean enqueueCancel(long targetId, long id);
+
     @TestOnly
     long enqueueNop();
 
+    /**
+     * Enqueues a one-shot poll for the given poll(2) events on the fd. The cqe result
+     * holds the ready events mask.
+     *
+     * @return false if the submission queue is full; true otherwise.
+     */
+    boolean enqueuePoll(int fd, int events, long id);
+
+    /**
+     * Enqueues removal of a previously enqueued poll. The removed poll posts
+     * a cqe with -ECANCELED result.
+     *
+     * @return false if the submission queue is full; true otherwise.
+     */
+    boolean enqueuePollRemove(long targetId, long id);
+
     long enqueueRead(int fd, long offset, long bufPtr, int len);
 
     long getCqeId();
 
     int getCqeRes();
 
+    /**
+     * Returns true if the current cqe belongs to a multishot operation
+     * that will post more cqes.
+     */
+    boolean isCqeMore();
+
     /**
      * Checks if a cqe is ready and, if so, reads its data. Read data is
      * then available via {@link #getCqeId} and {@link #getCqeRes} methods.
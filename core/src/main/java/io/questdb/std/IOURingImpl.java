@@ -31,7 +31,7 @@ import static io.questdb.std.IOUringAccessor.*;
 
 public class IOURingImpl implements IOURing {
 
-    // Holds <id, res> tuples for recently consumed cqes.
+    // Holds <id, flags:res> tuples for recently consumed cqes, flags are kept in the upper 32 bits.
     private final long[] cachedCqes;
     private final long cqKheadAddr;
     private final int cqKringMask;
@@ -91,12 +91,44 @@ public class IOURingImpl implements IOURing {
         closed = true;
     }
 
+    @Override
+    public boolean enqueueAccept(int fd, boolean multishot, long id) {
+        final long sqeAddr = enqueueSqe(IORING_OP_ACCEPT, fd, 0, 0, 0, id);
+        if (sqeAddr == 0) {
+            return false;
+        }
+        if (multishot) {
+            Unsafe.getUnsafe().putShort(sqeAddr + SQE_IOPRIO_OFFSET, IORING_ACCEPT_MULTISHOT);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean enqueueCancel(long targetId, long id) {
+        return enqueueSqe(IORING_OP_ASYNC_CANCEL, -1, 0, targetId, 0, id) != 0;
+    }
+
     @Override
     @TestOnly
     public long enqueueNop() {
         return enqueueSqe(IORING_OP_NOP, 0, 0, 0, 0);
     }
 
+    @Override
+    public boolean enqueuePoll(int fd, int events, long id) {
+        final long sqeAddr = enqueueSqe(IORING_OP_POLL_ADD, fd, 0, 0, 0, id);
+        if (sqeAddr == 0) {
+            return false;
+        }
+        Unsafe.getUnsafe().putInt(sqeAddr + SQE_OP_FLAGS_OFFSET, events);
+        return true;
+    }
+
+    @Override
+    public boolean enqueuePollRemove(long targetId, long id) {
+        return enqueueSqe(IORING_OP_POLL_REMOVE, -1, 0, targetId, 0, id) != 0;
+    }
+
     @Override
     public long enqueueRead(int fd, long offset, long bufAddr, int len) {
         return enqueueSqe(IORING_OP_READ, fd, offset, bufAddr, len);
@@ -118,6 +150,14 @@ public class IOURingImpl implements IOURing {
         return -1;
     }
 
+    @Override
+    public boolean isCqeMore() {
+        if (cachedIndex < cachedSize) {
+            return ((cachedCqes[2 * cachedIndex + 1] >>> 32) & IORING_CQE_F_MORE) != 0;
+        }
+        return false;
+    }
+
     @Override
     public boolean nextCqe() {
         if (++cachedIndex < cachedSize) {
@@ -133,7 +173,8 @@ public class IOURingImpl implements IOURing {
         for (int i = head; i < tail; i++) {
             final long cqeAddr = cqesAddr + (long) (i & cqKringMask) * SIZEOF_CQE;
             cachedCqes[2 * (i - head)] = Unsafe.getUnsafe().getLong(cqeAddr + CQE_USER_DATA_OFFSET);
-            cachedCqes[2 * (i - head) + 1] = Unsafe.getUnsafe().getInt(cqeAddr + CQE_RES_OFFSET);
+            cachedCqes[2 * (i - head) + 1] = ((long) Unsafe.getUnsafe().getInt(cqeAddr + CQE_FLAGS_OFFSET) << 32)
+                    | (Unsafe.getUnsafe().getInt(cqeAddr + CQE_RES_OFFSET) & 0xffffffffL);
         }
         cachedSize = tail - head;
         cachedIndex = 0;
@@ -153,18 +194,31 @@ public class IOURingImpl implements IOURing {
     }
 
     private long enqueueSqe(byte op, int fd, long offset, long bufAddr, int len) {
+        final long id = idSeq;
+        if (enqueueSqe(op, fd, offset, bufAddr, len, id) == 0) {
+            return -1;
+        }
+        idSeq++;
+        return id;
+    }
+
+    /**
+     * Fills the next sqe and returns its address. If there are no sqes available, returns 0.
+     */
+    private long enqueueSqe(byte op, int fd, long offset, long addr, int len, long id) {
         final long sqeAddr = nextSqe();
         if (sqeAddr == 0) {
-            return -1;
+            return 0;
         }
+        // sqes are reused, clear fields left over from the previous operation
+        Vect.memset(sqeAddr, SIZEOF_SQE, 0);
         Unsafe.getUnsafe().putByte(sqeAddr + SQE_OPCODE_OFFSET, op);
         Unsafe.getUnsafe().putInt(sqeAddr + SQE_FD_OFFSET, fd);
         Unsafe.getUnsafe().putLong(sqeAddr + SQE_OFF_OFFSET, offset);
-        Unsafe.getUnsafe().putLong(sqeAddr + SQE_ADDR_OFFSET, bufAddr);
+        Unsafe.getUnsafe().putLong(sqeAddr + SQE_ADDR_OFFSET, addr);
         Unsafe.getUnsafe().putInt(sqeAddr + SQE_LEN_OFFSET, len);
-        final long id = idSeq++;
         Unsafe.getUnsafe().putLong(sqeAddr + SQE_USER_DATA_OFFSET, id);
-        return id;
+        return sqeAddr;
     }
 
     /**
@@ -26,6 +26,9 @@ package io.questdb.std;
 
 public class IOUringAccessor {
 
+    // the native library does not expose the offsets of cqe flags, sqe ioprio and sqe op flags,
+    // they are fixed by the kernel ABI
+    static final short CQE_FLAGS_OFFSET = 12;
     static final short CQE_RES_OFFSET;
     static final short CQE_USER_DATA_OFFSET;
     static final short CQ_CQES_OFFSET;
@@ -33,16 +36,24 @@ public class IOUringAccessor {
     static final short CQ_KRING_ENTRIES_OFFSET;
     static final short CQ_KRING_MASK_OFFSET;
     static final short CQ_KTAIL_OFFSET;
+    static final short IORING_ACCEPT_MULTISHOT = 1;
+    static final int IORING_CQE_F_MORE = 1 << 1;
+    static final byte IORING_OP_ACCEPT = 13;
+    static final byte IORING_OP_ASYNC_CANCEL = 14;
     static final byte IORING_OP_NOP = 0;
+    static final byte IORING_OP_POLL_ADD = 6;
+    static final byte IORING_OP_POLL_REMOVE = 7;
     static final byte IORING_OP_READ = 22;
     static final short RING_FD_OFFSET;
     static final short SIZEOF_CQE;
     static final short SIZEOF_SQE;
     static final short SQE_ADDR_OFFSET;
     static final short SQE_FD_OFFSET;
+    static final short SQE_IOPRIO_OFFSET = 2;
     static final short SQE_LEN_OFFSET;
     static final short SQE_OFF_OFFSET;
     static final short SQE_OPCODE_OFFSET;
+    static final short SQE_OP_FLAGS_OFFSET = 28;
     static final short SQE_USER_DATA_OFFSET;
     static final short SQ_KHEAD_OFFSET;
     static final short SQ_KRING_ENTRIES_OFFSET;
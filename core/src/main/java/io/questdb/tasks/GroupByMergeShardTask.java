@@ -0,0 +1,67 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.tasks;
+
+import io.questdb.cairo.sql.async.ShardMergeAtom;
+import io.questdb.cutlass.text.AtomicBooleanCircuitBreaker;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.CountDownLatchSPI;
+
+public class GroupByMergeShardTask {
+    private static final Log LOG = LogFactory.getLog(GroupByMergeShardTask.class);
+    private ShardMergeAtom atom;
+    private AtomicBooleanCircuitBreaker circuitBreaker;
+    private CountDownLatchSPI doneLatch;
+    private int shardIndex;
+
+    public void of(
+            ShardMergeAtom atom,
+            int shardIndex,
+            CountDownLatchSPI doneLatch,
+            AtomicBooleanCircuitBreaker circuitBreaker
+    ) {
+        this.atom = atom;
+        this.shardIndex = shardIndex;
+        this.doneLatch = doneLatch;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public boolean run() {
+        try {
+            if (!circuitBreaker.checkIfTripped()) {
+                atom.mergeShard(shardIndex);
+            }
+        } catch (Throwable th) {
+            LOG.error().$("shard merge failed [shardIndex=").$(shardIndex).$(", ex=").$(th).I$();
+            atom.setShardMergeError(th);
+            circuitBreaker.cancel();
+        } finally {
+            doneLatch.countDown();
+        }
+        return true;
+    }
+}
@@ -88,6 +88,7 @@ public abstract class AbstractCairoTest extends AbstractTest {
     protected static final MicrosecondClock defaultMicrosecondClock = () -> currentMicros >= 0 ? currentMicros : MicrosecondClockImpl.INSTANCE.getTicks();
     protected static MicrosecondClock testMicrosClock = defaultMicrosecondClock;
     protected static CairoEngine engine;
+    protected static String exportRoot = null;
     protected static FactoryProvider factoryProvider;
     protected static FilesFacade ff;
     protected static String inputRoot = null;
@@ -284,7 +284,12 @@ public abstract class AbstractGriffinTest extends AbstractCairoTest {
     public void setUp() {
         super.setUp();
         forEachNode(QuestDBTestNode::setUpGriffin);
+        sqlExecutionContext.setParallelAsOfJoinEnabled(configuration.isSqlParallelAsOfJoinEnabled());
         sqlExecutionContext.setParallelFilterEnabled(configuration.isSqlParallelFilterEnabled());
+        sqlExecutionContext.setParallelGroupByEnabled(configuration.isSqlParallelGroupByEnabled());
+        sqlExecutionContext.setParallelHashJoinEnabled(configuration.isSqlParallelHashJoinEnabled());
+        sqlExecutionContext.setParallelLatestByEnabled(configuration.isSqlParallelLatestByEnabled());
+        sqlExecutionContext.setParallelSortEnabled(configuration.isSqlParallelSortEnabled());
     }
 
     @Override
@@ -78,6 +78,11 @@ public class StaticOverrides extends Overrides {
         return AbstractCairoTest.dataAppendPageSize;
     }
 
+    @Override
+    public String getExportRoot() {
+        return AbstractCairoTest.exportRoot;
+    }
+
     @Override
     public FactoryProvider getFactoryProvider() {
         return AbstractCairoTest.factoryProvider;
@@ -249,6 +254,11 @@ public class StaticOverrides extends Overrides {
         AbstractCairoTest.dataAppendPageSize = dataAppendPageSize;
     }
 
+    @Override
+    public void setExportRoot(String exportRoot) {
+        AbstractCairoTest.exportRoot = exportRoot;
+    }
+
     @Override
     public void setFactoryProvider(FactoryProvider factoryProvider) {
         AbstractCairoTest.factoryProvider = factoryProvider;
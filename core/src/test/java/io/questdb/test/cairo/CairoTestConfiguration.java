@@ -238,6 +238,11 @@ public class CairoTestConfiguration extends DefaultTestCairoConfiguration {
         return overrides.getSqlCopyBufferSize();
     }
 
+    @Override
+    public CharSequence getSqlCopyExportRoot() {
+        return overrides.getExportRoot();
+    }
+
     @Override
     public CharSequence getSqlCopyInputRoot() {
         return overrides.getInputRoot();
@@ -358,11 +363,36 @@ public class CairoTestConfiguration extends DefaultTestCairoConfiguration {
         return overrides.getSnapshotRecoveryEnabled() == null ? super.isSnapshotRecoveryEnabled() : overrides.getSnapshotRecoveryEnabled();
     }
 
+    @Override
+    public boolean isSqlParallelAsOfJoinEnabled() {
+        return overrides.isParallelAsOfJoinEnabled() != null ? overrides.isParallelAsOfJoinEnabled() : super.isSqlParallelAsOfJoinEnabled();
+    }
+
     @Override
     public boolean isSqlParallelFilterEnabled() {
         return overrides.isParallelFilterEnabled() != null ? overrides.isParallelFilterEnabled() : super.isSqlParallelFilterEnabled();
     }
 
+    @Override
+    public boolean isSqlParallelGroupByEnabled() {
+        return overrides.isParallelGroupByEnabled() != null ? overrides.isParallelGroupByEnabled() : super.isSqlParallelGroupByEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return overrides.isParallelHashJoinEnabled() != null ? overrides.isParallelHashJoinEnabled() : super.isSqlParallelHashJoinEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelLatestByEnabled() {
+        return overrides.isParallelLatestByEnabled() != null ? overrides.isParallelLatestByEnabled() : super.isSqlParallelLatestByEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelSortEnabled() {
+        return overrides.isParallelSortEnabled() != null ? overrides.isParallelSortEnabled() : super.isSqlParallelSortEnabled();
+    }
+
     @Override
     public boolean isSqlParallelFilterPreTouchEnabled() {
         return overrides.isColumnPreTouchEnabled() != null ? overrides.isColumnPreTouchEnabled() : super.isSqlParallelFilterPreTouchEnabled();
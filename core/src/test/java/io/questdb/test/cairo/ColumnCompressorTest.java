@@ -0,0 +1,202 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cairo;
+
+import io.questdb.cairo.ColumnCompressor;
+import io.questdb.cairo.vm.InflatedBlockCache;
+import io.questdb.cairo.vm.MemoryCMRZImpl;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractTest;
+import io.questdb.test.std.TestFilesFacadeImpl;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ColumnCompressorTest extends AbstractTest {
+    private static final FilesFacade ff = TestFilesFacadeImpl.INSTANCE;
+
+    @BeforeClass
+    public static void setUpStatic() throws Exception {
+        AbstractTest.setUpStatic();
+        // static gzip header of Zip must not be counted as a leak by the first test
+        Zip.init();
+    }
+
+    @Test
+    public void testBlockCacheIsBounded() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int count = 100_000;
+            final long size = (long) count << 3;
+            final long mem = Unsafe.malloc(size, MemoryTag.NATIVE_DEFAULT);
+            try (
+                    Path src = new Path().of(root).concat(testName.getMethodName()).put(".d").$();
+                    Path dst = new Path().of(root).concat(testName.getMethodName()).put(".z").$();
+                    ColumnCompressor compressor = new ColumnCompressor(ff, ColumnCompressor.MIN_BLOCK_SIZE);
+                    InflatedBlockCache cache = new InflatedBlockCache(3 * ColumnCompressor.MIN_BLOCK_SIZE)
+            ) {
+                for (int i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putLong(mem + ((long) i << 3), i * 7L);
+                }
+                final int fd = ff.openRW(src, 0);
+                Assert.assertEquals(size, ff.write(fd, mem, size, 0));
+                ff.close(fd);
+                compressor.compress(src, size, dst, ColumnCompressor.CODEC_DEFLATE, 3);
+
+                try (
+                        MemoryCMRZImpl a = new MemoryCMRZImpl(cache, ff, dst, -1, MemoryTag.MMAP_DEFAULT);
+                        MemoryCMRZImpl b = new MemoryCMRZImpl(cache, ff, dst, -1, MemoryTag.MMAP_DEFAULT)
+                ) {
+                    // two columns scanned in lock step evict each other's blocks
+                    for (int i = 0; i < count; i++) {
+                        final long offset = (long) i << 3;
+                        Assert.assertEquals(i * 7L, a.getLong(offset));
+                        Assert.assertEquals((count - 1 - i) * 7L, b.getLong(size - 8 - offset));
+                        Assert.assertTrue(cache.getSize() <= cache.getMaxSize());
+                    }
+                    // page frames are decoded outside of the cache
+                    final long lo = 10 * ColumnCompressor.MIN_BLOCK_SIZE;
+                    final long hi = lo + 5 * ColumnCompressor.MIN_BLOCK_SIZE;
+                    Assert.assertTrue(Vect.memeq(mem + lo, a.getPageAddress(lo, hi) + lo, hi - lo));
+                    Assert.assertEquals(hi - lo, a.getFrameSize());
+                    Assert.assertTrue(cache.getSize() <= cache.getMaxSize());
+                    a.releaseFrames();
+                    Assert.assertEquals(0, a.getFrameSize());
+                }
+                Assert.assertEquals(0, cache.getSize());
+            } finally {
+                Unsafe.free(mem, size, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
+    @Test
+    public void testDeflate() throws Exception {
+        assertRoundTrip(ColumnCompressor.CODEC_DEFLATE, 0, 10_000, (rnd, i) -> rnd.nextInt(16));
+    }
+
+    @Test
+    public void testIntegerAllNulls() throws Exception {
+        final long size = assertRoundTrip(ColumnCompressor.CODEC_INTEGER, 2, 10_000, (rnd, i) -> Numbers.INT_NaN);
+        // header only blocks
+        Assert.assertTrue(size < 1024);
+    }
+
+    @Test
+    public void testIntegerIntsWithNulls() throws Exception {
+        assertRoundTrip(ColumnCompressor.CODEC_INTEGER, 2, 100_000, (rnd, i) -> rnd.nextInt(10) == 0 ? Numbers.INT_NaN : rnd.nextInt(1000) - 500);
+    }
+
+    @Test
+    public void testIntegerRandomLongs() throws Exception {
+        assertRoundTrip(ColumnCompressor.CODEC_INTEGER, 3, 50_000, (rnd, i) -> rnd.nextLong());
+    }
+
+    @Test
+    public void testIntegerSequence() throws Exception {
+        final long size = assertRoundTrip(ColumnCompressor.CODEC_INTEGER, 3, 100_000, (rnd, i) -> i * 3L);
+        // constant delta packs into block headers
+        Assert.assertTrue(size < 10_000);
+    }
+
+    @Test
+    public void testIntegerShorts() throws Exception {
+        assertRoundTrip(ColumnCompressor.CODEC_INTEGER, 1, 100_001, (rnd, i) -> rnd.nextShort());
+    }
+
+    @Test
+    public void testIntegerTimestamps() throws Exception {
+        final long[] ts = {1_600_000_000_000_000L};
+        final long size = assertRoundTrip(ColumnCompressor.CODEC_INTEGER, 3, 100_000, (rnd, i) -> ts[0] += 1_000_000 + rnd.nextInt(16));
+        // 5 bits per delta-of-delta
+        Assert.assertTrue(size < 100_000);
+    }
+
+    @Test
+    public void testIntegerWrapAround() throws Exception {
+        assertRoundTrip(ColumnCompressor.CODEC_INTEGER, 3, 10_000, (rnd, i) -> (i & 1) == 0 ? Long.MAX_VALUE - i : Long.MIN_VALUE + 1 + i);
+    }
+
+    private static void putValue(long address, int valueSizeBits, long value) {
+        switch (valueSizeBits) {
+            case 0:
+                Unsafe.getUnsafe().putByte(address, (byte) value);
+                break;
+            case 1:
+                Unsafe.getUnsafe().putShort(address, (short) value);
+                break;
+            case 2:
+                Unsafe.getUnsafe().putInt(address, (int) value);
+                break;
+            default:
+                Unsafe.getUnsafe().putLong(address, value);
+                break;
+        }
+    }
+
+    private long assertRoundTrip(int codec, int valueSizeBits, int count, ValueGenerator generator) throws Exception {
+        final long[] compressedSize = new long[1];
+        TestUtils.assertMemoryLeak(() -> {
+            final long size = (long) count << valueSizeBits;
+            final long mem = Unsafe.malloc(size, MemoryTag.NATIVE_DEFAULT);
+            try (
+                    Path src = new Path().of(root).concat(testName.getMethodName()).put(".d").$();
+                    Path dst = new Path().of(root).concat(testName.getMethodName()).put(".z").$();
+                    ColumnCompressor compressor = new ColumnCompressor(ff, ColumnCompressor.MIN_BLOCK_SIZE)
+            ) {
+                final Rnd rnd = new Rnd();
+                for (int i = 0; i < count; i++) {
+                    putValue(mem + ((long) i << valueSizeBits), valueSizeBits, generator.next(rnd, i));
+                }
+                final int fd = ff.openRW(src, 0);
+                Assert.assertEquals(size, ff.write(fd, mem, size, 0));
+                ff.close(fd);
+
+                compressedSize[0] = compressor.compress(src, size, dst, codec, valueSizeBits);
+                Assert.assertEquals(compressedSize[0], ff.length(dst));
+
+                try (MemoryCMRZImpl compressed = new MemoryCMRZImpl(ff, dst, -1, MemoryTag.MMAP_DEFAULT)) {
+                    Assert.assertEquals(size, compressed.size());
+                    // random access decodes single blocks
+                    for (int i = 0; i < 100; i++) {
+                        final long offset = (long) rnd.nextInt(count) << valueSizeBits;
+                        Assert.assertEquals(Unsafe.getUnsafe().getByte(mem + offset), compressed.getByte(offset));
+                    }
+                    Assert.assertTrue(Vect.memeq(mem, compressed.getPageAddress(0), size));
+                    Assert.assertEquals(size, compressed.getFrameSize());
+                }
+            } finally {
+                Unsafe.free(mem, size, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+        return compressedSize[0];
+    }
+
+    @FunctionalInterface
+    private interface ValueGenerator {
+        long next(Rnd rnd, int index);
+    }
+}
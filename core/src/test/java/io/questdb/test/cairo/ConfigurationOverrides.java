@@ -61,6 +61,8 @@ public interface ConfigurationOverrides {
 
     int getDefaultTableWriteMode();
 
+    String getExportRoot();
+
     FactoryProvider getFactoryProvider();
 
     FilesFacade getFilesFacade();
@@ -149,8 +151,18 @@ public interface ConfigurationOverrides {
 
     boolean isO3QuickSortEnabled();
 
+    Boolean isParallelAsOfJoinEnabled();
+
     Boolean isParallelFilterEnabled();
 
+    Boolean isParallelGroupByEnabled();
+
+    Boolean isParallelHashJoinEnabled();
+
+    Boolean isParallelLatestByEnabled();
+
+    Boolean isParallelSortEnabled();
+
     Boolean isWriterMixedIOEnabled();
 
     boolean mangleTableDirNames();
@@ -187,6 +199,8 @@ public interface ConfigurationOverrides {
 
     void setDefaultTableWriteMode(int defaultTableWriteMode);
 
+    void setExportRoot(String exportRoot);
+
     void setFactoryProvider(FactoryProvider factoryProvider);
 
     void setFilesFacade(FilesFacade ff);
@@ -225,8 +239,18 @@ public interface ConfigurationOverrides {
 
     void setPageFrameReduceShardCount(int pageFrameReduceShardCount);
 
+    void setParallelAsOfJoinEnabled(Boolean parallelAsOfJoinEnabled);
+
     void setParallelFilterEnabled(Boolean parallelFilterEnabled);
 
+    void setParallelGroupByEnabled(Boolean parallelGroupByEnabled);
+
+    void setParallelHashJoinEnabled(Boolean parallelHashJoinEnabled);
+
+    void setParallelLatestByEnabled(Boolean parallelLatestByEnabled);
+
+    void setParallelSortEnabled(Boolean parallelSortEnabled);
+
     void setParallelImportStatusLogKeepNDays(int parallelImportStatusLogKeepNDays);
 
     void setPartitionO3SplitThreshold(long value);
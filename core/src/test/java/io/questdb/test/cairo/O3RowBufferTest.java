@@ -0,0 +1,255 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cairo;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.O3RowBuffer;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.sql.TableRecordMetadata;
+import io.questdb.std.IntList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class O3RowBufferTest extends AbstractGriffinTest {
+    // 2023-01-01T00:00:00.000000Z
+    private static final long TS = 1672531200000000L;
+
+    @Test
+    public void testAppendAfterColumnAdded() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (ts timestamp, i int) timestamp(ts) partition by DAY");
+            try (
+                    TableWriter writer = getWriter("x");
+                    O3RowBuffer buffer = newBuffer()
+            ) {
+                layOut(buffer, writer);
+                buffer.newRow(TS + Timestamps.HOUR_MICROS);
+                buffer.putInt(1, 1);
+                buffer.append();
+
+                writer.addColumn("s", ColumnType.STRING);
+                writer.addColumn("sym", ColumnType.SYMBOL);
+
+                // rows already in the buffer have no values for the new columns
+                layOut(buffer, writer);
+                buffer.newRow(TS);
+                buffer.putInt(1, 2);
+                buffer.putStr(2, "abc");
+                buffer.putSym(3, "a");
+                buffer.append();
+
+                writer.appendO3RowBuffer(buffer);
+                writer.commit();
+            }
+
+            assertSql(
+                    "x",
+                    "ts\ti\ts\tsym\n" +
+                            "2023-01-01T00:00:00.000000Z\t2\tabc\ta\n" +
+                            "2023-01-01T01:00:00.000000Z\t1\t\t\n"
+            );
+        });
+    }
+
+    @Test
+    public void testAppendInterleavedWithRows() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (ts timestamp, sym symbol, l long, s string) timestamp(ts) partition by DAY");
+            try (
+                    TableWriter writer = getWriter("x");
+                    O3RowBuffer buffer = newBuffer()
+            ) {
+                TableWriter.Row row = writer.newRow(TS + 2 * Timestamps.HOUR_MICROS);
+                row.putSym(1, "a");
+                row.putLong(2, 10);
+                row.putStr(3, "w1");
+                row.append();
+
+                layOut(buffer, writer);
+                buffer.newRow(TS + Timestamps.HOUR_MICROS);
+                buffer.putSym(1, "b");
+                buffer.putLong(2, 20);
+                buffer.putStr(3, "b1");
+                buffer.append();
+                buffer.newRow(TS + Timestamps.DAY_MICROS);
+                buffer.putSym(1, "a");
+                buffer.putStr(3, "b2");
+                buffer.append();
+
+                writer.appendO3RowBuffer(buffer);
+
+                // the writer is in O3 mode now, rows keep going to O3 memory
+                row = writer.newRow(TS);
+                row.putSym(1, "c");
+                row.putLong(2, 30);
+                row.putStr(3, "w2");
+                row.append();
+
+                // the same buffer rows are appended twice, they get new row indexes
+                writer.appendO3RowBuffer(buffer);
+                Assert.assertEquals(6, writer.getUncommittedRowCount());
+                writer.commit();
+            }
+
+            assertSql(
+                    "x",
+                    "ts\tsym\tl\ts\n" +
+                            "2023-01-01T00:00:00.000000Z\tc\t30\tw2\n" +
+                            "2023-01-01T01:00:00.000000Z\tb\t20\tb1\n" +
+                            "2023-01-01T01:00:00.000000Z\tb\t20\tb1\n" +
+                            "2023-01-01T02:00:00.000000Z\ta\t10\tw1\n" +
+                            "2023-01-02T00:00:00.000000Z\ta\tNaN\tb2\n" +
+                            "2023-01-02T00:00:00.000000Z\ta\tNaN\tb2\n"
+            );
+        });
+    }
+
+    @Test
+    public void testAppendToEmptyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (ts timestamp, sym symbol, i int, s string, d double) timestamp(ts) partition by DAY");
+            try (
+                    TableWriter writer = getWriter("x");
+                    O3RowBuffer buffer = newBuffer()
+            ) {
+                layOut(buffer, writer);
+                for (int i = 0; i < 5; i++) {
+                    // rows go back in time
+                    buffer.newRow(TS + (4 - i) * 12 * Timestamps.HOUR_MICROS);
+                    buffer.putSym(1, i % 2 == 0 ? "even" : "odd");
+                    buffer.putInt(2, i);
+                    if (i != 3) {
+                        buffer.putStr(3, "s" + i);
+                    }
+                    buffer.append();
+                }
+                Assert.assertEquals(5, buffer.getRowCount());
+                Assert.assertEquals(TS, buffer.getMinTimestamp());
+                Assert.assertEquals(TS + 48 * Timestamps.HOUR_MICROS, buffer.getMaxTimestamp());
+
+                writer.appendO3RowBuffer(buffer);
+                writer.commit();
+                Assert.assertEquals(3, writer.getPartitionCount());
+            }
+
+            assertSql(
+                    "x",
+                    "ts\tsym\ti\ts\td\n" +
+                            "2023-01-01T00:00:00.000000Z\teven\t4\ts4\tNaN\n" +
+                            "2023-01-01T12:00:00.000000Z\todd\t3\t\tNaN\n" +
+                            "2023-01-02T00:00:00.000000Z\teven\t2\ts2\tNaN\n" +
+                            "2023-01-02T12:00:00.000000Z\todd\t1\ts1\tNaN\n" +
+                            "2023-01-03T00:00:00.000000Z\teven\t0\ts0\tNaN\n"
+            );
+            assertSql("select count_distinct(sym) from x", "count_distinct\n2\n");
+        });
+    }
+
+    @Test
+    public void testCancelRow() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (ts timestamp, i int, s string) timestamp(ts) partition by DAY");
+            try (
+                    TableWriter writer = getWriter("x");
+                    O3RowBuffer buffer = newBuffer()
+            ) {
+                layOut(buffer, writer);
+                buffer.newRow(TS);
+                buffer.putInt(1, 1);
+                buffer.putStr(2, "keep");
+                buffer.append();
+
+                buffer.newRow(TS + 1);
+                buffer.putInt(1, 2);
+                buffer.putStr(2, "cancelled");
+                buffer.cancel();
+
+                // a new row cancels the row in progress
+                buffer.newRow(TS + 2);
+                buffer.putStr(2, "cancelled too");
+                buffer.newRow(TS + 3);
+                buffer.putInt(1, 3);
+                buffer.append();
+
+                try {
+                    buffer.newRow(-1);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "timestamp before 1970-01-01 is not allowed");
+                }
+                Assert.assertEquals(2, buffer.getRowCount());
+
+                writer.appendO3RowBuffer(buffer);
+                writer.commit();
+            }
+
+            assertSql(
+                    "x",
+                    "ts\ti\ts\n" +
+                            "2023-01-01T00:00:00.000000Z\t1\tkeep\n" +
+                            "2023-01-01T00:00:00.000003Z\t3\t\n"
+            );
+        });
+    }
+
+    @Test
+    public void testNonPartitionedTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (ts timestamp, i int) timestamp(ts)");
+            try (
+                    TableWriter writer = getWriter("x");
+                    O3RowBuffer buffer = newBuffer()
+            ) {
+                layOut(buffer, writer);
+                buffer.newRow(TS);
+                buffer.append();
+                try {
+                    writer.appendO3RowBuffer(buffer);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "row buffers can only be appended to partitioned tables");
+                }
+            }
+        });
+    }
+
+    private static void layOut(O3RowBuffer buffer, TableWriter writer) {
+        final TableRecordMetadata metadata = writer.getMetadata();
+        final IntList columnTypes = new IntList();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            columnTypes.add(metadata.getColumnType(i));
+        }
+        buffer.of(writer.getStructureVersion(), metadata.getTimestampIndex(), columnTypes);
+    }
+
+    private static O3RowBuffer newBuffer() {
+        return new O3RowBuffer(configuration.getO3ColumnMemorySize(), configuration.getO3MemMaxPages(), MemoryTag.NATIVE_O3);
+    }
+}
@@ -54,6 +54,7 @@ public class Overrides implements ConfigurationOverrides {
     private long dataAppendPageSize = -1;
     private CharSequence defaultMapType;
     private int defaultTableWriteMode = SqlWalMode.WAL_NOT_SET;
+    private String exportRoot = null;
     private FactoryProvider factoryProvider = null;
     private FilesFacade ff;
     private boolean hideTelemetryTable = false;
@@ -72,7 +73,12 @@ public class Overrides implements ConfigurationOverrides {
     private int pageFrameMaxRows = -1;
     private int pageFrameReduceQueueCapacity = -1;
     private int pageFrameReduceShardCount = -1;
+    private Boolean parallelAsOfJoinEnabled = null;
     private Boolean parallelFilterEnabled = null;
+    private Boolean parallelGroupByEnabled = null;
+    private Boolean parallelHashJoinEnabled = null;
+    private Boolean parallelLatestByEnabled = null;
+    private Boolean parallelSortEnabled = null;
     private int parallelImportStatusLogKeepNDays = -1;
     private int queryCacheEventQueueCapacity = -1;
     private int recreateDistressedSequencerAttempts = 3;
@@ -168,6 +174,11 @@ public class Overrides implements ConfigurationOverrides {
         return defaultTableWriteMode;
     }
 
+    @Override
+    public String getExportRoot() {
+        return exportRoot;
+    }
+
     @Override
     public FactoryProvider getFactoryProvider() {
         return factoryProvider;
@@ -388,11 +399,36 @@ public class Overrides implements ConfigurationOverrides {
         return o3QuickSortEnabled;
     }
 
+    @Override
+    public Boolean isParallelAsOfJoinEnabled() {
+        return parallelAsOfJoinEnabled;
+    }
+
     @Override
     public Boolean isParallelFilterEnabled() {
         return parallelFilterEnabled;
     }
 
+    @Override
+    public Boolean isParallelGroupByEnabled() {
+        return parallelGroupByEnabled;
+    }
+
+    @Override
+    public Boolean isParallelHashJoinEnabled() {
+        return parallelHashJoinEnabled;
+    }
+
+    @Override
+    public Boolean isParallelLatestByEnabled() {
+        return parallelLatestByEnabled;
+    }
+
+    @Override
+    public Boolean isParallelSortEnabled() {
+        return parallelSortEnabled;
+    }
+
     @Override
     public Boolean isWriterMixedIOEnabled() {
         return writerMixedIOEnabled;
@@ -422,7 +458,12 @@ public class Overrides implements ConfigurationOverrides {
         spinLockTimeout = -1;
         snapshotInstanceId = null;
         snapshotRecoveryEnabled = null;
+        parallelAsOfJoinEnabled = null;
         parallelFilterEnabled = null;
+        parallelGroupByEnabled = null;
+        parallelHashJoinEnabled = null;
+        parallelLatestByEnabled = null;
+        parallelSortEnabled = null;
         writerMixedIOEnabled = null;
         columnPreTouchEnabled = null;
         writerCommandQueueCapacity = 4;
@@ -528,6 +569,11 @@ public class Overrides implements ConfigurationOverrides {
         this.defaultTableWriteMode = defaultTableWriteMode;
     }
 
+    @Override
+    public void setExportRoot(String exportRoot) {
+        this.exportRoot = exportRoot;
+    }
+
     @Override
     public void setFactoryProvider(FactoryProvider factoryProvider) {
         this.factoryProvider = factoryProvider;
@@ -623,11 +669,36 @@ public class Overrides implements ConfigurationOverrides {
         this.pageFrameReduceShardCount = pageFrameReduceShardCount;
     }
 
+    @Override
+    public void setParallelAsOfJoinEnabled(Boolean parallelAsOfJoinEnabled) {
+        this.parallelAsOfJoinEnabled = parallelAsOfJoinEnabled;
+    }
+
     @Override
     public void setParallelFilterEnabled(Boolean parallelFilterEnabled) {
         this.parallelFilterEnabled = parallelFilterEnabled;
     }
 
+    @Override
+    public void setParallelGroupByEnabled(Boolean parallelGroupByEnabled) {
+        this.parallelGroupByEnabled = parallelGroupByEnabled;
+    }
+
+    @Override
+    public void setParallelHashJoinEnabled(Boolean parallelHashJoinEnabled) {
+        this.parallelHashJoinEnabled = parallelHashJoinEnabled;
+    }
+
+    @Override
+    public void setParallelLatestByEnabled(Boolean parallelLatestByEnabled) {
+        this.parallelLatestByEnabled = parallelLatestByEnabled;
+    }
+
+    @Override
+    public void setParallelSortEnabled(Boolean parallelSortEnabled) {
+        this.parallelSortEnabled = parallelSortEnabled;
+    }
+
     @Override
     public void setParallelImportStatusLogKeepNDays(int parallelImportStatusLogKeepNDays) {
         this.parallelImportStatusLogKeepNDays = parallelImportStatusLogKeepNDays;
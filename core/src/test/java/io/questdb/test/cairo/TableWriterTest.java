@@ -647,6 +647,12 @@ public class TableWriterTest extends AbstractCairoTest {
             public FilesFacade getFilesFacade() {
                 return ff;
             }
+
+            @Override
+            public int getPartitionZoneMapBlockRows() {
+                // zone maps of closed partitions read supplier.d too, count only opens of the index build
+                return 0;
+            }
         };
 
         testAddIndexAndFailToIndexHalfWay(configuration, PartitionBy.DAY, 1000);
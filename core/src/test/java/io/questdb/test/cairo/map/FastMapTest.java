@@ -790,6 +790,180 @@ public class FastMapTest extends AbstractCairoTest {
         }
     }
 
+    @Test
+    public void testMergeFixedSizeKey() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            SingleColumnType keyTypes = new SingleColumnType(ColumnType.INT);
+            SingleColumnType valueTypes = new SingleColumnType(ColumnType.LONG);
+            // small key capacity to exercise resizes while merging
+            try (
+                    FastMap mapA = new FastMap(Numbers.SIZE_1MB, keyTypes, valueTypes, 16, 0.5, Integer.MAX_VALUE);
+                    FastMap mapB = new FastMap(Numbers.SIZE_1MB, keyTypes, valueTypes, 16, 0.5, Integer.MAX_VALUE)
+            ) {
+                final int N = 1000;
+                for (int i = 0; i < N; i++) {
+                    MapKey keyA = mapA.withKey();
+                    keyA.putInt(i);
+                    MapValue valueA = keyA.createValue();
+                    Assert.assertTrue(valueA.isNew());
+                    valueA.putLong(0, i + 1);
+                }
+
+                // half of the keys overlap with mapA
+                for (int i = 2 * N; i >= N / 2; i--) {
+                    MapKey keyB = mapB.withKey();
+                    keyB.putInt(i);
+                    MapValue valueB = keyB.createValue();
+                    Assert.assertTrue(valueB.isNew());
+                    valueB.putLong(0, i + 1);
+                }
+
+                final int expectedSize = 2 * N + 1;
+                mapA.merge(mapB, (destValue, srcValue) -> destValue.addLong(0, srcValue.getLong(0)));
+                Assert.assertEquals(expectedSize, mapA.size());
+
+                for (int i = 0; i < expectedSize; i++) {
+                    MapKey key = mapA.withKey();
+                    key.putInt(i);
+                    MapValue value = key.findValue();
+                    Assert.assertNotNull(value);
+                    final long expectedValue = i >= N / 2 && i < N ? 2L * (i + 1) : i + 1;
+                    Assert.assertEquals(expectedValue, value.getLong(0));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testMergeShards() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            SingleColumnType keyTypes = new SingleColumnType(ColumnType.INT);
+            SingleColumnType valueTypes = new SingleColumnType(ColumnType.LONG);
+            final int shardCountBits = 2;
+            final ObjList<FastMap> shards = new ObjList<>();
+            try (
+                    FastMap mapA = new FastMap(Numbers.SIZE_1MB, keyTypes, valueTypes, 16, 0.5, Integer.MAX_VALUE);
+                    FastMap mapB = new FastMap(Numbers.SIZE_1MB, keyTypes, valueTypes, 16, 0.5, Integer.MAX_VALUE)
+            ) {
+                // small page size to exercise resizes of the maps populated by merge only
+                for (int i = 0, n = 1 << shardCountBits; i < n; i++) {
+                    shards.add(new FastMap(256, keyTypes, valueTypes, 16, 0.5, Integer.MAX_VALUE));
+                }
+
+                final int N = 1000;
+                for (int i = 0; i < N; i++) {
+                    MapKey keyA = mapA.withKey();
+                    keyA.putInt(i);
+                    keyA.createValue().putLong(0, i + 1);
+                }
+
+                // half of the keys overlap with mapA
+                for (int i = 2 * N; i >= N / 2; i--) {
+                    MapKey keyB = mapB.withKey();
+                    keyB.putInt(i);
+                    keyB.createValue().putLong(0, i + 1);
+                }
+
+                for (int i = 0, n = shards.size(); i < n; i++) {
+                    final FastMap shard = shards.getQuick(i);
+                    shard.merge(mapA, (destValue, srcValue) -> destValue.addLong(0, srcValue.getLong(0)), i, shardCountBits);
+                    shard.merge(mapB, (destValue, srcValue) -> destValue.addLong(0, srcValue.getLong(0)), i, shardCountBits);
+                }
+
+                // source maps must stay intact
+                Assert.assertEquals(N, mapA.size());
+                Assert.assertEquals(3 * N / 2 + 1, mapB.size());
+
+                final int expectedSize = 2 * N + 1;
+                long totalSize = 0;
+                for (int i = 0, n = shards.size(); i < n; i++) {
+                    totalSize += shards.getQuick(i).size();
+                }
+                Assert.assertEquals(expectedSize, totalSize);
+
+                for (int i = 0; i < expectedSize; i++) {
+                    int found = 0;
+                    for (int j = 0, n = shards.size(); j < n; j++) {
+                        MapKey key = shards.getQuick(j).withKey();
+                        key.putInt(i);
+                        MapValue value = key.findValue();
+                        if (value != null) {
+                            final long expectedValue = i >= N / 2 && i < N ? 2L * (i + 1) : i + 1;
+                            Assert.assertEquals(expectedValue, value.getLong(0));
+                            found++;
+                        }
+                    }
+                    // keys must not be duplicated across shards
+                    Assert.assertEquals(1, found);
+                }
+
+                final ShardedFastMapCursor cursor = new ShardedFastMapCursor(shards.getQuick(0));
+                cursor.of(shards);
+                Assert.assertEquals(expectedSize, cursor.size());
+                final MapRecord record = cursor.getRecord();
+                final MapRecord recordB = cursor.getRecordB();
+                long count = 0;
+                long keySum = 0;
+                while (cursor.hasNext()) {
+                    count++;
+                    keySum += record.getInt(1);
+                    cursor.recordAt(recordB, record.getRowId());
+                    Assert.assertEquals(record.getInt(1), recordB.getInt(1));
+                    Assert.assertEquals(record.getValue().getLong(0), recordB.getValue().getLong(0));
+                }
+                Assert.assertEquals(expectedSize, count);
+                Assert.assertEquals((long) (expectedSize - 1) * expectedSize / 2, keySum);
+            } finally {
+                Misc.freeObjList(shards);
+            }
+        });
+    }
+
+    @Test
+    public void testMergeVarSizeKey() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            SingleColumnType keyTypes = new SingleColumnType(ColumnType.STRING);
+            SingleColumnType valueTypes = new SingleColumnType(ColumnType.LONG);
+            try (
+                    FastMap mapA = new FastMap(Numbers.SIZE_1MB, keyTypes, valueTypes, 16, 0.5, Integer.MAX_VALUE);
+                    FastMap mapB = new FastMap(Numbers.SIZE_1MB, keyTypes, valueTypes, 16, 0.5, Integer.MAX_VALUE)
+            ) {
+                final int N = 1000;
+                for (int i = 0; i < N; i++) {
+                    MapKey keyA = mapA.withKey();
+                    keyA.putStr("foo" + i);
+                    MapValue valueA = keyA.createValue();
+                    Assert.assertTrue(valueA.isNew());
+                    valueA.putLong(0, i + 1);
+                }
+
+                for (int i = 0; i < 2 * N; i += 2) {
+                    MapKey keyB = mapB.withKey();
+                    keyB.putStr("foo" + i);
+                    MapValue valueB = keyB.createValue();
+                    Assert.assertTrue(valueB.isNew());
+                    valueB.putLong(0, i + 1);
+                }
+
+                mapA.merge(mapB, (destValue, srcValue) -> destValue.addLong(0, srcValue.getLong(0)));
+                Assert.assertEquals(N + N / 2, mapA.size());
+
+                for (int i = 0; i < 2 * N; i++) {
+                    MapKey key = mapA.withKey();
+                    key.putStr("foo" + i);
+                    MapValue value = key.findValue();
+                    if (i >= N && (i & 1) == 1) {
+                        Assert.assertNull(value);
+                        continue;
+                    }
+                    Assert.assertNotNull(value);
+                    final long expectedValue = i < N && (i & 1) == 0 ? 2L * (i + 1) : i + 1;
+                    Assert.assertEquals(expectedValue, value.getLong(0));
+                }
+            }
+        });
+    }
+
     @Test
     public void testNoValueColumns() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
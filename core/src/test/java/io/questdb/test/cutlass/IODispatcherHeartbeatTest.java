@@ -34,15 +34,21 @@ import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.questdb.test.tools.TestUtils.assertMemoryLeak;
 
+@RunWith(Parameterized.class)
 public class IODispatcherHeartbeatTest {
 
     private static final Log LOG = LogFactory.getLog(IODispatcherHeartbeatTest.class);
+    private final boolean ioURingEnabled;
 
     @Rule
     public Timeout timeout = Timeout.builder()
@@ -50,6 +56,18 @@ public class IODispatcherHeartbeatTest {
             .withLookingForStuckThread(true)
             .build();
 
+    public IODispatcherHeartbeatTest(boolean ioURingEnabled) {
+        this.ioURingEnabled = ioURingEnabled;
+    }
+
+    @Parameterized.Parameters(name = "io_uring={0}")
+    public static Collection<Object[]> data() {
+        // io_uring dispatcher is used only on Linux kernels that support it, epoll is used otherwise
+        return Arrays.asList(new Object[][]{
+                {false}, {true}
+        });
+    }
+
     @Test
     public void testHeartbeatIntervals() throws Exception {
         LOG.info().$("started testHeartbeatIntervals").$();
@@ -73,6 +91,11 @@ public class IODispatcherHeartbeatTest {
                         public long getHeartbeatInterval() {
                             return heartbeatInterval;
                         }
+
+                        @Override
+                        public boolean isIOURingEnabled() {
+                            return ioURingEnabled;
+                        }
                     },
                     (fd, d) -> {
                         connected.incrementAndGet();
@@ -152,6 +175,11 @@ public class IODispatcherHeartbeatTest {
                         public long getTimeout() {
                             return heartbeatToIdleRatio * heartbeatInterval;
                         }
+
+                        @Override
+                        public boolean isIOURingEnabled() {
+                            return ioURingEnabled;
+                        }
                     },
                     (fd, d) -> {
                         connected.incrementAndGet();
@@ -224,6 +252,11 @@ public class IODispatcherHeartbeatTest {
                 public long getHeartbeatInterval() {
                     return heartbeatInterval;
                 }
+
+                @Override
+                public boolean isIOURingEnabled() {
+                    return ioURingEnabled;
+                }
             };
             try (IODispatcher<TestContext> dispatcher = IODispatchers.create(
                     ioDispatcherConfig,
@@ -294,6 +327,11 @@ public class IODispatcherHeartbeatTest {
                 public long getHeartbeatInterval() {
                     return heartbeatInterval;
                 }
+
+                @Override
+                public boolean isIOURingEnabled() {
+                    return ioURingEnabled;
+                }
             };
             try (IODispatcher<TestContext> dispatcher = IODispatchers.create(
                     ioDispatcherConfig,
@@ -375,6 +413,11 @@ public class IODispatcherHeartbeatTest {
                 public long getTimeout() {
                     return heartbeatToIdleRatio * heartbeatInterval;
                 }
+
+                @Override
+                public boolean isIOURingEnabled() {
+                    return ioURingEnabled;
+                }
             };
             try (IODispatcher<TestContext> dispatcher = IODispatchers.create(
                     ioDispatcherConfig,
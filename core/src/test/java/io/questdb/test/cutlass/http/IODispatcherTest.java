@@ -29,6 +29,7 @@ import io.questdb.MessageBusImpl;
 import io.questdb.Metrics;
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.OperationFuture;
+import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cutlass.Services;
 import io.questdb.cutlass.http.*;
@@ -69,6 +70,8 @@ import org.junit.*;
 import org.junit.rules.Timeout;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
@@ -608,6 +611,152 @@ public class IODispatcherTest extends AbstractTest {
         );
     }
 
+    @Test
+    public void testExpArrow() throws Exception {
+        final ByteArrayResponse expectedResponse;
+        try (InputStream is = getClass().getResourceAsStream(getClass().getSimpleName() + ".testExpArrow.bin")) {
+            Assert.assertNotNull(is);
+            byte[] bytes = new byte[4 * 1024];
+            int len = is.read(bytes);
+            expectedResponse = new ByteArrayResponse(bytes, len);
+        }
+        new HttpQueryTestBuilder()
+                .withTempFolder(root)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withTelemetry(false)
+                .run((engine) -> {
+                    final String select = "select x l, case when x = 2 then cast(null as string) else cast(x as string) end s from long_sequence(3)";
+                    final String request = "GET /exp?fmt=arrow&query=" + HttpUtils.urlEncodeQuery(select) + " HTTP/1.1\r\n";
+                    new SendAndReceiveRequestBuilder().executeWithStandardRequestHeaders(request, expectedResponse);
+
+                    final ArrowStreamReader reader = new ArrowStreamReader(
+                            new SendAndReceiveRequestBuilder().executeWithStandardRequestHeadersChunked(request)
+                    );
+                    final int schema = reader.nextMessage(ArrowStreamReader.MESSAGE_SCHEMA);
+                    final int fields = reader.vector(schema, 1);
+                    Assert.assertEquals(2, reader.buf.getInt(fields));
+                    final int intType = reader.assertField(fields, 0, "l", ArrowStreamReader.TYPE_INT);
+                    Assert.assertEquals(64, reader.buf.getInt(reader.field(intType, 0)));
+                    Assert.assertEquals(1, reader.buf.get(reader.field(intType, 1)));
+                    reader.assertField(fields, 1, "s", ArrowStreamReader.TYPE_UTF8);
+
+                    final int batch = reader.nextMessage(ArrowStreamReader.MESSAGE_RECORD_BATCH);
+                    Assert.assertEquals(3, reader.buf.getLong(reader.field(batch, 0)));
+                    Assert.assertEquals(5, reader.buf.getInt(reader.vector(batch, 2)));
+                    // l: no nulls, the validity buffer is omitted
+                    reader.assertNode(batch, 0, 3, 0);
+                    Assert.assertEquals(0, reader.bufferLength(batch, 0));
+                    Assert.assertEquals(3 * Long.BYTES, reader.bufferLength(batch, 1));
+                    for (int i = 0; i < 3; i++) {
+                        Assert.assertEquals(i + 1, reader.buf.getLong(reader.bufferAddress(batch, 1) + Long.BYTES * i));
+                    }
+                    // s: the second row is null
+                    reader.assertNode(batch, 1, 3, 1);
+                    reader.assertBufferBits(batch, 2, 3, 0b101);
+                    Assert.assertEquals(4 * Integer.BYTES, reader.bufferLength(batch, 3));
+                    Assert.assertEquals("1", reader.utf8(batch, 3, 0));
+                    Assert.assertEquals("", reader.utf8(batch, 3, 1));
+                    Assert.assertEquals("3", reader.utf8(batch, 3, 2));
+                    Assert.assertEquals(2, reader.bufferLength(batch, 4));
+                    reader.assertEndOfStream();
+                });
+    }
+
+    @Test
+    public void testExpArrowPageFrame() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(root)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withTelemetry(false)
+                .run((engine) -> {
+                    final String select = "arrow_t";
+                    try (
+                            SqlCompiler compiler = new SqlCompiler(engine);
+                            SqlExecutionContext executionContext = TestUtils.createSqlExecutionCtx(engine)
+                    ) {
+                        compiler.compile(
+                                "create table arrow_t as (" +
+                                        "select" +
+                                        " cast(case when x = 2 then cast(null as string) else 's' || x end as symbol) sym," +
+                                        " case when x = 3 then cast(null as double) else x * 1.5 end d," +
+                                        " case when x = 1 then cast(null as timestamp) else cast(x * 1000000 as timestamp) end t," +
+                                        " timestamp_sequence(0, 1000000) ts" +
+                                        " from long_sequence(4)" +
+                                        ") timestamp(ts) partition by day",
+                                executionContext
+                        );
+                        // the query must be exported via page frames rather than record by record
+                        try (RecordCursorFactory factory = compiler.compile(select, executionContext).getRecordCursorFactory()) {
+                            Assert.assertTrue(factory.supportPageFrameCursor());
+                            Assert.assertEquals(RecordCursorFactory.SCAN_DIRECTION_FORWARD, factory.getScanDirection());
+                        }
+                    }
+
+                    final ArrowStreamReader reader = new ArrowStreamReader(
+                            new SendAndReceiveRequestBuilder().executeWithStandardRequestHeadersChunked(
+                                    "GET /exp?fmt=arrow&query=" + HttpUtils.urlEncodeQuery(select) + " HTTP/1.1\r\n"
+                            )
+                    );
+                    final int schema = reader.nextMessage(ArrowStreamReader.MESSAGE_SCHEMA);
+                    final int fields = reader.vector(schema, 1);
+                    Assert.assertEquals(4, reader.buf.getInt(fields));
+                    reader.assertField(fields, 0, "sym", ArrowStreamReader.TYPE_UTF8);
+                    final int doubleType = reader.assertField(fields, 1, "d", ArrowStreamReader.TYPE_FLOATING_POINT);
+                    // Precision.DOUBLE
+                    Assert.assertEquals(2, reader.buf.getShort(reader.field(doubleType, 0)));
+                    for (int i = 2; i < 4; i++) {
+                        final int timestampType = reader.assertField(fields, i, i == 2 ? "t" : "ts", ArrowStreamReader.TYPE_TIMESTAMP);
+                        // TimeUnit.MICROSECOND
+                        Assert.assertEquals(2, reader.buf.getShort(reader.field(timestampType, 0)));
+                    }
+
+                    final int batch = reader.nextMessage(ArrowStreamReader.MESSAGE_RECORD_BATCH);
+                    Assert.assertEquals(4, reader.buf.getLong(reader.field(batch, 0)));
+                    Assert.assertEquals(9, reader.buf.getInt(reader.vector(batch, 2)));
+
+                    // sym: validity, offsets, data
+                    reader.assertNode(batch, 0, 4, 1);
+                    reader.assertBufferBits(batch, 0, 4, 0b1101);
+                    Assert.assertEquals(5 * Integer.BYTES, reader.bufferLength(batch, 1));
+                    final int offsets = reader.bufferAddress(batch, 1);
+                    final int[] expectedOffsets = {0, 2, 2, 4, 6};
+                    for (int i = 0; i < expectedOffsets.length; i++) {
+                        Assert.assertEquals(expectedOffsets[i], reader.buf.getInt(offsets + Integer.BYTES * i));
+                    }
+                    Assert.assertEquals("s1", reader.utf8(batch, 1, 0));
+                    Assert.assertEquals("s3", reader.utf8(batch, 1, 2));
+                    Assert.assertEquals("s4", reader.utf8(batch, 1, 3));
+                    Assert.assertEquals(6, reader.bufferLength(batch, 2));
+
+                    // d: validity, values
+                    reader.assertNode(batch, 1, 4, 1);
+                    reader.assertBufferBits(batch, 3, 4, 0b1011);
+                    Assert.assertEquals(4 * Double.BYTES, reader.bufferLength(batch, 4));
+                    final int doubles = reader.bufferAddress(batch, 4);
+                    Assert.assertEquals(1.5, reader.buf.getDouble(doubles), 0);
+                    Assert.assertEquals(3.0, reader.buf.getDouble(doubles + Double.BYTES), 0);
+                    Assert.assertEquals(6.0, reader.buf.getDouble(doubles + 3 * Double.BYTES), 0);
+
+                    // t: validity, values
+                    reader.assertNode(batch, 2, 4, 1);
+                    reader.assertBufferBits(batch, 5, 4, 0b1110);
+                    Assert.assertEquals(4 * Long.BYTES, reader.bufferLength(batch, 6));
+                    for (int i = 1; i < 4; i++) {
+                        Assert.assertEquals((i + 1) * 1_000_000L, reader.buf.getLong(reader.bufferAddress(batch, 6) + Long.BYTES * i));
+                    }
+
+                    // ts: no nulls, the validity buffer is omitted
+                    reader.assertNode(batch, 3, 4, 0);
+                    Assert.assertEquals(0, reader.bufferLength(batch, 7));
+                    for (int i = 0; i < 4; i++) {
+                        Assert.assertEquals(i * 1_000_000L, reader.buf.getLong(reader.bufferAddress(batch, 8) + Long.BYTES * i));
+                    }
+                    reader.assertEndOfStream();
+                });
+    }
+
     @Test
     public void testExpCustomDelimiter() throws Exception {
         testJsonQuery(
@@ -8666,6 +8815,128 @@ public class IODispatcherTest extends AbstractTest {
         Unsafe.free(buf, 1048576, MemoryTag.NATIVE_DEFAULT);
     }
 
+    /**
+     * Minimal Arrow IPC stream reader, navigates flatbuffers of the messages by the
+     * Schema.fbs and Message.fbs field slots independently of the encoder.
+     */
+    private static class ArrowStreamReader {
+        private static final byte MESSAGE_RECORD_BATCH = 3;
+        private static final byte MESSAGE_SCHEMA = 1;
+        private static final byte TYPE_FLOATING_POINT = 3;
+        private static final byte TYPE_INT = 2;
+        private static final byte TYPE_TIMESTAMP = 10;
+        private static final byte TYPE_UTF8 = 5;
+        private final ByteBuffer buf;
+        private int body;
+        private int position;
+
+        private ArrowStreamReader(byte[] stream) {
+            this.buf = ByteBuffer.wrap(stream).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        private void assertBufferBits(int batch, int bufferIndex, int rowCount, int expectedBits) {
+            Assert.assertEquals((rowCount + 7) >>> 3, bufferLength(batch, bufferIndex));
+            final int address = bufferAddress(batch, bufferIndex);
+            for (int i = 0; i < rowCount; i++) {
+                Assert.assertEquals("row " + i, (expectedBits >>> i) & 1, (buf.get(address + (i >>> 3)) >>> (i & 7)) & 1);
+            }
+        }
+
+        private void assertEndOfStream() {
+            Assert.assertEquals(-1, buf.getInt(position));
+            Assert.assertEquals(0, buf.getInt(position + 4));
+            Assert.assertEquals(buf.capacity(), position + 8);
+        }
+
+        private int assertField(int fields, int index, String expectedName, byte expectedTypeId) {
+            final int field = ref(fields + Integer.BYTES * (index + 1));
+            Assert.assertEquals(expectedName, string(field(field, 0)));
+            Assert.assertEquals(1, buf.get(field(field, 1)));
+            Assert.assertEquals(expectedTypeId, buf.get(field(field, 2)));
+            return ref(field(field, 3));
+        }
+
+        private void assertNode(int batch, int index, long expectedLength, long expectedNullCount) {
+            final int node = vector(batch, 1) + Integer.BYTES + 2 * Long.BYTES * index;
+            Assert.assertEquals(expectedLength, buf.getLong(node));
+            Assert.assertEquals(expectedNullCount, buf.getLong(node + Long.BYTES));
+        }
+
+        private int bufferAddress(int batch, int bufferIndex) {
+            final long offset = buf.getLong(vector(batch, 2) + Integer.BYTES + 2 * Long.BYTES * bufferIndex);
+            Assert.assertEquals(0, offset % Long.BYTES);
+            return body + (int) offset;
+        }
+
+        private int bufferLength(int batch, int bufferIndex) {
+            return (int) buf.getLong(vector(batch, 2) + Integer.BYTES + 2 * Long.BYTES * bufferIndex + Long.BYTES);
+        }
+
+        /**
+         * @return absolute position of the table field or -1 when the field is absent
+         */
+        private int field(int table, int slot) {
+            final int vtable = table - buf.getInt(table);
+            final int offset = Short.BYTES * (slot + 2);
+            if (offset >= (buf.getShort(vtable) & 0xffff)) {
+                return -1;
+            }
+            final int fieldOffset = buf.getShort(vtable + offset) & 0xffff;
+            return fieldOffset == 0 ? -1 : table + fieldOffset;
+        }
+
+        /**
+         * Reads the next message of the stream.
+         *
+         * @return position of the message header table, the Schema or the RecordBatch
+         */
+        private int nextMessage(byte expectedHeaderType) {
+            Assert.assertEquals(-1, buf.getInt(position));
+            final int metadataSize = buf.getInt(position + 4);
+            Assert.assertEquals(0, metadataSize % 8);
+            final int metadata = position + 8;
+            final int message = ref(metadata);
+            // MetadataVersion.V5
+            Assert.assertEquals(4, buf.getShort(field(message, 0)));
+            Assert.assertEquals(expectedHeaderType, buf.get(field(message, 1)));
+            final long bodyLength = buf.getLong(field(message, 3));
+            Assert.assertEquals(0, bodyLength % 8);
+            body = metadata + metadataSize;
+            position = body + (int) bodyLength;
+            Assert.assertTrue(position <= buf.capacity());
+            return ref(field(message, 2));
+        }
+
+        private int ref(int position) {
+            return position + buf.getInt(position);
+        }
+
+        private String string(int position) {
+            final int str = ref(position);
+            final byte[] bytes = new byte[buf.getInt(str)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buf.get(str + Integer.BYTES + i);
+            }
+            return new String(bytes, Files.UTF_8);
+        }
+
+        private String utf8(int batch, int offsetsBufferIndex, int row) {
+            final int offsets = bufferAddress(batch, offsetsBufferIndex);
+            final int data = bufferAddress(batch, offsetsBufferIndex + 1);
+            final int lo = buf.getInt(offsets + Integer.BYTES * row);
+            final int hi = buf.getInt(offsets + Integer.BYTES * (row + 1));
+            final byte[] bytes = new byte[hi - lo];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buf.get(data + lo + i);
+            }
+            return new String(bytes, Files.UTF_8);
+        }
+
+        private int vector(int table, int slot) {
+            return ref(field(table, slot));
+        }
+    }
+
     private static class ByteArrayResponse extends AbstractCharSequence implements ByteSequence {
         private final byte[] bytes;
         private final int len;
@@ -33,6 +33,7 @@ import io.questdb.std.str.ByteSequence;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.file.Paths;
 import java.util.concurrent.BrokenBarrierException;
 
@@ -323,6 +324,62 @@ public class SendAndReceiveRequestBuilder {
         execute(request + requestHeaders(), response);
     }
 
+    /**
+     * Sends the request with the standard headers and receives a chunked response.
+     *
+     * @param request request line
+     * @return response body with the chunk framing removed
+     */
+    public byte[] executeWithStandardRequestHeadersChunked(String request) {
+        final String fullRequest = request + requestHeaders();
+        final int fd = nf.socketTcp(true);
+        try {
+            long sockAddrInfo = nf.sockaddr("127.0.0.1", 9001);
+            final int len = Math.max(fullRequest.length(), 64 * 1024);
+            long ptr = Unsafe.malloc(len, MemoryTag.NATIVE_DEFAULT);
+            try {
+                Assert.assertTrue(fd > -1);
+                TestUtils.assertConnect(nf, fd, sockAddrInfo);
+                Assert.assertEquals(0, nf.setTcpNoDelay(fd, true));
+                nf.configureNonBlocking(fd);
+
+                Chars.asciiStrCpy(fullRequest, fullRequest.length(), ptr);
+                int sent = 0;
+                while (sent < fullRequest.length()) {
+                    int n = nf.send(fd, ptr + sent, fullRequest.length() - sent);
+                    Assert.assertTrue(n > -1);
+                    sent += n;
+                }
+
+                final long timestamp = System.currentTimeMillis();
+                final ByteArrayOutputStream received = new ByteArrayOutputStream();
+                while (true) {
+                    int n = nf.recv(fd, ptr, len);
+                    if (n > 0) {
+                        for (int i = 0; i < n; i++) {
+                            received.write(Unsafe.getUnsafe().getByte(ptr + i));
+                        }
+                        final byte[] body = decodeChunkedBody(received.toByteArray());
+                        if (body != null) {
+                            return body;
+                        }
+                    } else if (n < 0) {
+                        Assert.fail("server disconnected");
+                    } else if (System.currentTimeMillis() - timestamp > maxWaitTimeoutMs) {
+                        Assert.fail("timeout expired");
+                    } else {
+                        Os.pause();
+                    }
+                }
+            } finally {
+                Unsafe.free(ptr, len, MemoryTag.NATIVE_DEFAULT);
+                nf.freeSockAddr(sockAddrInfo);
+            }
+        } finally {
+            nf.close(fd);
+        }
+    }
+
     public SendAndReceiveRequestBuilder withClientLinger(int seconds) {
         this.clientLingerSeconds = seconds;
         return this;
@@ -368,6 +425,44 @@ public class SendAndReceiveRequestBuilder {
         return this;
     }
 
+    /**
+     * Strips response headers and chunk framing.
+     *
+     * @return decoded body or null when the terminating chunk has not been received yet
+     */
+    private static byte[] decodeChunkedBody(byte[] response) {
+        int p = -1;
+        for (int i = 0; i + 3 < response.length; i++) {
+            if (response[i] == '\r' && response[i + 1] == '\n' && response[i + 2] == '\r' && response[i + 3] == '\n') {
+                p = i + 4;
+                break;
+            }
+        }
+        if (p < 0) {
+            return null;
+        }
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (true) {
+            int chunkSize = 0;
+            int q = p;
+            while (q < response.length && response[q] != '\r') {
+                chunkSize = chunkSize * 16 + Character.digit(response[q++], 16);
+            }
+            if (q + 1 >= response.length) {
+                return null;
+            }
+            p = q + 2;
+            if (p + chunkSize + 2 > response.length) {
+                return null;
+            }
+            if (chunkSize == 0) {
+                return body.toByteArray();
+            }
+            body.write(response, p, chunkSize);
+            p += chunkSize + 2;
+        }
+    }
+
     private void executeWithSocket(String request, CharSequence expectedResponse, int fd) {
         final int len = Math.max(expectedResponse.length(), request.length()) * 2;
         long ptr = Unsafe.malloc(len, MemoryTag.NATIVE_DEFAULT);
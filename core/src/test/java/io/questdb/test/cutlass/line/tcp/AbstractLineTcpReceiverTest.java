@@ -98,10 +98,13 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
     protected double commitIntervalFraction = 0.5;
     protected boolean disconnectOnError = false;
     protected long maintenanceInterval = 25;
+    protected double maxLoadRatio = 1.9;
     protected int maxMeasurementSize = 256;
     protected long minIdleMsBeforeWriterRelease = 30000;
     protected int msgBufferSize = 256 * 1024;
+    protected long nUpdatesPerLoadRebalance = 10_000;
     protected NetworkFacade nf = NetworkFacadeImpl.INSTANCE;
+    protected double parallelTableLoadShare = 0;
     private final FactoryProvider factoryProvider = new DefaultFactoryProvider() {
         @Override
         public AuthenticatorFactory getAuthenticatorFactory() {
@@ -165,6 +168,11 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
             return maintenanceInterval;
         }
 
+        @Override
+        public double getMaxLoadRatio() {
+            return maxLoadRatio;
+        }
+
         @Override
         public int getMaxMeasurementSize() {
             return maxMeasurementSize;
@@ -185,6 +193,16 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
             return nf;
         }
 
+        @Override
+        public long getNUpdatesPerLoadRebalance() {
+            return nUpdatesPerLoadRebalance;
+        }
+
+        @Override
+        public double getParallelTableLoadShare() {
+            return parallelTableLoadShare;
+        }
+
         @Override
         public long getWriterIdleTimeout() {
             return minIdleMsBeforeWriterRelease;
@@ -240,6 +258,9 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
         msgBufferSize = 256 * 1024;
         minIdleMsBeforeWriterRelease = 30000;
         maintenanceInterval = 25;
+        maxLoadRatio = 1.9;
+        nUpdatesPerLoadRebalance = 10_000;
+        parallelTableLoadShare = 0;
         commitIntervalFraction = 0.5;
         commitIntervalDefault = 2000;
         partitionByDefault = PartitionBy.DAY;
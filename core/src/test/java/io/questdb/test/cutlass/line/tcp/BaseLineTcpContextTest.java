@@ -247,7 +247,7 @@ abstract class BaseLineTcpContextTest extends AbstractCairoTest {
                 context.getDispatcher().disconnect(context, IODispatcher.DISCONNECT_REASON_PROTOCOL_VIOLATION);
                 break;
         }
-        context.commitWalTables(Long.MAX_VALUE);
+        context.commitWalTables(Long.MAX_VALUE, noNetworkIOJob.getWorkerId());
         scheduler.doMaintenance(noNetworkIOJob.localTableUpdateDetailsByTableName, noNetworkIOJob.getWorkerId(), Long.MAX_VALUE);
         return false;
     }
@@ -227,7 +227,8 @@ public class IOTableUpdateDetailsPoolTest extends AbstractCairoTest {
                 -1,
                 new NetworkIOJob[0],
                 DEFAULT_COLUMN_TYPES,
-                tableNameUtf8
+                tableNameUtf8,
+                null
         );
     }
 
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.line.tcp;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cutlass.line.tcp.LineTcpColumnBatch;
+import io.questdb.network.NetworkFacade;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+public class LineTcpColumnBatchTest extends BaseLineTcpContextTest {
+    // 2016-06-13T17:43:50.100400Z in nanos
+    private static final long TS = 1465839830100400000L;
+
+    @Test
+    public void testBatchCreatesTable() throws Exception {
+        String table = "batch";
+        runInContext(() -> {
+            recvBuffer = new Frame(table, TS, TS + 1000, TS + 2000)
+                    .longColumn("l", 1, Long.MIN_VALUE, 3)
+                    .doubleColumn("d", 1.5, Double.NaN, -2.5)
+                    .symbolColumn("s", new String[]{"alpha", "βeta"}, 0, -1, 1)
+                    .toLatin1();
+            do {
+                handleContextIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            closeContext();
+            String expected = "l\td\ts\ttimestamp\n" +
+                    "1\t1.5\talpha\t2016-06-13T17:43:50.100400Z\n" +
+                    "NaN\tNaN\t\t2016-06-13T17:43:50.100401Z\n" +
+                    "3\t-2.5\tβeta\t2016-06-13T17:43:50.100402Z\n";
+            assertTable(expected, table);
+        });
+    }
+
+    @Test
+    public void testBatchMixedWithLines() throws Exception {
+        String table = "mixed";
+        runInContext(() -> {
+            recvBuffer = latin1(table + ",s=alpha l=1i 1465839830100400000\n") +
+                    new Frame(table, TS + 1000, TS + 2000)
+                            .symbolColumn("s", new String[]{"beta"}, 0, 0)
+                            .longColumn("l", 2, 3)
+                            .intColumn("i", 7, 8)
+                            .toLatin1() +
+                    latin1(table + ",s=gamma l=4i 1465839830100403000\n");
+            do {
+                handleContextIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            closeContext();
+            String expected = "s\tl\ttimestamp\ti\n" +
+                    "alpha\t1\t2016-06-13T17:43:50.100400Z\tNaN\n" +
+                    "beta\t2\t2016-06-13T17:43:50.100401Z\t7\n" +
+                    "beta\t3\t2016-06-13T17:43:50.100402Z\t8\n" +
+                    "gamma\t4\t2016-06-13T17:43:50.100403Z\tNaN\n";
+            assertTable(expected, table);
+        });
+    }
+
+    @Test
+    public void testBatchTypeMismatchSkipped() throws Exception {
+        String table = "mismatch";
+        runInContext(() -> {
+            recvBuffer = latin1(table + " l=1i 1465839830100400000\n") +
+                    new Frame(table, TS + 1000).intColumn("l", 2).toLatin1() +
+                    new Frame(table, TS + 2000).longColumn("l", 3).toLatin1();
+            do {
+                handleContextIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            closeContext();
+            String expected = "l\ttimestamp\n" +
+                    "1\t2016-06-13T17:43:50.100400Z\n" +
+                    "3\t2016-06-13T17:43:50.100402Z\n";
+            assertTable(expected, table);
+        });
+    }
+
+    @Test
+    public void testMalformedBatchDisconnects() throws Exception {
+        String table = "malformed";
+        runInContext(() -> {
+            // symbol key outside the dictionary
+            recvBuffer = new Frame(table, TS).symbolColumn("s", new String[]{"a"}, 1).toLatin1();
+            handleContextIO();
+            Assert.assertTrue(disconnected);
+            closeContext();
+        });
+    }
+
+    @Test
+    public void testSplitBatch() throws Exception {
+        String table = "split";
+        runInContext(() -> {
+            final String frame = new Frame(table, TS, TS + 1000)
+                    .booleanColumn("b", true, false)
+                    .shortColumn("sh", 1, 2)
+                    .timestampColumn("t", 0, Long.MIN_VALUE)
+                    .toLatin1();
+            for (int i = 0, n = frame.length(); i < n; i += 7) {
+                recvBuffer = frame.substring(i, Math.min(n, i + 7));
+                handleContextIO();
+                Assert.assertFalse(disconnected);
+            }
+            closeContext();
+            String expected = "b\tsh\tt\ttimestamp\n" +
+                    "true\t1\t1970-01-01T00:00:00.000000Z\t2016-06-13T17:43:50.100400Z\n" +
+                    "false\t2\t\t2016-06-13T17:43:50.100401Z\n";
+            assertTable(expected, table);
+        });
+    }
+
+    private static String latin1(String line) {
+        return new String(line.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    NetworkFacade provideLineTcpNetworkFacade() {
+        return new LineTcpNetworkFacade() {
+            @Override
+            byte[] getBytes(String recvBuffer) {
+                return recvBuffer.getBytes(StandardCharsets.ISO_8859_1);
+            }
+        };
+    }
+
+    private static class Frame {
+        private final ByteArrayOutputStream columns = new ByteArrayOutputStream();
+        private final int rowCount;
+        private final String tableName;
+        private final long[] timestamps;
+        private int columnCount;
+
+        private Frame(String tableName, long... timestamps) {
+            this.tableName = tableName;
+            this.timestamps = timestamps;
+            this.rowCount = timestamps.length;
+        }
+
+        private static void putName(ByteBuffer buf, String name) {
+            final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            buf.putShort((short) bytes.length);
+            buf.put(bytes);
+        }
+
+        private Frame add(ByteBuffer buf) {
+            columns.write(buf.array(), 0, buf.position());
+            columnCount++;
+            return this;
+        }
+
+        private Frame booleanColumn(String name, boolean... values) {
+            final ByteBuffer buf = column(name, ColumnType.BOOLEAN, values.length);
+            for (boolean v : values) {
+                buf.put((byte) (v ? 1 : 0));
+            }
+            return add(buf);
+        }
+
+        private ByteBuffer column(String name, short type, int valuesSize) {
+            final ByteBuffer buf = ByteBuffer.allocate(Short.BYTES + name.getBytes(StandardCharsets.UTF_8).length + 1 + valuesSize)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            putName(buf, name);
+            buf.put((byte) type);
+            return buf;
+        }
+
+        private Frame doubleColumn(String name, double... values) {
+            final ByteBuffer buf = column(name, ColumnType.DOUBLE, values.length * Double.BYTES);
+            for (double v : values) {
+                buf.putDouble(v);
+            }
+            return add(buf);
+        }
+
+        private Frame intColumn(String name, int... values) {
+            final ByteBuffer buf = column(name, ColumnType.INT, values.length * Integer.BYTES);
+            for (int v : values) {
+                buf.putInt(v);
+            }
+            return add(buf);
+        }
+
+        private Frame longColumn(String name, long... values) {
+            return longColumn(name, ColumnType.LONG, values);
+        }
+
+        private Frame longColumn(String name, short type, long... values) {
+            final ByteBuffer buf = column(name, type, values.length * Long.BYTES);
+            for (long v : values) {
+                buf.putLong(v);
+            }
+            return add(buf);
+        }
+
+        private Frame shortColumn(String name, int... values) {
+            final ByteBuffer buf = column(name, ColumnType.SHORT, values.length * Short.BYTES);
+            for (int v : values) {
+                buf.putShort((short) v);
+            }
+            return add(buf);
+        }
+
+        private Frame symbolColumn(String name, String[] dictionary, int... keys) {
+            int size = Integer.BYTES + keys.length * Integer.BYTES;
+            for (String s : dictionary) {
+                size += Integer.BYTES + s.getBytes(StandardCharsets.UTF_8).length;
+            }
+            final ByteBuffer buf = column(name, ColumnType.SYMBOL, size);
+            buf.putInt(dictionary.length);
+            for (String s : dictionary) {
+                final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                buf.putInt(bytes.length);
+                buf.put(bytes);
+            }
+            for (int k : keys) {
+                buf.putInt(k);
+            }
+            return add(buf);
+        }
+
+        private Frame timestampColumn(String name, long... values) {
+            return longColumn(name, ColumnType.TIMESTAMP, values);
+        }
+
+        private String toLatin1() {
+            final byte[] tableNameBytes = tableName.getBytes(StandardCharsets.UTF_8);
+            final int size = 6 + Short.BYTES + tableNameBytes.length + Integer.BYTES + rowCount * Long.BYTES + Short.BYTES + columns.size();
+            final ByteBuffer buf = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+            buf.put(LineTcpColumnBatch.FRAME_MARKER);
+            buf.put(LineTcpColumnBatch.FRAME_VERSION);
+            buf.putInt(size);
+            buf.putShort((short) tableNameBytes.length);
+            buf.put(tableNameBytes);
+            buf.putInt(rowCount);
+            for (long ts : timestamps) {
+                buf.putLong(ts);
+            }
+            buf.putShort((short) columnCount);
+            buf.put(columns.toByteArray());
+            return new String(buf.array(), StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -28,6 +28,7 @@ import io.questdb.cairo.*;
 import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.SOCountDownLatch;
 import io.questdb.std.Chars;
 import io.questdb.std.Files;
 import io.questdb.std.Os;
@@ -1535,6 +1536,65 @@ public class LineTcpConnectionContextTest extends BaseLineTcpContextTest {
         });
     }
 
+    @Test
+    public void testMovedTableDoesNotBlockOtherTables() throws Exception {
+        Assume.assumeFalse(walEnabled);
+
+        configOverrideMaxUncommittedRows(1);
+        final SOCountDownLatch oldWriterBlocked = new SOCountDownLatch(1);
+        final SOCountDownLatch oldWriterReleased = new SOCountDownLatch(1);
+        runInContext(
+                new TestFilesFacadeImpl() {
+                    @Override
+                    public int openRW(LPSZ name, long opts) {
+                        if (Chars.contains(name, "blocker.d")) {
+                            oldWriterBlocked.countDown();
+                            oldWriterReleased.await();
+                        }
+                        return super.openRW(name, opts);
+                    }
+                },
+                () -> {
+                    try {
+                        // the moved table is assigned to the first writer thread, the other one to the second
+                        sendWithoutMaintenance("moved x=1i 1000\n");
+                        sendWithoutMaintenance("other x=1i 1000\n");
+                        assertRowCountEventually("moved", 1);
+                        assertRowCountEventually("other", 1);
+
+                        // the first writer thread is stuck adding a column, it cannot reach the handoff event
+                        sendWithoutMaintenance("moved blocker=1i 2000\n");
+                        oldWriterBlocked.await();
+                        Assert.assertTrue(scheduler.moveTable("moved", 1));
+
+                        // rows of the moved table wait on the second writer thread, the other table keeps committing
+                        sendWithoutMaintenance("moved x=3i 3000\nother x=2i 2000\nother x=3i 3000\n");
+                        assertRowCountEventually("other", 3);
+                    } finally {
+                        oldWriterReleased.countDown();
+                    }
+                    assertRowCountEventually("moved", 3);
+                    closeContext();
+
+                    assertTable(
+                            "x\ttimestamp\tblocker\n" +
+                                    "1\t1970-01-01T00:00:00.000001Z\tNaN\n" +
+                                    "NaN\t1970-01-01T00:00:00.000002Z\t1\n" +
+                                    "3\t1970-01-01T00:00:00.000003Z\tNaN\n",
+                            "moved"
+                    );
+                    assertTable(
+                            "x\ttimestamp\n" +
+                                    "1\t1970-01-01T00:00:00.000001Z\n" +
+                                    "2\t1970-01-01T00:00:00.000002Z\n" +
+                                    "3\t1970-01-01T00:00:00.000003Z\n",
+                            "other"
+                    );
+                },
+                null
+        );
+    }
+
     @Test
     public void testMultipleMeasurements1() throws Exception {
         String table = "multipleMeasurements1";
@@ -2087,6 +2147,14 @@ public class LineTcpConnectionContextTest extends BaseLineTcpContextTest {
         }
     }
 
+    private void assertRowCountEventually(CharSequence tableName, long expectedRowCount) {
+        TestUtils.assertEventually(() -> {
+            try (TableReader reader = newTableReader(configuration, tableName)) {
+                Assert.assertEquals(expectedRowCount, reader.size());
+            }
+        });
+    }
+
     private void assertTableCount(CharSequence tableName, int nExpectedRows, long maxExpectedTimestampNanos) {
         try (TableReader reader = newTableReader(configuration, tableName)) {
             Assert.assertEquals(maxExpectedTimestampNanos / 1000, reader.getMaxTimestamp());
@@ -2115,6 +2183,15 @@ public class LineTcpConnectionContextTest extends BaseLineTcpContextTest {
                 table + ",location=us-westcost temperature=82 1465839830102500200\n";
     }
 
+    private void sendWithoutMaintenance(String lines) {
+        // writers are not released for being idle without the scheduler maintenance
+        recvBuffer = lines;
+        do {
+            context.handleIO(noNetworkIOJob);
+            Assert.assertFalse(disconnected);
+        } while (recvBuffer.length() > 0);
+    }
+
     private void testDefaultColumnType(short expectedType, String ilpValue, String tableValue, String emptyValue) throws Exception {
         String table = "addDefColType";
         addTable(table);
@@ -106,6 +106,27 @@ public class LineTcpReceiverFuzzTest extends AbstractLineTcpReceiverFuzzTest {
         runTest();
     }
 
+    @Test
+    public void testLoadParallelTable() throws Exception {
+        // let the hottest table be written by all writer threads, new columns push rows back to the owner
+        maintenanceInterval = 5;
+        nUpdatesPerLoadRebalance = 50;
+        parallelTableLoadShare = 0.1;
+        initLoadParameters(100, Os.isWindows() ? 3 : 5, 7, 12, 20);
+        initFuzzParameters(-1, -1, -1, 4, -1, false, true, false, false);
+        runTest();
+    }
+
+    @Test
+    public void testLoadRebalance() throws Exception {
+        // move tables between writer threads as often as possible
+        maintenanceInterval = 5;
+        maxLoadRatio = 1.0;
+        nUpdatesPerLoadRebalance = 50;
+        initLoadParameters(100, Os.isWindows() ? 3 : 5, 7, 12, 20);
+        runTest();
+    }
+
     @Test
     public void testLoadSendSymbolsWithSpace() throws Exception {
         initLoadParameters(100, Os.isWindows() ? 3 : 5, 4, 8, 20);
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.line.tcp;
+
+import io.questdb.cutlass.line.tcp.LineTcpWriterMetrics;
+import io.questdb.mp.MPSequence;
+import io.questdb.mp.SCSequence;
+import io.questdb.mp.Sequence;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LineTcpWriterMetricsTest {
+
+    @Test
+    public void testScrape() {
+        final int nWriterThreads = 2;
+        final MPSequence[] pubSeq = new MPSequence[nWriterThreads];
+        final SCSequence[] subSeq = new SCSequence[nWriterThreads];
+        for (int i = 0; i < nWriterThreads; i++) {
+            pubSeq[i] = new MPSequence(8);
+            subSeq[i] = new SCSequence();
+            pubSeq[i].then(subSeq[i]).then(pubSeq[i]);
+        }
+        final LineTcpWriterMetrics metrics = new LineTcpWriterMetrics(pubSeq, subSeq);
+
+        // three events queued for the second writer thread, one of them consumed
+        for (int i = 0; i < 3; i++) {
+            publish(pubSeq[1]);
+        }
+        subSeq[1].done(subSeq[1].next());
+
+        metrics.addEvents(0, 10);
+        metrics.addEvents(1, 5);
+        metrics.addEvents(1, 2);
+        metrics.addCommit(1, 100);
+        metrics.addCommit(1, 50);
+        metrics.incrementTableMoves();
+
+        Assert.assertEquals(10, metrics.getEventCount(0));
+        Assert.assertEquals(7, metrics.getEventCount(1));
+        Assert.assertEquals(0, metrics.getQueueDepth(0));
+        Assert.assertEquals(2, metrics.getQueueDepth(1));
+
+        final StringSink sink = new StringSink();
+        metrics.scrapeIntoPrometheus(sink);
+        TestUtils.assertEquals(
+                "# TYPE questdb_line_tcp_writer_events_total counter\n" +
+                        "questdb_line_tcp_writer_events_total{writer=\"0\"} 10\n" +
+                        "questdb_line_tcp_writer_events_total{writer=\"1\"} 7\n" +
+                        "\n" +
+                        "# TYPE questdb_line_tcp_writer_commits_total counter\n" +
+                        "questdb_line_tcp_writer_commits_total{writer=\"0\"} 0\n" +
+                        "questdb_line_tcp_writer_commits_total{writer=\"1\"} 2\n" +
+                        "\n" +
+                        "# TYPE questdb_line_tcp_writer_commit_time_micros_total counter\n" +
+                        "questdb_line_tcp_writer_commit_time_micros_total{writer=\"0\"} 0\n" +
+                        "questdb_line_tcp_writer_commit_time_micros_total{writer=\"1\"} 150\n" +
+                        "\n" +
+                        "# TYPE questdb_line_tcp_writer_queue_depth gauge\n" +
+                        "questdb_line_tcp_writer_queue_depth{writer=\"0\"} 0\n" +
+                        "questdb_line_tcp_writer_queue_depth{writer=\"1\"} 2\n" +
+                        "\n" +
+                        "# TYPE questdb_line_tcp_writer_table_moves_total counter\n" +
+                        "questdb_line_tcp_writer_table_moves_total 1\n" +
+                        "\n",
+                (CharSequence) sink
+        );
+    }
+
+    private static void publish(Sequence pubSeq) {
+        long seq;
+        while ((seq = pubSeq.next()) < 0) {
+            Assert.assertNotEquals(-1, seq);
+        }
+        pubSeq.done(seq);
+    }
+}
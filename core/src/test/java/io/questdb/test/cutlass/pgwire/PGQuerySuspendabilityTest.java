@@ -123,9 +123,11 @@ public class PGQuerySuspendabilityTest extends BasePGTest {
         addTestCase("select * from (x union all y) order by i");
 
         // SortedLightRecordCursorFactory
-        addTestCase("select sym, min(i) imin from x where ts in '1970-01-01' order by imin");
         addTestCase("select * from x where ts in '1970-01-01' order by isym, ts desc");
 
+        // RadixSortLightRecordCursorFactory
+        addTestCase("select sym, min(i) imin from x where ts in '1970-01-01' order by imin");
+
         // SortedSymbolIndexRecordCursorFactory
         addTestCase("select * from x where ts in '1970-01-01T00' order by isym, ts desc");
 
@@ -135,6 +137,10 @@ public class PGQuerySuspendabilityTest extends BasePGTest {
         // CachedAnalyticRecordCursorFactory
         addTestCase("select i, row_number() over (partition by sym) from x");
         addTestCase("select i, row_number() over (partition by sym order by ts) from x");
+        addTestCase("select i, sum(d) over (partition by sym) from x");
+
+        // AnalyticRecordCursorFactory
+        addTestCase("select i, sum(d) over (partition by sym order by ts rows 3 preceding) from x");
 
         // InSymbolCursorFunctionFactory
         addTestCase("select * from x where sym in (select sym from y)");
@@ -261,11 +261,21 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getGroupByMapCapacity();
     }
 
+    @Override
+    public int getGroupByMergeShardQueueCapacity() {
+        return conf.getGroupByMergeShardQueueCapacity();
+    }
+
     @Override
     public int getGroupByPoolCapacity() {
         return conf.getGroupByPoolCapacity();
     }
 
+    @Override
+    public int getGroupByShardingThreshold() {
+        return conf.getGroupByShardingThreshold();
+    }
+
     @Override
     public long getIdleCheckInterval() {
         return conf.getIdleCheckInterval();
@@ -441,6 +451,26 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getParallelIndexThreshold();
     }
 
+    @Override
+    public long getPartitionCompressionAge() {
+        return conf.getPartitionCompressionAge();
+    }
+
+    @Override
+    public int getPartitionCompressionBlockSize() {
+        return conf.getPartitionCompressionBlockSize();
+    }
+
+    @Override
+    public long getPartitionCompressionInterval() {
+        return conf.getPartitionCompressionInterval();
+    }
+
+    @Override
+    public long getPartitionCompressionReaderCacheSize() {
+        return conf.getPartitionCompressionReaderCacheSize();
+    }
+
     @Override
     public long getPartitionO3SplitMinSize() {
         return conf.getPartitionO3SplitMinSize();
@@ -451,6 +481,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getPartitionPurgeListCapacity();
     }
 
+    @Override
+    public int getPartitionZoneMapBlockRows() {
+        return conf.getPartitionZoneMapBlockRows();
+    }
+
     @Override
     public int getQueryCacheEventQueueCapacity() {
         return conf.getQueryCacheEventQueueCapacity();
@@ -566,6 +601,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getSqlCopyBufferSize();
     }
 
+    @Override
+    public CharSequence getSqlCopyExportRoot() {
+        return conf.getSqlCopyExportRoot();
+    }
+
     @Override
     public CharSequence getSqlCopyInputRoot() {
         return conf.getSqlCopyInputRoot();
@@ -761,6 +801,21 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getSqlSortLightValuePageSize();
     }
 
+    @Override
+    public CharSequence getSqlSortSpillRoot() {
+        return conf.getSqlSortSpillRoot();
+    }
+
+    @Override
+    public long getSqlSortSpillThreshold() {
+        return conf.getSqlSortSpillThreshold();
+    }
+
+    @Override
+    public int getSqlSortTreeMaxRows() {
+        return conf.getSqlSortTreeMaxRows();
+    }
+
     @Override
     public int getSqlSortValueMaxPages() {
         return conf.getSqlSortValueMaxPages();
@@ -916,6 +971,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.isParallelIndexingEnabled();
     }
 
+    @Override
+    public boolean isPartitionCompressionEncodingEnabled() {
+        return conf.isPartitionCompressionEncodingEnabled();
+    }
+
     @Override
     public boolean isReadOnlyInstance() {
         return conf.isReadOnlyInstance();
@@ -931,6 +991,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.isSqlJitDebugEnabled();
     }
 
+    @Override
+    public boolean isSqlParallelAsOfJoinEnabled() {
+        return conf.isSqlParallelAsOfJoinEnabled();
+    }
+
     @Override
     public boolean isSqlParallelFilterEnabled() {
         return conf.isSqlParallelFilterEnabled();
@@ -941,6 +1006,26 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.isSqlParallelFilterPreTouchEnabled();
     }
 
+    @Override
+    public boolean isSqlParallelGroupByEnabled() {
+        return conf.isSqlParallelGroupByEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return conf.isSqlParallelHashJoinEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelLatestByEnabled() {
+        return conf.isSqlParallelLatestByEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelSortEnabled() {
+        return conf.isSqlParallelSortEnabled();
+    }
+
     @Override
     public boolean isTableTypeConversionEnabled() {
         return conf.isTableTypeConversionEnabled();
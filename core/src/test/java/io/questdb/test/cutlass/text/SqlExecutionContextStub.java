@@ -51,7 +51,7 @@ public class SqlExecutionContextStub implements SqlExecutionContext {
     }
 
     @Override
-    public void configureAnalyticContext(@Nullable VirtualRecord partitionByRecord, @Nullable RecordSink partitionBySink, @Nullable ColumnTypes keyTypes, boolean isOrdered, boolean baseSupportsRandomAccess) {
+    public void configureAnalyticContext(@Nullable VirtualRecord partitionByRecord, @Nullable RecordSink partitionBySink, @Nullable ColumnTypes keyTypes, boolean isOrdered, boolean baseSupportsRandomAccess, int framingMode, long frameLo, long frameHi, int timestampIndex) {
     }
 
     @Override
@@ -128,11 +128,36 @@ public class SqlExecutionContextStub implements SqlExecutionContext {
         return false;
     }
 
+    @Override
+    public boolean isParallelAsOfJoinEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isParallelFilterEnabled() {
         return false;
     }
 
+    @Override
+    public boolean isParallelGroupByEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isParallelHashJoinEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isParallelLatestByEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isParallelSortEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isTimestampRequired() {
         return false;
@@ -167,10 +192,30 @@ public class SqlExecutionContextStub implements SqlExecutionContext {
     public void setNowAndFixClock(long now) {
     }
 
+    @Override
+    public void setParallelAsOfJoinEnabled(boolean parallelAsOfJoinEnabled) {
+    }
+
     @Override
     public void setParallelFilterEnabled(boolean parallelFilterEnabled) {
     }
 
+    @Override
+    public void setParallelGroupByEnabled(boolean parallelGroupByEnabled) {
+    }
+
+    @Override
+    public void setParallelHashJoinEnabled(boolean parallelHashJoinEnabled) {
+    }
+
+    @Override
+    public void setParallelLatestByEnabled(boolean parallelLatestByEnabled) {
+    }
+
+    @Override
+    public void setParallelSortEnabled(boolean parallelSortEnabled) {
+    }
+
     @Override
     public void setRandom(Rnd rnd) {
     }
@@ -0,0 +1,330 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.FullFwdDataFrameCursorFactory;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.ZoneMapDataFrameCursor;
+import io.questdb.cairo.ZoneMapDataFrameCursorFactory;
+import io.questdb.cairo.ZoneMapReader;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.griffin.CompiledQuery;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.ObjList;
+import io.questdb.std.Zip;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AlterTableCompressPartitionTest extends AbstractGriffinTest {
+    private static final int ROWS_PER_DAY = 86_400;
+
+    @BeforeClass
+    public static void setUpStatic() throws Exception {
+        AbstractGriffinTest.setUpStatic();
+        // static gzip header of Zip must not be counted as a leak by the first test
+        Zip.init();
+    }
+
+    @Test
+    public void testCompressActivePartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try {
+                compile("alter table x compress partition list '2018-01-05'", sqlExecutionContext);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "cannot compress active partition");
+            }
+        });
+    }
+
+    @Test
+    public void testCompressByListAndWhere() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String[] queries = {
+                    "x",
+                    "select sym, count(), sum(i), sum(amt), max(s), sum(length(b)) from x order by sym",
+                    "select * from x where sym = 'ibm' limit -10",
+                    "select * from x latest on timestamp partition by sym",
+                    "select * from x where s like '%AB%'"
+            };
+            final String[] expected = new String[queries.length];
+            for (int i = 0; i < queries.length; i++) {
+                TestUtils.printSql(compiler, sqlExecutionContext, queries[i], sink);
+                expected[i] = sink.toString();
+            }
+
+            compile("alter table x compress partition list '2018-01-01'", sqlExecutionContext);
+            compile("alter table x compress partition where timestamp < '2018-01-04'", sqlExecutionContext);
+
+            try (TableReader reader = getReader("x")) {
+                Assert.assertTrue(reader.getTxFile().isPartitionCompressed(0));
+                Assert.assertTrue(reader.getTxFile().isPartitionCompressed(2));
+                Assert.assertTrue(reader.getTxFile().isPartitionReadOnly(2));
+                Assert.assertFalse(reader.getTxFile().isPartitionCompressed(3));
+            }
+
+            for (int i = 0; i < queries.length; i++) {
+                assertSql(queries[i], expected[i]);
+            }
+        });
+    }
+
+    @Test
+    public void testCompressedPartitionIsReadOnly() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x compress partition list '2018-01-01'", sqlExecutionContext);
+
+            try {
+                compile("alter table x detach partition list '2018-01-01'", sqlExecutionContext);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "DETACH_ERR_COMPRESSED");
+            }
+
+            try {
+                executeOperation("update x set i = 0 where timestamp in '2018-01-01'", CompiledQuery.UPDATE);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "cannot update read-only partition");
+            }
+
+            // rows landing in compressed partition are rejected together with the rest of the transaction
+            try {
+                compile("insert into x (i, timestamp) select -1, cast((x - 1) * 86400000000L + 1514800800000000L as timestamp) from long_sequence(2)", sqlExecutionContext);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "cannot insert into compressed partition [table=x, partitionTimestamp=2018-01-01T00:00:00.000Z, rows=1]");
+            }
+            assertSql("select count() from x where i = -1", "count\n0\n");
+
+            compile("insert into x (i, timestamp) values (-1, '2018-01-02T10:00:00')", sqlExecutionContext);
+            assertSql("select count() from x where i = -1", "count\n1\n");
+
+            compile("alter table x drop partition list '2018-01-01'", sqlExecutionContext);
+            assertSql("select min(timestamp) from x", "min\n2018-01-02T00:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testCompressPartitionAddIndexAndColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            TestUtils.printSql(compiler, sqlExecutionContext, "select sym, count(), sum(i) from x where sym in ('ibm', 'msft') order by sym", sink);
+            final String expected = sink.toString();
+
+            compile("alter table x compress partition where timestamp < '2018-01-05'", sqlExecutionContext);
+            compile("alter table x add column k long", sqlExecutionContext);
+            compile("alter table x alter column sym add index", sqlExecutionContext);
+            compile("alter table x rename column amt to amount", sqlExecutionContext);
+
+            assertSql("select sym, count(), sum(i) from x where sym in ('ibm', 'msft') order by sym", expected);
+            assertSql("select count(k), count(amount) from x", "count\tcount1\n0\t" + 5 * ROWS_PER_DAY + "\n");
+        });
+    }
+
+    @Test
+    public void testCompressPartitionExpectPartitionKeyword() throws Exception {
+        assertFailure(
+                "alter table x compress column",
+                "create table x (i int, timestamp timestamp) timestamp(timestamp) partition by DAY",
+                23,
+                "'partition' expected"
+        );
+    }
+
+    @Test
+    public void testCompressPartitionTwice() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x compress partition list '2018-01-02'", sqlExecutionContext);
+            compile("alter table x compress partition list '2018-01-02'", sqlExecutionContext);
+            try (TableReader reader = getReader("x")) {
+                Assert.assertTrue(reader.getTxFile().isPartitionCompressed(1));
+            }
+            assertSql("select count() from x where timestamp in '2018-01-02'", "count\n" + ROWS_PER_DAY + "\n");
+        });
+    }
+
+    @Test
+    public void testCompressPartitionZoneMaps() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String[] queries = {
+                    "select * from x where i = 100000",
+                    "select * from x where i = 100000 order by timestamp desc",
+                    "select count(), sum(amt) from x where i > 170000 and i <= 180000",
+                    "select count() from x where 3 > i or i >= 431000",
+                    "select count() from x where i < 10.5",
+                    "select count() from x where i = null",
+                    "select count() from x where amt > 99.99",
+                    "select count() from x where sym = 'ibm' and i < 1000",
+                    "select count() from x where sym = 'oracle'",
+                    "select count() from x where sym = null"
+            };
+            final String[] expected = new String[queries.length];
+            for (int i = 0; i < queries.length; i++) {
+                TestUtils.printSql(compiler, sqlExecutionContext, queries[i], sink);
+                expected[i] = sink.toString();
+            }
+
+            compile("alter table x compress partition where timestamp < '2018-01-04'", sqlExecutionContext);
+
+            try (
+                    TableReader reader = getReader("x");
+                    ZoneMapReader zoneMap = new ZoneMapReader()
+            ) {
+                Assert.assertTrue(reader.openZoneMap(1, 0, zoneMap));
+                Assert.assertEquals(2, zoneMap.getBlockCount());
+                Assert.assertEquals(ROWS_PER_DAY + 1, zoneMap.getMin(ZoneMapReader.PARTITION));
+                Assert.assertEquals(2 * ROWS_PER_DAY, zoneMap.getMax(ZoneMapReader.PARTITION));
+                Assert.assertEquals(ROWS_PER_DAY + 65_536, zoneMap.getMax(0));
+                Assert.assertEquals(0, zoneMap.getNullCount(ZoneMapReader.PARTITION));
+                // designated timestamp and var-size columns have no zone maps
+                Assert.assertFalse(reader.openZoneMap(1, 6, zoneMap));
+                Assert.assertFalse(reader.openZoneMap(1, 3, zoneMap));
+                Assert.assertFalse(reader.openZoneMap(4, 0, zoneMap));
+            }
+
+            for (int i = 0; i < queries.length; i++) {
+                assertSql(queries[i], expected[i]);
+            }
+        });
+    }
+
+    @Test
+    public void testDropActivePartitionAfterCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x compress partition list '2018-01-04'", sqlExecutionContext);
+            try (TableWriter writer = getWriter("x")) {
+                writer.removePartition(TimestampFormatUtils.parseTimestamp("2018-01-05T00:00:00.000000Z"));
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "previous partition is compressed");
+            }
+        });
+    }
+
+    @Test
+    public void testZoneMapsOfClosedPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try (
+                    TableReader reader = getReader("x");
+                    ZoneMapReader zoneMap = new ZoneMapReader()
+            ) {
+                // partitions get zone maps when the writer rolls over to the next one
+                for (int i = 0; i < 5; i++) {
+                    reader.openPartition(i);
+                }
+                for (int i = 0; i < 4; i++) {
+                    Assert.assertTrue(reader.openZoneMap(i, 0, zoneMap));
+                    Assert.assertEquals(i * ROWS_PER_DAY + 1, zoneMap.getMin(ZoneMapReader.PARTITION));
+                    Assert.assertEquals((i + 1) * ROWS_PER_DAY, zoneMap.getMax(ZoneMapReader.PARTITION));
+                }
+                Assert.assertFalse(reader.openZoneMap(4, 0, zoneMap));
+            }
+
+            // O3 append and O3 merge into closed partitions rewrite their zone maps
+            compile("insert into x (i, timestamp) values (10000000, '2018-01-01T23:59:59.500000Z')", sqlExecutionContext);
+            compile("insert into x (i, timestamp) values (-10000000, '2018-01-02T10:00:00.500000Z')", sqlExecutionContext);
+            try (
+                    TableReader reader = getReader("x");
+                    ZoneMapReader zoneMap = new ZoneMapReader()
+            ) {
+                reader.openPartition(0);
+                reader.openPartition(1);
+                Assert.assertTrue(reader.openZoneMap(0, 0, zoneMap));
+                Assert.assertEquals(10000000, zoneMap.getMax(ZoneMapReader.PARTITION));
+                Assert.assertTrue(reader.openZoneMap(1, 0, zoneMap));
+                Assert.assertEquals(-10000000, zoneMap.getMin(ZoneMapReader.PARTITION));
+            }
+            assertSql("select i, timestamp from x where i = 10000000 or i = -10000000", "i\ttimestamp\n" +
+                    "10000000\t2018-01-01T23:59:59.500000Z\n" +
+                    "-10000000\t2018-01-02T10:00:00.500000Z\n");
+
+            // rows of the active partition are not covered by zone maps
+            compile("insert into x (i, timestamp) values (20000000, '2018-01-05T23:59:59.500000Z')", sqlExecutionContext);
+            assertSql("select i, timestamp from x where i > 10000000", "i\ttimestamp\n" +
+                    "20000000\t2018-01-05T23:59:59.500000Z\n");
+        });
+    }
+
+    @Test
+    public void testZoneMapsSkippedForSinglePartition() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table y as (select x i, timestamp_sequence('2018-01-01', 1000000L) ts from long_sequence(10)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            final DataFrameCursorFactory baseFactory;
+            try (TableReader reader = getReader("y")) {
+                baseFactory = new FullFwdDataFrameCursorFactory(
+                        reader.getTableToken(),
+                        reader.getMetadata().getTableId(),
+                        reader.getVersion(),
+                        GenericRecordMetadata.copyOf(reader.getMetadata())
+                );
+            }
+            try (ZoneMapDataFrameCursorFactory factory = new ZoneMapDataFrameCursorFactory(baseFactory, new ObjList<>())) {
+                // active partition has no zone maps, the cursor is not decorated
+                try (DataFrameCursor cursor = factory.getCursor(sqlExecutionContext, DataFrameCursorFactory.ORDER_ASC)) {
+                    Assert.assertFalse(cursor instanceof ZoneMapDataFrameCursor);
+                }
+
+                compile("insert into y values (11, '2018-01-02')", sqlExecutionContext);
+
+                try (DataFrameCursor cursor = factory.getCursor(sqlExecutionContext, DataFrameCursorFactory.ORDER_ASC)) {
+                    Assert.assertTrue(cursor instanceof ZoneMapDataFrameCursor);
+                }
+            }
+        });
+    }
+
+    private void createX() throws SqlException {
+        compile(
+                "create table x as (" +
+                        "select" +
+                        " cast(x as int) i," +
+                        " rnd_symbol('msft','ibm', 'googl') sym," +
+                        " round(rnd_double(0)*100, 3) amt," +
+                        " rnd_str(1, 30, 3) s," +
+                        " rnd_bin(1, 20, 3) b," +
+                        " rnd_long256() l256," +
+                        " timestamp_sequence('2018-01-01', 1000000L) timestamp" +
+                        " from long_sequence(" + 5 * ROWS_PER_DAY + ")" +
+                        ") timestamp (timestamp) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+}
@@ -437,6 +437,25 @@ public class CompiledFilterTest extends AbstractGriffinTest {
         testSingleBindVariable(SqlJitMode.JIT_MODE_ENABLED);
     }
 
+    @Test
+    public void testStringPredicatesAppliedToJittedFilterRows() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table t1 as (select " +
+                    " x," +
+                    " case when x % 3 = 0 then 'abc' when x % 3 = 1 then 'xyz' else null end s," +
+                    " timestamp_sequence(to_timestamp('1970-01-01', 'yyyy-MM-dd'), 100000L) ts " +
+                    "from long_sequence(10)) timestamp(ts) partition by day", sqlExecutionContext);
+
+            final String query = "select x, s from t1 where x > 3 and s like 'ab%' and length(s) = 3";
+            final String expected = "x\ts\n" +
+                    "6\tabc\n" +
+                    "9\tabc\n";
+
+            assertSql(query, expected);
+            assertSqlRunWithJit(query);
+        });
+    }
+
     @Test
     public void testSymbolBindVariable() throws Exception {
         assertMemoryLeak(() -> {
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cutlass.text.CopyRequestJob;
+import io.questdb.griffin.CompiledQuery;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.model.CopyModel;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class CopyExportTest extends AbstractGriffinTest {
+
+    @BeforeClass
+    public static void setUpStatic() throws Exception {
+        inputRoot = TestUtils.unchecked(() -> temp.newFolder("imports" + System.nanoTime()).getAbsolutePath());
+        exportRoot = TestUtils.unchecked(() -> temp.newFolder("exports" + System.nanoTime()).getAbsolutePath());
+        inputWorkRoot = TestUtils.unchecked(() -> temp.newFolder("exports_work" + System.nanoTime()).getAbsolutePath());
+        AbstractGriffinTest.setUpStatic();
+    }
+
+    @Test
+    public void testExportDisabled() throws Exception {
+        final String root = exportRoot;
+        exportRoot = null;
+        try {
+            assertFailure("copy x to 'x.csv'", "create table x (l long)", 7, "COPY TO is disabled");
+        } finally {
+            exportRoot = root;
+        }
+    }
+
+    @Test
+    public void testExportEmptyFileName() throws Exception {
+        assertFailure("copy x to ''", "create table x (l long)", 10, "file name expected");
+    }
+
+    @Test
+    public void testExportFileExists() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final File file = new File(exportRoot, "exists.csv");
+            Files.write(file.toPath(), "keep me".getBytes(StandardCharsets.UTF_8));
+            try {
+                runExport("copy x to 'exists.csv'");
+                // existing file is neither overwritten nor removed
+                Assert.assertEquals("keep me", readExport("exists.csv"));
+                assertExportRootFiles("exists.csv");
+                assertSql(
+                        "select status, message from " + configuration.getSystemTableNamePrefix() + "text_import_log where status = 'failed'",
+                        "status\tmessage\n" +
+                                "failed\t[-1] export file already exists [path=" + file.getAbsolutePath() + "]\n"
+                );
+            } finally {
+                Assert.assertTrue(file.delete());
+            }
+        });
+    }
+
+    @Test
+    public void testExportFullHack() throws Exception {
+        assertFailure("copy x to '../../x.csv'", "create table x (l long)", 10, "'.' is not allowed");
+    }
+
+    @Test
+    public void testExportModel() throws SqlException {
+        CopyModel model = (CopyModel) compiler.testCompileModel("copy (select * from x where a > 1) to 'x.csv'", sqlExecutionContext);
+        Assert.assertTrue(model.isExport());
+        Assert.assertTrue(model.isHeader());
+        Assert.assertEquals("select * from x where a > 1", model.getSelectText().toString());
+        Assert.assertEquals("'x.csv'", model.getFileName().token.toString());
+
+        model = (CopyModel) compiler.testCompileModel("COPY x TO 'x.csv' WITH HEADER FALSE DELIMITER '|'", sqlExecutionContext);
+        Assert.assertTrue(model.isExport());
+        Assert.assertFalse(model.isHeader());
+        Assert.assertNull(model.getSelectText());
+        Assert.assertEquals("x", model.getTableName().toString());
+        Assert.assertEquals('|', model.getDelimiter());
+    }
+
+    @Test
+    public void testExportNonExistingTable() throws Exception {
+        assertMemoryLeak(() -> assertFailure("copy y to 'y.csv'", null, 5, "table does not exist [table=y]"));
+    }
+
+    @Test
+    public void testExportQuery() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            runExport("copy (select l, s from x where l > 7) to 'q.csv' with header false delimiter ';'");
+            Assert.assertEquals(
+                    "8;\"a\"\r\n" +
+                            "9;\"b\"\"c\"\r\n" +
+                            "10;\"a\"\r\n",
+                    readExport("q.csv")
+            );
+            Assert.assertTrue(new File(exportRoot, "q.csv").delete());
+            assertSql(
+                    "select phase, status, rows_handled from " + configuration.getSystemTableNamePrefix() + "text_import_log",
+                    "phase\tstatus\trows_handled\n" +
+                            "export\tstarted\tNaN\n" +
+                            "export\tfinished\t3\n"
+            );
+        });
+    }
+
+    @Test
+    public void testExportRequiresTo() {
+        try {
+            compiler.testCompileModel("copy (select 1) from 'x.csv'", sqlExecutionContext);
+            Assert.fail();
+        } catch (SqlException e) {
+            TestUtils.assertContains(e.getFlyweightMessage(), "'to' expected");
+        }
+    }
+
+    @Test
+    public void testExportTable() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            runExport("copy x to 'x.csv'");
+            Assert.assertEquals(
+                    "\"l\",\"s\",\"d\",\"ts\"\r\n" +
+                            "1,\"b\"\"c\",0.25,\"1970-01-01T00:00:00.000000Z\"\r\n" +
+                            "2,\"a\",0.5,\"1970-01-01T10:00:00.000000Z\"\r\n" +
+                            "3,\"b\"\"c\",0.75,\"1970-01-01T20:00:00.000000Z\"\r\n" +
+                            "4,\"a\",1.0,\"1970-01-02T06:00:00.000000Z\"\r\n" +
+                            "5,\"b\"\"c\",1.25,\"1970-01-02T16:00:00.000000Z\"\r\n" +
+                            "6,,1.5,\"1970-01-03T02:00:00.000000Z\"\r\n" +
+                            "7,\"b\"\"c\",1.75,\"1970-01-03T12:00:00.000000Z\"\r\n" +
+                            "8,\"a\",2.0,\"1970-01-03T22:00:00.000000Z\"\r\n" +
+                            "9,\"b\"\"c\",2.25,\"1970-01-04T08:00:00.000000Z\"\r\n" +
+                            "10,\"a\",2.5,\"1970-01-04T18:00:00.000000Z\"\r\n",
+                    readExport("x.csv")
+            );
+            // intermediate frame files are removed
+            String[] leftovers = new File(inputWorkRoot).list();
+            Assert.assertTrue(leftovers == null || leftovers.length == 0);
+            // the temporary export file is renamed
+            assertExportRootFiles("x.csv");
+            Assert.assertTrue(new File(exportRoot, "x.csv").delete());
+        });
+    }
+
+    private static void assertExportRootFiles(String... expected) {
+        final String[] files = new File(exportRoot).list();
+        Assert.assertNotNull(files);
+        Assert.assertArrayEquals(expected, files);
+    }
+
+    private static void createX() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " x l," +
+                        " case when x = 6 then null when x % 2 = 0 then 'a' else 'b\"c' end::symbol s," +
+                        " x / 4.0 d," +
+                        " timestamp_sequence(0, 36000000000L) ts" +
+                        " from long_sequence(10)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+
+    private static String readExport(String fileName) throws Exception {
+        return new String(Files.readAllBytes(new File(exportRoot, fileName).toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void runExport(String copySql) throws Exception {
+        compiler.compile("drop table if exists \"" + configuration.getSystemTableNamePrefix() + "text_import_log\"", sqlExecutionContext);
+        try (CopyRequestJob copyRequestJob = new CopyRequestJob(engine, 1, null)) {
+            CompiledQuery cq = compiler.compile(copySql, sqlExecutionContext);
+            try (RecordCursor cursor = cq.getRecordCursorFactory().getCursor(sqlExecutionContext)) {
+                Assert.assertTrue(cursor.hasNext());
+            }
+            Assert.assertTrue(copyRequestJob.run(0));
+            copyRequestJob.drain(0);
+        }
+    }
+}
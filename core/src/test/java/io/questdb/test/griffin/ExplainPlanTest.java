@@ -34,7 +34,8 @@ import io.questdb.griffin.*;
 import io.questdb.griffin.engine.EmptyTableRecordCursorFactory;
 import io.questdb.griffin.engine.functions.CursorFunction;
 import io.questdb.griffin.engine.functions.NegatableBooleanFunction;
-import io.questdb.griffin.engine.functions.analytic.RowNumberFunctionFactory;
+import io.questdb.griffin.engine.functions.analytic.LagDoubleAnalyticFunctionFactory;
+import io.questdb.griffin.engine.functions.analytic.LeadDoubleAnalyticFunctionFactory;
 import io.questdb.griffin.engine.functions.bool.InCharFunctionFactory;
 import io.questdb.griffin.engine.functions.bool.InTimestampStrFunctionFactory;
 import io.questdb.griffin.engine.functions.bool.InTimestampTimestampFunctionFactory;
@@ -49,6 +50,7 @@ import io.questdb.griffin.engine.functions.date.*;
 import io.questdb.griffin.engine.functions.eq.EqIntStrCFunctionFactory;
 import io.questdb.griffin.engine.functions.rnd.LongSequenceFunctionFactory;
 import io.questdb.griffin.engine.functions.test.TestSumXDoubleGroupByFunctionFactory;
+import io.questdb.griffin.model.AnalyticColumn;
 import io.questdb.jit.JitUtil;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
@@ -303,8 +305,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             assertPlan("select * from a asof join b on ts where a.i = b.ts::int",
                     "SelectedRecord\n" +
                             "    Filter filter: a.i=b.ts::int\n" +
-                            "        AsOf Join Light\n" +
+                            "        Async AsOf Join\n" +
                             "          condition: b.ts=a.ts\n" +
+                            "          workers: 1\n" +
                             "            DataFrame\n" +
                             "                Row forward scan\n" +
                             "                Frame forward scan on: a\n" +
@@ -323,8 +326,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             assertPlan("select ts, ts1, i, i1 from (select * from a asof join b on ts ) where i/10 = i1",
                     "SelectedRecord\n" +
                             "    Filter filter: a.i/10=b.i\n" +
-                            "        AsOf Join Light\n" +
+                            "        Async AsOf Join\n" +
                             "          condition: b.ts=a.ts\n" +
+                            "          workers: 1\n" +
                             "            DataFrame\n" +
                             "                Row forward scan\n" +
                             "                Frame forward scan on: a\n" +
@@ -342,8 +346,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
 
             assertPlan("select * from a asof join b on ts",
                     "SelectedRecord\n" +
-                            "    AsOf Join Light\n" +
+                            "    Async AsOf Join\n" +
                             "      condition: b.ts=a.ts\n" +
+                            "      workers: 1\n" +
                             "        DataFrame\n" +
                             "            Row forward scan\n" +
                             "            Frame forward scan on: a\n" +
@@ -387,8 +392,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                             "            Row forward scan\n" +
                             "            Frame forward scan on: a\n" +
                             "        SelectedRecord\n" +
-                            "            Sort light\n" +
+                            "            Async Sort light\n" +
                             "              keys: [ts, i]\n" +
+                            "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
                             "                    Frame forward scan on: b\n");
@@ -408,8 +414,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                     "SelectedRecord\n" +
                             "    AsOf Join Light\n" +
                             "      condition: c.ts=a.ts\n" +
-                            "        AsOf Join Light\n" +
+                            "        Async AsOf Join\n" +
                             "          condition: b.ts=a.ts\n" +
+                            "          workers: 1\n" +
                             "            DataFrame\n" +
                             "                Row forward scan\n" +
                             "                Frame forward scan on: a\n" +
@@ -434,7 +441,8 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                             "where a.i = b.i",
                     "SelectedRecord\n" +
                             "    Filter filter: a.i=b.i\n" +
-                            "        AsOf Join\n" +
+                            "        Async AsOf Join\n" +
+                            "          workers: 1\n" +
                             "            DataFrame\n" +
                             "                Row forward scan\n" +
                             "                Frame forward scan on: a\n" +
@@ -477,7 +485,8 @@ public class ExplainPlanTest extends AbstractGriffinTest {
 
             assertPlan("select * from a asof join b",
                     "SelectedRecord\n" +
-                            "    AsOf Join\n" +
+                            "    Async AsOf Join\n" +
+                            "      workers: 1\n" +
                             "        DataFrame\n" +
                             "            Row forward scan\n" +
                             "            Frame forward scan on: a\n" +
@@ -1022,7 +1031,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table a ( i int, ts timestamp, l long) timestamp(ts)");
 
             assertPlan("select * from (select * from a order by ts desc limit 10) except (select * from a) order by ts asc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts]\n" +
                             "    Except\n" +
                             "        Limit lo: 10\n" +
@@ -1042,7 +1051,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table a ( i int, ts timestamp, l long) timestamp(ts)");
 
             assertPlan("select * from (select * from a order by ts asc limit 10) except (select * from a) order by ts desc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts desc]\n" +
                             "    Except\n" +
                             "        Limit lo: 10\n" +
@@ -1179,8 +1188,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                         "            Frame forward scan on: a\n" +
                         "        Hash\n" +
                         "            SelectedRecord\n" +
-                        "                Sort light\n" +
+                        "                Async Sort light\n" +
                         "                  keys: [s]\n" +
+                        "                  workers: 1\n" +
                         "                    DataFrame\n" +
                         "                        Row forward scan\n" +
                         "                        Frame forward scan on: a\n");
@@ -1225,8 +1235,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                             "    VirtualRecord\n" +
                             "      functions: [1,d1]\n" +
                             "        SelectedRecord\n" +
-                            "            Hash Join Light\n" +
+                            "            Async Hash Join\n" +
                             "              condition: l2=l1\n" +
+                            "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
                             "                    Frame forward scan on: a\n" +
@@ -1701,6 +1712,8 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                                     sigArgType = ColumnType.CHAR;
                                 } else if (factory instanceof InTimestampTimestampFunctionFactory) {
                                     sigArgType = ColumnType.TIMESTAMP;
+                                } else if (factory instanceof LagDoubleAnalyticFunctionFactory || factory instanceof LeadDoubleAnalyticFunctionFactory) {
+                                    sigArgType = ColumnType.LONG;
                                 } else {
                                     sigArgType = ColumnType.STRING;
                                 }
@@ -1754,8 +1767,8 @@ public class ExplainPlanTest extends AbstractGriffinTest {
 
                         argPositions.setAll(args.size(), 0);
 
-                        if (factory instanceof RowNumberFunctionFactory) {
-                            sqlExecutionContext.configureAnalyticContext(null, null, null, true, true);
+                        if (factory.isWindow()) {
+                            sqlExecutionContext.configureAnalyticContext(null, null, null, true, true, AnalyticColumn.FRAMING_ROWS, Long.MIN_VALUE, 0, -1);
                         }
 
                         Function function = factory.newInstance(0, args, argPositions, engine.getConfiguration(), sqlExecutionContext);
@@ -1793,9 +1806,10 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testGroupByBoolean() throws Exception {
         assertPlan("create table a ( l long, b boolean)",
                 "select b, min(l)  from a group by b",
-                "GroupBy vectorized: false\n" +
+                "Async Group By\n" +
                         "  keys: [b]\n" +
                         "  values: [min(l)]\n" +
+                        "  workers: 1\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
                         "        Frame forward scan on: a\n");
@@ -1819,9 +1833,10 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testGroupByDouble() throws Exception {
         assertPlan("create table a ( l long, d double)",
                 "select d, min(l) from a group by d",
-                "GroupBy vectorized: false\n" +
+                "Async Group By\n" +
                         "  keys: [d]\n" +
                         "  values: [min(l)]\n" +
+                        "  workers: 1\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
                         "        Frame forward scan on: a\n");
@@ -1831,9 +1846,10 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testGroupByFloat() throws Exception {
         assertPlan("create table a ( l long, f float)",
                 "select f, min(l) from a group by f",
-                "GroupBy vectorized: false\n" +
+                "Async Group By\n" +
                         "  keys: [f]\n" +
                         "  values: [min(l)]\n" +
+                        "  workers: 1\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
                         "        Frame forward scan on: a\n");
@@ -1927,6 +1943,21 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                         "                Frame forward scan on: b\n");
     }
 
+    @Test // keyed group by on filtered data is vectorized for a single function only
+    public void testGroupByKeyedOnFilterWithManyValues() throws Exception {
+        assertPlan("create table di (x int, y long)",
+                "select x, count(*), sum(y) from di where abs(y) = 5",
+                "GroupBy vectorized: false\n" +
+                        "  keys: [x]\n" +
+                        "  values: [count(*),sum(y)]\n" +
+                        "    Async Filter\n" +
+                        "      filter: abs(y)=5\n" +
+                        "      workers: 1\n" +
+                        "        DataFrame\n" +
+                        "            Row forward scan\n" +
+                        "            Frame forward scan on: di\n");
+    }
+
     @Test
     public void testGroupByKeyedOnIntersect() throws Exception {
         assertCompile("create table a ( i int, d double)");
@@ -1982,9 +2013,10 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testGroupByLong() throws Exception {
         assertPlan("create table a ( l long, d double)",
                 "select l, min(d) from a group by l",
-                "GroupBy vectorized: false\n" +
+                "Async Group By\n" +
                         "  keys: [l]\n" +
                         "  values: [min(d)]\n" +
+                        "  workers: 1\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
                         "        Frame forward scan on: a\n");
@@ -2008,8 +2040,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                 "GroupBy vectorized: false\n" +
                         "  values: [max(i)]\n" +
                         "    SelectedRecord\n" +
-                        "        Hash Join Light\n" +
+                        "        Async Hash Join\n" +
                         "          condition: b.i=a.i\n" +
+                        "          workers: 1\n" +
                         "            DataFrame\n" +
                         "                Row forward scan\n" +
                         "                Frame forward scan on: a\n" +
@@ -2030,22 +2063,22 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                         "        Frame forward scan on: a\n");
     }
 
-    @Test // expressions in aggregates disable vectorized impl
+    @Test // double arithmetic in aggregates is compiled and evaluated by vectorized impl
     public void testGroupByNotKeyed2() throws Exception {
         assertPlan("create table a ( i int, d double)",
                 "select min(d), max(d*d) from a",
-                "GroupBy vectorized: false\n" +
+                "GroupBy vectorized: true\n" +
                         "  values: [min(d),max(d*d)]\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
                         "        Frame forward scan on: a\n");
     }
 
-    @Test // expressions in aggregates disable vectorized impl
+    @Test // double arithmetic in aggregates is compiled and evaluated by vectorized impl
     public void testGroupByNotKeyed3() throws Exception {
         assertPlan("create table a ( i int, d double)",
                 "select max(d+1) from a",
-                "GroupBy vectorized: false\n" +
+                "GroupBy vectorized: true\n" +
                         "  values: [max(d+1)]\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
@@ -2074,11 +2107,11 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                         "        Frame forward scan on: a\n");
     }
 
-    @Test // group by on filtered data is not vectorized
+    @Test // group by on filtered data is vectorized
     public void testGroupByNotKeyed6() throws Exception {
         assertPlan("create table a ( i int, d double)",
                 "select max(i) from a where i < 10",
-                "GroupBy vectorized: false\n" +
+                "GroupBy vectorized: true\n" +
                         "  values: [max(i)]\n" +
                         "    Async JIT Filter\n" +
                         "      filter: i<10\n" +
@@ -2190,9 +2223,10 @@ public class ExplainPlanTest extends AbstractGriffinTest {
         assertPlan("create table di (x int, y long)",
                 "select x, count(*) from di where y = 5 group by x limit 10",
                 "Limit lo: 10\n" +
-                        "    GroupBy vectorized: false\n" +
+                        "    GroupBy vectorized: true\n" +
                         "      keys: [x]\n" +
                         "      values: [count(*)]\n" +
+                        "      workers: 1\n" +
                         "        Async JIT Filter\n" +
                         "          filter: y=5\n" +
                         "          workers: 1\n" +
@@ -2206,9 +2240,10 @@ public class ExplainPlanTest extends AbstractGriffinTest {
         assertPlan("create table di (x int, y long)",
                 "select x, count(*) from di where y = 5 group by x limit -10",
                 "Limit lo: -10\n" +
-                        "    GroupBy vectorized: false\n" +
+                        "    GroupBy vectorized: true\n" +
                         "      keys: [x]\n" +
                         "      values: [count(*)]\n" +
+                        "      workers: 1\n" +
                         "        Async JIT Filter\n" +
                         "          filter: y=5\n" +
                         "          workers: 1\n" +
@@ -2222,9 +2257,10 @@ public class ExplainPlanTest extends AbstractGriffinTest {
         assertPlan("create table di (x int, y long)",
                 "select x, count(*) from di where abs(y) = 5 group by x limit 10",
                 "Limit lo: 10\n" +
-                        "    GroupBy vectorized: false\n" +
+                        "    GroupBy vectorized: true\n" +
                         "      keys: [x]\n" +
                         "      values: [count(*)]\n" +
+                        "      workers: 1\n" +
                         "        Async Filter\n" +
                         "          filter: abs(y)=5\n" +
                         "          workers: 1\n" +
@@ -2238,9 +2274,10 @@ public class ExplainPlanTest extends AbstractGriffinTest {
         assertPlan("create table di (x int, y long)",
                 "select x, count(*) from di where abs(y) = 5 group by x limit -10",
                 "Limit lo: -10\n" +
-                        "    GroupBy vectorized: false\n" +
+                        "    GroupBy vectorized: true\n" +
                         "      keys: [x]\n" +
                         "      values: [count(*)]\n" +
+                        "      workers: 1\n" +
                         "        Async Filter\n" +
                         "          filter: abs(y)=5\n" +
                         "          workers: 1\n" +
@@ -2254,9 +2291,10 @@ public class ExplainPlanTest extends AbstractGriffinTest {
         assertPlan("create table di (x int, y long)",
                 "select x, count(*) from di where abs(y) = 5 group by x limit 10, 20",
                 "Limit lo: 10 hi: 20\n" +
-                        "    GroupBy vectorized: false\n" +
+                        "    GroupBy vectorized: true\n" +
                         "      keys: [x]\n" +
                         "      values: [count(*)]\n" +
+                        "      workers: 1\n" +
                         "        Async Filter\n" +
                         "          filter: abs(y)=5\n" +
                         "          workers: 1\n" +
@@ -2291,8 +2329,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             assertPlan("select s1, s2 from (select a.s1, b.s2, b.i, a.i  from a join b on i) where i < i1 and s1 = s2",
                     "SelectedRecord\n" +
                             "    Filter filter: (b.i<a.i and a.s1=b.s2)\n" +
-                            "        Hash Join Light\n" +
+                            "        Async Hash Join\n" +
                             "          condition: b.i=a.i\n" +
+                            "          workers: 1\n" +
                             "            DataFrame\n" +
                             "                Row forward scan\n" +
                             "                Frame forward scan on: a\n" +
@@ -2409,7 +2448,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testInUuid() throws Exception {
         assertPlan("create table a (u uuid, ts timestamp) timestamp(ts);",
                 "select u, ts from a where u in ('11111111-1111-1111-1111-111111111111', '22222222-2222-2222-2222-222222222222', '33333333-3333-3333-3333-333333333333')",
-                "Async Filter\n" +
+                "Async JIT Filter\n" +
                         "  filter: u in ['22222222-2222-2222-2222-222222222222','11111111-1111-1111-1111-111111111111','33333333-3333-3333-3333-333333333333']\n" +
                         "  workers: 1\n" +
                         "    DataFrame\n" +
@@ -2490,7 +2529,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table a ( i int, ts timestamp, l long) timestamp(ts)");
 
             assertPlan("select * from (select * from a order by ts desc limit 10) intersect (select * from a) order by ts asc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts]\n" +
                             "    Intersect\n" +
                             "        Limit lo: 10\n" +
@@ -2510,7 +2549,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table a ( i int, ts timestamp, l long) timestamp(ts)");
 
             assertPlan("select * from (select * from a order by ts asc limit 10) intersect (select * from a) order by ts desc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts desc]\n" +
                             "    Intersect\n" +
                             "        Limit lo: 10\n" +
@@ -2528,9 +2567,11 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testLatestOn0() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts);",
                 "select i from a latest on ts partition by i",
-                "LatestByAllFiltered\n" +
-                        "    Row backward scan\n" +
-                        "    Frame backward scan on: a\n");
+                "Async Latest By\n" +
+                        "  workers: 1\n" +
+                        "    DataFrame\n" +
+                        "        Row forward scan\n" +
+                        "        Frame forward scan on: a\n");
     }
 
     @Test
@@ -2614,9 +2655,11 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testLatestOn1() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts);",
                 "select * from a latest on ts partition by i",
-                "LatestByAllFiltered\n" +
-                        "    Row backward scan\n" +
-                        "    Frame backward scan on: a\n");
+                "Async Latest By\n" +
+                        "  workers: 1\n" +
+                        "    DataFrame\n" +
+                        "        Row forward scan\n" +
+                        "        Frame forward scan on: a\n");
     }
 
     @Test // TODO: should use index
@@ -2717,34 +2760,37 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testLatestOn14() throws Exception {
         assertPlan("create table a ( i int, s1 symbol index, s2 symbol index,  ts timestamp) timestamp(ts);",
                 "select s1, s2, i, ts from a where s1 in ('S1', 'S2') and s2 = 'S3' and i > 0 latest on ts partition by s1,s2",
-                "LatestByAllSymbolsFiltered\n" +
+                "Async Latest By\n" +
                         "  filter: ((s1 in [S1,S2] and s2='S3') and 0<i)\n" +
-                        "    Row backward scan\n" +
-                        "      expectedSymbolsCount: 2\n" +
-                        "    Frame backward scan on: a\n");
+                        "  workers: 1\n" +
+                        "    DataFrame\n" +
+                        "        Row forward scan\n" +
+                        "        Frame forward scan on: a\n");
     }
 
     @Test // TODO: should use one or two indexes
     public void testLatestOn15() throws Exception {
         assertPlan("create table a ( i int, s1 symbol index, s2 symbol index,  ts timestamp) timestamp(ts);",
                 "select s1, s2, i, ts from a where s1 in ('S1', 'S2') and s2 = 'S3' latest on ts partition by s1,s2",
-                "LatestByAllSymbolsFiltered\n" +
+                "Async Latest By\n" +
                         "  filter: (s1 in [S1,S2] and s2='S3')\n" +
-                        "    Row backward scan\n" +
-                        "      expectedSymbolsCount: 2\n" +
-                        "    Frame backward scan on: a\n");
+                        "  workers: 1\n" +
+                        "    DataFrame\n" +
+                        "        Row forward scan\n" +
+                        "        Frame forward scan on: a\n");
     }
 
     @Test
     public void testLatestOn16() throws Exception {
         assertPlan("create table a ( i int, s1 symbol index, s2 symbol index,  ts timestamp) timestamp(ts);",
                 "select s1, s2, i, ts from a where s1 = 'S1' and ts > 0::timestamp latest on ts partition by s1,s2",
-                "LatestByAllSymbolsFiltered\n" +
+                "Async Latest By\n" +
                         "  filter: s1='S1'\n" +
-                        "    Row backward scan\n" +
-                        "      expectedSymbolsCount: 2147483647\n" +
-                        "    Interval backward scan on: a\n" +
-                        "      intervals: [(\"1970-01-01T00:00:00.000001Z\",\"MAX\")]\n");
+                        "  workers: 1\n" +
+                        "    DataFrame\n" +
+                        "        Row forward scan\n" +
+                        "        Interval forward scan on: a\n" +
+                        "          intervals: [(\"1970-01-01T00:00:00.000001Z\",\"MAX\")]\n");
     }
 
     @Test
@@ -2768,10 +2814,12 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                 "select ts, i as i1, i as i2 from a where 0 < i and i < 10 latest on ts partition by i",
                 "SelectedRecord\n" +
                         "    SelectedRecord\n" +
-                        "        LatestByAllFiltered\n" +
-                        "            Row backward scan\n" +
-                        "              filter: (0<i and i<10)\n" +
-                        "            Frame backward scan on: a\n");
+                        "        Async Latest By\n" +
+                        "          filter: (0<i and i<10)\n" +
+                        "          workers: 1\n" +
+                        "            DataFrame\n" +
+                        "                Row forward scan\n" +
+                        "                Frame forward scan on: a\n");
     }
 
     @Test
@@ -2779,9 +2827,11 @@ public class ExplainPlanTest extends AbstractGriffinTest {
         assertPlan("create table a ( i int, d double, ts timestamp) timestamp(ts);",
                 "select ts, d from a latest on ts partition by i",
                 "SelectedRecord\n" +
-                        "    LatestByAllFiltered\n" +
-                        "        Row backward scan\n" +
-                        "        Frame backward scan on: a\n");
+                        "    Async Latest By\n" +
+                        "      workers: 1\n" +
+                        "        DataFrame\n" +
+                        "            Row forward scan\n" +
+                        "            Frame forward scan on: a\n");
     }
 
     @Test
@@ -3466,8 +3516,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                             "            Row forward scan\n" +
                             "            Frame forward scan on: a\n" +
                             "        SelectedRecord\n" +
-                            "            Sort light\n" +
+                            "            Async Sort light\n" +
                             "              keys: [ts, i]\n" +
+                            "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
                             "                    Frame forward scan on: b\n");
@@ -3644,14 +3695,16 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                 String expectedPlan = "SelectedRecord\n" +
                         "    " + joinType + " Join\n" +
                         "        SelectedRecord\n" +
-                        "            Sort light\n" +
+                        "            Async Sort light\n" +
                         "              keys: [timestamp, galon_price desc]\n" +
+                        "              workers: 1\n" +
                         "                DataFrame\n" +
                         "                    Row forward scan\n" +
                         "                    Frame forward scan on: gas_prices\n" +
                         "        SelectedRecord\n" +
-                        "            Sort light\n" +
+                        "            Async Sort light\n" +
                         "              keys: [timestamp, galon_price desc]\n" +
+                        "              workers: 1\n" +
                         "                DataFrame\n" +
                         "                    Row forward scan\n" +
                         "                    Frame forward scan on: gas_prices\n";
@@ -3679,14 +3732,16 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                     "    SelectedRecord\n" +
                     "        Splice Join\n" +
                     "            SelectedRecord\n" +
-                    "                Sort light\n" +
+                    "                Async Sort light\n" +
                     "                  keys: [timestamp, galon_price desc]\n" +
+                    "                  workers: 1\n" +
                     "                    DataFrame\n" +
                     "                        Row forward scan\n" +
                     "                        Frame forward scan on: gas_prices\n" +
                     "            SelectedRecord\n" +
-                    "                Sort light\n" +
+                    "                Async Sort light\n" +
                     "                  keys: [timestamp, galon_price desc]\n" +
+                    "                  workers: 1\n" +
                     "                    DataFrame\n" +
                     "                        Row forward scan\n" +
                     "                        Frame forward scan on: gas_prices\n";
@@ -3790,14 +3845,14 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("  CREATE TABLE tab ( x double );");
 
             assertPlan("SELECT sum(x), sum(x+10) FROM tab",
-                    "GroupBy vectorized: false\n" +
+                    "GroupBy vectorized: true\n" +
                             "  values: [sum(x),sum(x+10)]\n" +
                             "    DataFrame\n" +
                             "        Row forward scan\n" +
                             "        Frame forward scan on: tab\n");
 
             assertPlan("SELECT sum(x), sum(10+x) FROM tab",
-                    "GroupBy vectorized: false\n" +
+                    "GroupBy vectorized: true\n" +
                             "  values: [sum(x),sum(10+x)]\n" +
                             "    DataFrame\n" +
                             "        Row forward scan\n" +
@@ -3819,8 +3874,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                             "    GroupBy vectorized: false\n" +
                             "      values: [sum(x),sum(x1),count(x),count(x1)]\n" +
                             "        SelectedRecord\n" +
-                            "            Hash Join Light\n" +
+                            "            Async Hash Join\n" +
                             "              condition: tabb.id=taba.id\n" +
+                            "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
                             "                    Frame forward scan on: taba\n" +
@@ -3837,8 +3893,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                             "    GroupBy vectorized: false\n" +
                             "      values: [sum(x),sum(x1),count(x1),count(x)]\n" +
                             "        SelectedRecord\n" +
-                            "            Hash Join Light\n" +
+                            "            Async Hash Join\n" +
                             "              condition: tabb.id=taba.id\n" +
+                            "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
                             "                    Frame forward scan on: taba\n" +
@@ -3880,14 +3937,14 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("  CREATE TABLE tab ( x double );");
 
             assertPlan("SELECT sum(x), sum(x*10) FROM tab",
-                    "GroupBy vectorized: false\n" +
+                    "GroupBy vectorized: true\n" +
                             "  values: [sum(x),sum(x*10)]\n" +
                             "    DataFrame\n" +
                             "        Row forward scan\n" +
                             "        Frame forward scan on: tab\n");
 
             assertPlan("SELECT sum(x), sum(10*x) FROM tab",
-                    "GroupBy vectorized: false\n" +
+                    "GroupBy vectorized: true\n" +
                             "  values: [sum(x),sum(10*x)]\n" +
                             "    DataFrame\n" +
                             "        Row forward scan\n" +
@@ -3901,14 +3958,14 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("  CREATE TABLE tab ( x double );");
 
             assertPlan("SELECT sum(x), sum(x*10.0) FROM tab",
-                    "GroupBy vectorized: false\n" +
+                    "GroupBy vectorized: true\n" +
                             "  values: [sum(x),sum(x*10.0)]\n" +
                             "    DataFrame\n" +
                             "        Row forward scan\n" +
                             "        Frame forward scan on: tab\n");
 
             assertPlan("SELECT sum(x), sum(10.0*x) FROM tab",
-                    "GroupBy vectorized: false\n" +
+                    "GroupBy vectorized: true\n" +
                             "  values: [sum(x),sum(10.0*x)]\n" +
                             "    DataFrame\n" +
                             "        Row forward scan\n" +
@@ -3930,8 +3987,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                             "    GroupBy vectorized: false\n" +
                             "      values: [sum(x),sum(x1)]\n" +
                             "        SelectedRecord\n" +
-                            "            Hash Join Light\n" +
+                            "            Async Hash Join\n" +
                             "              condition: tabb.id=taba.id\n" +
+                            "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
                             "                    Frame forward scan on: taba\n" +
@@ -3948,8 +4006,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                             "    GroupBy vectorized: false\n" +
                             "      values: [sum(x),sum(x1)]\n" +
                             "        SelectedRecord\n" +
-                            "            Hash Join Light\n" +
+                            "            Async Hash Join\n" +
                             "              condition: tabb.id=taba.id\n" +
+                            "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
                             "                    Frame forward scan on: taba\n" +
@@ -3991,14 +4050,14 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("  CREATE TABLE tab ( x double );");
 
             assertPlan("SELECT sum(x), sum(x-10) FROM tab",
-                    "GroupBy vectorized: false\n" +
+                    "GroupBy vectorized: true\n" +
                             "  values: [sum(x),sum(x-10)]\n" +
                             "    DataFrame\n" +
                             "        Row forward scan\n" +
                             "        Frame forward scan on: tab\n");
 
             assertPlan("SELECT sum(x), sum(10-x) FROM tab",
-                    "GroupBy vectorized: false\n" +
+                    "GroupBy vectorized: true\n" +
                             "  values: [sum(x),sum(10-x)]\n" +
                             "    DataFrame\n" +
                             "        Row forward scan\n" +
@@ -4020,8 +4079,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                             "    GroupBy vectorized: false\n" +
                             "      values: [sum(x),sum(x1),count(x),count(x1)]\n" +
                             "        SelectedRecord\n" +
-                            "            Hash Join Light\n" +
+                            "            Async Hash Join\n" +
                             "              condition: tabb.id=taba.id\n" +
+                            "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
                             "                    Frame forward scan on: taba\n" +
@@ -4038,8 +4098,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                             "    GroupBy vectorized: false\n" +
                             "      values: [sum(x),sum(x1),count(x),count(x1)]\n" +
                             "        SelectedRecord\n" +
-                            "            Hash Join Light\n" +
+                            "            Async Hash Join\n" +
                             "              condition: tabb.id=taba.id\n" +
+                            "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
                             "                    Frame forward scan on: taba\n" +
@@ -4094,8 +4155,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                             "    GroupBy vectorized: false\n" +
                             "      values: [sum(resolutIONWidth),count(resolutIONWidth),sum(ResolutionWidth1),count(*)]\n" +
                             "        SelectedRecord\n" +
-                            "            Hash Join Light\n" +
+                            "            Async Hash Join\n" +
                             "              condition: h2.id=h1.id\n" +
+                            "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
                             "                    Frame forward scan on: hits1\n" +
@@ -4345,7 +4407,8 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                 "select count(*) from (select * from a asof join a b) ",
                 "Count\n" +
                         "    SelectedRecord\n" +
-                        "        AsOf Join\n" +
+                        "        Async AsOf Join\n" +
+                        "          workers: 1\n" +
                         "            DataFrame\n" +
                         "                Row forward scan\n" +
                         "                Frame forward scan on: a\n" +
@@ -4528,7 +4591,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectDesc2() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) ;",
                 "select * from a order by ts desc",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts desc]\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
@@ -5201,7 +5264,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
 
         assertPlan(
                 "select * from a limit -5",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts]\n" +
                         "    Limit lo: 5\n" +
                         "        DataFrame\n" +
@@ -5225,7 +5288,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
 
         assertPlan(
                 "select * from (select * from a order by ts asc limit 5) order by ts desc",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts desc]\n" +
                         "    Limit lo: 5\n" +
                         "        DataFrame\n" +
@@ -5240,7 +5303,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
 
         assertPlan(
                 "select * from (select * from a order by ts desc limit 5) order by ts asc",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts]\n" +
                         "    Limit lo: 5\n" +
                         "        DataFrame\n" +
@@ -5272,7 +5335,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectOrderByTsDescNegativeLimit() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select * from a order by ts desc limit -10",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts desc]\n" +
                         "    Limit lo: 10\n" +
                         "        DataFrame\n" +
@@ -5284,7 +5347,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectOrderByTsWithNegativeLimit() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts)",
                 "select * from a order by ts  limit -5",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts]\n" +
                         "    Limit lo: 5\n" +
                         "        DataFrame\n" +
@@ -5341,7 +5404,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectOrderedAsc() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select * from a order by i asc",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [i]\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
@@ -5352,7 +5415,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectOrderedDesc() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select * from a order by i desc",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [i desc]\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
@@ -5392,7 +5455,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectStaticTsInterval10() throws Exception {
         assertPlan("create table tab ( l long, ts timestamp) timestamp(ts);",
                 "select * from tab where ts in '2020-01-01T03:00:00;1h;24h;3' order by l desc ",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [l desc]\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
@@ -5404,8 +5467,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectStaticTsInterval10a() throws Exception {
         assertPlan("create table tab ( l long, ts timestamp) timestamp(ts);",
                 "select * from tab where ts in '2020-01-01T03:00:00;1h;24h;3' order by l desc, ts desc ",
-                "Sort light\n" +
+                "Async Sort light\n" +
                         "  keys: [l desc, ts desc]\n" +
+                        "  workers: 1\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
                         "        Interval forward scan on: tab\n" +
@@ -5426,7 +5490,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectStaticTsInterval3() throws Exception {
         assertPlan("create table tab ( l long, ts timestamp) timestamp(ts);",
                 "select * from tab where ts in '2020-03-01' or ts in '2020-03-10'",
-                "Async Filter\n" +
+                "Async JIT Filter\n" +
                         "  filter: (ts in [1583020800000000,1583107199999999] or ts in [1583798400000000,1583884799999999])\n" +
                         "  workers: 1\n" +
                         "    DataFrame\n" +
@@ -5467,7 +5531,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectStaticTsInterval7() throws Exception {
         assertPlan("create table tab ( l long, ts timestamp) timestamp(ts);",
                 "select * from tab where (ts between '2020-03-01' and '2020-03-10') or (ts between '2020-04-01' and '2020-04-10') ",
-                "Async Filter\n" +
+                "Async JIT Filter\n" +
                         "  filter: (ts between 1583020800000000 and 1583798400000000 or ts between 1585699200000000 and 1586476800000000)\n" +
                         "  workers: 1\n" +
                         "    DataFrame\n" +
@@ -5533,11 +5597,11 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                         "        Frame forward scan on: tab\n");
     }
 
-    @Test // TODO: this one should use jit
+    @Test
     public void testSelectWithJittedFilter10() throws Exception {
         assertPlan("create table tab ( s symbol, ts timestamp);",
                 "select * from tab where s in ( 'A', 'B' )",
-                "Async Filter\n" +
+                "Async JIT Filter\n" +
                         "  filter: s in [A,B]\n" +
                         "  workers: 1\n" +
                         "    DataFrame\n" +
@@ -5549,7 +5613,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectWithJittedFilter11() throws Exception {
         assertPlan("create table tab ( s symbol, ts timestamp);",
                 "select * from tab where ts in ( '2020-01-01', '2020-01-02' )",
-                "Async Filter\n" +
+                "Async JIT Filter\n" +
                         "  filter: ts in [1577836800000000,1577923200000000]\n" +
                         "  workers: 1\n" +
                         "    DataFrame\n" +
@@ -5561,7 +5625,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectWithJittedFilter12() throws Exception {
         assertPlan("create table tab ( s symbol, ts timestamp);",
                 "select * from tab where ts in ( '2020-01-01', '2020-01-03' ) and s = 'ABC'",
-                "Async Filter\n" +
+                "Async JIT Filter\n" +
                         "  filter: (ts in [1577836800000000,1578009600000000] and s='ABC')\n" +
                         "  workers: 1\n" +
                         "    DataFrame\n" +
@@ -5573,7 +5637,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectWithJittedFilter13() throws Exception {
         assertPlan("create table tab ( s symbol, ts timestamp);",
                 "select * from tab where ts in ( '2020-01-01' ) and s = 'ABC'",
-                "Async Filter\n" +
+                "Async JIT Filter\n" +
                         "  filter: (ts in [1577836800000000,1577923199999999] and s='ABC')\n" +
                         "  workers: 1\n" +
                         "    DataFrame\n" +
@@ -5819,12 +5883,26 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                         "        Frame backward scan on: tab\n");
     }
 
-    @Test // TODO: this one should use jit !
+    @Test // string predicates are applied to the rows selected by the jitted part of the filter
+    public void testSelectWithJittedFilter27() throws Exception {
+        assertPlan("create table tab ( l long, s string, ts timestamp);",
+                "select * from tab where l > 100 and s like 'ab%' ",
+                "Async JIT Filter\n" +
+                        "  filter: 100<l\n" +
+                        "  residual filter: s like ab%\n" +
+                        "  workers: 1\n" +
+                        "    DataFrame\n" +
+                        "        Row forward scan\n" +
+                        "        Frame forward scan on: tab\n");
+    }
+
+    @Test
     public void testSelectWithJittedFilter3() throws Exception {
         assertPlan("create table tab ( l long, ts timestamp);",
                 "select * from tab where l > 100 and l < 1000 and ts = '2022-01-01' ",
-                "Async Filter\n" +
-                        "  filter: ((100<l and l<1000) and ts=1640995200000000)\n" +
+                "Async JIT Filter\n" +
+                        "  filter: (100<l and l<1000)\n" +
+                        "  residual filter: ts=1640995200000000\n" +
                         "  workers: 1\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
@@ -5892,11 +5970,11 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                         "          intervals: [(\"2021-01-01T00:00:00.000000Z\",\"2021-01-01T23:59:59.999999Z\")]\n");
     }
 
-    @Test // TODO: this one should use jit
+    @Test
     public void testSelectWithJittedFilter9() throws Exception {
         assertPlan("create table tab ( l long, ts timestamp);",
                 "select * from tab where l in ( 100, 200 )",
-                "Async Filter\n" +
+                "Async JIT Filter\n" +
                         "  filter: l in [100,200]\n" +
                         "  workers: 1\n" +
                         "    DataFrame\n" +
@@ -5938,7 +6016,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectWithLimitLoNegative() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select * from a limit -10",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts]\n" +
                         "    Limit lo: 10\n" +
                         "        DataFrame\n" +
@@ -6183,7 +6261,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectWithNotOperator() throws Exception {
         assertPlan("CREATE TABLE tst ( timestamp TIMESTAMP );",
                 "select * from tst where timestamp not between '2021-01-01' and '2021-01-10' ",
-                "Async Filter\n" +
+                "Async JIT Filter\n" +
                         "  filter: not (timestamp between 1609459200000000 and 1610236800000000)\n" +
                         "  workers: 1\n" +
                         "    DataFrame\n" +
@@ -6205,7 +6283,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectWithOrderByTsDescLimitLoNegative1() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select * from a order by ts desc limit -10",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts desc]\n" +
                         "    Limit lo: 10\n" +
                         "        DataFrame\n" +
@@ -6218,7 +6296,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select i from a order by ts desc limit -10",
                 "SelectedRecord\n" +
-                        "    Sort light\n" +
+                        "    Radix sort light\n" +
                         "      keys: [ts desc]\n" +
                         "        Limit lo: 10\n" +
                         "            DataFrame\n" +
@@ -6230,7 +6308,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectWithOrderByTsLimitLoNegative1() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select * from a order by ts limit -10",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts]\n" +
                         "    Limit lo: 10\n" +
                         "        DataFrame\n" +
@@ -6243,7 +6321,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select i from a order by ts limit -10",
                 "SelectedRecord\n" +
-                        "    Sort light\n" +
+                        "    Radix sort light\n" +
                         "      keys: [ts]\n" +
                         "        Limit lo: 10\n" +
                         "            DataFrame\n" +
@@ -6411,8 +6489,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                     "SelectedRecord\n" +
                             "    Lt Join\n" +
                             "        Limit lo: 10\n" +
-                            "            Sort light\n" +
+                            "            Async Sort light\n" +
                             "              keys: [ts, l]\n" +
+                            "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
                             "                    Frame forward scan on: a\n" +
@@ -6430,11 +6509,12 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             assertPlan("select * from " +
                             "(select * from (select * from a order by ts desc, l desc) limit 10) " +
                             "order by ts asc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts]\n" +
                             "    Limit lo: 10\n" +
-                            "        Sort light\n" +
+                            "        Async Sort light\n" +
                             "          keys: [ts desc, l desc]\n" +
+                            "          workers: 1\n" +
                             "            DataFrame\n" +
                             "                Row forward scan\n" +
                             "                Frame forward scan on: a\n");
@@ -6509,7 +6589,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table a ( i int, ts timestamp, l long) timestamp(ts)");
 
             assertPlan("select * from (select * from a order by ts asc limit 10) order by ts desc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts desc]\n" +
                             "    Limit lo: 10\n" +
                             "        DataFrame\n" +
@@ -6537,7 +6617,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table a ( i int, ts timestamp, l long) timestamp(ts)");
 
             assertPlan("select * from (select * from a order by ts desc limit 10) order by ts asc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts]\n" +
                             "    Limit lo: 10\n" +
                             "        DataFrame\n" +
@@ -6571,8 +6651,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                     "Sort light\n" +
                             "  keys: [ts, l]\n" +
                             "    Limit lo: 10 hi: -10\n" +
-                            "        Sort light\n" +
+                            "        Async Sort light\n" +
                             "          keys: [ts, l]\n" +
+                            "          workers: 1\n" +
                             "            DataFrame\n" +
                             "                Row forward scan\n" +
                             "                Frame forward scan on: a\n");
@@ -6672,8 +6753,9 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                             "            Row forward scan\n" +
                             "            Frame forward scan on: a\n" +
                             "        SelectedRecord\n" +
-                            "            Sort light\n" +
+                            "            Async Sort light\n" +
                             "              keys: [ts, i]\n" +
+                            "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
                             "                    Frame forward scan on: b\n");
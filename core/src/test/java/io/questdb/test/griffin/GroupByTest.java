@@ -40,8 +40,9 @@ public class GroupByTest extends AbstractGriffinTest {
 
             String query1 = "select l,s from t group by l,s";
             assertPlan(query1,
-                    "GroupBy vectorized: false\n" +
+                    "Async Group By\n" +
                             "  keys: [l,s]\n" +
+                            "  workers: 1\n" +
                             "    DataFrame\n" +
                             "        Row forward scan\n" +
                             "        Frame forward scan on: t\n");
@@ -52,8 +53,9 @@ public class GroupByTest extends AbstractGriffinTest {
             assertPlan(query2,
                     "VirtualRecord\n" +
                             "  functions: [l,s]\n" +
-                            "    GroupBy vectorized: false\n" +
+                            "    Async Group By\n" +
                             "      keys: [l,s]\n" +
+                            "      workers: 1\n" +
                             "        DataFrame\n" +
                             "            Row forward scan\n" +
                             "            Frame forward scan on: t\n");
@@ -291,9 +293,10 @@ public class GroupByTest extends AbstractGriffinTest {
             assertPlan(query,
                     "VirtualRecord\n" +
                             "  functions: [x,avg,avg+min,x+10,avg1,avg1+10]\n" +
-                            "    GroupBy vectorized: false\n" +
+                            "    Async Group By\n" +
                             "      keys: [x]\n" +
                             "      values: [avg(y),min(y),avg(x)]\n" +
+                            "      workers: 1\n" +
                             "        DataFrame\n" +
                             "            Row forward scan\n" +
                             "            Frame forward scan on: t\n");
@@ -317,9 +320,10 @@ public class GroupByTest extends AbstractGriffinTest {
             assertPlan(query,
                     "VirtualRecord\n" +
                             "  functions: [x,avg,:bv::string]\n" +
-                            "    GroupBy vectorized: false\n" +
+                            "    Async Group By\n" +
                             "      keys: [x]\n" +
                             "      values: [avg(y)]\n" +
+                            "      workers: 1\n" +
                             "        DataFrame\n" +
                             "            Row forward scan\n" +
                             "            Frame forward scan on: t\n");
@@ -337,9 +341,10 @@ public class GroupByTest extends AbstractGriffinTest {
             assertPlan(query,
                     "VirtualRecord\n" +
                             "  functions: [x*10,x+avg,min]\n" +
-                            "    GroupBy vectorized: false\n" +
+                            "    Async Group By\n" +
                             "      keys: [x]\n" +
                             "      values: [avg(y),min(y)]\n" +
+                            "      workers: 1\n" +
                             "        DataFrame\n" +
                             "            Row forward scan\n" +
                             "            Frame forward scan on: t\n");
@@ -398,11 +403,12 @@ public class GroupByTest extends AbstractGriffinTest {
                     "order by ordr.date_report";
 
             assertPlan(query,
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [date_report]\n" +
-                            "    GroupBy vectorized: false\n" +
+                            "    Async Group By\n" +
                             "      keys: [date_report]\n" +
                             "      values: [count(*)]\n" +
+                            "      workers: 1\n" +
                             "        DataFrame\n" +
                             "            Row forward scan\n" +
                             "            Frame forward scan on: dat\n");
@@ -422,11 +428,12 @@ public class GroupByTest extends AbstractGriffinTest {
                     "group by date_report " +//no alias used here
                     "order by ordr.date_report";
             assertPlan(query,
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [date_report]\n" +
-                            "    GroupBy vectorized: false\n" +
+                            "    Async Group By\n" +
                             "      keys: [date_report]\n" +
                             "      values: [count(*)]\n" +
+                            "      workers: 1\n" +
                             "        DataFrame\n" +
                             "            Row forward scan\n" +
                             "            Frame forward scan on: dat\n");
@@ -447,11 +454,12 @@ public class GroupByTest extends AbstractGriffinTest {
                     "order by ordr.date_report";
 
             assertPlan(query,
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [date_report]\n" +
-                            "    GroupBy vectorized: false\n" +
+                            "    Async Group By\n" +
                             "      keys: [date_report]\n" +
                             "      values: [count(*)]\n" +
+                            "      workers: 1\n" +
                             "        DataFrame\n" +
                             "            Row forward scan\n" +
                             "            Frame forward scan on: dat\n");
@@ -471,13 +479,14 @@ public class GroupByTest extends AbstractGriffinTest {
                     "group by date_report, ordr.date_report " +
                     "order by ordr.date_report";
             assertPlan(query,
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [date_report]\n" +
                             "    VirtualRecord\n" +
                             "      functions: [date_report,date_report,count]\n" +
-                            "        GroupBy vectorized: false\n" +
+                            "        Async Group By\n" +
                             "          keys: [date_report]\n" +
                             "          values: [count(*)]\n" +
+                            "          workers: 1\n" +
                             "            DataFrame\n" +
                             "                Row forward scan\n" +
                             "                Frame forward scan on: dat\n");
@@ -498,7 +507,7 @@ public class GroupByTest extends AbstractGriffinTest {
                     "group by dateadd('d', -1, date_report), ordr.date_report " +
                     "order by ordr.date_report";
             assertPlan(query,
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [date_report]\n" +
                             "    VirtualRecord\n" +
                             "      functions: [date_report,dateadd,dateadd('d',1,date_report),concat(['1',date_report,'3']),count]\n" +
@@ -528,13 +537,14 @@ public class GroupByTest extends AbstractGriffinTest {
                     "order by ordr.date_report";
 
             assertPlan(query,
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [date_report]\n" +
                             "    VirtualRecord\n" +
                             "      functions: [date_report,to_str(date_report),dateadd('d',1,date_report),dateadd('d',-1,date_report),count]\n" +
-                            "        GroupBy vectorized: false\n" +
+                            "        Async Group By\n" +
                             "          keys: [date_report]\n" +
                             "          values: [count(*)]\n" +
+                            "          workers: 1\n" +
                             "            DataFrame\n" +
                             "                Row forward scan\n" +
                             "                Frame forward scan on: dat\n");
@@ -563,7 +573,7 @@ public class GroupByTest extends AbstractGriffinTest {
                     "order by details.date_report";
 
             assertPlan(query,
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [date_report]\n" +
                             "    VirtualRecord\n" +
                             "      functions: [date_report,to_str(date_report),dateadd('d',1,date_report),min,count,minminusday]\n" +
@@ -571,8 +581,9 @@ public class GroupByTest extends AbstractGriffinTest {
                             "          keys: [date_report]\n" +
                             "          values: [min(x),count(*),min(dateadd('d',-1,date_report1))]\n" +
                             "            SelectedRecord\n" +
-                            "                Hash Join Light\n" +
+                            "                Async Hash Join\n" +
                             "                  condition: details.x=ordr.x\n" +
+                            "                  workers: 1\n" +
                             "                    DataFrame\n" +
                             "                        Row forward scan\n" +
                             "                        Frame forward scan on: ord\n" +
@@ -766,9 +777,10 @@ public class GroupByTest extends AbstractGriffinTest {
 
             String query = "select s, max, max(l) from t group by s, max";
             assertPlan(query,
-                    "GroupBy vectorized: false\n" +
+                    "Async Group By\n" +
                             "  keys: [s,max]\n" +
                             "  values: [max(l)]\n" +
+                            "  workers: 1\n" +
                             "    DataFrame\n" +
                             "        Row forward scan\n" +
                             "        Frame forward scan on: t\n");
@@ -813,8 +825,9 @@ public class GroupByTest extends AbstractGriffinTest {
                     "      keys: [x,x1]\n" +
                     "      values: [max(y)]\n" +
                     "        SelectedRecord\n" +
-                    "            Hash Join Light\n" +
+                    "            Async Hash Join\n" +
                     "              condition: t2.y=t1.y\n" +
+                    "              workers: 1\n" +
                     "                DataFrame\n" +
                     "                    Row forward scan\n" +
                     "                    Frame forward scan on: t1\n" +
@@ -848,8 +861,9 @@ public class GroupByTest extends AbstractGriffinTest {
                     "        VirtualRecord\n" +
                     "          functions: [x,y,case([1<x,30*x,20*x1]),x1]\n" +
                     "            SelectedRecord\n" +
-                    "                Hash Join Light\n" +
+                    "                Async Hash Join\n" +
                     "                  condition: t2.y=t1.y\n" +
+                    "                  workers: 1\n" +
                     "                    DataFrame\n" +
                     "                        Row forward scan\n" +
                     "                        Frame forward scan on: t1\n" +
@@ -883,8 +897,9 @@ public class GroupByTest extends AbstractGriffinTest {
                     "        VirtualRecord\n" +
                     "          functions: [x,y,x1,dateadd('d',1677628800000000,x)]\n" +
                     "            SelectedRecord\n" +
-                    "                Hash Join Light\n" +
+                    "                Async Hash Join\n" +
                     "                  condition: t2.y=t1.y\n" +
+                    "                  workers: 1\n" +
                     "                    DataFrame\n" +
                     "                        Row forward scan\n" +
                     "                        Frame forward scan on: t1\n" +
@@ -918,8 +933,9 @@ public class GroupByTest extends AbstractGriffinTest {
                     "        VirtualRecord\n" +
                     "          functions: [x,y,dateadd('d',1677628800000000,x),x1]\n" +
                     "            SelectedRecord\n" +
-                    "                Hash Join Light\n" +
+                    "                Async Hash Join\n" +
                     "                  condition: t2.y=t1.y\n" +
+                    "                  workers: 1\n" +
                     "                    DataFrame\n" +
                     "                        Row forward scan\n" +
                     "                        Frame forward scan on: t1\n" +
@@ -957,8 +973,9 @@ public class GroupByTest extends AbstractGriffinTest {
             assertPlan(query,
                     "VirtualRecord\n" +
                             "  functions: [l,s,rnd_int(0,1,0)/10]\n" +
-                            "    GroupBy vectorized: false\n" +
+                            "    Async Group By\n" +
                             "      keys: [l,s]\n" +
+                            "      workers: 1\n" +
                             "        DataFrame\n" +
                             "            Row forward scan\n" +
                             "            Frame forward scan on: t\n");
@@ -37,6 +37,7 @@ import io.questdb.griffin.engine.groupby.vect.GroupByJob;
 import io.questdb.mp.WorkerPool;
 import io.questdb.mp.WorkerPoolConfiguration;
 import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
 import io.questdb.test.AbstractGriffinTest;
 import io.questdb.test.CreateTableTestUtils;
 import io.questdb.test.cairo.DefaultTestCairoConfiguration;
@@ -1096,6 +1097,43 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
         testAggregations(aggregateFunctions, aggregateColTypes);
     }
 
+    @Test
+    public void testFilteredCountAndSumLongOverManyFrames() throws Exception {
+        executeWithPool(4, 16, (CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) -> {
+            final int batchCount = 5;
+            final int batchSize = 148_000;
+            compiler.compile("create table tab (s symbol, v long, ts timestamp) timestamp(ts) partition by day", sqlExecutionContext);
+            for (int i = 0; i < batchCount; i++) {
+                compile(
+                        compiler,
+                        "insert into tab select 'a' || (x % 4), x, timestamp_sequence(" + i + " * 86400000000L, 500000) from long_sequence(" + batchSize + ")",
+                        sqlExecutionContext
+                );
+            }
+
+            long count0 = 0, sum0 = 0, count1 = 0, sum1 = 0;
+            for (long x = 1; x <= batchSize; x++) {
+                if (x % 4 == 0) {
+                    count0++;
+                    sum0 += x;
+                } else if (x % 4 == 1) {
+                    count1++;
+                    sum1 += x;
+                }
+            }
+            final String expected = "s\tcount\tsum\n" +
+                    "a0\t" + count0 * batchCount + "\t" + sum0 * batchCount + "\n" +
+                    "a1\t" + count1 * batchCount + "\t" + sum1 * batchCount + "\n";
+            final StringSink sink = new StringSink();
+            for (int i = 0; i < 5; i++) {
+                TestUtils.assertSql(compiler, sqlExecutionContext, "select s, count(), sum(v) from tab where s in ('a0','a1') order by s", sink, expected);
+                TestUtils.assertSql(compiler, sqlExecutionContext, "select s, sum(v), count() from tab where s in ('a0','a1') order by s", sink, "s\tsum\tcount\n" +
+                        "a0\t" + sum0 * batchCount + "\t" + count0 * batchCount + "\n" +
+                        "a1\t" + sum1 * batchCount + "\t" + count1 * batchCount + "\n");
+            }
+        });
+    }
+
     @Test
     public void testNonRostiWithManyAggregateFunctions1() throws Exception {
         executeWithPool(1, 32, KeyedAggregationTest::runGroupByWithAgg);
@@ -1479,6 +1517,33 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testVectorAggregationOverFilteredFramesWithColTop() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select x::int i, x l, (x % 3)::int k, timestamp_sequence(0, 100000000) ts from long_sequence(2000)) timestamp(ts) partition by day", sqlExecutionContext);
+            compile("alter table tab add column z long", sqlExecutionContext);
+            compiler.compile("insert into tab select (2000 + x)::int, 2000 + x, (x % 3)::int, timestamp_sequence(200000000000, 100000000), x from long_sequence(1000)", sqlExecutionContext);
+
+            assertSql(
+                    "select sum(l), min(i), max(i), count(), count(z), sum(z) from tab where l % 2 = 0",
+                    "sum\tmin\tmax\tcount\tcount1\tsum1\n" +
+                            "2251500\t2\t3000\t1500\t500\t250500\n"
+            );
+            assertSql(
+                    "select k, sum(l), count(), sum(z), min(i) from tab where l % 2 = 0 order by k",
+                    "k\tsum\tcount\tsum1\tmin\n" +
+                            "0\t748832\t499\t83166\t6\n" +
+                            "1\t750834\t500\t83834\t4\n" +
+                            "2\t751834\t501\t83500\t2\n"
+            );
+            assertSql(
+                    "select sum(l), count() from tab where l < 0",
+                    "sum\tcount\n" +
+                            "NaN\t0\n"
+            );
+        });
+    }
+
     private static void compile(SqlCompiler compiler, CharSequence query, SqlExecutionContext executionContext) throws SqlException {
         CompiledQuery cc = compiler.compile(query, executionContext);
         try (OperationFuture future = cc.execute(null)) {
@@ -88,7 +88,7 @@ public class NoopGroupByTest extends AbstractGriffinTest {
                         "    GroupBy vectorized: false\n" +
                         "      keys: [sym1,sym2]\n" +
                         "      values: [avg(bid)]\n" +
-                        "        Async Filter\n" +
+                        "        Async JIT Filter\n" +
                         "          filter: sym1 in [AA,BB]\n" +
                         "          workers: 1\n" +
                         "            DataFrame\n" +
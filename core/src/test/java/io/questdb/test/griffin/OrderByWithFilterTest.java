@@ -421,7 +421,7 @@ public class OrderByWithFilterTest extends AbstractGriffinTest {
                     "    Sort light\n" +
                     "      keys: [mta_tax]\n" +
                     "        SelectedRecord\n" +
-                    "            Async Filter\n" +
+                    "            Async JIT Filter\n" +
                     "              filter: vendor_id in [A1,A2]\n" +
                     "              workers: 1\n" +
                     "                DataFrame\n" +
@@ -473,7 +473,7 @@ public class OrderByWithFilterTest extends AbstractGriffinTest {
                     "                    Interval forward scan on: t1\n" +
                     "                      intervals: [(\"2019-06-30T00:00:00.000000Z\",\"MAX\")]\n" +
                     "                Hash\n" +
-                    "                    Async Filter\n" +
+                    "                    Async JIT Filter\n" +
                     "                      filter: vendor_id in [A1,A2]\n" +
                     "                      workers: 1\n" +
                     "                        DataFrame\n" +
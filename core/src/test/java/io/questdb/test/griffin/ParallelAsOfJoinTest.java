@@ -0,0 +1,191 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractTest;
+import io.questdb.test.cairo.DefaultTestCairoConfiguration;
+import io.questdb.test.mp.TestWorkerPool;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class ParallelAsOfJoinTest extends AbstractTest {
+    private static final String[] DDL = {
+            "create table trades as (" +
+                    "select rnd_symbol('A','B','C','D','E','F') sym," +
+                    " rnd_int(0, 50, 0) i," +
+                    " rnd_str(3, 4, 2) s," +
+                    " rnd_double() price," +
+                    " timestamp_sequence(0, 100000) ts" +
+                    " from long_sequence(20000)" +
+                    ") timestamp(ts) partition by hour",
+            "create table quotes as (" +
+                    "select rnd_symbol('A','C','E','G') sym," +
+                    " rnd_int(0, 100, 0) i," +
+                    " rnd_str(3, 4, 2) s," +
+                    " rnd_double() bid," +
+                    " timestamp_sequence(50000, 400000) ts" +
+                    " from long_sequence(5000)" +
+                    ") timestamp(ts) partition by hour",
+            "create table empty (sym symbol, i int, s string, bid double, ts timestamp) timestamp(ts) partition by day",
+            "create table rare as (" +
+                    "select rnd_symbol('A','B','C','D','E','F') sym," +
+                    " rnd_double() bid," +
+                    " timestamp_sequence(0, 600000000) ts" +
+                    " from long_sequence(4)" +
+                    ") timestamp(ts) partition by day"
+    };
+    private static final int PAGE_FRAME_MAX_ROWS = 1000;
+
+    @Test
+    public void testParallelAsOfJoinEmptySlave() throws Exception {
+        testParallelAsOfJoin(
+                "select t.ts, t.sym, e.bid from trades t asof join empty e on (sym)"
+        );
+    }
+
+    @Test
+    public void testParallelAsOfJoinIntKey() throws Exception {
+        testParallelAsOfJoin(
+                "select t.ts, t.i, q.bid, q.ts from trades t asof join quotes q on (i)"
+        );
+    }
+
+    @Test
+    public void testParallelAsOfJoinLimit() throws Exception {
+        testParallelAsOfJoin(
+                "select t.ts, t.sym, q.bid from trades t asof join quotes q on (sym) limit 10000, 10100"
+        );
+    }
+
+    @Test
+    public void testParallelAsOfJoinMultipleKeys() throws Exception {
+        testParallelAsOfJoin(
+                "select t.ts, t.sym, t.i, q.bid, q.ts from trades t asof join quotes q on (sym, i)"
+        );
+    }
+
+    @Test
+    public void testParallelAsOfJoinNoKey() throws Exception {
+        testParallelAsOfJoin(
+                "select t.ts, t.price, q.bid, q.ts from trades t asof join quotes q"
+        );
+    }
+
+    @Test
+    public void testParallelAsOfJoinRareKeys() throws Exception {
+        // most of the keys are found far behind the master frames, or not found at all
+        testParallelAsOfJoin(
+                "select t.ts, t.sym, r.bid, r.ts from trades t asof join rare r on (sym)"
+        );
+    }
+
+    @Test
+    public void testParallelAsOfJoinSingleWorker() throws Exception {
+        testParallelAsOfJoin(
+                1,
+                "select t.ts, t.sym, q.sym, q.bid from trades t asof join quotes q on (sym)"
+        );
+    }
+
+    @Test
+    public void testParallelAsOfJoinSlaveAhead() throws Exception {
+        testParallelAsOfJoin(
+                "select q.ts, q.sym, t.price, t.ts from quotes q asof join trades t on (sym)"
+        );
+    }
+
+    @Test
+    public void testParallelAsOfJoinSymbolKey() throws Exception {
+        testParallelAsOfJoin(
+                "select t.ts, t.sym, t.price, q.sym, q.bid, q.ts from trades t asof join quotes q on (sym)"
+        );
+    }
+
+    @Test
+    public void testParallelAsOfJoinVarSizeKey() throws Exception {
+        testParallelAsOfJoin(
+                "select t.ts, t.s, q.s, q.bid from trades t asof join quotes q on (s)"
+        );
+    }
+
+    private static void assertParallelAsOfJoin(
+            SqlCompiler compiler,
+            SqlExecutionContextImpl sqlExecutionContext,
+            String query
+    ) throws SqlException {
+        final StringSink expected = new StringSink();
+        sqlExecutionContext.setParallelAsOfJoinEnabled(false);
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        final StringSink actual = new StringSink();
+        sqlExecutionContext.setParallelAsOfJoinEnabled(true);
+        TestUtils.printSql(compiler, sqlExecutionContext, "explain " + query, actual);
+        TestUtils.assertContains(actual, "Async AsOf Join");
+
+        actual.clear();
+        TestUtils.printSql(compiler, sqlExecutionContext, query, actual);
+        TestUtils.assertEquals(expected, actual);
+    }
+
+    private void testParallelAsOfJoin(String query) throws Exception {
+        testParallelAsOfJoin(4, query);
+    }
+
+    private void testParallelAsOfJoin(int workerCount, String query) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultTestCairoConfiguration(root) {
+                @Override
+                public int getSqlPageFrameMaxRows() {
+                    return PAGE_FRAME_MAX_ROWS;
+                }
+            };
+
+            final WorkerPool pool = new TestWorkerPool(workerCount);
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContextImpl sqlExecutionContext = TestUtils.createSqlExecutionCtx(engine, workerCount)
+            ) {
+                TestUtils.setupWorkerPool(pool, engine);
+                pool.start();
+                try {
+                    for (String ddl : DDL) {
+                        compiler.compile(ddl, sqlExecutionContext);
+                    }
+                    assertParallelAsOfJoin(compiler, sqlExecutionContext, query);
+                } finally {
+                    pool.halt();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,338 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.SqlJitMode;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.groupby.vect.GroupByJob;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractTest;
+import io.questdb.test.cairo.DefaultTestCairoConfiguration;
+import io.questdb.test.mp.TestWorkerPool;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class ParallelGroupByTest extends AbstractTest {
+    private static final String DDL = "create table tab as (" +
+            "select rnd_symbol('A','B','C','D','E') key1," +
+            " rnd_int(0, 100, 0) key2," +
+            " rnd_str(5, 10, 2) key3," +
+            " rnd_int(0, 1000, 2)::double d," +
+            " rnd_long(0, 1000, 2) l," +
+            " rnd_int() i," +
+            " rnd_float(2) f," +
+            " timestamp_sequence(0, 100000) ts" +
+            " from long_sequence(200000)" +
+            ") timestamp(ts) partition by hour";
+    private static final int PAGE_FRAME_MAX_ROWS = 1000;
+
+    @Test
+    public void testParallelFilteredVectorGroupByKeyed() throws Exception {
+        testParallelFilteredVectorGroupBy(
+                "select key2, count(), sum(l), min(d), max(i) from tab where l > 100 order by key2"
+        );
+    }
+
+    @Test
+    public void testParallelFilteredVectorGroupByNotKeyed() throws Exception {
+        testParallelFilteredVectorGroupBy(
+                "select count(), sum(l), ksum(d), min(i), max(ts) from tab where d < 700"
+        );
+    }
+
+    @Test
+    public void testParallelGroupByHighCardinalityKey() throws Exception {
+        // low threshold to make sure that partial maps are merged shard by shard
+        testParallelGroupBy(
+                4,
+                1,
+                "select i, count(), sum(l), min(d), max(f) from tab order by i"
+        );
+    }
+
+    @Test
+    public void testParallelGroupByHighCardinalityVarSizeKey() throws Exception {
+        testParallelGroupBy(
+                2,
+                1,
+                "select key3, key1, count(), avg(d), max(ts) from tab order by key3, key1"
+        );
+    }
+
+    @Test
+    public void testParallelGroupByMultipleKeys() throws Exception {
+        testParallelGroupBy(
+                "select key1, key2, count(), sum(l), min(d), max(i) from tab order by key1, key2"
+        );
+    }
+
+    @Test
+    public void testParallelGroupByNonThreadSafeFunctions() throws Exception {
+        // lower() is not thread-safe, so each worker gets own copy of group by functions
+        testParallelGroupBy(
+                "select key1, sum(length(lower(key3))), ksum(d), nsum(d), min(f) from tab order by key1"
+        );
+    }
+
+    @Test
+    public void testParallelGroupBySingleWorker() throws Exception {
+        testParallelGroupBy(
+                1,
+                "select key1, count(), sum(d), avg(d), min(l), max(l), max(f) from tab order by key1"
+        );
+    }
+
+    @Test
+    public void testParallelGroupBySymbolKey() throws Exception {
+        testParallelGroupBy(
+                "select key1, count(), sum(d), avg(d), min(l), max(l), min(f), max(f), min(ts), max(ts) from tab order by key1"
+        );
+    }
+
+    @Test
+    public void testParallelGroupByVarSizeKey() throws Exception {
+        testParallelGroupBy(
+                "select key3, count(), sum(i), min(f), max(f) from tab order by key3"
+        );
+    }
+
+    @Test
+    public void testParallelProjectedVectorGroupByKeyed() throws Exception {
+        testParallelProjectedVectorGroupBy(
+                "select key2, count(), sum(d * 2), max(f * 2.0), min(d - 1), avg(-d) from tab order by key2"
+        );
+    }
+
+    @Test
+    public void testParallelProjectedVectorGroupByNotKeyed() throws Exception {
+        testParallelProjectedVectorGroupBy(
+                "select sum(d * 2), avg((d + d) / 2), min(f - d), max(abs(d - 500)), ksum(-d), nsum(d * 3) from tab"
+        );
+    }
+
+    @Test
+    public void testParallelSampleByHighCardinalityKey() throws Exception {
+        // no ORDER BY: the result must come in the same order as the serial one
+        testParallelGroupBy(
+                4,
+                1,
+                "select ts, key3, count(), sum(d), max(l) from tab sample by 1h align to calendar"
+        );
+    }
+
+    @Test
+    public void testParallelSampleByKeyed() throws Exception {
+        testParallelGroupBy(
+                "select ts, key1, key2, count(), sum(d), avg(l), min(f), max(i) from tab sample by 10m align to calendar"
+        );
+    }
+
+    @Test
+    public void testParallelSampleByMonth() throws Exception {
+        testParallelGroupBy(
+                "select ts, key1, count(), ksum(d), nsum(d) from tab sample by 1M align to calendar"
+        );
+    }
+
+    @Test
+    public void testParallelSampleByNonThreadSafeFunctions() throws Exception {
+        testParallelGroupBy(
+                "select ts, key1, sum(length(lower(key3))), min(d) from tab sample by 30m align to calendar"
+        );
+    }
+
+    @Test
+    public void testParallelSampleByNotKeyed() throws Exception {
+        testParallelGroupBy(
+                "select ts, count(), sum(d), avg(d), min(l), max(l), min(f), max(f) from tab sample by 7m align to calendar"
+        );
+    }
+
+    @Test
+    public void testParallelSampleByWithOffset() throws Exception {
+        testParallelGroupBy(
+                "select ts, key1, count(), sum(l) from tab sample by 15m align to calendar with offset '00:05'"
+        );
+    }
+
+    private static void assertParallelGroupBy(
+            SqlCompiler compiler,
+            SqlExecutionContextImpl sqlExecutionContext,
+            String query
+    ) throws SqlException {
+        final StringSink expected = new StringSink();
+        sqlExecutionContext.setParallelGroupByEnabled(false);
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        final StringSink actual = new StringSink();
+        sqlExecutionContext.setParallelGroupByEnabled(true);
+        TestUtils.printSql(compiler, sqlExecutionContext, "explain " + query, actual);
+        TestUtils.assertContains(actual, query.contains("sample by") ? "Async Sample By" : "Async Group By");
+
+        actual.clear();
+        TestUtils.printSql(compiler, sqlExecutionContext, query, actual);
+        TestUtils.assertEquals(expected, actual);
+
+        // unlike the serial SAMPLE BY, the parallel cursor supports random access and knows its size
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory.recordCursorSupportsRandomAccess());
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                long rowCount = 0;
+                while (cursor.hasNext()) {
+                    rowCount++;
+                }
+                Assert.assertEquals(rowCount, cursor.size());
+            }
+        }
+    }
+
+    private void testParallelFilteredVectorGroupBy(String query) throws Exception {
+        // serial filter can't feed vectorized aggregates, so this is the row-at-a-time group by
+        testParallelVectorGroupBy(
+                query,
+                "Filter",
+                ctx -> ctx.setParallelFilterEnabled(false),
+                ctx -> ctx.setParallelFilterEnabled(true)
+        );
+    }
+
+    private void testParallelGroupBy(String query) throws Exception {
+        testParallelGroupBy(4, query);
+    }
+
+    private void testParallelGroupBy(int workerCount, String query) throws Exception {
+        testParallelGroupBy(workerCount, Integer.MAX_VALUE, query);
+    }
+
+    private void testParallelGroupBy(int workerCount, int shardingThreshold, String query) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultTestCairoConfiguration(root) {
+                @Override
+                public int getGroupByShardingThreshold() {
+                    return shardingThreshold;
+                }
+
+                @Override
+                public int getSqlPageFrameMaxRows() {
+                    return PAGE_FRAME_MAX_ROWS;
+                }
+            };
+
+            final WorkerPool pool = new TestWorkerPool(workerCount);
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContextImpl sqlExecutionContext = TestUtils.createSqlExecutionCtx(engine, workerCount)
+            ) {
+                TestUtils.setupWorkerPool(pool, engine);
+                pool.start();
+                try {
+                    compiler.compile(DDL, sqlExecutionContext);
+                    assertParallelGroupBy(compiler, sqlExecutionContext, query);
+                } finally {
+                    pool.halt();
+                }
+            }
+        });
+    }
+
+    private void testParallelProjectedVectorGroupBy(String query) throws Exception {
+        // expressions are compiled only when JIT is enabled, otherwise this is the row-at-a-time group by
+        testParallelVectorGroupBy(
+                query,
+                "DataFrame",
+                ctx -> ctx.setJitMode(SqlJitMode.JIT_MODE_DISABLED),
+                ctx -> ctx.setJitMode(SqlJitMode.JIT_MODE_ENABLED)
+        );
+    }
+
+    private void testParallelVectorGroupBy(
+            String query,
+            String expectedPlanNode,
+            Consumer<SqlExecutionContextImpl> disableVectorized,
+            Consumer<SqlExecutionContextImpl> enableVectorized
+    ) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int workerCount = 4;
+            final CairoConfiguration configuration = new DefaultTestCairoConfiguration(root) {
+                @Override
+                public int getSqlPageFrameMaxRows() {
+                    return PAGE_FRAME_MAX_ROWS;
+                }
+            };
+
+            final WorkerPool pool = new TestWorkerPool(workerCount);
+            final AtomicInteger workerTaskCount = new AtomicInteger();
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContextImpl sqlExecutionContext = TestUtils.createSqlExecutionCtx(engine, workerCount)
+            ) {
+                TestUtils.setupWorkerPool(pool, engine);
+                // counts vector aggregate tasks executed by the pool workers
+                pool.assign(new GroupByJob(engine.getMessageBus()) {
+                    @Override
+                    protected boolean doRun(int workerId, long cursor, RunStatus runStatus) {
+                        workerTaskCount.incrementAndGet();
+                        return super.doRun(workerId, cursor, runStatus);
+                    }
+                });
+                pool.start();
+                try {
+                    compiler.compile(DDL, sqlExecutionContext);
+
+                    final StringSink expected = new StringSink();
+                    disableVectorized.accept(sqlExecutionContext);
+                    TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+                    final StringSink actual = new StringSink();
+                    enableVectorized.accept(sqlExecutionContext);
+                    TestUtils.printSql(compiler, sqlExecutionContext, "explain " + query, actual);
+                    TestUtils.assertContains(actual, "vectorized: true");
+                    TestUtils.assertContains(actual, expectedPlanNode);
+
+                    actual.clear();
+                    TestUtils.printSql(compiler, sqlExecutionContext, query, actual);
+                    TestUtils.assertEquals(expected, actual);
+                    // frames must be aggregated by the workers too, not only by the query owner
+                    Assert.assertTrue(workerTaskCount.get() > 0);
+                } finally {
+                    pool.halt();
+                }
+            }
+        });
+    }
+}
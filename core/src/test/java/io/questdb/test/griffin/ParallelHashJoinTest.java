@@ -0,0 +1,182 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractTest;
+import io.questdb.test.cairo.DefaultTestCairoConfiguration;
+import io.questdb.test.mp.TestWorkerPool;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class ParallelHashJoinTest extends AbstractTest {
+    private static final String[] DDL = {
+            "create table master as (" +
+                    "select rnd_symbol('A','B','C','D','E','F') sym," +
+                    " rnd_int(0, 500, 0) i," +
+                    " rnd_str(3, 4, 2) s," +
+                    " rnd_double() d," +
+                    " timestamp_sequence(0, 100000) ts" +
+                    " from long_sequence(20000)" +
+                    ") timestamp(ts) partition by hour",
+            "create table slave as (" +
+                    "select rnd_symbol('A','C','E','G') sym," +
+                    " rnd_int(0, 1000, 0) i," +
+                    " rnd_str(3, 4, 2) s," +
+                    " rnd_long() l," +
+                    " timestamp_sequence(0, 1000000) ts" +
+                    " from long_sequence(5000)" +
+                    ") timestamp(ts) partition by day",
+            "create table empty (sym symbol, i int, s string, l long, ts timestamp) timestamp(ts) partition by day",
+            "create table other as (" +
+                    "select rnd_int(1000, 2000, 0) i," +
+                    " rnd_long() l," +
+                    " timestamp_sequence(0, 1000000) ts" +
+                    " from long_sequence(3000)" +
+                    ") timestamp(ts) partition by day",
+            "create table small as (" +
+                    "select rnd_symbol('A','C','X','Y','Z') sym," +
+                    " rnd_long() l," +
+                    " timestamp_sequence(0, 1000000) ts" +
+                    " from long_sequence(50)" +
+                    ") timestamp(ts) partition by day"
+    };
+    private static final int PAGE_FRAME_MAX_ROWS = 1000;
+
+    @Test
+    public void testParallelHashJoinEmptySlave() throws Exception {
+        testParallelHashJoin(
+                "select m.i, m.d, e.l from master m join empty e on (i)"
+        );
+    }
+
+    @Test
+    public void testParallelHashJoinIntKey() throws Exception {
+        testParallelHashJoin(
+                "select m.i, m.d, s.l, s.ts from master m join slave s on (i)"
+        );
+    }
+
+    @Test
+    public void testParallelHashJoinLimit() throws Exception {
+        testParallelHashJoin(
+                "select m.ts, m.sym, s.l from master m join small s on (sym) limit 10000, 10100"
+        );
+    }
+
+    @Test
+    public void testParallelHashJoinMultipleKeys() throws Exception {
+        testParallelHashJoin(
+                "select m.sym, m.i, m.d, s.l from master m join slave s on (sym, i)"
+        );
+    }
+
+    @Test
+    public void testParallelHashJoinNoMatches() throws Exception {
+        testParallelHashJoin(
+                "select m.i, o.l from master m join other o on (i)"
+        );
+    }
+
+    @Test
+    public void testParallelHashJoinSingleWorker() throws Exception {
+        testParallelHashJoin(
+                1,
+                "select m.i, s.i, s.l from master m join slave s on (i)"
+        );
+    }
+
+    @Test
+    public void testParallelHashJoinSymbolKey() throws Exception {
+        testParallelHashJoin(
+                "select m.sym, m.i, s.sym, s.l from master m join small s on (sym)"
+        );
+    }
+
+    @Test
+    public void testParallelHashJoinVarSizeKey() throws Exception {
+        testParallelHashJoin(
+                "select m.s, m.d, s.s, s.l from master m join slave s on (s)"
+        );
+    }
+
+    private static void assertParallelHashJoin(
+            SqlCompiler compiler,
+            SqlExecutionContextImpl sqlExecutionContext,
+            String query
+    ) throws SqlException {
+        final StringSink expected = new StringSink();
+        sqlExecutionContext.setParallelHashJoinEnabled(false);
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        final StringSink actual = new StringSink();
+        sqlExecutionContext.setParallelHashJoinEnabled(true);
+        TestUtils.printSql(compiler, sqlExecutionContext, "explain " + query, actual);
+        TestUtils.assertContains(actual, "Async Hash Join");
+
+        actual.clear();
+        TestUtils.printSql(compiler, sqlExecutionContext, query, actual);
+        TestUtils.assertEquals(expected, actual);
+    }
+
+    private void testParallelHashJoin(String query) throws Exception {
+        testParallelHashJoin(4, query);
+    }
+
+    private void testParallelHashJoin(int workerCount, String query) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultTestCairoConfiguration(root) {
+                @Override
+                public int getSqlPageFrameMaxRows() {
+                    return PAGE_FRAME_MAX_ROWS;
+                }
+            };
+
+            final WorkerPool pool = new TestWorkerPool(workerCount);
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContextImpl sqlExecutionContext = TestUtils.createSqlExecutionCtx(engine, workerCount)
+            ) {
+                TestUtils.setupWorkerPool(pool, engine);
+                pool.start();
+                try {
+                    for (String ddl : DDL) {
+                        compiler.compile(ddl, sqlExecutionContext);
+                    }
+                    assertParallelHashJoin(compiler, sqlExecutionContext, query);
+                } finally {
+                    pool.halt();
+                }
+            }
+        });
+    }
+}
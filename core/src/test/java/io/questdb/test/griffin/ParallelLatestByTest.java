@@ -0,0 +1,192 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractTest;
+import io.questdb.test.cairo.DefaultTestCairoConfiguration;
+import io.questdb.test.mp.TestWorkerPool;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class ParallelLatestByTest extends AbstractTest {
+    private static final String[] DDL = {
+            "create table x as (" +
+                    "select rnd_symbol('A','B','C','D','E','F') sym," +
+                    " rnd_int(0, 50, 0) i," +
+                    " rnd_str(3, 4, 2) s," +
+                    " rnd_long(0, 5000, 0) l," +
+                    " rnd_double() price," +
+                    " timestamp_sequence(0, 100000) ts" +
+                    " from long_sequence(20000)" +
+                    ") timestamp(ts) partition by hour",
+            "create table empty (sym symbol, i int, price double, ts timestamp) timestamp(ts) partition by day"
+    };
+    private static final int PAGE_FRAME_MAX_ROWS = 1000;
+
+    @Test
+    public void testParallelLatestByCount() throws Exception {
+        testParallelLatestBy(
+                "select count() from x latest on ts partition by i"
+        );
+    }
+
+    @Test
+    public void testParallelLatestByEmptyTable() throws Exception {
+        testParallelLatestBy(
+                "select * from empty latest on ts partition by i"
+        );
+    }
+
+    @Test
+    public void testParallelLatestByFilter() throws Exception {
+        testParallelLatestBy(
+                "select * from x where price > 0.5 and sym <> 'C' latest on ts partition by i"
+        );
+    }
+
+    @Test
+    public void testParallelLatestByIntKey() throws Exception {
+        testParallelLatestBy(
+                "select * from x latest on ts partition by i"
+        );
+    }
+
+    @Test
+    public void testParallelLatestByInterval() throws Exception {
+        testParallelLatestBy(
+                "select * from x where ts between '1970-01-01T00:10' and '1970-01-01T00:20' latest on ts partition by sym, i"
+        );
+    }
+
+    @Test
+    public void testParallelLatestByLimit() throws Exception {
+        testParallelLatestBy(
+                "select * from x latest on ts partition by l limit -10"
+        );
+    }
+
+    @Test
+    public void testParallelLatestByMultipleKeys() throws Exception {
+        testParallelLatestBy(
+                "select * from x latest on ts partition by sym, i"
+        );
+    }
+
+    @Test
+    public void testParallelLatestByShardedMerge() throws Exception {
+        testParallelLatestBy(
+                4,
+                100,
+                "select * from x latest on ts partition by l, sym"
+        );
+    }
+
+    @Test
+    public void testParallelLatestBySingleWorker() throws Exception {
+        testParallelLatestBy(
+                1,
+                100_000,
+                "select * from x latest on ts partition by i"
+        );
+    }
+
+    @Test
+    public void testParallelLatestByStringKey() throws Exception {
+        testParallelLatestBy(
+                "select * from x latest on ts partition by s"
+        );
+    }
+
+    @Test
+    public void testParallelLatestBySymbolKey() throws Exception {
+        testParallelLatestBy(
+                "select * from x latest on ts partition by sym"
+        );
+    }
+
+    private static void assertParallelLatestBy(
+            SqlCompiler compiler,
+            SqlExecutionContextImpl sqlExecutionContext,
+            String query
+    ) throws SqlException {
+        final StringSink expected = new StringSink();
+        sqlExecutionContext.setParallelLatestByEnabled(false);
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        final StringSink actual = new StringSink();
+        sqlExecutionContext.setParallelLatestByEnabled(true);
+        TestUtils.printSql(compiler, sqlExecutionContext, "explain " + query, actual);
+        TestUtils.assertContains(actual, "Async Latest By");
+
+        actual.clear();
+        TestUtils.printSql(compiler, sqlExecutionContext, query, actual);
+        TestUtils.assertEquals(expected, actual);
+    }
+
+    private void testParallelLatestBy(String query) throws Exception {
+        testParallelLatestBy(4, 100_000, query);
+    }
+
+    private void testParallelLatestBy(int workerCount, int shardingThreshold, String query) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultTestCairoConfiguration(root) {
+                @Override
+                public int getGroupByShardingThreshold() {
+                    return shardingThreshold;
+                }
+
+                @Override
+                public int getSqlPageFrameMaxRows() {
+                    return PAGE_FRAME_MAX_ROWS;
+                }
+            };
+
+            final WorkerPool pool = new TestWorkerPool(workerCount);
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContextImpl sqlExecutionContext = TestUtils.createSqlExecutionCtx(engine, workerCount)
+            ) {
+                TestUtils.setupWorkerPool(pool, engine);
+                pool.start();
+                try {
+                    for (String ddl : DDL) {
+                        compiler.compile(ddl, sqlExecutionContext);
+                    }
+                    assertParallelLatestBy(compiler, sqlExecutionContext, query);
+                } finally {
+                    pool.halt();
+                }
+            }
+        });
+    }
+}
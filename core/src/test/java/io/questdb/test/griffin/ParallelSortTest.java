@@ -0,0 +1,189 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractTest;
+import io.questdb.test.cairo.DefaultTestCairoConfiguration;
+import io.questdb.test.mp.TestWorkerPool;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class ParallelSortTest extends AbstractTest {
+    private static final String DDL = "create table tab as (" +
+            "select rnd_symbol('A','B','C','D','E') sym," +
+            " rnd_int(0, 100, 0) i," +
+            " rnd_str(5, 10, 2) s," +
+            " rnd_str(1, 1, 2) s2," +
+            " rnd_double(2) d," +
+            " rnd_long() l," +
+            " timestamp_sequence(0, 100000) ts" +
+            " from long_sequence(100000)" +
+            ") timestamp(ts) partition by hour";
+    private static final int PAGE_FRAME_MAX_ROWS = 1000;
+
+    @Test
+    public void testParallelSortDescending() throws Exception {
+        testParallelSort("select l, d, ts from tab order by l desc, d");
+    }
+
+    @Test
+    public void testParallelSortDuplicateKeys() throws Exception {
+        // lots of equal keys: the order of equal rows must match the serial sort
+        testParallelSort("select sym, i, ts from tab order by sym");
+    }
+
+    @Test
+    public void testParallelSortMultipleKeys() throws Exception {
+        testParallelSort("select sym, i, d, ts from tab order by sym desc, i, d desc");
+    }
+
+    @Test
+    public void testParallelSortNullableDouble() throws Exception {
+        testParallelSort("select d, l from tab order by d");
+    }
+
+    @Test
+    public void testParallelSortSingleWorker() throws Exception {
+        testParallelSort(1, Long.MAX_VALUE, Integer.MAX_VALUE, "select i, l from tab order by i, l");
+    }
+
+    @Test
+    public void testParallelSortSpill() throws Exception {
+        // zero threshold makes sure that sorted runs are always spilled to disk
+        testParallelSort(4, 0, Integer.MAX_VALUE, "select s, sym, ts from tab order by s, ts desc");
+    }
+
+    @Test
+    public void testParallelSortTreeMaxRows() throws Exception {
+        // page frames are sorted in chunks that don't divide the frame size evenly
+        testParallelSort(4, Long.MAX_VALUE, 300, "select sym, i, ts from tab order by sym, i desc");
+    }
+
+    @Test
+    public void testParallelSortTwoVarSizeKeys() throws Exception {
+        testParallelSort("select s2, s, l from tab order by s2, s desc");
+    }
+
+    @Test
+    public void testParallelSortVarSizeKey() throws Exception {
+        testParallelSort("select s, l from tab order by s");
+    }
+
+    @Test
+    public void testStaleSpillFilesRemovedOnStartup() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultTestCairoConfiguration(root);
+            final File spillRoot = new File(configuration.getSqlSortSpillRoot().toString());
+            Assert.assertTrue(spillRoot.exists() || spillRoot.mkdirs());
+            // a spill file left behind by a crash and an unrelated file
+            final File staleFile = new File(spillRoot, "sort_42.d");
+            final File otherFile = new File(spillRoot, "sort_42.csv");
+            Assert.assertTrue(staleFile.createNewFile());
+            Assert.assertTrue(otherFile.createNewFile());
+
+            try (CairoEngine ignore = new CairoEngine(configuration)) {
+                Assert.assertFalse(staleFile.exists());
+                Assert.assertTrue(otherFile.exists());
+            } finally {
+                Assert.assertTrue(otherFile.delete());
+            }
+        });
+    }
+
+    private static void assertParallelSort(
+            SqlCompiler compiler,
+            SqlExecutionContextImpl sqlExecutionContext,
+            String query
+    ) throws SqlException {
+        final StringSink expected = new StringSink();
+        sqlExecutionContext.setParallelSortEnabled(false);
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        final StringSink actual = new StringSink();
+        sqlExecutionContext.setParallelSortEnabled(true);
+        TestUtils.printSql(compiler, sqlExecutionContext, "explain " + query, actual);
+        TestUtils.assertContains(actual, "Async Sort light");
+
+        actual.clear();
+        TestUtils.printSql(compiler, sqlExecutionContext, query, actual);
+        TestUtils.assertEquals(expected, actual);
+    }
+
+    private void testParallelSort(String query) throws Exception {
+        testParallelSort(4, Long.MAX_VALUE, Integer.MAX_VALUE, query);
+    }
+
+    private void testParallelSort(int workerCount, long spillThreshold, int treeMaxRows, String query) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultTestCairoConfiguration(root) {
+                @Override
+                public int getSqlPageFrameMaxRows() {
+                    return PAGE_FRAME_MAX_ROWS;
+                }
+
+                @Override
+                public long getSqlSortSpillThreshold() {
+                    return spillThreshold;
+                }
+
+                @Override
+                public int getSqlSortTreeMaxRows() {
+                    return treeMaxRows;
+                }
+            };
+
+            final WorkerPool pool = new TestWorkerPool(workerCount);
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContextImpl sqlExecutionContext = TestUtils.createSqlExecutionCtx(engine, workerCount)
+            ) {
+                TestUtils.setupWorkerPool(pool, engine);
+                pool.start();
+                try {
+                    compiler.compile(DDL, sqlExecutionContext);
+                    assertParallelSort(compiler, sqlExecutionContext, query);
+                } finally {
+                    pool.halt();
+                }
+            }
+
+            // spill files must be removed once the cursor is closed
+            final String[] spillFiles = new File(configuration.getSqlSortSpillRoot().toString()).list();
+            Assert.assertTrue(spillFiles == null || spillFiles.length == 0);
+        });
+    }
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin;
+
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class RadixSortTest extends AbstractGriffinTest {
+
+    @Test
+    public void testSortByte() throws Exception {
+        testSort("rnd_byte()");
+    }
+
+    @Test
+    public void testSortChar() throws Exception {
+        testSort("rnd_char()");
+    }
+
+    @Test
+    public void testSortDate() throws Exception {
+        testSort("rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2)");
+    }
+
+    @Test
+    public void testSortEmptyTable() throws Exception {
+        assertQuery(
+                "k\tx\n",
+                "select k, x from tab order by k desc",
+                "create table tab as (select rnd_int() k, x from long_sequence(0))",
+                null,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSortInt() throws Exception {
+        testSort("rnd_int(-1000, 1000, 2)");
+    }
+
+    @Test
+    public void testSortIntWithNulls() throws Exception {
+        assertQuery(
+                "k\tx\n" +
+                        "NaN\t5\n" +
+                        "NaN\t2\n" +
+                        "-7\t4\n" +
+                        "0\t6\n" +
+                        "3\t3\n" +
+                        "3\t1\n",
+                "select k, x from tab order by k",
+                "create table tab as (" +
+                        "select case when x = 1 then 3 when x = 3 then 3 when x = 4 then -7 when x = 6 then 0 else null end k, x" +
+                        " from long_sequence(6)" +
+                        ")",
+                null,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSortLong() throws Exception {
+        testSort("rnd_long(-1000, 1000, 2)");
+    }
+
+    @Test
+    public void testSortLongFullRange() throws Exception {
+        testSort("rnd_long()");
+    }
+
+    @Test
+    public void testSortShort() throws Exception {
+        testSort("rnd_short()");
+    }
+
+    @Test
+    public void testSortTimestamp() throws Exception {
+        testSort("rnd_timestamp(to_timestamp('2015', 'yyyy'), to_timestamp('2016', 'yyyy'), 2)");
+    }
+
+    private void assertSort(String query, String referenceQuery) throws Exception {
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, referenceQuery, expected);
+
+        final StringSink actual = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, "explain " + query, actual);
+        TestUtils.assertContains(actual, "Radix sort light");
+
+        actual.clear();
+        TestUtils.printSql(compiler, sqlExecutionContext, query, actual);
+        TestUtils.assertEquals(expected, actual);
+    }
+
+    private void testSort(String keyExpression) throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table tab as (select " + keyExpression + " k, x from long_sequence(10000))");
+            // tree sort returns rows with equal keys in the reverse scan order,
+            // so sorting by x desc as the second key must give the same result
+            assertSort("select k, x from tab order by k", "select k, x from tab order by k, x desc");
+            assertSort("select k, x from tab order by k desc", "select k, x from tab order by k desc, x desc");
+        });
+    }
+}
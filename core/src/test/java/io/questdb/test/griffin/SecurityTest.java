@@ -104,6 +104,11 @@ public class SecurityTest extends AbstractGriffinTest {
                 return 1024;
             }
 
+            @Override
+            public boolean isSqlParallelSortEnabled() {
+                // the tests check memory limits and circuit breaker calls of the serial sort
+                return false;
+            }
         };
         memoryRestrictedEngine = new CairoEngine(readOnlyConfiguration);
         SqlExecutionCircuitBreaker dummyCircuitBreaker = new SqlExecutionCircuitBreaker() {
@@ -447,6 +452,7 @@ public class SecurityTest extends AbstractGriffinTest {
                         null,
                         -1,
                         null);
+        readOnlyExecutionContext.setParallelSortEnabled(false);
         assertMemoryLeak(() -> {
             sqlExecutionContext.getRandom().reset();
             compiler.compile("create table tb1 as (select" +
@@ -184,6 +184,84 @@ public class SqlParserTest extends AbstractSqlParserTest {
         );
     }
 
+    @Test
+    public void testAnalyticFrameEndUnboundedPreceding() throws Exception {
+        assertSyntaxError(
+                "select a, sum(c) over (order by ts rows between 2 preceding and unbounded preceding) from xyz",
+                74,
+                "frame end cannot be UNBOUNDED PRECEDING",
+                modelOf("xyz").col("a", ColumnType.INT).col("c", ColumnType.DOUBLE).timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameInvalidBoundKind() throws Exception {
+        assertSyntaxError(
+                "select a, sum(c) over (order by ts rows between 2 behind and current row) from xyz",
+                50,
+                "'preceding' or 'following' expected",
+                modelOf("xyz").col("a", ColumnType.INT).col("c", ColumnType.DOUBLE).timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameRangeDefault() throws Exception {
+        assertQuery(
+                "select-analytic a, sum(c) sum over (partition by a order by ts) from (select [a, c, ts] from xyz timestamp (ts))",
+                "select a, sum(c) over (partition by a order by ts range between unbounded preceding and current row) from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("c", ColumnType.DOUBLE)
+                        .timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameRowsBetween() throws Exception {
+        assertQuery(
+                "select-analytic a, sum(c) sum over (partition by a order by ts rows between 3 preceding and 1 preceding) from (select [a, c, ts] from xyz timestamp (ts))",
+                "select a, sum(c) over (partition by a order by ts rows between 3 preceding and 1 preceding) from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("c", ColumnType.DOUBLE)
+                        .timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameRowsShortForm() throws Exception {
+        assertQuery(
+                "select-analytic a, avg(c) avg over (order by ts rows between 10 preceding and current row) from (select [a, c, ts] from xyz timestamp (ts))",
+                "select a, avg(c) over (order by ts rows 10 preceding) from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("c", ColumnType.DOUBLE)
+                        .timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameRowsWholePartition() throws Exception {
+        assertQuery(
+                "select-analytic a, max(c) max over (partition by a rows between unbounded preceding and unbounded following) from (select [a, c] from xyz timestamp (ts))",
+                "select a, max(c) over (partition by a rows between unbounded preceding and unbounded following) from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("c", ColumnType.DOUBLE)
+                        .timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameStartUnboundedFollowing() throws Exception {
+        assertSyntaxError(
+                "select a, sum(c) over (order by ts rows between unbounded following and current row) from xyz",
+                58,
+                "frame start cannot be UNBOUNDED FOLLOWING",
+                modelOf("xyz").col("a", ColumnType.INT).col("c", ColumnType.DOUBLE).timestamp("ts")
+        );
+    }
+
     @Test
     public void testAnalyticOrderDirection() throws Exception {
         assertQuery(
@@ -5116,7 +5194,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
     @Test
     public void testNonAnalyticFunctionInAnalyticContext() throws Exception {
         assertFailure(
-                "select avg(price) over (partition by symbol) from trades",
+                "select abs(price) over (partition by symbol) from trades",
                 "create table trades " +
                         "(" +
                         " price double," +
@@ -7609,7 +7687,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
     @Test
     public void testTooManyArgumentsInAnalyticFunction() throws Exception {
         assertFailure(
-                "select row_number(1,2,3) over (partition by symbol) from trades",
+                "select row_number(1,2,3,4) over (partition by symbol) from trades",
                 "create table trades " +
                         "(" +
                         " price double," +
@@ -66,6 +66,313 @@ public class AnalyticFunctionTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testFrameAggregatesOverRows() throws Exception {
+        assertQuery("x\ts\ta\tmn\tmx\tfv\tlv\n" +
+                        "1\t1.0\t1.0\t1.0\t1.0\t1.0\t1.0\n" +
+                        "2\t3.0\t1.5\t1.0\t2.0\t1.0\t2.0\n" +
+                        "3\t6.0\t2.0\t1.0\t3.0\t1.0\t3.0\n" +
+                        "4\t9.0\t3.0\t2.0\t4.0\t2.0\t4.0\n" +
+                        "5\t12.0\t4.0\t3.0\t5.0\t3.0\t5.0\n" +
+                        "6\t15.0\t5.0\t4.0\t6.0\t4.0\t6.0\n",
+                "select x," +
+                        " sum(d) over (order by ts rows between 2 preceding and current row) s," +
+                        " avg(d) over (order by ts rows between 2 preceding and current row) a," +
+                        " min(d) over (order by ts rows between 2 preceding and current row) mn," +
+                        " max(d) over (order by ts rows between 2 preceding and current row) mx," +
+                        " first_value(d) over (order by ts rows between 2 preceding and current row) fv," +
+                        " last_value(d) over (order by ts rows 2 preceding) lv" +
+                        " from tab",
+                "create table tab as " +
+                        "(" +
+                        "select" +
+                        " x," +
+                        " cast(x as double) d," +
+                        " x % 2 p," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                null,
+                false,
+                true
+        );
+    }
+
+    @Test
+    public void testFrameAggregatesOverWholePartition() throws Exception {
+        assertQuery("x\tp\ts\tmx\tfv\tlv\n" +
+                        "1\t1\t9.0\t5.0\t1.0\t5.0\n" +
+                        "2\t0\t12.0\t6.0\t2.0\t6.0\n" +
+                        "3\t1\t9.0\t5.0\t1.0\t5.0\n" +
+                        "4\t0\t12.0\t6.0\t2.0\t6.0\n" +
+                        "5\t1\t9.0\t5.0\t1.0\t5.0\n" +
+                        "6\t0\t12.0\t6.0\t2.0\t6.0\n",
+                "select x, p," +
+                        " sum(d) over (partition by p) s," +
+                        " max(d) over (partition by p rows between unbounded preceding and unbounded following) mx," +
+                        " first_value(d) over (partition by p) fv," +
+                        " last_value(d) over (partition by p) lv" +
+                        " from tab",
+                "create table tab as " +
+                        "(" +
+                        "select" +
+                        " x," +
+                        " cast(x as double) d," +
+                        " x % 2 p," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                null,
+                true,
+                false
+        );
+    }
+
+    @Test
+    public void testFrameEndingBeforeCurrentRow() throws Exception {
+        assertQuery("x\tprev\trunning\n" +
+                        "1\tNaN\t1.0\n" +
+                        "2\tNaN\t2.0\n" +
+                        "3\t1.0\t4.0\n" +
+                        "4\t2.0\t6.0\n" +
+                        "5\t3.0\t9.0\n" +
+                        "6\t4.0\t12.0\n",
+                "select x," +
+                        " sum(d) over (partition by p order by ts rows between 1 preceding and 1 preceding) prev," +
+                        " sum(d) over (partition by p order by ts) running" +
+                        " from tab",
+                "create table tab as " +
+                        "(" +
+                        "select" +
+                        " x," +
+                        " cast(x as double) d," +
+                        " x % 2 p," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                null,
+                false,
+                true
+        );
+    }
+
+    @Test
+    public void testFrameFollowingNotSupported() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select x, cast(x as double) d, timestamp_sequence(0, 1000000) ts from long_sequence(6)) timestamp(ts)", sqlExecutionContext);
+            try {
+                compile("select x, sum(d) over (order by ts rows between 1 preceding and 1 following) from tab", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(66, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "FOLLOWING frame bound is not supported, only UNBOUNDED FOLLOWING is");
+            }
+        });
+    }
+
+    @Test
+    public void testFrameRowsOffsetTooLarge() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select x, cast(x as double) d, timestamp_sequence(0, 1000000) ts from long_sequence(6)) timestamp(ts)", sqlExecutionContext);
+            try {
+                compile("select x, sum(d) over (order by ts rows between 1000001 preceding and current row) from tab", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(48, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "ROWS frame offset must not exceed 1000000");
+            }
+        });
+    }
+
+    @Test
+    public void testFrameRangeBetweenPrecedingBounds() throws Exception {
+        assertQuery("x\ts\tps\tlv\n" +
+                        "1\tNaN\tNaN\tNaN\n" +
+                        "2\tNaN\tNaN\tNaN\n" +
+                        "3\t1.0\t1.0\t1.0\n" +
+                        "4\t3.0\t2.0\t2.0\n" +
+                        "5\t7.0\tNaN\t4.0\n" +
+                        "6\t9.0\tNaN\t5.0\n",
+                "select x," +
+                        " sum(d) over (order by ts range between '20s' preceding and '8s' preceding) s," +
+                        " sum(d) over (partition by v order by ts range between '15s' preceding and '5s' preceding) ps," +
+                        " last_value(d) over (order by ts range between unbounded preceding and '8s' preceding) lv" +
+                        " from tab",
+                "create table tab as " +
+                        "(" +
+                        "select" +
+                        " x," +
+                        " cast(x as double) d," +
+                        " cast(1 + 2 * (x % 2) as double) v," +
+                        " cast(x * x * 1000000 as timestamp) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                null,
+                false,
+                true
+        );
+    }
+
+    @Test
+    public void testFrameRangeMovingAggregates() throws Exception {
+        assertQuery("x\ts\tmn\tmx\tfv\tvw\tsd\n" +
+                        "1\t1.0\t1.0\t1.0\t1.0\t1.0\tNaN\n" +
+                        "2\t3.0\t1.0\t2.0\t1.0\t1.25\t0.7071067811865476\n" +
+                        "3\t6.0\t1.0\t3.0\t1.0\t2.0\t1.0\n" +
+                        "4\t7.0\t3.0\t4.0\t3.0\t3.25\t0.7071067811865476\n" +
+                        "5\t9.0\t4.0\t5.0\t4.0\t4.75\t0.7071067811865476\n" +
+                        "6\t6.0\t6.0\t6.0\t6.0\t6.0\tNaN\n",
+                "select x," +
+                        " sum(d) over (order by ts range '10s' preceding) s," +
+                        " min(d) over (order by ts range '10s' preceding) mn," +
+                        " max(d) over (order by ts range '10s' preceding) mx," +
+                        " first_value(d) over (order by ts range '10s' preceding) fv," +
+                        " vwap(d, v) over (order by ts range '10s' preceding) vw," +
+                        " stddev_samp(d) over (order by ts range between '10s' preceding and current row) sd" +
+                        " from tab",
+                "create table tab as " +
+                        "(" +
+                        "select" +
+                        " x," +
+                        " cast(x as double) d," +
+                        " cast(1 + 2 * (x % 2) as double) v," +
+                        " cast(x * x * 1000000 as timestamp) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                null,
+                false,
+                true
+        );
+    }
+
+    @Test
+    public void testFrameRangeOffsetOfVariableLength() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select x, cast(x as double) d, timestamp_sequence(0, 1000000) ts from long_sequence(6)) timestamp(ts)", sqlExecutionContext);
+            try {
+                compile("select x, sum(d) over (order by ts range '1M' preceding) from tab", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(41, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "RANGE frame offset must have fixed length");
+            }
+        });
+    }
+
+    @Test
+    public void testFrameRangeRequiresTimestampOrder() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select x, cast(x as double) d, timestamp_sequence(0, 1000000) ts from long_sequence(6)) timestamp(ts)", sqlExecutionContext);
+            try {
+                compile("select x, sum(d) over (order by x range '10s' preceding) from tab", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(40, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "RANGE frame with offset requires ascending ORDER BY on a single timestamp column");
+            }
+        });
+    }
+
+    @Test
+    public void testFrameRollingStdDevAndWholePartitionVwap() throws Exception {
+        assertQuery("x\tsd\tvw\n" +
+                        "1\tNaN\t3.25\n" +
+                        "2\t0.7071067811865476\t3.25\n" +
+                        "3\t1.0\t3.25\n" +
+                        "4\t1.0\t3.25\n" +
+                        "5\t1.0\t3.25\n" +
+                        "6\t1.0\t3.25\n",
+                "select x," +
+                        " stddev_samp(d) over (order by ts rows 2 preceding) sd," +
+                        " vwap(d, v) over () vw" +
+                        " from tab",
+                "create table tab as " +
+                        "(" +
+                        "select" +
+                        " x," +
+                        " cast(x as double) d," +
+                        " cast(1 + 2 * (x % 2) as double) v," +
+                        " cast(x * x * 1000000 as timestamp) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                null,
+                true,
+                false
+        );
+    }
+
+    @Test
+    public void testFrameStreamedOverDesignatedTimestamp() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select x, cast(x as double) d, timestamp_sequence(0, 1000000) ts from long_sequence(6)) timestamp(ts)", sqlExecutionContext);
+            assertPlan(
+                    "select ts, sum(d) over (order by ts rows between 2 preceding and current row) from tab",
+                    "Analytic\n" +
+                            "  functions: [sum(d)]\n" +
+                            "    DataFrame\n" +
+                            "        Row forward scan\n" +
+                            "        Frame forward scan on: tab\n"
+            );
+            assertPlan(
+                    "select ts, sum(d) over (order by ts desc rows between 2 preceding and current row) from tab",
+                    "CachedAnalytic\n" +
+                            "  functions: [sum(d)]\n" +
+                            "    DataFrame\n" +
+                            "        Row forward scan\n" +
+                            "        Frame forward scan on: tab\n"
+            );
+        });
+    }
+
+    @Test
+    public void testLagAndLead() throws Exception {
+        assertQuery("x\tlg\tlg2\tld\n" +
+                        "1\tNaN\t0.0\t2.0\n" +
+                        "2\t1.0\t0.0\t3.0\n" +
+                        "3\t2.0\t1.0\t4.0\n" +
+                        "4\t3.0\t2.0\t5.0\n" +
+                        "5\t4.0\t3.0\t6.0\n" +
+                        "6\t5.0\t4.0\tNaN\n",
+                "select x," +
+                        " lag(d) over (order by ts) lg," +
+                        " lag(d, 2, 0) over (order by ts) lg2," +
+                        " lead(d) over (order by ts) ld" +
+                        " from tab",
+                "create table tab as " +
+                        "(" +
+                        "select" +
+                        " x," +
+                        " cast(x as double) d," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                null,
+                true,
+                false
+        );
+    }
+
+    @Test
+    public void testLagAndLeadOffsetTooLarge() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select x, cast(x as double) d, timestamp_sequence(0, 1000000) ts from long_sequence(6)) timestamp(ts)", sqlExecutionContext);
+            try {
+                compile("select x, lead(d, 1000001) over (order by ts) from tab", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(18, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "offset must not exceed 1000000");
+            }
+            try {
+                compile("select x, lag(d, 9223372036854775807L) over (order by ts) from tab", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(17, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "offset must not exceed 1000000");
+            }
+        });
+    }
+
     @Test
     @Ignore
     public void testRankFailsInNonAnalyticContext() throws Exception {
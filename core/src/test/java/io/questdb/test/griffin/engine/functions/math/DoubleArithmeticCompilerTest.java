@@ -0,0 +1,195 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin.engine.functions.math;
+
+import io.questdb.cairo.SqlJitMode;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.BinaryFunction;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.functions.columns.DoubleColumn;
+import io.questdb.griffin.engine.functions.math.AddDoubleFunctionFactory;
+import io.questdb.griffin.engine.functions.math.CompiledDoubleFunction;
+import io.questdb.griffin.engine.functions.math.DoubleArithmeticCompiler;
+import io.questdb.griffin.engine.functions.math.DoubleArithmeticFunction;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Chars;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import io.questdb.test.AbstractGriffinTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DoubleArithmeticCompilerTest extends AbstractGriffinTest {
+
+    @Test
+    public void testColumnIsNotCompiled() {
+        final Function column = DoubleColumn.newInstance(0);
+        Assert.assertSame(column, new DoubleArithmeticCompiler().compile(new BytecodeAssembler(), column));
+    }
+
+    @Test
+    public void testCompiledProjection() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (" +
+                    "select case when x = 3 then cast(null as double) else x * 0.5 end a," +
+                    " x * 1.5 b," +
+                    " cast(x as float) f," +
+                    " x::int i" +
+                    " from long_sequence(5))"
+            );
+
+            final String query = "select (a + b) / 2 m, abs(a - b) * 3 d, -(a * f) n, a * i + 1 p, b / 0 z from x";
+            final String expected = "m\td\tn\tp\tz\n" +
+                    "1.0\t3.0\t-0.5\t1.5\tInfinity\n" +
+                    "2.0\t6.0\t-2.0\t3.0\tInfinity\n" +
+                    "NaN\tNaN\tNaN\tNaN\tInfinity\n" +
+                    "4.0\t12.0\t-8.0\t9.0\tInfinity\n" +
+                    "5.0\t15.0\t-12.5\t13.5\tInfinity\n";
+
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+            assertSql(query, expected);
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_ENABLED);
+            assertSql(query, expected);
+
+            assertPlan(
+                    query,
+                    "VirtualRecord\n" +
+                            "  functions: [a+b/2,abs(a-b)*3,-a*f,a*i+1,b/0]\n" +
+                            "    DataFrame\n" +
+                            "        Row forward scan\n" +
+                            "        Frame forward scan on: x\n"
+            );
+        });
+    }
+
+    @Test
+    public void testProjectedVectorAggregates() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (" +
+                    "select x * 1.0 a," +
+                    " x * 2.0 b," +
+                    " cast(x % 2 as int) k" +
+                    " from long_sequence(5))"
+            );
+            // the first page frame is in the column top of f
+            compile("alter table x add column f float");
+            executeInsert("insert into x values (10.0, 20.0, 1, 0.5)");
+            executeInsert("insert into x values (10.0, 20.0, 2, 0.5)");
+
+            final String query = "select sum(a * b), min(a - b), max(a + f), avg(abs(b - a)), count() from x";
+            assertPlan(
+                    query,
+                    "GroupBy vectorized: true\n" +
+                            "  values: [sum(a*b),min(a-b),max(a+f),avg(abs(b-a)),count(*)]\n" +
+                            "    DataFrame\n" +
+                            "        Row forward scan\n" +
+                            "        Frame forward scan on: x\n"
+            );
+            assertProjectedAggregates(
+                    query,
+                    "sum\tmin\tmax\tavg\tcount\n" +
+                            "510.0\t-10.0\t10.5\t5.0\t7\n"
+            );
+
+            final String keyedQuery = "select k, sum(a * b), max(a + f) from x order by k";
+            assertProjectedAggregates(
+                    keyedQuery,
+                    "k\tsum\tmax\n" +
+                            "0\t40.0\tNaN\n" +
+                            "1\t270.0\t10.5\n" +
+                            "2\t200.0\t10.5\n"
+            );
+        });
+    }
+
+    @Test
+    public void testUnknownOperatorIsNotCompiled() throws Exception {
+        final Function unknown = new MaxFunction(DoubleColumn.newInstance(0), DoubleColumn.newInstance(1));
+        Assert.assertSame(unknown, new DoubleArithmeticCompiler().compile(new BytecodeAssembler(), unknown));
+
+        // an unknown operator under a known one is called like any other function
+        final ObjList<Function> args = new ObjList<>();
+        args.add(unknown);
+        args.add(DoubleColumn.newInstance(0));
+        final Function add = new AddDoubleFunctionFactory().newInstance(0, args, null, configuration, sqlExecutionContext);
+        final Function compiled = new DoubleArithmeticCompiler().compile(new BytecodeAssembler(), add);
+        Assert.assertTrue(compiled instanceof CompiledDoubleFunction);
+        Assert.assertFalse(((CompiledDoubleFunction) compiled).isColumnar());
+        final Record record = new Record() {
+            @Override
+            public double getDouble(int col) {
+                return col == 0 ? 2 : 5;
+            }
+        };
+        Assert.assertEquals(7, compiled.getDouble(record), 0.0);
+    }
+
+    private void assertProjectedAggregates(String query, String expected) throws Exception {
+        sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+        assertSql(query, expected);
+        final StringSink plan = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, "explain " + query, plan);
+        Assert.assertFalse(Chars.contains(plan, "vectorized: true"));
+
+        sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_ENABLED);
+        assertSql(query, expected);
+        plan.clear();
+        TestUtils.printSql(compiler, sqlExecutionContext, "explain " + query, plan);
+        TestUtils.assertContains(plan, "vectorized: true");
+    }
+
+    private static class MaxFunction extends DoubleFunction implements BinaryFunction, DoubleArithmeticFunction {
+        private final Function left;
+        private final Function right;
+
+        private MaxFunction(Function left, Function right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public int getArithmeticOperator() {
+            // not an operator the compiler knows
+            return -1;
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return Math.max(left.getDouble(rec), right.getDouble(rec));
+        }
+
+        @Override
+        public Function getLeft() {
+            return left;
+        }
+
+        @Override
+        public Function getRight() {
+            return right;
+        }
+    }
+}
@@ -142,6 +142,20 @@ public class LikeFunctionFactoryTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testLikeStringLiteralPatterns() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x ( s string ) ");
+            compile("insert into x values ( 'abc' ), ( 'xabcx' ), ( 'ab' ), ( null ), ( 'bc' ) ");
+
+            assertLike("s\nabc\n", "select * from x where s like 'abc'");
+            assertLike("s\nabc\nab\n", "select * from x where s like 'ab%'");
+            assertLike("s\nabc\nbc\n", "select * from x where s like '%bc'");
+            assertLike("s\nabc\nxabcx\nbc\n", "select * from x where s like '%bc%'");
+            assertLike("s\nabc\nxabcx\nab\nbc\n", "select * from x where s like '%%'");
+        });
+    }
+
     @Test
     public void testLikeStringPercentageAtStart() throws Exception {
         assertMemoryLeak(() -> {
@@ -122,12 +122,18 @@ public class GroupByFunctionCaseTest extends AbstractGriffinTest {
                     }
 
                     boolean vectorized = (t >= INT && t <= TIMESTAMP && f > 1) || t == DOUBLE;
+                    // min(char) doesn't support merging of partial results
+                    boolean parallel = !vectorized && !(t == CHAR && f == 4);
 
                     planSink.clear();
-                    planSink.put("GroupBy vectorized: ").put(vectorized).put("\n")
-                            .put("  keys: [key]\n")
+                    if (parallel) {
+                        planSink.put("Async Group By\n");
+                    } else {
+                        planSink.put("GroupBy vectorized: ").put(vectorized).put("\n");
+                    }
+                    planSink.put("  keys: [key]\n")
                             .put("  values: [").put(expectedFunction).put("]\n")
-                            .put(vectorized ? "  workers: 1\n" : "")
+                            .put(vectorized || parallel ? "  workers: 1\n" : "")
                             .put("    DataFrame\n" +
                                     "        Row forward scan\n" +
                                     "        Frame forward scan on: test\n");
@@ -169,7 +175,7 @@ public class GroupByFunctionCaseTest extends AbstractGriffinTest {
                     sqlSink.put("select key1, key2, ").put(function).put("(val) agg from test group by key1, key2;");
 
                     try {
-                        Assert.assertTrue(Chars.contains(getPlanSink(sqlSink).getSink(), "vectorized: false"));
+                        Assert.assertFalse(Chars.contains(getPlanSink(sqlSink).getSink(), "vectorized: true"));
                     } catch (Exception ae) {
                         throwWithContext(typeName, function, ae);
                     }
@@ -219,8 +225,9 @@ public class GroupByFunctionCaseTest extends AbstractGriffinTest {
                             "      keys: [candle_st,venue]\n" +
                             "      values: [count(*),sum(qty*price),sum(qty)]\n" +
                             "        SelectedRecord\n" +
-                            "            Async Filter\n" +
-                            "              filter: (instrument_key ~ ETH.USD.S..*? and venue in [CBS,FUS,LMX,BTS])\n" +
+                            "            Async JIT Filter\n" +
+                            "              filter: venue in [CBS,FUS,LMX,BTS]\n" +
+                            "              residual filter: instrument_key ~ ETH.USD.S..*?\n" +
                             "              workers: 1\n" +
                             "                DataFrame\n" +
                             "                    Row forward scan\n" +
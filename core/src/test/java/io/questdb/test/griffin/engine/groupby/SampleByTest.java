@@ -2377,7 +2377,7 @@ public class SampleByTest extends AbstractGriffinTest {
                         " timestamp_sequence(172800000001, 3600000000) k" +
                         " from" +
                         " long_sequence(20)" +
-                        ") timestamp(k) partition by NONE", "k", false, false);
+                        ") timestamp(k) partition by NONE", "k", true, false);
     }
 
     @Test
@@ -2577,8 +2577,9 @@ public class SampleByTest extends AbstractGriffinTest {
                             "  keys: [tstmp,sym]\n" +
                             "  values: [first(val),avg(val),last(val),max(val)]\n" +
                             "    SelectedRecord\n" +
-                            "        Async Filter\n" +
-                            "          filter: ((ts2>=1669852800000000 and sym='B') and 0<length(sym)*ts2::long)\n" +
+                            "        Async JIT Filter\n" +
+                            "          filter: sym='B'\n" +
+                            "          residual filter: (ts2>=1669852800000000 and 0<length(sym)*ts2::long)\n" +
                             "          workers: 1\n" +
                             "            DataFrame\n" +
                             "                Row forward scan\n" +
@@ -3450,8 +3451,8 @@ public class SampleByTest extends AbstractGriffinTest {
                         " long_sequence(100)" +
                         ") timestamp(k) partition by NONE",
                 "k",
-                false,
-                false
+                true,
+                true
         );
     }
 
@@ -3477,8 +3478,8 @@ public class SampleByTest extends AbstractGriffinTest {
                         " long_sequence(100)" +
                         ") timestamp(k) partition by NONE",
                 "k",
-                false,
-                false
+                true,
+                true
         );
     }
 
@@ -4758,6 +4759,8 @@ public class SampleByTest extends AbstractGriffinTest {
                         "UVSD\t49.42890511958454\t1970-01-04T06:30:00.000000Z\n" +
                         "\t58.912164838797885\t1970-01-04T07:30:00.000000Z\n" +
                         "KGHV\t67.52509547112409\t1970-01-04T08:30:00.000000Z\n",
+                true,
+                true,
                 false
         );
     }
@@ -9782,7 +9785,7 @@ public class SampleByTest extends AbstractGriffinTest {
                         " long_sequence(0)" +
                         ") timestamp(k) partition by NONE",
                 "k",
-                false);
+                true);
     }
 
     @Test
@@ -810,9 +810,13 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
                 @Nullable RecordSink partitionBySink,
                 @Nullable ColumnTypes keyTypes,
                 boolean isOrdered,
-                boolean baseSupportsRandomAccess
+                boolean baseSupportsRandomAccess,
+                int framingMode,
+                long frameLo,
+                long frameHi,
+                int timestampIndex
         ) {
-            sqlExecutionContext.configureAnalyticContext(partitionByRecord, partitionBySink, keyTypes, isOrdered, baseSupportsRandomAccess);
+            sqlExecutionContext.configureAnalyticContext(partitionByRecord, partitionBySink, keyTypes, isOrdered, baseSupportsRandomAccess, framingMode, frameLo, frameHi, timestampIndex);
         }
 
         @Override
@@ -890,11 +894,36 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
             return sqlExecutionContext.isColumnPreTouchEnabled();
         }
 
+        @Override
+        public boolean isParallelAsOfJoinEnabled() {
+            return sqlExecutionContext.isParallelAsOfJoinEnabled();
+        }
+
         @Override
         public boolean isParallelFilterEnabled() {
             return sqlExecutionContext.isParallelFilterEnabled();
         }
 
+        @Override
+        public boolean isParallelGroupByEnabled() {
+            return sqlExecutionContext.isParallelGroupByEnabled();
+        }
+
+        @Override
+        public boolean isParallelHashJoinEnabled() {
+            return sqlExecutionContext.isParallelHashJoinEnabled();
+        }
+
+        @Override
+        public boolean isParallelLatestByEnabled() {
+            return sqlExecutionContext.isParallelLatestByEnabled();
+        }
+
+        @Override
+        public boolean isParallelSortEnabled() {
+            return sqlExecutionContext.isParallelSortEnabled();
+        }
+
         @Override
         public boolean isTimestampRequired() {
             return sqlExecutionContext.isTimestampRequired();
@@ -935,11 +964,36 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
             sqlExecutionContext.setNowAndFixClock(now);
         }
 
+        @Override
+        public void setParallelAsOfJoinEnabled(boolean parallelAsOfJoinEnabled) {
+            sqlExecutionContext.setParallelAsOfJoinEnabled(parallelAsOfJoinEnabled);
+        }
+
         @Override
         public void setParallelFilterEnabled(boolean parallelFilterEnabled) {
             sqlExecutionContext.setParallelFilterEnabled(parallelFilterEnabled);
         }
 
+        @Override
+        public void setParallelGroupByEnabled(boolean parallelGroupByEnabled) {
+            sqlExecutionContext.setParallelGroupByEnabled(parallelGroupByEnabled);
+        }
+
+        @Override
+        public void setParallelHashJoinEnabled(boolean parallelHashJoinEnabled) {
+            sqlExecutionContext.setParallelHashJoinEnabled(parallelHashJoinEnabled);
+        }
+
+        @Override
+        public void setParallelLatestByEnabled(boolean parallelLatestByEnabled) {
+            sqlExecutionContext.setParallelLatestByEnabled(parallelLatestByEnabled);
+        }
+
+        @Override
+        public void setParallelSortEnabled(boolean parallelSortEnabled) {
+            sqlExecutionContext.setParallelSortEnabled(parallelSortEnabled);
+        }
+
         @Override
         public void setRandom(Rnd rnd) {
             sqlExecutionContext.setRandom(rnd);
@@ -1370,6 +1370,104 @@ public class WalTableSqlTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testWalSquashedOrderedTransactionsMerged() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = testName.getMethodName();
+            compile("create table " + tableName + " (batch int, x long, s string, ts timestamp) timestamp(ts) partition by DAY WAL");
+            compile("create table src (batch int, x long, s string, ts timestamp) timestamp(ts) partition by DAY");
+            for (int i = 0; i < 6; i++) {
+                compile("insert into src select " + i + ", x, rnd_str(3, 10, 1), timestamp_sequence(1645660800000000L + " + 13 * i + ", 1000000) from long_sequence(10000)");
+            }
+
+            // each transaction is ordered, but they overlap, WAL apply squashes
+            // them into the lag and merges the sorted runs on commit
+            for (int i = 0; i < 6; i++) {
+                compile("insert into " + tableName + " select * from src where batch = " + i);
+            }
+            drainWalQueue();
+
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "src",
+                    tableName,
+                    LOG
+            );
+
+            // a single out-of-order transaction falls back to sorting
+            compile("insert into src select 6, x, rnd_str(3, 10, 1), rnd_timestamp(1645660800000000L, 1645747200000000L, 0) from long_sequence(1000)");
+            compile("insert into " + tableName + " select * from src where batch = 6");
+            drainWalQueue();
+
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "select count(), sum(x), count_distinct(s) from src",
+                    "select count(), sum(x), count_distinct(s) from " + tableName,
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testWalSymbolKeyNotMappedSuspendsTable() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = testName.getMethodName();
+            compile("create table " + tableName + " (sym symbol, ts timestamp) timestamp(ts) partition by DAY WAL");
+            TableToken tableToken = engine.verifyTableName(tableName);
+            try (
+                    WalWriter walWriter1 = engine.getWalWriter(tableToken);
+                    WalWriter walWriter2 = engine.getWalWriter(tableToken)
+            ) {
+                TableWriter.Row row = walWriter1.newRow(IntervalUtils.parseFloorPartialTimestamp("2022-02-24T01"));
+                row.putSym(0, "a");
+                row.append();
+                walWriter1.commit();
+
+                // the second WAL has its own symbol keys, they have to be remapped to the table keys
+                row = walWriter2.newRow(IntervalUtils.parseFloorPartialTimestamp("2022-02-24T02"));
+                row.putSym(0, "b");
+                row.append();
+                // key that is not in the WAL symbol map
+                row = walWriter2.newRow(IntervalUtils.parseFloorPartialTimestamp("2022-02-24T03"));
+                row.putInt(0, 5);
+                row.append();
+                walWriter2.commit();
+            }
+
+            drainWalQueue();
+
+            assertSql("wal_tables()", "name\tsuspended\twriterTxn\tsequencerTxn\n" +
+                    tableName + "\ttrue\t1\t2\n");
+        });
+    }
+
+    @Test
+    public void testWalSymbolsRemappedInChunks() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = testName.getMethodName();
+            compile("create table " + tableName + " (sym symbol, sym2 symbol, x long, ts timestamp) timestamp(ts) partition by DAY WAL");
+            compile("create table src1 as (select rnd_symbol(1000, 4, 8, 2) sym, rnd_symbol('a', 'b', 'c') sym2, x, timestamp_sequence('2022-02-24', 100000) ts from long_sequence(300000))");
+            compile("create table src2 as (select rnd_symbol(2000, 4, 8, 2) sym, rnd_symbol('d', 'c', 'a') sym2, x, rnd_timestamp('2022-02-24', '2022-02-27', 0) ts from long_sequence(400000))");
+
+            // both transactions are written before the first one is applied, so symbol keys
+            // of the second transaction have to be remapped, the row count exceeds remap chunk size
+            compile("insert into " + tableName + " select * from src1");
+            compile("insert into " + tableName + " select * from src2");
+            drainWalQueue();
+
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "select sym, sym2, count(), sum(x) from (src1 union all src2) order by sym, sym2",
+                    "select sym, sym2, count(), sum(x) from " + tableName + " order by sym, sym2",
+                    LOG,
+                    true
+            );
+        });
+    }
+
     @Test
     public void testWhenApplyJobTerminatesEarlierLagCommitted() throws Exception {
         AtomicBoolean isTerminating = new AtomicBoolean();
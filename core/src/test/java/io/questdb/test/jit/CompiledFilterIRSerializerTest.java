@@ -127,6 +127,12 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         }
     }
 
+    @Test
+    public void testBetween() throws Exception {
+        serialize("along between 10 and 5");
+        assertIR("(i64 10L)(i64 along)(<=)(i64 5L)(i64 along)(>=)(&&)(ret)");
+    }
+
     @Test
     public void testBindVariables() throws Exception {
         bindVariableService.clear();
@@ -284,6 +290,45 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         }
     }
 
+    @Test
+    public void testInInterval() throws Exception {
+        serialize("atimestamp in '1970-01-02'");
+        assertIR("(i64 172799999999L)(i64 atimestamp)(<=)(i64 86400000000L)(i64 atimestamp)(>=)(&&)(ret)");
+    }
+
+    @Test
+    public void testInListNumeric() throws Exception {
+        serialize("anint in (1, -2, 3)");
+        assertIR("(i32 1L)(i32 anint)(=)(i32 -2L)(i32 anint)(=)(||)(i32 3L)(i32 anint)(=)(||)(ret)");
+    }
+
+    @Test
+    public void testInListSymbolBindVariables() throws Exception {
+        bindVariableService.clear();
+        bindVariableService.setStr("s1", KNOWN_SYMBOL_1);
+        bindVariableService.setStr("s2", UNKNOWN_SYMBOL);
+
+        serialize("asymbol in (:s1, :s2)");
+        assertIR("(i32 :0)(i32 asymbol)(=)(i32 :1)(i32 asymbol)(=)(||)(ret)");
+
+        Assert.assertEquals(2, bindVarFunctions.size());
+    }
+
+    @Test
+    public void testInListSymbols() throws Exception {
+        serialize("asymbol in ('" + KNOWN_SYMBOL_1 + "', '" + UNKNOWN_SYMBOL + "')");
+        assertIR("(i32 0L)(i32 asymbol)(=)(i32 :0)(i32 asymbol)(=)(||)(ret)");
+
+        Assert.assertEquals(1, bindVarFunctions.size());
+        Assert.assertEquals(UNKNOWN_SYMBOL, bindVarFunctions.get(0).getStr(null));
+    }
+
+    @Test
+    public void testInListTimestamps() throws Exception {
+        serialize("atimestamp in ('1970-01-01T00:00:00.000001Z', 2)");
+        assertIR("(i64 1L)(i64 atimestamp)(=)(i64 2L)(i64 atimestamp)(=)(||)(ret)");
+    }
+
     @Test(expected = SqlException.class)
     public void testInvalidUuidConstant() throws Exception {
         serialize("auuid = '111111110111101111011110111111111111'");
@@ -325,6 +370,12 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         assertIR("(i16 0L)(i16 ashort)(neg)(>)(ret)");
     }
 
+    @Test
+    public void testNotInList() throws Exception {
+        serialize("not (achar in ('a', 'b'))");
+        assertIR("(i16 97L)(i16 achar)(=)(i16 98L)(i16 achar)(=)(||)(!)(ret)");
+    }
+
     @Test
     public void testNullConstantMixedFloatColumns() throws Exception {
         serialize("afloat + adouble <> null");
@@ -495,6 +546,11 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         Assert.assertEquals(UNKNOWN_SYMBOL, bindVarFunctions.get(0).getStr(null));
     }
 
+    @Test(expected = SqlException.class)
+    public void testUnsupportedBetweenDoubleColumn() throws Exception {
+        serialize("adouble between 1 and 2");
+    }
+
     @Test(expected = SqlException.class)
     public void testUnsupportedBindVariableType() throws Exception {
         bindVariableService.clear();
@@ -577,6 +633,20 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         serialize("ageolong = #sp052w92p1p8889");
     }
 
+    @Test(expected = SqlException.class)
+    public void testUnsupportedInListNullNumber() throws Exception {
+        serialize("along in (1, null)");
+    }
+
+    @Test(expected = SqlException.class)
+    public void testUnsupportedInListTooLong() throws Exception {
+        StringBuilder sb = new StringBuilder("anint in (0");
+        for (int i = 1; i < 100; i++) {
+            sb.append(',').append(i);
+        }
+        serialize(sb.append(')'));
+    }
+
     @Test(expected = SqlException.class)
     public void testUnsupportedInvalidGeoHashConstant() throws Exception {
         serialize("ageolong = ##11211");